@@ -0,0 +1,102 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * This file Copyright (C) 2026 Jeremy D Monin <jeremy@nand.net>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The maintainer of this program can be reached at jsettlers@nand.net
+ **/
+
+package soctest.game;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import soc.game.SOCGame;
+import soc.game.SOCPlayer;
+import soc.game.SOCRoad;
+import soc.game.SOCRoutePiece;
+import soc.game.SOCShip;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Microbenchmark of {@link SOCPlayer#calcLongestRoad2()}'s incremental calculation vs
+ * {@link SOCPlayer#calcLongestRoad2_fullSearch()} on a 6-player large sea board,
+ * in the pattern robots use to evaluate possible roads and ships: For each one, place it on a copy
+ * of the player, calculate, then remove it.
+ * Run with gradle task {@code jmh}; results are checked for equality by unit test {@link TestLongestRoute}.
+ * @since 2.7.00
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class BenchLongestRoute
+{
+    /** If true, use {@link SOCPlayer#calcLongestRoad2_fullSearch()}, otherwise incremental */
+    @Param({"true", "false"})
+    public boolean fullSearch;
+
+    private SOCGame ga;
+
+    @Setup
+    public void setup()
+    {
+        TestLongestRoute.setup();
+        ga = TestLongestRoute.startGame(6, null, "SBL=t", "seaBenchmark");
+        TestLongestRoute.placeRandomly(ga, new Random(2718), 400);
+    }
+
+    /**
+     * For each player, calculate longest route with each of their potential roads and ships.
+     * @return total of calculated lengths
+     */
+    @Benchmark
+    public int trialPieces()
+    {
+        int total = 0;
+        for (int pn = 0; pn < ga.maxPlayers; ++pn)
+        {
+            final SOCPlayer pl = ga.getPlayer(pn);
+            pl.calcLongestRoad2();  // as if game just updated it
+            final SOCPlayer dummy = new SOCPlayer(pl, "dummy");
+            for (int type = 0; type <= 1; ++type)
+                for (final int edge : TestLongestRoute.potentialRoutes(dummy, type == 1))
+                {
+                    final SOCRoutePiece rs = (type == 1)
+                        ? new SOCShip(dummy, edge, null) : new SOCRoad(dummy, edge, null);
+                    dummy.putPiece(rs, true);
+                    total += (fullSearch) ? dummy.calcLongestRoad2_fullSearch() : dummy.calcLongestRoad2();
+                    dummy.removePiece(rs, null);
+                }
+            dummy.destroyPlayer();
+        }
+
+        return total;
+    }
+
+}
@@ -0,0 +1,77 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * This file Copyright (C) 2026 Jeremy D Monin <jeremy@nand.net>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The maintainer of this program can be reached at jsettlers@nand.net
+ **/
+
+package soctest.message;
+
+import java.util.concurrent.TimeUnit;
+
+import soc.message.SOCMessage;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Microbenchmark of text ({@link SOCMessage#toCmd()}) vs binary ({@link SOCMessage#toBinaryCmd()})
+ * message encodings: Encode then decode each message from {@link TestSOCMessageBinary#buildBenchmarkMessages()}.
+ * Run with gradle task {@code jmh}; sizes are checked by unit test {@link TestSOCMessageBinary}.
+ * @since 2.7.00
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class BenchSOCMessageBinary
+{
+    private SOCMessage[] msgs;
+
+    @Setup
+    public void setup()
+    {
+        msgs = TestSOCMessageBinary.buildBenchmarkMessages();
+    }
+
+    /** Encode and decode all messages with {@link SOCMessage#toCmd()}. */
+    @Benchmark
+    public void textEncodeDecode(final Blackhole bh)
+    {
+        for (final SOCMessage msg : msgs)
+            bh.consume(SOCMessage.toMsg(msg.toCmd()));
+    }
+
+    /** Encode and decode all messages with {@link SOCMessage#toBinaryCmd()}. */
+    @Benchmark
+    public void binaryEncodeDecode(final Blackhole bh)
+    {
+        for (final SOCMessage msg : msgs)
+            bh.consume(SOCMessage.toMsg(msg.toBinaryCmd()));
+    }
+
+}
@@ -0,0 +1,102 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * This file Copyright (C) 2026 Jeremy D Monin <jeremy@nand.net>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The maintainer of this program can be reached at jsettlers@nand.net
+ **/
+
+package soctest.robot;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import soc.game.SOCResourceSet;
+import soc.robot.SOCBuildingSpeedEstimate;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Microbenchmark of {@link SOCBuildingSpeedEstimate}'s original {@link SOCResourceSet}-based
+ * rolls calculations vs the array-based ones, on the same random players, resources and targets.
+ * Run with gradle task {@code jmh}; results are checked for equality by unit test {@link TestBuildingSpeedEstimateCalc}.
+ * @since 2.7.00
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class BenchBuildingSpeedEstimateCalc
+{
+    /** If true, use the original set-based calculations, otherwise the array-based ones */
+    @Param({"true", "false"})
+    public boolean bySets;
+
+    /** Number of random estimators and inputs per benchmark call */
+    private static final int N = 100;
+
+    private TestBuildingSpeedEstimateCalc.CalcBSE[] bses;
+
+    private SOCResourceSet[] starts, targets;
+
+    private boolean[][] ports;
+
+    @Setup
+    public void setup()
+    {
+        final Random rand = new Random(2715);
+        bses = new TestBuildingSpeedEstimateCalc.CalcBSE[N];
+        starts = new SOCResourceSet[N];
+        targets = new SOCResourceSet[N];
+        ports = new boolean[N][];
+        for (int i = 0; i < N; ++i)
+        {
+            bses[i] = TestBuildingSpeedEstimateCalc.makeEstimator(rand);
+            starts[i] = TestBuildingSpeedEstimateCalc.makeStart(rand);
+            targets[i] = TestBuildingSpeedEstimateCalc.TARGETS[rand.nextInt(TestBuildingSpeedEstimateCalc.TARGETS.length)];
+            ports[i] = TestBuildingSpeedEstimateCalc.makePorts(rand);
+        }
+    }
+
+    /** Fast calculation for each of the {@link #N} inputs. */
+    @Benchmark
+    public void fastCalc(final Blackhole bh)
+    {
+        for (int i = 0; i < N; ++i)
+            bh.consume(bses[i].fast(bySets, starts[i], targets[i], 100, ports[i]));
+    }
+
+    /** Accurate calculation for each of the {@link #N} inputs. */
+    @Benchmark
+    public void accurateCalc(final Blackhole bh)
+    {
+        for (int i = 0; i < N; ++i)
+            bh.consume(bses[i].accurate(bySets, starts[i], targets[i], 100, ports[i]));
+    }
+
+}
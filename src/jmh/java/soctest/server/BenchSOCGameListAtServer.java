@@ -0,0 +1,150 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * This file Copyright (C) 2026 Jeremy D Monin <jeremy@nand.net>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The maintainer of this program can be reached at jsettlers@nand.net
+ **/
+
+package soctest.server;
+
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import soc.game.SOCGameOptionSet;
+import soc.server.SOCGameHandler;
+import soc.server.SOCGameListAtServer;
+import soc.server.genericServer.Connection;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Microbenchmark of {@link SOCGameListAtServer} contention, like many bot games on a busy server:
+ * Each thread plays turns in random games under their game monitors, sending to each member,
+ * with an occasional bot leaving and rejoining. Another benchmark scans every game's members
+ * without locks, like a server-wide broadcast.
+ * Run with gradle task {@code jmh}; correctness under contention is checked by unit test
+ * {@link TestSOCGameListAtServer#testManyParallelBotGames()}.
+ * @since 2.7.00
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(8)
+public class BenchSOCGameListAtServer
+{
+    /** Number of games in the list */
+    @Param({"300"})
+    public int numGames;
+
+    private static final int BOTS_PER_GAME = 4;
+
+    private SOCGameListAtServer gl;
+
+    private String[] gaNames;
+
+    /** Each game's members, same index as {@link #gaNames} */
+    private BenchConn[][] seated;
+
+    /** Minimal connection, only used as a game member */
+    private static final class BenchConn extends Connection
+    {
+        public BenchConn(final String name) { data = name; setVersion(2700, true); }
+        public String host() { return "bench"; }
+        public void put(String str) {}
+        public void run() {}
+        public boolean isConnected() { return true; }
+        public boolean connect() { return true; }
+        public void disconnect() {}
+        public void disconnectSoft() {}
+        public boolean isInputAvailable() { return false; }
+    }
+
+    @Setup
+    public void setup()
+    {
+        final SOCGameHandler sgh = new SOCGameHandler(null);
+        gl = new SOCGameListAtServer(new Random(), SOCGameOptionSet.getAllKnownOptions());
+        gaNames = new String[numGames];
+        seated = new BenchConn[numGames][BOTS_PER_GAME];
+
+        gl.takeMonitor();
+        try
+        {
+            for (int g = 0; g < numGames; ++g)
+                gaNames[g] = gl.createGame("~botsOnly~" + g, null, null, null, sgh).getName();
+        } finally {
+            gl.releaseMonitor();
+        }
+
+        for (int g = 0; g < numGames; ++g)
+            for (int b = 0; b < BOTS_PER_GAME; ++b)
+            {
+                seated[g][b] = new BenchConn("droid " + g + "." + b);
+                gl.addMember(seated[g][b], gaNames[g]);
+            }
+    }
+
+    /** Play a turn in a random game under its monitor; 1 in 20 turns, a bot leaves and rejoins. */
+    @Benchmark
+    public void gameTurn()
+    {
+        final ThreadLocalRandom rand = ThreadLocalRandom.current();
+        final int g = rand.nextInt(numGames);
+        final String gaName = gaNames[g];
+
+        gl.takeMonitorForGame(gaName);
+        try
+        {
+            for (Connection c : gl.getMembers(gaName))
+                c.put("turn");
+
+            if (rand.nextInt(20) == 0)
+            {
+                final BenchConn c = seated[g][rand.nextInt(BOTS_PER_GAME)];
+                gl.removeMember(c, gaName);
+                gl.addMember(c, gaName);
+            }
+        } finally {
+            gl.releaseMonitorForGame(gaName);
+        }
+    }
+
+    /** Iterate all games' members without locks. */
+    @Benchmark
+    public void scanAllMembers(final Blackhole bh)
+    {
+        for (String gaName : gaNames)
+            for (Connection c : gl.getMembers(gaName))
+                bh.consume(c);
+    }
+
+}
@@ -27,6 +27,8 @@
 --	games:  Obsoleted by games2. Upgrade won't delete it, but new games won't be added to it
 --	games2: Normalized "games" table with per-player sub-table; also added scenario field
 --	games2_players: Sub-table: Score for 1 player in a game
+--   2026-10-17 v2.7.00:
+--	user_stats: Summary of each user's games per game type, kept up to date when games are saved
 
 -- DB Schema Version / upgrade history: Added in v1.2.00 (schema version 1200).
 -- At startup, SOCDBHelper checks max(to_vers) here for this db's schema version.
@@ -112,6 +114,20 @@ CREATE TABLE games2_players (
 	PRIMARY KEY(gameid, player)
 	);
 
+-- Summary of each user's completed games, for leaderboards and per-user stats without scanning games2.
+-- Updated by SOCDBHelper.saveGameScores, even if games2 rows aren't saved.
+-- Has rows only for players who are users in the users table.
+CREATE TABLE user_stats (
+	nickname VARCHAR(20) not null,
+	gametype VARCHAR(16) not null,  -- '*' for all games, '-' for no scenario, or scenario name key
+	games_played INT not null, games_won INT not null, games_lost INT not null,
+	vp_total INT not null,  -- total VP at end of games; average is vp_total / games_played
+	PRIMARY KEY (nickname, gametype)
+	);
+
+CREATE INDEX user_stats__w ON user_stats(gametype, games_won);
+CREATE INDEX user_stats__g ON user_stats(gametype, games_played);
+
 
 -- tradeFlag is always 1 or 0; using SMALLINT to be db-neutral.
 CREATE TABLE robotparams (
@@ -124,12 +140,12 @@ CREATE TABLE robotparams (
 -- Mark this newly created db's schema version:
 -- reminder: sqlite has no session timezone setting, only the server process's TZ
 INSERT INTO db_version(from_vers, to_vers, ddl_done, bg_tasks_done)
-	VALUES(0, 2000, strftime('%s000', 'now'), strftime('%s000', 'now'));
+	VALUES(0, 2700, strftime('%s000', 'now'), strftime('%s000', 'now'));
 
 
 -- This file is part of the JSettlers project.
 --
---  This file Copyright (C) 2012,2014-2017,2019-2022 Jeremy D Monin (jeremy@nand.net)
+--  This file Copyright (C) 2012,2014-2017,2019-2022,2026 Jeremy D Monin (jeremy@nand.net)
 --  Portions of this file Copyright (C) 2004-2005 Chadwick A McHenry (mchenryc@acm.org)
 --
 --  This program is free software: you can redistribute it and/or modify
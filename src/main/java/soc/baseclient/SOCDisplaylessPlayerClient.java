@@ -439,6 +439,15 @@ public class SOCDisplaylessPlayerClient implements Runnable
         if (mes == null)
             return;  // Msg parsing error
 
+        if (mes instanceof SOCMessageBatch)
+        {
+            // treat each contained message, in order, through the possibly overridden treat method
+            for (final SOCMessage m : ((SOCMessageBatch) mes).getMessages())
+                treat(m);
+
+            return;
+        }
+
         if ((debugTraffic || D.ebugIsEnabled()) && (! didDebugPrintAlready)
             && ! ((mes instanceof SOCServerPing) && (nextServerPingExpectedAt != 0)
                   && (Math.abs(System.currentTimeMillis() - nextServerPingExpectedAt) <= 66000)))
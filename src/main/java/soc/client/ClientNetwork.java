@@ -1,6 +1,6 @@
 /**
  * Java Settlers - An online multiplayer version of the game Settlers of Catan
- * This file copyright (C) 2019-2023 Jeremy D Monin <jeremy@nand.net>
+ * This file copyright (C) 2019-2023,2026 Jeremy D Monin <jeremy@nand.net>
  * Extracted in 2019 from SOCPlayerClient.java, so:
  * Portions of this file Copyright (C) 2003  Robert S. Thomas <thomas@infolab.northwestern.edu>
  * Portions of this file Copyright (C) 2012-2013 Paul Bilnoski <paul@bilnoski.net>
@@ -151,6 +151,8 @@ import soc.util.Version;
         cliFeats.add(SOCFeatureSet.CLIENT_6_PLAYERS);
         cliFeats.add(SOCFeatureSet.CLIENT_SEA_BOARD);
         cliFeats.add(SOCFeatureSet.CLIENT_SCENARIO_VERSION, Version.versionNumber());
+        cliFeats.add(SOCFeatureSet.CLIENT_BINARY_MESSAGES);
+        cliFeats.add(SOCFeatureSet.CLIENT_MESSAGE_BATCH);
     }
 
     /**
@@ -127,6 +127,14 @@ public class MessageHandler
         if (mes == null)
             return;  // Parsing error
 
+        if (mes instanceof SOCMessageBatch)
+        {
+            for (final SOCMessage m : ((SOCMessageBatch) mes).getMessages())
+                handle(m, isPractice);
+
+            return;
+        }
+
         if (client.debugTraffic || D.ebugIsEnabled())
             soc.debug.D.ebugPrintlnINFO(mes.toString());
 
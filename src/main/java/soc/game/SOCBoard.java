@@ -1,7 +1,7 @@
 /**
  * Java Settlers - An online multiplayer version of the game Settlers of Catan
  * Copyright (C) 2003  Robert S. Thomas <thomas@infolab.northwestern.edu>
- * Portions of this file Copyright (C) 2007-2025 Jeremy D Monin <jeremy@nand.net>
+ * Portions of this file Copyright (C) 2007-2026 Jeremy D Monin <jeremy@nand.net>
  * Portions of this file Copyright (C) 2012 Paul Bilnoski <paul@bilnoski.net>
  * Portions of this file Copyright (C) 2017 Ruud Poutsma <rtimon@gmail.com>
  * Portions of this file Copyright (C) 2017-2018 Strategic Conversation (STAC Project) https://www.irit.fr/STAC/
@@ -708,6 +708,13 @@ public abstract class SOCBoard implements Serializable, Cloneable
      */
     protected HashSet<Integer> nodesOnLand = new HashSet<Integer>();
 
+    /**
+     * This board geometry's shared adjacency tables, or null if not yet needed.
+     * Set and read by {@link #getAdjacency()}.
+     * @since 2.7.00
+     */
+    private transient SOCBoardAdjacency adjacency;
+
     /**
      * Minimal super constructor for subclasses.
      * Initializes common fields like {@link #ports} as empty structures,
@@ -2008,6 +2015,34 @@ public abstract class SOCBoard implements Serializable, Cloneable
         }
     }
 
+    /**
+     * Make a copy of this board for {@link SOCGame#copyForTrialPieces()}, with its own lists of
+     * roads/ships, settlements, and cities so that {@link #putPiece(SOCPlayingPiece)} and
+     * {@link #removePiece(SOCPlayingPiece)} don't affect this board. The layout, ports,
+     * and other fields are shared with this board, so don't change them.
+     *
+     * @return  a copy of this board for trial pieces
+     * @throws IllegalStateException if the board can't be cloned; would be an internal error
+     * @since 2.7.00
+     */
+    SOCBoard copyForTrialPieces()
+        throws IllegalStateException
+    {
+        final SOCBoard copy;
+        try
+        {
+            copy = (SOCBoard) clone();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException("Can't copy board", e);
+        }
+
+        copy.roadsAndShips = new ArrayList<SOCRoutePiece>(roadsAndShips);
+        copy.settlements = new ArrayList<SOCSettlement>(settlements);
+        copy.cities = new ArrayList<SOCCity>(cities);
+
+        return copy;
+    }
+
     /**
      * Get the list of roads and ships.
      *<P>
@@ -2421,6 +2456,34 @@ public abstract class SOCBoard implements Serializable, Cloneable
         return hexes;
     }
 
+    /**
+     * Get the coordinates of the valid hexes adjacent to this node, into a caller-supplied array
+     * to avoid allocating. Same hexes in the same order as {@link #getAdjacentHexesToNode(int)}.
+     * Uses this board's shared {@link #getAdjacency()} tables, or calls that method
+     * if {@code coord} is outside them.
+     * @param coord  Node coordinate.  Is not checked for validity.
+     * @param into  Array to fill with the hex coordinates; length at least 3.
+     *    Elements after the returned count are unchanged.
+     * @return  Number of hexes placed in {@code into}, from 0 to 3
+     * @since 2.7.00
+     */
+    public final int getAdjacentHexesToNode(final int coord, final int[] into)
+    {
+        final SOCBoardAdjacency adj = getAdjacency();
+        final int idx = adj.indexOf(coord);
+        int n = 0;
+        if (idx >= 0)
+        {
+            for (int h = adj.nodeHexesStart(idx), end = adj.nodeHexesEnd(idx); h < end; ++h)
+                into[n++] = adj.nodeHexAt(h);
+        } else {
+            for (final int hex : getAdjacentHexesToNode(coord))
+                into[n++] = hex;
+        }
+
+        return n;
+    }
+
     /**
      * Get the valid edge coordinates adjacent to this node.
      * Calls {@link #getAdjacentEdgeToNode(int, int)}.
@@ -2453,11 +2516,28 @@ public abstract class SOCBoard implements Serializable, Cloneable
      */
     public final int[] getAdjacentEdgesToNode_arr(final int coord)
     {
-        int[] edges = new int[3];
+        return getAdjacentEdgesToNode_arr(coord, new int[3]);
+    }
+
+    /**
+     * Get the valid edge coordinates adjacent to this node, into a caller-supplied array
+     * to avoid allocating. Same results as {@link #getAdjacentEdgesToNode_arr(int)}.
+     * Uses this board's shared {@link #getAdjacency()} tables, or calculates
+     * with {@link #getAdjacentEdgeToNode(int, int)} if {@code coord} is outside them.
+     * @param coord  Node coordinate.  Is not checked for validity.
+     * @param into  Array to fill with the 3 edge coordinates; length at least 3.
+     *    Unused elements are set to -9.
+     * @return  {@code into}
+     * @since 2.7.00
+     */
+    public final int[] getAdjacentEdgesToNode_arr(final int coord, final int[] into)
+    {
+        final SOCBoardAdjacency adj = getAdjacency();
+        final int idx = adj.indexOf(coord);
         for (int i = 0; i < 3; ++i)
-            edges[i] = getAdjacentEdgeToNode(coord, i);
+            into[i] = (idx >= 0) ? adj.nodeToEdge(idx, i) : getAdjacentEdgeToNode(coord, i);
 
-        return edges;
+        return into;
     }
 
     /**
@@ -2705,11 +2785,28 @@ public abstract class SOCBoard implements Serializable, Cloneable
      */
     public final int[] getAdjacentNodesToNode_arr(final int coord)
     {
-        int nodes[] = new int[3];
+        return getAdjacentNodesToNode_arr(coord, new int[3]);
+    }
+
+    /**
+     * Get the valid node coordinates adjacent to this node, into a caller-supplied array
+     * to avoid allocating. Same results as {@link #getAdjacentNodesToNode_arr(int)}.
+     * Uses this board's shared {@link #getAdjacency()} tables, or calculates
+     * with {@link #getAdjacentNodeToNode(int, int)} if {@code coord} is outside them.
+     * @param coord  Node coordinate.  Is not checked for validity.
+     * @param into  Array to fill with the 3 node coordinates; length at least 3.
+     *    Unused elements are set to -9.
+     * @return  {@code into}
+     * @since 2.7.00
+     */
+    public final int[] getAdjacentNodesToNode_arr(final int coord, final int[] into)
+    {
+        final SOCBoardAdjacency adj = getAdjacency();
+        final int idx = adj.indexOf(coord);
         for (int i = 0; i < 3; ++i)
-            nodes[i] = getAdjacentNodeToNode(coord, i);
+            into[i] = (idx >= 0) ? adj.nodeToNode(idx, i) : getAdjacentNodeToNode(coord, i);
 
-        return nodes;
+        return into;
     }
 
     /**
@@ -3064,6 +3161,47 @@ public abstract class SOCBoard implements Serializable, Cloneable
         return node;
     }
 
+    /**
+     * The node coordinates adjacent to this hex in all 6 directions, into a caller-supplied array
+     * to avoid allocating. Same results as {@link #getAdjacentNodesToHex_arr(int)}.
+     * Uses this board's shared {@link #getAdjacency()} tables, or calls that method
+     * if {@code hexCoord} is outside them.
+     * @param hexCoord  Coordinate of this hex; not checked for validity
+     * @param into  Array to fill with the 6 node coordinates, clockwise from north; length at least 6
+     * @return  {@code into}
+     * @since 2.7.00
+     */
+    public final int[] getAdjacentNodesToHex_arr(final int hexCoord, final int[] into)
+    {
+        final SOCBoardAdjacency adj = getAdjacency();
+        final int idx = adj.indexOf(hexCoord);
+        if (idx >= 0)
+            for (int dir = 0; dir < 6; ++dir)
+                into[dir] = adj.hexToNode(idx, dir);
+        else
+            System.arraycopy(getAdjacentNodesToHex_arr(hexCoord), 0, into, 0, 6);
+
+        return into;
+    }
+
+    /**
+     * Get the precomputed adjacency tables for this board's geometry, shared with all other boards
+     * of the same encoding format and size. Built the first time any such board needs them.
+     * Used by allocation-free methods like {@link #getAdjacentNodesToNode_arr(int, int[])},
+     * which most callers should use instead of reading the tables directly.
+     * Call only after the board's constructor has set its size and coordinate limits.
+     * @return  This board's adjacency tables; not null
+     * @since 2.7.00
+     */
+    public final SOCBoardAdjacency getAdjacency()
+    {
+        SOCBoardAdjacency adj = adjacency;
+        if (adj == null)
+            adjacency = adj = SOCBoardAdjacency.forBoard(this);
+
+        return adj;
+    }
+
     /**
      * The hex touching an edge in a given direction,
      * either along its length or at one end node.
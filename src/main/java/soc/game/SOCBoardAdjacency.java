@@ -0,0 +1,252 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * This file Copyright (C) 2026 Jeremy D Monin <jeremy@nand.net>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The maintainer of this program can be reached at jsettlers@nand.net
+ **/
+package soc.game;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Precomputed adjacency tables for one board geometry: A board's encoding format,
+ * {@link SOCBoard#getBoardHeight()} and {@link SOCBoard#getBoardWidth()}, and for v1 and v2 encodings its
+ * node and edge coordinate limits. Built once from that board's own "adjacent" methods, then shared
+ * by every {@link SOCBoard} with the same geometry; call {@link #forBoard(SOCBoard)} to get one.
+ * Immutable and thread-safe.
+ *<P>
+ * Each coordinate within the board's bounds has a table index from {@link #indexOf(int)}.
+ * Nodes have 3 adjacent nodes and 3 adjacent edges, stored in flat arrays with 3 elements per index;
+ * hexes have 6 adjacent nodes, with 6 per index. The 1 to 3 hexes adjacent to a node
+ * are stored in compressed sparse row (CSR) format: {@link #nodeHexesStart(int)} and
+ * {@link #nodeHexesEnd(int)} give the range to use with {@link #nodeHexAt(int)}.
+ * Results are the same as the {@link SOCBoard} methods they were built from, in the same order,
+ * including -9 for "none" from {@link SOCBoard#getAdjacentNodeToNode(int, int)}
+ * and {@link SOCBoard#getAdjacentEdgeToNode(int, int)}.
+ *<P>
+ * Board code usually reads these through allocation-free {@link SOCBoard} methods like
+ * {@link SOCBoard#getAdjacentNodesToNode_arr(int, int[])}, which fall back to calculating
+ * for coordinates outside the table.
+ *<P>
+ * Assumes adjacency depends only on geometry: A {@link SOCBoard} subclass which overrides the adjacency
+ * methods to depend on anything else, such as the pieces on the board, can't use these tables.
+ *
+ * @author Jeremy D Monin &lt;jeremy@nand.net&gt;
+ * @since 2.7.00
+ */
+public final class SOCBoardAdjacency
+{
+    /**
+     * All tables built so far, keyed by {@link #geometryKey(SOCBoard)}.
+     * Small, since there are only a few board geometries.
+     */
+    private static final ConcurrentHashMap<Long, SOCBoardAdjacency> tables
+        = new ConcurrentHashMap<Long, SOCBoardAdjacency>();
+
+    /** Bit shift to get the row from a coordinate: 4 for v1 and v2 encodings, 8 for v3. */
+    private final int rowShift;
+
+    /** Number of rows and columns in the table; coordinates' rows and columns must be less than these. */
+    private final int numRows, numCols;
+
+    /** Node to node: 3 per index, in direction order, -9 for none. */
+    private final int[] nodeToNode;
+
+    /** Node to edge: 3 per index, in direction order, -9 for none. */
+    private final int[] nodeToEdge;
+
+    /** Hex to node: 6 per index, clockwise from north. */
+    private final int[] hexToNode;
+
+    /**
+     * Node to hex CSR row starts: Hexes adjacent to node at index {@code i} are
+     * {@link #nodeToHex}[{@code nodeToHexStart[i]}] up to but not including {@code nodeToHexStart[i + 1]}.
+     */
+    private final int[] nodeToHexStart;
+
+    /** Node to hex CSR values; see {@link #nodeToHexStart}. */
+    private final int[] nodeToHex;
+
+    /**
+     * Get the adjacency tables for this board's geometry, building them if this is the first board
+     * with that geometry.
+     * @param board  Board to get tables for; its size and encoding must already be set
+     * @return the tables shared by all boards of {@code board}'s geometry
+     */
+    public static SOCBoardAdjacency forBoard(final SOCBoard board)
+    {
+        return tables.computeIfAbsent(geometryKey(board), (k) -> new SOCBoardAdjacency(board));
+    }
+
+    /**
+     * Key for this board's geometry in {@link #tables}.
+     * @param board  Board to get key for
+     * @return a key combining the fields which determine {@code board}'s adjacency
+     */
+    private static Long geometryKey(final SOCBoard board)
+    {
+        long key = board.boardEncodingFormat;
+        key = (key << 8) | (board.boardHeight & 0xFF);
+        key = (key << 8) | (board.boardWidth & 0xFF);
+        key = (key << 8) | (board.minNode & 0xFF);
+        key = (key << 8) | (board.minEdge & 0xFF);
+        key = (key << 8) | (board.maxEdge & 0xFF);
+
+        return Long.valueOf(key);
+    }
+
+    /**
+     * Build the tables for a board's geometry, by calling that board's adjacency methods
+     * for every coordinate within its bounds.
+     * @param board  Board to build from
+     */
+    private SOCBoardAdjacency(final SOCBoard board)
+    {
+        if (board.boardEncodingFormat == SOCBoard.BOARD_ENCODING_LARGE)
+        {
+            rowShift = 8;
+            numRows = board.boardHeight + 1;
+            numCols = board.boardWidth + 1;
+        } else {
+            // v1 and v2 coordinates are 0x00 - 0xFF, regardless of board height and width
+            rowShift = 4;
+            numRows = 16;
+            numCols = 16;
+        }
+
+        final int n = numRows * numCols;
+        nodeToNode = new int[3 * n];
+        nodeToEdge = new int[3 * n];
+        hexToNode = new int[6 * n];
+        nodeToHexStart = new int[n + 1];
+        final int[] hexes = new int[3 * n];  // each node has at most 3
+        int numHexes = 0;
+
+        for (int r = 0, i = 0; r < numRows; ++r)
+        {
+            for (int c = 0; c < numCols; ++c, ++i)
+            {
+                final int coord = (r << rowShift) | c;
+                for (int dir = 0; dir < 3; ++dir)
+                {
+                    nodeToNode[3 * i + dir] = board.getAdjacentNodeToNode(coord, dir);
+                    nodeToEdge[3 * i + dir] = board.getAdjacentEdgeToNode(coord, dir);
+                }
+                System.arraycopy(board.getAdjacentNodesToHex_arr(coord), 0, hexToNode, 6 * i, 6);
+
+                nodeToHexStart[i] = numHexes;
+                for (final int hex : board.getAdjacentHexesToNode(coord))
+                    hexes[numHexes++] = hex;
+            }
+        }
+        nodeToHexStart[n] = numHexes;
+        nodeToHex = Arrays.copyOf(hexes, numHexes);
+    }
+
+    /**
+     * Get a coordinate's index in these tables, if it's within the board's bounds.
+     * @param coord  Node or hex coordinate; not checked for validity
+     * @return  Index into the tables, or -1 if {@code coord} is outside the tables
+     */
+    public int indexOf(final int coord)
+    {
+        if (coord < 0)
+            return -1;
+
+        final int r = coord >> rowShift, c = coord & ((1 << rowShift) - 1);
+        if ((r >= numRows) || (c >= numCols))
+            return -1;
+
+        return r * numCols + c;
+    }
+
+    /**
+     * Get a node's adjacent node in a given direction;
+     * same as {@link SOCBoard#getAdjacentNodeToNode(int, int)}.
+     * @param idx  Node's index from {@link #indexOf(int)}; not -1
+     * @param nodeDir  Direction 0, 1, or 2
+     * @return  The adjacent node in that direction, or -9 if none
+     * @throws ArrayIndexOutOfBoundsException if {@code idx} or {@code nodeDir} is out of range
+     */
+    public int nodeToNode(final int idx, final int nodeDir)
+        throws ArrayIndexOutOfBoundsException
+    {
+        return nodeToNode[3 * idx + nodeDir];
+    }
+
+    /**
+     * Get a node's adjacent edge in a given direction;
+     * same as {@link SOCBoard#getAdjacentEdgeToNode(int, int)}.
+     * @param idx  Node's index from {@link #indexOf(int)}; not -1
+     * @param nodeDir  Direction 0, 1, or 2
+     * @return  The adjacent edge in that direction, or -9 if none
+     * @throws ArrayIndexOutOfBoundsException if {@code idx} or {@code nodeDir} is out of range
+     */
+    public int nodeToEdge(final int idx, final int nodeDir)
+        throws ArrayIndexOutOfBoundsException
+    {
+        return nodeToEdge[3 * idx + nodeDir];
+    }
+
+    /**
+     * Get a hex's adjacent node in a given direction; same as element {@code dir}
+     * of {@link SOCBoard#getAdjacentNodesToHex_arr(int)}.
+     * @param idx  Hex's index from {@link #indexOf(int)}; not -1
+     * @param dir  Direction 0 to 5, clockwise from north
+     * @return  The node in that direction
+     * @throws ArrayIndexOutOfBoundsException if {@code idx} or {@code dir} is out of range
+     */
+    public int hexToNode(final int idx, final int dir)
+        throws ArrayIndexOutOfBoundsException
+    {
+        return hexToNode[6 * idx + dir];
+    }
+
+    /**
+     * Get the start of a node's range of adjacent hexes, for {@link #nodeHexAt(int)}.
+     * @param idx  Node's index from {@link #indexOf(int)}; not -1
+     * @return  Start of range, inclusive
+     * @see #nodeHexesEnd(int)
+     */
+    public int nodeHexesStart(final int idx)
+    {
+        return nodeToHexStart[idx];
+    }
+
+    /**
+     * Get the end of a node's range of adjacent hexes, for {@link #nodeHexAt(int)}.
+     * @param idx  Node's index from {@link #indexOf(int)}; not -1
+     * @return  End of range, exclusive; same as {@link #nodeHexesStart(int)} if node has no adjacent hexes
+     */
+    public int nodeHexesEnd(final int idx)
+    {
+        return nodeToHexStart[idx + 1];
+    }
+
+    /**
+     * Get an adjacent hex in a node's range. For example, to visit the same hexes in the same order as
+     * {@link SOCBoard#getAdjacentHexesToNode(int)}:
+     * {@code for (int h = adj.nodeHexesStart(idx); h < adj.nodeHexesEnd(idx); ++h) adj.nodeHexAt(h)}
+     * @param pos  Position within a range from {@link #nodeHexesStart(int)} and {@link #nodeHexesEnd(int)}
+     * @return  Hex coordinate at that position
+     */
+    public int nodeHexAt(final int pos)
+    {
+        return nodeToHex[pos];
+    }
+
+}
@@ -1045,10 +1045,12 @@ public class SOCGame implements Serializable, Cloneable
      * the new game gets new player objects, not the ones in this array.
      *<P>
      * Contains nulls after {@link #destroyGame()} is called.
+     *<P>
+     * Not final, so that {@link #copyForTrialPieces()} can give its copy new player objects.
      *
      * @see #currentPlayerNumber
      */
-    private final SOCPlayer[] players;
+    private SOCPlayer[] players;
 
     /**
      * State of each player number's seat: {@link #OCCUPIED}, {@link #VACANT}, etc.
@@ -5225,6 +5227,50 @@ public class SOCGame implements Serializable, Cloneable
         oldLRStats.restoreOldStats(this);
     }
 
+    /**
+     * Make a lightweight copy of this game, in which trial pieces can be placed and removed with
+     * {@link #putTempPiece(SOCPlayingPiece)} and {@link #undoPutTempPiece(SOCPlayingPiece)}
+     * without affecting this game or other copies. Robots use this to score possible pieces
+     * on several threads, each with its own copy.
+     *<P>
+     * The copy has its own players (see {@link SOCPlayer#SOCPlayer(SOCPlayer, String)})
+     * and its own lists of pieces on the board. Everything else, including the board's layout,
+     * the dev card deck, and game options, is shared with this game: Don't use the copy for
+     * anything but trial pieces, and don't change this game while copies are in use.
+     * The pieces already placed are shared too, so their {@link SOCPlayingPiece#getPlayer()}
+     * is this game's player, not the copy's. The copy has no {@link SOCGameEventListener}.
+     *<P>
+     * Reads this game without locking, so call from the thread which updates the game,
+     * or while that thread is waiting for the copies to be used.
+     *
+     * @return  a copy of this game for trial pieces
+     * @throws IllegalStateException if the game can't be cloned; would be an internal error
+     * @since 2.7.00
+     */
+    public SOCGame copyForTrialPieces()
+        throws IllegalStateException
+    {
+        final SOCGame copy;
+        try
+        {
+            copy = (SOCGame) clone();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException("Can't copy game " + name, e);
+        }
+
+        copy.gameEventListener = null;
+        copy.pendingMessagesOut = null;
+        copy.lastAction = null;
+        copy.oldPlayerWithLongestRoad = new Stack<SOCOldLRStats>();
+        copy.board = board.copyForTrialPieces();
+        copy.players = new SOCPlayer[maxPlayers];
+        for (int pn = 0; pn < maxPlayers; ++pn)
+            if (players[pn] != null)
+                copy.players[pn] = new SOCPlayer(players[pn], null, copy);
+
+        return copy;
+    }
+
     /**
      * undo the putting of an initial settlement.
      * If state is START2B or START3B and resources were given, they will be returned.
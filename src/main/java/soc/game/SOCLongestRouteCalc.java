@@ -0,0 +1,579 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * This file Copyright (C) 2026 Jeremy D Monin <jeremy@nand.net>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The maintainer of this program can be reached at jsettlers@nand.net
+ **/
+package soc.game;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Vector;
+
+import soc.util.IntPair;
+
+/**
+ * Incremental longest road / longest trade route calculation for one {@link SOCPlayer},
+ * used by {@link SOCPlayer#calcLongestRoad2()}.
+ *<P>
+ * The player's roads and ships are split into route components: Sets of edges connected at nodes
+ * where a route could continue, so a node with an opponent's settlement or city splits a component,
+ * and on the sea board so does a node joining a road to a ship without the player's own settlement or city there.
+ * No route can cross from one component to another. Each component's longest route and
+ * {@link SOCLRPathData} are cached by a signature of its layout, so placing or removing a piece
+ * searches only the components it changed. A trial placement which is then undone,
+ * as robots often do, finds the original components still in the cache.
+ *<P>
+ * Gives exactly the same results as {@link SOCPlayer#calcLongestRoad2_fullSearch()},
+ * including the contents and order of {@link SOCPlayer#getLRPaths()}: Searches each component
+ * from the same start nodes in the same order, and paths in different components can't intersect.
+ *<P>
+ * Not thread-safe; each player has its own instance. Cached results are immutable,
+ * so a player's copy constructor can copy this cache cheaply with {@link #SOCLongestRouteCalc(SOCLongestRouteCalc)}.
+ *
+ * @author Jeremy D Monin &lt;jeremy@nand.net&gt;
+ * @since 2.7.00
+ */
+final class SOCLongestRouteCalc
+{
+    /** Maximum number of component results to cache per player. */
+    private static final int CACHE_SIZE = 48;
+
+    /** Node state: No settlement or city. */
+    private static final int NODE_EMPTY = 0;
+
+    /** Node state: Player's own settlement or city. */
+    private static final int NODE_OWN = 1;
+
+    /** Node state: Opponent's settlement or city, which blocks routes through this node. */
+    private static final int NODE_BLOCKED = 2;
+
+    /** Cached component results, least recently used first. */
+    private final LinkedHashMap<Signature, Result> cache;
+
+    /**
+     * Create a new calculator with an empty cache.
+     */
+    SOCLongestRouteCalc()
+    {
+        cache = new LinkedHashMap<Signature, Result>(2 * CACHE_SIZE, 0.75f, true)
+        {
+            private static final long serialVersionUID = 2700L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Signature, Result> eldest)
+            {
+                return size() > CACHE_SIZE;
+            }
+        };
+    }
+
+    /**
+     * Create a new calculator whose cache has the same contents as {@code other}'s.
+     * @param other  Calculator to copy; not null
+     */
+    SOCLongestRouteCalc(final SOCLongestRouteCalc other)
+    {
+        this();
+        cache.putAll(other.cache);
+    }
+
+    /**
+     * Calculate this player's longest road or trade route, and update their LR paths.
+     * @param pl  Player to calculate; same player as previous calls
+     * @param lrPaths  Player's LR paths list, to clear and fill
+     * @return  Length of longest route, or -1 if a component is too large to calculate here
+     *     and caller should use {@link SOCPlayer#calcLongestRoad2_fullSearch()} instead;
+     *     if -1, {@code lrPaths} is unchanged
+     */
+    int calc(final SOCPlayer pl, final Vector<SOCLRPathData> lrPaths)
+    {
+        final SOCBoard board = pl.getGame().getBoard();
+        final boolean hasSeaBoard = pl.getGame().hasSeaBoard;
+        final int pn = pl.getPlayerNumber();
+        final Vector<Integer> roadNodes = pl.getRoadNodes();
+        final int numNodes = roadNodes.size();
+
+        /**
+         * Gather node info. Node index is its position in roadNodes, which is the search's start order.
+         */
+        final int[] nodeCoord = new int[numNodes], nodeState = new int[numNodes];
+        final HashMap<Integer, Integer> nodeIndex = new HashMap<Integer, Integer>(2 * numNodes);
+        for (int i = 0; i < numNodes; ++i)
+        {
+            final int node = roadNodes.get(i);
+            nodeCoord[i] = node;
+            nodeIndex.put(node, i);
+            final SOCPlayingPiece sc = board.settlementAtNode(node);
+            nodeState[i] = (sc == null) ? NODE_EMPTY : ((sc.getPlayerNumber() == pn) ? NODE_OWN : NODE_BLOCKED);
+        }
+
+        /**
+         * Find edges: For each node, its adjacent nodes connected by a road or ship in the order searched,
+         * which is the order of SOCBoard.getAdjacentNodesToNode_arr.
+         */
+        final int[][] edgeAt = new int[numNodes][3], toNode = new int[numNodes][3];
+        final List<Boolean> edgeIsRoad = new ArrayList<Boolean>();
+        final List<int[]> edgeNodes = new ArrayList<int[]>();
+        final int[] adjac = new int[3], jAdjac = new int[3];
+        for (int i = 0; i < numNodes; ++i)
+        {
+            Arrays.fill(edgeAt[i], -1);
+            board.getAdjacentNodesToNode_arr(nodeCoord[i], adjac);
+            for (int k = 0; k < 3; ++k)
+            {
+                final int j = adjac[k];
+                if ((j == -9) || ! pl.isConnectedByRoad(nodeCoord[i], j))
+                    continue;
+                final Integer jIdx = nodeIndex.get(j);
+                if (jIdx == null)
+                    continue;  // shouldn't happen: roadNodes has all nodes touched by roads and ships
+
+                toNode[i][k] = jIdx;
+                if (jIdx < i)
+                {
+                    // edge already numbered from node j's side
+                    board.getAdjacentNodesToNode_arr(j, jAdjac);
+                    for (int jk = 0; jk < 3; ++jk)
+                        if (jAdjac[jk] == nodeCoord[i])
+                            edgeAt[i][k] = edgeAt[jIdx][jk];
+                } else {
+                    edgeAt[i][k] = edgeNodes.size();
+                    edgeNodes.add(new int[]{i, jIdx});
+                    boolean isRoad = true;
+                    if (hasSeaBoard)
+                    {
+                        final SOCRoutePiece rs = pl.getRoadOrShip(board.getEdgeBetweenAdjacentNodes(nodeCoord[i], j));
+                        isRoad = (rs == null) || rs.isRoadNotShip();
+                    }
+                    edgeIsRoad.add(isRoad);
+                }
+            }
+        }
+
+        /**
+         * Group edges into components: Join edges meeting at a node where a route can continue.
+         */
+        final int numEdges = edgeNodes.size();
+        final int[] parent = new int[numEdges];
+        for (int e = 0; e < numEdges; ++e)
+            parent[e] = e;
+        for (int i = 0; i < numNodes; ++i)
+        {
+            if (nodeState[i] == NODE_BLOCKED)
+                continue;
+            for (int k1 = 0; k1 < 3; ++k1)
+            {
+                final int e1 = edgeAt[i][k1];
+                if (e1 == -1)
+                    continue;
+                for (int k2 = k1 + 1; k2 < 3; ++k2)
+                {
+                    final int e2 = edgeAt[i][k2];
+                    if ((e2 == -1)
+                        || (hasSeaBoard && (nodeState[i] == NODE_EMPTY) && (edgeIsRoad.get(e1).booleanValue() != edgeIsRoad.get(e2).booleanValue())))
+                        continue;
+
+                    final int r1 = find(parent, e1), r2 = find(parent, e2);
+                    if (r1 != r2)
+                        parent[r2] = r1;
+                }
+            }
+        }
+
+        /**
+         * Calculate or look up each component, then merge their paths in the order
+         * a full search would have found them.
+         */
+        final int[] edgeComp = new int[numEdges];
+        final List<Integer> compRoots = new ArrayList<Integer>();
+        for (int e = 0; e < numEdges; ++e)
+        {
+            final int r = find(parent, e);
+            if (r == e)
+                compRoots.add(e);
+            edgeComp[e] = r;
+        }
+
+        int longest = 0;
+        final List<Result> results = new ArrayList<Result>(compRoots.size());
+        for (final int root : compRoots)
+        {
+            final Component comp = new Component
+                (root, edgeComp, edgeAt, toNode, edgeIsRoad, nodeCoord, nodeState, numNodes);
+            if (comp.numEdges > 64)
+                return -1;  // too large for a bitmask of edges; shouldn't happen with standard piece counts
+
+            final Signature sig = comp.signature();
+            Result res = cache.get(sig);
+            if (res == null)
+            {
+                res = comp.search(hasSeaBoard);
+                cache.put(sig, res);
+            }
+            results.add(res);
+            if (res.longest > longest)
+                longest = res.longest;
+        }
+
+        final List<long[]> order = new ArrayList<long[]>();
+        final List<SOCLRPathData> found = new ArrayList<SOCLRPathData>();
+        for (final Result res : results)
+            for (int p = 0; p < res.paths.length; ++p)
+            {
+                // sort key: start node's position in roadNodes, first edge's adjacency index, order found
+                order.add(new long[]{ nodeIndex.get(res.startNodes[p]), res.firstBranch[p], res.seq[p], found.size() });
+                found.add(res.paths[p]);
+            }
+        order.sort((a, b) ->
+            (a[0] != b[0]) ? Long.compare(a[0], b[0])
+            : (a[1] != b[1]) ? Long.compare(a[1], b[1])
+            : Long.compare(a[2], b[2]));
+
+        lrPaths.removeAllElements();
+        for (final long[] o : order)
+            lrPaths.addElement(found.get((int) o[3]));
+
+        return longest;
+    }
+
+    /** Union-find root of edge {@code e}, with path halving. */
+    private static int find(final int[] parent, int e)
+    {
+        while (parent[e] != e)
+        {
+            parent[e] = parent[parent[e]];
+            e = parent[e];
+        }
+
+        return e;
+    }
+
+    /**
+     * One route component during {@link SOCLongestRouteCalc#calc(SOCPlayer, Vector)},
+     * with its nodes and edges renumbered from 0.
+     */
+    private static final class Component
+    {
+        /** Number of nodes and edges in this component. */
+        final int numNodes, numEdges;
+
+        /** Node coordinates, in roadNodes order. */
+        final int[] coord;
+
+        /** Node states ({@link SOCLongestRouteCalc#NODE_OWN} etc). */
+        final int[] state;
+
+        /** Component edge number at each node's adjacency index, or -1. */
+        final int[][] edgeAt;
+
+        /** Component node number at the other end of each {@link #edgeAt} edge. */
+        final int[][] toNode;
+
+        /** Whether each component edge is a road, not a ship. */
+        final boolean[] isRoad;
+
+        Component
+            (final int root, final int[] edgeComp, final int[][] allEdgeAt, final int[][] allToNode,
+             final List<Boolean> allEdgeIsRoad, final int[] allCoord, final int[] allState, final int allNumNodes)
+        {
+            final int[] localNode = new int[allNumNodes], localEdge = new int[edgeComp.length];
+            Arrays.fill(localNode, -1);
+            Arrays.fill(localEdge, -1);
+
+            int nn = 0, ne = 0;
+            for (int i = 0; i < allNumNodes; ++i)
+                for (int k = 0; k < 3; ++k)
+                {
+                    final int e = allEdgeAt[i][k];
+                    if ((e != -1) && (edgeComp[e] == root))
+                    {
+                        if (localNode[i] == -1)
+                            localNode[i] = nn++;
+                        if (localEdge[e] == -1)
+                            localEdge[e] = ne++;
+                    }
+                }
+            numNodes = nn;
+            numEdges = ne;
+
+            coord = new int[nn];
+            state = new int[nn];
+            edgeAt = new int[nn][3];
+            toNode = new int[nn][3];
+            isRoad = new boolean[ne];
+            for (int i = 0; i < allNumNodes; ++i)
+            {
+                final int li = localNode[i];
+                if (li == -1)
+                    continue;
+
+                coord[li] = allCoord[i];
+                state[li] = allState[i];
+                for (int k = 0; k < 3; ++k)
+                {
+                    final int e = allEdgeAt[i][k];
+                    if ((e != -1) && (edgeComp[e] == root))
+                    {
+                        edgeAt[li][k] = localEdge[e];
+                        toNode[li][k] = localNode[allToNode[i][k]];
+                        isRoad[localEdge[e]] = allEdgeIsRoad.get(e);
+                    } else {
+                        edgeAt[li][k] = -1;
+                    }
+                }
+            }
+        }
+
+        /**
+         * This component's layout signature: Everything its search depends on.
+         * Nodes are in roadNodes order, since that's the search order.
+         */
+        Signature signature()
+        {
+            final int[] sig = new int[numNodes * 3];
+            for (int i = 0, s = 0; i < numNodes; ++i)
+            {
+                sig[s++] = coord[i];
+                sig[s++] = state[i];
+                int edges = 0;
+                for (int k = 0; k < 3; ++k)
+                    if (edgeAt[i][k] != -1)
+                        edges |= (isRoad[edgeAt[i][k]] ? 1 : 2) << (2 * k);
+                sig[s++] = edges;
+            }
+
+            return new Signature(sig);
+        }
+
+        /**
+         * Search all routes in this component, starting from each node in order,
+         * like {@link SOCPlayer#calcLongestRoad2_fullSearch()} does for all the player's nodes.
+         * @param hasSeaBoard  True if game has sea board, so road-ship transitions must be checked
+         */
+        Result search(final boolean hasSeaBoard)
+        {
+            final Search s = new Search(this, hasSeaBoard);
+            for (int i = 0; i < numNodes; ++i)
+                for (int k = 0; k < 3; ++k)
+                {
+                    final int e = edgeAt[i][k];
+                    if (e == -1)
+                        continue;
+
+                    s.startNode = i;
+                    s.firstBranch = k;
+                    s.pathFrom[0] = coord[i];
+                    s.pathTo[0] = coord[toNode[i][k]];
+                    s.visit(toNode[i][k], 1, 1L << e, isRoad[e]);
+                }
+
+            return s.result();
+        }
+    }
+
+    /**
+     * Depth-first search state within a {@link Component}.
+     */
+    private static final class Search
+    {
+        final Component comp;
+        final boolean hasSeaBoard;
+
+        /** Node coordinates of each edge in the current path, in the order traversed. */
+        final int[] pathFrom, pathTo;
+
+        /** Current start node number and its adjacency index of the path's first edge. */
+        int startNode, firstBranch;
+
+        /** Number of path ends found so far. */
+        int numEnds;
+
+        int longest;
+
+        /** Paths kept so far, like lrPaths during a full search. */
+        final List<Path> kept = new ArrayList<Path>();
+
+        Search(final Component comp, final boolean hasSeaBoard)
+        {
+            this.comp = comp;
+            this.hasSeaBoard = hasSeaBoard;
+            pathFrom = new int[comp.numEdges];
+            pathTo = new int[comp.numEdges];
+        }
+
+        /**
+         * Visit a node at the end of the current path; continue the path to each adjacent connected node
+         * in adjacency order, or record a path end if it can't continue.
+         * @param node  Component node number
+         * @param len  Path length so far; at least 1
+         * @param visited  Bitmask of component edges in the path so far
+         * @param inboundIsRoad  True if the path's last edge is a road, not a ship
+         */
+        void visit(final int node, final int len, final long visited, final boolean inboundIsRoad)
+        {
+            boolean pathEnd = true;
+            final int nodeState = comp.state[node];
+            if (nodeState != NODE_BLOCKED)
+            {
+                for (int k = 0; k < 3; ++k)
+                {
+                    final int e = comp.edgeAt[node][k];
+                    if ((e == -1) || ((visited & (1L << e)) != 0))
+                        continue;
+                    if (hasSeaBoard && (comp.isRoad[e] != inboundIsRoad) && (nodeState == NODE_EMPTY))
+                        continue;  // Requires settlement/city to connect road to ship
+
+                    pathEnd = false;
+                    final int next = comp.toNode[node][k];
+                    pathFrom[len] = comp.coord[node];
+                    pathTo[len] = comp.coord[next];
+                    visit(next, len + 1, visited | (1L << e), comp.isRoad[e]);
+                }
+            }
+
+            if (pathEnd)
+                pathEnded(node, len, visited);
+        }
+
+        /**
+         * Record a path end: Keep only the longer of this path and any kept paths it shares an edge with,
+         * same as the full search.
+         */
+        private void pathEnded(final int node, final int len, final long visited)
+        {
+            if (len > longest)
+                longest = len;
+
+            boolean addNewPath = true;
+            final List<Path> trash = new ArrayList<Path>();
+            for (final Path old : kept)
+            {
+                if ((old.visited & visited) == 0)
+                    continue;
+
+                if (old.len < len)
+                    trash.add(old);
+                else
+                    addNewPath = false;
+            }
+            kept.removeAll(trash);
+
+            if (addNewPath)
+                kept.add(new Path(startNode, firstBranch, numEnds, node, len, visited));
+
+            ++numEnds;
+        }
+
+        /** Make the component's result from the kept paths. */
+        Result result()
+        {
+            final int n = kept.size();
+            final SOCLRPathData[] paths = new SOCLRPathData[n];
+            final int[] startNodes = new int[n], firstBranch = new int[n], seq = new int[n];
+            for (int p = 0; p < n; ++p)
+            {
+                final Path path = kept.get(p);
+                paths[p] = path.data;
+                startNodes[p] = comp.coord[path.startNode];
+                firstBranch[p] = path.firstBranch;
+                seq[p] = path.seq;
+            }
+
+            return new Result(longest, paths, startNodes, firstBranch, seq);
+        }
+
+        /** A path found by the search. */
+        private final class Path
+        {
+            final int startNode, firstBranch, seq, len;
+            final long visited;
+            final SOCLRPathData data;
+
+            Path(final int startNode, final int firstBranch, final int seq,
+                 final int endNode, final int len, final long visited)
+            {
+                this.startNode = startNode;
+                this.firstBranch = firstBranch;
+                this.seq = seq;
+                this.len = len;
+                this.visited = visited;
+
+                final Vector<IntPair> pairs = new Vector<IntPair>(len);
+                for (int i = 0; i < len; ++i)
+                    pairs.addElement(new IntPair(pathFrom[i], pathTo[i]));
+                data = new SOCLRPathData(comp.coord[startNode], comp.coord[endNode], len, pairs);
+            }
+        }
+    }
+
+    /**
+     * Cached result of searching a component. Immutable once created; {@link #paths} are shared with callers.
+     */
+    private static final class Result
+    {
+        /** Length of the component's longest route. */
+        final int longest;
+
+        /** Paths kept, in the order found. */
+        final SOCLRPathData[] paths;
+
+        /** For each path: Its start node coordinate and first edge's adjacency index there, and order found. */
+        final int[] startNodes, firstBranch, seq;
+
+        Result(final int longest, final SOCLRPathData[] paths,
+            final int[] startNodes, final int[] firstBranch, final int[] seq)
+        {
+            this.longest = longest;
+            this.paths = paths;
+            this.startNodes = startNodes;
+            this.firstBranch = firstBranch;
+            this.seq = seq;
+        }
+    }
+
+    /**
+     * A component's layout, as a cache key.
+     */
+    private static final class Signature
+    {
+        private final int[] sig;
+        private final int hash;
+
+        Signature(final int[] sig)
+        {
+            this.sig = sig;
+            hash = Arrays.hashCode(sig);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(final Object o)
+        {
+            return (o instanceof Signature) && (((Signature) o).hash == hash) && Arrays.equals(((Signature) o).sig, sig);
+        }
+    }
+
+}
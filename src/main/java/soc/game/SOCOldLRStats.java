@@ -1,7 +1,7 @@
 /**
  * Java Settlers - An online multiplayer version of the game Settlers of Catan
  * Copyright (C) 2003  Robert S. Thomas <thomas@infolab.northwestern.edu>
- * Portions of this file Copyright (C) 2009,2012,2020 Jeremy D Monin <jeremy@nand.net>
+ * Portions of this file Copyright (C) 2009,2012,2020,2026 Jeremy D Monin <jeremy@nand.net>
  *
  * This program is free software; you can redistribute it and/or
  * modify it under the terms of the GNU General Public License
@@ -20,6 +20,8 @@
  **/
 package soc.game;
 
+import java.util.Arrays;
+
 import soc.disableDebug.D;
 
 
@@ -38,7 +40,15 @@ import soc.disableDebug.D;
     SOCPlayer playerWithLR;
 
     /**
-     * Remembers the game's current LR player and each player's LR lengths.
+     * Each player's {@link SOCPlayer#getLRPaths()} contents, so that
+     * {@link #restoreOldStats(SOCGame)} leaves no trace of the temporary piece
+     * in paths which later trials would read.
+     * @since 2.7.00
+     */
+    SOCLRPathData[][] lrPaths;
+
+    /**
+     * Remembers the game's current LR player and each player's LR lengths and paths.
      *
      * @param  ga  the game
      */
@@ -46,10 +56,13 @@ import soc.disableDebug.D;
     {
         D.ebugPrintlnINFO("&&&& SOCOldLRStats constructor");
         lrLengths = new int[ga.maxPlayers];
+        lrPaths = new SOCLRPathData[ga.maxPlayers][];
 
         for (int i = 0; i < ga.maxPlayers; i++)
         {
-            lrLengths[i] = ga.getPlayer(i).getLongestRoadLength();
+            final SOCPlayer pl = ga.getPlayer(i);
+            lrLengths[i] = pl.getLongestRoadLength();
+            lrPaths[i] = pl.getLRPaths().toArray(new SOCLRPathData[0]);
             D.ebugPrintlnINFO("&&& lrLengths[" + i + "] = " + lrLengths[i]);
         }
 
@@ -77,7 +90,9 @@ import soc.disableDebug.D;
 
         for (int i = 0; i < ga.maxPlayers; i++)
         {
-            ga.getPlayer(i).setLongestRoadLength(lrLengths[i]);
+            final SOCPlayer pl = ga.getPlayer(i);
+            pl.setLongestRoadLength(lrLengths[i]);
+            pl.setLRPaths(Arrays.asList(lrPaths[i]));
             D.ebugPrintlnINFO("&&& lrLengths[" + i + "] = " + lrLengths[i]);
         }
 
@@ -1,7 +1,7 @@
 /**
  * Java Settlers - An online multiplayer version of the game Settlers of Catan
  * Copyright (C) 2003  Robert S. Thomas <thomas@infolab.northwestern.edu>
- * Portions of this file Copyright (C) 2007-2025 Jeremy D Monin <jeremy@nand.net>
+ * Portions of this file Copyright (C) 2007-2026 Jeremy D Monin <jeremy@nand.net>
  * Portions of this file Copyright (C) 2012-2013 Paul Bilnoski <paul@bilnoski.net>
  * Portions of this file Copyright (C) 2017-2018 Strategic Conversation (STAC Project) https://www.irit.fr/STAC/
  *
@@ -26,6 +26,7 @@ import soc.disableDebug.D;
 
 import soc.message.SOCMessage;
 import soc.server.savegame.SavedGameModel;  // for javadocs only
+import soc.util.IntBitSet;
 import soc.util.IntPair;
 import soc.util.NodeLenVis;
 
@@ -259,6 +260,22 @@ public class SOCPlayer implements Serializable, Cloneable
      */
     private final Vector<SOCLRPathData> lrPaths;
 
+    /**
+     * Incremental calculator for {@link #calcLongestRoad2()}, with its cache of route components,
+     * or null until first needed. Not serialized: Recreated when needed.
+     * @since 2.7.00
+     */
+    private transient SOCLongestRouteCalc lrCalc;
+
+    /**
+     * Reusable arrays for adjacent nodes or edges in {@link #updatePotentials(SOCPlayingPiece)}
+     * and {@link #calcLongestRoad2_fullSearch()}, to avoid allocating in those frequently-called methods:
+     * See {@link SOCBoard#getAdjacentNodesToNode_arr(int, int[])}.
+     * Each player has its own, so each game copy used by a robot thread has separate arrays.
+     * @since 2.7.00
+     */
+    private final int[] adjacBuf = new int[3], adjacBuf2 = new int[3];
+
     /**
      * how many of each resource this player has
      * @see #resourceStats
@@ -442,7 +459,7 @@ public class SOCPlayer implements Serializable, Cloneable
     private Hashtable<Integer,int[]> roadNodeGraph;
 
     /**
-     * a list of edges where it is legal to place a road.
+     * a set of edges where it is legal to place a road.
      * an edge is legal if a road could eventually be
      * placed there.
      *<P>
@@ -453,7 +470,7 @@ public class SOCPlayer implements Serializable, Cloneable
      * and {@link SOCGame#startGame()}, because the board layout and legal settlements
      * vary from game to game.
      */
-    private HashSet<Integer> legalRoads;
+    private IntBitSet legalRoads;
 
     /**
      * The set of nodes where it's legal to place a settlement;
@@ -462,7 +479,7 @@ public class SOCPlayer implements Serializable, Cloneable
      * @see #potentialSettlements
      * @see SOCBoard#nodesOnLand
      */
-    private HashSet<Integer> legalSettlements;
+    private IntBitSet legalSettlements;
 
     /**
      * The most recently added node from {@link #addLegalSettlement(int, boolean)}, or 0.
@@ -482,7 +499,7 @@ public class SOCPlayer implements Serializable, Cloneable
      * @see #legalShipsRestricted
      * @since 2.0.00
      */
-    private HashSet<Integer> legalShips;
+    private IntBitSet legalShips;
 
     /**
      * A list of edges if the legal sea edges for ships are restricted
@@ -505,7 +522,7 @@ public class SOCPlayer implements Serializable, Cloneable
      * {@link #updatePotentials(SOCPlayingPiece)}.
      * Elements are set false when a road or ship is placed on their edge.
      */
-    private HashSet<Integer> potentialRoads;
+    private IntBitSet potentialRoads;
 
     /**
      * a set of nodes where a settlement could be
@@ -515,14 +532,14 @@ public class SOCPlayer implements Serializable, Cloneable
      * and then re-set via {@link #updatePotentials(SOCPlayingPiece) updatePotentials(SOCRoad)}.
      * Placing a settlement will clear its node and adjacent nodes.
      *<P>
-     * Key = node coordinate, as {@link Integer}.
-     * If {@link HashSet#contains(Object) potentialSettlements.contains(Integer.valueOf(nodeCoord))},
+     * Key = node coordinate.
+     * If {@link IntBitSet#contains(int) potentialSettlements.contains(nodeCoord)},
      * then this is a potential settlement.
      * @see #legalSettlements
      * @see #setPotentialAndLegalSettlements(Collection, boolean, HashSet[])
      * @see SOCBoard#nodesOnLand
      */
-    private HashSet<Integer> potentialSettlements;
+    private IntBitSet potentialSettlements;
 
     /**
      * a set of nodes where a city could be
@@ -535,7 +552,7 @@ public class SOCPlayer implements Serializable, Cloneable
      * because we use {@link #legalSettlements} before placing a settlement,
      * and settlements can always become cities.
      */
-    private HashSet<Integer> potentialCities;
+    private IntBitSet potentialCities;
 
     /**
      * a set of edges where a ship could be placed
@@ -549,7 +566,7 @@ public class SOCPlayer implements Serializable, Cloneable
      * this set is empty but non-null.
      * @since 2.0.00
      */
-    private HashSet<Integer> potentialShips;
+    private IntBitSet potentialShips;
 
     /**
      * True if board has fog hexes, {@link #potentialSettlements} has some nodes on
@@ -725,10 +742,28 @@ public class SOCPlayer implements Serializable, Cloneable
     public SOCPlayer(final SOCPlayer player, final String newName)
         throws IllegalArgumentException, IllegalStateException
     {
-        if (player.game == null)
+        this(player, newName, player.game);
+    }
+
+    /**
+     * Create a copy of the player which belongs to a copy of its game,
+     * as made by {@link SOCGame#copyForTrialPieces()}.
+     * Otherwise the same as {@link #SOCPlayer(SOCPlayer, String)}.
+     *
+     * @param player  the player to copy
+     * @param newName  new name to give copy of player, or {@code null} to copy current name
+     * @param ga  game to which the copy belongs; not null
+     * @throws IllegalArgumentException if {@code player.getGame()} or {@code ga} is null
+     * @throws IllegalStateException if player's dev cards can't be cloned (internal error); should not possibly occur
+     * @since 2.7.00
+     */
+    SOCPlayer(final SOCPlayer player, final String newName, final SOCGame ga)
+        throws IllegalArgumentException, IllegalStateException
+    {
+        if ((player.game == null) || (ga == null))
             throw new IllegalArgumentException("game");
 
-        game = player.game;
+        game = ga;
         name = (newName != null) ? newName : player.name;
         playerNumber = player.playerNumber;
         numPieces = player.numPieces.clone();
@@ -764,6 +799,8 @@ public class SOCPlayer implements Serializable, Cloneable
         numWarships = player.numWarships;
         longestRoadLength = player.longestRoadLength;
         lrPaths = new Vector<SOCLRPathData>(player.lrPaths);
+        if (player.lrCalc != null)
+            lrCalc = new SOCLongestRouteCalc(player.lrCalc);
         resources = player.resources.copy();
         resourceStats = new int[player.resourceStats.length];
         System.arraycopy(player.resourceStats, 0, resourceStats, 0, player.resourceStats.length);
@@ -822,13 +859,13 @@ public class SOCPlayer implements Serializable, Cloneable
         /**
          * init legal and potential arrays
          */
-        legalRoads = new HashSet<Integer>(player.legalRoads);
-        legalSettlements = new HashSet<Integer>(player.legalSettlements);
-        legalShips = new HashSet<Integer>(player.legalShips);
-        potentialRoads = new HashSet<Integer>(player.potentialRoads);
-        potentialSettlements = new HashSet<Integer>(player.potentialSettlements);
-        potentialCities = new HashSet<Integer>(player.potentialCities);
-        potentialShips = new HashSet<Integer>(player.potentialShips);
+        legalRoads = player.legalRoads.copy();
+        legalSettlements = player.legalSettlements.copy();
+        legalShips = player.legalShips.copy();
+        potentialRoads = player.potentialRoads.copy();
+        potentialSettlements = player.potentialSettlements.copy();
+        potentialCities = player.potentialCities.copy();
+        potentialShips = player.potentialShips.copy();
         addedLegalSettlement = player.addedLegalSettlement;
         if (player.legalShipsRestricted != null)
             legalShipsRestricted = new HashSet<Integer>(player.legalShipsRestricted);
@@ -929,21 +966,21 @@ public class SOCPlayer implements Serializable, Cloneable
          * If game.hasSeaBoard, these are initialized later, after board.makeNewBoard
          * and game.startGame, because the layout varies from game to game.
          */
-        potentialRoads = new HashSet<Integer>();
-        potentialCities = new HashSet<Integer>();
-        potentialShips = new HashSet<Integer>();
+        potentialRoads = new IntBitSet();
+        potentialCities = new IntBitSet();
+        potentialShips = new IntBitSet();
 
         if (! game.hasSeaBoard)
         {
-            legalRoads = board.initPlayerLegalRoads();
-            legalSettlements = board.initPlayerLegalSettlements();
-            legalShips = new HashSet<Integer>();  // will remain empty
-            potentialSettlements = new HashSet<Integer>(legalSettlements);
+            legalRoads = new IntBitSet(board.initPlayerLegalRoads());
+            legalSettlements = new IntBitSet(board.initPlayerLegalSettlements());
+            legalShips = new IntBitSet();  // will remain empty
+            potentialSettlements = legalSettlements.copy();
         } else {
-            legalRoads = new HashSet<Integer>();
-            legalSettlements = new HashSet<Integer>();
-            legalShips = new HashSet<Integer>();
-            potentialSettlements = new HashSet<Integer>();
+            legalRoads = new IntBitSet();
+            legalSettlements = new IntBitSet();
+            legalShips = new IntBitSet();
+            potentialSettlements = new IntBitSet();
         }
 
         currentOffer = null;
@@ -4555,7 +4592,7 @@ public class SOCPlayer implements Serializable, Cloneable
 
                     if (! blocked)
                     {
-                        int[] edges = board.getAdjacentEdgesToNode_arr(node);
+                        final int[] edges = board.getAdjacentEdgesToNode_arr(node, adjacBuf);
                         for (int i = 0; i < 3; ++i)
                         {
                             int edge = edges[i];
@@ -4596,7 +4633,7 @@ public class SOCPlayer implements Serializable, Cloneable
                         final int node = nodes[ni];
                         boolean foundOtherShips = false;
 
-                        final int[] edges = board.getAdjacentEdgesToNode_arr(node);
+                        final int[] edges = board.getAdjacentEdgesToNode_arr(node, adjacBuf);
                         for (int i = 0; i < 3; ++i)
                         {
                             final int edge = edges[i];
@@ -4611,7 +4648,7 @@ public class SOCPlayer implements Serializable, Cloneable
 
                         if (foundOtherShips)
                             for (int i = 0; i < 3; ++i)
-                                potentialShips.remove(Integer.valueOf(edges[i]));
+                                potentialShips.remove(edges[i]);
                     }
                 }
             }
@@ -4628,7 +4665,7 @@ public class SOCPlayer implements Serializable, Cloneable
             // no settlement in its adjacent nodes.
             potentialSettlements.remove(idInt);
             legalSettlements.remove(idInt);
-            int[] adjac = board.getAdjacentNodesToNode_arr(id);
+            int[] adjac = board.getAdjacentNodesToNode_arr(id, adjacBuf);
             for (int i = 0; i < 3; ++i)
             {
                 if (adjac[i] != -9)
@@ -4646,7 +4683,7 @@ public class SOCPlayer implements Serializable, Cloneable
             {
                 potentialCities.add(idInt);
 
-                adjac = board.getAdjacentEdgesToNode_arr(id);
+                adjac = board.getAdjacentEdgesToNode_arr(id, adjacBuf);
                 for (int i = 0; i < 3; ++i)
                 {
                     tmp = adjac[i];
@@ -4681,7 +4718,7 @@ public class SOCPlayer implements Serializable, Cloneable
                         ourRoads.add(Integer.valueOf(p.getCoordinates()));
                 }
 
-                adjac = board.getAdjacentEdgesToNode_arr(id);
+                adjac = board.getAdjacentEdgesToNode_arr(id, adjacBuf);
                 for (int i = 0; i < 3; ++i)
                 {
                     tmp = adjac[i];  // edge coordinate
@@ -4711,7 +4748,7 @@ public class SOCPlayer implements Serializable, Cloneable
                     // which connects that node with the new settlement's node,
                     // from tmp edge's far node.
 
-                    final int[] farEdges = board.getAdjacentEdgesToNode_arr(farNode);
+                    final int[] farEdges = board.getAdjacentEdgesToNode_arr(farNode, adjacBuf2);
                     boolean foundOurRoad = false;
                     for (int ie = 0; ie < 3; ++ie)
                     {
@@ -4760,7 +4797,7 @@ public class SOCPlayer implements Serializable, Cloneable
      * @see #hasPotentialSettlementsInitialInFog()
      * @since 2.0.00
      */
-    public HashSet<Integer> getPotentialSettlements()
+    public Set<Integer> getPotentialSettlements()
     {
         return potentialSettlements;
     }
@@ -4779,15 +4816,10 @@ public class SOCPlayer implements Serializable, Cloneable
      */
     public int[] getPotentialSettlements_arr()
     {
-        int L = potentialSettlements.size();
-        if (L == 0)
+        if (potentialSettlements.isEmpty())
             return null;
 
-        int[] pset = new int[L];
-        Iterator<Integer> it = potentialSettlements.iterator();
-        for (int i = 0; it.hasNext(); ++i)
-            pset[i] = it.next().intValue();
-        return pset;
+        return potentialSettlements.toIntArray();
     }
 
     /**
@@ -4859,11 +4891,11 @@ public class SOCPlayer implements Serializable, Cloneable
             else
                 legalSettlements.addAll(board.getLegalSettlements());
 
-            legalRoads = game.getBoard().initPlayerLegalRoads();
+            legalRoads = new IntBitSet(game.getBoard().initPlayerLegalRoads());
             if (! (board.getLandHexCoordsSet().isEmpty()))
             {
                 if (! game.isGameOptionSet(SOCGameOptionSet.K_SC_PIRI))
-                    legalShips = board.initPlayerLegalShips();
+                    legalShips = new IntBitSet(board.initPlayerLegalShips());
                 else
                     legalShips.clear();  // SC_PIRI: caller must soon call setRestrictedLegalShips
             }
@@ -4936,7 +4968,7 @@ public class SOCPlayer implements Serializable, Cloneable
                     return;  // <--- Early return: adjacent settlement/city found ---
         }
 
-        legalSettlements.add(Integer.valueOf(node));
+        legalSettlements.add(node);
         addedLegalSettlement = node;
     }
 
@@ -4978,7 +5010,7 @@ public class SOCPlayer implements Serializable, Cloneable
      */
     public boolean isPotentialSettlement(final int node)
     {
-        return potentialSettlements.contains(Integer.valueOf(node));
+        return potentialSettlements.contains(node);
     }
 
     /**
@@ -4991,7 +5023,7 @@ public class SOCPlayer implements Serializable, Cloneable
      */
     public void clearPotentialSettlement(final int node)
     {
-        potentialSettlements.remove(Integer.valueOf(node));
+        potentialSettlements.remove(node);
     }
 
     /**
@@ -5003,7 +5035,7 @@ public class SOCPlayer implements Serializable, Cloneable
      */
     public boolean isLegalSettlement(final int node)
     {
-        return legalSettlements.contains(Integer.valueOf(node));
+        return legalSettlements.contains(node);
     }
 
     /**
@@ -5029,7 +5061,7 @@ public class SOCPlayer implements Serializable, Cloneable
      */
     public boolean isPotentialCity(final int node)
     {
-        return potentialCities.contains(Integer.valueOf(node));
+        return potentialCities.contains(node);
     }
 
     /**
@@ -5042,7 +5074,7 @@ public class SOCPlayer implements Serializable, Cloneable
      */
     public void clearPotentialCity(final int node)
     {
-        potentialCities.remove(Integer.valueOf(node));
+        potentialCities.remove(node);
     }
 
     /**
@@ -5057,7 +5089,7 @@ public class SOCPlayer implements Serializable, Cloneable
     {
         if (edge == -1)
             edge = 0x00;
-        return potentialRoads.contains(Integer.valueOf(edge));
+        return potentialRoads.contains(edge);
     }
 
     /**
@@ -5072,7 +5104,7 @@ public class SOCPlayer implements Serializable, Cloneable
     {
         if (edge == -1)
             edge = 0x00;
-        potentialRoads.remove(Integer.valueOf(edge));
+        potentialRoads.remove(edge);
     }
 
     /**
@@ -5086,7 +5118,7 @@ public class SOCPlayer implements Serializable, Cloneable
             edge = 0x00;
         else if (edge < 0)
             return false;
-        return legalRoads.contains(Integer.valueOf(edge));
+        return legalRoads.contains(edge);
     }
 
     /**
@@ -5122,7 +5154,7 @@ public class SOCPlayer implements Serializable, Cloneable
      */
     public boolean isPotentialShipMoveTo(final int toEdge, final int fromEdge)
     {
-        if (! potentialShips.contains(Integer.valueOf(toEdge)))
+        if (! potentialShips.contains(toEdge))
         {
             if (game.isGameOptionSet(SOCGameOptionSet.K_SC_PIRI)
                 && (null != legalShipsRestricted))
@@ -5177,7 +5209,7 @@ public class SOCPlayer implements Serializable, Cloneable
      */
     public boolean isPotentialShip(int edge)
     {
-        return potentialShips.contains(Integer.valueOf(edge));
+        return potentialShips.contains(edge);
     }
 
     /**
@@ -5190,7 +5222,7 @@ public class SOCPlayer implements Serializable, Cloneable
      */
     public void clearPotentialShip(int edge)
     {
-        potentialShips.remove(Integer.valueOf(edge));
+        potentialShips.remove(edge);
     }
 
     /**
@@ -5205,7 +5237,7 @@ public class SOCPlayer implements Serializable, Cloneable
         if (edge < 0)
             return false;
 
-        return legalShips.contains(Integer.valueOf(edge));
+        return legalShips.contains(edge);
     }
 
     /**
@@ -5402,11 +5434,37 @@ public class SOCPlayer implements Serializable, Cloneable
     }
 
     /**
-     * Calculates the longest road / longest trade route for this player
+     * Calculates the longest road / longest trade route for this player,
+     * and updates {@link #getLRPaths()}.
+     *<P>
+     * Searches only the parts of the player's road/ship network which have changed since recent calls,
+     * remembering results for the rest: See {@link SOCLongestRouteCalc}. Gives the same results as
+     * {@link #calcLongestRoad2_fullSearch()}.
      *
      * @return the length of the longest road for this player
      */
     public int calcLongestRoad2()
+    {
+        if (lrCalc == null)
+            lrCalc = new SOCLongestRouteCalc();
+
+        final int longest = lrCalc.calc(this, lrPaths);
+        if (longest == -1)
+            return calcLongestRoad2_fullSearch();
+
+        longestRoadLength = longest;
+        return longest;
+    }
+
+    /**
+     * Calculates the longest road / longest trade route for this player
+     * with a full search of all their roads and ships, and updates {@link #getLRPaths()}.
+     * Used for testing, and by {@link #calcLongestRoad2()} if its incremental calculation can't be used.
+     *
+     * @return the length of the longest road for this player
+     * @since 2.7.00
+     */
+    public int calcLongestRoad2_fullSearch()
     {
         //Date startTime = new Date();
         //
@@ -5467,7 +5525,7 @@ public class SOCPlayer implements Serializable, Cloneable
 
                     pathEnd = true;  // may be set false in loop
 
-                    final int[] adjacNodes = board.getAdjacentNodesToNode_arr(coord);
+                    final int[] adjacNodes = board.getAdjacentNodesToNode_arr(coord, adjacBuf);
                     for (int ni = adjacNodes.length - 1; ni>=0; --ni)
                     {
                         final int j = adjacNodes[ni];
@@ -1,7 +1,7 @@
 /**
  * Java Settlers - An online multiplayer version of the game Settlers of Catan
  * Copyright (C) 2003  Robert S. Thomas <thomas@infolab.northwestern.edu>
- * Portions of this file Copyright (C) 2009,2011-2014,2017,2019-2020,2023 Jeremy D Monin <jeremy@nand.net>
+ * Portions of this file Copyright (C) 2009,2011-2014,2017,2019-2020,2023,2026 Jeremy D Monin <jeremy@nand.net>
  * Portions of this file Copyright (C) 2012 Paul Bilnoski <paul@bilnoski.net>
  *
  * This program is free software; you can redistribute it and/or
@@ -96,6 +96,14 @@ public class SOCPlayerNumbers
      */
     public final boolean hasSeaBoard;
 
+    /**
+     * Number of changes made to these numbers since construction;
+     * incremented by each method which adds, removes, or clears numbers.
+     * @see #getChangeCount()
+     * @since 2.7.00
+     */
+    private int changeCount;
+
     /**
      * make a copy of the player numbers
      *
@@ -200,6 +208,7 @@ public class SOCPlayerNumbers
         }
 
         numberAndResourceForHex.clear();
+        ++changeCount;
     }
 
     /**
@@ -212,6 +221,7 @@ public class SOCPlayerNumbers
         int L = landHex.length;
         landHexCoords = new int[L];
         System.arraycopy(landHex, 0, landHexCoords, 0, L);
+        ++changeCount;
     }
 
     /**
@@ -243,8 +253,10 @@ public class SOCPlayerNumbers
      */
     public void updateNumbers(final int nodeCoord, SOCBoard board)
     {
-        for (final int hex : board.getAdjacentHexesToNode(nodeCoord))
+        final int[] hexes = new int[3];
+        for (int i = 0, n = board.getAdjacentHexesToNode(nodeCoord, hexes); i < n; ++i)
         {
+            final int hex = hexes[i];
             final int number = board.getNumberOnHexFromCoord(hex);
             final int resource = board.getHexTypeFromCoord(hex);
             addNumberForResource(number, resource, hex);
@@ -275,8 +287,10 @@ public class SOCPlayerNumbers
     {
         int probTotal = 0;
 
-        for (final int hex : board.getAdjacentHexesToNode(nodeCoord))
+        final int[] hexes = new int[3];
+        for (int i = 0, n = board.getAdjacentHexesToNode(nodeCoord, hexes); i < n; ++i)
         {
+            final int hex = hexes[i];
             final int number = board.getNumberOnHexFromCoord(hex);
             if (number > 0)
             {
@@ -510,6 +524,7 @@ public class SOCPlayerNumbers
             numberAndResourceForHex.put(hexInt, pairs);
         }
         pairs.addElement(new IntPair(diceNum, resource));
+        ++changeCount;
     }
 
     /**
@@ -535,8 +550,10 @@ public class SOCPlayerNumbers
      */
     public void undoUpdateNumbers(final int coord, SOCBoard board)
     {
-        for (final int hex : board.getAdjacentHexesToNode(coord))
+        final int[] hexes = new int[3];
+        for (int i = 0, n = board.getAdjacentHexesToNode(coord, hexes); i < n; ++i)
         {
+            final int hex = hexes[i];
             final int number = board.getNumberOnHexFromCoord(hex);
             final int resource = board.getHexTypeFromCoord(hex);
             undoAddNumberForResource(number, resource, hex);
@@ -614,6 +631,8 @@ public class SOCPlayerNumbers
             // GOLD_HEX will be in numberAndResourceForHex.
         }
 
+        ++changeCount;
+
         Vector<IntPair> pairs = numberAndResourceForHex.get(Integer.valueOf(hex));
         if (pairs != null)
         {
@@ -628,6 +647,20 @@ public class SOCPlayerNumbers
         }
     }
 
+    /**
+     * Get the number of changes made to these numbers, to cheaply check whether they've changed
+     * since an earlier call: Incremented by {@link #addNumberForResource(int, int, int)},
+     * {@link #undoAddNumberForResource(int, int, int)}, {@link #clear()},
+     * {@link #setLandHexCoordinates(int[])}, and methods which call them.
+     * A copy made with {@link #SOCPlayerNumbers(SOCPlayerNumbers)} starts its own count at 0.
+     * @return  Number of changes since construction; may wrap around after 2<sup>32</sup> changes
+     * @since 2.7.00
+     */
+    public int getChangeCount()
+    {
+        return changeCount;
+    }
+
     /**
      * return true if this player is touching the requested number
      *
@@ -0,0 +1,47 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * This file Copyright (C) 2026 Jeremy D Monin <jeremy@nand.net>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ **/
+package soc.message;
+
+/**
+ * This indicates that a {@link SOCMessage} type has a compact binary format
+ * in addition to its {@link SOCMessage#toCmd()} text format: See {@link SOCMessage#toBinaryCmd()}.
+ * Only frequent or large message types have a binary format.
+ *<P>
+ * Each implementing type must also have a static {@code parseBinary(SOCMessageBinaryReader)} method,
+ * registered in {@code SOCMessage}'s binary message processor table, which {@link SOCMessage#toMsg(String)} calls.
+ * Template classes such as {@link SOCMessageTemplateMi} provide {@link #writeBinaryFields(SOCMessageBinaryWriter)}
+ * for their subclasses, but don't implement this interface themselves.
+ *
+ * @since 2.7.00
+ */
+public interface SOCBinaryMessage
+{
+    /**
+     * For {@link SOCMessage#toBinaryCmd()}, write this message's fields.
+     * Fields are read back by the message type's static {@code parseBinary(SOCMessageBinaryReader)},
+     * in the same order.
+     * @param w  Writer to write fields to
+     */
+    public abstract void writeBinaryFields(final SOCMessageBinaryWriter w);
+
+    /**
+     * Get the message type.  Implemented in {@link SOCMessage}.
+     * @return the message type
+     */
+    public abstract int getType();
+}
@@ -1,6 +1,6 @@
 /**
  * Java Settlers - An online multiplayer version of the game Settlers of Catan
- * This file Copyright (C) 2009-2014,2016-2021,2024 Jeremy D Monin <jeremy@nand.net>
+ * This file Copyright (C) 2009-2014,2016-2021,2024,2026 Jeremy D Monin <jeremy@nand.net>
  * Portions of this file Copyright (C) 2003  Robert S. Thomas
  * Portions of this file Copyright (C) 2012 Paul Bilnoski <paul@bilnoski.net>
  *
@@ -94,7 +94,7 @@ import soc.util.DataUtils;
  * @since 1.1.08
  */
 public class SOCBoardLayout2 extends SOCMessage
-    implements SOCMessageForGame
+    implements SOCMessageForGame, SOCBinaryMessage
 {
     private static final long serialVersionUID = 2300L;
 
@@ -113,6 +113,12 @@ public class SOCBoardLayout2 extends SOCMessage
      */
     public static final int VERSION_FOR_BOARDLAYOUT2 = 1108;
 
+    /**
+     * Layout part value types in binary format; see {@link #writeBinaryFields(SOCMessageBinaryWriter)}.
+     * @since 2.7.00
+     */
+    private static final int BINARY_PART_INT = 1, BINARY_PART_INT_ARRAY = 2, BINARY_PART_STRING = 3;
+
     /**
      * These hex land type values are remapped when sent over the network in layout part <tt>HL</tt>.
      * Compare to {@link SOCBoard#WATER_HEX}, {@link SOCBoard#DESERT_HEX}.
@@ -553,6 +559,83 @@ public class SOCBoardLayout2 extends SOCMessage
         return ret.toString();
     }
 
+    /**
+     * Write this message's fields for {@link #toBinaryCmd()}:
+     * Game name, encoding format, number of layout parts, then each part's key,
+     * value type ({@link #BINARY_PART_INT}, {@link #BINARY_PART_INT_ARRAY}, or {@link #BINARY_PART_STRING}),
+     * and value.
+     * @since 2.7.00
+     */
+    @Override
+    public void writeBinaryFields(final SOCMessageBinaryWriter w)
+    {
+        w.writeGameName(game).writeInt(boardEncodingFormat).writeInt(layoutParts.size());
+
+        for (Map.Entry<String, Object> part : layoutParts.entrySet())
+        {
+            final String pkey = part.getKey();
+            w.writeString(pkey);
+
+            final Object ov = part.getValue();
+            if (ov instanceof Integer)
+                w.writeInt(BINARY_PART_INT).writeInt(((Integer) ov).intValue());
+            else if (ov instanceof int[])
+                w.writeInt(BINARY_PART_INT_ARRAY).writeIntArray((int[]) ov);
+            else if (ov instanceof ArrayList)
+            {
+                // List of Numbers if loaded from JSON; not getIntArrayPart because that maps "HL" values
+                final ArrayList<?> li = (ArrayList<?>) ov;
+                final int[] iv = new int[li.size()];
+                for (int i = 0; i < iv.length; ++i)
+                    iv[i] = ((Number) li.get(i)).intValue();
+                w.writeInt(BINARY_PART_INT_ARRAY).writeIntArray(iv);
+            }
+            else
+                w.writeInt(BINARY_PART_STRING).writeString(ov.toString());
+        }
+    }
+
+    /**
+     * Parse the binary format from {@link #toBinaryCmd()} into a SOCBoardLayout2 message.
+     * @param r  Reader positioned after the message type ID
+     * @return    a SOCBoardLayout2 message
+     * @throws IllegalArgumentException if the data is garbled
+     * @since 2.7.00
+     */
+    public static SOCBoardLayout2 parseBinary(final SOCMessageBinaryReader r)
+        throws IllegalArgumentException
+    {
+        final String ga = r.readGameName();
+        final int bef = r.readInt();
+        final int n = r.readLength();
+        if (n == -1)
+            throw new IllegalArgumentException("parts");
+
+        HashMap<String, Object> parts = new HashMap<String, Object>();
+        for (int i = 0; i < n; ++i)
+        {
+            final String pkey = r.readString();
+            final Object pvalue;
+            switch (r.readInt())
+            {
+            case BINARY_PART_INT:
+                pvalue = Integer.valueOf(r.readInt());  break;
+            case BINARY_PART_INT_ARRAY:
+                pvalue = r.readIntArray();  break;
+            case BINARY_PART_STRING:
+                pvalue = r.readString();  break;
+            default:
+                throw new IllegalArgumentException("part type");
+            }
+            if ((pkey == null) || (pvalue == null))
+                throw new IllegalArgumentException("part " + i);
+
+            parts.put(pkey, pvalue);
+        }
+
+        return new SOCBoardLayout2(ga, bef, parts);
+    }
+
     /**
      * Render the SOCBoardLayout2 in human-readable form.
      * In version 2.0.00 and later, the land hexes and port layout (<tt>LH</tt>, <tt>PL</tt>)
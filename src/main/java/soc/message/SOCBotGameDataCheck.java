@@ -1,6 +1,6 @@
 /**
  * Java Settlers - An online multiplayer version of the game Settlers of Catan
- * This file Copyright (C) 2021 Jeremy D Monin <jeremy@nand.net>
+ * This file Copyright (C) 2021,2026 Jeremy D Monin <jeremy@nand.net>
  *
  * This program is free software; you can redistribute it and/or
  * modify it under the terms of the GNU General Public License
@@ -158,4 +158,31 @@ public class SOCBotGameDataCheck extends SOCMessageTemplateMi
         }
     }
 
+    /**
+     * Parse the command's parameters into a SOCBotGameDataCheck message,
+     * reading its ints directly from the message string instead of a list of Strings.
+     * Has the same requirements as {@link #parseDataStr(List)}.
+     *
+     * @param c  Cursor over the parameters (game name, then ints), delimited by {@link SOCMessage#sep_char}
+     * @return    a SOCBotGameDataCheck message, or null if parsing errors
+     * @since 2.7.00
+     */
+    public static SOCBotGameDataCheck parseDataStr(final SOCMessageFieldCursor c)
+    {
+        final int L = c.countRemaining();
+        if (L < 3)
+            return null;
+
+        try
+        {
+            final String gaName = c.nextString();
+            final int dataType = c.nextInt();
+            final int[] values = c.nextInts();
+
+            return new SOCBotGameDataCheck(gaName, dataType, values);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
 }
@@ -1,7 +1,7 @@
 /**
  * Java Settlers - An online multiplayer version of the game Settlers of Catan
  * Copyright (C) 2003  Robert S. Thomas <thomas@infolab.northwestern.edu>
- * Portions of this file Copyright (C) 2013,2017-2018,2022 Jeremy D Monin <jeremy@nand.net>
+ * Portions of this file Copyright (C) 2013,2017-2018,2022,2026 Jeremy D Monin <jeremy@nand.net>
  *
  * This program is free software; you can redistribute it and/or
  * modify it under the terms of the GNU General Public License
@@ -20,7 +20,6 @@
  **/
 package soc.message;
 
-import java.util.StringTokenizer;
 import soc.game.SOCGame;  // for javadocs only
 import soc.game.SOCResourceConstants;  // for javadocs only
 
@@ -75,6 +74,7 @@ import soc.game.SOCResourceConstants;  // for javadocs only
  * @author Robert S. Thomas
  */
 public class SOCDiceResult extends SOCMessageTemplate1i
+    implements SOCBinaryMessage
 {
     /** Class converted for v1.1.00 to use SOCMessageTemplate1i.
      *  Over the network, fields are unchanged since v1.0.0 or earlier, per git and old cvs history. -JM
@@ -119,16 +119,27 @@ public class SOCDiceResult extends SOCMessageTemplate1i
      * @return    a DiceResult message, or null if the data is garbled
      */
     public static SOCDiceResult parseDataStr(String s)
+    {
+        return parseDataStr(new SOCMessageFieldCursor(s, sep2_char));
+    }
+
+    /**
+     * Parse the command's data fields into a DiceResult message,
+     * reading its ints directly from the message string.
+     *
+     * @param c  Cursor over the data fields, delimited by {@link SOCMessage#sep2_char}
+     * @return    a DiceResult message, or null if the data is garbled
+     * @since 2.7.00
+     */
+    public static SOCDiceResult parseDataStr(final SOCMessageFieldCursor c)
     {
         String ga; // the game name
         int dr; // the dice result
 
-        StringTokenizer st = new StringTokenizer(s, sep2);
-
         try
         {
-            ga = st.nextToken();
-            dr = Integer.parseInt(st.nextToken());
+            ga = c.nextString();
+            dr = c.nextInt();
         }
         catch (Exception e)
         {
@@ -138,4 +149,19 @@ public class SOCDiceResult extends SOCMessageTemplate1i
         return new SOCDiceResult(ga, dr);
     }
 
+    /**
+     * Parse the binary format from {@link #toBinaryCmd()} into a DiceResult message.
+     * @param r  Reader positioned after the message type ID
+     * @return    a DiceResult message
+     * @throws IllegalArgumentException if the data is garbled
+     * @since 2.7.00
+     */
+    public static SOCDiceResult parseBinary(final SOCMessageBinaryReader r)
+        throws IllegalArgumentException
+    {
+        final String ga = r.readGameName();
+
+        return new SOCDiceResult(ga, r.readInt());
+    }
+
 }
@@ -1,6 +1,6 @@
 /**
  * Java Settlers - An online multiplayer version of the game Settlers of Catan
- * This file Copyright (C) 2013-2015,2017-2020,2022 Jeremy D Monin <jeremy@nand.net>
+ * This file Copyright (C) 2013-2015,2017-2020,2022,2026 Jeremy D Monin <jeremy@nand.net>
  * Portions of this file Copyright (C) 2017 Ruud Poutsma <rtimon@gmail.com>
  *
  * This program is free software; you can redistribute it and/or
@@ -61,6 +61,7 @@ import soc.game.SOCResourceSet;
  * @since 2.0.00
  */
 public class SOCDiceResultResources extends SOCMessageTemplateMi
+    implements SOCBinaryMessage
 {
     /**
      * Minimum version number (2.0.00) where the server sends dice roll result resources
@@ -303,4 +304,47 @@ public class SOCDiceResultResources extends SOCMessageTemplateMi
         }
     }
 
+    /**
+     * Parse the command's parameters into a SOCDiceResultResources message,
+     * reading its ints directly from the message string instead of a list of Strings.
+     * Has the same requirements as {@link #parseDataStr(List)}.
+     *
+     * @param c  Cursor over the parameters (game name, then ints), delimited by {@link SOCMessage#sep_char}
+     * @return    a SOCDiceResultResources message, or null if parsing errors
+     * @since 2.7.00
+     */
+    public static SOCDiceResultResources parseDataStr(final SOCMessageFieldCursor c)
+    {
+        if (c.countRemaining() < 2)
+            return null;
+
+        try
+        {
+            final String gaName = c.nextString();
+            final int[] ipa = c.nextInts();
+
+            return new SOCDiceResultResources(gaName, ipa);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * Parse the binary format from {@link #toBinaryCmd()} into a SOCDiceResultResources message.
+     * @param r  Reader positioned after the message type ID
+     * @return    a SOCDiceResultResources message
+     * @throws IllegalArgumentException if the data is garbled
+     * @since 2.7.00
+     */
+    public static SOCDiceResultResources parseBinary(final SOCMessageBinaryReader r)
+        throws IllegalArgumentException
+    {
+        final String gaName = r.readGameName();
+        final int[] pa = r.readIntArray();
+        if ((pa == null) || (pa.length == 0))
+            throw new IllegalArgumentException("params");
+
+        return new SOCDiceResultResources(gaName, pa);
+    }
+
 }
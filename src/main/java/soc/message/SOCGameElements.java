@@ -1,6 +1,6 @@
 /**
  * Java Settlers - An online multiplayer version of the game Settlers of Catan
- * This file Copyright (C) 2017,2019-2025 Jeremy D Monin <jeremy@nand.net>
+ * This file Copyright (C) 2017,2019-2026 Jeremy D Monin <jeremy@nand.net>
  *
  * This program is free software; you can redistribute it and/or
  * modify it under the terms of the GNU General Public License
@@ -37,7 +37,7 @@ import soc.game.SOCGame;  // for javadocs only
  * @since 2.0.00
  */
 public class SOCGameElements extends SOCMessageTemplateMi
-    implements SOCMessageForGame
+    implements SOCMessageForGame, SOCBinaryMessage
 {
     private static final long serialVersionUID = 2000L;  // last structural change v2.0.00
 
@@ -378,6 +378,39 @@ public class SOCGameElements extends SOCMessageTemplateMi
         }
     }
 
+    /**
+     * Parse the command's parameters into a SOCGameElements message,
+     * reading its ints directly from the message string instead of a list of Strings.
+     * Has the same requirements as {@link #parseDataStr(List)}.
+     *
+     * @param c  Cursor over the parameters (game name, then ints), delimited by {@link SOCMessage#sep_char}
+     * @return    a SOCGameElements message, or null if parsing errors
+     * @since 2.7.00
+     */
+    public static SOCGameElements parseDataStr(final SOCMessageFieldCursor c)
+    {
+        final int L = c.countRemaining();
+        if ((L < 3) || ((L % 2) == 0))
+            return null;
+
+        try
+        {
+            final String gaName = c.nextString();
+
+            final int n = (L - 1) / 2;
+            int[] elementTypes = new int[n], values = new int[n];
+            for (int i = 0; i < n; ++i)
+            {
+                elementTypes[i] = c.nextInt();
+                values[i] = c.nextInt();
+            }
+
+            return new SOCGameElements(gaName, elementTypes, values);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
     /**
      * Strip out the parameter/attribute names from {@link #toString()}'s format,
      * returning message parameters as a list for {@link #parseDataStr(List)}.
@@ -423,6 +456,32 @@ public class SOCGameElements extends SOCMessageTemplateMi
         return ret;
     }
 
+    /**
+     * Parse the binary format from {@link #toBinaryCmd()} into a SOCGameElements message.
+     * @param r  Reader positioned after the message type ID
+     * @return    a SOCGameElements message
+     * @throws IllegalArgumentException if the data is garbled
+     * @since 2.7.00
+     */
+    public static SOCGameElements parseBinary(final SOCMessageBinaryReader r)
+        throws IllegalArgumentException
+    {
+        final String gaName = r.readGameName();
+        final int[] pa = r.readIntArray();
+        if ((pa == null) || (pa.length < 2) || ((pa.length % 2) != 0))
+            throw new IllegalArgumentException("params");
+
+        final int n = pa.length / 2;
+        int[] elementTypes = new int[n], values = new int[n];
+        for (int i = 0, pai = 0; i < n; ++i)
+        {
+            elementTypes[i] = pa[pai];  ++pai;
+            values[i] = pa[pai];  ++pai;
+        }
+
+        return new SOCGameElements(gaName, elementTypes, values);
+    }
+
     /**
      * @return a human readable form of the message
      */
@@ -1,7 +1,7 @@
 /**
  * Java Settlers - An online multiplayer version of the game Settlers of Catan
  * Copyright (C) 2003  Robert S. Thomas <thomas@infolab.northwestern.edu>
- * Portions of this file Copyright (C) 2010-2011,2013-2014,2017,2019-2024 Jeremy D Monin <jeremy@nand.net>
+ * Portions of this file Copyright (C) 2010-2011,2013-2014,2017,2019-2024,2026 Jeremy D Monin <jeremy@nand.net>
  *
  * This program is free software; you can redistribute it and/or
  * modify it under the terms of the GNU General Public License
@@ -137,7 +137,7 @@ import soc.game.SOCGame;  // for javadoc's use
  * @see SOCGame#getGameState()
  */
 public class SOCGameState extends SOCMessage
-    implements SOCMessageForGame
+    implements SOCMessageForGame, SOCBinaryMessage
 {
     /**
      * Minimum client version (v2.0.00) which can be sent message types with an optional Game State field.
@@ -234,6 +234,31 @@ public class SOCGameState extends SOCMessage
         return new SOCGameState(ga, gs);
     }
 
+    /**
+     * Write this message's fields for {@link #toBinaryCmd()}.
+     * @since 2.7.00
+     */
+    @Override
+    public void writeBinaryFields(final SOCMessageBinaryWriter w)
+    {
+        w.writeGameName(game).writeInt(state);
+    }
+
+    /**
+     * Parse the binary format from {@link #toBinaryCmd()} into a GameState message.
+     * @param r  Reader positioned after the message type ID
+     * @return    a GameState message
+     * @throws IllegalArgumentException if the data is garbled
+     * @since 2.7.00
+     */
+    public static SOCGameState parseBinary(final SOCMessageBinaryReader r)
+        throws IllegalArgumentException
+    {
+        final String ga = r.readGameName();
+
+        return new SOCGameState(ga, r.readInt());
+    }
+
     /**
      * @return a human readable form of the message
      */
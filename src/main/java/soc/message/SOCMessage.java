@@ -31,8 +31,6 @@ import java.util.HashMap;
 import java.util.InputMismatchException;
 import java.util.List;
 import java.util.Map;
-import java.util.NoSuchElementException;
-import java.util.StringTokenizer;
 
 
 /**
@@ -494,6 +492,12 @@ public abstract class SOCMessage implements Serializable, Cloneable
      */
     public static final int CHANGEGAMEOPTIONS = 1108;  // for Opportunistic Game Options, 20251227, v2.7.00
 
+    /**
+     * {@link SOCMessageBatch} - Several messages about one game action, sent together as one frame.
+     * @since 2.7.00
+     */
+    public static final int MESSAGEBATCH = 1109;  // for batching game action messages, 20261017, v2.7.00
+
 
     /////////////////////////////////////////
     // REQUEST FOR FUTURE MESSAGE NUMBERS: //
@@ -564,6 +568,15 @@ public abstract class SOCMessage implements Serializable, Cloneable
      */
     public static final char sep2_char = ',';
 
+    /**
+     * First character of a message in compact binary format from {@link #toBinaryCmd()}
+     * instead of {@link #toCmd()} format, which always starts with a digit.
+     * {@link #toMsg(String)} checks for this marker.
+     * @see SOCMessageBinaryWriter
+     * @since 2.7.00
+     */
+    public static final char BINARY_FRAME_MARKER = '\u0002';
+
     /**
      * "Not for any game" marker, used when any of the {@code SOCMessageTemplate*} message types
      * (which all implement {@link SOCMessageForGame}) are used for convenience for non-game messages
@@ -635,6 +648,41 @@ public abstract class SOCMessage implements Serializable, Cloneable
      */
     public abstract String toCmd();
 
+    /**
+     * Converts the contents of this message into compact binary format, if this message type has one.
+     * The encoded message is still a String, and can be sent on any connection in place of {@link #toCmd()}
+     * to a peer which has reported feature {@link soc.util.SOCFeatureSet#CLIENT_BINARY_MESSAGES}.
+     * {@link #toMsg(String)} will parse either format.
+     *<P>
+     * To have a binary format, a message type implements {@link SOCBinaryMessage}
+     * and has a static {@code parseBinary(SOCMessageBinaryReader)} method which {@code toMsg} calls.
+     * Only frequent or large message types have a binary format; the rest are always sent with {@code toCmd()}.
+     *
+     * @return This message in binary format, or {@code null} if this message type doesn't have one
+     * @see #hasBinaryFormat(int)
+     * @since 2.7.00
+     */
+    public final String toBinaryCmd()
+    {
+        if (! (this instanceof SOCBinaryMessage))
+            return null;
+
+        SOCMessageBinaryWriter w = new SOCMessageBinaryWriter(messageType);
+        ((SOCBinaryMessage) this).writeBinaryFields(w);
+        return w.toString();
+    }
+
+    /**
+     * Does this message type have a compact binary format? See {@link #toBinaryCmd()}.
+     * @param messageType  Message type ID, like {@link #PUTPIECE}
+     * @return true if messages of this type have a binary format
+     * @since 2.7.00
+     */
+    public static boolean hasBinaryFormat(final int messageType)
+    {
+        return MSG_BINARY_PROCESSOR.containsKey(messageType);
+    }
+
     /**
      * Simple human-readable delimited representation, used for debug purposes:
      * {@code SOCPutPiece:game=test5|playerNumber=3|pieceType=0|coord=40a}
@@ -716,7 +764,59 @@ public abstract class SOCMessage implements Serializable, Cloneable
     }
 
     private static final Map<Integer, MessageProcessor> MSG_PROCESSOR = new HashMap<>();
-    
+
+    /**
+     * For message types which parse directly from the message string
+     * instead of from {@link MessageProcessor}'s {@code data} and {@code multiData},
+     * parsing method called by {@link #toMsg(String)}.
+     * The cursor is positioned just after the message type ID, with {@link #sep_char} as its delimiter.
+     * @see #enterDataField(SOCMessageFieldCursor)
+     * @since 2.7.00
+     */
+    @FunctionalInterface
+    private interface CursorMessageProcessor {
+        SOCMessage parse(SOCMessageFieldCursor c);
+    }
+
+    /**
+     * Map for calling a message type's cursor-based parsing method in {@link #toMsg(String)},
+     * checked before {@link #MSG_PROCESSOR}. Each message type is in only one of those two maps.
+     * @since 2.7.00
+     */
+    private static final Map<Integer, CursorMessageProcessor> MSG_CURSOR_PROCESSOR = new HashMap<>();
+
+    /**
+     * For a {@link CursorMessageProcessor} of a non-{@link SOCMessageMulti} message type like
+     * {@link SOCMessageTemplate1i} or {@link SOCMessageTemplate2i}: Narrow the cursor to
+     * the message's data field, with {@link #sep2_char} as delimiter,
+     * like the {@code data} string passed to a {@link MessageProcessor}.
+     * @param c  Cursor positioned after the message type ID
+     * @return {@code c}, for call chaining
+     * @since 2.7.00
+     */
+    private static SOCMessageFieldCursor enterDataField(final SOCMessageFieldCursor c)
+    {
+        c.enterField(sep2_char);
+        return c;
+    }
+
+    /**
+     * For message types which have a binary format, parsing method called by {@link #toMsg(String)}.
+     * @see #toBinaryCmd()
+     * @since 2.7.00
+     */
+    @FunctionalInterface
+    private interface BinaryMessageProcessor {
+        SOCMessage parse(SOCMessageBinaryReader r);
+    }
+
+    /**
+     * Map for calling a message type's {@code parseBinary} method in {@link #toMsg(String)}.
+     * Message types in this map must also override {@link #writeBinaryFields(SOCMessageBinaryWriter)}.
+     * @since 2.7.00
+     */
+    private static final Map<Integer, BinaryMessageProcessor> MSG_BINARY_PROCESSOR = new HashMap<>();
+
     static {
         MSG_PROCESSOR.put(AUTHREQUEST, (d, m) -> SOCAuthRequest.parseDataStr(d));
         MSG_PROCESSOR.put(NULLMESSAGE, (d, m) -> null);
@@ -746,7 +846,7 @@ public abstract class SOCMessage implements Serializable, Cloneable
         MSG_PROCESSOR.put(PLAYERELEMENT, (d, m) -> SOCPlayerElement.parseDataStr(d));
         MSG_PROCESSOR.put(GAMESTATE, (d, m) -> SOCGameState.parseDataStr(d));
         MSG_PROCESSOR.put(TURN, (d, m) -> SOCTurn.parseDataStr(d));
-        MSG_PROCESSOR.put(DICERESULT, (d, m) -> SOCDiceResult.parseDataStr(d));
+        MSG_CURSOR_PROCESSOR.put(DICERESULT, (c) -> SOCDiceResult.parseDataStr(enterDataField(c)));
         MSG_PROCESSOR.put(DISCARDREQUEST, (d, m) -> SOCDiscardRequest.parseDataStr(d));
         MSG_PROCESSOR.put(ROLLDICEREQUEST, (d, m) -> SOCRollDiceRequest.parseDataStr(d));
         MSG_PROCESSOR.put(ROLLDICE, (d, m) -> SOCRollDice.parseDataStr(d));
@@ -771,7 +871,7 @@ public abstract class SOCMessage implements Serializable, Cloneable
         MSG_PROCESSOR.put(PICKRESOURCES, (d, m) -> SOCPickResources.parseDataStr(d));
         MSG_PROCESSOR.put(PICKRESOURCETYPE, (d, m) -> SOCPickResourceType.parseDataStr(d));
         MSG_PROCESSOR.put(FIRSTPLAYER, (d, m) -> SOCFirstPlayer.parseDataStr(d));
-        MSG_PROCESSOR.put(SETTURN, (d, m) -> SOCSetTurn.parseDataStr(d));
+        MSG_CURSOR_PROCESSOR.put(SETTURN, (c) -> SOCSetTurn.parseDataStr(enterDataField(c)));
         MSG_PROCESSOR.put(ROBOTDISMISS, (d, m) -> SOCRobotDismiss.parseDataStr(d));
         MSG_PROCESSOR.put(POTENTIALSETTLEMENTS, (d, m) -> SOCPotentialSettlements.parseDataStr(d));
         MSG_PROCESSOR.put(CHANGEFACE, (d, m) -> SOCChangeFace.parseDataStr(d));
@@ -791,9 +891,9 @@ public abstract class SOCMessage implements Serializable, Cloneable
         MSG_PROCESSOR.put(SERVERPING, (d, m) -> SOCServerPing.parseDataStr(d));
         MSG_PROCESSOR.put(ROLLDICEPROMPT, (d, m) -> SOCRollDicePrompt.parseDataStr(d));
         MSG_PROCESSOR.put(RESETBOARDREQUEST, (d, m) -> SOCResetBoardRequest.parseDataStr(d));
-        MSG_PROCESSOR.put(RESETBOARDAUTH, (d, m) -> SOCResetBoardAuth.parseDataStr(d));
-        MSG_PROCESSOR.put(RESETBOARDVOTEREQUEST, (d, m) -> SOCResetBoardVoteRequest.parseDataStr(d));
-        MSG_PROCESSOR.put(RESETBOARDVOTE, (d, m) -> SOCResetBoardVote.parseDataStr(d));
+        MSG_CURSOR_PROCESSOR.put(RESETBOARDAUTH, (c) -> SOCResetBoardAuth.parseDataStr(enterDataField(c)));
+        MSG_CURSOR_PROCESSOR.put(RESETBOARDVOTEREQUEST, (c) -> SOCResetBoardVoteRequest.parseDataStr(enterDataField(c)));
+        MSG_CURSOR_PROCESSOR.put(RESETBOARDVOTE, (c) -> SOCResetBoardVote.parseDataStr(enterDataField(c)));
         MSG_PROCESSOR.put(RESETBOARDREJECT, (d, m) -> SOCResetBoardReject.parseDataStr(d));
         MSG_PROCESSOR.put(VERSION, (d, m) -> SOCVersion.parseDataStr(d));
         MSG_PROCESSOR.put(NEWGAMEWITHOPTIONS, (d, m) -> SOCNewGameWithOptions.parseDataStr(d));
@@ -802,33 +902,45 @@ public abstract class SOCMessage implements Serializable, Cloneable
         MSG_PROCESSOR.put(GAMEOPTIONGETINFOS, (d, m) -> SOCGameOptionGetInfos.parseDataStr(d));
         MSG_PROCESSOR.put(GAMEOPTIONINFO, (d, m) -> SOCGameOptionInfo.parseDataStr(m));
         MSG_PROCESSOR.put(GAMESWITHOPTIONS, (d, m) -> SOCGamesWithOptions.parseDataStr(m));
-        MSG_PROCESSOR.put(PLAYERSTATS, (d, m) -> SOCPlayerStats.parseDataStr(m));
-        MSG_PROCESSOR.put(PLAYERELEMENTS, (d, m) -> SOCPlayerElements.parseDataStr(m));
+        MSG_CURSOR_PROCESSOR.put(PLAYERSTATS, (c) -> SOCPlayerStats.parseDataStr(c));
+        MSG_CURSOR_PROCESSOR.put(PLAYERELEMENTS, (c) -> SOCPlayerElements.parseDataStr(c));
         MSG_PROCESSOR.put(BOARDLAYOUT2, (d, m) -> SOCBoardLayout2.parseDataStr(d));
         MSG_PROCESSOR.put(DEBUGFREEPLACE, (d, m) -> SOCDebugFreePlace.parseDataStr(d));
         MSG_PROCESSOR.put(TIMINGPING, (d, m) -> SOCTimingPing.parseDataStr(d));
         MSG_PROCESSOR.put(SIMPLEREQUEST, (d, m) -> SOCSimpleRequest.parseDataStr(d));
         MSG_PROCESSOR.put(SIMPLEACTION, (d, m) -> SOCSimpleAction.parseDataStr(d));
         MSG_PROCESSOR.put(GAMESERVERTEXT, (d, m) -> SOCGameServerText.parseDataStr(d));
-        MSG_PROCESSOR.put(DICERESULTRESOURCES, (d, m) -> SOCDiceResultResources.parseDataStr(m));
+        MSG_CURSOR_PROCESSOR.put(DICERESULTRESOURCES, (c) -> SOCDiceResultResources.parseDataStr(c));
         MSG_PROCESSOR.put(MOVEPIECE, (d, m) -> SOCMovePiece.parseDataStr(d));
         MSG_PROCESSOR.put(REMOVEPIECE, (d, m) -> SOCRemovePiece.parseDataStr(d));
         MSG_PROCESSOR.put(PIECEVALUE, (d, m) -> SOCPieceValue.parseDataStr(d));
-        MSG_PROCESSOR.put(GAMEELEMENTS, (d, m) -> SOCGameElements.parseDataStr(m));
+        MSG_CURSOR_PROCESSOR.put(GAMEELEMENTS, (c) -> SOCGameElements.parseDataStr(c));
         MSG_PROCESSOR.put(SVPTEXTMSG, (d, m) -> SOCSVPTextMessage.parseDataStr(d));
         MSG_PROCESSOR.put(INVENTORYITEMACTION, (d, m) -> SOCInventoryItemAction.parseDataStr(d));
         MSG_PROCESSOR.put(SETSPECIALITEM, (d, m) -> SOCSetSpecialItem.parseDataStr(d));
         MSG_PROCESSOR.put(LOCALIZEDSTRINGS, (d, m) -> SOCLocalizedStrings.parseDataStr(m));
         MSG_PROCESSOR.put(SCENARIOINFO, (d, m) -> SOCScenarioInfo.parseDataStr(m, d));
         MSG_PROCESSOR.put(ROBBERYRESULT, (d, m) -> SOCRobberyResult.parseDataStr(d));
-        MSG_PROCESSOR.put(BOTGAMEDATACHECK, (d, m) -> SOCBotGameDataCheck.parseDataStr(m));
+        MSG_CURSOR_PROCESSOR.put(BOTGAMEDATACHECK, (c) -> SOCBotGameDataCheck.parseDataStr(c));
         MSG_PROCESSOR.put(DECLINEPLAYERREQUEST, (d, m) -> SOCDeclinePlayerRequest.parseDataStr(d));
         MSG_PROCESSOR.put(UNDOPUTPIECE, (d, m) -> SOCUndoPutPiece.parseDataStr(d));
         MSG_PROCESSOR.put(SETLASTACTION, (d, m) -> SOCSetLastAction.parseDataStr(d));
         MSG_PROCESSOR.put(UNDONOTALLOWEDREASONTEXT, (d, m) -> SOCUndoNotAllowedReasonText.parseDataStr(d));
         MSG_PROCESSOR.put(CHANGEGAMEOPTIONS, (d, m) -> SOCChangeGameOptions.parseDataStr(m));
         MSG_PROCESSOR.put(REVEALFOGHEX, (d, m) -> SOCRevealFogHex.parseDataStr(d));
-        MSG_PROCESSOR.put(SETSHIPROUTECLOSED, (d, m) -> SOCSetShipRouteClosed.parseDataStr(m));
+        MSG_CURSOR_PROCESSOR.put(SETSHIPROUTECLOSED, (c) -> SOCSetShipRouteClosed.parseDataStr(c));
+
+        MSG_BINARY_PROCESSOR.put(BOARDLAYOUT2, (r) -> SOCBoardLayout2.parseBinary(r));
+        MSG_BINARY_PROCESSOR.put(DICERESULT, (r) -> SOCDiceResult.parseBinary(r));
+        MSG_BINARY_PROCESSOR.put(DICERESULTRESOURCES, (r) -> SOCDiceResultResources.parseBinary(r));
+        MSG_BINARY_PROCESSOR.put(GAMEELEMENTS, (r) -> SOCGameElements.parseBinary(r));
+        MSG_BINARY_PROCESSOR.put(GAMESTATE, (r) -> SOCGameState.parseBinary(r));
+        MSG_BINARY_PROCESSOR.put(PLAYERELEMENT, (r) -> SOCPlayerElement.parseBinary(r));
+        MSG_BINARY_PROCESSOR.put(PLAYERELEMENTS, (r) -> SOCPlayerElements.parseBinary(r));
+        MSG_BINARY_PROCESSOR.put(POTENTIALSETTLEMENTS, (r) -> SOCPotentialSettlements.parseBinary(r));
+        MSG_BINARY_PROCESSOR.put(PUTPIECE, (r) -> SOCPutPiece.parseBinary(r));
+        MSG_BINARY_PROCESSOR.put(TURN, (r) -> SOCTurn.parseBinary(r));
+        MSG_BINARY_PROCESSOR.put(MESSAGEBATCH, (r) -> SOCMessageBatch.parseBinary(r));  // v2.7.00
     }
 
     /**
@@ -836,6 +948,14 @@ public abstract class SOCMessage implements Serializable, Cloneable
      * The string is in the form of "id SEP messagename { SEP2 messagedata }*".
      * If the message type id is unknown, that is printed to System.err.
      * Otherwise calls message type's static {@code parseDataStr} method.
+     *<P>
+     * Fields are read in place with a {@link SOCMessageFieldCursor}. Some frequent message types,
+     * such as those using {@link SOCMessageTemplate1i}, {@link SOCMessageTemplate2i}, or {@link SOCMessageTemplateMi},
+     * have a {@code parseDataStr(SOCMessageFieldCursor)} which reads their ints directly from {@code s}
+     * without first splitting it into Strings.
+     *<P>
+     * If {@code s} starts with {@link #BINARY_FRAME_MARKER}, it's from {@link #toBinaryCmd()} instead,
+     * and is parsed with the message type's {@code parseBinary(SOCMessageBinaryReader)}.
      *
      * @param s  String to convert
      * @return   converted String to a SOCMessage, or null if the string is garbled,
@@ -845,12 +965,38 @@ public abstract class SOCMessage implements Serializable, Cloneable
     {
         try
         {
-            StringTokenizer st = new StringTokenizer(s, sep);
+            if ((! s.isEmpty()) && (s.charAt(0) == BINARY_FRAME_MARKER))
+            {
+                try
+                {
+                    final SOCMessageBinaryReader r = new SOCMessageBinaryReader(s);
+                    final int msgId = r.readInt();
+                    final BinaryMessageProcessor binProcessor = MSG_BINARY_PROCESSOR.get(msgId);
+                    if (binProcessor == null)
+                    {
+                        System.err.println("Message processor failed to resolve binary msgId type " + msgId);
+                        return null;
+                    }
+
+                    return binProcessor.parse(r);
+                } catch (IllegalArgumentException e) {
+                    return null;  // garbled or truncated, like a parseDataStr would return
+                }
+            }
+
+            final SOCMessageFieldCursor cur = new SOCMessageFieldCursor(s, sep_char);
 
             /**
              * get the id that identifies the type of message
              */
-            int msgId = Integer.parseInt(st.nextToken());
+            int msgId = cur.nextInt();
+
+            /**
+             * types which read their fields directly from the message string
+             */
+            CursorMessageProcessor cursorProcessor = MSG_CURSOR_PROCESSOR.get(msgId);
+            if (cursorProcessor != null)
+                return cursorProcessor.parse(cur);
 
             /**
              * get the rest of the data
@@ -881,29 +1027,20 @@ public abstract class SOCMessage implements Serializable, Cloneable
              */
             ArrayList<String> multiData = null;
 
-            try
+            if (cur.hasNext())
             {
-                data = st.nextToken();
-                if (st.hasMoreTokens())
+                data = cur.nextString();
+                if (cur.hasNext())
                 {
-                        // SOCMessageMulti
-
-                        int n = st.countTokens();  // remaining (== number of parameters after "data")
-                        multiData = new ArrayList<String>(n + 1);
-                        multiData.add(data);
-                        while (st.hasMoreTokens())
-                        {
-                                try {
-                                        multiData.add(st.nextToken());
-                                } catch (NoSuchElementException e)
-                                {
-                                        multiData.add(null);
-                                }
-                        }
+                    // SOCMessageMulti
+
+                    int n = cur.countRemaining();  // remaining (== number of parameters after "data")
+                    multiData = new ArrayList<String>(n + 1);
+                    multiData.add(data);
+                    while (cur.hasNext())
+                        multiData.add(cur.nextString());
                 }
-            }
-            catch (NoSuchElementException e)
-            {
+            } else {
                 data = "";
             }
 
@@ -0,0 +1,203 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * This file Copyright (C) 2026 Jeremy D Monin <jeremy@nand.net>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The maintainer of this program can be reached at jsettlers@nand.net
+ **/
+package soc.message;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This envelope message from server holds several messages about one game action, such as
+ * the {@link SOCDiceResult}, {@link SOCDiceResultResources}, {@link SOCPlayerElements}, and {@link SOCGameState}
+ * sent when a player rolls the dice, so they can be sent to a client as one frame.
+ * Client should treat each of its {@link #getMessages()} in order, as if they had been sent separately.
+ *<P>
+ * Each contained message is kept as the frame the server would otherwise have sent,
+ * either text from {@link SOCMessage#toCmd()} or binary from {@link SOCMessage#toBinaryCmd()},
+ * so the server formats each message only once no matter how many clients' batches it's in.
+ *<P>
+ * Sent only to clients which report {@link soc.util.SOCFeatureSet#CLIENT_MESSAGE_BATCH} in their features.
+ * Server batches a game action's messages with {@link soc.server.genericServer.OutboundMessageBatch}.
+ *<P>
+ * This message type has only the binary format: See {@link #toCmd()}.
+ * Its {@link #toString()} form is for debugging and can't be parsed by {@link SOCMessage#parseMsgStr(String)}.
+ *
+ * @author Jeremy D Monin &lt;jeremy@nand.net&gt;
+ * @since 2.7.00
+ */
+public class SOCMessageBatch extends SOCMessage
+    implements SOCMessageForGame, SOCBinaryMessage
+{
+    private static final long serialVersionUID = 2700L;  // v2.7.00
+
+    /**
+     * Version number (2.7.00) where this message type was introduced.
+     */
+    public static final int MIN_VERSION = 2700;
+
+    /** Name of game */
+    private final String game;
+
+    /** Contained message frames, in the order they should be treated */
+    private final List<String> frames;
+
+    /**
+     * Create a MessageBatch message.
+     *
+     * @param ga  Name of game
+     * @param frames  Contained messages' frames from {@link SOCMessage#toCmd()} or {@link SOCMessage#toBinaryCmd()},
+     *     in the order they should be treated; not {@code null}
+     * @throws IllegalArgumentException if {@code frames} is {@code null} or contains {@code null}
+     */
+    public SOCMessageBatch(final String ga, final List<String> frames)
+        throws IllegalArgumentException
+    {
+        if ((frames == null) || frames.contains(null))
+            throw new IllegalArgumentException("frames");
+
+        messageType = MESSAGEBATCH;
+        game = ga;
+        this.frames = Collections.unmodifiableList(frames);
+    }
+
+    /**
+     * @return the name of the game
+     */
+    public String getGame()
+    {
+        return game;
+    }
+
+    /**
+     * Get the contained messages' frames, as sent.
+     * @return the frames; not {@code null}
+     * @see #getMessages()
+     */
+    public List<String> getFrames()
+    {
+        return frames;
+    }
+
+    /**
+     * Parse and get the contained messages, in the order they should be treated.
+     * Any frame which {@link SOCMessage#toMsg(String)} can't parse, such as a message type unknown
+     * to this version, is left out; that's the same as if it had been sent separately and ignored.
+     * Parses every time it's called.
+     * @return the contained messages; not {@code null}
+     */
+    public List<SOCMessage> getMessages()
+    {
+        final List<SOCMessage> ret = new ArrayList<>(frames.size());
+        for (final String frame : frames)
+        {
+            final SOCMessage msg = SOCMessage.toMsg(frame);
+            if (msg != null)
+                ret.add(msg);
+        }
+
+        return ret;
+    }
+
+    /**
+     * Minimum version where this message type is used.
+     * MESSAGEBATCH was introduced in v2.7.00 ({@link #MIN_VERSION}).
+     * @return Version number, 2700 for JSettlers 2.7.00
+     */
+    @Override
+    public final int getMinimumVersion() { return MIN_VERSION; }
+
+    /**
+     * This message type has no text format, because its contained frames can include any characters
+     * including separators. The server sends batches only to clients which accept binary frames
+     * (see {@link soc.server.genericServer.Connection#isBatchMessagesAccepted()}),
+     * so this method returns the same binary frame as {@link SOCMessage#toBinaryCmd()}.
+     * @return the binary frame for this message
+     */
+    @Override
+    public String toCmd()
+    {
+        return toBinaryCmd();
+    }
+
+    /**
+     * Write this message's fields: Game name, frame count, then each frame as a String.
+     * @param w  Writer for the binary frame
+     */
+    @Override
+    public void writeBinaryFields(final SOCMessageBinaryWriter w)
+    {
+        w.writeGameName(game).writeInt(frames.size());
+        for (final String frame : frames)
+            w.writeString(frame);
+    }
+
+    /**
+     * Parse the binary form of a MessageBatch message, from {@link #writeBinaryFields(SOCMessageBinaryWriter)}.
+     *
+     * @param r  Reader positioned after the message type
+     * @return a MessageBatch message
+     * @throws IllegalArgumentException if the frame is garbled or truncated
+     */
+    public static SOCMessageBatch parseBinary(final SOCMessageBinaryReader r)
+        throws IllegalArgumentException
+    {
+        final String ga = r.readGameName();
+        final int n = r.readLength();
+        if (n < 0)
+            throw new IllegalArgumentException("frame count");
+
+        final List<String> frames = new ArrayList<>(n);
+        for (int i = 0; i < n; ++i)
+        {
+            final String frame = r.readString();
+            if (frame == null)
+                throw new IllegalArgumentException("null frame");
+            frames.add(frame);
+        }
+
+        return new SOCMessageBatch(ga, frames);
+    }
+
+    /**
+     * For debugging, a human-readable form of this message and the messages it contains.
+     * @return a human readable form of the message, like
+     *     {@code "SOCMessageBatch:game=ga|count=2|msgs=[SOCGameState:game=ga|state=20, SOCTurn:...]"}
+     */
+    @Override
+    public String toString()
+    {
+        final StringBuilder sb = new StringBuilder("SOCMessageBatch:game=");
+        sb.append(game).append("|count=").append(frames.size()).append("|msgs=[");
+        boolean any = false;
+        for (final String frame : frames)
+        {
+            if (any)
+                sb.append(", ");
+            else
+                any = true;
+            final SOCMessage msg = SOCMessage.toMsg(frame);
+            sb.append((msg != null) ? msg.toString() : "?");
+        }
+        sb.append(']');
+
+        return sb.toString();
+    }
+
+}
@@ -0,0 +1,214 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * This file Copyright (C) 2026 Jeremy D Monin <jeremy@nand.net>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The maintainer of this program can be reached at jsettlers@nand.net
+ **/
+package soc.message;
+
+/**
+ * Reads a message's compact binary encoding from {@link SOCMessageBinaryWriter}.
+ * See that class for the encoding format.
+ * Used by {@link SOCMessage#toMsg(String)} when a message starts with {@link SOCMessage#BINARY_FRAME_MARKER}.
+ *<P>
+ * Each read method throws {@link IllegalArgumentException} if the frame is garbled or too short.
+ *<P>
+ * Not thread-safe; each message decoding uses its own reader.
+ *
+ * @author Jeremy D Monin &lt;jeremy@nand.net&gt;
+ * @since 2.7.00
+ */
+public final class SOCMessageBinaryReader
+{
+    /**
+     * Size of {@link #recentGameNames}; a power of 2.
+     */
+    private static final int RECENT_GAME_NAMES_SIZE = 64;
+
+    /**
+     * Recently read game names, shared by all readers, for {@link #readGameName()}.
+     * Slot is a hash of the name's characters.
+     * Races between threads are harmless: String is immutable, so at worst a name is
+     * stored again or a slot is overwritten.
+     */
+    private static final String[] recentGameNames = new String[RECENT_GAME_NAMES_SIZE];
+
+    /** Frame being read */
+    private final String s;
+
+    /** Position of next character to read */
+    private int pos;
+
+    /**
+     * Start reading a frame.
+     * @param frame  Binary-encoded message from {@link SOCMessageBinaryWriter}
+     * @throws IllegalArgumentException if {@code frame} doesn't start with {@link SOCMessage#BINARY_FRAME_MARKER}
+     */
+    public SOCMessageBinaryReader(final String frame)
+        throws IllegalArgumentException
+    {
+        if (frame.isEmpty() || (frame.charAt(0) != SOCMessage.BINARY_FRAME_MARKER))
+            throw new IllegalArgumentException("not a binary frame");
+
+        s = frame;
+        pos = 1;
+    }
+
+    /**
+     * Read an int.
+     * @return the int
+     * @throws IllegalArgumentException if garbled or at end of frame
+     */
+    public int readInt()
+        throws IllegalArgumentException
+    {
+        final int L = s.length();
+        long val = 0, mult = 1;
+        for (int ndigits = 0; ; ++ndigits)
+        {
+            if (pos >= L)
+                throw new IllegalArgumentException("end of frame");
+            if (ndigits > 5)
+                throw new IllegalArgumentException("int too long at " + pos);
+
+            final char c = s.charAt(pos);
+            ++pos;
+            if ((c >= SOCMessageBinaryWriter.CONTINUE_BASE) && (c <= '\u007F'))
+            {
+                val += (c - SOCMessageBinaryWriter.CONTINUE_BASE) * mult;
+                mult *= SOCMessageBinaryWriter.CONTINUE_RADIX;
+            }
+            else if ((c >= SOCMessageBinaryWriter.FINAL_BASE) && (c < SOCMessageBinaryWriter.CONTINUE_BASE))
+            {
+                val += (c - SOCMessageBinaryWriter.FINAL_BASE) * mult;
+                break;
+            }
+            else
+                throw new IllegalArgumentException("bad int char at " + (pos - 1));
+        }
+
+        if (val > 0xFFFFFFFFL)
+            throw new IllegalArgumentException("int out of range at " + pos);
+
+        return (int) val;
+    }
+
+    /**
+     * Read a boolean.
+     * @return true if the int read is not 0
+     * @throws IllegalArgumentException if garbled or at end of frame
+     */
+    public boolean readBoolean()
+        throws IllegalArgumentException
+    {
+        return (readInt() != 0);
+    }
+
+    /**
+     * Read the length of a string or array. Since every element takes at least 1 character,
+     * the length can't be larger than the rest of the frame.
+     * Can also be used by message types which write a length before their own structures.
+     * @return the length, or -1 for {@code null}
+     * @throws IllegalArgumentException if garbled, less than -1, or longer than rest of frame
+     */
+    public int readLength()
+        throws IllegalArgumentException
+    {
+        final int len = readInt();
+        if ((len < -1) || (len > s.length() - pos))
+            throw new IllegalArgumentException("bad length " + len + " at " + pos);
+
+        return len;
+    }
+
+    /**
+     * Read a String.
+     * @return the String, or {@code null}
+     * @throws IllegalArgumentException if garbled or at end of frame
+     */
+    public String readString()
+        throws IllegalArgumentException
+    {
+        final int len = readLength();
+        if (len == -1)
+            return null;
+
+        final String ret = s.substring(pos, pos + len);
+        pos += len;
+
+        return ret;
+    }
+
+    /**
+     * Read a game name. If the same name was read recently, returns that same String
+     * instead of creating a new one, since a game's name is part of nearly every message
+     * during game play.
+     * @return the game name, or {@code null}
+     * @throws IllegalArgumentException if garbled or at end of frame
+     */
+    public String readGameName()
+        throws IllegalArgumentException
+    {
+        final int len = readLength();
+        if (len == -1)
+            return null;
+
+        final int end = pos + len;
+        int h = len;
+        for (int i = pos; i < end; ++i)
+            h = 31 * h + s.charAt(i);
+        final int slot = (h ^ (h >>> 16)) & (RECENT_GAME_NAMES_SIZE - 1);
+
+        String name = recentGameNames[slot];
+        if ((name == null) || (name.length() != len) || ! s.regionMatches(pos, name, 0, len))
+        {
+            name = s.substring(pos, end);
+            recentGameNames[slot] = name;
+        }
+        pos = end;
+
+        return name;
+    }
+
+    /**
+     * Read an int array.
+     * @return the array, or {@code null}
+     * @throws IllegalArgumentException if garbled or at end of frame
+     */
+    public int[] readIntArray()
+        throws IllegalArgumentException
+    {
+        final int len = readLength();
+        if (len == -1)
+            return null;
+
+        final int[] ret = new int[len];
+        for (int i = 0; i < len; ++i)
+            ret[i] = readInt();
+
+        return ret;
+    }
+
+    /**
+     * Are there any more characters to read in the frame?
+     * @return true if not at end of frame
+     */
+    public boolean hasMore()
+    {
+        return (pos < s.length());
+    }
+
+}
@@ -0,0 +1,162 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * This file Copyright (C) 2026 Jeremy D Monin <jeremy@nand.net>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The maintainer of this program can be reached at jsettlers@nand.net
+ **/
+package soc.message;
+
+/**
+ * Builds a message's compact binary encoding, for {@link SOCMessage#toBinaryCmd()}.
+ * Read with {@link SOCMessageBinaryReader}.
+ *<P>
+ * So that it can be sent over every existing connection type without changing the network protocol,
+ * the encoded frame is still a String: It starts with {@link SOCMessage#BINARY_FRAME_MARKER},
+ * which is never the first character of a {@link SOCMessage#toCmd()} string,
+ * followed by the message type ID and then the message type's fields.
+ *
+ *<H3>Encoding:</H3>
+ * Every character of an int's encoding is in the range 0x01 - 0x7F,
+ * which {@link java.io.DataOutputStream#writeUTF(String)} sends as 1 byte.
+ *<UL>
+ * <LI> {@code int}: Treated as unsigned, since nearly all values are &gt;= 0, then written as
+ *      0 or more continuation characters 0x41 - 0x7F ({@code 'A'} - DEL) holding base-63 digits,
+ *      least-significant first, then a final character 0x01 - 0x40 holding the
+ *      remaining value 0 - 63. So 0 - 63 takes 1 character, 64 - 4031 takes 2, etc;
+ *      a board coordinate like {@code 0x0A0B} is 2 characters instead of 4 digits and a separator.
+ *      Negative numbers take 6 characters.
+ * <LI> {@code boolean}: An int 1 or 0
+ * <LI> String: Length as an int (-1 for {@code null}), then its characters unchanged
+ * <LI> {@code int[]}: Length as an int (-1 for {@code null}), then each element as an int
+ *</UL>
+ * Fields have no separators or names, so the reader must read them in the same order they were written.
+ *<P>
+ * Not thread-safe; each message encoding uses its own writer.
+ *
+ * @author Jeremy D Monin &lt;jeremy@nand.net&gt;
+ * @since 2.7.00
+ */
+public final class SOCMessageBinaryWriter
+{
+    /** Lowest continuation character; see class javadoc */
+    static final char CONTINUE_BASE = 'A';
+
+    /** Number of values held in a continuation character */
+    static final int CONTINUE_RADIX = 63;
+
+    /** Lowest final character; see class javadoc */
+    static final char FINAL_BASE = '\u0001';
+
+    /** Number of values held in a final character */
+    static final int FINAL_RADIX = 64;
+
+    private final StringBuilder sb;
+
+    /**
+     * Start encoding a message.
+     * @param messageType  Message type ID, like {@link SOCMessage#PUTPIECE}
+     */
+    public SOCMessageBinaryWriter(final int messageType)
+    {
+        sb = new StringBuilder(32);
+        sb.append(SOCMessage.BINARY_FRAME_MARKER);
+        writeInt(messageType);
+    }
+
+    /**
+     * Write an int.
+     * @param v  Value to write
+     * @return this writer, for call chaining
+     */
+    public SOCMessageBinaryWriter writeInt(final int v)
+    {
+        long u = v & 0xFFFFFFFFL;
+        while (u >= FINAL_RADIX)
+        {
+            sb.append((char) (CONTINUE_BASE + (int) (u % CONTINUE_RADIX)));
+            u /= CONTINUE_RADIX;
+        }
+        sb.append((char) (FINAL_BASE + (int) u));
+
+        return this;
+    }
+
+    /**
+     * Write a boolean, as int 1 or 0.
+     * @param b  Value to write
+     * @return this writer, for call chaining
+     */
+    public SOCMessageBinaryWriter writeBoolean(final boolean b)
+    {
+        return writeInt(b ? 1 : 0);
+    }
+
+    /**
+     * Write a String, which can contain any characters including separators.
+     * @param s  String to write, or {@code null}
+     * @return this writer, for call chaining
+     * @see #writeGameName(String)
+     */
+    public SOCMessageBinaryWriter writeString(final String s)
+    {
+        if (s == null)
+            return writeInt(-1);
+
+        writeInt(s.length());
+        sb.append(s);
+
+        return this;
+    }
+
+    /**
+     * Write a game name. Same encoding as {@link #writeString(String)}, but the reader will intern it:
+     * See {@link SOCMessageBinaryReader#readGameName()}.
+     * @param gaName  Game name to write
+     * @return this writer, for call chaining
+     */
+    public SOCMessageBinaryWriter writeGameName(final String gaName)
+    {
+        return writeString(gaName);
+    }
+
+    /**
+     * Write an int array.
+     * @param a  Array to write, or {@code null}
+     * @return this writer, for call chaining
+     */
+    public SOCMessageBinaryWriter writeIntArray(final int[] a)
+    {
+        if (a == null)
+            return writeInt(-1);
+
+        writeInt(a.length);
+        for (int i = 0; i < a.length; ++i)
+            writeInt(a[i]);
+
+        return this;
+    }
+
+    /**
+     * Get the encoded message.
+     * @return the encoded message frame, starting with {@link SOCMessage#BINARY_FRAME_MARKER}
+     */
+    @Override
+    public String toString()
+    {
+        return sb.toString();
+    }
+
+}
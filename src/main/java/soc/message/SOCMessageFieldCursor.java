@@ -0,0 +1,243 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * This file Copyright (C) 2026 Jeremy D Monin <jeremy@nand.net>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The maintainer of this program can be reached at jsettlers@nand.net
+ **/
+package soc.message;
+
+import java.util.NoSuchElementException;
+
+/**
+ * Index-based cursor for parsing delimited fields out of a message string
+ * from {@link SOCMessage#toCmd()}, used by {@link SOCMessage#toMsg(String)}
+ * instead of a {@link java.util.StringTokenizer}.
+ *<P>
+ * Reads fields in place from the original string: {@link #nextInt()} parses digits directly,
+ * without creating a substring for each field, and the cursor itself can be narrowed
+ * to a single field with {@link #enterField(char)} to parse that field's sub-fields.
+ * Only {@link #nextString()} allocates.
+ *<P>
+ * Field boundaries are the same as {@code StringTokenizer} with a single delimiter character:
+ * Consecutive delimiters, and delimiters at the start or end of the range, are skipped
+ * and don't produce empty fields.
+ *<P>
+ * Not thread-safe; each parse uses its own cursor.
+ *
+ * @author Jeremy D Monin &lt;jeremy@nand.net&gt;
+ * @since 2.7.00
+ */
+public final class SOCMessageFieldCursor
+{
+    /** String being parsed */
+    private final String s;
+
+    /** Current delimiter */
+    private char delim;
+
+    /** Position of next character to read; {@code pos} &lt;= {@link #end} */
+    private int pos;
+
+    /** End of range being parsed (exclusive), see {@link #enterField(char)} */
+    private int end;
+
+    /**
+     * Create a cursor over an entire string.
+     * @param s  String to parse; not null
+     * @param delim  Field delimiter, such as {@link SOCMessage#sep_char} or {@link SOCMessage#sep2_char}
+     * @throws NullPointerException if {@code s} is null
+     */
+    public SOCMessageFieldCursor(final String s, final char delim)
+        throws NullPointerException
+    {
+        this.s = s;
+        this.delim = delim;
+        end = s.length();
+    }
+
+    /** Move {@link #pos} past any delimiters. */
+    private void skipDelims()
+    {
+        while ((pos < end) && (s.charAt(pos) == delim))
+            ++pos;
+    }
+
+    /**
+     * Find the end of the field starting at {@link #pos}.
+     * @return index of the next delimiter after {@code pos}, or {@link #end}
+     */
+    private int fieldEnd()
+    {
+        int i = pos;
+        while ((i < end) && (s.charAt(i) != delim))
+            ++i;
+
+        return i;
+    }
+
+    /**
+     * Are there any more fields in the current range?
+     * @return true if {@link #nextString()} or {@link #nextInt()} would find a field
+     */
+    public boolean hasNext()
+    {
+        skipDelims();
+        return (pos < end);
+    }
+
+    /**
+     * Count the remaining fields in the current range, without moving the cursor.
+     * @return number of fields remaining, or 0
+     */
+    public int countRemaining()
+    {
+        int n = 0;
+        boolean inField = false;
+        for (int i = pos; i < end; ++i)
+        {
+            if (s.charAt(i) == delim)
+            {
+                inField = false;
+            } else if (! inField) {
+                inField = true;
+                ++n;
+            }
+        }
+
+        return n;
+    }
+
+    /**
+     * Get the next field as a String.
+     * @return the next field's contents; not null or empty
+     * @throws NoSuchElementException if no more fields
+     */
+    public String nextString()
+        throws NoSuchElementException
+    {
+        skipDelims();
+        if (pos >= end)
+            throw new NoSuchElementException();
+
+        final int fe = fieldEnd();
+        final String field = s.substring(pos, fe);
+        pos = fe;
+
+        return field;
+    }
+
+    /**
+     * Parse the next field as a decimal int, without creating a String.
+     * Accepts the same field contents as {@link Integer#parseInt(String)}.
+     * @return the next field's value
+     * @throws NoSuchElementException if no more fields
+     * @throws NumberFormatException if the field isn't a valid int;
+     *     cursor is still moved past that field
+     */
+    public int nextInt()
+        throws NoSuchElementException, NumberFormatException
+    {
+        skipDelims();
+        if (pos >= end)
+            throw new NoSuchElementException();
+
+        final int start = pos, fe = fieldEnd();
+        pos = fe;
+
+        // Same algorithm as Integer.parseInt: accumulate negatively to handle MIN_VALUE
+        int i = start;
+        boolean negative = false;
+        int limit = -Integer.MAX_VALUE;
+        final char firstChar = s.charAt(i);
+        if (firstChar < '0')
+        {
+            if (firstChar == '-')
+            {
+                negative = true;
+                limit = Integer.MIN_VALUE;
+            }
+            else if (firstChar != '+')
+                throw fieldNumberFormatException(start, fe);
+
+            ++i;
+            if (i == fe)
+                throw fieldNumberFormatException(start, fe);  // "+" or "-" alone
+        }
+
+        final int multmin = limit / 10;
+        int result = 0;
+        while (i < fe)
+        {
+            final int digit = Character.digit(s.charAt(i), 10);
+            ++i;
+            if ((digit < 0) || (result < multmin))
+                throw fieldNumberFormatException(start, fe);
+            result *= 10;
+            if (result < limit + digit)
+                throw fieldNumberFormatException(start, fe);
+            result -= digit;
+        }
+
+        return (negative) ? result : -result;
+    }
+
+    /**
+     * Parse all remaining fields as decimal ints, as with {@link #nextInt()}.
+     * @return the remaining fields' values; may be empty, not null
+     * @throws NumberFormatException if any field isn't a valid int
+     */
+    public int[] nextInts()
+        throws NumberFormatException
+    {
+        final int[] ret = new int[countRemaining()];
+        for (int i = 0; i < ret.length; ++i)
+            ret[i] = nextInt();
+
+        return ret;
+    }
+
+    /**
+     * Narrow this cursor to the next field, to parse its sub-fields with a different delimiter.
+     * Moves to the start of that next field, and sets the range end to that field's end.
+     * If there are no more fields, the range becomes empty.
+     *<P>
+     * For example, {@link SOCMessage#toMsg(String)} calls this with {@link SOCMessage#sep2_char}
+     * to parse a message type's data after its {@link SOCMessage#sep_char}.
+     * @param subDelim  Delimiter of the sub-fields within that field
+     */
+    public void enterField(final char subDelim)
+    {
+        skipDelims();
+        end = fieldEnd();
+        delim = subDelim;
+    }
+
+    private NumberFormatException fieldNumberFormatException(final int start, final int fe)
+    {
+        return new NumberFormatException("For input string: \"" + s.substring(start, fe) + "\"");
+    }
+
+    /**
+     * For debugging, the unparsed remainder of the current range.
+     * @return Class name, position, and remainder, like {@code "SOCMessageFieldCursor@5:ga,3"}
+     */
+    @Override
+    public String toString()
+    {
+        return "SOCMessageFieldCursor@" + pos + ':' + s.substring(pos, end);
+    }
+
+}
@@ -1,7 +1,7 @@
 /**
  * Java Settlers - An online multiplayer version of the game Settlers of Catan
  * Copyright (C) 2003  Robert S. Thomas <thomas@infolab.northwestern.edu>
- * This file Copyright (C) 2008,2010-2012,2014 Jeremy D Monin <jeremy@nand.net>
+ * This file Copyright (C) 2008,2010-2012,2014,2026 Jeremy D Monin <jeremy@nand.net>
  *
  * This program is free software; you can redistribute it and/or
  * modify it under the terms of the GNU General Public License
@@ -53,6 +53,11 @@ package soc.message;
  *        return new SOCLongestRoad(ga, pn);
  *   }
  *</pre></code>
+ *<P>
+ * To parse without a {@code StringTokenizer} or a substring per int field, the message type can
+ * also have a {@code parseDataStr(SOCMessageFieldCursor)} which reads with {@link SOCMessageFieldCursor#nextString()}
+ * and {@link SOCMessageFieldCursor#nextInt()}, called by {@code parseDataStr(String)} and by
+ * {@link SOCMessage#toMsg(String)}'s cursor processor map. See {@link SOCDiceResult} for an example.
  *
  * @author Jeremy D Monin &lt;jeremy@nand.net&gt;
  * @since 1.1.00
@@ -151,6 +156,17 @@ public abstract class SOCMessageTemplate1i extends SOCMessage
     }
      */
 
+    /**
+     * For subclasses which implement {@link SOCBinaryMessage}, write game name and param.
+     * Subclass's {@code parseBinary} reads them with {@link SOCMessageBinaryReader#readGameName()}
+     * and {@link SOCMessageBinaryReader#readInt()}.
+     * @since 2.7.00
+     */
+    public void writeBinaryFields(final SOCMessageBinaryWriter w)
+    {
+        w.writeGameName(game).writeInt(p1);
+    }
+
     /**
      * @return a human readable form of the message
      */
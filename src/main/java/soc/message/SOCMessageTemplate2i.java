@@ -1,7 +1,7 @@
 /**
  * Java Settlers - An online multiplayer version of the game Settlers of Catan
  * Copyright (C) 2003  Robert S. Thomas <thomas@infolab.northwestern.edu>
- * This file Copyright (C) 2008,2010-2012,2014 Jeremy D Monin <jeremy@nand.net>
+ * This file Copyright (C) 2008,2010-2012,2014,2026 Jeremy D Monin <jeremy@nand.net>
  *
  * This program is free software; you can redistribute it and/or
  * modify it under the terms of the GNU General Public License
@@ -56,6 +56,11 @@ package soc.message;
  *        return new SOCMoveRobber(ga, pn, co);
  *   }
  *</pre></code>
+ *<P>
+ * To parse without a {@code StringTokenizer} or a substring per int field, the message type can
+ * also have a {@code parseDataStr(SOCMessageFieldCursor)} which reads with {@link SOCMessageFieldCursor#nextString()}
+ * and {@link SOCMessageFieldCursor#nextInt()}, called by {@code parseDataStr(String)} and by
+ * {@link SOCMessage#toMsg(String)}'s cursor processor map. See {@link SOCResetBoardVote} for an example.
  *
  * @author Jeremy D Monin &lt;jeremy@nand.net&gt;
  * @since 1.1.00
@@ -1,7 +1,7 @@
 /**
  * Java Settlers - An online multiplayer version of the game Settlers of Catan
  * Copyright (C) 2003  Robert S. Thomas <thomas@infolab.northwestern.edu>
- * This file Copyright (C) 2008-2012,2015-2017,2022 Jeremy D Monin <jeremy@nand.net>
+ * This file Copyright (C) 2008-2012,2015-2017,2022,2026 Jeremy D Monin <jeremy@nand.net>
  *
  * This program is free software; you can redistribute it and/or
  * modify it under the terms of the GNU General Public License
@@ -58,6 +58,11 @@ package soc.message;
  *<P>
  * For notes on the parsing code you must add to {@link SOCMessage#toMsg(String)}
  * for your new message type, see {@link SOCMessageMulti}.
+ *<P>
+ * To parse the ints directly from the message string instead of from a list of Strings,
+ * the message type can also have a {@code parseDataStr(SOCMessageFieldCursor)} which reads with
+ * {@link SOCMessageFieldCursor#nextString()} and {@link SOCMessageFieldCursor#nextInts()},
+ * registered in {@code toMsg}'s cursor processor map. See {@link SOCPlayerStats} for an example.
  *
  * @author Jeremy D Monin &lt;jeremy@nand.net&gt;
  * @since 1.1.00
@@ -181,6 +186,17 @@ public abstract class SOCMessageTemplateMi extends SOCMessageMulti
     }
     */
 
+    /**
+     * For subclasses which implement {@link SOCBinaryMessage}, write game name and int parameters.
+     * Subclass's {@code parseBinary} reads them with {@link SOCMessageBinaryReader#readGameName()}
+     * and {@link SOCMessageBinaryReader#readIntArray()}.
+     * @since 2.7.00
+     */
+    public void writeBinaryFields(final SOCMessageBinaryWriter w)
+    {
+        w.writeGameName(game).writeIntArray(pa);
+    }
+
     /**
      * @return a human readable form of the message
      */
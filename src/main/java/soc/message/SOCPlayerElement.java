@@ -1,7 +1,7 @@
 /**
  * Java Settlers - An online multiplayer version of the game Settlers of Catan
  * Copyright (C) 2003  Robert S. Thomas <thomas@infolab.northwestern.edu>
- * Portions of this file Copyright (C) 2009-2014,2017-2023 Jeremy D Monin <jeremy@nand.net>
+ * Portions of this file Copyright (C) 2009-2014,2017-2023,2026 Jeremy D Monin <jeremy@nand.net>
  *
  * This program is free software; you can redistribute it and/or
  * modify it under the terms of the GNU General Public License
@@ -88,7 +88,7 @@ import soc.game.SOCScenario;  // for javadocs only
  * @see SOCGameElements
  */
 public class SOCPlayerElement extends SOCMessage
-    implements SOCMessageForGame
+    implements SOCMessageForGame, SOCBinaryMessage
 {
     /**
      * First version number (2.0.00) that has element types replacing single-purpose message types:
@@ -868,6 +868,34 @@ public class SOCPlayerElement extends SOCMessage
         return ret.toString();
     }
 
+    /**
+     * Write this message's fields for {@link #toBinaryCmd()}.
+     * @since 2.7.00
+     */
+    @Override
+    public void writeBinaryFields(final SOCMessageBinaryWriter w)
+    {
+        w.writeGameName(game).writeInt(playerNumber).writeInt(actionType)
+            .writeInt(elementType).writeInt(amount).writeBoolean(news);
+    }
+
+    /**
+     * Parse the binary format from {@link #toBinaryCmd()} into a PlayerElement message.
+     * @param r  Reader positioned after the message type ID
+     * @return    a PlayerElement message
+     * @throws IllegalArgumentException if the data is garbled
+     * @since 2.7.00
+     */
+    public static SOCPlayerElement parseBinary(final SOCMessageBinaryReader r)
+        throws IllegalArgumentException
+    {
+        final String ga = r.readGameName();
+        final int pn = r.readInt(), ac = r.readInt(), et = r.readInt(), amt = r.readInt();
+        final boolean isNews = r.readBoolean();
+
+        return new SOCPlayerElement(ga, pn, ac, et, amt, isNews);
+    }
+
     /**
      * @return a human readable form of the message
      */
@@ -1,6 +1,6 @@
 /**
  * Java Settlers - An online multiplayer version of the game Settlers of Catan
- * This file Copyright (C) 2010,2014-2015,2017-2021 Jeremy D Monin <jeremy@nand.net>
+ * This file Copyright (C) 2010,2014-2015,2017-2021,2026 Jeremy D Monin <jeremy@nand.net>
  * Portions of this file Copyright (C) 2003  Robert S. Thomas
  *
  * This program is free software; you can redistribute it and/or
@@ -43,6 +43,7 @@ import soc.message.SOCPlayerElement.PEType;
  * @see SOCGameElements
  */
 public class SOCPlayerElements extends SOCMessageTemplateMi
+    implements SOCBinaryMessage
 {
     private static final long serialVersionUID = 2000L;  // last structural change v2.0.00
 
@@ -270,6 +271,42 @@ public class SOCPlayerElements extends SOCMessageTemplateMi
         }
     }
 
+    /**
+     * Parse the command's parameters into a SOCPlayerElements message,
+     * reading its ints directly from the message string instead of a list of Strings.
+     * Has the same requirements as {@link #parseDataStr(List)}.
+     *
+     * @param c  Cursor over the parameters (game name, then ints), delimited by {@link SOCMessage#sep_char}
+     * @return    a SOCPlayerElements message, or null if parsing errors
+     * @since 2.7.00
+     */
+    public static SOCPlayerElements parseDataStr(final SOCMessageFieldCursor c)
+    {
+        final int L = c.countRemaining();
+        if ((L < 5) || ((L % 2) == 0))
+            return null;
+
+        try
+        {
+            final String gaName = c.nextString();
+            final int playerNumber = c.nextInt();
+            final int actionType = c.nextInt();
+
+            final int n = (L - 3) / 2;
+            int[] elementTypes = new int[n];
+            int[] amounts = new int[n];
+            for (int i = 0; i < n; ++i)
+            {
+                elementTypes[i] = c.nextInt();
+                amounts[i]      = c.nextInt();
+            }
+
+            return new SOCPlayerElements(gaName, playerNumber, actionType, elementTypes, amounts);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
     /**
      * Strip out the parameter/attribute names from {@link #toString()}'s format,
      * returning message parameters as a list for {@link #parseDataStr(List)}.
@@ -339,6 +376,33 @@ public class SOCPlayerElements extends SOCMessageTemplateMi
         return ret;
     }
 
+    /**
+     * Parse the binary format from {@link #toBinaryCmd()} into a SOCPlayerElements message.
+     * @param r  Reader positioned after the message type ID
+     * @return    a SOCPlayerElements message
+     * @throws IllegalArgumentException if the data is garbled
+     * @since 2.7.00
+     */
+    public static SOCPlayerElements parseBinary(final SOCMessageBinaryReader r)
+        throws IllegalArgumentException
+    {
+        final String gaName = r.readGameName();
+        final int[] pa = r.readIntArray();
+        if ((pa == null) || (pa.length < 4) || ((pa.length % 2) != 0))
+            throw new IllegalArgumentException("params");
+
+        final int n = (pa.length - 2) / 2;
+        int[] elementTypes = new int[n];
+        int[] amounts = new int[n];
+        for (int i = 0, pai = 2; i < n; ++i)
+        {
+            elementTypes[i] = pa[pai];  ++pai;
+            amounts[i]      = pa[pai];  ++pai;
+        }
+
+        return new SOCPlayerElements(gaName, pa[0], pa[1], elementTypes, amounts);
+    }
+
     /**
      * @return a human readable form of the message
      * @since 2.0.00
@@ -1,6 +1,6 @@
 /**
  * Java Settlers - An online multiplayer version of the game Settlers of Catan
- * This file Copyright (C) 2010,2012,2014-2017,2020-2025 Jeremy D Monin <jeremy@nand.net>
+ * This file Copyright (C) 2010,2012,2014-2017,2020-2026 Jeremy D Monin <jeremy@nand.net>
  *
  * This program is free software; you can redistribute it and/or
  * modify it under the terms of the GNU General Public License
@@ -284,4 +284,29 @@ public class SOCPlayerStats extends SOCMessageTemplateMi
         }
     }
 
+    /**
+     * Parse the command's parameters into a SOCPlayerStats message,
+     * reading its ints directly from the message string instead of a list of Strings.
+     * Has the same requirements as {@link #parseDataStr(List)}.
+     *
+     * @param c  Cursor over the parameters (game name, then ints), delimited by {@link SOCMessage#sep_char}
+     * @return    a SOCPlayerStats message, or null if parsing errors
+     * @since 2.7.00
+     */
+    public static SOCPlayerStats parseDataStr(final SOCMessageFieldCursor c)
+    {
+        if (c.countRemaining() < 2)
+            return null;
+
+        try
+        {
+            final String gaName = c.nextString();
+            final int[] ipa = c.nextInts();
+
+            return new SOCPlayerStats(gaName, ipa);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
 }
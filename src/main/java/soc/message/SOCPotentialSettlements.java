@@ -1,7 +1,7 @@
 /**
  * Java Settlers - An online multiplayer version of the game Settlers of Catan
  * Copyright (C) 2003  Robert S. Thomas <thomas@infolab.northwestern.edu>
- * Portions of this file Copyright (C) 2010-2014,2017-2021 Jeremy D Monin <jeremy@nand.net>
+ * Portions of this file Copyright (C) 2010-2014,2017-2021,2026 Jeremy D Monin <jeremy@nand.net>
  * Portions of this file Copyright (C) 2012 Paul Bilnoski <paul@bilnoski.net>
  *
  * This program is free software; you can redistribute it and/or
@@ -64,7 +64,7 @@ import java.util.StringTokenizer;
  * @author Robert S Thomas
  */
 public class SOCPotentialSettlements extends SOCMessage
-    implements SOCMessageForGame
+    implements SOCMessageForGame, SOCBinaryMessage
 {
     private static final long serialVersionUID = 2000L;  // last structural change v2.0.00
 
@@ -511,7 +511,7 @@ public class SOCPotentialSettlements extends SOCMessage
 
                 final int numArea = Integer.parseInt(st.nextToken());
                 if (numArea > 0)
-                    lan = new HashSet[numArea + 1];
+                    lan = (HashSet<Integer>[]) new HashSet<?>[numArea + 1];
 
                 String tok = st.nextToken();
                 if (! tok.equals("PAN"))
@@ -802,6 +802,111 @@ public class SOCPotentialSettlements extends SOCMessage
         return ret.toString();
     }
 
+    /**
+     * Write this message's fields for {@link #toBinaryCmd()}.
+     * Has all the same optional parts as {@link #toCmd()}: Each of the
+     * potential settlements list, land areas, and legal sea edges is written as length -1 if {@code null}.
+     * @since 2.7.00
+     */
+    @Override
+    public void writeBinaryFields(final SOCMessageBinaryWriter w)
+    {
+        w.writeGameName(game).writeInt(playerNumber);
+
+        if (psNodes == null)
+        {
+            w.writeInt(-1);
+        } else {
+            w.writeInt(psNodes.size());
+            for (Integer node : psNodes)
+                w.writeInt(node);
+        }
+
+        if (landAreasLegalNodes == null)
+        {
+            w.writeInt(-1);
+        } else {
+            w.writeInt(landAreasLegalNodes.length).writeInt(startingLandArea);
+            for (int i = 1; i < landAreasLegalNodes.length; ++i)
+            {
+                final HashSet<Integer> lan = landAreasLegalNodes[i];
+                w.writeInt(lan.size());
+                for (Integer node : lan)
+                    w.writeInt(node);
+            }
+        }
+
+        if (legalSeaEdges == null)
+        {
+            w.writeInt(-1);
+        } else {
+            w.writeInt(legalSeaEdges.length);
+            for (int[] lse : legalSeaEdges)
+                w.writeIntArray(lse);
+        }
+    }
+
+    /**
+     * Parse the binary format from {@link #toBinaryCmd()} into a SOCPotentialSettlements message.
+     * Calls the same constructor which created the message being sent.
+     * @param r  Reader positioned after the message type ID
+     * @return    a SOCPotentialSettlements message
+     * @throws IllegalArgumentException if the data is garbled
+     * @since 2.7.00
+     */
+    @SuppressWarnings("unchecked")
+    public static SOCPotentialSettlements parseBinary(final SOCMessageBinaryReader r)
+        throws IllegalArgumentException
+    {
+        final String ga = r.readGameName();
+        final int pn = r.readInt();
+
+        List<Integer> ps = null;
+        int n = r.readLength();
+        if (n != -1)
+        {
+            ps = new ArrayList<Integer>(n);
+            for (int i = 0; i < n; ++i)
+                ps.add(r.readInt());
+        }
+
+        HashSet<Integer>[] lan = null;
+        int pan = 0;
+        n = r.readLength();
+        if (n != -1)
+        {
+            if (n < 2)
+                throw new IllegalArgumentException("lan");
+            pan = r.readInt();
+            lan = (HashSet<Integer>[]) new HashSet<?>[n];
+            for (int i = 1; i < n; ++i)
+            {
+                final int[] nodes = r.readIntArray();
+                if (nodes == null)
+                    throw new IllegalArgumentException("lan[" + i + "]");
+                lan[i] = new HashSet<Integer>(nodes.length * 4 / 3 + 1);
+                for (int node : nodes)
+                    lan[i].add(node);
+            }
+        }
+
+        int[][] lse = null;
+        n = r.readLength();
+        if (n != -1)
+        {
+            lse = new int[n][];
+            for (int i = 0; i < n; ++i)
+                lse[i] = r.readIntArray();
+        }
+
+        if (lan != null)
+            return new SOCPotentialSettlements(ga, pn, ps, pan, lan, lse);
+        else if (lse != null)
+            return new SOCPotentialSettlements(ga, pn, ps, lse);
+        else
+            return new SOCPotentialSettlements(ga, pn, ps);
+    }
+
     /**
      * @return a human readable form of the message
      */
@@ -1,7 +1,7 @@
 /**
  * Java Settlers - An online multiplayer version of the game Settlers of Catan
  * Copyright (C) 2003  Robert S. Thomas <thomas@infolab.northwestern.edu>
- * Portions of this file Copyright (C) 2010,2012-2014,2017-2025 Jeremy D Monin <jeremy@nand.net>
+ * Portions of this file Copyright (C) 2010,2012-2014,2017-2026 Jeremy D Monin <jeremy@nand.net>
  * Portions of this file Copyright (C) 2017-2018 Strategic Conversation (STAC Project) https://www.irit.fr/STAC/
  *
  * This program is free software; you can redistribute it and/or
@@ -77,7 +77,7 @@ import soc.game.SOCScenario;  // for javadocs only
  * @author Robert S Thomas
  */
 public class SOCPutPiece extends SOCMessage
-    implements SOCMessageForGame
+    implements SOCMessageForGame, SOCBinaryMessage
 {
     private static final long serialVersionUID = 1111L;  // last structural change v1.1.11
 
@@ -247,6 +247,32 @@ public class SOCPutPiece extends SOCMessage
         return ret.toString();
     }
 
+    /**
+     * Write this message's fields for {@link #toBinaryCmd()}.
+     * @since 2.7.00
+     */
+    @Override
+    public void writeBinaryFields(final SOCMessageBinaryWriter w)
+    {
+        w.writeGameName(game).writeInt(playerNumber).writeInt(pieceType).writeInt(coordinates);
+    }
+
+    /**
+     * Parse the binary format from {@link #toBinaryCmd()} into a PutPiece message.
+     * @param r  Reader positioned after the message type ID
+     * @return    a PutPiece message
+     * @throws IllegalArgumentException if the data is garbled
+     * @since 2.7.00
+     */
+    public static SOCPutPiece parseBinary(final SOCMessageBinaryReader r)
+        throws IllegalArgumentException
+    {
+        final String ga = r.readGameName();
+        final int pn = r.readInt(), pt = r.readInt(), co = r.readInt();
+
+        return new SOCPutPiece(ga, pn, pt, co);
+    }
+
     /**
      * @return a human readable form of the message
      */
@@ -1,6 +1,6 @@
 /**
  * Java Settlers - An online multiplayer version of the game Settlers of Catan
- * This file Copyright (C) 2008,2013-2014,2018,2020-2021 Jeremy D Monin <jeremy@nand.net>
+ * This file Copyright (C) 2008,2013-2014,2018,2020-2021,2026 Jeremy D Monin <jeremy@nand.net>
  *
  * This program is free software; you can redistribute it and/or
  * modify it under the terms of the GNU General Public License
@@ -19,8 +19,6 @@
  **/
 package soc.message;
 
-import java.util.StringTokenizer;
-
 /**
  * This message from server informs the client that a game they're playing
  * has been "reset" to a new game (with same name and players, new layout),
@@ -92,18 +90,29 @@ public class SOCResetBoardAuth extends SOCMessageTemplate2i
      * @return    a SOCResetBoardAuth message, or null if the data is garbled
      */
     public static SOCResetBoardAuth parseDataStr(String s)
+    {
+        return parseDataStr(new SOCMessageFieldCursor(s, sep2_char));
+    }
+
+    /**
+     * Parse the command's data fields into a SOCResetBoardAuth message,
+     * reading its ints directly from the message string.
+     *
+     * @param c  Cursor over the data fields, delimited by {@link SOCMessage#sep2_char}
+     * @return    a SOCResetBoardAuth message, or null if the data is garbled
+     * @since 2.7.00
+     */
+    public static SOCResetBoardAuth parseDataStr(final SOCMessageFieldCursor c)
     {
         String ga;   // the game name
         int joinpn;  // the player number to join at
         int reqpn;   // the requester player number
 
-        StringTokenizer st = new StringTokenizer(s, sep2);
-
         try
         {
-            ga = st.nextToken();
-            joinpn = Integer.parseInt(st.nextToken());
-            reqpn = Integer.parseInt(st.nextToken());
+            ga = c.nextString();
+            joinpn = c.nextInt();
+            reqpn = c.nextInt();
         }
         catch (Exception e)
         {
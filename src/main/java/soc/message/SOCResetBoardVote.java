@@ -1,6 +1,6 @@
 /**
  * Java Settlers - An online multiplayer version of the game Settlers of Catan
- * This file Copyright (C) 2008-2009,2014,2020-2021 Jeremy D Monin <jeremy@nand.net>
+ * This file Copyright (C) 2008-2009,2014,2020-2021,2026 Jeremy D Monin <jeremy@nand.net>
  *
  * This program is free software; you can redistribute it and/or
  * modify it under the terms of the GNU General Public License
@@ -19,8 +19,6 @@
  **/
 package soc.message;
 
-import java.util.StringTokenizer;
-
 /**
  * This bi-directional message gives the client's vote on a "board reset",
  * which was requested by another player in that game.
@@ -93,18 +91,29 @@ public class SOCResetBoardVote extends SOCMessageTemplate2i
      * @return    a SOCResetBoardVote message, or null if the data is garbled
      */
     public static SOCResetBoardVote parseDataStr(String s)
+    {
+        return parseDataStr(new SOCMessageFieldCursor(s, sep2_char));
+    }
+
+    /**
+     * Parse the command's data fields into a SOCResetBoardVote message,
+     * reading its ints directly from the message string.
+     *
+     * @param c  Cursor over the data fields, delimited by {@link SOCMessage#sep2_char}
+     * @return    a SOCResetBoardVote message, or null if the data is garbled
+     * @since 2.7.00
+     */
+    public static SOCResetBoardVote parseDataStr(final SOCMessageFieldCursor c)
     {
         String ga; // the game name
         int pn;    // the voter's player number
         int vy;    // vote, 1 or 0
 
-        StringTokenizer st = new StringTokenizer(s, sep2);
-
         try
         {
-            ga = st.nextToken();
-            pn = Integer.parseInt(st.nextToken());
-            vy = Integer.parseInt(st.nextToken());
+            ga = c.nextString();
+            pn = c.nextInt();
+            vy = c.nextInt();
         }
         catch (Exception e)
         {
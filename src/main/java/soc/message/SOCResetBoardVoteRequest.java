@@ -1,6 +1,6 @@
 /**
  * Java Settlers - An online multiplayer version of the game Settlers of Catan
- * This file Copyright (C) 2008,2014,2020 Jeremy D Monin <jeremy@nand.net>
+ * This file Copyright (C) 2008,2014,2020,2026 Jeremy D Monin <jeremy@nand.net>
  *
  * This program is free software; you can redistribute it and/or
  * modify it under the terms of the GNU General Public License
@@ -19,8 +19,6 @@
  **/
 package soc.message;
 
-import java.util.StringTokenizer;
-
 /**
  * This message from server informs the client that in a game they're playing,
  * another player requests a "board reset" (new game with same name and players, new layout),
@@ -61,16 +59,27 @@ public class SOCResetBoardVoteRequest extends SOCMessageTemplate1i
      * @return    a SOCResetBoardVoteRequest message, or null if the data is garbled
      */
     public static SOCResetBoardVoteRequest parseDataStr(String s)
+    {
+        return parseDataStr(new SOCMessageFieldCursor(s, sep2_char));
+    }
+
+    /**
+     * Parse the command's data fields into a SOCResetBoardVoteRequest message,
+     * reading its ints directly from the message string.
+     *
+     * @param c  Cursor over the data fields, delimited by {@link SOCMessage#sep2_char}
+     * @return    a SOCResetBoardVoteRequest message, or null if the data is garbled
+     * @since 2.7.00
+     */
+    public static SOCResetBoardVoteRequest parseDataStr(final SOCMessageFieldCursor c)
     {
         String ga; // the game name
         int reqpn; // the requester player number
 
-        StringTokenizer st = new StringTokenizer(s, sep2);
-
         try
         {
-            ga = st.nextToken();
-            reqpn = Integer.parseInt(st.nextToken());
+            ga = c.nextString();
+            reqpn = c.nextInt();
         }
         catch (Exception e)
         {
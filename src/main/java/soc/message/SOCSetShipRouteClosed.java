@@ -1,6 +1,6 @@
 /**
  * Java Settlers - An online multiplayer version of the game Settlers of Catan
- * This file Copyright (C) 2022,2024 Jeremy D Monin <jeremy@nand.net>
+ * This file Copyright (C) 2022,2024,2026 Jeremy D Monin <jeremy@nand.net>
  *
  * This program is free software; you can redistribute it and/or
  * modify it under the terms of the GNU General Public License
@@ -122,4 +122,30 @@ public class SOCSetShipRouteClosed extends SOCMessageTemplateMi
         }
     }
 
+    /**
+     * Parse the command's parameters into a SOCSetShipRouteClosed message,
+     * reading its ints directly from the message string instead of a list of Strings.
+     * Has the same requirements as {@link #parseDataStr(List)}.
+     *
+     * @param c  Cursor over the parameters (game name, then ints), delimited by {@link SOCMessage#sep_char}
+     * @return    a SOCSetShipRouteClosed message, or null if parsing errors
+     * @since 2.7.00
+     */
+    public static SOCSetShipRouteClosed parseDataStr(final SOCMessageFieldCursor c)
+    {
+        if (c.countRemaining() < 3)
+            return null;
+
+        try
+        {
+            final String gaName = c.nextString();
+            final boolean setClosed = (c.nextInt() != 0);
+            final int[] edges = c.nextInts();
+
+            return new SOCSetShipRouteClosed(gaName, setClosed, edges);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
 }
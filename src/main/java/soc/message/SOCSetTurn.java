@@ -1,7 +1,7 @@
 /**
  * Java Settlers - An online multiplayer version of the game Settlers of Catan
  * Copyright (C) 2003  Robert S. Thomas <thomas@infolab.northwestern.edu>
- * Portions of this file Copyright (C) 2014,2017-2018,2020 Jeremy D Monin <jeremy@nand.net>
+ * Portions of this file Copyright (C) 2014,2017-2018,2020,2026 Jeremy D Monin <jeremy@nand.net>
  *
  * This program is free software; you can redistribute it and/or
  * modify it under the terms of the GNU General Public License
@@ -20,9 +20,6 @@
  **/
 package soc.message;
 
-import java.util.StringTokenizer;
-
-
 /**
  * This message from server to client says whose turn it is.
  * Only the game's current player number should change; no other
@@ -81,16 +78,27 @@ public class SOCSetTurn extends SOCMessageTemplate1i
      * @return    a StartGame message, or null if the data is garbled
      */
     public static SOCSetTurn parseDataStr(String s)
+    {
+        return parseDataStr(new SOCMessageFieldCursor(s, sep2_char));
+    }
+
+    /**
+     * Parse the command's data fields into a SetTurn message,
+     * reading its ints directly from the message string.
+     *
+     * @param c  Cursor over the data fields, delimited by {@link SOCMessage#sep2_char}
+     * @return    a SetTurn message, or null if the data is garbled
+     * @since 2.7.00
+     */
+    public static SOCSetTurn parseDataStr(final SOCMessageFieldCursor c)
     {
         String ga; // the game name
         int pn; // the seat number
 
-        StringTokenizer st = new StringTokenizer(s, sep2);
-
         try
         {
-            ga = st.nextToken();
-            pn = Integer.parseInt(st.nextToken());
+            ga = c.nextString();
+            pn = c.nextInt();
         }
         catch (Exception e)
         {
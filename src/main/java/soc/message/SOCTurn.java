@@ -1,7 +1,7 @@
 /**
  * Java Settlers - An online multiplayer version of the game Settlers of Catan
  * Copyright (C) 2003  Robert S. Thomas <thomas@infolab.northwestern.edu>
- * Portions of this file Copyright (C) 2010,2014,2017,2020-2022 Jeremy D Monin <jeremy@nand.net>
+ * Portions of this file Copyright (C) 2010,2014,2017,2020-2022,2026 Jeremy D Monin <jeremy@nand.net>
  *
  * This program is free software; you can redistribute it and/or
  * modify it under the terms of the GNU General Public License
@@ -67,7 +67,7 @@ import soc.game.SOCPlayer;  // for javadocs only
  * @see SOCSetTurn
  */
 public class SOCTurn extends SOCMessage
-    implements SOCMessageForGame
+    implements SOCMessageForGame, SOCBinaryMessage
 {
     /**
      * First version (2.5.00) where {@code SOCTurn} from server
@@ -187,6 +187,32 @@ public class SOCTurn extends SOCMessage
         }
     }
 
+    /**
+     * Write this message's fields for {@link #toBinaryCmd()}.
+     * @since 2.7.00
+     */
+    @Override
+    public void writeBinaryFields(final SOCMessageBinaryWriter w)
+    {
+        w.writeGameName(game).writeInt(playerNumber).writeInt(gameState);
+    }
+
+    /**
+     * Parse the binary format from {@link #toBinaryCmd()} into a TURN message.
+     * @param r  Reader positioned after the message type ID
+     * @return    a TURN message
+     * @throws IllegalArgumentException if the data is garbled
+     * @since 2.7.00
+     */
+    public static SOCTurn parseBinary(final SOCMessageBinaryReader r)
+        throws IllegalArgumentException
+    {
+        final String ga = r.readGameName();
+        final int pn = r.readInt(), gs = r.readInt();
+
+        return new SOCTurn(ga, pn, gs);
+    }
+
     /**
      * @return a human readable form of the message
      */
@@ -0,0 +1,1597 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * This file Copyright (C) 2026 Jeremy D Monin <jeremy@nand.net>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The maintainer of this program can be reached at jsettlers@nand.net
+ **/
+package soc.robot;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import soc.baseclient.ServerConnectInfo;
+import soc.game.ResourceSet;
+import soc.game.SOCCity;
+import soc.game.SOCDevCard;
+import soc.game.SOCDevCardConstants;
+import soc.game.SOCForceEndTurnResult;
+import soc.game.SOCGame;
+import soc.game.SOCInventoryItem;
+import soc.game.SOCMoveRobberResult;
+import soc.game.SOCPlayer;
+import soc.game.SOCPlayingPiece;
+import soc.game.SOCResourceConstants;
+import soc.game.SOCResourceSet;
+import soc.game.SOCRoad;
+import soc.game.SOCSettlement;
+import soc.game.SOCTradeOffer;
+import soc.message.*;
+import soc.message.SOCGameElements.GEType;
+import soc.message.SOCPlayerElement.PEType;
+import soc.server.SOCGameHandler;
+import soc.util.CappedQueue;
+import soc.util.SOCRobotParameters;
+import soc.util.Version;
+
+/**
+ * Plays robot-only games in-process at full speed, without a server, network connections, or pauses,
+ * to compare bot strategies and {@link SOCRobotParameters} over many games.
+ * {@link #run(int, int)} plays games on a thread pool and reports games per second and each seat's win rate.
+ *<P>
+ * Each game has an authoritative {@link SOCGame} using the server-side rules, and each player
+ * has its own {@link SOCRobotClient} with a client-side view of the game, kept up to date by the
+ * same messages a server would send it: A player doesn't see other players' resource types
+ * or dev cards unless the game reveals them. Each client's {@link SOCRobotBrain} makes every choice
+ * with its usual code, including trade offers to other bots ({@link SOCRobotNegotiator#makeOffer(SOCBuildPlan)})
+ * and responses to them ({@link SOCRobotNegotiator#considerOffer(SOCTradeOffer, int)}),
+ * but without pauses. Brain threads aren't started: The game's thread calls
+ * {@link SOCRobotBrain#handleGameEvent(SOCMessage)} for each message in the brain's queue.
+ * Messages are encoded and parsed as they would be for a network connection.
+ *<P>
+ * Only the classic 4-player board is played, without game options or scenarios.
+ * Win rates are comparable between simulations; bot-only games at a server
+ * ({@code jsettlers.bots.botgames.total}) also have pauses and timing, which can change bots' trades.
+ *<P>
+ * Command line: {@code java -cp JSettlers.jar soc.robot.BotGameSimulator numGames [numThreads [seats]]}
+ * where {@code seats} has a letter for each player's strategy: {@code S} for {@link SOCRobotDM#SMART_STRATEGY},
+ * {@code F} for {@link SOCRobotDM#FAST_STRATEGY}. The default is {@code SSFF}.
+ * System properties {@link SOCRobotClient#PROP_JSETTLERS_BOTS_PLANNING__THREADS},
+ * {@link SOCRobotClient#PROP_JSETTLERS_BOTS_PLANNING__BUDGET__MS},
+ * and {@link SOCRobotClient#PROP_JSETTLERS_BOTS_TRADE__BUDGET__MS} are also recognized.
+ *
+ * @author Jeremy D Monin &lt;jeremy@nand.net&gt;
+ * @since 2.7.00
+ */
+public class BotGameSimulator
+{
+    /**
+     * Default for {@link #setMaxRounds(int)}: Stop a game without a winner after this many rounds.
+     * Bots occasionally reach a stalemate where no player can build.
+     */
+    public static final int MAX_ROUNDS_DEFAULT = 400;
+
+    /**
+     * The players can send at most this many requests per turn,
+     * as a safety limit in case a bot keeps repeating an action.
+     */
+    private static final int MAX_REQUESTS_PER_TURN = 500;
+
+    /**
+     * If no player acts after this many {@link SOCTimingPing}s (simulated seconds) in a row,
+     * force the current player's turn to end, like the server does for inactive robots
+     * after {@code SOCServer.ROBOT_FORCE_ENDTURN_SECONDS}.
+     */
+    private static final int FORCE_END_TURN_PINGS = 8;
+
+    /**
+     * If no player acts after this many {@link SOCTimingPing}s in a row,
+     * even after forcing turns to end, the game is stuck.
+     */
+    private static final int MAX_IDLE_PINGS = 5 * FORCE_END_TURN_PINGS;
+
+    /**
+     * Default robot parameters for {@code S} and {@code F} in {@link #main(String[])} seats,
+     * same as the server's {@code ROBOT_PARAMS_SMARTER} and {@code ROBOT_PARAMS_DEFAULT}.
+     */
+    private static final SOCRobotParameters
+        PARAMS_SMART = new SOCRobotParameters(120, 35, 0.13f, 1.0f, 1.0f, 3.0f, 1.0f, SOCRobotDM.SMART_STRATEGY, 1),
+        PARAMS_FAST = new SOCRobotParameters(120, 35, 0.13f, 1.0f, 1.0f, 3.0f, 1.0f, SOCRobotDM.FAST_STRATEGY, 1);
+
+    /** Each seat's robot parameters; length is number of players */
+    private final SOCRobotParameters[] seatParams;
+
+    /** Round limit per game; see {@link #setMaxRounds(int)} */
+    private int maxRounds = MAX_ROUNDS_DEFAULT;
+
+    /**
+     * Create a simulator for games with these players.
+     * @param seatParams  Robot parameters for each player; length 2 to 4. Each game's seats are in this order,
+     *     and the first player is chosen randomly.
+     * @throws IllegalArgumentException if {@code seatParams} is null, has fewer than 2 or more than 4 elements,
+     *     or any element is null
+     */
+    public BotGameSimulator(final SOCRobotParameters[] seatParams)
+        throws IllegalArgumentException
+    {
+        if ((seatParams == null) || (seatParams.length < 2) || (seatParams.length > 4))
+            throw new IllegalArgumentException("seatParams");
+        for (SOCRobotParameters p : seatParams)
+            if (p == null)
+                throw new IllegalArgumentException("seatParams element");
+
+        this.seatParams = seatParams.clone();
+    }
+
+    /**
+     * Set the number of rounds after which a game is stopped without a winner.
+     * @param rounds  Round limit, or 0 for {@link #MAX_ROUNDS_DEFAULT}
+     */
+    public void setMaxRounds(final int rounds)
+    {
+        maxRounds = (rounds > 0) ? rounds : MAX_ROUNDS_DEFAULT;
+    }
+
+    /**
+     * Play one game to its end, in the calling thread.
+     * @param gaName  Game name, for debugging
+     * @return  The game, in state {@link SOCGame#OVER} if a player won
+     *     (see {@link SOCGame#getPlayerWithWin()}), or in another state
+     *     if stopped at the round limit ({@link #setMaxRounds(int)})
+     * @throws IllegalStateException  if a bot made an illegal move that the simulator can't recover from
+     */
+    public SOCGame playGame(final String gaName)
+        throws IllegalStateException
+    {
+        return playGame(gaName, null);
+    }
+
+    /**
+     * Play one game to its end, in the calling thread, and get each player's view of the game.
+     * @param gaName  Game name, for debugging
+     * @param views  Null, or an array to fill with each player's client-side game;
+     *     length is at least the number of players
+     * @return  The authoritative game; see {@link #playGame(String)}
+     * @throws IllegalStateException  if a bot made an illegal move that the simulator can't recover from
+     */
+    public SOCGame playGame(final String gaName, final SOCGame[] views)
+        throws IllegalStateException
+    {
+        final GameRunner gr = new GameRunner(gaName, seatParams);
+        if (views != null)
+            for (int pn = 0; pn < seatParams.length; ++pn)
+                views[pn] = gr.brains[pn].getGame();
+        gr.play(maxRounds);
+
+        return gr.ga;
+    }
+
+    /**
+     * Play several games on a thread pool and gather their results.
+     * Waits for all games to finish. If a game throws an exception, it's counted in
+     * {@link Results#numErrors} and the first stack trace is printed to {@link System#err}.
+     * @param numGames  Number of games to play
+     * @param numThreads  Number of threads to use; 1 or more
+     * @return  The games' results
+     * @throws IllegalArgumentException if {@code numGames} &lt; 1 or {@code numThreads} &lt; 1
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public Results run(final int numGames, final int numThreads)
+        throws IllegalArgumentException, InterruptedException
+    {
+        if ((numGames < 1) || (numThreads < 1))
+            throw new IllegalArgumentException("numGames, numThreads");
+
+        final Results res = new Results(seatParams.length);
+        final long startTime = System.nanoTime();
+
+        final ExecutorService pool = Executors.newFixedThreadPool(numThreads);
+        for (int i = 1; i <= numGames; ++i)
+        {
+            final String gaName = "sim~" + i;
+            pool.execute(() ->
+            {
+                try
+                {
+                    final GameRunner gr = new GameRunner(gaName, seatParams);
+                    gr.play(maxRounds);
+                    res.addGame(gr);
+                } catch (Throwable th) {
+                    if (res.addError())
+                    {
+                        System.err.println("Error in game " + gaName + ": " + th);
+                        th.printStackTrace();
+                    }
+                }
+            });
+        }
+        pool.shutdown();
+        while (! pool.awaitTermination(1, TimeUnit.MINUTES))
+            ;
+
+        res.elapsedMillis = (System.nanoTime() - startTime) / 1000000L;
+
+        return res;
+    }
+
+    /**
+     * Results of games played by {@link BotGameSimulator#run(int, int)}.
+     * Fields are updated while games are running; read them after {@code run} returns.
+     */
+    public static class Results
+    {
+        /** Number of games played, including {@link #numUnfinished} and {@link #numErrors} */
+        public int numGames;
+
+        /** Number of games stopped at the round limit without a winner */
+        public int numUnfinished;
+
+        /** Number of games stopped by an exception */
+        public int numErrors;
+
+        /** Total number of rounds in finished games, for {@link #averageRounds()} */
+        public long totalRounds;
+
+        /** Number of games won by each seat's player */
+        public final int[] winsBySeat;
+
+        /** Total time taken by {@link BotGameSimulator#run(int, int)}, in milliseconds */
+        public long elapsedMillis;
+
+        /**
+         * Total {@link SOCBuildingSpeedEstimateFactory#getCacheHits()} and
+         * {@link SOCBuildingSpeedEstimateFactory#getCacheMisses()} of all players' brains in all games
+         * @since 2.7.00
+         */
+        public long estimateCacheHits, estimateCacheMisses;
+
+        /** Total number of trades between players, and with the bank or a port, in all games */
+        public long numPlayerTrades, numBankTrades;
+
+        /**
+         * Total number of turns which were forced to end, or discards forced,
+         * because no bot acted; a server would do the same for inactive robots.
+         */
+        public long numForcedEndTurns;
+
+        Results(final int numSeats)
+        {
+            winsBySeat = new int[numSeats];
+        }
+
+        synchronized void addGame(final GameRunner gr)
+        {
+            final SOCGame ga = gr.ga;
+            numPlayerTrades += gr.numPlayerTrades;
+            numBankTrades += gr.numBankTrades;
+            numForcedEndTurns += gr.numForcedEndTurns;
+            for (final SOCRobotBrain br : gr.brains)
+            {
+                if (br == null)
+                    continue;
+                final SOCBuildingSpeedEstimateFactory bsef = br.getEstimatorFactory();
+                estimateCacheHits += bsef.getCacheHits();
+                estimateCacheMisses += bsef.getCacheMisses();
+            }
+
+            ++numGames;
+            final SOCPlayer winner = ga.getPlayerWithWin();
+            if ((ga.getGameState() == SOCGame.OVER) && (winner != null))
+            {
+                ++winsBySeat[winner.getPlayerNumber()];
+                totalRounds += ga.getRoundCount();
+            } else {
+                ++numUnfinished;
+            }
+        }
+
+        /** @return true if this is the first error */
+        synchronized boolean addError()
+        {
+            ++numGames;
+            ++numErrors;
+            return (numErrors == 1);
+        }
+
+        /** @return Number of games played per second, or 0 if {@link #elapsedMillis} is 0 */
+        public synchronized double gamesPerSecond()
+        {
+            return (elapsedMillis > 0) ? (numGames * 1000.0 / elapsedMillis) : 0;
+        }
+
+        /**
+         * @return Fraction of building speed estimate calculations found in the brains' caches,
+         *     from 0.0 to 1.0; 0 if none
+         * @since 2.7.00
+         */
+        public synchronized double estimateCacheHitRate()
+        {
+            final long total = estimateCacheHits + estimateCacheMisses;
+            return (total > 0) ? ((double) estimateCacheHits / total) : 0;
+        }
+
+        /** @return Average number of rounds in games which had a winner, or 0 if none */
+        public synchronized double averageRounds()
+        {
+            final int numWon = numGames - numUnfinished - numErrors;
+            return (numWon > 0) ? ((double) totalRounds / numWon) : 0;
+        }
+
+        /**
+         * Get a seat's win rate.
+         * @param pn  Seat number
+         * @return  Fraction of all games won by {@code pn}, from 0.0 to 1.0; 0 if no games
+         */
+        public synchronized double winRate(final int pn)
+        {
+            return (numGames > 0) ? ((double) winsBySeat[pn] / numGames) : 0;
+        }
+    }
+
+    /**
+     * One game, played by the calling thread: The authoritative server-side {@link SOCGame},
+     * and each player's {@link SimClient} with its own client-side view of the game and its {@link SimBrain}.
+     *<P>
+     * The runner takes the server's role: It applies each client's requests to the authoritative game
+     * and sends the resulting messages to each client's {@link SOCRobotClient#treat(SOCMessage)},
+     * like {@code SOCGameMessageHandler} and {@code SOCGameHandler} do for a v2.7 client on the classic board.
+     * A player sees their own resources and dev cards, but only the amount of other players'
+     * discards, robbed resources, and bought cards. Each message is encoded with {@link SOCMessage#toCmd()}
+     * and parsed with {@link SOCMessage#toMsg(String)}, so each client gets its own copy
+     * in the form it would receive from a server.
+     *<P>
+     * Between requests, each brain's queued messages are handled by {@link SOCRobotBrain#handleGameEvent(SOCMessage)}.
+     * When nothing is queued, each brain is sent a {@link SOCTimingPing}, as if a second has passed.
+     * If no player acts for {@link BotGameSimulator#FORCE_END_TURN_PINGS} of those,
+     * the runner forces the turn to end like the server would.
+     */
+    private static final class GameRunner
+    {
+        /** The authoritative game, like the server's */
+        final SOCGame ga;
+
+        final String gaName;
+
+        /** Each player's robot client, indexed by player number */
+        final SimClient[] clients;
+
+        /** Each player's brain, indexed by player number */
+        final SOCRobotBrain[] brains;
+
+        /** Each brain's event queue, indexed by player number */
+        private final CappedQueue<SOCMessage>[] brainQs;
+
+        /** Requests from clients not yet handled, in the order they were sent */
+        private final ArrayDeque<Request> requests = new ArrayDeque<>();
+
+        /** Number of requests handled this turn, for {@link #MAX_REQUESTS_PER_TURN} */
+        private int requestsThisTurn;
+
+        /** Number of trades between players, and with the bank or a port */
+        int numPlayerTrades, numBankTrades;
+
+        /** Number of times the runner forced a turn to end or forced discards, because no player acted */
+        int numForcedEndTurns;
+
+        /** If not null, a brain left the game for this reason; see {@link SimClient#leaveGame(SOCGame, String, boolean, boolean)} */
+        String leaveReason;
+
+        /**
+         * Create the game and its players' robot clients, which join and sit down.
+         * Call {@link #play(int)} to start and play the game.
+         * @param gaName  Game name
+         * @param seatParams  Each player's robot parameters
+         */
+        @SuppressWarnings("unchecked")
+        GameRunner(final String gaName, final SOCRobotParameters[] seatParams)
+        {
+            this.gaName = gaName;
+            ga = new SOCGame(gaName);
+            final int n = seatParams.length;
+            for (int pn = 0; pn < n; ++pn)
+            {
+                ga.addPlayer("robot " + pn, pn);
+                ga.getPlayer(pn).setRobotFlag(true, true);
+            }
+
+            clients = new SimClient[ga.maxPlayers];
+            brains = new SOCRobotBrain[ga.maxPlayers];
+            brainQs = new CappedQueue[ga.maxPlayers];
+            for (int pn = 0; pn < n; ++pn)
+            {
+                final SimClient cli = new SimClient(this, pn, seatParams[pn]);
+                cli.treat(new SOCJoinGameAuth(gaName));  // creates client's game and brain
+                clients[pn] = cli;
+                brains[pn] = cli.robotBrains.get(gaName);
+                brainQs[pn] = cli.brainQs.get(gaName);
+                if (brains[pn] == null)
+                    throw new IllegalStateException("game " + gaName + ": pn " + pn + " couldn't join");
+            }
+
+            for (int pn = 0; pn < n; ++pn)
+                toAll(new SOCSitDown(gaName, "robot " + pn, pn, true));
+        }
+
+        /**
+         * Start the game, then play it until someone wins or {@code maxRounds} is reached.
+         * @throws IllegalStateException if a brain left the game, or no player acted for too long
+         */
+        void play(final int maxRounds)
+            throws IllegalStateException
+        {
+            startGame();
+
+            int idlePings = 0;
+            while ((ga.getGameState() != SOCGame.OVER) && (ga.getRoundCount() <= maxRounds))
+            {
+                if (leaveReason != null)
+                    throw new IllegalStateException("game " + gaName + ": " + leaveReason);
+
+                if (handleBrainEvents())
+                    continue;
+
+                final Request rq = requests.poll();
+                if (rq != null)
+                {
+                    idlePings = 0;
+                    if (++requestsThisTurn > MAX_REQUESTS_PER_TURN)
+                        throw new IllegalStateException
+                            ("game " + gaName + ": too many requests this turn, state " + ga.getGameState());
+                    handleRequest(rq.pn, rq.mes);
+                    continue;
+                }
+
+                // Everyone's waiting for something: Let a second pass
+                if (++idlePings > MAX_IDLE_PINGS)
+                    throw new IllegalStateException
+                        ("game " + gaName + ": no player acted, state " + ga.getGameState()
+                         + ", current player " + ga.getCurrentPlayerNumber());
+                if ((idlePings % FORCE_END_TURN_PINGS) == 0)
+                    forceEndTurn();
+                else
+                    toAll(new SOCTimingPing(gaName));
+            }
+
+            handleBrainEvents();  // bring clients' game views up to date
+        }
+
+        /**
+         * Each brain handles all messages in its queue, which may add {@link #requests}.
+         * @return true if any messages were handled
+         */
+        private boolean handleBrainEvents()
+        {
+            boolean any = false;
+            for (int pn = 0; pn < brains.length; ++pn)
+            {
+                final CappedQueue<SOCMessage> q = brainQs[pn];
+                if (q == null)
+                    continue;
+
+                while (! q.empty())
+                {
+                    brains[pn].handleGameEvent(q.get());
+                    any = true;
+                }
+            }
+
+            return any;
+        }
+
+        /** Queue a client's request, to be handled by {@link #handleRequest(int, SOCMessage)}. */
+        void request(final int pn, final SOCMessage mes)
+        {
+            requests.add(new Request(pn, SOCMessage.toMsg(mes.toCmd())));
+        }
+
+        /** Send a message to every client. */
+        private void toAll(final SOCMessage mes)
+        {
+            final String cmd = mes.toCmd();
+            for (final SimClient cli : clients)
+                if (cli != null)
+                    cli.treat(SOCMessage.toMsg(cmd));
+        }
+
+        /** Send a message to one player's client. */
+        private void toPlayer(final int pn, final SOCMessage mes)
+        {
+            clients[pn].treat(SOCMessage.toMsg(mes.toCmd()));
+        }
+
+        /** Send a message to every client except one player's. */
+        private void toAllExcept(final int pn, final SOCMessage mes)
+        {
+            final String cmd = mes.toCmd();
+            for (int i = 0; i < clients.length; ++i)
+                if ((i != pn) && (clients[i] != null))
+                    clients[i].treat(SOCMessage.toMsg(cmd));
+        }
+
+        /**
+         * Start the game and send its board layout and first turn,
+         * like {@code SOCGameHandler.startGame}.
+         */
+        private void startGame()
+        {
+            ga.startGame();
+
+            toAll(SOCGameHandler.getBoardLayoutMessage(ga));
+            for (int pn = 0; pn < ga.maxPlayers; ++pn)
+            {
+                if (ga.isSeatVacant(pn))
+                    continue;
+
+                final SOCPlayer pl = ga.getPlayer(pn);
+                toAll(new SOCPlayerElements
+                    (gaName, pn, SOCPlayerElement.SET,
+                     new PEType[]{ PEType.ROADS, PEType.SETTLEMENTS, PEType.CITIES },
+                     new int[]{ pl.getNumPieces(SOCPlayingPiece.ROAD), pl.getNumPieces(SOCPlayingPiece.SETTLEMENT),
+                                pl.getNumPieces(SOCPlayingPiece.CITY) }));
+            }
+            toAll(new SOCPlayerElement(gaName, -1, SOCPlayerElement.SET, PEType.PLAYED_DEV_CARD_FLAG, 0));
+            toAll(new SOCGameElements(gaName, GEType.DEV_CARD_COUNT, ga.getNumDevCards()));
+            toAll(new SOCStartGame(gaName, ga.getGameState()));
+            sendTurn();
+        }
+
+        /**
+         * Send the current player's turn, like {@code SOCGameHandler.sendTurn}.
+         * If a robber victim must be chosen, first prompts the current player.
+         */
+        private void sendTurn()
+        {
+            requestsThisTurn = 0;
+            final int gstate = ga.getGameState();
+            if (gstate != SOCGame.OVER)
+                sendGameState(false);
+            toAll(new SOCTurn(gaName, ga.getCurrentPlayerNumber(), gstate));
+        }
+
+        /**
+         * Send the game state, like {@code SOCGameHandler.sendGameState}.
+         * @param withStateMessage  If false, send only the related prompts, not {@link SOCGameState} itself
+         */
+        private void sendGameState(final boolean withStateMessage)
+        {
+            final int gstate = ga.getGameState(), cpn = ga.getCurrentPlayerNumber();
+            if (gstate == SOCGame.OVER)
+                toAll(new SOCGameElements(gaName, GEType.CURRENT_PLAYER, cpn));
+            if (withStateMessage)
+                toAll(new SOCGameState(gaName, gstate));
+
+            if (gstate == SOCGame.WAITING_FOR_ROB_CHOOSE_PLAYER)
+                toPlayer(cpn, choosePlayerRequest());
+        }
+
+        /** Prompt for current player to choose a robber victim. */
+        private SOCChoosePlayerRequest choosePlayerRequest()
+        {
+            final boolean[] choices = new boolean[ga.maxPlayers];
+            for (final SOCPlayer pl : ga.getPossibleVictims())
+                choices[pl.getPlayerNumber()] = true;
+
+            return new SOCChoosePlayerRequest(gaName, choices, false);
+        }
+
+        /**
+         * Decline a player's request, like {@code SOCGameHandler.sendDecline}.
+         * @param withGameState  If true, include the current game state unless reason is
+         *     {@link SOCDeclinePlayerRequest#REASON_NOT_YOUR_TURN}
+         */
+        private void sendDecline(final int pn, final int reason, final boolean withGameState)
+        {
+            final int gstate = (withGameState && (reason != SOCDeclinePlayerRequest.REASON_NOT_YOUR_TURN))
+                ? ga.getGameState()
+                : 0;
+            toPlayer(pn, new SOCDeclinePlayerRequest(gaName, gstate, reason, 0, 0, null));
+        }
+
+        /** Announce that a player has lost resources, like {@code SOCGameHandler.reportRsrcGainLoss}. */
+        private void reportRsrcLoss(final int pn, final SOCResourceSet rs)
+        {
+            toAll(new SOCPlayerElements(gaName, pn, SOCPlayerElement.LOSE, rs));
+        }
+
+        /**
+         * Announce a robbery. Only the thief and victim are told which resource was taken.
+         * @param rsrc  Resource type taken
+         */
+        private void reportRobbery(final int perpPN, final int victimPN, final int rsrc)
+        {
+            final SOCRobberyResult known = new SOCRobberyResult(gaName, perpPN, victimPN, rsrc, true, 1, 0, 0),
+                unknown = new SOCRobberyResult
+                    (gaName, perpPN, victimPN, SOCResourceConstants.UNKNOWN, true, 1, 0, 0);
+            for (int pn = 0; pn < clients.length; ++pn)
+                if (clients[pn] != null)
+                    toPlayer(pn, ((pn == perpPN) || (pn == victimPN)) ? known : unknown);
+        }
+
+        /** End the current turn and start the next player's, like {@code SOCGameHandler.endGameTurn}. */
+        private void endGameTurn()
+        {
+            ga.endTurn();
+            toAll(new SOCClearOffer(gaName, -1));
+            sendTurn();
+        }
+
+        /**
+         * No player has acted for a while: Force any needed discards, or end the current player's turn,
+         * like {@code SOCGameHandler.endTurnIfInactive} and {@code forceEndGameTurn}.
+         */
+        private void forceEndTurn()
+        {
+            ++numForcedEndTurns;
+
+            final int gstate = ga.getGameState(), cpn = ga.getCurrentPlayerNumber();
+            if (gstate == SOCGame.WAITING_FOR_DISCARDS)
+            {
+                for (int pn = 0; pn < ga.maxPlayers; ++pn)
+                {
+                    if (ga.isSeatVacant(pn) || ! ga.getPlayer(pn).getNeedToDiscard())
+                        continue;
+
+                    final SOCResourceSet rs = ga.playerDiscardOrGainRandom(pn, true);
+                    ga.getPlayer(pn).addForcedEndTurn();
+                    reportRsrcLossToPlayer(pn, rs);
+                }
+                sendGameState(true);
+
+                return;
+            }
+
+            final SOCPlayer cpl = ga.getPlayer(cpn);
+            cpl.addForcedEndTurn();
+            if ((gstate == SOCGame.START1B) || (gstate == SOCGame.START2B) || (gstate == SOCGame.START3B))
+            {
+                // Cancel the settlement just placed, as the server does when a player leaves during initial placement
+                ga.undoPutInitSettlement(new SOCSettlement(cpl, cpl.getLastSettlementCoord(), null));
+                ga.setGameState(gstate);
+                toAll(new SOCCancelBuildRequest(gaName, SOCPlayingPiece.SETTLEMENT));
+            }
+
+            if (ga.canEndTurn(cpn))
+            {
+                endGameTurn();
+                return;
+            }
+
+            final SOCPlayer prevLargestArmy = ga.getPlayerWithLargestArmy();
+            final SOCForceEndTurnResult res = ga.forceEndTurn();
+
+            final SOCResourceSet rs = res.getResourcesGainedLost();
+            if (rs != null)
+            {
+                if (res.isLoss())
+                    reportRsrcLossToPlayer(cpn, rs);
+                else
+                    toAll(new SOCPlayerElements(gaName, cpn, SOCPlayerElement.GAIN, rs));
+            }
+
+            final SOCInventoryItem card = res.getReturnedInvItem();
+            if (card != null)
+            {
+                toPlayer(cpn, new SOCDevCardAction(gaName, cpn, SOCDevCardAction.ADD_OLD, card.itype));
+                toAllExcept
+                    (cpn, new SOCDevCardAction(gaName, cpn, SOCDevCardAction.ADD_OLD, SOCDevCardConstants.UNKNOWN));
+                if (card.itype == SOCDevCardConstants.KNIGHT)
+                    toAll(new SOCPlayerElement
+                        (gaName, cpn, SOCPlayerElement.SET, PEType.NUMKNIGHTS, cpl.getNumKnights()));
+            }
+            sendLargestArmyIfChanged(prevLargestArmy);
+
+            final int forceRes = res.getResult();
+            if ((forceRes == SOCForceEndTurnResult.FORCE_ENDTURN_SKIP_START_ADV)
+                || (forceRes == SOCForceEndTurnResult.FORCE_ENDTURN_SKIP_START_ADVBACK))
+            {
+                if (res.didUpdateFP() || res.didUpdateLP())
+                    toAll(new SOCGameElements(gaName, GEType.FIRST_PLAYER, ga.getFirstPlayer()));
+                sendTurn();
+            }
+            else if (ga.canEndTurn(cpn))
+                endGameTurn();
+            else
+                sendGameState(true);
+        }
+
+        /**
+         * Report a player's discard or other loss: Only that player is told the resource types.
+         */
+        private void reportRsrcLossToPlayer(final int pn, final SOCResourceSet rs)
+        {
+            toPlayer(pn, new SOCPlayerElements(gaName, pn, SOCPlayerElement.LOSE, rs));
+            toAllExcept(pn, new SOCPlayerElement
+                (gaName, pn, SOCPlayerElement.LOSE, PEType.UNKNOWN_RESOURCE, rs.getTotal(), true));
+        }
+
+        /**
+         * Handle a request from a player's client, like {@code SOCGameMessageHandler} does.
+         * @param pn  Requesting player number
+         * @param mes  Request message from {@link SimClient}
+         */
+        private void handleRequest(final int pn, final SOCMessage mes)
+        {
+            final int cpn = ga.getCurrentPlayerNumber();
+
+            switch (mes.getType())
+            {
+            case SOCMessage.ROLLDICE:
+                if (ga.canRollDice(pn))
+                    handleROLLDICE();
+                break;
+
+            case SOCMessage.DISCARD:
+                handleDISCARD(pn, ((SOCDiscard) mes).getResources());
+                break;
+
+            case SOCMessage.MOVEROBBER:
+                if (pn != cpn)
+                {
+                    sendDecline(pn, SOCDeclinePlayerRequest.REASON_NOT_YOUR_TURN, false);
+                } else {
+                    final int coord = ((SOCMoveRobber) mes).getCoordinates();
+                    if (ga.canMoveRobber(pn, coord))
+                    {
+                        final SOCMoveRobberResult res = ga.moveRobber(pn, coord);
+                        toAll(new SOCMoveRobber(gaName, pn, coord));
+                        final List<SOCPlayer> victims = res.getVictims();
+                        if (victims.size() == 1)
+                            reportRobbery(pn, victims.get(0).getPlayerNumber(), res.getLoot());
+                        sendGameState(true);
+                    } else {
+                        sendDecline(pn, SOCDeclinePlayerRequest.REASON_NOT_NOW, true);
+                    }
+                }
+                break;
+
+            case SOCMessage.CHOOSEPLAYER:
+                if ((pn == cpn) && (ga.getGameState() == SOCGame.WAITING_FOR_ROB_CHOOSE_PLAYER))
+                {
+                    final int choice = ((SOCChoosePlayer) mes).getChoice();
+                    if (ga.canChoosePlayer(choice))
+                    {
+                        final int rsrc = ga.choosePlayerForRobbery(choice);
+                        if (choice >= 0)
+                            reportRobbery(pn, choice, rsrc);
+                        sendGameState(true);
+                    } else {
+                        toPlayer(pn, choosePlayerRequest());
+                    }
+                }
+                break;
+
+            case SOCMessage.ENDTURN:
+                if ((pn == cpn) && ga.canEndTurn(pn))
+                    endGameTurn();
+                else
+                    toPlayer(pn, new SOCGameState(gaName, ga.getGameState()));
+                break;
+
+            case SOCMessage.MAKEOFFER:
+                handleMAKEOFFER(pn, ((SOCMakeOffer) mes).getOffer());
+                break;
+
+            case SOCMessage.CLEAROFFER:
+                ga.getPlayer(pn).setCurrentOffer(null);
+                toAll(new SOCClearOffer(gaName, pn));
+                break;
+
+            case SOCMessage.REJECTOFFER:
+                ga.rejectTradeOffersTo(pn);
+                toAll(new SOCRejectOffer(gaName, pn));
+                break;
+
+            case SOCMessage.ACCEPTOFFER:
+                handleACCEPTOFFER(pn, ((SOCAcceptOffer) mes).getOfferingNumber());
+                break;
+
+            case SOCMessage.BANKTRADE:
+                {
+                    final SOCBankTrade bt = (SOCBankTrade) mes;
+                    final SOCResourceSet give = bt.getGiveSet(), get = bt.getGetSet();
+                    if ((pn == cpn) && ga.canMakeBankTrade(give, get))
+                    {
+                        ga.makeBankTrade(give, get);
+                        ++numBankTrades;
+                        toAll(new SOCBankTrade(gaName, give, get, pn));
+                    } else {
+                        toPlayer(pn, new SOCRejectOffer
+                            (gaName, -1, (pn == cpn)
+                                 ? SOCRejectOffer.REASON_CANNOT_MAKE_TRADE : SOCRejectOffer.REASON_NOT_YOUR_TURN));
+                    }
+                }
+                break;
+
+            case SOCMessage.BUILDREQUEST:
+                if (pn == cpn)
+                    handleBUILDREQUEST(pn, ((SOCBuildRequest) mes).getPieceType(), true);
+                else
+                    sendDecline(pn, SOCDeclinePlayerRequest.REASON_NOT_YOUR_TURN, false);
+                break;
+
+            case SOCMessage.CANCELBUILDREQUEST:
+                if (pn == cpn)
+                    handleCANCELBUILDREQUEST(pn, ((SOCCancelBuildRequest) mes).getPieceType());
+                break;
+
+            case SOCMessage.PUTPIECE:
+                if (pn == cpn)
+                    handlePUTPIECE(pn, ((SOCPutPiece) mes).getPieceType(), ((SOCPutPiece) mes).getCoordinates());
+                else
+                    sendDecline(pn, SOCDeclinePlayerRequest.REASON_NOT_YOUR_TURN, false);
+                break;
+
+            case SOCMessage.BUYDEVCARDREQUEST:
+                handleBUYDEVCARDREQUEST(pn);
+                break;
+
+            case SOCMessage.PLAYDEVCARDREQUEST:
+                if (pn == cpn)
+                    handlePLAYDEVCARDREQUEST(pn, ((SOCPlayDevCardRequest) mes).getDevCard());
+                else
+                    sendDecline(pn, SOCDeclinePlayerRequest.REASON_NOT_YOUR_TURN, false);
+                break;
+
+            case SOCMessage.PICKRESOURCES:
+                {
+                    final SOCResourceSet rs = ((SOCPickResources) mes).getResources();
+                    if ((pn == cpn) && (ga.getGameState() == SOCGame.WAITING_FOR_DISCOVERY)
+                        && ga.canDoDiscoveryAction(rs))
+                    {
+                        ga.doDiscoveryAction(rs);
+                        toAll(new SOCPickResources(gaName, rs, pn, SOCPickResources.REASON_DISCOVERY));
+                        sendGameState(true);
+                    } else {
+                        sendDecline(pn, SOCDeclinePlayerRequest.REASON_SPECIFICS, true);
+                    }
+                }
+                break;
+
+            case SOCMessage.PICKRESOURCETYPE:
+                if ((pn == cpn) && ga.canDoMonopolyAction())
+                    handlePICKRESOURCETYPE(pn, ((SOCPickResourceType) mes).getResourceType());
+                else
+                    sendDecline(pn, SOCDeclinePlayerRequest.REASON_NOT_NOW, true);
+                break;
+
+            // Ignore other types; bots don't use ships, special items, or inventory items on the classic board
+            }
+        }
+
+        /** Roll the dice and distribute resources, or prompt players to discard. */
+        private void handleROLLDICE()
+        {
+            ga.rollDice();
+            toAll(new SOCDiceResult(gaName, ga.getCurrentDice()));
+
+            if (ga.getCurrentDice() != 7)
+            {
+                final SOCDiceResultResources rollRsrcs = SOCDiceResultResources.buildForGame(ga);
+                if (rollRsrcs != null)
+                {
+                    toAll(rollRsrcs);
+
+                    // Each player who gained is sent their full known resources
+                    for (int pn = 0; pn < ga.maxPlayers; ++pn)
+                    {
+                        if (ga.isSeatVacant(pn))
+                            continue;
+                        final SOCPlayer pl = ga.getPlayer(pn);
+                        if (pl.getRolledResources().getKnownTotal() == 0)
+                            continue;
+
+                        toPlayer(pn, new SOCPlayerElements
+                            (gaName, pn, SOCPlayerElement.SET, SOCGameHandler.ELEM_RESOURCES,
+                             pl.getResources().getAmounts(false)));
+                    }
+                }
+
+                sendGameState(true);
+            } else {
+                sendGameState(true);
+
+                if (ga.getGameState() == SOCGame.WAITING_FOR_DISCARDS)
+                    for (int pn = 0; pn < ga.maxPlayers; ++pn)
+                    {
+                        if (ga.isSeatVacant(pn))
+                            continue;
+                        final SOCPlayer pl = ga.getPlayer(pn);
+                        if (pl.getNeedToDiscard())
+                            toPlayer(pn, new SOCDiscardRequest(gaName, pl.getCountToDiscard()));
+                    }
+            }
+        }
+
+        /** Discard resources; only the player who discards is told their types. */
+        private void handleDISCARD(final int pn, final ResourceSet rs)
+        {
+            final SOCPlayer pl = ga.getPlayer(pn);
+            if (! ga.canDiscard(pn, rs))
+            {
+                final int n = pl.getCountToDiscard();
+                if ((n > 0) && ! pl.hasAskedDiscardTwiceThisTurn())
+                {
+                    pl.setAskedDiscardTwiceThisTurn();
+                    toPlayer(pn, new SOCDiscardRequest(gaName, n));
+                }
+
+                return;
+            }
+
+            ga.discard(pn, rs);
+            toPlayer(pn, new SOCDiscard(gaName, pn, rs));
+            toAllExcept(pn, new SOCDiscard(gaName, pn, 0, 0, 0, 0, 0, rs.getTotal()));
+
+            final int gstate = ga.getGameState();
+            if (gstate == SOCGame.WAITING_FOR_DISCARDS)
+                toAll(new SOCGameState(gaName, gstate));
+            else
+                sendGameState(true);
+        }
+
+        /**
+         * Announce a player's trade offer, if they have the resources to give.
+         * During another player's turn, can offer only to the current player.
+         */
+        private void handleMAKEOFFER(final int pn, final SOCTradeOffer offer)
+        {
+            final SOCPlayer pl = ga.getPlayer(pn);
+            final SOCResourceSet giveSet = offer.getGiveSet();
+            boolean canOffer = pl.getResources().contains(giveSet);
+            final int cpn = ga.getCurrentPlayerNumber();
+            if (canOffer && (pn != cpn))
+            {
+                final boolean[] to = offer.getTo();
+                for (int i = 0; i < to.length; ++i)
+                    if (to[i] && (i != cpn))
+                    {
+                        canOffer = false;
+                        break;
+                    }
+            }
+
+            if (! canOffer)
+            {
+                toPlayer(pn, new SOCRejectOffer(gaName, pn, SOCRejectOffer.REASON_CANNOT_MAKE_OFFER));
+                return;
+            }
+
+            final SOCTradeOffer remadeOffer = new SOCTradeOffer
+                (gaName, pn, offer.getTo(), giveSet, offer.getGetSet());
+            pl.setCurrentOffer(remadeOffer);
+            toAll(new SOCMakeOffer(gaName, remadeOffer));
+        }
+
+        /** Accept a player's trade offer, if both sides still have the resources. */
+        private void handleACCEPTOFFER(final int acceptingPN, final int offeringPN)
+        {
+            if (! ga.canMakeTrade(offeringPN, acceptingPN))
+            {
+                toPlayer(acceptingPN, new SOCRejectOffer(gaName, acceptingPN, SOCRejectOffer.REASON_CANNOT_MAKE_TRADE));
+                return;
+            }
+
+            final SOCTradeOffer offer = ga.getPlayer(offeringPN).getCurrentOffer();
+            final SOCResourceSet giveSet = new SOCResourceSet(offer.getGiveSet()),
+                getSet = new SOCResourceSet(offer.getGetSet());
+            ga.makeTrade(offeringPN, acceptingPN);
+            ++numPlayerTrades;
+            toAll(new SOCAcceptOffer(gaName, acceptingPN, offeringPN, giveSet, getSet));
+
+            for (int pn = 0; pn < ga.maxPlayers; ++pn)
+                ga.getPlayer(pn).setCurrentOffer(null);
+            toAll(new SOCClearOffer(gaName, -1));
+        }
+
+        /**
+         * Buy a piece for the current player to place: Road, settlement, or city.
+         * @param sendState  If true, send the new game state; false if this is part of {@link #handlePUTPIECE(int, int, int)}
+         * @return true if bought, false if declined
+         */
+        private boolean handleBUILDREQUEST(final int pn, final int pieceType, final boolean sendState)
+        {
+            boolean bought = false;
+            SOCResourceSet cost = null;
+            if (ga.getGameState() == SOCGame.PLAY1)
+            {
+                switch (pieceType)
+                {
+                case SOCPlayingPiece.ROAD:
+                    if (ga.couldBuildRoad(pn))
+                    {
+                        ga.buyRoad(pn);
+                        cost = SOCRoad.COST;
+                        bought = true;
+                    }
+                    break;
+
+                case SOCPlayingPiece.SETTLEMENT:
+                    if (ga.couldBuildSettlement(pn))
+                    {
+                        ga.buySettlement(pn);
+                        cost = SOCSettlement.COST;
+                        bought = true;
+                    }
+                    break;
+
+                case SOCPlayingPiece.CITY:
+                    if (ga.couldBuildCity(pn))
+                    {
+                        ga.buyCity(pn);
+                        cost = SOCCity.COST;
+                        bought = true;
+                    }
+                    break;
+                }
+            }
+
+            if (bought)
+            {
+                reportRsrcLoss(pn, cost);
+                if (sendState)
+                    sendGameState(true);
+            } else {
+                sendDecline(pn, SOCDeclinePlayerRequest.REASON_NOT_NOW, true);
+                toPlayer(pn, new SOCCancelBuildRequest(gaName, pieceType));
+            }
+
+            return bought;
+        }
+
+        /**
+         * Current player cancels placing a piece they've bought, an initial settlement, or a dev card being played.
+         */
+        private void handleCANCELBUILDREQUEST(final int pn, final int pieceType)
+        {
+            final SOCPlayer pl = ga.getPlayer(pn), prevLargestArmy = ga.getPlayerWithLargestArmy();
+            final int gstate = ga.getGameState();
+            int cardTypeRet = -1;
+            boolean canceled = true;
+
+            switch (pieceType)
+            {
+            case SOCPlayingPiece.ROAD:
+                if (gstate == SOCGame.PLACING_ROAD)
+                {
+                    ga.cancelBuildRoad(pn);
+                    toAll(new SOCPlayerElements(gaName, pn, SOCPlayerElement.GAIN, SOCRoad.COST));
+                }
+                else if ((gstate == SOCGame.PLACING_FREE_ROAD1) || (gstate == SOCGame.PLACING_FREE_ROAD2))
+                {
+                    if (ga.doesCancelRoadBuildingReturnCard())
+                        cardTypeRet = SOCDevCardConstants.ROADS;
+                    ga.cancelBuildRoad(pn);
+                }
+                else
+                    canceled = false;
+                break;
+
+            case SOCPlayingPiece.SETTLEMENT:
+                if (gstate == SOCGame.PLACING_SETTLEMENT)
+                {
+                    ga.cancelBuildSettlement(pn);
+                    toAll(new SOCPlayerElements(gaName, pn, SOCPlayerElement.GAIN, SOCSettlement.COST));
+                }
+                else if ((gstate == SOCGame.START1B) || (gstate == SOCGame.START2B) || (gstate == SOCGame.START3B))
+                {
+                    ga.undoPutInitSettlement(new SOCSettlement(pl, pl.getLastSettlementCoord(), null));
+                    toAll(new SOCCancelBuildRequest(gaName, SOCPlayingPiece.SETTLEMENT));
+                }
+                else
+                    canceled = false;
+                break;
+
+            case SOCPlayingPiece.CITY:
+                if (gstate == SOCGame.PLACING_CITY)
+                {
+                    ga.cancelBuildCity(pn);
+                    toAll(new SOCPlayerElements(gaName, pn, SOCPlayerElement.GAIN, SOCCity.COST));
+                }
+                else
+                    canceled = false;
+                break;
+
+            case SOCCancelBuildRequest.CARD:
+                if (ga.canCancelPlayCurrentDevCard())
+                    cardTypeRet = ga.cancelPlayCurrentDevCard();
+                else
+                    canceled = false;
+                break;
+
+            default:
+                canceled = false;
+            }
+
+            if (! canceled)
+            {
+                sendDecline(pn, SOCDeclinePlayerRequest.REASON_NOT_NOW, true);
+                return;
+            }
+
+            if (cardTypeRet != -1)
+            {
+                toAll(new SOCDevCardAction(gaName, pn, SOCDevCardAction.ADD_OLD, cardTypeRet));
+                if (cardTypeRet == SOCDevCardConstants.KNIGHT)
+                {
+                    toAll(new SOCPlayerElement(gaName, pn, SOCPlayerElement.LOSE, PEType.NUMKNIGHTS, 1));
+                    sendLargestArmyIfChanged(prevLargestArmy);
+                }
+                toAll(new SOCPlayerElement(gaName, pn, SOCPlayerElement.SET, PEType.PLAYED_DEV_CARD_FLAG, 0));
+            }
+
+            sendGameState(true);
+        }
+
+        /**
+         * Place a piece for the current player: An initial settlement or road, a free road,
+         * or one they've bought. In state {@link SOCGame#PLAY1}, buys it first.
+         */
+        private void handlePUTPIECE(final int pn, final int pieceType, final int coord)
+        {
+            final boolean isBuyAndPut = (ga.getGameState() == SOCGame.PLAY1);
+            if (isBuyAndPut && ! handleBUILDREQUEST(pn, pieceType, false))
+                return;
+
+            final int gstate = ga.getGameState();
+            final SOCPlayer pl = ga.getPlayer(pn), prevLongestRoad = ga.getPlayerWithLongestRoad();
+            SOCPlayingPiece pp = null;
+
+            if (pl.getNumPieces(pieceType) > 0)
+            {
+                switch (pieceType)
+                {
+                case SOCPlayingPiece.ROAD:
+                    switch (gstate)
+                    {
+                    case SOCGame.START1B:
+                    case SOCGame.START2B:
+                    case SOCGame.START3B:
+                    case SOCGame.PLACING_ROAD:
+                    case SOCGame.PLACING_FREE_ROAD1:
+                    case SOCGame.PLACING_FREE_ROAD2:
+                        if (pl.isPotentialRoad(coord))
+                            pp = new SOCRoad(pl, coord, null);
+                    }
+                    break;
+
+                case SOCPlayingPiece.SETTLEMENT:
+                    switch (gstate)
+                    {
+                    case SOCGame.START1A:
+                    case SOCGame.START2A:
+                    case SOCGame.START3A:
+                    case SOCGame.PLACING_SETTLEMENT:
+                        if (pl.canPlaceSettlement(coord))
+                            pp = new SOCSettlement(pl, coord, null);
+                    }
+                    break;
+
+                case SOCPlayingPiece.CITY:
+                    if ((gstate == SOCGame.PLACING_CITY) && pl.isPotentialCity(coord))
+                        pp = new SOCCity(pl, coord, null);
+                    break;
+                }
+            }
+
+            if (pp == null)
+            {
+                sendDecline(pn, SOCDeclinePlayerRequest.REASON_LOCATION, false);
+                if (isBuyAndPut)
+                    sendGameState(true);
+                toPlayer(pn, new SOCCancelBuildRequest(gaName, pieceType));
+
+                return;
+            }
+
+            ga.putPiece(pp);
+            toAll(new SOCPutPiece(gaName, pn, pieceType, coord));
+            if (pieceType != SOCPlayingPiece.CITY)
+            {
+                final SOCPlayer newLongestRoad = ga.getPlayerWithLongestRoad();
+                if (newLongestRoad != prevLongestRoad)
+                    toAll(new SOCGameElements
+                        (gaName, GEType.LONGEST_ROAD_PLAYER,
+                         (newLongestRoad != null) ? newLongestRoad.getPlayerNumber() : -1));
+            }
+
+            // like SOCGameHandler.sendTurnStateAtInitialPlacement
+            final int newState = ga.getGameState();
+            if ((ga.getCurrentPlayerNumber() != pn)
+                || ((gstate < SOCGame.ROLL_OR_CARD) && (newState == SOCGame.ROLL_OR_CARD))
+                || ((gstate < SOCGame.ROLL_OR_CARD) && ga.isInitialPlacementRoundDone(gstate)))
+                sendTurn();
+            else
+                sendGameState(true);
+        }
+
+        /** Current player buys a dev card; other players aren't told its type. */
+        private void handleBUYDEVCARDREQUEST(final int pn)
+        {
+            final int gstate = ga.getGameState();
+            if ((pn != ga.getCurrentPlayerNumber()) || (gstate != SOCGame.PLAY1) || ! ga.couldBuyDevCard(pn))
+            {
+                sendDecline
+                    (pn, (pn != ga.getCurrentPlayerNumber()) ? SOCDeclinePlayerRequest.REASON_NOT_YOUR_TURN
+                         : (ga.getNumDevCards() == 0) ? SOCDeclinePlayerRequest.REASON_NOT_THIS_GAME
+                         : SOCDeclinePlayerRequest.REASON_NOT_NOW,
+                     false);
+                toPlayer(pn, new SOCCancelBuildRequest(gaName, SOCPossiblePiece.CARD));
+
+                return;
+            }
+
+            final int card = ga.buyDevCard();
+            reportRsrcLoss(pn, SOCDevCard.COST);
+            toPlayer(pn, new SOCDevCardAction(gaName, pn, SOCDevCardAction.DRAW, card));
+            toAllExcept(pn, new SOCDevCardAction(gaName, pn, SOCDevCardAction.DRAW, SOCDevCardConstants.UNKNOWN));
+            toAll(new SOCSimpleAction(gaName, pn, SOCSimpleAction.DEVCARD_BOUGHT, ga.getNumDevCards(), 0));
+            sendGameState(true);
+        }
+
+        /** Current player plays a dev card, or is told they can't play it now. */
+        private void handlePLAYDEVCARDREQUEST(final int pn, final int ctype)
+        {
+            boolean canPlay = false;
+            final SOCPlayer prevLargestArmy = ga.getPlayerWithLargestArmy();
+            switch (ctype)
+            {
+            case SOCDevCardConstants.KNIGHT:
+                canPlay = ga.canPlayKnight(pn);
+                if (canPlay)
+                    ga.playKnight();
+                break;
+
+            case SOCDevCardConstants.ROADS:
+                canPlay = ga.canPlayRoadBuilding(pn);
+                if (canPlay)
+                    ga.playRoadBuilding();
+                break;
+
+            case SOCDevCardConstants.DISC:
+                canPlay = ga.canPlayDiscovery(pn);
+                if (canPlay)
+                    ga.playDiscovery();
+                break;
+
+            case SOCDevCardConstants.MONO:
+                canPlay = ga.canPlayMonopoly(pn);
+                if (canPlay)
+                    ga.playMonopoly();
+                break;
+            }
+
+            if (! canPlay)
+            {
+                toPlayer(pn, new SOCDevCardAction(gaName, -1, SOCDevCardAction.CANNOT_PLAY, ctype));
+                return;
+            }
+
+            toAll(new SOCDevCardAction(gaName, pn, SOCDevCardAction.PLAY, ctype));
+            toAll(new SOCPlayerElement(gaName, pn, SOCPlayerElement.SET, PEType.PLAYED_DEV_CARD_FLAG, 1));
+            if (ctype == SOCDevCardConstants.KNIGHT)
+            {
+                toAll(new SOCPlayerElement(gaName, pn, SOCPlayerElement.GAIN, PEType.NUMKNIGHTS, 1));
+                sendLargestArmyIfChanged(prevLargestArmy);
+            }
+            sendGameState(true);
+        }
+
+        /** Announce the player with largest army, if it isn't {@code prevLargestArmy}. */
+        private void sendLargestArmyIfChanged(final SOCPlayer prevLargestArmy)
+        {
+            final SOCPlayer pl = ga.getPlayerWithLargestArmy();
+            if (pl != prevLargestArmy)
+                toAll(new SOCGameElements
+                    (gaName, GEType.LARGEST_ARMY_PLAYER, (pl != null) ? pl.getPlayerNumber() : -1));
+        }
+
+        /** Current player takes all of a resource type from the other players with a Monopoly card. */
+        private void handlePICKRESOURCETYPE(final int pn, final int rsrc)
+        {
+            final int[] monoPicks = ga.doMonopolyAction(rsrc);
+
+            int monoTotal = 0;
+            for (int vpn = 0; vpn < ga.maxPlayers; ++vpn)
+            {
+                if (monoPicks[vpn] == 0)
+                    continue;
+
+                monoTotal += monoPicks[vpn];
+                final SOCResourceSet vRes = ga.getPlayer(vpn).getResources();
+                toAll(new SOCPlayerElement(gaName, vpn, SOCPlayerElement.SET, rsrc, vRes.getAmount(rsrc), true));
+                toAll(new SOCResourceCount(gaName, vpn, vRes.getTotal()));
+            }
+            toAll(new SOCPlayerElement(gaName, pn, SOCPlayerElement.GAIN, rsrc, monoTotal, false));
+            toAll(new SOCSimpleAction(gaName, pn, SOCSimpleAction.RSRC_TYPE_MONOPOLIZED, monoTotal, rsrc));
+            sendGameState(true);
+        }
+
+        /** A client's request and its player number */
+        private static final class Request
+        {
+            final int pn;
+            final SOCMessage mes;
+
+            Request(final int pn, final SOCMessage mes)
+            {
+                this.pn = pn;
+                this.mes = mes;
+            }
+        }
+    }
+
+    /**
+     * A player's robot client in a {@link GameRunner}. Not connected to a server:
+     * Its requests are queued at the runner instead of sent over a connection.
+     * Messages from the runner arrive through {@link #treat(SOCMessage)}, which updates
+     * this client's view of the game or queues them for the brain, as at a server.
+     */
+    private static final class SimClient extends SOCRobotClient
+    {
+        private final GameRunner runner;
+
+        /** Our player number */
+        private final int pn;
+
+        SimClient(final GameRunner runner, final int pn, final SOCRobotParameters params)
+        {
+            super(new ServerConnectInfo(runner.gaName, null), "robot " + pn, null);
+            this.runner = runner;
+            this.pn = pn;
+            currentRobotParameters = params;
+            sVersion = Version.versionNumber();
+        }
+
+        /** Create a {@link SimBrain}. */
+        @Override
+        public SOCRobotBrain createBrain
+            (final SOCRobotParameters params, final SOCGame ga, final CappedQueue<SOCMessage> mq)
+        {
+            return new SimBrain(this, params, ga, mq);
+        }
+
+        @Override
+        public void buyDevCard(SOCGame ga)
+        {
+            runner.request(pn, new SOCBuyDevCardRequest(ga.getName()));
+        }
+
+        @Override
+        public void buildRequest(SOCGame ga, int piece)
+        {
+            runner.request(pn, new SOCBuildRequest(ga.getName(), piece));
+        }
+
+        @Override
+        public void cancelBuildRequest(SOCGame ga, int piece)
+        {
+            runner.request(pn, new SOCCancelBuildRequest(ga.getName(), piece));
+        }
+
+        @Override
+        public void putPiece(SOCGame ga, SOCPlayingPiece pp)
+        {
+            runner.request(pn, new SOCPutPiece(ga.getName(), pp.getPlayerNumber(), pp.getType(), pp.getCoordinates()));
+        }
+
+        @Override
+        public void moveRobber(SOCGame ga, SOCPlayer pl, int coord)
+        {
+            runner.request(pn, new SOCMoveRobber(ga.getName(), pl.getPlayerNumber(), coord));
+        }
+
+        @Override
+        public void rollDice(SOCGame ga)
+        {
+            runner.request(pn, new SOCRollDice(ga.getName()));
+        }
+
+        @Override
+        public void endTurn(SOCGame ga)
+        {
+            runner.request(pn, new SOCEndTurn(ga.getName()));
+        }
+
+        @Override
+        public void discard(SOCGame ga, SOCResourceSet rs)
+        {
+            runner.request(pn, new SOCDiscard(ga.getName(), -1, rs));
+        }
+
+        @Override
+        public void choosePlayer(SOCGame ga, final int ch)
+        {
+            runner.request(pn, new SOCChoosePlayer(ga.getName(), ch));
+        }
+
+        @Override
+        public void rejectOffer(SOCGame ga)
+        {
+            runner.request(pn, new SOCRejectOffer(ga.getName(), 0));
+        }
+
+        @Override
+        public void acceptOffer(SOCGame ga, int from)
+        {
+            runner.request(pn, new SOCAcceptOffer(ga.getName(), 0, from));
+        }
+
+        @Override
+        public void clearOffer(SOCGame ga)
+        {
+            runner.request(pn, new SOCClearOffer(ga.getName(), 0));
+        }
+
+        @Override
+        public void bankTrade(SOCGame ga, SOCResourceSet give, SOCResourceSet get)
+        {
+            runner.request(pn, new SOCBankTrade(ga.getName(), give, get, -1));
+        }
+
+        @Override
+        public void offerTrade(SOCGame ga, SOCTradeOffer offer)
+        {
+            runner.request(pn, new SOCMakeOffer(ga.getName(), offer));
+        }
+
+        @Override
+        public void playDevCard(SOCGame ga, int dc)
+        {
+            runner.request(pn, new SOCPlayDevCardRequest(ga.getName(), dc));
+        }
+
+        @Override
+        public void pickResources(SOCGame ga, SOCResourceSet rscs)
+        {
+            runner.request(pn, new SOCPickResources(ga.getName(), rscs));
+        }
+
+        @Override
+        public void pickResourceType(SOCGame ga, int res)
+        {
+            runner.request(pn, new SOCPickResourceType(ga.getName(), res));
+        }
+
+        /**
+         * The brain is leaving the game, which a server would handle by replacing it with another bot.
+         * The runner stops the game with an error instead.
+         */
+        @Override
+        public void leaveGame
+            (final SOCGame ga, final String leaveReason, final boolean showReason, final boolean showDebugTrace)
+        {
+            runner.leaveReason = "robot " + pn + " left: " + leaveReason;
+            super.leaveGame(ga, leaveReason, false, false);
+        }
+    }
+
+    /**
+     * A robot brain whose thread isn't started; the {@link GameRunner}'s thread calls
+     * {@link SOCRobotBrain#handleGameEvent(SOCMessage)} for each message in its queue.
+     * Doesn't pause.
+     */
+    private static final class SimBrain extends SOCRobotBrain
+    {
+        SimBrain(SOCRobotClient rc, SOCRobotParameters params, SOCGame ga, CappedQueue<SOCMessage> mq)
+        {
+            super(rc, params, ga, mq);
+        }
+
+        /** Does nothing: Messages are handled by the {@link GameRunner}'s thread. */
+        @Override
+        public void startBrainThread() {}
+
+        /** Does nothing: Simulated games don't pause. */
+        @Override
+        public void pause(int msec) {}
+    }
+
+    /**
+     * Run a simulation from the command line and print its results.
+     * See class javadoc for parameters.
+     * @param args  Command-line arguments: numGames [numThreads [seats]]
+     */
+    public static void main(String[] args)
+    {
+        int numGames = 0, numThreads = Runtime.getRuntime().availableProcessors();
+        String seats = "SSFF";
+        try
+        {
+            if (args.length >= 1)
+                numGames = Integer.parseInt(args[0]);
+            if (args.length >= 2)
+                numThreads = Integer.parseInt(args[1]);
+            if (args.length >= 3)
+                seats = args[2].toUpperCase();
+        } catch (NumberFormatException e) {
+            numGames = 0;
+        }
+        if ((numGames < 1) || (numThreads < 1) || (args.length > 3)
+            || (seats.length() < 2) || (seats.length() > 4) || ! seats.matches("[SF]+"))
+        {
+            System.err.println("Java Settlers bot game simulator " + Version.version() +
+                ", build " + Version.buildnum());
+            System.err.println("usage: java soc.robot.BotGameSimulator numGames [numThreads [seats]]");
+            System.err.println("  seats: 2 to 4 letters, S for smart or F for fast robot strategy; default SSFF");
+            System.exit(1);
+        }
+
+        final String planThreads = System.getProperty(SOCRobotClient.PROP_JSETTLERS_BOTS_PLANNING__THREADS);
+        if (planThreads != null)
+            try
+            {
+                SOCRobotDM.PARALLEL_SCORING_THREADS = Math.max(0, Integer.parseInt(planThreads.trim()));
+            } catch (NumberFormatException e) {}
+        final String planBudget = System.getProperty(SOCRobotClient.PROP_JSETTLERS_BOTS_PLANNING__BUDGET__MS);
+        if (planBudget != null)
+            try
+            {
+                SOCRobotDM.PLANNING_BUDGET_MS = Math.max(0, Integer.parseInt(planBudget.trim()));
+            } catch (NumberFormatException e) {}
+        final String tradeBudget = System.getProperty(SOCRobotClient.PROP_JSETTLERS_BOTS_TRADE__BUDGET__MS);
+        if (tradeBudget != null)
+            try
+            {
+                SOCTradeSearchMemo.DECISION_BUDGET_MS = Math.max(0, Integer.parseInt(tradeBudget.trim()));
+            } catch (NumberFormatException e) {}
+
+        final SOCRobotParameters[] params = new SOCRobotParameters[seats.length()];
+        for (int pn = 0; pn < params.length; ++pn)
+            params[pn] = (seats.charAt(pn) == 'S') ? PARAMS_SMART : PARAMS_FAST;
+
+        final Results res;
+        try
+        {
+            res = new BotGameSimulator(params).run(numGames, numThreads);
+        } catch (InterruptedException e) {
+            System.err.println("Interrupted");
+            return;
+        }
+
+        System.out.println(String.format
+            ("Played %d games in %.1f seconds on %d threads: %.1f games/second",
+             res.numGames, res.elapsedMillis / 1000.0, numThreads, res.gamesPerSecond()));
+        System.out.println(String.format
+            ("Average %.1f rounds per won game; %d games reached the round limit, %d had errors",
+             res.averageRounds(), res.numUnfinished, res.numErrors));
+        System.out.println(String.format
+            ("Trades: %d between players, %d with bank or port; %d turns forced to end",
+             res.numPlayerTrades, res.numBankTrades, res.numForcedEndTurns));
+        System.out.println(String.format
+            ("Building speed estimate cache: %.1f%% hits (%d hits, %d misses)",
+             100 * res.estimateCacheHitRate(), res.estimateCacheHits, res.estimateCacheMisses));
+        if (SOCRobotDM.PLANNING_BUDGET_MS > 0)
+        {
+            final long[] budgetCounts = SOCRobotDM.getPlanningBudgetCounts();
+            System.out.println(String.format
+                ("Planning budget %d ms: reached in %d of %d plans; trials estimated instead:"
+                 + " %d settlements, %d roads/ships, %d cities, %d knight cards",
+                 SOCRobotDM.PLANNING_BUDGET_MS, budgetCounts[1], budgetCounts[0],
+                 budgetCounts[2], budgetCounts[3], budgetCounts[4], budgetCounts[5]));
+        }
+        final long[] tradeCounts = SOCTradeSearchMemo.getDecisionLimitCounts();
+        System.out.println(String.format
+            ("Trade decisions: %d, of which %d reached the offer limit, %d the %d ms time budget",
+             tradeCounts[0], tradeCounts[1], tradeCounts[2], SOCTradeSearchMemo.DECISION_BUDGET_MS));
+        for (int pn = 0; pn < params.length; ++pn)
+            System.out.println(String.format
+                ("Seat %d (%s): %d wins, %.1f%%",
+                 pn, (seats.charAt(pn) == 'S') ? "smart" : "fast", res.winsBySeat[pn], 100 * res.winRate(pn)));
+    }
+
+}
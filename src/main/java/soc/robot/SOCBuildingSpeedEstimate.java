@@ -1,7 +1,7 @@
 /**
  * Java Settlers - An online multiplayer version of the game Settlers of Catan
  * Copyright (C) 2003  Robert S. Thomas <thomas@infolab.northwestern.edu>
- * Portions of this file copyright (C) 2012-2013,2015-2018,2020,2023 Jeremy D Monin <jeremy@nand.net>
+ * Portions of this file copyright (C) 2012-2013,2015-2018,2020,2023,2026 Jeremy D Monin <jeremy@nand.net>
  * Portions of this file Copyright (C) 2012 Paul Bilnoski <paul@bilnoski.net>
  * Portions of this file Copyright (C) 2017 Ruud Poutsma <rtimon@gmail.com>
  * Portions of this file Copyright (C) 2017-2018 Strategic Conversation (STAC Project) https://www.irit.fr/STAC/
@@ -56,6 +56,13 @@ public class SOCBuildingSpeedEstimate
     public static final int MAXPLUSONE = 5;
     public static final int DEFAULT_ROLL_LIMIT = 40;
     protected static boolean recalc;
+
+    /**
+     * Largest number of possible resource sets to index in
+     * {@link #calculateRollsAccurate(SOCResourceSet, SOCResourceSet, int, boolean[])}'s array-based calculation.
+     * @since 2.7.00
+     */
+    private static final int MAX_ACCURATE_INDEX_SIZE = 1 << 16;
     int[] estimatesFromNothing;
     int[] estimatesFromNow;
 
@@ -82,6 +89,14 @@ public class SOCBuildingSpeedEstimate
      */
     private SOCResourceSet[] resourcesForRoll;
 
+    /**
+     * Cache of calculation results shared with other estimates from the same factory, or {@code null}.
+     * Set by {@link SOCBuildingSpeedEstimateFactory#getEstimator(SOCPlayerNumbers)} and
+     * {@link SOCBuildingSpeedEstimateFactory#getEstimator()}.
+     * @since 2.7.00
+     */
+    SOCBuildingSpeedEstimateFactory.ResultCache resultCache;
+
     /**
      * Create a new SOCBuildingSpeedEstimate, calculating
      * the rollsPerResource and resourcesPerRoll based on
@@ -526,6 +541,169 @@ public class SOCBuildingSpeedEstimate
     protected SOCResSetBuildTimePair calculateRollsAndRsrcFast
         (final ResourceSet startingResources, final SOCResourceSet targetResources, final int cutoff, final boolean[] ports)
         throws CutoffExceededException
+    {
+        return calculateCached(false, startingResources, targetResources, cutoff, ports);
+    }
+
+    /**
+     * Calculate rolls and resources using {@link #resultCache} if available, otherwise calculate directly with
+     * {@link #calculateRollsAndRsrcFastUncached(ResourceSet, SOCResourceSet, int, boolean[])}
+     * or {@link #calculateRollsAccurateUncached(SOCResourceSet, SOCResourceSet, int, boolean[])}.
+     * Parameters and return value are the same as those methods.
+     * @param isAccurate  True for {@code calculateRollsAccurate}, false for {@code calculateRollsAndRsrcFast};
+     *     if true, {@code startingResources} must be a {@link SOCResourceSet}
+     * @since 2.7.00
+     */
+    private SOCResSetBuildTimePair calculateCached
+        (final boolean isAccurate, final ResourceSet startingResources, final SOCResourceSet targetResources,
+         final int cutoff, final boolean[] ports)
+        throws CutoffExceededException
+    {
+        final SOCBuildingSpeedEstimateFactory.ResultCache cache = resultCache;
+        final SOCBuildingSpeedEstimateFactory.ResultCache.Key key = (cache != null)
+            ? SOCBuildingSpeedEstimateFactory.ResultCache.makeKey
+                (isAccurate, rollsPerResource, (isAccurate) ? resourcesForRoll : null,
+                 startingResources, targetResources, cutoff, ports)
+            : null;
+        if (key == null)
+            return (isAccurate)
+                ? calculateRollsAccurateUncached((SOCResourceSet) startingResources, targetResources, cutoff, ports)
+                : calculateRollsAndRsrcFastUncached(startingResources, targetResources, cutoff, ports);
+
+        SOCResSetBuildTimePair pair = cache.get(key);
+        if (pair != null)
+            return pair;
+
+        try
+        {
+            pair = (isAccurate)
+                ? calculateRollsAccurateUncached((SOCResourceSet) startingResources, targetResources, cutoff, ports)
+                : calculateRollsAndRsrcFastUncached(startingResources, targetResources, cutoff, ports);
+        } catch (CutoffExceededException e) {
+            cache.put(key, null);
+            throw e;
+        }
+        cache.put(key, pair);
+
+        return pair;
+    }
+
+    /**
+     * Calculation for {@link #calculateRollsAndRsrcFast(ResourceSet, SOCResourceSet, int, boolean[])}
+     * without using {@link #resultCache}. Parameters and return value are the same as that method.
+     *<P>
+     * Works on int arrays of resource amounts instead of {@link SOCResourceSet}s,
+     * giving the same results as {@link #calculateRollsAndRsrcFastBySets(ResourceSet, SOCResourceSet, int, boolean[])}.
+     * @since 2.7.00
+     */
+    private SOCResSetBuildTimePair calculateRollsAndRsrcFastUncached
+        (final ResourceSet startingResources, final SOCResourceSet targetResources, final int cutoff, final boolean[] ports)
+        throws CutoffExceededException
+    {
+        final int[] ours = new int[SOCResourceConstants.WOOD + 1], target = new int[SOCResourceConstants.WOOD + 1];
+        for (int rtype = SOCResourceConstants.CLAY; rtype <= SOCResourceConstants.WOOD; ++rtype)
+        {
+            ours[rtype] = startingResources.getAmount(rtype);
+            target[rtype] = targetResources.getAmount(rtype);
+        }
+        final int unknown = startingResources.getAmount(SOCResourceConstants.UNKNOWN);
+        if (unknown < targetResources.getAmount(SOCResourceConstants.UNKNOWN))
+            throw new CutoffExceededException();  // rolls and trades never add unknowns, so cutoff would be reached
+
+        int rolls = 0;
+        if (! containsTarget(ours, target))
+        {
+            tradeTowardTarget(ours, target, ports);
+
+            while (! containsTarget(ours, target))
+            {
+                rolls++;
+
+                if (rolls > cutoff)
+                    throw new CutoffExceededException();
+
+                for (int resource = SOCResourceConstants.CLAY; resource <= SOCResourceConstants.WOOD; resource++)
+                    if ((rollsPerResource[resource] == 0) || ((rolls % rollsPerResource[resource]) == 0))
+                        ours[resource]++;
+
+                if (! containsTarget(ours, target))
+                    tradeTowardTarget(ours, target, ports);
+            }
+        }
+
+        return new SOCResSetBuildTimePair
+            (new SOCResourceSet(ours[1], ours[2], ours[3], ours[4], ours[5], unknown), rolls);
+    }
+
+    /**
+     * Does this array of known resource amounts contain the target amounts?
+     * Like {@link SOCResourceSet#contains(ResourceSet)} without {@link SOCResourceConstants#UNKNOWN}.
+     * @param ours  Resource amounts, indexed {@link SOCResourceConstants#CLAY} to {@link SOCResourceConstants#WOOD}
+     * @param target  Target amounts, same format as {@code ours}
+     * @return true if each amount in {@code ours} is at least its amount in {@code target}
+     * @since 2.7.00
+     */
+    private static boolean containsTarget(final int[] ours, final int[] target)
+    {
+        for (int rtype = SOCResourceConstants.CLAY; rtype <= SOCResourceConstants.WOOD; ++rtype)
+            if (ours[rtype] < target[rtype])
+                return false;
+
+        return true;
+    }
+
+    /**
+     * Do any possible trading with the bank and ports to get closer to a target,
+     * giving resources we have more of than needed for the most needed resource:
+     * The one we still need which takes the most rolls to acquire.
+     * Same trades as the {@link SOCResourceSet}-based calculations.
+     * @param ours  Resource amounts, indexed {@link SOCResourceConstants#CLAY} to {@link SOCResourceConstants#WOOD};
+     *     is updated by trading. Must not contain {@code target} when called.
+     * @param target  Target amounts, same format as {@code ours}
+     * @param ports  Port flags
+     * @since 2.7.00
+     */
+    private void tradeTowardTarget(final int[] ours, final int[] target, final boolean[] ports)
+    {
+        for (int giveResource = SOCResourceConstants.CLAY; giveResource <= SOCResourceConstants.WOOD; giveResource++)
+        {
+            final int tradeRatio = (ports[giveResource]) ? 2 : ((ports[SOCBoard.MISC_PORT]) ? 3 : 4);
+            final int numTrades = (ours[giveResource] - target[giveResource]) / tradeRatio;
+
+            for (int trades = 0; trades < numTrades; trades++)
+            {
+                int mostNeededResource = -1;
+                for (int resource = SOCResourceConstants.CLAY; resource <= SOCResourceConstants.WOOD; resource++)
+                    if ((ours[resource] < target[resource])
+                        && ((mostNeededResource < 0)
+                            || (rollsPerResource[resource] > rollsPerResource[mostNeededResource])))
+                        mostNeededResource = resource;
+
+                if ((mostNeededResource != -1) && (ours[giveResource] >= tradeRatio))
+                {
+                    ours[mostNeededResource]++;
+                    ours[giveResource] -= tradeRatio;
+                }
+
+                if (containsTarget(ours, target))
+                    break;
+            }
+
+            if (containsTarget(ours, target))
+                break;
+        }
+    }
+
+    /**
+     * The original {@link SOCResourceSet}-based calculation for
+     * {@link #calculateRollsAndRsrcFast(ResourceSet, SOCResourceSet, int, boolean[])}, without using the cache.
+     * Parameters and return value are the same as that method.
+     * Kept to check and benchmark the array-based calculation which replaced it in v2.7.00.
+     * @since 2.7.00
+     */
+    protected final SOCResSetBuildTimePair calculateRollsAndRsrcFastBySets
+        (final ResourceSet startingResources, final SOCResourceSet targetResources, final int cutoff, final boolean[] ports)
+        throws CutoffExceededException
     {
         //D.ebugPrintln("calculateRolls");
         //D.ebugPrintln("  start: "+startingResources);
@@ -788,6 +966,165 @@ public class SOCBuildingSpeedEstimate
     protected SOCResSetBuildTimePair calculateRollsAccurate
         (SOCResourceSet startingResources, SOCResourceSet targetResources, int cutoff, boolean[] ports)
         throws CutoffExceededException
+    {
+        return calculateCached(true, startingResources, targetResources, cutoff, ports);
+    }
+
+    /**
+     * Calculation for {@link #calculateRollsAccurate(SOCResourceSet, SOCResourceSet, int, boolean[])}
+     * without using {@link #resultCache}. Parameters and return value are the same as that method.
+     *<P>
+     * Instead of a hashtable of {@link SOCResourceSet}s and their probabilities after each roll,
+     * uses a dense index of possible resource amounts and a {@code float[]} of probabilities for
+     * this roll and the last one. Those amounts are limited: A set which doesn't contain the target
+     * has traded away all but less than 4 of each resource's surplus, so each amount is
+     * at most target + 3. If the target is large enough that the index would be too big,
+     * calls {@link #calculateRollsAccurateBySets(SOCResourceSet, SOCResourceSet, int, boolean[])} instead.
+     *<P>
+     * Gives the same number of rolls as {@code calculateRollsAccurateBySets}. The returned resources
+     * are the first set reaching the target; if several sets reached it in that roll,
+     * this may be a different one than {@code calculateRollsAccurateBySets} returns,
+     * since that depends on hashtable order.
+     * @since 2.7.00
+     */
+    private SOCResSetBuildTimePair calculateRollsAccurateUncached
+        (final SOCResourceSet startingResources, final SOCResourceSet targetResources, final int cutoff,
+         final boolean[] ports)
+        throws CutoffExceededException
+    {
+        if (startingResources.contains(targetResources))
+            return new SOCResSetBuildTimePair(null, 0);
+
+        final int unknown = startingResources.getAmount(SOCResourceConstants.UNKNOWN);
+        if (unknown < targetResources.getAmount(SOCResourceConstants.UNKNOWN))
+            throw new CutoffExceededException();  // rolls and trades never add unknowns, so cutoff would be reached
+
+        final int[] start = new int[SOCResourceConstants.WOOD + 1], target = new int[SOCResourceConstants.WOOD + 1];
+        final int[] dims = new int[SOCResourceConstants.WOOD + 1], stride = new int[SOCResourceConstants.WOOD + 1];
+        int numStates = 1;
+        for (int rtype = SOCResourceConstants.CLAY; rtype <= SOCResourceConstants.WOOD; ++rtype)
+        {
+            start[rtype] = startingResources.getAmount(rtype);
+            target[rtype] = targetResources.getAmount(rtype);
+            dims[rtype] = target[rtype] + 4;
+            stride[rtype] = numStates;
+            numStates *= dims[rtype];
+            if (numStates > MAX_ACCURATE_INDEX_SIZE)
+                return calculateRollsAccurateBySets(startingResources, targetResources, cutoff, ports);
+        }
+
+        final int[][] gained = new int[13][SOCResourceConstants.WOOD + 1];
+        for (int diceResult = 2; diceResult <= 12; diceResult++)
+        {
+            final SOCResourceSet rs = resourcesForRoll[diceResult];
+            if (rs != null)
+                for (int rtype = SOCResourceConstants.CLAY; rtype <= SOCResourceConstants.WOOD; ++rtype)
+                    gained[diceResult][rtype] = rs.getAmount(rtype);
+        }
+
+        // Double-buffered: states (index numbers) and their probabilities from the last roll and this roll.
+        // Before the first roll, the only state is startingResources, which might be outside the index.
+        float[] lastProbs = new float[numStates], thisProbs = new float[numStates];
+        int[] lastStates = new int[numStates], thisStates = new int[numStates];
+        int numLast = 0, numThis = 0;
+        final boolean[] inThis = new boolean[numStates];
+
+        final int[] ours = new int[SOCResourceConstants.WOOD + 1];
+        int[] targetReachedResources = null;
+        float targetReachedProb = 0.0f;
+        boolean targetReached = false;
+        int rolls = 0;
+
+        while (! targetReached)
+        {
+            rolls++;
+
+            if (rolls > cutoff)
+                throw new CutoffExceededException();
+
+            for (int diceResult = 2; diceResult <= 12; diceResult++)
+            {
+                final int[] gainedResources = gained[diceResult];
+                final float diceProb = SOCNumberProbabilities.FLOAT_VALUES[diceResult];
+
+                for (int i = (rolls == 1) ? -1 : 0; i < numLast; ++i)
+                {
+                    final float lastProb;
+                    if (i == -1)
+                    {
+                        System.arraycopy(start, 0, ours, 0, ours.length);
+                        lastProb = 1.0f;
+                    } else {
+                        final int state = lastStates[i];
+                        for (int rtype = SOCResourceConstants.CLAY; rtype <= SOCResourceConstants.WOOD; ++rtype)
+                            ours[rtype] = (state / stride[rtype]) % dims[rtype];
+                        lastProb = lastProbs[state];
+                    }
+
+                    for (int rtype = SOCResourceConstants.CLAY; rtype <= SOCResourceConstants.WOOD; ++rtype)
+                        ours[rtype] += gainedResources[rtype];
+                    final float newProb = lastProb * diceProb;
+
+                    if (! containsTarget(ours, target))
+                        tradeTowardTarget(ours, target, ports);
+
+                    if (containsTarget(ours, target))
+                    {
+                        targetReachedProb += newProb;
+                        if (targetReachedResources == null)
+                            targetReachedResources = ours.clone();
+                        if (targetReachedProb >= 0.5)
+                            targetReached = true;
+                    } else {
+                        int state = 0;
+                        for (int rtype = SOCResourceConstants.CLAY; rtype <= SOCResourceConstants.WOOD; ++rtype)
+                        {
+                            if (ours[rtype] >= dims[rtype])
+                                // not expected, because of trading; fall back to be safe
+                                return calculateRollsAccurateBySets(startingResources, targetResources, cutoff, ports);
+                            state += ours[rtype] * stride[rtype];
+                        }
+
+                        if (inThis[state])
+                        {
+                            thisProbs[state] += newProb;
+                        } else {
+                            inThis[state] = true;
+                            thisProbs[state] = newProb;
+                            thisStates[numThis++] = state;
+                        }
+                    }
+                }
+            }
+
+            // This roll becomes the last roll
+            float[] tmpProbs = lastProbs;
+            lastProbs = thisProbs;
+            thisProbs = tmpProbs;
+            int[] tmpStates = lastStates;
+            lastStates = thisStates;
+            thisStates = tmpStates;
+            numLast = numThis;
+            numThis = 0;
+            for (int i = 0; i < numLast; ++i)
+                inThis[lastStates[i]] = false;
+        }
+
+        final int[] tr = targetReachedResources;
+        return new SOCResSetBuildTimePair(new SOCResourceSet(tr[1], tr[2], tr[3], tr[4], tr[5], unknown), rolls);
+    }
+
+    /**
+     * The original {@link SOCResourceSet}-based calculation for
+     * {@link #calculateRollsAccurate(SOCResourceSet, SOCResourceSet, int, boolean[])}, without using the cache.
+     * Parameters and return value are the same as that method.
+     * Kept to check and benchmark the array-based calculation which replaced it in v2.7.00,
+     * and for targets too large for that calculation's index.
+     * @since 2.7.00
+     */
+    protected final SOCResSetBuildTimePair calculateRollsAccurateBySets
+        (SOCResourceSet startingResources, SOCResourceSet targetResources, int cutoff, boolean[] ports)
+        throws CutoffExceededException
     {
         D.ebugPrintlnINFO("calculateRollsAccurate");
         D.ebugPrintlnINFO("  start: " + startingResources);
@@ -1,6 +1,6 @@
 /**
  * Java Settlers - An online multiplayer version of the game Settlers of Catan
- * This file Copyright (C) 2020-2021 Jeremy D Monin <jeremy@nand.net>
+ * This file Copyright (C) 2020-2021,2026 Jeremy D Monin <jeremy@nand.net>
  *
  * This program is free software; you can redistribute it and/or
  * modify it under the terms of the GNU General Public License
@@ -19,9 +19,16 @@
  **/
 package soc.robot;
 
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import soc.game.ResourceSet;
 import soc.game.SOCPlayer;
 import soc.game.SOCPlayerNumbers;
 import soc.game.SOCResourceConstants;
+import soc.game.SOCResourceSet;
+import soc.util.CutoffExceededException;
 
 
 /**
@@ -32,19 +39,58 @@ import soc.game.SOCResourceConstants;
  *<P>
  * This basic factory always constructs a basic {@link SOCBuildingSpeedEstimate}.
  * Third-party bots can override as needed, along with {@link SOCRobotBrain#createEstimatorFactory()}.
+ *<P>
+ * The estimates constructed here share a bounded cache of calculation results,
+ * since the robot makes the same estimates many times while planning.
+ * Results are cached by the inputs which determine them: The estimate's rolls per resource
+ * and resources per roll (which already account for the player's dice numbers and robber hex),
+ * port flags, and starting and target resources. See {@link #getCacheHits()} and {@link #getCacheMisses()}
+ * to check whether the cache is helping.
  *
  * @since 2.5.00
  */
 public class SOCBuildingSpeedEstimateFactory
 {
+    /**
+     * Default maximum number of cached estimate results for each factory: 2048.
+     * @see #SOCBuildingSpeedEstimateFactory(SOCRobotBrain, int)
+     * @since 2.7.00
+     */
+    public static final int DEFAULT_CACHE_SIZE = 2048;
 
     /**
-     * Construct a basic {@link SOCBuildingSpeedEstimateFactory}, optionally for use by {@code brain}.
+     * Cache of results shared by the estimates from this factory, or {@code null} if caching is disabled.
+     * @since 2.7.00
+     */
+    private final ResultCache resultCache;
+
+    /**
+     * Construct a basic {@link SOCBuildingSpeedEstimateFactory}, optionally for use by {@code brain},
+     * with a cache of up to {@link #DEFAULT_CACHE_SIZE} results.
      * @param brain  Brain which will use this factory, or {@code null}.
      *     Default implementation ignores {@code brain} parameter; it's provided in case a subclass needs it.
      */
     public SOCBuildingSpeedEstimateFactory(final SOCRobotBrain brain)
     {
+        this(brain, DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * Construct a basic {@link SOCBuildingSpeedEstimateFactory} with a given cache size,
+     * optionally for use by {@code brain}.
+     * @param brain  Brain which will use this factory, or {@code null}.
+     *     Default implementation ignores {@code brain} parameter; it's provided in case a subclass needs it.
+     * @param cacheSize  Maximum number of estimate results to cache, or 0 to not cache
+     * @throws IllegalArgumentException if {@code cacheSize} &lt; 0
+     * @since 2.7.00
+     */
+    public SOCBuildingSpeedEstimateFactory(final SOCRobotBrain brain, final int cacheSize)
+        throws IllegalArgumentException
+    {
+        if (cacheSize < 0)
+            throw new IllegalArgumentException("cacheSize");
+
+        resultCache = (cacheSize > 0) ? new ResultCache(cacheSize) : null;
     }
 
     /**
@@ -56,7 +102,9 @@ public class SOCBuildingSpeedEstimateFactory
      */
     public SOCBuildingSpeedEstimate getEstimator(final SOCPlayerNumbers numbers)
     {
-        return new SOCBuildingSpeedEstimate(numbers);
+        final SOCBuildingSpeedEstimate bse = new SOCBuildingSpeedEstimate(numbers);
+        bse.resultCache = resultCache;
+        return bse;
     }
 
     /**
@@ -67,7 +115,9 @@ public class SOCBuildingSpeedEstimateFactory
      */
     public SOCBuildingSpeedEstimate getEstimator()
     {
-        return new SOCBuildingSpeedEstimate();
+        final SOCBuildingSpeedEstimate bse = new SOCBuildingSpeedEstimate();
+        bse.resultCache = resultCache;
+        return bse;
     }
 
     /**
@@ -87,4 +137,274 @@ public class SOCBuildingSpeedEstimateFactory
         return SOCBuildingSpeedEstimate.getRollsForResourcesSorted(pl, this);
     }
 
+    /**
+     * Get the number of estimate calculations whose results were found in this factory's cache.
+     * @return  Number of cache hits so far; 0 if caching is disabled
+     * @see #getCacheMisses()
+     * @since 2.7.00
+     */
+    public long getCacheHits()
+    {
+        return (resultCache != null) ? resultCache.getHits() : 0;
+    }
+
+    /**
+     * Get the number of estimate calculations which weren't found in this factory's cache,
+     * so were calculated and then added to the cache.
+     * @return  Number of cache misses so far; 0 if caching is disabled
+     * @see #getCacheHits()
+     * @since 2.7.00
+     */
+    public long getCacheMisses()
+    {
+        return (resultCache != null) ? resultCache.getMisses() : 0;
+    }
+
+    /**
+     * Get the number of estimate results currently in this factory's cache.
+     * @return  Number of cached results, at most the cache size given to the constructor
+     * @since 2.7.00
+     */
+    public int getCacheSize()
+    {
+        return (resultCache != null) ? resultCache.size() : 0;
+    }
+
+    /**
+     * Thread-safe bounded cache of {@link SOCBuildingSpeedEstimate} calculation results,
+     * discarding the least recently used when full.
+     * Each {@link Key} contains all inputs of the calculation, so results never go stale
+     * when a player's dice numbers change; they're just not looked up anymore.
+     * @since 2.7.00
+     */
+    static final class ResultCache
+    {
+        /** Cached value for a calculation which threw {@link CutoffExceededException} */
+        private static final int[] CUTOFF_EXCEEDED = new int[0];
+
+        private final LinkedHashMap<Key, int[]> results;
+
+        private long hits, misses;
+
+        /**
+         * @param maxSize  Maximum number of results to keep
+         */
+        ResultCache(final int maxSize)
+        {
+            results = new LinkedHashMap<Key, int[]>(Math.min(maxSize, 256), 0.75f, true)
+            {
+                private static final long serialVersionUID = 2700L;
+
+                protected boolean removeEldestEntry(final Map.Entry<Key, int[]> eldest)
+                {
+                    return size() > maxSize;
+                }
+            };
+        }
+
+        /**
+         * Make a key for a calculation's inputs.
+         * @param isAccurate  True for {@code calculateRollsAccurate}, false for {@code calculateRollsAndRsrcFast}
+         * @param rollsPerResource  Estimate's rolls per resource; not changed or kept by this method
+         * @param resourcesForRoll  Estimate's resources for each dice roll if {@code isAccurate}, otherwise {@code null};
+         *     not changed or kept by this method
+         * @param start  Starting resources
+         * @param target  Target resources
+         * @param cutoff  Maximum number of rolls
+         * @param ports  Port flags
+         * @return  Key for these inputs, or {@code null} if they're out of range for a key
+         *     and the calculation shouldn't be cached
+         */
+        static Key makeKey
+            (final boolean isAccurate, final int[] rollsPerResource, final SOCResourceSet[] resourcesForRoll,
+             final ResourceSet start, final ResourceSet target, final int cutoff, final boolean[] ports)
+        {
+            long rolls = 0;
+            for (int rtype = SOCResourceConstants.CLAY; rtype <= SOCResourceConstants.WOOD; ++rtype)
+            {
+                int r = rollsPerResource[rtype];
+                if (r == 55555)
+                    r = 0xFFF;  // resource not reached
+                else if ((r < 0) || (r >= 0xFFF))
+                    return null;
+                rolls = (rolls << 12) | r;
+            }
+
+            final long st = packResources(start), ta = packResources(target);
+            if ((st == -1) || (ta == -1) || (ports.length > 30))
+                return null;
+
+            int flags = isAccurate ? 1 : 0;
+            for (int i = 0; i < ports.length; ++i)
+                if (ports[i])
+                    flags |= (2 << i);
+
+            int[] table = null;
+            if (isAccurate)
+            {
+                table = new int[5 * 13];
+                for (int roll = 2; roll <= 12; ++roll)
+                {
+                    final SOCResourceSet rs = resourcesForRoll[roll];
+                    if (rs != null)
+                        for (int rtype = SOCResourceConstants.CLAY; rtype <= SOCResourceConstants.WOOD; ++rtype)
+                            table[5 * roll + rtype - 1] = rs.getAmount(rtype);
+                }
+            }
+
+            return new Key(rolls, st, ta, cutoff, flags, table);
+        }
+
+        /**
+         * Pack a resource set's known and unknown amounts into a long, 10 bits each.
+         * @return packed amounts, or -1 if any amount is negative or too large
+         */
+        private static long packResources(final ResourceSet rs)
+        {
+            long packed = 0;
+            for (int rtype = SOCResourceConstants.CLAY; rtype <= SOCResourceConstants.UNKNOWN; ++rtype)
+            {
+                final int amt = rs.getAmount(rtype);
+                if ((amt < 0) || (amt > 0x3FF))
+                    return -1;
+                packed = (packed << 10) | amt;
+            }
+
+            return packed;
+        }
+
+        /**
+         * Look up a cached result.
+         * @param key  Key from {@link #makeKey(boolean, int[], SOCResourceSet[], ResourceSet, ResourceSet, int, boolean[])}
+         * @return  A new pair with the cached result, or {@code null} if not cached
+         * @throws CutoffExceededException if the cached calculation exceeded its cutoff
+         */
+        SOCResSetBuildTimePair get(final Key key)
+            throws CutoffExceededException
+        {
+            final int[] val;
+            synchronized (this)
+            {
+                val = results.get(key);
+                if (val == null)
+                {
+                    ++misses;
+                    return null;
+                }
+                ++hits;
+            }
+
+            if (val == CUTOFF_EXCEEDED)
+                throw new CutoffExceededException();
+
+            final SOCResourceSet rs = (val.length > 1)
+                ? new SOCResourceSet(val[1], val[2], val[3], val[4], val[5], val[6])
+                : null;
+            return new SOCResSetBuildTimePair(rs, val[0]);
+        }
+
+        /**
+         * Add a calculation's result to the cache.
+         * @param key  Key for the calculation's inputs
+         * @param result  Calculation result, or {@code null} if it threw {@link CutoffExceededException}
+         */
+        void put(final Key key, final SOCResSetBuildTimePair result)
+        {
+            final int[] val;
+            if (result == null)
+            {
+                val = CUTOFF_EXCEEDED;
+            } else {
+                final SOCResourceSet rs = result.getResources();
+                if (rs != null)
+                {
+                    val = new int[7];
+                    for (int rtype = SOCResourceConstants.CLAY; rtype <= SOCResourceConstants.UNKNOWN; ++rtype)
+                        val[rtype] = rs.getAmount(rtype);
+                } else {
+                    val = new int[1];
+                }
+                val[0] = result.getRolls();
+            }
+
+            synchronized (this)
+            {
+                results.put(key, val);
+            }
+        }
+
+        synchronized long getHits()
+        {
+            return hits;
+        }
+
+        synchronized long getMisses()
+        {
+            return misses;
+        }
+
+        synchronized int size()
+        {
+            return results.size();
+        }
+
+        /**
+         * Immutable key holding all inputs of an estimate calculation.
+         */
+        static final class Key
+        {
+            /** Rolls per resource, 12 bits each */
+            private final long rolls;
+
+            /** Starting and target resources, from {@link ResultCache#packResources(ResourceSet)} */
+            private final long start, target;
+
+            private final int cutoff;
+
+            /** Bit 0: is accurate calculation; higher bits: port flags */
+            private final int flags;
+
+            /** Resources for each roll, for accurate calculation; otherwise {@code null} */
+            private final int[] table;
+
+            private final int hash;
+
+            Key(final long rolls, final long start, final long target, final int cutoff, final int flags, final int[] table)
+            {
+                this.rolls = rolls;
+                this.start = start;
+                this.target = target;
+                this.cutoff = cutoff;
+                this.flags = flags;
+                this.table = table;
+
+                int h = Long.hashCode(rolls);
+                h = 31 * h + Long.hashCode(start);
+                h = 31 * h + Long.hashCode(target);
+                h = 31 * h + cutoff;
+                h = 31 * h + flags;
+                if (table != null)
+                    h = 31 * h + Arrays.hashCode(table);
+                hash = h;
+            }
+
+            public int hashCode()
+            {
+                return hash;
+            }
+
+            public boolean equals(final Object o)
+            {
+                if (o == this)
+                    return true;
+                if (! (o instanceof Key))
+                    return false;
+
+                final Key k = (Key) o;
+                return (hash == k.hash) && (rolls == k.rolls) && (start == k.start) && (target == k.target)
+                    && (cutoff == k.cutoff) && (flags == k.flags) && Arrays.equals(table, k.table);
+            }
+        }
+    }
+
 }
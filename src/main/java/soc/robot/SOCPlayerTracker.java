@@ -1,7 +1,7 @@
 /**
  * Java Settlers - An online multiplayer version of the game Settlers of Catan
  * Copyright (C) 2003  Robert S. Thomas <thomas@infolab.northwestern.edu>
- * Portions of this file Copyright (C) 2007-2025 Jeremy D Monin <jeremy@nand.net>
+ * Portions of this file Copyright (C) 2007-2026 Jeremy D Monin <jeremy@nand.net>
  * Portions of this file Copyright (C) 2012 Paul Bilnoski <paul@bilnoski.net>
  * Portions of this file Copyright (C) 2017 Ruud Poutsma <rtimon@gmail.com>
  * Portions of this file Copyright (C) 2017-2018 Strategic Conversation (STAC Project) https://www.irit.fr/STAC/
@@ -37,6 +37,7 @@ import soc.game.SOCLRPathData;
 import soc.game.SOCPlayer;
 import soc.game.SOCPlayerNumbers;
 import soc.game.SOCPlayingPiece;
+import soc.game.SOCResourceConstants;
 import soc.game.SOCRoad;
 import soc.game.SOCRoutePiece;
 import soc.game.SOCSettlement;
@@ -50,6 +51,7 @@ import java.util.Collection;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Stack;
@@ -169,6 +171,17 @@ public class SOCPlayerTracker
      */
     private SOCShip scen_SC_PIRI_closestShipToFortress;
 
+    /**
+     * While a trial placement is being evaluated in place by
+     * {@link #tryPutPieceInPlace(SOCPlayingPiece, SOCGame, SOCPlayerTracker[])},
+     * the log of changes to undo afterwards; shared by all trackers in the trial. Otherwise {@code null}.
+     * Methods which change possible pieces or their maps during a trial call
+     * {@link #saveForUndo(SOCPossiblePiece)}, {@link #mapPut(TreeMap, Integer, SOCPossiblePiece)},
+     * or {@link #mapRemove(TreeMap, Integer)} to record those changes.
+     * @since 2.7.00
+     */
+    private UndoLog undoLog;
+
     /**
      * monitor for synchronization
      */
@@ -209,12 +222,27 @@ public class SOCPlayerTracker
      * @param pt  the player tracker
      */
     public SOCPlayerTracker(SOCPlayerTracker pt)
+    {
+        this(pt, pt.getPlayer());
+    }
+
+    /**
+     * Copy constructor, optionally tracking the same player in a copy of the game.
+     *<P>
+     * Note: Does NOT copy connections between possible pieces
+     *
+     * @param pt  the player tracker
+     * @param pl  {@code pt}'s player, or the player with the same number in a copy of its game
+     *     from {@link SOCGame#copyForTrialPieces()}; the copy's possible pieces will belong to {@code pl}
+     * @since 2.7.00
+     */
+    private SOCPlayerTracker(final SOCPlayerTracker pt, final SOCPlayer pl)
     {
         inUse = false;
         brain = pt.getBrain();
-        player = pt.getPlayer();
+        player = pl;
         playerNumber = player.getPlayerNumber();
-        game = pt.game;
+        game = pl.getGame();
         possibleRoads = new TreeMap<Integer, SOCPossibleRoad>();
         possibleSettlements = new TreeMap<Integer, SOCPossibleSettlement>();
         possibleCities = new TreeMap<Integer, SOCPossibleCity>();
@@ -223,7 +251,11 @@ public class SOCPlayerTracker
         largestArmyETA = pt.getLargestArmyETA();
         knightsToBuy = pt.getKnightsToBuy();
         pendingInitSettlement = pt.getPendingInitSettlement();
-        scen_SC_PIRI_closestShipToFortress = pt.scen_SC_PIRI_closestShipToFortress;
+        final SOCShip closestShip = pt.scen_SC_PIRI_closestShipToFortress;
+        scen_SC_PIRI_closestShipToFortress =
+            ((closestShip == null) || (pl == pt.player))
+            ? closestShip
+            : (SOCShip) pl.getRoadOrShip(closestShip.getCoordinates());
 
         //D.ebugPrintln(">>>>> Copying SOCPlayerTracker for player number "+player.getPlayerNumber());
         //
@@ -238,18 +270,21 @@ public class SOCPlayerTracker
                 posRoadCopy = new SOCPossibleShip((SOCPossibleShip) posRoad);
             else
                 posRoadCopy = new SOCPossibleRoad(posRoad);
+            posRoadCopy.player = pl;
             possibleRoads.put(Integer.valueOf(posRoadCopy.getCoordinates()), posRoadCopy);
         }
 
         for (SOCPossibleSettlement posSettlement : pt.getPossibleSettlements().values())
         {
             SOCPossibleSettlement posSettlementCopy = new SOCPossibleSettlement(posSettlement);
+            posSettlementCopy.player = pl;
             possibleSettlements.put(Integer.valueOf(posSettlementCopy.getCoordinates()), posSettlementCopy);
         }
 
         for (SOCPossibleCity posCity : pt.getPossibleCities().values())
         {
             SOCPossibleCity posCityCopy = new SOCPossibleCity(posCity);
+            posCityCopy.player = pl;
             possibleCities.put(Integer.valueOf(posCityCopy.getCoordinates()), posCityCopy);
         }
     }
@@ -273,8 +308,28 @@ public class SOCPlayerTracker
      * Note: not copying threats
      *
      * param trackers  player trackers for each player
+     * @see #copyPlayerTrackers(SOCPlayerTracker[], SOCGame)
      */
     public static SOCPlayerTracker[] copyPlayerTrackers(final SOCPlayerTracker[] trackers)
+    {
+        return copyPlayerTrackers(trackers, null);
+    }
+
+    /**
+     * Make copies of player trackers and then make connections between copied pieces,
+     * optionally to track the players of a copy of their game. Those copies can be changed
+     * independently of the original trackers and game, for example by a different thread.
+     *<P>
+     * Note: not copying threats
+     *
+     * @param trackers  player trackers for each player
+     * @param gameCopy  Copy of the trackers' game from {@link SOCGame#copyForTrialPieces()},
+     *     or {@code null} to track the same players as {@code trackers}
+     * @return the copied trackers, indexed by player number
+     * @see #copyPlayerTrackers(SOCPlayerTracker[])
+     * @since 2.7.00
+     */
+    public static SOCPlayerTracker[] copyPlayerTrackers(final SOCPlayerTracker[] trackers, final SOCGame gameCopy)
     {
         final SOCPlayerTracker[] trackersCopy
             = new SOCPlayerTracker[trackers.length];  // length == SOCGame.maxPlayers
@@ -285,7 +340,11 @@ public class SOCPlayerTracker
         for (SOCPlayerTracker pt : trackers)
         {
             if (pt != null)
-                trackersCopy[pt.getPlayer().getPlayerNumber()] = new SOCPlayerTracker(pt);
+            {
+                final int pn = pt.getPlayer().getPlayerNumber();
+                trackersCopy[pn] = new SOCPlayerTracker
+                    (pt, (gameCopy != null) ? gameCopy.getPlayer(pn) : pt.getPlayer());
+            }
         }
 
         //
@@ -671,7 +730,11 @@ public class SOCPlayerTracker
             //
             // reset all expanded flags for possible roads
             //
-            pr.resetExpandedFlag();
+            if (pr.hasBeenExpanded())
+            {
+                saveForUndo(pr);
+                pr.resetExpandedFlag();
+            }
 
             if (pr.getCoordinates() == rs.getCoordinates())
             {
@@ -679,7 +742,7 @@ public class SOCPlayerTracker
                 // if so, remove it
                 //
                 //D.ebugPrintln("$$$ removing "+Integer.toHexString(road.getCoordinates()));
-                possibleRoads.remove(Integer.valueOf(pr.getCoordinates()));
+                mapRemove(possibleRoads, Integer.valueOf(pr.getCoordinates()));
                 removeFromNecessaryRoads(pr);
 
                 break;
@@ -713,6 +776,7 @@ public class SOCPlayerTracker
                     //
                     //D.ebugPrintln("$$$ found it");
                     removeFromNecessaryRoads(posSet);
+                    saveForUndo(posSet);
                     posSet.getNecessaryRoads().clear();
                     posSet.setNumberOfNecessaryRoads(0);
                 }
@@ -724,7 +788,7 @@ public class SOCPlayerTracker
                     //D.ebugPrintln("$$$ adding new possible settlement at "+Integer.toHexString(adjNode.intValue()));
                     SOCPossibleSettlement newPosSet = new SOCPossibleSettlement(player, adjNode.intValue(), null, bsef);
                     newPosSet.setNumberOfNecessaryRoads(0);
-                    possibleSettlements.put(adjNode, newPosSet);
+                    mapPut(possibleSettlements, adjNode, newPosSet);
                     updateSettlementConflicts(newPosSet, trackers);
                 }
             }
@@ -797,6 +861,7 @@ public class SOCPlayerTracker
                     // if so, clear necessary road list and remove from np lists
                     //
                     //D.ebugPrintln("$$$ pr "+Integer.toHexString(pr.getCoordinates())+" already in list");
+                    saveForUndo(pr);
                     if (! pr.getNecessaryRoads().isEmpty())
                     {
                         //D.ebugPrintln("$$$    clearing nr list");
@@ -851,7 +916,7 @@ public class SOCPlayerTracker
         //
         for (SOCPossibleRoad newPR : newPossibleRoads)
         {
-            possibleRoads.put(Integer.valueOf(newPR.getCoordinates()), newPR);
+            mapPut(possibleRoads, Integer.valueOf(newPR.getCoordinates()), newPR);
         }
 
         //
@@ -919,6 +984,7 @@ public class SOCPlayerTracker
             dummyRS = new SOCShip(dummy, tgtRoadEdge, board);
 
         dummy.putPiece(dummyRS, true);
+        saveForUndo(targetRoad);  // will probably add to its new possibilities
 
         //
         // see if this road/ship adds any new possible settlements
@@ -948,6 +1014,7 @@ public class SOCPlayerTracker
                         // add target road to settlement's nr list and this settlement to the road's np list
                         //
                         //D.ebugPrintln("$$$ adding road "+Integer.toHexString(targetRoad.getCoordinates())+" to the settlement "+Integer.toHexString(posSet.getCoordinates()));
+                        saveForUndo(posSet);
                         posSet.addNecessaryRoad(targetRoad);
                         targetRoad.addNewPossibility(posSet);
 
@@ -971,7 +1038,7 @@ public class SOCPlayerTracker
 
                     SOCPossibleSettlement newPosSet = new SOCPossibleSettlement(pl, adjNode.intValue(), nr, bsef);
                     newPosSet.setNumberOfNecessaryRoads(targetRoad.getNumberOfNecessaryRoads() + 1);
-                    possibleSettlements.put(adjNode, newPosSet);
+                    mapPut(possibleSettlements, adjNode, newPosSet);
                     targetRoad.addNewPossibility(newPosSet);
                     updateSettlementConflicts(newPosSet, trackers);
                 }
@@ -1071,6 +1138,7 @@ public class SOCPlayerTracker
                         //
                         //D.ebugPrintln("$$$ pr "+Integer.toHexString(pr.getCoordinates())+" already in list");
                         List<SOCPossibleRoad> nr = pr.getNecessaryRoads();
+                        saveForUndo(pr);
 
                         if (! (nr.isEmpty() || nr.contains(targetRoad)))
                         {
@@ -1141,7 +1209,7 @@ public class SOCPlayerTracker
             //
             for (SOCPossibleRoad newPR : newPossibleRoads)
             {
-                possibleRoads.put(Integer.valueOf(newPR.getCoordinates()), newPR);
+                mapPut(possibleRoads, Integer.valueOf(newPR.getCoordinates()), newPR);
             }
 
             //
@@ -1188,7 +1256,7 @@ public class SOCPlayerTracker
         if (pr != null)
         {
             //D.ebugPrintln("$$$ removing road at "+Integer.toHexString(pr.getCoordinates()));
-            possibleRoads.remove(edge);
+            mapRemove(possibleRoads, edge);
             removeFromNecessaryRoads(pr);
             removeDependents(pr);
         }
@@ -1379,6 +1447,7 @@ public class SOCPlayerTracker
          * look at all adjacent nodes and update possible settlements on nodes
          */
         SOCBoard board = game.getBoard();
+        saveForUndo(ps);
 
         for (final SOCPlayerTracker tracker : trackers)
         {
@@ -1401,6 +1470,7 @@ public class SOCPlayerTracker
                 {
                     //D.ebugPrintln("$$$ add conflict "+Integer.toHexString(posSet.getCoordinates()));
                     ps.addConflict(posSet);
+                    saveForUndo(posSet);
                     posSet.addConflict(ps);
                 }
             }
@@ -1416,6 +1486,7 @@ public class SOCPlayerTracker
                 {
                     //D.ebugPrintln("$$$ add conflict "+Integer.toHexString(posSet.getCoordinates()));
                     ps.addConflict(posSet);
+                    saveForUndo(posSet);
                     posSet.addConflict(ps);
                 }
             }
@@ -1506,8 +1577,9 @@ public class SOCPlayerTracker
         /**
          * add a new possible city
          */
-        possibleCities.put
-            (settlementCoords, new SOCPossibleCity(player, settlement.getCoordinates(), brain.getEstimatorFactory()));
+        mapPut
+            (possibleCities, settlementCoords,
+             new SOCPossibleCity(player, settlement.getCoordinates(), brain.getEstimatorFactory()));
 
         /**
          * see if the new settlement was a possible settlement in
@@ -1528,7 +1600,7 @@ public class SOCPlayerTracker
              * remove the possible settlement that is now a real settlement
              */
             D.ebugPrintlnINFO("$$$ removing " + Integer.toHexString(settlement.getCoordinates()));
-            possibleSettlements.remove(settlementCoords);
+            mapRemove(possibleSettlements, settlementCoords);
             removeFromNecessaryRoads(ps);
 
             /**
@@ -1542,7 +1614,7 @@ public class SOCPlayerTracker
                 if (tracker != null)
                 {
                     D.ebugPrintlnINFO("$$$ removing " + Integer.toHexString(conflict.getCoordinates()));
-                    tracker.getPossibleSettlements().remove(Integer.valueOf(conflict.getCoordinates()));
+                    mapRemove(tracker.getPossibleSettlements(), Integer.valueOf(conflict.getCoordinates()));
                     removeFromNecessaryRoads(conflict);
 
                     /**
@@ -1551,6 +1623,7 @@ public class SOCPlayerTracker
                     for (SOCPossibleSettlement otherConflict : conflict.getConflicts())
                     {
                         D.ebugPrintlnINFO("$$$ removing conflict " + Integer.toHexString(conflict.getCoordinates()) + " from " + Integer.toHexString(otherConflict.getCoordinates()));
+                        saveForUndo(otherConflict);
                         otherConflict.removeConflict(conflict);
                     }
                 }
@@ -1591,6 +1664,7 @@ public class SOCPlayerTracker
                     for (SOCPossibleSettlement conflict : posSet.getConflicts())
                     {
                         D.ebugPrintlnINFO("$$$ removing conflict " + Integer.toHexString(posSet.getCoordinates()) + " from " + Integer.toHexString(conflict.getCoordinates()));
+                        saveForUndo(conflict);
                         conflict.removeConflict(posSet);
                     }
                 }
@@ -1614,6 +1688,7 @@ public class SOCPlayerTracker
                         for (SOCPossibleSettlement conflict : posSet.getConflicts())
                         {
                             D.ebugPrintlnINFO("$$$ removing conflict " + Integer.toHexString(posSet.getCoordinates()) + " from " + Integer.toHexString(conflict.getCoordinates()));
+                            saveForUndo(conflict);
                             conflict.removeConflict(posSet);
                         }
                     }
@@ -1628,7 +1703,7 @@ public class SOCPlayerTracker
                 for (SOCPossibleSettlement pset : trash)
                 {
                     D.ebugPrintlnINFO("$$$ removing " + Integer.toHexString(pset.getCoordinates()) + " owned by " + pset.getPlayer().getPlayerNumber());
-                    tracker.getPossibleSettlements().remove(Integer.valueOf(pset.getCoordinates()));
+                    mapRemove(tracker.getPossibleSettlements(), Integer.valueOf(pset.getCoordinates()));
                     removeFromNecessaryRoads(pset);
                 }
 
@@ -1719,7 +1794,7 @@ public class SOCPlayerTracker
                     // A way out to a new island
 
                     SOCPossibleShip newPS = new SOCPossibleShip(player, edge, false, null);
-                    possibleRoads.put(edge, newPS);
+                    mapPut(possibleRoads, edge, newPS);
                     // System.err.println("L1685: " + toString() + ": new PossibleShip(false) at 0x" + Integer.toHexString(edge)
                     //     + " from coastal settle 0x" + Integer.toHexString(settlementCoords));
 
@@ -1738,7 +1813,7 @@ public class SOCPlayerTracker
                 // (Make sure this isn't initial placement, where nothing has adjacent roads)
                 for (SOCPossibleRoad pr : possibleNewIslandRoads)
                 {
-                    possibleRoads.put(Integer.valueOf(pr.getCoordinates()), pr);
+                    mapPut(possibleRoads, Integer.valueOf(pr.getCoordinates()), pr);
                     /*
                     System.err.println("L1396: new possible road at edge 0x"
                         + Integer.toHexString(pr.getCoordinates()) + " from coastal settle 0x"
@@ -1817,7 +1892,10 @@ public class SOCPlayerTracker
                     /// other players' potential roads, because point of 'cancel'
                     /// is to change our robot's immediate goal, not other players.
                     ///
-                    if (! isCancel)
+                    /// During a trial placement (undoLog != null), ignore threats
+                    /// like the tracker copies made by tryPutPiece, which don't copy them.
+                    ///
+                    if (! (isCancel || (undoLog != null)))
                     {
                         final int settleCoord = settlement.getCoordinates(),
                                   settlePN    = settlement.getPlayerNumber();
@@ -1862,9 +1940,11 @@ public class SOCPlayerTracker
                     ///
                     if (! nrTrash.isEmpty())
                     {
+                        saveForUndo(pr);
                         for (SOCPossibleRoad nrTrashRoad : nrTrash)
                         {
                             pr.getNecessaryRoads().remove(nrTrashRoad);
+                            saveForUndo(nrTrashRoad);
                             nrTrashRoad.getNewPossibilities().remove(pr);
                         }
 
@@ -1882,7 +1962,7 @@ public class SOCPlayerTracker
             ///
             for (SOCPossibleRoad prt : prTrash)
             {
-                possibleRoads.remove(Integer.valueOf(prt.getCoordinates()));
+                mapRemove(possibleRoads, Integer.valueOf(prt.getCoordinates()));
                 removeFromNecessaryRoads(prt);
                 removeDependents(prt);
             }
@@ -1903,11 +1983,13 @@ public class SOCPlayerTracker
          */
 
         //D.ebugPrintln("$$$ removeDependents "+Integer.toHexString(road.getCoordinates()));
+        saveForUndo(road);
 
         for (SOCPossiblePiece newPos : road.getNewPossibilities())
         {
             //D.ebugPrintln("$$$ updating "+Integer.toHexString(newPos.getCoordinates()));
             final List<SOCPossibleRoad> nr;
+            saveForUndo(newPos);
 
             switch (newPos.getType())
             {
@@ -1926,7 +2008,7 @@ public class SOCPlayerTracker
                     if (nr.isEmpty())
                     {
                         //D.ebugPrintln("$$$ removing this road");
-                        possibleRoads.remove(Integer.valueOf(newPos.getCoordinates()));
+                        mapRemove(possibleRoads, Integer.valueOf(newPos.getCoordinates()));
                         removeFromNecessaryRoads((SOCPossibleRoad) newPos);
                         removeDependents((SOCPossibleRoad) newPos);
                     }
@@ -1960,14 +2042,17 @@ public class SOCPlayerTracker
                     if (nr.isEmpty())
                     {
                         //D.ebugPrintln("$$$ removing this settlement");
-                        possibleSettlements.remove(Integer.valueOf(newPos.getCoordinates()));
+                        mapRemove(possibleSettlements, Integer.valueOf(newPos.getCoordinates()));
                         removeFromNecessaryRoads((SOCPossibleSettlement) newPos);
 
                         /**
                          * remove the conflicts that this settlement made
                          */
                         for (SOCPossibleSettlement conflict : ((SOCPossibleSettlement) newPos).getConflicts())
+                        {
+                            saveForUndo(conflict);
                             conflict.removeConflict((SOCPossibleSettlement) newPos);
+                        }
                     }
                     else
                     {
@@ -2000,8 +2085,11 @@ public class SOCPlayerTracker
         //D.ebugPrintln("%%% remove road from necessary roads");
 
         for (SOCPossibleRoad nr : pr.getNecessaryRoads())
+        {
             //D.ebugPrintln("%%% removing road at "+Integer.toHexString(pr.getCoordinates())+" from road at "+Integer.toHexString(nr.getCoordinates()));
+            saveForUndo(nr);
             nr.getNewPossibilities().remove(pr);
+        }
     }
 
     /**
@@ -2017,8 +2105,11 @@ public class SOCPlayerTracker
         //D.ebugPrintln("%%% remove settlement from necessary roads");
 
         for (SOCPossibleRoad nr : ps.getNecessaryRoads())
+        {
             //D.ebugPrintln("%%% removing settlement at "+Integer.toHexString(ps.getCoordinates())+" from road at "+Integer.toHexString(nr.getCoordinates()));
+            saveForUndo(nr);
             nr.getNewPossibilities().remove(ps);
+        }
     }
 
     /**
@@ -2057,7 +2148,7 @@ public class SOCPlayerTracker
         /**
          * remove the possible city from the list
          */
-        possibleCities.remove(Integer.valueOf(city.getCoordinates()));
+        mapRemove(possibleCities, Integer.valueOf(city.getCoordinates()));
     }
 
     /**
@@ -2779,10 +2870,131 @@ public class SOCPlayerTracker
      *<P>
      * If the loop reaches {@link SOCGame#vp_winner} - 1, it calculates ETAs for 1 city or settlement (+ roads)
      * instead of 2, and Largest Army and Longest Road, to make its choice.
+     *<P>
+     * Results are cached in the brain's {@link SOCRobotBrain#getWinGameETACache()}, keyed by all the state
+     * the calculation reads, so that recalculating for the same hypothetical state again during planning
+     * just copies the results. Isn't cached while the brain's {@link SOCRobotBrain#getDRecorder()} is on,
+     * since the calculation records its reasoning there.
+     * Before v2.7.00 this method always calculated; see {@link #recalcWinGameETA_noCache()}.
      *
      * @see #recalculateAllETAs()
      */
     public void recalcWinGameETA()
+    {
+        if (brain.getDRecorder().isOn())
+        {
+            recalcWinGameETA_noCache();
+            return;
+        }
+
+        final SOCWinGameETACache cache = brain.winGameETACache;
+        final SOCWinGameETACache.Key key = winGameETACacheKey();
+        final int[] cached = cache.get(key);
+        if (cached != null)
+        {
+            winGameETA = cached[0];
+            needLR = (cached[1] != 0);
+            needLA = (cached[2] != 0);
+            knightsToBuy = cached[3];
+
+            return;
+        }
+
+        if (recalcWinGameETA_noCache())
+            cache.put(key, new int[]{winGameETA, (needLR ? 1 : 0), (needLA ? 1 : 0), knightsToBuy});
+    }
+
+    /**
+     * Make the key for this tracker's current state in {@link SOCRobotBrain#getWinGameETACache()}:
+     * Everything that {@link #recalcWinGameETA_noCache()} reads from the tracker, player, game, and board.
+     * The player's dice numbers are included in the order they were added, since that order
+     * can affect {@link SOCBuildingSpeedEstimate}'s rounding.
+     * @return  Key for the current state; not null
+     * @since 2.7.00
+     */
+    private SOCWinGameETACache.Key winGameETACacheKey()
+    {
+        final SOCWinGameETACache.KeyBuilder kb = new SOCWinGameETACache.KeyBuilder();
+        final SOCBoard board = game.getBoard();
+
+        kb.add(playerNumber).add(game.vp_winner).add(player.getTotalVP())
+            .add(player.getNumPieces(SOCPlayingPiece.SETTLEMENT)).add(player.getNumPieces(SOCPlayingPiece.CITY));
+
+        int portFlags = 0;
+        for (int portType = SOCBoard.MISC_PORT; portType <= SOCBoard.WOOD_PORT; portType++)
+            if (player.getPortFlag(portType))
+                portFlags |= (1 << portType);
+        kb.add(portFlags);
+
+        final SOCPlayer laPlayer = game.getPlayerWithLargestArmy(), lrPlayer = game.getPlayerWithLongestRoad();
+        kb.add((laPlayer != null) ? laPlayer.getPlayerNumber() : -1)
+            .add((laPlayer != null) ? laPlayer.getNumKnights() : -1)
+            .add((lrPlayer != null) ? lrPlayer.getPlayerNumber() : -1)
+            .add(player.getNumKnights())
+            .add(player.getInventory().getAmount(SOCDevCardConstants.KNIGHT))
+            .add(player.getInventory().getAmount(SOCInventory.OLD, SOCDevCardConstants.KNIGHT))
+            .add(game.getNumDevCards())
+            .add(largestArmyETA).add(longestRoadETA).add(roadsToGo).add(knightsToBuy);
+
+        final SOCPlayerNumbers numbers = player.getNumbers();
+        for (int rtype = SOCResourceConstants.CLAY; rtype <= SOCResourceConstants.WOOD; ++rtype)
+        {
+            final List<Integer> nums = numbers.getNumbersForResource(rtype);
+            kb.add(nums.size());
+            for (final int num : nums)
+                kb.add(num);
+        }
+
+        final int[] hexes = new int[3];
+        kb.add(possibleSettlements.size());
+        for (final SOCPossibleSettlement ps : possibleSettlements.values())
+        {
+            final int node = ps.getCoordinates();
+            kb.add(node).add(ps.getNumberOfNecessaryRoads()).add(calcTotalNecessaryRoads(ps, null))
+                .add(board.getPortTypeFromNodeCoord(node));
+            addAdjacentHexesToKey(kb, node, board, hexes);
+            final List<SOCPossibleSettlement> conflicts = ps.getConflicts();
+            kb.add(conflicts.size());
+            for (final SOCPossibleSettlement conflict : conflicts)
+                kb.add(conflict.getCoordinates());
+        }
+
+        kb.add(possibleCities.size());
+        for (final int node : possibleCities.keySet())
+        {
+            kb.add(node);
+            addAdjacentHexesToKey(kb, node, board, hexes);
+        }
+
+        return kb.build();
+    }
+
+    /**
+     * For {@link #winGameETACacheKey()}, add the dice numbers and types of a node's adjacent hexes,
+     * which {@link SOCPlayerNumbers#updateNumbers(int, SOCBoard)} would use.
+     * @param kb  Key builder to add to
+     * @param node  Node coordinate
+     * @param board  Game board
+     * @param hexes  Array of length 3 to use while adding
+     * @since 2.7.00
+     */
+    private static void addAdjacentHexesToKey
+        (final SOCWinGameETACache.KeyBuilder kb, final int node, final SOCBoard board, final int[] hexes)
+    {
+        final int n = board.getAdjacentHexesToNode(node, hexes);
+        kb.add(n);
+        for (int i = 0; i < n; ++i)
+            kb.add((board.getNumberOnHexFromCoord(hexes[i]) << 8) | (board.getHexTypeFromCoord(hexes[i]) & 0xFF));
+    }
+
+    /**
+     * Recalculate the tracked player's ETA for winning the game (WGETA) without using or updating
+     * the brain's cache of results. See {@link #recalcWinGameETA()} for details.
+     * @return  True if calculated; false if an exception occurred, which is printed to {@link System#err},
+     *     and {@link #getWinGameETA()} is unchanged
+     * @since 2.7.00
+     */
+    public boolean recalcWinGameETA_noCache()
     {
         int oldWGETA = winGameETA;
 
@@ -3876,10 +4088,14 @@ public class SOCPlayerTracker
             winGameETA = oldWGETA;
             System.err.println("Exception in recalcWinGameETA - " + e);
             e.printStackTrace();
+
+            return false;
         }
 
         //System.out.println("good = "+good+" bad = "+bad);
         //System.out.println();
+
+        return true;
     }
 
     /**
@@ -3892,7 +4108,8 @@ public class SOCPlayerTracker
      * @param ps  The settlement to calculate this for
      * @param printedWarnSettleCoords  The set tracking which potential settlement locations for which
      *     we've already printed "Necessary Road Path too long" or "Necessary Road Path length unresolved";
-     *     if print that here for {@code ps}, will add its node coord to this set
+     *     if print that here for {@code ps}, will add its node coord to this set.
+     *     If {@code null}, those warnings aren't printed.
      * @return  0 if {@code ps.getNecessaryRoads()} is empty; <BR>
      *     40 if there were too many necessary roads or they somehow formed a loop; <BR>
      *     otherwise the total number of roads needed before {@code ps} can be built
@@ -3930,7 +4147,7 @@ public class SOCPlayerTracker
                 {
                     // Too many necessary, or dupes led to loop. Bug in necessary road construction?
                     final int psNode = ps.getCoordinates();
-                    if (! printedWarnSettleCoords.contains(psNode))
+                    if ((printedWarnSettleCoords != null) && ! printedWarnSettleCoords.contains(psNode))
                     {
                         System.err.println
                             ("PT.calcTotalNecessaryRoads L3889: Necessary Road Path too long for settle at 0x"
@@ -3952,7 +4169,7 @@ public class SOCPlayerTracker
         {
             // Dupes in various dependent roads? Bug in necessary road construction?
             final int psNode = ps.getCoordinates();
-            if (! printedWarnSettleCoords.contains(psNode))
+            if ((printedWarnSettleCoords != null) && ! printedWarnSettleCoords.contains(psNode))
             {
                 System.err.println
                     ("PT.calcTotalNecessaryRoads L3906: Necessary Road Path length unresolved for settle at 0x"
@@ -3972,6 +4189,9 @@ public class SOCPlayerTracker
      * See how building a piece impacts the game.
      * Calls {@link SOCGame#putTempPiece(SOCPlayingPiece)} and {@link #copyPlayerTrackers(SOCPlayerTracker[])},
      * then adds <tt>piece</tt> to the tracker copies.
+     *<P>
+     * {@link #tryPutPieceInPlace(SOCPlayingPiece, SOCGame, SOCPlayerTracker[])} gives the same results
+     * much faster, by changing the trackers in place and undoing those changes afterwards.
      *
      * @param piece      the piece to build
      * @param game       the game
@@ -4075,6 +4295,348 @@ public class SOCPlayerTracker
         }
     }
 
+    /**
+     * See how building a piece impacts the game, without copying the player trackers:
+     * Like {@link #tryPutPiece(SOCPlayingPiece, SOCGame, SOCPlayerTracker[]) tryPutPiece},
+     * but changes {@code trackers} in place and records those changes in an {@link UndoLog}.
+     * Afterwards caller must call {@link #undoTryPutPiece(SOCPlayingPiece, SOCGame, UndoLog)}
+     * to restore the game and trackers.
+     *<P>
+     * During the trial, the trackers act like the copies made by {@code tryPutPiece}:
+     * Possible roads aren't marked as expanded, threats are ignored, and win game ETA fields
+     * are cleared until {@link #updateWinGameETAs(SOCPlayerTracker[])} is called.
+     * So calculations made during the trial give the same results as with copies.
+     *<P>
+     * Possible pieces are changed and removed from the trackers' {@link #getPossibleRoads()} etc
+     * during the trial, so caller shouldn't be iterating over those maps.
+     *
+     * @param piece     the piece to build, or {@code null} to only save the trackers' fields
+     *     so that {@link #updateWinGameETAs(SOCPlayerTracker[])} can be called and then undone
+     * @param game      the game
+     * @param trackers  the player trackers
+     * @return  the log of changes, to pass to {@link #undoTryPutPiece(SOCPlayingPiece, SOCGame, UndoLog)}
+     * @throws IllegalStateException if another trial placement is already in progress in any of the trackers
+     * @since 2.7.00
+     */
+    public static UndoLog tryPutPieceInPlace
+        (final SOCPlayingPiece piece, final SOCGame game, final SOCPlayerTracker[] trackers)
+        throws IllegalStateException
+    {
+        final UndoLog log = new UndoLog(trackers);
+
+        if (piece != null)
+        {
+            final SOCPlayerTracker ownerTracker = trackers[piece.getPlayerNumber()];
+            if (ownerTracker != null)
+                log.clearExpandedFlags(ownerTracker);
+
+            try
+            {
+                tryPutPieceNoCopy(piece, game, trackers);
+            } catch (RuntimeException e) {
+                undoTryPutPiece(piece, game, log);
+                throw e;
+            }
+        }
+
+        return log;
+    }
+
+    /**
+     * Reset the game and player trackers back to before
+     * {@link #tryPutPieceInPlace(SOCPlayingPiece, SOCGame, SOCPlayerTracker[])}.
+     *
+     * @param piece  the piece to remove, or {@code null} if none was placed
+     * @param game   the game
+     * @param log    the log returned by {@code tryPutPieceInPlace}
+     * @since 2.7.00
+     */
+    public static void undoTryPutPiece(final SOCPlayingPiece piece, final SOCGame game, final UndoLog log)
+    {
+        undoTryPutPiece(piece, game);
+        log.undo();
+    }
+
+    /**
+     * If a trial placement is in progress, save this possible piece's current state
+     * before changing it, to be restored when the trial is undone.
+     * Only the first call for each piece during the trial saves its state.
+     * @param pp  Possible piece about to be changed
+     * @see #tryPutPieceInPlace(SOCPlayingPiece, SOCGame, SOCPlayerTracker[])
+     * @since 2.7.00
+     */
+    private void saveForUndo(final SOCPossiblePiece pp)
+    {
+        if (undoLog != null)
+            undoLog.savePiece(pp);
+    }
+
+    /**
+     * Put a possible piece into one of the trackers' possible-piece maps,
+     * and record that change if a trial placement is in progress.
+     * @param map  Map to change, from this or another tracker
+     * @param key  Piece coordinate
+     * @param pp  Possible piece to put
+     * @see #mapRemove(TreeMap, Integer)
+     * @since 2.7.00
+     */
+    private <P extends SOCPossiblePiece> void mapPut(final TreeMap<Integer, P> map, final Integer key, final P pp)
+    {
+        final P prev = map.put(key, pp);
+        if (undoLog != null)
+            undoLog.mapChanged(map, key, prev);
+    }
+
+    /**
+     * Remove a possible piece from one of the trackers' possible-piece maps,
+     * and record that change if a trial placement is in progress.
+     * @param map  Map to change, from this or another tracker
+     * @param key  Piece coordinate
+     * @see #mapPut(TreeMap, Integer, SOCPossiblePiece)
+     * @since 2.7.00
+     */
+    private <P extends SOCPossiblePiece> void mapRemove(final TreeMap<Integer, P> map, final Integer key)
+    {
+        final P prev = map.remove(key);
+        if ((undoLog != null) && (prev != null))
+            undoLog.mapChanged(map, key, prev);
+    }
+
+    /**
+     * Changes made to a set of player trackers during a trial placement
+     * by {@link SOCPlayerTracker#tryPutPieceInPlace(SOCPlayingPiece, SOCGame, SOCPlayerTracker[])},
+     * to be rolled back by {@link SOCPlayerTracker#undoTryPutPiece(SOCPlayingPiece, SOCGame, UndoLog)}.
+     * Saves each tracker's fields, and the previous state of only those
+     * possible pieces and map entries which the trial changes.
+     * Much faster than {@link SOCPlayerTracker#copyPlayerTrackers(SOCPlayerTracker[])},
+     * which copies every possible piece of every tracker.
+     * @since 2.7.00
+     */
+    public static final class UndoLog
+    {
+        /** The trackers in this trial, in the same format as the array given to the constructor */
+        private final SOCPlayerTracker[] trackers;
+
+        /**
+         * Each tracker's saved int fields, {@link #NUM_INT_FIELDS} per tracker:
+         * {@code longestRoadETA, roadsToGo, largestArmyETA, winGameETA, knightsToBuy}
+         */
+        private final int[] intFields;
+
+        /** Each tracker's saved {@code needLR, needLA} fields, 2 per tracker */
+        private final boolean[] needFields;
+
+        /** Each tracker's saved {@code scen_SC_PIRI_closestShipToFortress} */
+        private final SOCShip[] closestShips;
+
+        /** Saved state of each possible piece changed during the trial */
+        private final IdentityHashMap<SOCPossiblePiece, PieceState> savedPieces
+            = new IdentityHashMap<SOCPossiblePiece, PieceState>();
+
+        /**
+         * Changes to the trackers' possible-piece maps, in the order made:
+         * 3 elements per change: map, key, previous value or {@code null}
+         */
+        private final ArrayList<Object> mapChanges = new ArrayList<Object>();
+
+        /** Possible roads whose {@link SOCPossiblePiece#hasBeenExpanded()} flag was cleared at start of the trial */
+        private final ArrayList<SOCPossibleRoad> expandedRoads = new ArrayList<SOCPossibleRoad>();
+
+        private static final int NUM_INT_FIELDS = 5;
+
+        /**
+         * Start a trial: Save each tracker's fields, then clear its win game ETA fields
+         * like the copy constructor {@link SOCPlayerTracker#SOCPlayerTracker(SOCPlayerTracker)} does.
+         * @param trackers  the player trackers; null elements are ignored
+         * @throws IllegalStateException if any tracker is already in a trial
+         */
+        UndoLog(final SOCPlayerTracker[] trackers)
+            throws IllegalStateException
+        {
+            for (final SOCPlayerTracker pt : trackers)
+                if ((pt != null) && (pt.undoLog != null))
+                    throw new IllegalStateException("already in trial: " + pt);
+
+            this.trackers = trackers;
+            intFields = new int[NUM_INT_FIELDS * trackers.length];
+            needFields = new boolean[2 * trackers.length];
+            closestShips = new SOCShip[trackers.length];
+
+            for (int i = 0; i < trackers.length; ++i)
+            {
+                final SOCPlayerTracker pt = trackers[i];
+                if (pt == null)
+                    continue;
+
+                final int j = NUM_INT_FIELDS * i;
+                intFields[j] = pt.longestRoadETA;
+                intFields[j + 1] = pt.roadsToGo;
+                intFields[j + 2] = pt.largestArmyETA;
+                intFields[j + 3] = pt.winGameETA;
+                intFields[j + 4] = pt.knightsToBuy;
+                needFields[2 * i] = pt.needLR;
+                needFields[2 * i + 1] = pt.needLA;
+                closestShips[i] = pt.scen_SC_PIRI_closestShipToFortress;
+
+                pt.winGameETA = 0;
+                pt.needLR = false;
+                pt.needLA = false;
+                pt.undoLog = this;
+            }
+        }
+
+        /**
+         * Clear the expanded flag of each possible road in a tracker, like a copy would have,
+         * and remember them so the flags can be set again by {@link #undo()}.
+         * @param pt  Tracker of the player placing the trial piece
+         */
+        void clearExpandedFlags(final SOCPlayerTracker pt)
+        {
+            for (final SOCPossibleRoad pr : pt.possibleRoads.values())
+            {
+                if (pr.hasBeenExpanded())
+                {
+                    expandedRoads.add(pr);
+                    pr.resetExpandedFlag();
+                }
+            }
+        }
+
+        /**
+         * Save a possible piece's state, unless already saved during this trial.
+         * @param pp  Possible piece about to be changed
+         */
+        void savePiece(final SOCPossiblePiece pp)
+        {
+            if (! savedPieces.containsKey(pp))
+                savedPieces.put(pp, new PieceState(pp));
+        }
+
+        /**
+         * Record a change to a possible-piece map.
+         * @param map  Map which was changed
+         * @param key  Key which was put or removed
+         * @param prev  Previous value for {@code key}, or {@code null} if none
+         */
+        void mapChanged(final TreeMap<Integer, ? extends SOCPossiblePiece> map, final Integer key, final Object prev)
+        {
+            mapChanges.add(map);
+            mapChanges.add(key);
+            mapChanges.add(prev);
+        }
+
+        /**
+         * End the trial by restoring the saved pieces, map entries, and tracker fields.
+         */
+        @SuppressWarnings("unchecked")
+        void undo()
+        {
+            for (final PieceState ps : savedPieces.values())
+                ps.restore();
+
+            for (int i = mapChanges.size() - 3; i >= 0; i -= 3)
+            {
+                final TreeMap<Integer, SOCPossiblePiece> map = (TreeMap<Integer, SOCPossiblePiece>) mapChanges.get(i);
+                final Integer key = (Integer) mapChanges.get(i + 1);
+                final SOCPossiblePiece prev = (SOCPossiblePiece) mapChanges.get(i + 2);
+                if (prev != null)
+                    map.put(key, prev);
+                else
+                    map.remove(key);
+            }
+
+            for (final SOCPossibleRoad pr : expandedRoads)
+                pr.setExpandedFlag();
+
+            for (int i = 0; i < trackers.length; ++i)
+            {
+                final SOCPlayerTracker pt = trackers[i];
+                if (pt == null)
+                    continue;
+
+                final int j = NUM_INT_FIELDS * i;
+                pt.longestRoadETA = intFields[j];
+                pt.roadsToGo = intFields[j + 1];
+                pt.largestArmyETA = intFields[j + 2];
+                pt.winGameETA = intFields[j + 3];
+                pt.knightsToBuy = intFields[j + 4];
+                pt.needLR = needFields[2 * i];
+                pt.needLA = needFields[2 * i + 1];
+                pt.scen_SC_PIRI_closestShipToFortress = closestShips[i];
+                pt.undoLog = null;
+            }
+        }
+
+        /**
+         * The parts of a possible road or settlement which can be changed by a trial placement:
+         * Expanded flag, number of necessary roads, and lists of necessary roads,
+         * new possibilities, and conflicts. Score and threats aren't changed during trials.
+         */
+        private static final class PieceState
+        {
+            final SOCPossiblePiece piece;
+            final boolean hasBeenExpanded;
+            final int numberOfNecessaryRoads;
+
+            /** Necessary roads, or null if not a road or settlement */
+            final SOCPossibleRoad[] necessaryRoads;
+
+            /** Road's new possibilities or settlement's conflicts, or null if neither */
+            final SOCPossiblePiece[] others;
+
+            PieceState(final SOCPossiblePiece pp)
+            {
+                piece = pp;
+                hasBeenExpanded = pp.hasBeenExpanded;
+                if (pp instanceof SOCPossibleRoad)
+                {
+                    final SOCPossibleRoad pr = (SOCPossibleRoad) pp;
+                    numberOfNecessaryRoads = pr.numberOfNecessaryRoads;
+                    necessaryRoads = pr.necessaryRoads.toArray(new SOCPossibleRoad[pr.necessaryRoads.size()]);
+                    others = pr.newPossibilities.toArray(new SOCPossiblePiece[pr.newPossibilities.size()]);
+                }
+                else if (pp instanceof SOCPossibleSettlement)
+                {
+                    final SOCPossibleSettlement ps = (SOCPossibleSettlement) pp;
+                    numberOfNecessaryRoads = ps.numberOfNecessaryRoads;
+                    necessaryRoads = ps.necessaryRoads.toArray(new SOCPossibleRoad[ps.necessaryRoads.size()]);
+                    others = ps.conflicts.toArray(new SOCPossibleSettlement[ps.conflicts.size()]);
+                } else {
+                    numberOfNecessaryRoads = 0;
+                    necessaryRoads = null;
+                    others = null;
+                }
+            }
+
+            void restore()
+            {
+                piece.hasBeenExpanded = hasBeenExpanded;
+                if (piece instanceof SOCPossibleRoad)
+                {
+                    final SOCPossibleRoad pr = (SOCPossibleRoad) piece;
+                    pr.numberOfNecessaryRoads = numberOfNecessaryRoads;
+                    restoreList(pr.necessaryRoads, necessaryRoads);
+                    restoreList(pr.newPossibilities, others);
+                }
+                else if (piece instanceof SOCPossibleSettlement)
+                {
+                    final SOCPossibleSettlement ps = (SOCPossibleSettlement) piece;
+                    ps.numberOfNecessaryRoads = numberOfNecessaryRoads;
+                    restoreList(ps.necessaryRoads, necessaryRoads);
+                    restoreList(ps.conflicts, (SOCPossibleSettlement[]) others);
+                }
+            }
+
+            /** Replace a list's contents with saved contents, keeping the same list object. */
+            private static <T> void restoreList(final List<T> li, final T[] saved)
+            {
+                li.clear();
+                for (final T item : saved)
+                    li.add(item);
+            }
+        }
+    }
+
     /**
      * Print debug output for a set of player trackers.
      *<P>
@@ -1,7 +1,7 @@
 /**
  * Java Settlers - An online multiplayer version of the game Settlers of Catan
  * Copyright (C) 2003  Robert S. Thomas <thomas@infolab.northwestern.edu>
- * Portions of this file Copyright (C) 2007-2025 Jeremy D Monin <jeremy@nand.net>
+ * Portions of this file Copyright (C) 2007-2026 Jeremy D Monin <jeremy@nand.net>
  * Portions of this file Copyright (C) 2012 Paul Bilnoski <paul@bilnoski.net>
  * Portions of this file Copyright (C) 2017 Ruud Poutsma <rtimon@gmail.com>
  * Portions of this file Copyright (C) 2017-2018 Strategic Conversation (STAC Project) https://www.irit.fr/STAC/
@@ -85,6 +85,7 @@ import soc.message.SOCUndoPutPiece;
 import soc.util.CappedQueue;
 import soc.util.DebugRecorder;
 import soc.util.SOCRobotParameters;
+import soc.util.VirtualThreads;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -99,6 +100,8 @@ import java.util.Vector;
  * AI for playing Settlers of Catan.
  * Represents a robot player within 1 game.
  * The bot is a separate thread, so everything happens in {@link #run()} or a method called from there.
+ * The client starts that thread by calling {@link #startBrainThread()}, which may use a virtual thread
+ * if {@link #USE_VIRTUAL_THREADS}.
  *<P>
  * Some robot behaviors are altered by the {@link SOCRobotParameters} passed into our constructor.
  * Some decision-making code is in the {@link OpeningBuildStrategy},
@@ -110,7 +113,7 @@ import java.util.Vector;
  * {@link #setOurPlayerData()}.
  *<P>
  * At the start of each player's turn, {@link #buildingPlan} and most other state fields are cleared
- * (search {@link #run()} for <tt>mesType == SOCMessage.TURN</tt>).
+ * (search {@link #handleGameEvent(SOCMessage)} for <tt>mesType == SOCMessage.TURN</tt>).
  * The plan for what to build next is decided in {@link SOCRobotDM#planStuff(int)}
  * (called from {@link #planBuilding()} and some other places) which updates {@link #buildingPlan}.
  * That plan is executed in {@link #planAndDoActionForPLAY1()}, which calls {@link #buildOrGetResourceByTradeOrCard()}
@@ -168,6 +171,19 @@ public class SOCRobotBrain extends Thread
      */
     public static boolean ALWAYS_PAUSE_FASTER = false;
 
+    /**
+     * If true, {@link #startBrainThread()} runs each new brain on a virtual thread when
+     * the JRE supports them (JDK 21 or newer), otherwise on a platform thread as usual.
+     * A virtual thread doesn't hold a platform thread while waiting for messages or in {@link #pause(int)},
+     * so one bot client JVM can play in many more games at once.
+     *<P>
+     * Default false. Set by server property {@code jsettlers.bots.virtual_threads}
+     * or by {@link SOCRobotClient} system property {@link SOCRobotClient#PROP_JSETTLERS_BOTS_VIRTUAL__THREADS}.
+     * @see VirtualThreads#isAvailable()
+     * @since 2.7.00
+     */
+    public static boolean USE_VIRTUAL_THREADS = false;
+
     /**
      * If, during a turn, we make this many illegal build
      * requests that the server denies, stop trying.
@@ -459,6 +475,14 @@ public class SOCRobotBrain extends Thread
      */
     protected SOCBuildingSpeedEstimateFactory bseFactory;
 
+    /**
+     * Cache of {@link SOCPlayerTracker#recalcWinGameETA()} results for this brain's trackers
+     * and their trial copies, holding up to {@link SOCWinGameETACache#DEFAULT_SIZE} results.
+     * @see #getWinGameETACache()
+     * @since 2.7.00
+     */
+    protected final SOCWinGameETACache winGameETACache = new SOCWinGameETACache(SOCWinGameETACache.DEFAULT_SIZE);
+
     // If any new expect or waitingFor fields are added,
     // please update debugPrintBrainStatus() and the
     // run() loop at "if (mesType == SOCMessage.TURN)".
@@ -797,6 +821,14 @@ public class SOCRobotBrain extends Thread
      */
     protected SOCRobotPinger pinger;
 
+    /**
+     * The thread running this brain, set by {@link #startBrainThread()}:
+     * This brain itself, or a virtual thread if {@link #USE_VIRTUAL_THREADS}.
+     * Null until started.
+     * @since 2.7.00
+     */
+    private volatile Thread brainThread;
+
     /**
      * An object for recording a building plan's debug information that can
      * be accessed interactively.
@@ -1310,7 +1342,7 @@ public class SOCRobotBrain extends Thread
      *<P>
      * Nearly all bot actions start in this method; the overview of bot structures
      * is in the {@link SOCRobotBrain class javadoc} for prominence.
-     * See comments within <tt>run()</tt> for minor details.
+     * See comments within {@link #handleGameEvent(SOCMessage)} for minor details.
      *<P>
      * The brain thread will run until {@link #kill()} has been called or its pinger stops,
      * or it receives a {@link SOCMessage#ROBOTDISMISS} request to exit the game.
@@ -1339,853 +1371,870 @@ public class SOCRobotBrain extends Thread
                 {
                     final SOCMessage mes = gameEventQ.get();  // Sleeps until message received
 
-                    final int mesType;
-                    if (mes != null)
-                    {
-                        // Debug aid: When looking at message contents or setting a per-message breakpoint,
-                        // skip the pings; note (mesType != SOCMessage.TIMINGPING) here.
-
-                        mesType = mes.getType();
-                        if (mesType != SOCMessage.TIMINGPING)
-                            turnEventsCurrent.addElement(mes);
-                        if (D.ebugOn)
-                            D.ebugPrintlnINFO("mes - " + mes);
-                    }
-                    else
-                    {
-                        mesType = -1;
-                    }
+                    handleGameEvent(mes);
 
-                    if (waitingForTradeMsg && (counter > 10))
+                    Thread.yield();
+                }
+                catch (Exception e)
+                {
+                    // Print exception; ignore errors due to game reset in another thread
+                    if (alive && ((game == null) || (game.getGameState() != SOCGame.RESET_OLD)))
                     {
-                        waitingForTradeMsg = false;
-                        counter = 0;
-                    }
+                        ++turnExceptionCount;  // TODO end our turn if too many
 
-                    if (waitingForTradeResponse && (counter > tradeResponseTimeoutSec))
-                    {
-                        // Remember other players' responses, call client.clearOffer,
-                        // clear waitingForTradeResponse and counter.
-                        tradeStopWaitingClearOffer();
+                        String eMsg = (turnExceptionCount == 1)
+                            ? "*** Robot " + ourPlayerName + " caught an exception - " + e
+                            : "*** Robot " + ourPlayerName + " caught an exception (" + turnExceptionCount + " this turn) - " + e;
+                        D.ebugPrintlnINFO(eMsg);
+                        System.err.println(eMsg);
+                        e.printStackTrace();
                     }
+                }
+            }
+        }
+        else
+        {
+            System.err.println("AGG! NO PINGER!");
+        }
 
-                    if (waitingForGameState && (counter > 10000))
-                    {
-                        //D.ebugPrintln("counter = "+counter);
-                        //D.ebugPrintln("RESEND");
-                        counter = 0;
-                        client.resend();
-                    }
+        //D.ebugPrintln("STOPPING AND DEALLOCATING");
+        gameEventQ = null;
 
-                    if (mesType == SOCMessage.GAMESTATE)
-                    {
-                        handleGAMESTATE(((SOCGameState) mes).getState());
-                            // clears waitingForGameState, updates oldGameState, calls ga.setGameState
-                            // May call startTurnMainActions
-                            // If state is LOADING, sets waitingForGameState
-                    }
+        client.addCleanKill();
+        client = null;
 
-                    else if (mesType == SOCMessage.STARTGAME)
-                    {
-                        SOCDisplaylessPlayerClient.handleSTARTGAME_checkIsBotsOnly(game);
-                            // might set game.isBotsOnly
-                        handleGAMESTATE(((SOCStartGame) mes).getGameState());
-                            // clears waitingForGameState, updates oldGameState, calls ga.setGameState
-                    }
+        game = null;
+        ourPlayerData = null;
+        dummyCancelPlayerData = null;
+        whatWeWantToBuild = null;
+        whatWeFailedToBuild = null;
+        rejectedPlayInvItem = null;
+        ourPlayerTracker = null;
+        playerTrackers = null;
 
-                    else if (mesType == SOCMessage.TURN)
-                    {
-                        // Start of a new player's turn.
-                        // Update game and reset most of our state fields.
-                        // See also below: if ((mesType == SOCMessage.TURN) && ourTurn).
+        pinger.stopPinger();
+        pinger = null;
+    }
 
-                        handleGAMESTATE(((SOCTurn) mes).getGameState());
-                            // clears waitingForGameState, updates oldGameState, calls ga.setGameState
+    /**
+     * Handle one game event from {@link #gameEventQ}: Update game data and trackers from the message,
+     * then take any actions or do any planning it calls for.
+     * {@link #run()} calls this for each message it takes from the queue.
+     * {@link BotGameSimulator} calls it directly, without starting the brain's thread.
+     *<P>
+     * If this throws an exception, {@link #run()} prints it and continues with the next message.
+     *
+     * @param mes  Message from the queue, or {@code null}
+     * @since 2.7.00
+     */
+    protected void handleGameEvent(final SOCMessage mes)
+    {
 
-                        game.setCurrentPlayerNumber(((SOCTurn) mes).getPlayerNumber());
-                        game.updateAtTurn();
+            final int mesType;
+            if (mes != null)
+            {
+                // Debug aid: When looking at message contents or setting a per-message breakpoint,
+                // skip the pings; note (mesType != SOCMessage.TIMINGPING) here.
+
+                mesType = mes.getType();
+                if (mesType != SOCMessage.TIMINGPING)
+                    turnEventsCurrent.addElement(mes);
+                if (D.ebugOn)
+                    D.ebugPrintlnINFO("mes - " + mes);
+            }
+            else
+            {
+                mesType = -1;
+            }
 
-                        //
-                        // remove any expected states
-                        // reset the selling flags and trade-offers history
-                        // check or reset any special-building-phase decisions
-                        // reset any building plans we had
-                        //
-                        resetFieldsAndBuildingPlan();
+            if (waitingForTradeMsg && (counter > 10))
+            {
+                waitingForTradeMsg = false;
+                counter = 0;
+            }
 
-                        //
-                        // swap the message-history queues
-                        //
-                        {
-                            Vector<SOCMessage> oldPrev = turnEventsPrev;
-                            turnEventsPrev = turnEventsCurrent;
-                            oldPrev.clear();
-                            turnEventsCurrent = oldPrev;
-                        }
+            if (waitingForTradeResponse && (counter > tradeResponseTimeoutSec))
+            {
+                // Remember other players' responses, call client.clearOffer,
+                // clear waitingForTradeResponse and counter.
+                tradeStopWaitingClearOffer();
+            }
 
-                        turnExceptionCount = 0;
-                    }
-                    else if (mesType == SOCMessage.GAMESTATS)
-                    {
-                        handleGAMESTATS((SOCGameStats) mes);
-                    }
+            if (waitingForGameState && (counter > 10000))
+            {
+                //D.ebugPrintln("counter = "+counter);
+                //D.ebugPrintln("RESEND");
+                counter = 0;
+                client.resend();
+            }
 
-                    if (game.getCurrentPlayerNumber() == ourPlayerNumber)
-                    {
-                        ourTurn = true;
-                        waitingForSpecialBuild = false;
-                    }
-                    else
-                    {
-                        ourTurn = false;
-                    }
+            if (mesType == SOCMessage.GAMESTATE)
+            {
+                handleGAMESTATE(((SOCGameState) mes).getState());
+                    // clears waitingForGameState, updates oldGameState, calls ga.setGameState
+                    // May call startTurnMainActions
+                    // If state is LOADING, sets waitingForGameState
+            }
 
-                    if ((mesType == SOCMessage.TURN) && ourTurn)
-                    {
-                        waitingForOurTurn = false;
-
-                        // Clear some per-turn variables.
-                        // For others, see above: if (mesType == SOCMessage.TURN)
-                        whatWeFailedToBuild = null;
-                        failedBuildingAttempts = 0;
-                        failedBankTrades = 0;
-                        rejectedPlayDevCardType = -1;
-                        rejectedPlayInvItem = null;
-                    }
+            else if (mesType == SOCMessage.STARTGAME)
+            {
+                SOCDisplaylessPlayerClient.handleSTARTGAME_checkIsBotsOnly(game);
+                    // might set game.isBotsOnly
+                handleGAMESTATE(((SOCStartGame) mes).getGameState());
+                    // clears waitingForGameState, updates oldGameState, calls ga.setGameState
+            }
 
-                    /**
-                     * Handle some message types early.
-                     *
-                     * When reading the main flow of this method, skip past here;
-                     * search for "it's time to decide to build or take other normal actions".
-                     */
-                    boolean isDataUpdateOnly = false;
-                        // true if only updating game data in rbrain thread, not taking any actions based on message
-                    switch (mesType)
-                    {
-                    case SOCMessage.PLAYERELEMENT:
-                        // If this during the ROLL_OR_CARD state, also updates the
-                        // negotiator's is-selling flags.
-                        // If our player is losing a resource needed for the buildingPlan,
-                        // clear the plan if this is for the Special Building Phase (on the 6-player board).
-                        // In normal game play, we clear the building plan at the start of each turn.
-
-                        handlePLAYERELEMENT((SOCPlayerElement) mes);
-                        break;
+            else if (mesType == SOCMessage.TURN)
+            {
+                // Start of a new player's turn.
+                // Update game and reset most of our state fields.
+                // See also below: if ((mesType == SOCMessage.TURN) && ourTurn).
 
-                    case SOCMessage.PLAYERELEMENTS:
-                        // Multiple PLAYERELEMENT updates;
-                        // see comment above for actions taken.
+                handleGAMESTATE(((SOCTurn) mes).getGameState());
+                    // clears waitingForGameState, updates oldGameState, calls ga.setGameState
 
-                        handlePLAYERELEMENTS((SOCPlayerElements) mes);
-                        break;
+                game.setCurrentPlayerNumber(((SOCTurn) mes).getPlayerNumber());
+                game.updateAtTurn();
 
-                    case SOCMessage.RESOURCECOUNT:
-                        handlePLAYERELEMENT
-                            (null, ((SOCResourceCount) mes).getPlayerNumber(), SOCPlayerElement.SET,
-                             PEType.RESOURCE_COUNT, ((SOCResourceCount) mes).getCount());
-                        break;
+                //
+                // remove any expected states
+                // reset the selling flags and trade-offers history
+                // check or reset any special-building-phase decisions
+                // reset any building plans we had
+                //
+                resetFieldsAndBuildingPlan();
 
-                    case SOCMessage.DICERESULT:
-                        handleDICERESULT((SOCDiceResult) mes);
-                        break;
+                //
+                // swap the message-history queues
+                //
+                {
+                    Vector<SOCMessage> oldPrev = turnEventsPrev;
+                    turnEventsPrev = turnEventsCurrent;
+                    oldPrev.clear();
+                    turnEventsCurrent = oldPrev;
+                }
 
-                    case SOCMessage.DICERESULTRESOURCES:
-                        SOCDisplaylessPlayerClient.handleDICERESULTRESOURCES
-                            ((SOCDiceResultResources) mes, game, ourPlayerName, false);
-                        isDataUpdateOnly = true;
-                        break;
+                turnExceptionCount = 0;
+            }
+            else if (mesType == SOCMessage.GAMESTATS)
+            {
+                handleGAMESTATS((SOCGameStats) mes);
+            }
 
-                    case SOCMessage.PUTPIECE:
-                        handlePUTPIECE_updateGameData((SOCPutPiece) mes);
-                        // For initial roads, also tracks their initial settlement in SOCPlayerTracker.
-                        break;
+            if (game.getCurrentPlayerNumber() == ourPlayerNumber)
+            {
+                ourTurn = true;
+                waitingForSpecialBuild = false;
+            }
+            else
+            {
+                ourTurn = false;
+            }
 
-                    case SOCMessage.MOVEPIECE:
-                        {
-                            SOCMovePiece mpm = (SOCMovePiece) mes;
-                            SOCShip sh = new SOCShip
-                                (game.getPlayer(mpm.getPlayerNumber()), mpm.getFromCoord(), null);
-                            game.moveShip(sh, mpm.getToCoord());
-                        }
-                        break;
+            if ((mesType == SOCMessage.TURN) && ourTurn)
+            {
+                waitingForOurTurn = false;
+
+                // Clear some per-turn variables.
+                // For others, see above: if (mesType == SOCMessage.TURN)
+                whatWeFailedToBuild = null;
+                failedBuildingAttempts = 0;
+                failedBankTrades = 0;
+                rejectedPlayDevCardType = -1;
+                rejectedPlayInvItem = null;
+            }
 
-                    case SOCMessage.CANCELBUILDREQUEST:
-                        handleCANCELBUILDREQUEST((SOCCancelBuildRequest) mes);
-                        break;
+            /**
+             * Handle some message types early.
+             *
+             * When reading the main flow of this method, skip past here;
+             * search for "it's time to decide to build or take other normal actions".
+             */
+            boolean isDataUpdateOnly = false;
+                // true if only updating game data in rbrain thread, not taking any actions based on message
+            switch (mesType)
+            {
+            case SOCMessage.PLAYERELEMENT:
+                // If this during the ROLL_OR_CARD state, also updates the
+                // negotiator's is-selling flags.
+                // If our player is losing a resource needed for the buildingPlan,
+                // clear the plan if this is for the Special Building Phase (on the 6-player board).
+                // In normal game play, we clear the building plan at the start of each turn.
+
+                handlePLAYERELEMENT((SOCPlayerElement) mes);
+                break;
 
-                    case SOCMessage.UNDOPUTPIECE:
-                        handleUNDOPUTPIECE((SOCUndoPutPiece) mes);
-                        break;
+            case SOCMessage.PLAYERELEMENTS:
+                // Multiple PLAYERELEMENT updates;
+                // see comment above for actions taken.
 
-                    case SOCMessage.DISCARD:
-                        SOCDisplaylessPlayerClient.handleDISCARD((SOCDiscard) mes, game);
-                        isDataUpdateOnly = true;
-                        break;
+                handlePLAYERELEMENTS((SOCPlayerElements) mes);
+                break;
 
-                    case SOCMessage.MOVEROBBER:
-                        robberMoved(((SOCMoveRobber) mes).getCoordinates());
-                        break;
+            case SOCMessage.RESOURCECOUNT:
+                handlePLAYERELEMENT
+                    (null, ((SOCResourceCount) mes).getPlayerNumber(), SOCPlayerElement.SET,
+                     PEType.RESOURCE_COUNT, ((SOCResourceCount) mes).getCount());
+                break;
 
-                    case SOCMessage.MAKEOFFER:
-                        if (robotParameters.getTradeFlag() == 1)
-                            handleMAKEOFFER((SOCMakeOffer) mes);
-                        else
-                            isDataUpdateOnly = true;
-                        break;
+            case SOCMessage.DICERESULT:
+                handleDICERESULT((SOCDiceResult) mes);
+                break;
 
-                    case SOCMessage.CLEAROFFER:
-                        if (robotParameters.getTradeFlag() == 1)
-                        {
-                            final int pn = ((SOCClearOffer) mes).getPlayerNumber();
-                            if (pn != -1)
-                            {
-                                game.getPlayer(pn).setCurrentOffer(null);
-                            } else {
-                                for (int i = 0; i < game.maxPlayers; ++i)
-                                    game.getPlayer(i).setCurrentOffer(null);
-                            }
-                        } else {
-                            isDataUpdateOnly = true;
-                        }
-                        break;
+            case SOCMessage.DICERESULTRESOURCES:
+                SOCDisplaylessPlayerClient.handleDICERESULTRESOURCES
+                    ((SOCDiceResultResources) mes, game, ourPlayerName, false);
+                isDataUpdateOnly = true;
+                break;
 
-                    case SOCMessage.ACCEPTOFFER:
-                        SOCDisplaylessPlayerClient.handleACCEPTOFFER((SOCAcceptOffer) mes, game);
-                            // use our thread to update game data
+            case SOCMessage.PUTPIECE:
+                handlePUTPIECE_updateGameData((SOCPutPiece) mes);
+                // For initial roads, also tracks their initial settlement in SOCPlayerTracker.
+                break;
 
-                        if (waitingForTradeResponse && (robotParameters.getTradeFlag() == 1))
-                        {
-                            final int acceptingPN = ((SOCAcceptOffer) mes).getAcceptingNumber();
+            case SOCMessage.MOVEPIECE:
+                {
+                    SOCMovePiece mpm = (SOCMovePiece) mes;
+                    SOCShip sh = new SOCShip
+                        (game.getPlayer(mpm.getPlayerNumber()), mpm.getFromCoord(), null);
+                    game.moveShip(sh, mpm.getToCoord());
+                }
+                break;
 
-                            if ((ourPlayerNumber == acceptingPN)
-                                || (ourPlayerNumber == (((SOCAcceptOffer) mes).getOfferingNumber())))
-                            {
-                                handleTradeResponse(acceptingPN, true);
-                            }
-                        }
-                        break;
+            case SOCMessage.CANCELBUILDREQUEST:
+                handleCANCELBUILDREQUEST((SOCCancelBuildRequest) mes);
+                break;
 
-                    case SOCMessage.REJECTOFFER:
-                        if (robotParameters.getTradeFlag() == 1)
-                            handleREJECTOFFER((SOCRejectOffer) mes);
-                        else
-                            isDataUpdateOnly = true;
-                        break;
+            case SOCMessage.UNDOPUTPIECE:
+                handleUNDOPUTPIECE((SOCUndoPutPiece) mes);
+                break;
 
-                    case SOCMessage.DEVCARDACTION:
-                        {
-                            SOCDevCardAction dcMes = (SOCDevCardAction) mes;
-                            if (dcMes.getAction() != SOCDevCardAction.CANNOT_PLAY)
-                            {
-                                handleDEVCARDACTION(dcMes);
-                            } else {
-                                // rejected by server, can't play our requested card
-                                rejectedPlayDevCardType = dcMes.getCardType();
-                                waitingForGameState = false;
-                                expectPLACING_FREE_ROAD1 = false;
-                                expectWAITING_FOR_DISCOVERY = false;
-                                expectWAITING_FOR_MONOPOLY = false;
-                                expectPLACING_ROBBER = false;
-                            }
-                        }
-                        break;
+            case SOCMessage.DISCARD:
+                SOCDisplaylessPlayerClient.handleDISCARD((SOCDiscard) mes, game);
+                isDataUpdateOnly = true;
+                break;
 
-                    case SOCMessage.SIMPLEREQUEST:
-                        // For any player's request, update game data in our thread
-                        SOCDisplaylessPlayerClient.handleSIMPLEREQUEST((SOCSimpleRequest) mes, game);
+            case SOCMessage.MOVEROBBER:
+                robberMoved(((SOCMoveRobber) mes).getCoordinates());
+                break;
 
-                        // Some request types are handled at the bottom of the loop body;
-                        // search for SOCMessage.SIMPLEREQUEST
+            case SOCMessage.MAKEOFFER:
+                if (robotParameters.getTradeFlag() == 1)
+                    handleMAKEOFFER((SOCMakeOffer) mes);
+                else
+                    isDataUpdateOnly = true;
+                break;
 
-                        if (ourTurn && waitingForSC_PIRI_FortressRequest)
-                        {
-                            final SOCSimpleRequest rqMes = (SOCSimpleRequest) mes;
+            case SOCMessage.CLEAROFFER:
+                if (robotParameters.getTradeFlag() == 1)
+                {
+                    final int pn = ((SOCClearOffer) mes).getPlayerNumber();
+                    if (pn != -1)
+                    {
+                        game.getPlayer(pn).setCurrentOffer(null);
+                    } else {
+                        for (int i = 0; i < game.maxPlayers; ++i)
+                            game.getPlayer(i).setCurrentOffer(null);
+                    }
+                } else {
+                    isDataUpdateOnly = true;
+                }
+                break;
 
-                            if ((rqMes.getRequestType() == SOCSimpleRequest.SC_PIRI_FORT_ATTACK)
-                                && (rqMes.getPlayerNumber() == -1))
-                            {
-                                // Attack request was denied: End our turn now.
-                                // Reset method sets waitingForGameState, which will bypass
-                                // any further actions in the run() loop body.
+            case SOCMessage.ACCEPTOFFER:
+                SOCDisplaylessPlayerClient.handleACCEPTOFFER((SOCAcceptOffer) mes, game);
+                    // use our thread to update game data
 
-                                waitingForSC_PIRI_FortressRequest = false;
-                                resetFieldsAtEndTurn();
-                                client.endTurn(game);
-                            }
-                            // else, from another player; we can ignore it
-                        }
-                        break;
+                if (waitingForTradeResponse && (robotParameters.getTradeFlag() == 1))
+                {
+                    final int acceptingPN = ((SOCAcceptOffer) mes).getAcceptingNumber();
 
-                    case SOCMessage.SIMPLEACTION:
-                        // For any player's action, update game data in our thread
-                        SOCDisplaylessPlayerClient.handleSIMPLEACTION((SOCSimpleAction) mes, game);
-                        if (((SOCSimpleAction) mes).getPlayerNumber() != ourPlayerNumber)
-                            isDataUpdateOnly = true;
+                    if ((ourPlayerNumber == acceptingPN)
+                        || (ourPlayerNumber == (((SOCAcceptOffer) mes).getOfferingNumber())))
+                    {
+                        handleTradeResponse(acceptingPN, true);
+                    }
+                }
+                break;
 
-                        // Most action types are handled later in the loop body;
-                        // search for SOCMessage.SIMPLEACTION
+            case SOCMessage.REJECTOFFER:
+                if (robotParameters.getTradeFlag() == 1)
+                    handleREJECTOFFER((SOCRejectOffer) mes);
+                else
+                    isDataUpdateOnly = true;
+                break;
 
-                        switch(((SOCSimpleAction) mes).getActionType())
-                        {
-                        case SOCSimpleAction.SC_PIRI_FORT_ATTACK_RESULT:
-                            if (ourTurn && waitingForSC_PIRI_FortressRequest)
-                            {
-                                // Our player has won or lost an attack on a pirate fortress.
-                                // When we receive this message, other messages have already
-                                // been sent to update related game state. End our turn now.
-                                // Reset method sets waitingForGameState, which will bypass
-                                // any further actions in the run() loop body.
+            case SOCMessage.DEVCARDACTION:
+                {
+                    SOCDevCardAction dcMes = (SOCDevCardAction) mes;
+                    if (dcMes.getAction() != SOCDevCardAction.CANNOT_PLAY)
+                    {
+                        handleDEVCARDACTION(dcMes);
+                    } else {
+                        // rejected by server, can't play our requested card
+                        rejectedPlayDevCardType = dcMes.getCardType();
+                        waitingForGameState = false;
+                        expectPLACING_FREE_ROAD1 = false;
+                        expectWAITING_FOR_DISCOVERY = false;
+                        expectWAITING_FOR_MONOPOLY = false;
+                        expectPLACING_ROBBER = false;
+                    }
+                }
+                break;
 
-                                waitingForSC_PIRI_FortressRequest = false;
-                                resetFieldsAtEndTurn();
-                                // client.endTurn not needed; making the attack implies sending endTurn
+            case SOCMessage.SIMPLEREQUEST:
+                // For any player's request, update game data in our thread
+                SOCDisplaylessPlayerClient.handleSIMPLEREQUEST((SOCSimpleRequest) mes, game);
 
-                                isDataUpdateOnly = false;
-                            }
-                            // else, from another player; we can ignore it
+                // Some request types are handled at the bottom of the loop body;
+                // search for SOCMessage.SIMPLEREQUEST
 
-                            break;
-                        }
-                        break;
+                if (ourTurn && waitingForSC_PIRI_FortressRequest)
+                {
+                    final SOCSimpleRequest rqMes = (SOCSimpleRequest) mes;
 
-                    case SOCMessage.INVENTORYITEMACTION:
-                        if (((SOCInventoryItemAction) mes).action == SOCInventoryItemAction.CANNOT_PLAY)
-                        {
-                            final List<SOCInventoryItem> itms = ourPlayerData.getInventory().getByStateAndType
-                                (SOCInventory.PLAYABLE, ((SOCInventoryItemAction) mes).itemType);
-                            if (itms != null)
-                                rejectedPlayInvItem = itms.get(0);  // any item of same type# is similar enough here
+                    if ((rqMes.getRequestType() == SOCSimpleRequest.SC_PIRI_FORT_ATTACK)
+                        && (rqMes.getPlayerNumber() == -1))
+                    {
+                        // Attack request was denied: End our turn now.
+                        // Reset method sets waitingForGameState, which will bypass
+                        // any further actions in the run() loop body.
 
-                            waitingForGameState = false;
-                            expectPLACING_INV_ITEM = false;  // in case was rejected placement (SC_FTRI gift port, etc)
-                        } else {
-                            isDataUpdateOnly = true;
-                        }
-                        break;
+                        waitingForSC_PIRI_FortressRequest = false;
+                        resetFieldsAtEndTurn();
+                        client.endTurn(game);
+                    }
+                    // else, from another player; we can ignore it
+                }
+                break;
 
-                    case SOCMessage.ROBBERYRESULT:
-                        handleROBBERYRESULT((SOCRobberyResult) mes);
-                        if (((SOCRobberyResult) mes).victimPN != ourPlayerNumber)
-                            isDataUpdateOnly = true;
-                        break;
+            case SOCMessage.SIMPLEACTION:
+                // For any player's action, update game data in our thread
+                SOCDisplaylessPlayerClient.handleSIMPLEACTION((SOCSimpleAction) mes, game);
+                if (((SOCSimpleAction) mes).getPlayerNumber() != ourPlayerNumber)
+                    isDataUpdateOnly = true;
 
-                    case SOCMessage.BOTGAMEDATACHECK:
-                        handleBOTGAMEDATACHECK
-                            (((SOCBotGameDataCheck) mes).getDataType(), ((SOCBotGameDataCheck) mes).getValues());
-                        isDataUpdateOnly = true;
-                        break;
+                // Most action types are handled later in the loop body;
+                // search for SOCMessage.SIMPLEACTION
 
-                    case SOCMessage.DECLINEPLAYERREQUEST:
-                        // increment failedBuildingAttempts, reset bot's planning/status flags
-                        handleDECLINEPLAYERREQUEST((SOCDeclinePlayerRequest) mes);
-                        break;
+                switch(((SOCSimpleAction) mes).getActionType())
+                {
+                case SOCSimpleAction.SC_PIRI_FORT_ATTACK_RESULT:
+                    if (ourTurn && waitingForSC_PIRI_FortressRequest)
+                    {
+                        // Our player has won or lost an attack on a pirate fortress.
+                        // When we receive this message, other messages have already
+                        // been sent to update related game state. End our turn now.
+                        // Reset method sets waitingForGameState, which will bypass
+                        // any further actions in the run() loop body.
 
-                    }  // switch(mesType)
+                        waitingForSC_PIRI_FortressRequest = false;
+                        resetFieldsAtEndTurn();
+                        // client.endTurn not needed; making the attack implies sending endTurn
 
-                    if (isDataUpdateOnly)
-                    {
-                        continue;  // <--- no further actions or planning needed for this message ---
+                        isDataUpdateOnly = false;
                     }
+                    // else, from another player; we can ignore it
 
-                    debugInfo();
+                    break;
+                }
+                break;
 
-                    if ((game.getGameState() == SOCGame.ROLL_OR_CARD) && ! waitingForGameState)
-                    {
-                        rollOrPlayKnightOrExpectDice();
+            case SOCMessage.INVENTORYITEMACTION:
+                if (((SOCInventoryItemAction) mes).action == SOCInventoryItemAction.CANNOT_PLAY)
+                {
+                    final List<SOCInventoryItem> itms = ourPlayerData.getInventory().getByStateAndType
+                        (SOCInventory.PLAYABLE, ((SOCInventoryItemAction) mes).itemType);
+                    if (itms != null)
+                        rejectedPlayInvItem = itms.get(0);  // any item of same type# is similar enough here
 
-                        // On our turn, ask client to roll dice or play a knight;
-                        // on other turns, update flags to expect dice result.
-                        // Clears expectROLL_OR_CARD to false.
-                        // Sets either expectDICERESULT, or expectPLACING_ROBBER and waitingForGameState.
-                    }
+                    waitingForGameState = false;
+                    expectPLACING_INV_ITEM = false;  // in case was rejected placement (SC_FTRI gift port, etc)
+                } else {
+                    isDataUpdateOnly = true;
+                }
+                break;
 
-                    if (ourTurn && (game.getGameState() == SOCGame.WAITING_FOR_ROBBER_OR_PIRATE) && ! waitingForGameState)
-                    {
-                        // TODO handle moving the pirate too
-                        // For now, always decide to move the robber.
-                        // Once we move the robber, will also need to deal with state WAITING_FOR_ROB_CLOTH_OR_RESOURCE.
-                        expectPLACING_ROBBER = true;
-                        waitingForGameState = true;
-                        counter = 0;
-                        client.choosePlayer(game, SOCChoosePlayer.CHOICE_MOVE_ROBBER);
-                        pause(200);
-                    }
+            case SOCMessage.ROBBERYRESULT:
+                handleROBBERYRESULT((SOCRobberyResult) mes);
+                if (((SOCRobberyResult) mes).victimPN != ourPlayerNumber)
+                    isDataUpdateOnly = true;
+                break;
 
-                    else if ((game.getGameState() == SOCGame.PLACING_ROBBER) && ! waitingForGameState)
-                    {
-                        if ((! waitingForOurTurn) && ourTurn)
-                        {
-                            if (! ((expectROLL_OR_CARD || expectPLAY1) && (counter < 4000)))
-                            {
-                                moveRobber();
-                                    // call before updating expect/waitingFor fields,
-                                    // in case a 3rd-party bot wants to note/save current brain state
-                                counter = 0;
-
-                                if (moveRobberOnSeven)
-                                {
-                                    // robber moved because 7 rolled on dice
-                                    moveRobberOnSeven = false;
-                                    waitingForGameState = true;
-                                    expectPLAY1 = true;
-                                }
-                                else
-                                {
-                                    waitingForGameState = true;
-
-                                    if (oldGameState == SOCGame.ROLL_OR_CARD)
-                                    {
-                                        // robber moved from playing knight card before dice roll
-                                        expectROLL_OR_CARD = true;
-                                    }
-                                    else if (oldGameState == SOCGame.PLAY1)
-                                    {
-                                        // robber moved from playing knight card after dice roll
-                                        expectPLAY1 = true;
-                                    }
-                                }
-                            }
-                        }
+            case SOCMessage.BOTGAMEDATACHECK:
+                handleBOTGAMEDATACHECK
+                    (((SOCBotGameDataCheck) mes).getDataType(), ((SOCBotGameDataCheck) mes).getValues());
+                isDataUpdateOnly = true;
+                break;
 
-                        expectPLACING_ROBBER = false;
-                    }
+            case SOCMessage.DECLINEPLAYERREQUEST:
+                // increment failedBuildingAttempts, reset bot's planning/status flags
+                handleDECLINEPLAYERREQUEST((SOCDeclinePlayerRequest) mes);
+                break;
 
-                    if ((game.getGameState() == SOCGame.WAITING_FOR_DISCOVERY) && ! waitingForGameState)
-                    {
-                        expectWAITING_FOR_DISCOVERY = false;
+            }  // switch(mesType)
 
-                        if ((! waitingForOurTurn) && ourTurn)
-                        {
-                            if (! (expectPLAY1) && (counter < 4000))
-                            {
-                                waitingForGameState = true;
-                                expectPLAY1 = true;
-                                counter = 0;
-                                client.pickResources(game, decisionMaker.resourceChoices);
-                                pause(1500);
-                            }
-                        }
-                    }
+            if (isDataUpdateOnly)
+            {
+                return;  // <--- no further actions or planning needed for this message ---
+            }
+
+            debugInfo();
+
+            if ((game.getGameState() == SOCGame.ROLL_OR_CARD) && ! waitingForGameState)
+            {
+                rollOrPlayKnightOrExpectDice();
+
+                // On our turn, ask client to roll dice or play a knight;
+                // on other turns, update flags to expect dice result.
+                // Clears expectROLL_OR_CARD to false.
+                // Sets either expectDICERESULT, or expectPLACING_ROBBER and waitingForGameState.
+            }
+
+            if (ourTurn && (game.getGameState() == SOCGame.WAITING_FOR_ROBBER_OR_PIRATE) && ! waitingForGameState)
+            {
+                // TODO handle moving the pirate too
+                // For now, always decide to move the robber.
+                // Once we move the robber, will also need to deal with state WAITING_FOR_ROB_CLOTH_OR_RESOURCE.
+                expectPLACING_ROBBER = true;
+                waitingForGameState = true;
+                counter = 0;
+                client.choosePlayer(game, SOCChoosePlayer.CHOICE_MOVE_ROBBER);
+                pause(200);
+            }
 
-                    if ((game.getGameState() == SOCGame.WAITING_FOR_MONOPOLY) && ! waitingForGameState)
+            else if ((game.getGameState() == SOCGame.PLACING_ROBBER) && ! waitingForGameState)
+            {
+                if ((! waitingForOurTurn) && ourTurn)
+                {
+                    if (! ((expectROLL_OR_CARD || expectPLAY1) && (counter < 4000)))
                     {
-                        expectWAITING_FOR_MONOPOLY = false;
+                        moveRobber();
+                            // call before updating expect/waitingFor fields,
+                            // in case a 3rd-party bot wants to note/save current brain state
+                        counter = 0;
 
-                        if ((! waitingForOurTurn) && ourTurn)
+                        if (moveRobberOnSeven)
+                        {
+                            // robber moved because 7 rolled on dice
+                            moveRobberOnSeven = false;
+                            waitingForGameState = true;
+                            expectPLAY1 = true;
+                        }
+                        else
                         {
-                            if ((! expectPLAY1) && (counter < 4000))
+                            waitingForGameState = true;
+
+                            if (oldGameState == SOCGame.ROLL_OR_CARD)
+                            {
+                                // robber moved from playing knight card before dice roll
+                                expectROLL_OR_CARD = true;
+                            }
+                            else if (oldGameState == SOCGame.PLAY1)
                             {
-                                waitingForGameState = true;
+                                // robber moved from playing knight card after dice roll
                                 expectPLAY1 = true;
-                                counter = 0;
-                                client.pickResourceType(game, monopolyStrategy.getMonopolyChoice());
-                                pause(1500);
                             }
                         }
                     }
+                }
+
+                expectPLACING_ROBBER = false;
+            }
 
-                    if (ourTurn && (! waitingForOurTurn)
-                        && (game.getGameState() == SOCGame.PLACING_INV_ITEM) && (! waitingForGameState))
+            if ((game.getGameState() == SOCGame.WAITING_FOR_DISCOVERY) && ! waitingForGameState)
+            {
+                expectWAITING_FOR_DISCOVERY = false;
+
+                if ((! waitingForOurTurn) && ourTurn)
+                {
+                    if (! (expectPLAY1) && (counter < 4000))
                     {
-                        planAndPlaceInvItem();  // choose and send a placement location
+                        waitingForGameState = true;
+                        expectPLAY1 = true;
+                        counter = 0;
+                        client.pickResources(game, decisionMaker.resourceChoices);
+                        pause(1500);
                     }
+                }
+            }
+
+            if ((game.getGameState() == SOCGame.WAITING_FOR_MONOPOLY) && ! waitingForGameState)
+            {
+                expectWAITING_FOR_MONOPOLY = false;
 
-                    if (mesType == SOCMessage.BANKTRADE)
+                if ((! waitingForOurTurn) && ourTurn)
+                {
+                    if ((! expectPLAY1) && (counter < 4000))
                     {
-                        SOCDisplaylessPlayerClient.handleBANKTRADE((SOCBankTrade) mes, game);
-                            // use our thread to update game data
+                        waitingForGameState = true;
+                        expectPLAY1 = true;
+                        counter = 0;
+                        client.pickResourceType(game, monopolyStrategy.getMonopolyChoice());
+                        pause(1500);
+                    }
+                }
+            }
 
-                        if (waitingForTradeMsg)
-                        {
-                            final int pn = ((SOCBankTrade) mes).getPlayerNumber();
+            if (ourTurn && (! waitingForOurTurn)
+                && (game.getGameState() == SOCGame.PLACING_INV_ITEM) && (! waitingForGameState))
+            {
+                planAndPlaceInvItem();  // choose and send a placement location
+            }
 
-                            if (pn == ourPlayerNumber)
-                                //
-                                // This is the bank/port trade confirmation announcement we've been waiting for
-                                //
-                                clearTradingFlags(true, true, true);
-                        }
-                    }
+            if (mesType == SOCMessage.BANKTRADE)
+            {
+                SOCDisplaylessPlayerClient.handleBANKTRADE((SOCBankTrade) mes, game);
+                    // use our thread to update game data
 
-                    if (waitingForDevCard && (mesType == SOCMessage.SIMPLEACTION)
-                        && (((SOCSimpleAction) mes).getPlayerNumber() == ourPlayerNumber)
-                        && (((SOCSimpleAction) mes).getActionType() == SOCSimpleAction.DEVCARD_BOUGHT))
-                    {
+                if (waitingForTradeMsg)
+                {
+                    final int pn = ((SOCBankTrade) mes).getPlayerNumber();
+
+                    if (pn == ourPlayerNumber)
                         //
-                        // This is the "dev card bought" message we've been waiting for
+                        // This is the bank/port trade confirmation announcement we've been waiting for
                         //
-                        waitingForDevCard = false;
-                    }
+                        clearTradingFlags(true, true, true);
+                }
+            }
+
+            if (waitingForDevCard && (mesType == SOCMessage.SIMPLEACTION)
+                && (((SOCSimpleAction) mes).getPlayerNumber() == ourPlayerNumber)
+                && (((SOCSimpleAction) mes).getActionType() == SOCSimpleAction.DEVCARD_BOUGHT))
+            {
+                //
+                // This is the "dev card bought" message we've been waiting for
+                //
+                waitingForDevCard = false;
+            }
+
+            /**
+             * Planning: If our turn and not waiting for something,
+             * it's time to decide to build or take other normal actions.
+             */
+            if (((game.getGameState() == SOCGame.PLAY1) || (game.getGameState() == SOCGame.SPECIAL_BUILDING))
+                && ! (waitingForGameState || waitingForTradeMsg || waitingForTradeResponse || waitingForDevCard
+                      || expectPLACING_ROAD || expectPLACING_SETTLEMENT || expectPLACING_CITY
+                      || expectPLACING_SHIP || expectPLACING_FREE_ROAD1 || expectPLACING_FREE_ROAD2
+                      || expectPLACING_ROBBER || expectWAITING_FOR_DISCOVERY || expectWAITING_FOR_MONOPOLY
+                      || waitingForSC_PIRI_FortressRequest || (waitingForPickSpecialItem != null)))
+            {
+                expectPLAY1 = false;
+
+                // 6-player: check Special Building Phase
+                // during other players' turns.
+                if ((! ourTurn) && waitingForOurTurn && gameIs6Player
+                     && (! decidedIfSpecialBuild) && (! expectPLACING_ROBBER))
+                {
+                    decidedIfSpecialBuild = true;
 
                     /**
-                     * Planning: If our turn and not waiting for something,
-                     * it's time to decide to build or take other normal actions.
+                     * It's not our turn.  We're not doing anything else right now.
+                     * Gamestate has passed ROLL_OR_CARD, so we know what resources to expect.
+                     * Do we want to Special Build?  Check the same conditions as during our turn.
+                     * Make a plan if we don't have one,
+                     * and if we haven't given up building attempts this turn.
                      */
-                    if (((game.getGameState() == SOCGame.PLAY1) || (game.getGameState() == SOCGame.SPECIAL_BUILDING))
-                        && ! (waitingForGameState || waitingForTradeMsg || waitingForTradeResponse || waitingForDevCard
-                              || expectPLACING_ROAD || expectPLACING_SETTLEMENT || expectPLACING_CITY
-                              || expectPLACING_SHIP || expectPLACING_FREE_ROAD1 || expectPLACING_FREE_ROAD2
-                              || expectPLACING_ROBBER || expectWAITING_FOR_DISCOVERY || expectWAITING_FOR_MONOPOLY
-                              || waitingForSC_PIRI_FortressRequest || (waitingForPickSpecialItem != null)))
+
+                    if (buildingPlan.isEmpty()
+                        && (ourPlayerData.getResources().getTotal() > 1)
+                        && (failedBuildingAttempts < MAX_DENIED_BUILDING_PER_TURN)
+                        && ! (game.isGameOptionSet("PLP") && (game.getPlayerCount() < 5)))
                     {
-                        expectPLAY1 = false;
+                        planBuilding();
 
-                        // 6-player: check Special Building Phase
-                        // during other players' turns.
-                        if ((! ourTurn) && waitingForOurTurn && gameIs6Player
-                             && (! decidedIfSpecialBuild) && (! expectPLACING_ROBBER))
-                        {
-                            decidedIfSpecialBuild = true;
-
-                            /**
-                             * It's not our turn.  We're not doing anything else right now.
-                             * Gamestate has passed ROLL_OR_CARD, so we know what resources to expect.
-                             * Do we want to Special Build?  Check the same conditions as during our turn.
-                             * Make a plan if we don't have one,
-                             * and if we haven't given up building attempts this turn.
-                             */
+                            /*
+                             * planBuilding takes these actions, sets buildingPlan and other fields
+                             * (see its javadoc):
+                             *
+                            decisionMaker.planStuff(robotParameters.getStrategyType());
 
-                            if (buildingPlan.isEmpty()
-                                && (ourPlayerData.getResources().getTotal() > 1)
-                                && (failedBuildingAttempts < MAX_DENIED_BUILDING_PER_TURN)
-                                && ! (game.isGameOptionSet("PLP") && (game.getPlayerCount() < 5)))
+                            if (! buildingPlan.isEmpty())
                             {
-                                planBuilding();
-
-                                    /*
-                                     * planBuilding takes these actions, sets buildingPlan and other fields
-                                     * (see its javadoc):
-                                     *
-                                    decisionMaker.planStuff(robotParameters.getStrategyType());
-
-                                    if (! buildingPlan.isEmpty())
-                                    {
-                                        lastTarget = (SOCPossiblePiece) buildingPlan.peek();
-                                        negotiator.setTargetPiece(ourPlayerNumber, buildingPlan.peek());
-                                    }
-                                     */
-
-                                if ( ! buildingPlan.isEmpty())
-                                {
-                                    // If we have the resources right now, ask to Special Build
-
-                                    final SOCPossiblePiece targetPiece = buildingPlan.getFirstPiece();
-                                    final SOCResourceSet targetResources = targetPiece.getResourcesToBuild();
-                                        // may be null
-
-                                    if ((ourPlayerData.getResources().contains(targetResources)))
-                                    {
-                                        // Ask server for the Special Building Phase.
-                                        // (TODO) if FAST_STRATEGY: Maybe randomly don't ask, to lower opponent difficulty?
-                                        waitingForSpecialBuild = true;
-                                        client.buildRequest(game, -1);
-                                        pause(100);
-                                    }
-                                }
+                                lastTarget = (SOCPossiblePiece) buildingPlan.peek();
+                                negotiator.setTargetPiece(ourPlayerNumber, buildingPlan.peek());
                             }
-                        }
+                             */
 
-                        if ((! waitingForOurTurn) && ourTurn)
+                        if ( ! buildingPlan.isEmpty())
                         {
-                            if (! (expectROLL_OR_CARD && (counter < 4000)))
-                            {
-                                counter = 0;
+                            // If we have the resources right now, ask to Special Build
 
-                                //D.ebugPrintln("DOING PLAY1");
-                                if (D.ebugOn)
-                                {
-                                    client.sendText(game, "================================");
+                            final SOCPossiblePiece targetPiece = buildingPlan.getFirstPiece();
+                            final SOCResourceSet targetResources = targetPiece.getResourcesToBuild();
+                                // may be null
 
-                                    // for each player in game:
-                                    //    sendText and debug-prn game.getPlayer(i).getResources()
-                                    printResources();
-                                }
-
-                                planAndDoActionForPLAY1();
+                            if ((ourPlayerData.getResources().contains(targetResources)))
+                            {
+                                // Ask server for the Special Building Phase.
+                                // (TODO) if FAST_STRATEGY: Maybe randomly don't ask, to lower opponent difficulty?
+                                waitingForSpecialBuild = true;
+                                client.buildRequest(game, -1);
+                                pause(100);
                             }
                         }
                     }
+                }
 
-                    /**
-                     * Placement: Make various putPiece calls; server has told us it's OK to buy them.
-                     * Call client.putPiece.
-                     * Works when it's our turn and we have an expect flag set
-                     * (such as expectPLACING_SETTLEMENT, in these game states:
-                     * START1A - START2B or - START3B
-                     * PLACING_SETTLEMENT, PLACING_ROAD, PLACING_CITY
-                     * PLACING_FREE_ROAD1, PLACING_FREE_ROAD2
-                     */
-                    if (! waitingForGameState)
+                if ((! waitingForOurTurn) && ourTurn)
+                {
+                    if (! (expectROLL_OR_CARD && (counter < 4000)))
                     {
-                        placeIfExpectPlacing();
-                    }
-
-                    /**
-                     * End of various putPiece placement calls.
-                     */
-
-                    /*
-                       if (game.getGameState() == SOCGame.OVER) {
-                       client.leaveGame(game);
-                       alive = false;
-                       }
-                     */
+                        counter = 0;
 
-                    /**
-                     * Handle various message types here at bottom of loop.
-                     */
-                    switch (mesType)
-                    {
-                    case SOCMessage.PUTPIECE:
-                        /**
-                         * this is for player tracking
-                         *
-                         * For initial placement of our own pieces, also checks
-                         * and clears expectPUTPIECE_FROM_START1A,
-                         * and sets expectSTART1B, etc.  The final initial putpiece
-                         * clears expectPUTPIECE_FROM_START2B and sets expectROLL_OR_CARD.
-                         */
+                        //D.ebugPrintln("DOING PLAY1");
+                        if (D.ebugOn)
                         {
-                            final SOCPutPiece mpp = (SOCPutPiece) mes;
-                            final int pn = mpp.getPlayerNumber();
-                            final int coord = mpp.getCoordinates();
-                            final int pieceType = mpp.getPieceType();
-                            handlePUTPIECE_updateTrackers(pn, coord, pieceType);
+                            client.sendText(game, "================================");
+
+                            // for each player in game:
+                            //    sendText and debug-prn game.getPlayer(i).getResources()
+                            printResources();
                         }
 
-                        break;
+                        planAndDoActionForPLAY1();
+                    }
+                }
+            }
 
-                    case SOCMessage.MOVEPIECE:
-                        /**
-                         * this is for player tracking of moved ships
-                         */
-                        {
-                            final SOCMovePiece mpp = (SOCMovePiece) mes;
-                            final int pn = mpp.getPlayerNumber();
-                            final int coord = mpp.getToCoord();
-                            final int pieceType = mpp.getPieceType();
-                            // TODO what about getFromCoord()? Should mark that loc as unoccupied in trackers
-                            handlePUTPIECE_updateTrackers(pn, coord, pieceType);
-                        }
-                        break;
+            /**
+             * Placement: Make various putPiece calls; server has told us it's OK to buy them.
+             * Call client.putPiece.
+             * Works when it's our turn and we have an expect flag set
+             * (such as expectPLACING_SETTLEMENT, in these game states:
+             * START1A - START2B or - START3B
+             * PLACING_SETTLEMENT, PLACING_ROAD, PLACING_CITY
+             * PLACING_FREE_ROAD1, PLACING_FREE_ROAD2
+             */
+            if (! waitingForGameState)
+            {
+                placeIfExpectPlacing();
+            }
 
-                    case SOCMessage.DICERESULT:
-                        if (expectDICERESULT)
-                        {
-                            expectDICERESULT = false;
+            /**
+             * End of various putPiece placement calls.
+             */
 
-                            if (((SOCDiceResult) mes).getResult() == 7)
-                            {
-                                final boolean robWithoutRobber = game.isGameOptionSet(SOCGameOptionSet.K_SC_PIRI);
-                                    // In scenario SC_PIRI there's no robber to be moved. Instead,
-                                    // current player will be prompted soon to choose a player to rob on 7
-
-                                if (! robWithoutRobber)
-                                    moveRobberOnSeven = true;
-
-                                if (ourPlayerData.getResources().getTotal() > 7)
-                                {
-                                    expectDISCARD = true;
-                                } else if (ourTurn) {
-                                    if (! robWithoutRobber)
-                                        expectPLACING_ROBBER = true;
-                                    else
-                                        expectPLAY1 = true;
-                                }
-                            }
-                            else
-                            {
-                                expectPLAY1 = true;
-                            }
-                        }
-                        break;
+            /*
+               if (game.getGameState() == SOCGame.OVER) {
+               client.leaveGame(game);
+               alive = false;
+               }
+             */
 
-                    case SOCMessage.SIMPLEREQUEST:
-                        {
-                            // Some request types are handled at the top of the loop body;
-                            //   search for SOCMessage.SIMPLEREQUEST
-                            // Some are handled here
-                            // Most can be ignored by bots
+            /**
+             * Handle various message types here at bottom of loop.
+             */
+            switch (mesType)
+            {
+            case SOCMessage.PUTPIECE:
+                /**
+                 * this is for player tracking
+                 *
+                 * For initial placement of our own pieces, also checks
+                 * and clears expectPUTPIECE_FROM_START1A,
+                 * and sets expectSTART1B, etc.  The final initial putpiece
+                 * clears expectPUTPIECE_FROM_START2B and sets expectROLL_OR_CARD.
+                 */
+                {
+                    final SOCPutPiece mpp = (SOCPutPiece) mes;
+                    final int pn = mpp.getPlayerNumber();
+                    final int coord = mpp.getCoordinates();
+                    final int pieceType = mpp.getPieceType();
+                    handlePUTPIECE_updateTrackers(pn, coord, pieceType);
+                }
 
-                            final SOCSimpleRequest rqMes = (SOCSimpleRequest) mes;
-                            switch (rqMes.getRequestType())
-                            {
-                            case SOCSimpleRequest.PROMPT_PICK_RESOURCES:
-                                // gold hex
-                                counter = 0;
-                                // try to make a plan if we don't have one
-                                if (buildingPlan.isEmpty())
-                                    planBuilding();
-                                client.pickResources(game, decisionMaker.pickFreeResources(rqMes.getValue1()));
-                                waitingForGameState = true;
-                                if (game.isInitialPlacement())
-                                {
-                                    if (game.isGameOptionSet(SOCGameOptionSet.K_SC_3IP))
-                                        expectSTART3B = true;
-                                    else
-                                        expectSTART2B = true;
-                                } else {
-                                    expectPLAY1 = true;
-                                }
-                                break;
-                            }
-                        }
-                        break;
+                break;
+
+            case SOCMessage.MOVEPIECE:
+                /**
+                 * this is for player tracking of moved ships
+                 */
+                {
+                    final SOCMovePiece mpp = (SOCMovePiece) mes;
+                    final int pn = mpp.getPlayerNumber();
+                    final int coord = mpp.getToCoord();
+                    final int pieceType = mpp.getPieceType();
+                    // TODO what about getFromCoord()? Should mark that loc as unoccupied in trackers
+                    handlePUTPIECE_updateTrackers(pn, coord, pieceType);
+                }
+                break;
+
+            case SOCMessage.DICERESULT:
+                if (expectDICERESULT)
+                {
+                    expectDICERESULT = false;
 
-                    case SOCMessage.DISCARDREQUEST:
-                        expectDISCARD = false;
+                    if (((SOCDiceResult) mes).getResult() == 7)
+                    {
+                        final boolean robWithoutRobber = game.isGameOptionSet(SOCGameOptionSet.K_SC_PIRI);
+                            // In scenario SC_PIRI there's no robber to be moved. Instead,
+                            // current player will be prompted soon to choose a player to rob on 7
+
+                        if (! robWithoutRobber)
+                            moveRobberOnSeven = true;
 
-                        if ((game.getCurrentDice() == 7) && ourTurn)
+                        if (ourPlayerData.getResources().getTotal() > 7)
                         {
-                            if (! game.isGameOptionSet(SOCGameOptionSet.K_SC_PIRI))
+                            expectDISCARD = true;
+                        } else if (ourTurn) {
+                            if (! robWithoutRobber)
                                 expectPLACING_ROBBER = true;
                             else
                                 expectPLAY1 = true;
                         }
-                        else
-                        {
-                            expectPLAY1 = true;
-                        }
-
-                        counter = 0;
-                        discard(((SOCDiscardRequest) mes).getNumberOfDiscards());
+                    }
+                    else
+                    {
+                        expectPLAY1 = true;
+                    }
+                }
+                break;
 
-                        break;
+            case SOCMessage.SIMPLEREQUEST:
+                {
+                    // Some request types are handled at the top of the loop body;
+                    //   search for SOCMessage.SIMPLEREQUEST
+                    // Some are handled here
+                    // Most can be ignored by bots
 
-                    case SOCMessage.CHOOSEPLAYERREQUEST:
+                    final SOCSimpleRequest rqMes = (SOCSimpleRequest) mes;
+                    switch (rqMes.getRequestType())
+                    {
+                    case SOCSimpleRequest.PROMPT_PICK_RESOURCES:
+                        // gold hex
+                        counter = 0;
+                        // try to make a plan if we don't have one
+                        if (buildingPlan.isEmpty())
+                            planBuilding();
+                        client.pickResources(game, decisionMaker.pickFreeResources(rqMes.getValue1()));
+                        waitingForGameState = true;
+                        if (game.isInitialPlacement())
                         {
-                            final SOCChoosePlayerRequest msg = (SOCChoosePlayerRequest) mes;
-                            final int choicePl = robberStrategy.chooseRobberVictim
-                                (msg.getChoices(), msg.canChooseNone());
-                            counter = 0;
-                            client.choosePlayer(game, choicePl);
+                            if (game.isGameOptionSet(SOCGameOptionSet.K_SC_3IP))
+                                expectSTART3B = true;
+                            else
+                                expectSTART2B = true;
+                        } else {
+                            expectPLAY1 = true;
                         }
                         break;
+                    }
+                }
+                break;
 
-                    case SOCMessage.CHOOSEPLAYER:
-                        {
-                            final int vpn = ((SOCChoosePlayer) mes).getChoice();
-                            // Cloth is more valuable.
-                            // TODO decide when we should choose resources instead
-                            client.choosePlayer(game, -(vpn + 1));
-                        }
-                        break;
+            case SOCMessage.DISCARDREQUEST:
+                expectDISCARD = false;
 
-                    case SOCMessage.SETSPECIALITEM:
-                        if (waitingForPickSpecialItem != null)
-                        {
-                            final SOCSetSpecialItem siMes = (SOCSetSpecialItem) mes;
-                            if (siMes.typeKey.equals(waitingForPickSpecialItem))
-                            {
-                                // This could be the "pick special item" message we've been waiting for,
-                                // or a related SET/CLEAR message that precedes it
+                if ((game.getCurrentDice() == 7) && ourTurn)
+                {
+                    if (! game.isGameOptionSet(SOCGameOptionSet.K_SC_PIRI))
+                        expectPLACING_ROBBER = true;
+                    else
+                        expectPLAY1 = true;
+                }
+                else
+                {
+                    expectPLAY1 = true;
+                }
 
-                                switch (siMes.op)
-                                {
-                                case SOCSetSpecialItem.OP_PICK:
-                                    waitingForPickSpecialItem = null;
+                counter = 0;
+                discard(((SOCDiscardRequest) mes).getNumberOfDiscards());
 
-                                    // Now that this is received, can continue our turn.
-                                    // Any specific action needed? Not for SC_WOND.
-                                    break;
+                break;
 
-                                case SOCSetSpecialItem.OP_DECLINE:
-                                    waitingForPickSpecialItem = null;
+            case SOCMessage.CHOOSEPLAYERREQUEST:
+                {
+                    final SOCChoosePlayerRequest msg = (SOCChoosePlayerRequest) mes;
+                    final int choicePl = robberStrategy.chooseRobberVictim
+                        (msg.getChoices(), msg.canChooseNone());
+                    counter = 0;
+                    client.choosePlayer(game, choicePl);
+                }
+                break;
 
-                                    // TODO how to prevent asking again? (similar to whatWeFailedtoBuild)
-                                    break;
+            case SOCMessage.CHOOSEPLAYER:
+                {
+                    final int vpn = ((SOCChoosePlayer) mes).getChoice();
+                    // Cloth is more valuable.
+                    // TODO decide when we should choose resources instead
+                    client.choosePlayer(game, -(vpn + 1));
+                }
+                break;
 
-                                // ignore SET or CLEAR that precedes the PICK message
-                                }
-                            }
-                        }
-                        break;
+            case SOCMessage.SETSPECIALITEM:
+                if (waitingForPickSpecialItem != null)
+                {
+                    final SOCSetSpecialItem siMes = (SOCSetSpecialItem) mes;
+                    if (siMes.typeKey.equals(waitingForPickSpecialItem))
+                    {
+                        // This could be the "pick special item" message we've been waiting for,
+                        // or a related SET/CLEAR message that precedes it
 
-                    case SOCMessage.ROBOTDISMISS:
-                        if ((! expectDISCARD) && (! expectPLACING_ROBBER))
+                        switch (siMes.op)
                         {
-                            client.leaveGame(game, "dismiss msg", false, false);
-                            alive = false;
-                        }
-                        break;
+                        case SOCSetSpecialItem.OP_PICK:
+                            waitingForPickSpecialItem = null;
 
-                    case SOCMessage.TIMINGPING:
-                        // Once-per-second message from the pinger thread
-                        counter++;
-                        break;
+                            // Now that this is received, can continue our turn.
+                            // Any specific action needed? Not for SC_WOND.
+                            break;
 
-                    }  // switch (mesType) - for some types, at bottom of loop body
+                        case SOCSetSpecialItem.OP_DECLINE:
+                            waitingForPickSpecialItem = null;
 
-                    if (ourTurn && (counter > 15000))
-                    {
-                        // We've been waiting too long, must be a bug: Leave the game.
-                        // This is a fallback, server has SOCForceEndTurnThread which
-                        // should have already taken action.
-                        // Before v1.1.20, would leave game even during other (human) players' turns.
-                        client.leaveGame(game, "counter 15000", true, false);
-                        alive = false;
-                    }
+                            // TODO how to prevent asking again? (similar to whatWeFailedtoBuild)
+                            break;
 
-                    if ((failedBuildingAttempts > (2 * MAX_DENIED_BUILDING_PER_TURN))
-                        && game.isInitialPlacement())
-                    {
-                        // Apparently can't decide where we can initially place:
-                        // Leave the game.
-                        client.leaveGame(game, "failedBuildingAttempts at start", true, false);
-                        alive = false;
+                        // ignore SET or CLEAR that precedes the PICK message
+                        }
                     }
-
-                    /*
-                       if (D.ebugOn) {
-                       if (mes != null) {
-                       debugInfo();
-                       D.ebugPrintln("~~~~~~~~~~~~~~~~");
-                       }
-                       }
-                     */
-
-                    Thread.yield();
                 }
-                catch (Exception e)
-                {
-                    // Print exception; ignore errors due to game reset in another thread
-                    if (alive && ((game == null) || (game.getGameState() != SOCGame.RESET_OLD)))
-                    {
-                        ++turnExceptionCount;  // TODO end our turn if too many
+                break;
 
-                        String eMsg = (turnExceptionCount == 1)
-                            ? "*** Robot " + ourPlayerName + " caught an exception - " + e
-                            : "*** Robot " + ourPlayerName + " caught an exception (" + turnExceptionCount + " this turn) - " + e;
-                        D.ebugPrintlnINFO(eMsg);
-                        System.err.println(eMsg);
-                        e.printStackTrace();
-                    }
+            case SOCMessage.ROBOTDISMISS:
+                if ((! expectDISCARD) && (! expectPLACING_ROBBER))
+                {
+                    client.leaveGame(game, "dismiss msg", false, false);
+                    alive = false;
                 }
-            }
-        }
-        else
-        {
-            System.err.println("AGG! NO PINGER!");
-        }
+                break;
 
-        //D.ebugPrintln("STOPPING AND DEALLOCATING");
-        gameEventQ = null;
+            case SOCMessage.TIMINGPING:
+                // Once-per-second message from the pinger thread
+                counter++;
+                break;
 
-        client.addCleanKill();
-        client = null;
+            }  // switch (mesType) - for some types, at bottom of loop body
 
-        game = null;
-        ourPlayerData = null;
-        dummyCancelPlayerData = null;
-        whatWeWantToBuild = null;
-        whatWeFailedToBuild = null;
-        rejectedPlayInvItem = null;
-        ourPlayerTracker = null;
-        playerTrackers = null;
+            if (ourTurn && (counter > 15000))
+            {
+                // We've been waiting too long, must be a bug: Leave the game.
+                // This is a fallback, server has SOCForceEndTurnThread which
+                // should have already taken action.
+                // Before v1.1.20, would leave game even during other (human) players' turns.
+                client.leaveGame(game, "counter 15000", true, false);
+                alive = false;
+            }
 
-        pinger.stopPinger();
-        pinger = null;
+            if ((failedBuildingAttempts > (2 * MAX_DENIED_BUILDING_PER_TURN))
+                && game.isInitialPlacement())
+            {
+                // Apparently can't decide where we can initially place:
+                // Leave the game.
+                client.leaveGame(game, "failedBuildingAttempts at start", true, false);
+                alive = false;
+            }
+
+            /*
+               if (D.ebugOn) {
+               if (mes != null) {
+               debugInfo();
+               D.ebugPrintln("~~~~~~~~~~~~~~~~");
+               }
+               }
+             */
     }
 
     /**
@@ -4958,6 +5007,41 @@ public class SOCRobotBrain extends Thread
         resetBuildingPlan();
     }
 
+    /**
+     * Start running this brain's {@link #run()} loop in a new thread.
+     * If {@link #USE_VIRTUAL_THREADS} and the JRE supports them, uses a virtual thread;
+     * otherwise calls {@link #start()} to run as a platform thread like earlier versions.
+     *<P>
+     * Call this instead of {@link #start()}, so {@link #isBrainThreadAlive()} will work in either mode.
+     * @since 2.7.00
+     */
+    public void startBrainThread()
+    {
+        final Thread vt = (USE_VIRTUAL_THREADS)
+            ? VirtualThreads.newThread(this, "robotBrain-" + client.getNickname() + "-" + game.getName())
+            : null;
+        if (vt != null)
+        {
+            brainThread = vt;
+            vt.start();
+        } else {
+            brainThread = this;
+            start();
+        }
+    }
+
+    /**
+     * Is this brain's thread running? Same as {@link #isAlive()} unless {@link #startBrainThread()}
+     * started a virtual thread, which is checked instead.
+     * @return true if brain's thread has started and not yet finished
+     * @since 2.7.00
+     */
+    public boolean isBrainThreadAlive()
+    {
+        final Thread th = brainThread;
+        return (th != null) ? th.isAlive() : isAlive();
+    }
+
     /**
      * Kill this brain's thread: clears its "alive" flag, stops pinger,
      * puts a null message into the event queue.
@@ -4987,6 +5071,9 @@ public class SOCRobotBrain extends Thread
      * In a 6-player game, pause only 75% as long, to shorten the overall game delay,
      * except if {@link #waitingForTradeResponse}.
      * This is indicated by the {@link #pauseFaster} flag.
+     *<P>
+     * If running on a virtual thread (see {@link #USE_VIRTUAL_THREADS}), the pause is a timed
+     * reschedule: Its carrier thread is free to run other brains until the pause ends.
      *
      * @param msec  number of milliseconds to pause
      */
@@ -5473,6 +5560,17 @@ public class SOCRobotBrain extends Thread
         return bseFactory;
     }
 
+    /**
+     * Get this brain's cache of {@link SOCPlayerTracker#recalcWinGameETA()} results,
+     * for example to check its hit rate.
+     * @return This brain's cache; not null
+     * @since 2.7.00
+     */
+    public SOCWinGameETACache getWinGameETACache()
+    {
+        return winGameETACache;
+    }
+
     /**
      * this is for debugging
      */
@@ -1,7 +1,7 @@
 /**
  * Java Settlers - An online multiplayer version of the game Settlers of Catan
  * Copyright (C) 2003  Robert S. Thomas <thomas@infolab.northwestern.edu>
- * Portions of this file Copyright (C) 2007-2025 Jeremy D Monin <jeremy@nand.net>
+ * Portions of this file Copyright (C) 2007-2026 Jeremy D Monin <jeremy@nand.net>
  * Portions of this file Copyright (C) 2012 Paul Bilnoski <paul@bilnoski.net>
  *
  * This program is free software; you can redistribute it and/or
@@ -115,6 +115,38 @@ public class SOCRobotClient extends SOCDisplaylessPlayerClient
      */
     public static final String PROP_JSETTLERS_BOTS_TEST_QUIT_AT_JOINREQ = "jsettlers.bots.test.quit_at_joinreq";
 
+    /**
+     * Boolean system property {@code "jsettlers.bots.virtual_threads"} to run robot brains
+     * on virtual threads if the JRE supports them (JDK 21 or newer): Sets {@link SOCRobotBrain#USE_VIRTUAL_THREADS}.
+     * Value is {@code Y} or {@code N}. Ignored if not set.
+     * @since 2.7.00
+     */
+    public static final String PROP_JSETTLERS_BOTS_VIRTUAL__THREADS = "jsettlers.bots.virtual_threads";
+
+    /**
+     * Integer system property {@code "jsettlers.bots.planning_threads"} for the number of threads robots use
+     * to score possible pieces in parallel when planning what to build: Sets {@link SOCRobotDM#PARALLEL_SCORING_THREADS}.
+     * 0 to score them sequentially. Ignored if not set.
+     * @since 2.7.00
+     */
+    public static final String PROP_JSETTLERS_BOTS_PLANNING__THREADS = "jsettlers.bots.planning_threads";
+
+    /**
+     * Integer system property {@code "jsettlers.bots.planning_budget_ms"} for the wall-clock time budget
+     * of each robot planning decision, in milliseconds: Sets {@link SOCRobotDM#PLANNING_BUDGET_MS}.
+     * 0 for no limit. Ignored if not set.
+     * @since 2.7.00
+     */
+    public static final String PROP_JSETTLERS_BOTS_PLANNING__BUDGET__MS = "jsettlers.bots.planning_budget_ms";
+
+    /**
+     * Integer system property {@code "jsettlers.bots.trade_budget_ms"} for the wall-clock time budget
+     * of each robot trade offer or counteroffer decision, in milliseconds:
+     * Sets {@link SOCTradeSearchMemo#DECISION_BUDGET_MS}. 0 for no limit. Ignored if not set.
+     * @since 2.7.00
+     */
+    public static final String PROP_JSETTLERS_BOTS_TRADE__BUDGET__MS = "jsettlers.bots.trade_budget_ms";
+
     /**
      * For debugging feedback, hint text to remind user if debug recorder isn't on.
      * @since 2.0.00
@@ -319,6 +351,40 @@ public class SOCRobotClient extends SOCDisplaylessPlayerClient
                 testQuitAtJoinreqPercent = Integer.parseInt(val);
             }
             catch (NumberFormatException e) {}
+
+        val = System.getProperty(PROP_JSETTLERS_BOTS_VIRTUAL__THREADS);
+        if ((val != null) && (val.length() > 0))
+            SOCRobotBrain.USE_VIRTUAL_THREADS = (Character.toUpperCase(val.charAt(0)) == 'Y');
+
+        val = System.getProperty(PROP_JSETTLERS_BOTS_PLANNING__THREADS);
+        if (val != null)
+            try
+            {
+                final int n = Integer.parseInt(val.trim());
+                if (n >= 0)
+                    SOCRobotDM.PARALLEL_SCORING_THREADS = n;
+            }
+            catch (NumberFormatException e) {}
+
+        val = System.getProperty(PROP_JSETTLERS_BOTS_PLANNING__BUDGET__MS);
+        if (val != null)
+            try
+            {
+                final int n = Integer.parseInt(val.trim());
+                if (n >= 0)
+                    SOCRobotDM.PLANNING_BUDGET_MS = n;
+            }
+            catch (NumberFormatException e) {}
+
+        val = System.getProperty(PROP_JSETTLERS_BOTS_TRADE__BUDGET__MS);
+        if (val != null)
+            try
+            {
+                final int n = Integer.parseInt(val.trim());
+                if (n >= 0)
+                    SOCTradeSearchMemo.DECISION_BUDGET_MS = n;
+            }
+            catch (NumberFormatException e) {}
     }
 
     /**
@@ -456,6 +522,8 @@ public class SOCRobotClient extends SOCDisplaylessPlayerClient
      * <LI>{@link SOCFeatureSet#CLIENT_6_PLAYERS}
      * <LI>{@link SOCFeatureSet#CLIENT_SEA_BOARD}
      * <LI>{@link SOCFeatureSet#CLIENT_SCENARIO_VERSION} = {@link Version#versionNumber()}
+     * <LI>{@link SOCFeatureSet#CLIENT_BINARY_MESSAGES}
+     * <LI>{@link SOCFeatureSet#CLIENT_MESSAGE_BATCH}
      *</UL>
      * For robot debugging and testing, will also add a feature from
      * {@link SOCDisplaylessPlayerClient#PROP_JSETTLERS_DEBUG_CLIENT_GAMEOPT3P} if set,
@@ -473,6 +541,8 @@ public class SOCRobotClient extends SOCDisplaylessPlayerClient
         feats.add(SOCFeatureSet.CLIENT_6_PLAYERS);
         feats.add(SOCFeatureSet.CLIENT_SEA_BOARD);
         feats.add(SOCFeatureSet.CLIENT_SCENARIO_VERSION, Version.versionNumber());
+        feats.add(SOCFeatureSet.CLIENT_BINARY_MESSAGES);
+        feats.add(SOCFeatureSet.CLIENT_MESSAGE_BATCH);
 
         String gameopt3p = System.getProperty(SOCDisplaylessPlayerClient.PROP_JSETTLERS_DEBUG_CLIENT_GAMEOPT3P);
         if (gameopt3p != null)
@@ -528,6 +598,14 @@ public class SOCRobotClient extends SOCDisplaylessPlayerClient
         if (mes == null)
             return;  // Message syntax error or unknown type
 
+        if (mes instanceof SOCMessageBatch)
+        {
+            for (final SOCMessage m : ((SOCMessageBatch) mes).getMessages())
+                treat(m);
+
+            return;
+        }
+
         // Using debugRandomPause?
         if (debugRandomPause && (! robotBrains.isEmpty())
             && (mes instanceof SOCMessageForGame)
@@ -1336,7 +1414,7 @@ public class SOCRobotClient extends SOCDisplaylessPlayerClient
             }
 
             brain.setOurPlayerData();
-            brain.start();
+            brain.startBrainThread();
 
             /**
              * change our face to the robot face
@@ -1434,7 +1512,7 @@ public class SOCRobotClient extends SOCDisplaylessPlayerClient
              */
             SOCRobotBrain brain = robotBrains.get(mes.getGame());
 
-            if ((brain == null) || (! brain.isAlive()))
+            if ((brain == null) || (! brain.isBrainThreadAlive()))
             {
                 leaveGame(games.get(mes.getGame()), "brain not alive in handleROBOTDISMISS", true, false);
             }
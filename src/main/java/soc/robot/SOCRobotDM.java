@@ -1,7 +1,7 @@
 /**
  * Java Settlers - An online multiplayer version of the game Settlers of Catan
  * This file copyright (C) 2003-2004  Robert S. Thomas
- * Portions of this file copyright (C) 2009-2025 Jeremy D Monin <jeremy@nand.net>
+ * Portions of this file copyright (C) 2009-2026 Jeremy D Monin <jeremy@nand.net>
  * Portions of this file Copyright (C) 2012 Paul Bilnoski <paul@bilnoski.net>
  * Portions of this file Copyright (C) 2017 Ruud Poutsma <rtimon@gmail.com>
  * Portions of this file Copyright (C) 2017-2018 Strategic Conversation (STAC Project) https://www.irit.fr/STAC/
@@ -25,12 +25,19 @@ package soc.robot;
 
 import java.text.DecimalFormat;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Enumeration;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Stack;
 import java.util.Vector;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 import soc.disableDebug.D;
 import soc.game.SOCBoard;
@@ -111,6 +118,81 @@ public class SOCRobotDM
   public static final int SMART_STRATEGY = 0;
   public static final int FAST_STRATEGY = 1;
 
+  /**
+   * Number of threads to use for scoring possible pieces in parallel during {@link #SMART_STRATEGY} planning,
+   * or 0 to score them one at a time on the brain's thread (the default).
+   * Each thread uses its own copy of the game and player trackers; the scores and chosen plan
+   * are the same as when scoring one at a time. Robots in the same JVM share one pool of threads.
+   * Not used while the brain's {@link SOCRobotBrain#getDRecorder()} is on.
+   *<P>
+   * Set from server property or bot client system property {@link SOCRobotClient#PROP_JSETTLERS_BOTS_PLANNING__THREADS}.
+   * Should be set before any robots start planning.
+   * @see #scoreTrialsInParallel(boolean)
+   * @since 2.7.00
+   */
+  public static int PARALLEL_SCORING_THREADS = 0;
+
+  /**
+   * Minimum number of trial placements to score in parallel; with fewer,
+   * copying the game for each thread would take longer than it saves.
+   * @since 2.7.00
+   */
+  private static final int PARALLEL_SCORING_MIN_TRIALS = 4;
+
+  /**
+   * Thread pool for {@link #PARALLEL_SCORING_THREADS}, or null until first needed.
+   * @see #getParallelScoringPool()
+   * @since 2.7.00
+   */
+  private static ForkJoinPool parallelScoringPool;
+
+  /**
+   * Wall-clock time budget in milliseconds for each {@link #planStuff(int)} call, or 0 for no limit (the default).
+   * With a budget, {@link #SMART_STRATEGY} plans anytime-style: Every possible piece and the knight card
+   * first get a quick estimate from building speed ETAs ({@link #estimateWGETABonus(SOCPossiblePiece)}),
+   * then {@link #scoreTrialsByPriority(boolean)} refines them with trial placements, best estimates first,
+   * while time remains. When the budget runs out, those not yet refined are scored from their estimates.
+   * With enough time the plan is the same as without a budget.
+   * Not used while the brain's {@link SOCRobotBrain#getDRecorder()} is on.
+   *<P>
+   * Set from server property or bot client system property {@link SOCRobotClient#PROP_JSETTLERS_BOTS_PLANNING__BUDGET__MS}.
+   * See {@link #getPlanningBudgetCounts()} for how often the budget ran out.
+   * @see #isPlanningBudgetReached()
+   * @since 2.7.00
+   */
+  public static int PLANNING_BUDGET_MS = 0;
+
+  /**
+   * Number of {@link #planStuff(int)} calls with a {@link #PLANNING_BUDGET_MS},
+   * and how many of those ran out of time, by all robots in this JVM.
+   * @see #getPlanningBudgetCounts()
+   * @since 2.7.00
+   */
+  private static final AtomicLong budgetedPlanCount = new AtomicLong(), budgetReachedPlanCount = new AtomicLong();
+
+  /**
+   * Number of trial placements which {@link #PLANNING_BUDGET_MS} cut off, so their pieces were scored
+   * from estimates instead, by all robots in this JVM. Indexes are settlements, roads and ships, cities, knight cards.
+   * @see #getPlanningBudgetCounts()
+   * @since 2.7.00
+   */
+  private static final AtomicLongArray budgetEstimatedTrialCounts = new AtomicLongArray(4);
+
+  /**
+   * {@link System#nanoTime()} when the current {@link #planStuff(int)} call's {@link #PLANNING_BUDGET_MS}
+   * runs out, or 0 if no budget.
+   * @see #isPlanningBudgetReached()
+   * @since 2.7.00
+   */
+  private long planningDeadline;
+
+  /**
+   * True if the current {@link #planStuff(int)} call's {@link #PLANNING_BUDGET_MS} has run out.
+   * @see #isPlanningBudgetReached()
+   * @since 2.7.00
+   */
+  private boolean planningBudgetReached;
+
   /**
    * The brain using this DM for {@link #ourPlayerData} in {@link #game}, or {@code null}
    */
@@ -211,6 +293,21 @@ public class SOCRobotDM
   protected SOCPossibleCity favoriteCity;
   protected SOCPossibleCard possibleCard;
 
+  /**
+   * During {@link #smartGameStrategy(int[])}, WGETA bonuses already calculated by
+   * {@link #scoreTrialsInParallel(boolean)} for possible settlements, roads, and ships,
+   * or by {@link #scoreTrialsByPriority(boolean)} for those and possible cities, or null if none.
+   * @since 2.7.00
+   */
+  private IdentityHashMap<SOCPossiblePiece, Float> trialBonuses;
+
+  /**
+   * During {@link #smartGameStrategy(int[])}, the raw WGETA bonus for buying a knight card
+   * already calculated by {@link #scoreTrialsInParallel(boolean)} or {@link #scoreTrialsByPriority(boolean)}, or null.
+   * @since 2.7.00
+   */
+  private Float knightTrialBonus;
+
 
   /**
    * Constructor for setting DM fields from a robot brain.
@@ -330,6 +427,8 @@ public class SOCRobotDM
    *    <BR>&nbsp;
    * <LI> If {@code SMART_STRATEGY} and we have a Road Building card, plan and push 2 roads onto {@code buildingPlan}
    *</UL>
+   * If {@link #PLANNING_BUDGET_MS} is set, planning tries possible pieces best estimates first,
+   * and when that time runs out, scores the rest from their estimates.
    *
    * @param strategy  an integer that determines which strategy is used
    *    ({@link #SMART_STRATEGY} or {@link #FAST_STRATEGY})
@@ -339,6 +438,17 @@ public class SOCRobotDM
       //long startTime = System.currentTimeMillis();
     D.ebugPrintlnINFO("PLANSTUFF");
 
+    final int budgetMS = PLANNING_BUDGET_MS;
+    planningBudgetReached = false;
+    if ((budgetMS > 0) && ((brain == null) || ! brain.getDRecorder().isOn()))
+    {
+      planningDeadline = System.nanoTime() + budgetMS * 1000000L;
+      if (planningDeadline == 0)
+        planningDeadline = 1;  // 0 means no budget
+    } else {
+      planningDeadline = 0;
+    }
+
     SOCBuildingSpeedEstimate currentBSE = getEstimator(ourPlayerData.getNumbers());
     int currentBuildingETAs[] = currentBSE.getEstimatesFromNowFast
         (ourPlayerData.getResources(), ourPlayerData.getPortFlags());
@@ -421,7 +531,13 @@ public class SOCRobotDM
     switch (strategy)
     {
     case SMART_STRATEGY:
-      smartGameStrategy(currentBuildingETAs);
+      try
+      {
+        smartGameStrategy(currentBuildingETAs);
+      } finally {
+        trialBonuses = null;
+        knightTrialBonus = null;
+      }
       break;
 
     case FAST_STRATEGY:
@@ -442,6 +558,14 @@ public class SOCRobotDM
         planRoadBuildingTwoRoads();
     }
 
+    if (planningDeadline != 0)
+    {
+      budgetedPlanCount.incrementAndGet();
+      if (planningBudgetReached)
+        budgetReachedPlanCount.incrementAndGet();
+      planningDeadline = 0;
+    }
+
     //long endTime = System.currentTimeMillis();
     //System.out.println("plan time: "+(endTime-startTime));
   }
@@ -1079,24 +1203,28 @@ public class SOCRobotDM
         else
             tmpRS = new SOCRoad(ourPlayerData, favoriteRoad.getCoordinates(), null);
 
-        SOCPlayerTracker[] trackersCopy = SOCPlayerTracker.tryPutPiece(tmpRS, game, playerTrackers);
-        SOCPlayerTracker.updateWinGameETAs(trackersCopy);
-
-        SOCPlayerTracker ourPlayerTrackerCopy = trackersCopy[ourPlayerNumber];
+        final SOCPlayerTracker.UndoLog undoLog = SOCPlayerTracker.tryPutPieceInPlace(tmpRS, game, playerTrackers);
+        try
+        {
+          SOCPlayerTracker.updateWinGameETAs(playerTrackers);
 
-        final int ourCurrentWGETACopy = ourPlayerTrackerCopy.getWinGameETA();
-        D.ebugPrintlnINFO("ourCurrentWGETACopy = "+ourCurrentWGETACopy);
+          final int ourCurrentWGETACopy = ourPlayerTracker.getWinGameETA();
+          D.ebugPrintlnINFO("ourCurrentWGETACopy = "+ourCurrentWGETACopy);
 
-        int leadersCurrentWGETACopy = ourCurrentWGETACopy;
-        for (final SOCPlayerTracker tracker : trackersCopy)
-        {
-          if (tracker == null)
-            continue;
+          int leadersCurrentWGETACopy = ourCurrentWGETACopy;
+          for (final SOCPlayerTracker tracker : playerTrackers)
+          {
+            if (tracker == null)
+              continue;
 
-          int wgeta = tracker.getWinGameETA();
-          if (wgeta < leadersCurrentWGETACopy) {
-            leadersCurrentWGETACopy = wgeta;
+            int wgeta = tracker.getWinGameETA();
+            if (wgeta < leadersCurrentWGETACopy) {
+              leadersCurrentWGETACopy = wgeta;
+            }
           }
+          D.ebugPrintlnINFO("leadersCurrentWGETACopy = "+leadersCurrentWGETACopy);
+        } finally {
+          SOCPlayerTracker.undoTryPutPiece(tmpRS, game, undoLog);
         }
 
         for (SOCPossiblePiece newPos : favoriteRoad.getNewPossibilities())
@@ -1172,8 +1300,6 @@ public class SOCRobotDM
           }
         }
 
-        SOCPlayerTracker.undoTryPutPiece(tmpRS, game);
-
         if (! buildingPlan.isEmpty())
         {
           SOCPossiblePiece planPeek = buildingPlan.peek();
@@ -1442,9 +1568,14 @@ public class SOCRobotDM
    *<H4>Outline:</H4>
    *<UL>
    * <LI> Determine our Win Game ETA, leading player's WGETA
+   * <LI> Build {@link #goodRoads} from possibleRoads' roads & ships we can build now
+   * <LI> If {@link #PARALLEL_SCORING_THREADS} is set, call {@link #scoreTrialsInParallel(boolean)}
+   *      to calculate WGETA bonuses for the settlements, roads, and ships we can build now,
+   *      and for a knight card, before they're needed in the next steps.
+   *      Otherwise if {@link #PLANNING_BUDGET_MS} is set, call {@link #scoreTrialsByPriority(boolean)}
+   *      to calculate those and the cities' bonuses, best estimates first, while time remains
    * <LI> {@link #scorePossibleSettlements(int, int) scorePossibleSettlements(BuildETAs, leaderWGETA)}:
    *      For each settlement we can build now (no roads/ships needed), add its ETA bonus to its score
-   * <LI> Build {@link #goodRoads} from possibleRoads' roads & ships we can build now
    * <LI> Pick a {@link #favoriteSettlement} from threatened/good settlements, with the highest
    *      {@link SOCPossiblePiece#getScore() getScore()}  (ETA bonus)
    * <LI> Pick a {@link #favoriteRoad} from threatened/good, with highest getWinGameETABonusForRoad
@@ -1502,14 +1633,6 @@ public class SOCRobotDM
     }
     */
 
-    ///
-    /// score the possible settlements into threatenedSettlements and goodSettlements
-    ///
-    if (ourPlayerData.getNumPieces(SOCPlayingPiece.SETTLEMENT) > 0)
-    {
-      scorePossibleSettlements(buildingETAs[SOCBuildingSpeedEstimate.SETTLEMENT], leadersCurrentWGETA);
-    }
-
     ///
     /// collect roads that we can build now into goodRoads
     ///
@@ -1578,6 +1701,26 @@ public class SOCRobotDM
         }
     }
 
+    ///
+    /// if we have threads for it, calculate WGETA bonuses of the pieces and card scored below
+    ///
+    if ((PARALLEL_SCORING_THREADS > 0) && ((brain == null) || ! brain.getDRecorder().isOn()))
+    {
+      scoreTrialsInParallel(forSpecialBuildingPhase);
+    }
+    if ((trialBonuses == null) && (planningDeadline != 0))
+    {
+      scoreTrialsByPriority(forSpecialBuildingPhase);
+    }
+
+    ///
+    /// score the possible settlements into threatenedSettlements and goodSettlements
+    ///
+    if (ourPlayerData.getNumPieces(SOCPlayingPiece.SETTLEMENT) > 0)
+    {
+      scorePossibleSettlements(buildingETAs[SOCBuildingSpeedEstimate.SETTLEMENT], leadersCurrentWGETA);
+    }
+
     /*
     ///
     /// check everything
@@ -1763,13 +1906,7 @@ public class SOCRobotDM
     ///
     if (ourPlayerData.getNumPieces(SOCPlayingPiece.CITY) > 0)
     {
-      SOCPlayerTracker[] trackersCopy = SOCPlayerTracker.copyPlayerTrackers(playerTrackers);
-      SOCPlayerTracker ourTrackerCopy = trackersCopy[ourPlayerNumber];
-      int originalWGETAs[] = new int[game.maxPlayers];
-      int WGETAdiffs[] = new int[game.maxPlayers];
-      Vector<SOCPlayerTracker> leaders = new Vector<SOCPlayerTracker>();
-      int bestWGETA = 1000;
-      // int bonus = 0;
+      SOCPlayerTracker[] trackersCopy = null;  // created when first needed
 
       Iterator<SOCPossibleCity> posCitiesIter = ourPlayerTracker.getPossibleCities().values().iterator();
       while (posCitiesIter.hasNext())
@@ -1785,53 +1922,18 @@ public class SOCRobotDM
         //
         // see how building this piece impacts our winETA
         //
-        leaders.clear();
-        if ((brain != null) && (brain.getDRecorder().isOn())) {
-          brain.getDRecorder().suspend();
-        }
-        SOCPlayerTracker.updateWinGameETAs(trackersCopy);
-
-        // TODO refactor? This section is like a copy of calcWGETABonus, with something added in the middle
-
-        for (final SOCPlayerTracker trackerBefore : trackersCopy)
+        final Float trialBonus = (trialBonuses != null) ? trialBonuses.get(posCity) : null;
+        final float wgetaScore;
+        if (trialBonus != null)
         {
-          if (trackerBefore == null)
-            continue;
-
-          final int pn = trackerBefore.getPlayer().getPlayerNumber();
-          D.ebugPrintlnINFO("$$$ win game ETA for player " + pn + " = " + trackerBefore.getWinGameETA());
-          originalWGETAs[pn] = trackerBefore.getWinGameETA();
-          WGETAdiffs[pn] = trackerBefore.getWinGameETA();
-          if (trackerBefore.getWinGameETA() < bestWGETA)
-          {
-            bestWGETA = trackerBefore.getWinGameETA();
-            leaders.removeAllElements();
-            leaders.addElement(trackerBefore);
-          } else if (trackerBefore.getWinGameETA() == bestWGETA) {
-            leaders.addElement(trackerBefore);
-          }
-        }
-        D.ebugPrintlnINFO("^^^^ bestWGETA = "+bestWGETA);
-        if ((brain != null) && (brain.getDRecorder().isOn())) {
-          brain.getDRecorder().resume();
+          wgetaScore = trialBonus;
+        } else if (isPlanningBudgetReached()) {
+          wgetaScore = estimateSkippedTrialBonus(posCity);
+        } else {
+          if (trackersCopy == null)
+            trackersCopy = SOCPlayerTracker.copyPlayerTrackers(playerTrackers);
+          wgetaScore = trialCityWGETABonus(posCity, trackersCopy);
         }
-        //
-        // place the city
-        //
-        SOCCity tmpCity = new SOCCity(ourPlayerData, posCity.getCoordinates(), null);
-        game.putTempPiece(tmpCity);
-
-        ourTrackerCopy.addOurNewCity(tmpCity);
-
-        SOCPlayerTracker.updateWinGameETAs(trackersCopy);
-
-        float wgetaScore = calcWGETABonusAux(originalWGETAs, trackersCopy, leaders);
-
-        //
-        // remove the city
-        //
-        ourTrackerCopy.undoAddOurNewCity(posCity);
-        game.undoPutTempPiece(tmpCity);
 
         D.ebugPrintlnINFO("*** ETA for city = "+buildingETAs[SOCBuildingSpeedEstimate.CITY]);
         if ((brain != null) && (brain.getDRecorder().isOn())) {
@@ -2439,6 +2541,289 @@ public class SOCRobotDM
     return true;
   }
 
+  /**
+   * Has the current {@link #planStuff(int)} call used up its {@link #PLANNING_BUDGET_MS}?
+   * Checked before each trial placement while scoring; once true, stays true until the next {@code planStuff}.
+   * @return  True if there's a planning budget and it has run out; false if not, or if no budget
+   * @since 2.7.00
+   */
+  protected boolean isPlanningBudgetReached()
+  {
+    if (planningBudgetReached)
+      return true;
+    if ((planningDeadline == 0) || (System.nanoTime() - planningDeadline < 0))
+      return false;
+
+    D.ebugPrintlnINFO("*** planning budget reached, will skip remaining trial placements");
+    planningBudgetReached = true;
+    return true;
+  }
+
+  /**
+   * Get the number of {@link #planStuff(int)} calls by all robots in this JVM
+   * which had a {@link #PLANNING_BUDGET_MS}, how many of those ran out of time
+   * before trying all possible pieces, and how many trials the budget cut off
+   * so that their pieces were scored from estimates.
+   * @return  Array with number of budgeted plans, number which reached their budget,
+   *     then the number of trials cut off for settlements, roads and ships, cities, and knight cards
+   * @since 2.7.00
+   */
+  public static long[] getPlanningBudgetCounts()
+  {
+    return new long[]
+      {
+        budgetedPlanCount.get(), budgetReachedPlanCount.get(),
+        budgetEstimatedTrialCounts.get(0), budgetEstimatedTrialCounts.get(1),
+        budgetEstimatedTrialCounts.get(2), budgetEstimatedTrialCounts.get(3)
+      };
+  }
+
+  /**
+   * For {@link #SMART_STRATEGY} with {@link #PARALLEL_SCORING_THREADS}, calculate the WGETA bonuses
+   * which {@link #smartGameStrategy(int[])} will need, using a pool of threads.
+   * Each thread has its own copy of the game's board and players from {@link SOCGame#copyForTrialPieces()}
+   * and of the player trackers, and calculates a share of the bonuses
+   * the same way as the sequential calculation does in the real game and trackers.
+   * Results are collected into {@link #trialBonuses} and {@link #knightTrialBonus},
+   * where the sequential code finds them instead of calculating; so the scores, their order,
+   * and the chosen plan are the same as with sequential scoring.
+   *<P>
+   * Calculates bonuses for:
+   *<UL>
+   * <LI> Each possible settlement we can build now, for {@link #scorePossibleSettlements(int, int)}
+   * <LI> Each road or ship in {@link #threatenedRoads} and {@link #goodRoads},
+   *      for {@link #getWinGameETABonusForRoad(SOCPossibleRoad, int, int, SOCPlayerTracker[])}
+   * <LI> A knight card, for {@link #getDevCardScore(int, int)}
+   *</UL>
+   * Possible cities are still scored sequentially: That loop reuses one copy of the trackers
+   * for all cities, so its scores may depend on their order.
+   *<P>
+   * Does nothing if there are fewer than {@link #PARALLEL_SCORING_MIN_TRIALS} to calculate.
+   * If any thread throws an exception, clears the results so that all are calculated sequentially.
+   * If the {@link #PLANNING_BUDGET_MS} runs out, threads skip their remaining trials;
+   * the sequential code will then score those from their estimates.
+   *
+   * @param forSpecialBuildingPhase  True if planning for the Special Building Phase,
+   *     so a dev card can't be bought
+   * @since 2.7.00
+   */
+  protected void scoreTrialsInParallel(final boolean forSpecialBuildingPhase)
+  {
+    trialBonuses = null;
+    knightTrialBonus = null;
+
+    final List<SOCPossiblePiece> trials = new ArrayList<SOCPossiblePiece>();
+    if (ourPlayerData.getNumPieces(SOCPlayingPiece.SETTLEMENT) > 0)
+      for (final SOCPossibleSettlement posSet : ourPlayerTracker.getPossibleSettlements().values())
+        if (posSet.getNecessaryRoads().isEmpty())
+          trials.add(posSet);
+    if (ourPlayerData.getNumPieces(SOCPlayingPiece.ROAD) > 0)
+    {
+      trials.addAll(threatenedRoads);
+      trials.addAll(goodRoads);
+    }
+    final boolean withKnight = (game.getNumDevCards() > 0) && ! forSpecialBuildingPhase;
+    if (withKnight)
+      trials.add(null);  // placeholder for knight card
+
+    final int numTrials = trials.size();
+    if (numTrials < PARALLEL_SCORING_MIN_TRIALS)
+      return;
+
+    final int numThreads = Math.min(PARALLEL_SCORING_THREADS, numTrials);
+    final float[] bonuses = new float[numTrials];
+    final int[] originalWGETAs = getWinGameETAs(playerTrackers);
+    final long deadline = planningDeadline;
+
+    final List<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>(numThreads);
+    for (int t = 0; t < numThreads; ++t)
+    {
+      final int firstTrial = t;
+      tasks.add(ForkJoinTask.adapt(new Runnable()
+      {
+        public void run()
+        {
+          final SOCGame gaCopy = game.copyForTrialPieces();
+          final SOCPlayerTracker[] trackersCopy = SOCPlayerTracker.copyPlayerTrackers(playerTrackers, gaCopy);
+          final SOCPlayer ourPlayerCopy = gaCopy.getPlayer(ourPlayerNumber);
+
+          for (int i = firstTrial; i < numTrials; i += numThreads)
+          {
+            if ((deadline != 0) && (System.nanoTime() - deadline >= 0))
+            {
+              for (; i < numTrials; i += numThreads)
+                bonuses[i] = Float.NaN;  // not scored
+              break;
+            }
+
+            final SOCPossiblePiece pp = trials.get(i);
+            if (pp == null)
+              bonuses[i] = trialKnightWGETABonusUndone(ourPlayerCopy, trackersCopy, originalWGETAs);
+            else if (pp instanceof SOCPossibleSettlement)
+              bonuses[i] = trialSettlementWGETABonus
+                ((SOCPossibleSettlement) pp, ourPlayerCopy, trackersCopy, originalWGETAs);
+            else
+              bonuses[i] = trialRoadWGETABonus((SOCPossibleRoad) pp, ourPlayerCopy, trackersCopy, originalWGETAs);
+          }
+        }
+      }));
+    }
+
+    try
+    {
+      final ForkJoinPool pool = getParallelScoringPool();
+      for (final ForkJoinTask<?> task : tasks)
+        pool.execute(task);
+      for (final ForkJoinTask<?> task : tasks)
+        task.join();
+    } catch (RuntimeException e) {
+      System.err.println("SOCRobotDM: Parallel scoring failed, will score sequentially: " + e);
+      for (final ForkJoinTask<?> task : tasks)
+        if (! task.isDone())
+          task.quietlyJoin();
+
+      return;
+    }
+
+    final IdentityHashMap<SOCPossiblePiece, Float> results = new IdentityHashMap<SOCPossiblePiece, Float>();
+    for (int i = 0; i < numTrials; ++i)
+    {
+      if (Float.isNaN(bonuses[i]))
+        continue;
+
+      final SOCPossiblePiece pp = trials.get(i);
+      if (pp != null)
+        results.put(pp, bonuses[i]);
+      else
+        knightTrialBonus = bonuses[i];
+    }
+    trialBonuses = results;
+  }
+
+  /**
+   * Get the thread pool for {@link #PARALLEL_SCORING_THREADS}, creating it if needed.
+   * The pool's threads are daemons, and are shared by all robots in this JVM.
+   * @return  the pool; not null
+   * @since 2.7.00
+   */
+  private static synchronized ForkJoinPool getParallelScoringPool()
+  {
+    if (parallelScoringPool == null)
+      parallelScoringPool = new ForkJoinPool(Math.max(1, PARALLEL_SCORING_THREADS));
+
+    return parallelScoringPool;
+  }
+
+  /**
+   * For {@link #SMART_STRATEGY} with a {@link #PLANNING_BUDGET_MS}, calculate the WGETA bonuses
+   * which {@link #smartGameStrategy(int[])} will need, best candidates first, until the budget runs out.
+   *<P>
+   * First gives each candidate a quick estimate from {@link #estimateWGETABonus(SOCPossiblePiece)},
+   * and sorts each type's candidates by that estimate: Settlements we can build now,
+   * roads and ships in {@link #threatenedRoads} and {@link #goodRoads}, possible cities, and a knight card.
+   * Then calculates their bonuses with trial placements, taking the next best candidate of each type in turn,
+   * so that every type's best candidates are tried before any type's lesser ones.
+   * Results are collected into {@link #trialBonuses} and {@link #knightTrialBonus},
+   * where the scoring code finds them instead of calculating; when the budget has run out,
+   * that code scores the remaining candidates from their estimates.
+   *<P>
+   * Settlement, road, ship, and knight trials are done in place in our player trackers and undone,
+   * like the sequential scoring code; city trials use a copy of the trackers like that code does.
+   * So with enough time, the scores and chosen plan are the same as without a budget.
+   *
+   * @param forSpecialBuildingPhase  True if planning for the Special Building Phase,
+   *     so a dev card can't be bought
+   * @since 2.7.00
+   */
+  protected void scoreTrialsByPriority(final boolean forSpecialBuildingPhase)
+  {
+    trialBonuses = new IdentityHashMap<SOCPossiblePiece, Float>();
+    knightTrialBonus = null;
+
+    final List<List<SOCPossiblePiece>> candidatesByType = new ArrayList<List<SOCPossiblePiece>>();
+    final IdentityHashMap<SOCPossiblePiece, Float> estimates = new IdentityHashMap<SOCPossiblePiece, Float>();
+
+    if (ourPlayerData.getNumPieces(SOCPlayingPiece.SETTLEMENT) > 0)
+    {
+      final List<SOCPossiblePiece> sets = new ArrayList<SOCPossiblePiece>();
+      for (final SOCPossibleSettlement posSet : ourPlayerTracker.getPossibleSettlements().values())
+        if (posSet.getNecessaryRoads().isEmpty())
+          sets.add(posSet);
+      candidatesByType.add(sets);
+    }
+    if (ourPlayerData.getNumPieces(SOCPlayingPiece.ROAD) > 0)
+    {
+      final List<SOCPossiblePiece> roads = new ArrayList<SOCPossiblePiece>(threatenedRoads);
+      roads.addAll(goodRoads);
+      candidatesByType.add(roads);
+    }
+    if (ourPlayerData.getNumPieces(SOCPlayingPiece.CITY) > 0)
+      candidatesByType.add(new ArrayList<SOCPossiblePiece>(ourPlayerTracker.getPossibleCities().values()));
+    if ((game.getNumDevCards() > 0) && ! forSpecialBuildingPhase)
+      candidatesByType.add(Collections.<SOCPossiblePiece>singletonList(null));  // placeholder for knight card
+
+    for (final List<SOCPossiblePiece> candidates : candidatesByType)
+    {
+      if ((candidates.size() < 2) || (candidates.get(0) == null))
+        continue;
+
+      for (final SOCPossiblePiece pp : candidates)
+      {
+        float est = estimateWGETABonus(pp);
+        if ((pp instanceof SOCPossibleRoad) && ! pp.getThreats().isEmpty())
+          est *= threatMultiplier;
+        estimates.put(pp, est);
+      }
+      Collections.sort(candidates, new Comparator<SOCPossiblePiece>()
+      {
+        public int compare(final SOCPossiblePiece a, final SOCPossiblePiece b)
+        {
+          return Float.compare(estimates.get(b), estimates.get(a));  // highest first
+        }
+      });
+    }
+
+    final int[] originalWGETAs = getWinGameETAs(playerTrackers);
+    SOCPlayerTracker[] trackersCopy = null;  // for city trials; created when first needed
+    for (int i = 0; ; ++i)
+    {
+      boolean anyLeft = false;
+      for (final List<SOCPossiblePiece> candidates : candidatesByType)
+      {
+        if (i >= candidates.size())
+          continue;
+
+        anyLeft = true;
+        if (isPlanningBudgetReached())
+          return;
+
+        final SOCPossiblePiece pp = candidates.get(i);
+        if (pp == null)
+        {
+          knightTrialBonus = trialKnightWGETABonusUndone(ourPlayerData, playerTrackers, originalWGETAs);
+        }
+        else if (pp instanceof SOCPossibleSettlement)
+        {
+          trialBonuses.put(pp, trialSettlementWGETABonus
+            ((SOCPossibleSettlement) pp, ourPlayerData, playerTrackers, originalWGETAs));
+        }
+        else if (pp instanceof SOCPossibleCity)
+        {
+          if (trackersCopy == null)
+            trackersCopy = SOCPlayerTracker.copyPlayerTrackers(playerTrackers);
+          trialBonuses.put(pp, trialCityWGETABonus((SOCPossibleCity) pp, trackersCopy));
+        }
+        else
+        {
+          trialBonuses.put(pp, trialRoadWGETABonus((SOCPossibleRoad) pp, ourPlayerData, playerTrackers, originalWGETAs));
+        }
+      }
+
+      if (! anyLeft)
+        break;
+    }
+  }
+
   /**
    * Score possible settlements for for the smart game strategy ({@link #SMART_STRATEGY}),
    * from {@link #ourPlayerTracker}{@link SOCPlayerTracker#getPossibleSettlements() .getPossibleSettlements()}
@@ -2464,10 +2849,11 @@ public class SOCRobotDM
     }
     */
 
-    Iterator<SOCPossibleSettlement> posSetsIter = ourPlayerTracker.getPossibleSettlements().values().iterator();
-    while (posSetsIter.hasNext())
+    // Iterate over a copy, since the trial placements below temporarily change ourPlayerTracker's map
+    final List<SOCPossibleSettlement> posSets
+        = new ArrayList<SOCPossibleSettlement>(ourPlayerTracker.getPossibleSettlements().values());
+    for (final SOCPossibleSettlement posSet : posSets)
     {
-      SOCPossibleSettlement posSet = posSetsIter.next();
       D.ebugPrintlnINFO("*** scoring possible settlement at "+Integer.toHexString(posSet.getCoordinates()));
       if (! threatenedSettlements.contains(posSet))
       {
@@ -2482,22 +2868,27 @@ public class SOCRobotDM
       if (posSet.getNecessaryRoads().isEmpty())
       {
         D.ebugPrintlnINFO("*** no roads needed");
+        final Float trialBonus = (trialBonuses != null) ? trialBonuses.get(posSet) : null;
+
         //
         //  no roads needed
         //
         //
         //  get wgeta score
         //
-        SOCBoard board = game.getBoard();
-        SOCSettlement tmpSet = new SOCSettlement(ourPlayerData, posSet.getCoordinates(), board);
         if ((brain != null) && (brain.getDRecorder().isOn())) {
           brain.getDRecorder().startRecording("SETTLEMENT"+posSet.getCoordinates());
-          brain.getDRecorder().record("Estimate value of settlement at "+board.nodeCoordToString(posSet.getCoordinates()));
+          brain.getDRecorder().record("Estimate value of settlement at "
+              + game.getBoard().nodeCoordToString(posSet.getCoordinates()));
         }
 
-        SOCPlayerTracker[] trackersCopy = SOCPlayerTracker.tryPutPiece(tmpSet, game, playerTrackers);
-        SOCPlayerTracker.updateWinGameETAs(trackersCopy);
-        float wgetaScore = calcWGETABonus(playerTrackers, trackersCopy);
+        final float wgetaScore;
+        if (trialBonus != null)
+          wgetaScore = trialBonus;
+        else if (isPlanningBudgetReached())
+          wgetaScore = estimateSkippedTrialBonus(posSet);
+        else
+          wgetaScore = trialSettlementWGETABonus(posSet, ourPlayerData, playerTrackers, getWinGameETAs(playerTrackers));
         D.ebugPrintlnINFO("***  wgetaScore = "+wgetaScore);
 
         D.ebugPrintlnINFO("*** ETA for settlement = "+settlementETA);
@@ -2516,8 +2907,6 @@ public class SOCRobotDM
           brain.getDRecorder().record("Total settlement score = "+df1.format(etaBonus));
           brain.getDRecorder().stopRecording();
         }
-
-        SOCPlayerTracker.undoTryPutPiece(tmpSet, game);
       }
     }
   }
@@ -2530,10 +2919,7 @@ public class SOCRobotDM
    */
   protected float getWinGameETABonus(final SOCPossiblePiece posPiece)
   {
-    SOCPlayerTracker[] trackersCopy = null;
-    SOCSettlement tmpSet = null;
-    SOCCity tmpCity = null;
-    SOCRoutePiece tmpRS = null;  // road or ship
+    SOCPlayingPiece tmpPiece = null;
     float bonus = 0;
 
     D.ebugPrintlnINFO("--- before [start] ---");
@@ -2544,62 +2930,37 @@ public class SOCRobotDM
     switch (posPiece.getType())
     {
     case SOCPossiblePiece.SETTLEMENT:
-      tmpSet = new SOCSettlement(ourPlayerData, posPiece.getCoordinates(), null);
-      trackersCopy = SOCPlayerTracker.tryPutPiece(tmpSet, game, playerTrackers);
+      tmpPiece = new SOCSettlement(ourPlayerData, posPiece.getCoordinates(), null);
       break;
 
     case SOCPossiblePiece.CITY:
-      trackersCopy = SOCPlayerTracker.copyPlayerTrackers(playerTrackers);
-      tmpCity = new SOCCity(ourPlayerData, posPiece.getCoordinates(), null);
-      game.putTempPiece(tmpCity);
-      SOCPlayerTracker trackerCopy = trackersCopy[ourPlayerNumber];
-      if (trackerCopy != null) {
-        trackerCopy.addOurNewCity(tmpCity);
-      }
+      tmpPiece = new SOCCity(ourPlayerData, posPiece.getCoordinates(), null);
       break;
 
     case SOCPossiblePiece.ROAD:
-      tmpRS = new SOCRoad(ourPlayerData, posPiece.getCoordinates(), null);
-      trackersCopy = SOCPlayerTracker.tryPutPiece(tmpRS, game, playerTrackers);
+      tmpPiece = new SOCRoad(ourPlayerData, posPiece.getCoordinates(), null);
       break;
 
     case SOCPossiblePiece.SHIP:
-      tmpRS = new SOCShip(ourPlayerData, posPiece.getCoordinates(), null);
-      trackersCopy = SOCPlayerTracker.tryPutPiece(tmpRS, game, playerTrackers);
+      tmpPiece = new SOCShip(ourPlayerData, posPiece.getCoordinates(), null);
       break;
     }
 
-    //trackersCopyIter = trackersCopy.iterator();
-    //while (trackersCopyIter.hasNext()) {
-    //        SOCPlayerTracker trackerCopy = (SOCPlayerTracker)trackersCopyIter.next();
-    //        trackerCopy.updateThreats(trackersCopy);
-    //}
-
-    D.ebugPrintlnINFO("--- after [start] ---");
-    //SOCPlayerTracker.playerTrackersDebug(trackersCopy);
-    SOCPlayerTracker.updateWinGameETAs(trackersCopy);
-
-    float WGETABonus = calcWGETABonus(playerTrackers, trackersCopy);
-    D.ebugPrintlnINFO("$$$ win game ETA bonus : +"+WGETABonus);
-    bonus = WGETABonus;
-
-    D.ebugPrintlnINFO("our player numbers = "+ourPlayerData.getNumbers());
-    D.ebugPrintlnINFO("--- after [end] ---");
-
-    switch (posPiece.getType())
+    final int[] originalWGETAs = getWinGameETAs(playerTrackers);
+    final SOCPlayerTracker.UndoLog undoLog = SOCPlayerTracker.tryPutPieceInPlace(tmpPiece, game, playerTrackers);
+    try
     {
-    case SOCPossiblePiece.SETTLEMENT:
-      SOCPlayerTracker.undoTryPutPiece(tmpSet, game);
-      break;
+      D.ebugPrintlnINFO("--- after [start] ---");
+      SOCPlayerTracker.updateWinGameETAs(playerTrackers);
 
-    case SOCPossiblePiece.CITY:
-      game.undoPutTempPiece(tmpCity);
-      break;
+      float WGETABonus = calcWGETABonus(originalWGETAs, playerTrackers);
+      D.ebugPrintlnINFO("$$$ win game ETA bonus : +"+WGETABonus);
+      bonus = WGETABonus;
 
-    case SOCPossiblePiece.SHIP:  // fall through to ROAD
-    case SOCPossiblePiece.ROAD:
-      SOCPlayerTracker.undoTryPutPiece(tmpRS, game);
-      break;
+      D.ebugPrintlnINFO("our player numbers = "+ourPlayerData.getNumbers());
+      D.ebugPrintlnINFO("--- after [end] ---");
+    } finally {
+      SOCPlayerTracker.undoTryPutPiece(tmpPiece, game, undoLog);
     }
 
     D.ebugPrintlnINFO("our player numbers = "+ourPlayerData.getNumbers());
@@ -2614,20 +2975,23 @@ public class SOCRobotDM
    * based on the change in win game ETA for this one road or ship
    * (possible settlements are 1 road closer, longest road bonus, etc).
    *<UL>
-   * <LI> Calls {@link SOCPlayerTracker#tryPutPiece(SOCPlayingPiece, SOCGame, SOCPlayerTracker[])}
-   *      which makes a copy of the player trackers and puts the piece there.
+   * <LI> Calls {@link SOCPlayerTracker#tryPutPieceInPlace(SOCPlayingPiece, SOCGame, SOCPlayerTracker[])}
+   *      which temporarily puts the piece into the game and player trackers.
    *      This also updates our player's VP total, including any special VP from placement.
-   * <LI> Calls {@link SOCPlayerTracker#updateWinGameETAs(SOCPlayerTracker[])} on that copy
-   * <LI> Calls {@link #calcWGETABonus(SOCPlayerTracker[], SOCPlayerTracker[])} to compare WGETA before and after placement
+   * <LI> Calls {@link SOCPlayerTracker#updateWinGameETAs(SOCPlayerTracker[])} on those trackers
+   * <LI> Calls {@link #calcWGETABonus(int[], SOCPlayerTracker[])} to compare WGETA before and after placement
+   * <LI> Cleans up with {@link SOCPlayerTracker#undoTryPutPiece(SOCPlayingPiece, SOCGame, SOCPlayerTracker.UndoLog)}
    * <LI> Calls {@link #getETABonus(int, int, float)} to weigh that bonus
    * <LI> Adds that to {@code posRoad}'s {@link SOCPossiblePiece#getScore()}
-   * <LI> Cleans up with {@link SOCPlayerTracker#undoTryPutPiece(SOCPlayingPiece, SOCGame)}
    *</UL>
+   * If {@link #PLANNING_BUDGET_MS} has run out and the WGETA bonus wasn't already calculated,
+   * uses its estimate from {@link #estimateWGETABonus(SOCPossiblePiece)} instead of a trial placement.
    *
    * @param posRoad  the possible piece that we're scoring
    * @param roadETA  the ETA for a road or ship, from building speed estimates
    * @param leadersCurrentWGETA  the leaders current WGETA
    * @param plTrackers  the player trackers (for figuring out road building plan and bonus/ETA)
+   * @return  the ETA bonus added to {@code posRoad}'s score
    */
   protected float getWinGameETABonusForRoad
       (final SOCPossibleRoad posRoad, final int roadETA, final int leadersCurrentWGETA,
@@ -2637,59 +3001,191 @@ public class SOCRobotDM
     int ourCurrentWGETA = ourPlayerTracker.getWinGameETA();
     D.ebugPrintlnINFO("ourCurrentWGETA = "+ourCurrentWGETA);
 
-    SOCPlayerTracker[] trackersCopy = null;
-    SOCRoutePiece tmpRS = null;
+    final Float trialBonus = (trialBonuses != null) ? trialBonuses.get(posRoad) : null;
+    float score;
+    if (trialBonus != null)
+      score = trialBonus;
+    else if (isPlanningBudgetReached())
+      score = estimateSkippedTrialBonus(posRoad);
+    else
+      score = trialRoadWGETABonus(posRoad, ourPlayerData, plTrackers, getWinGameETAs(plTrackers));
+
+    if (! posRoad.getThreats().isEmpty())
+    {
+      score *= threatMultiplier;
+      D.ebugPrintlnINFO("***  (THREAT MULTIPLIER) score * "+threatMultiplier+" = "+score);
+    }
+    D.ebugPrintlnINFO("*** ETA for road = "+roadETA);
+    float etaBonus = getETABonus(roadETA, leadersCurrentWGETA, score);
+    D.ebugPrintlnINFO("$$$ score = "+score);
+    D.ebugPrintlnINFO("etaBonus = "+etaBonus);
+    posRoad.addToScore(etaBonus);
+
+    if ((brain != null) && (brain.getDRecorder().isOn())) {
+      brain.getDRecorder().record("ETA = "+roadETA);
+      brain.getDRecorder().record("WGETA Score = "+df1.format(score));
+      brain.getDRecorder().record("Total road score = "+df1.format(etaBonus));
+    }
+
+    return etaBonus;
+  }
+
+  /**
+   * Calculate the WGETA bonus for building a possible settlement now,
+   * by temporarily placing it with {@link SOCPlayerTracker#tryPutPieceInPlace(SOCPlayingPiece, SOCGame, SOCPlayerTracker[])}.
+   * Game and trackers are the same afterwards as before.
+   * Used by {@link #scorePossibleSettlements(int, int)} and {@link #scoreTrialsInParallel(boolean)}.
+   *
+   * @param posSet  the possible settlement; its necessary roads list should be empty
+   * @param ourPlayer  our player: {@link #ourPlayerData}, or the same player in a copy of the game
+   * @param trackers  all player trackers for {@code ourPlayer}'s game
+   * @param originalWGETAs  each player's WGETA before the placement, from {@link #getWinGameETAs(SOCPlayerTracker[])}
+   * @return  the WGETA bonus, from {@link #calcWGETABonus(int[], SOCPlayerTracker[])}
+   * @since 2.7.00
+   */
+  private float trialSettlementWGETABonus
+      (final SOCPossibleSettlement posSet, final SOCPlayer ourPlayer, final SOCPlayerTracker[] trackers,
+       final int[] originalWGETAs)
+  {
+    final SOCGame ga = ourPlayer.getGame();
+    final SOCSettlement tmpSet = new SOCSettlement(ourPlayer, posSet.getCoordinates(), ga.getBoard());
+    final SOCPlayerTracker.UndoLog undoLog = SOCPlayerTracker.tryPutPieceInPlace(tmpSet, ga, trackers);
+    try
+    {
+      SOCPlayerTracker.updateWinGameETAs(trackers);
+      return calcWGETABonus(originalWGETAs, trackers);
+    } finally {
+      SOCPlayerTracker.undoTryPutPiece(tmpSet, ga, undoLog);
+    }
+  }
+
+  /**
+   * Calculate the WGETA bonus for building a possible road or ship now, before weighting for its ETA and threats:
+   * Temporarily spends its cost from our estimated resources when built, and temporarily places it with
+   * {@link SOCPlayerTracker#tryPutPieceInPlace(SOCPlayingPiece, SOCGame, SOCPlayerTracker[])}.
+   * Game, our player's resources, and trackers are the same afterwards as before.
+   * Used by {@link #getWinGameETABonusForRoad(SOCPossibleRoad, int, int, SOCPlayerTracker[])}
+   * and {@link #scoreTrialsInParallel(boolean)}.
+   *
+   * @param posRoad  the possible road or ship; its necessary roads list should be empty
+   * @param ourPlayer  our player: {@link #ourPlayerData}, or the same player in a copy of the game
+   * @param trackers  all player trackers for {@code ourPlayer}'s game
+   * @param originalWGETAs  each player's WGETA before the placement, from {@link #getWinGameETAs(SOCPlayerTracker[])}
+   * @return  the WGETA bonus, from {@link #calcWGETABonus(int[], SOCPlayerTracker[])}
+   * @since 2.7.00
+   */
+  private float trialRoadWGETABonus
+      (final SOCPossibleRoad posRoad, final SOCPlayer ourPlayer, final SOCPlayerTracker[] trackers,
+       final int[] originalWGETAs)
+  {
+    final SOCGame ga = ourPlayer.getGame();
+
     // Building road or ship?  TODO Better ETA calc for coastal road/ship
     final boolean isShip = (posRoad instanceof SOCPossibleShip)
         && ! ((SOCPossibleShip) posRoad).isCoastalRoadAndShip;
     final SOCResourceSet rsrcs = (isShip ? SOCShip.COST : SOCRoad.COST);
 
     D.ebugPrintlnINFO("--- before [start] ---");
-    SOCResourceSet originalResources = ourPlayerData.getResources().copy();
-    SOCBuildingSpeedEstimate estimate = getEstimator(ourPlayerData.getNumbers());
+    SOCResourceSet originalResources = ourPlayer.getResources().copy();
+    SOCBuildingSpeedEstimate estimate = getEstimator(ourPlayer.getNumbers());
     //SOCPlayerTracker.playerTrackersDebug(playerTrackers);
     D.ebugPrintlnINFO("--- before [end] ---");
     try
     {
       SOCResSetBuildTimePair btp = estimate.calculateRollsAndRsrcFast
-          (ourPlayerData.getResources(), rsrcs, 50, ourPlayerData.getPortFlags());
+          (ourPlayer.getResources(), rsrcs, 50, ourPlayer.getPortFlags());
       btp.getResources().subtract(rsrcs);
-      ourPlayerData.getResources().setAmounts(btp.getResources());
+      ourPlayer.getResources().setAmounts(btp.getResources());
     } catch (CutoffExceededException e) {
       D.ebugPrintlnINFO("crap in getWinGameETABonusForRoad - "+e);
     }
-    tmpRS = (isShip)
-        ? new SOCShip(ourPlayerData, posRoad.getCoordinates(), null)
-        : new SOCRoad(ourPlayerData, posRoad.getCoordinates(), null);
+    final SOCRoutePiece tmpRS = (isShip)
+        ? new SOCShip(ourPlayer, posRoad.getCoordinates(), null)
+        : new SOCRoad(ourPlayer, posRoad.getCoordinates(), null);
 
-    trackersCopy = SOCPlayerTracker.tryPutPiece(tmpRS, game, plTrackers);
+    final SOCPlayerTracker.UndoLog undoLog = SOCPlayerTracker.tryPutPieceInPlace(tmpRS, ga, trackers);
+    try
+    {
+      SOCPlayerTracker.updateWinGameETAs(trackers);
+      return calcWGETABonus(originalWGETAs, trackers);
+    } finally {
+      SOCPlayerTracker.undoTryPutPiece(tmpRS, ga, undoLog);
+
+      D.ebugPrintlnINFO("--- after [end] ---");
+      ourPlayer.getResources().clear();
+      ourPlayer.getResources().add(originalResources);
+      D.ebugPrintlnINFO("--- cleanup done ---");
+    }
+  }
+
+  /**
+   * Calculate the WGETA bonus for upgrading a possible city now:
+   * Updates the WGETAs of a copy of the player trackers, then temporarily places the city
+   * in the game and our tracker's copy with {@link SOCPlayerTracker#addOurNewCity(SOCCity)}.
+   * Game and trackers are the same afterwards as before, except for the copies' WGETAs.
+   * Used by {@link #smartGameStrategy(int[])} and {@link #scoreTrialsByPriority(boolean)}.
+   *
+   * @param posCity  the possible city, from {@link #ourPlayerTracker}
+   * @param trackersCopy  a copy of all player trackers, from {@link SOCPlayerTracker#copyPlayerTrackers(SOCPlayerTracker[])};
+   *     can be reused for each possible city
+   * @return  the WGETA bonus, from {@link #calcWGETABonusAux(int[], SOCPlayerTracker[], Vector)}
+   * @since 2.7.00
+   */
+  private float trialCityWGETABonus(final SOCPossibleCity posCity, final SOCPlayerTracker[] trackersCopy)
+  {
+    final SOCPlayerTracker ourTrackerCopy = trackersCopy[ourPlayerNumber];
+    final int[] originalWGETAs = new int[game.maxPlayers];
+    final Vector<SOCPlayerTracker> leaders = new Vector<SOCPlayerTracker>();
+    int bestWGETA = 1000;
+
+    if ((brain != null) && (brain.getDRecorder().isOn())) {
+      brain.getDRecorder().suspend();
+    }
     SOCPlayerTracker.updateWinGameETAs(trackersCopy);
-    float score = calcWGETABonus(plTrackers, trackersCopy);
 
-    if (! posRoad.getThreats().isEmpty())
+    // TODO refactor? This section is like a copy of calcWGETABonus, with something added in the middle
+
+    for (final SOCPlayerTracker trackerBefore : trackersCopy)
     {
-      score *= threatMultiplier;
-      D.ebugPrintlnINFO("***  (THREAT MULTIPLIER) score * "+threatMultiplier+" = "+score);
-    }
-    D.ebugPrintlnINFO("*** ETA for road = "+roadETA);
-    float etaBonus = getETABonus(roadETA, leadersCurrentWGETA, score);
-    D.ebugPrintlnINFO("$$$ score = "+score);
-    D.ebugPrintlnINFO("etaBonus = "+etaBonus);
-    posRoad.addToScore(etaBonus);
+      if (trackerBefore == null)
+        continue;
 
+      final int pn = trackerBefore.getPlayer().getPlayerNumber();
+      D.ebugPrintlnINFO("$$$ win game ETA for player " + pn + " = " + trackerBefore.getWinGameETA());
+      originalWGETAs[pn] = trackerBefore.getWinGameETA();
+      if (trackerBefore.getWinGameETA() < bestWGETA)
+      {
+        bestWGETA = trackerBefore.getWinGameETA();
+        leaders.removeAllElements();
+        leaders.addElement(trackerBefore);
+      } else if (trackerBefore.getWinGameETA() == bestWGETA) {
+        leaders.addElement(trackerBefore);
+      }
+    }
+    D.ebugPrintlnINFO("^^^^ bestWGETA = "+bestWGETA);
     if ((brain != null) && (brain.getDRecorder().isOn())) {
-      brain.getDRecorder().record("ETA = "+roadETA);
-      brain.getDRecorder().record("WGETA Score = "+df1.format(score));
-      brain.getDRecorder().record("Total road score = "+df1.format(etaBonus));
+      brain.getDRecorder().resume();
     }
 
-    D.ebugPrintlnINFO("--- after [end] ---");
-    SOCPlayerTracker.undoTryPutPiece(tmpRS, game);
-    ourPlayerData.getResources().clear();
-    ourPlayerData.getResources().add(originalResources);
-    D.ebugPrintlnINFO("--- cleanup done ---");
+    //
+    // place the city
+    //
+    SOCCity tmpCity = new SOCCity(ourPlayerData, posCity.getCoordinates(), null);
+    game.putTempPiece(tmpCity);
 
-    return etaBonus;
+    ourTrackerCopy.addOurNewCity(tmpCity);
+
+    SOCPlayerTracker.updateWinGameETAs(trackersCopy);
+
+    float wgetaScore = calcWGETABonusAux(originalWGETAs, trackersCopy, leaders);
+
+    //
+    // remove the city
+    //
+    ourTrackerCopy.undoAddOurNewCity(posCity);
+    game.undoPutTempPiece(tmpCity);
+
+    return wgetaScore;
   }
 
   /**
@@ -2740,6 +3236,63 @@ public class SOCRobotDM
     return bonus;
   }
 
+  /**
+   * Calc the win game ETA bonus for a move, like {@link #calcWGETABonus(SOCPlayerTracker[], SOCPlayerTracker[])}
+   * but with the WGETAs from before the move given as an array. Used when the move's trial placement
+   * changed the player trackers in place with
+   * {@link SOCPlayerTracker#tryPutPieceInPlace(SOCPlayingPiece, SOCGame, SOCPlayerTracker[])}.
+   *
+   * @param originalWGETAs  each player's {@link SOCPlayerTracker#getWinGameETA()} before the move,
+   *          from {@link #getWinGameETAs(SOCPlayerTracker[])}
+   * @param trackersAfter   player trackers after move; call
+   *          {@link SOCPlayerTracker#updateWinGameETAs(SOCPlayerTracker[]) SOCPlayerTracker.updateWinGameETAs(trackersAfter)}
+   *          before calling this method
+   * @since 2.7.00
+   */
+  protected float calcWGETABonus(final int[] originalWGETAs, final SOCPlayerTracker[] trackersAfter)
+  {
+    Vector<SOCPlayerTracker> leaders = new Vector<SOCPlayerTracker>();  // Players winning soonest, based on ETA
+    int bestWGETA = 1000;  // Lower is better
+
+    for (final SOCPlayerTracker tracker : trackersAfter)
+    {
+      if (tracker == null)
+        continue;
+
+      final int wgeta = originalWGETAs[tracker.getPlayer().getPlayerNumber()];
+      if (wgeta < bestWGETA)
+      {
+        bestWGETA = wgeta;
+        leaders.removeAllElements();
+        leaders.addElement(tracker);
+      } else if (wgeta == bestWGETA) {
+        leaders.addElement(tracker);
+      }
+    }
+
+    final float bonus = calcWGETABonusAux(originalWGETAs, trackersAfter, leaders);
+    D.ebugPrintlnINFO("^^^^ final bonus = "+bonus);
+
+    return bonus;
+  }
+
+  /**
+   * Get each player's current {@link SOCPlayerTracker#getWinGameETA()},
+   * to compare with WGETAs after a trial placement.
+   * @param trackers  player trackers
+   * @return  array indexed by player number; 0 for vacant seats
+   * @since 2.7.00
+   */
+  protected int[] getWinGameETAs(final SOCPlayerTracker[] trackers)
+  {
+    final int[] wgetas = new int[game.maxPlayers];
+    for (final SOCPlayerTracker tracker : trackers)
+      if (tracker != null)
+        wgetas[tracker.getPlayer().getPlayerNumber()] = tracker.getWinGameETA();
+
+    return wgetas;
+  }
+
   /**
    * Helps calculate WGETA bonus for making a move or other change in the game.
    * The bonus is based on lowering your bot's WGETA and increasing the leaders' WGETA.
@@ -2887,6 +3440,8 @@ public class SOCRobotDM
    * Calls {@link SOCPlayerTracker#updateWinGameETAs(SOCPlayerTracker[])} after temporarily adding
    * a knight or +1VP card, but doesn't call it after cleaning up from the temporary add,
    * so {@link SOCPlayerTracker#getWinGameETA()} will be inaccurate afterwards.
+   * If {@link #PLANNING_BUDGET_MS} has run out, uses an estimate instead of the knight trial:
+   * See {@link #estimateWGETABonus(SOCPossiblePiece)}.
    *
    * @param cardETA  estimated time to buy a card
    * @param leadersCurrentWGETA  the leading player's estimated time to win the game
@@ -2928,14 +3483,13 @@ public class SOCRobotDM
       brain.getDRecorder().record("Estimating Knight card value ...");
     }
 
-    ourPlayerData.getGame().saveLargestArmyState();
-    D.ebugPrintlnINFO("--- before [end] ---");
-    ourPlayerData.setNumKnights(ourPlayerData.getNumKnights()+1);
-    ourPlayerData.getGame().updateLargestArmy();
-    D.ebugPrintlnINFO("--- after [start] ---");
-    SOCPlayerTracker.updateWinGameETAs(playerTrackers);
-
-    float bonus = calcWGETABonusAux(originalWGETAs, playerTrackers, leaders);
+    final boolean knightWasScored = (knightTrialBonus != null),
+      knightSkipped = (! knightWasScored) && isPlanningBudgetReached();
+    float bonus = (knightWasScored)
+      ? knightTrialBonus
+      : ((knightSkipped)
+         ? estimateSkippedTrialBonus(null)
+         : trialKnightWGETABonus(ourPlayerData, playerTrackers, originalWGETAs, leaders));
 
     //
     //  adjust for knight card distribution
@@ -2951,11 +3505,6 @@ public class SOCRobotDM
     D.ebugPrintlnINFO("^^^^ bonus for +1 knight = "+bonus);
     devCardScore += bonus;
 
-    D.ebugPrintlnINFO("--- after [end] ---");
-    ourPlayerData.setNumKnights(ourPlayerData.getNumKnights()-1);
-    ourPlayerData.getGame().restoreLargestArmyState();
-    D.ebugPrintlnINFO("--- cleanup done ---");
-
     if ((brain != null) && (brain.getDRecorder().isOn())) {
       brain.getDRecorder().record("Estimating vp card value ...");
     }
@@ -2964,12 +3513,16 @@ public class SOCRobotDM
     // see what a vp card does to our win game eta
     //
     D.ebugPrintlnINFO("--- before [start] ---");
-    if ((brain != null) && (brain.getDRecorder().isOn())) {
-      brain.getDRecorder().suspend();
-    }
-    SOCPlayerTracker.updateWinGameETAs(playerTrackers);
-    if ((brain != null) && (brain.getDRecorder().isOn())) {
-      brain.getDRecorder().resume();
+    if (! (knightWasScored || knightSkipped))
+    {
+      // recalc after knight trial; not needed if that was done in a copy of the trackers
+      if ((brain != null) && (brain.getDRecorder().isOn())) {
+        brain.getDRecorder().suspend();
+      }
+      SOCPlayerTracker.updateWinGameETAs(playerTrackers);
+      if ((brain != null) && (brain.getDRecorder().isOn())) {
+        brain.getDRecorder().resume();
+      }
     }
     D.ebugPrintlnINFO("--- before [end] ---");
     ourPlayerData.getInventory().addDevCard(1, SOCInventory.NEW, SOCDevCardConstants.CAP);  // any +1VP dev card
@@ -3024,6 +3577,172 @@ public class SOCRobotDM
   }
 
 
+  /**
+   * Calculate the raw WGETA bonus for having 1 more knight, before adjusting for dev card distribution:
+   * Temporarily adds a knight to our player, updates Largest Army, and calls
+   * {@link SOCPlayerTracker#updateWinGameETAs(SOCPlayerTracker[])}.
+   * Afterwards the game is the same as before, but the trackers' WGETAs are for the extra knight
+   * until the caller updates or restores them.
+   * Used by {@link #getDevCardScore(int, int)} and {@link #scoreTrialsInParallel(boolean)}.
+   *
+   * @param ourPlayer  our player: {@link #ourPlayerData}, or the same player in a copy of the game
+   * @param trackers  all player trackers for {@code ourPlayer}'s game
+   * @param originalWGETAs  each player's WGETA before adding the knight
+   * @param leaders  trackers of player(s) with lowest {@code originalWGETAs}
+   * @return  the WGETA bonus, from {@link #calcWGETABonusAux(int[], SOCPlayerTracker[], Vector)}
+   * @since 2.7.00
+   */
+  private float trialKnightWGETABonus
+      (final SOCPlayer ourPlayer, final SOCPlayerTracker[] trackers, final int[] originalWGETAs,
+       final Vector<SOCPlayerTracker> leaders)
+  {
+    final SOCGame ga = ourPlayer.getGame();
+    ga.saveLargestArmyState();
+    D.ebugPrintlnINFO("--- before [end] ---");
+    ourPlayer.setNumKnights(ourPlayer.getNumKnights()+1);
+    ga.updateLargestArmy();
+    try
+    {
+      D.ebugPrintlnINFO("--- after [start] ---");
+      SOCPlayerTracker.updateWinGameETAs(trackers);
+
+      return calcWGETABonusAux(originalWGETAs, trackers, leaders);
+    } finally {
+      D.ebugPrintlnINFO("--- after [end] ---");
+      ourPlayer.setNumKnights(ourPlayer.getNumKnights()-1);
+      ga.restoreLargestArmyState();
+      D.ebugPrintlnINFO("--- cleanup done ---");
+    }
+  }
+
+  /**
+   * Calculate the raw WGETA bonus for buying a knight card, like
+   * {@link #trialKnightWGETABonus(SOCPlayer, SOCPlayerTracker[], int[], Vector)},
+   * and then restore the trackers' WGETAs which that trial changed, so that further trials can use them.
+   * Used by {@link #scoreTrialsInParallel(boolean)} and {@link #scoreTrialsByPriority(boolean)}.
+   *
+   * @param ourPlayer  our player: {@link #ourPlayerData}, or the same player in a copy of the game
+   * @param trackers  all player trackers for {@code ourPlayer}'s game
+   * @param originalWGETAs  each player's WGETA before the trial, from {@link #getWinGameETAs(SOCPlayerTracker[])}
+   * @return  the raw WGETA bonus, before adjusting for knight card distribution
+   * @since 2.7.00
+   */
+  private float trialKnightWGETABonusUndone
+      (final SOCPlayer ourPlayer, final SOCPlayerTracker[] trackers, final int[] originalWGETAs)
+  {
+    final Vector<SOCPlayerTracker> leaders = new Vector<SOCPlayerTracker>();
+    int bestWGETA = 1000;
+    for (final SOCPlayerTracker tracker : trackers)
+    {
+      if (tracker == null)
+        continue;
+
+      final int wgeta = originalWGETAs[tracker.getPlayer().getPlayerNumber()];
+      if (wgeta < bestWGETA)
+      {
+        bestWGETA = wgeta;
+        leaders.removeAllElements();
+        leaders.addElement(tracker);
+      } else if (wgeta == bestWGETA) {
+        leaders.addElement(tracker);
+      }
+    }
+
+    final SOCGame ga = ourPlayer.getGame();
+    final SOCPlayerTracker.UndoLog undoLog = SOCPlayerTracker.tryPutPieceInPlace(null, ga, trackers);
+    try
+    {
+      return trialKnightWGETABonus(ourPlayer, trackers, originalWGETAs, leaders);
+    } finally {
+      SOCPlayerTracker.undoTryPutPiece(null, ga, undoLog);
+    }
+  }
+
+  /**
+   * Quickly estimate the WGETA bonus for building a possible piece or buying a knight card,
+   * from building speed ETAs and our current WGETA, without any trial placement.
+   * Used for {@link #PLANNING_BUDGET_MS}: {@link #scoreTrialsByPriority(boolean)} tries
+   * the best estimates first, and pieces not tried before the budget runs out are scored from their estimates.
+   *<P>
+   * Estimates the number of rolls sooner we'd win, as a fraction of our WGETA
+   * like {@link #calcWGETABonusAux(int[], SOCPlayerTracker[], Vector)}, ignoring other players:
+   *<UL>
+   * <LI> Each victory point gained saves our WGETA divided by the number of VP we still need
+   * <LI> Settlement: 1 VP, plus the total speedup of our building ETAs from its dice numbers
+   * <LI> City: 1 VP, plus its {@link SOCPossibleCity#getSpeedupTotal()}
+   * <LI> Road or ship: Half a VP if it leads to a new possible settlement
+   * <LI> Knight card: 2 VP if its knight would take Largest Army
+   *</UL>
+   *
+   * @param pp  Possible settlement, city, road, or ship, or {@code null} for a knight card
+   * @return  Estimated WGETA bonus, from 0 to the bonus for winning the game
+   * @since 2.7.00
+   */
+  protected float estimateWGETABonus(final SOCPossiblePiece pp)
+  {
+    final int ourWGETA = ourPlayerTracker.getWinGameETA();
+    if (ourWGETA <= 0)
+      return 0;
+
+    final float vpRolls = (float) ourWGETA / Math.max(1, game.vp_winner - ourPlayerData.getTotalVP());
+    float rollsSaved = 0;
+    if (pp == null)
+    {
+      final SOCPlayer laPlayer = game.getPlayerWithLargestArmy();
+      final int knights = ourPlayerData.getNumKnights() + 1;
+      if ((laPlayer != ourPlayerData) && (knights >= 3)
+          && ((laPlayer == null) || (knights > laPlayer.getNumKnights())))
+        rollsSaved = 2 * vpRolls;
+    }
+    else if (pp instanceof SOCPossibleSettlement)
+    {
+      final SOCPlayerNumbers newNumbers = new SOCPlayerNumbers(ourPlayerData.getNumbers());
+      newNumbers.updateNumbers(pp.getCoordinates(), game.getBoard());
+      final boolean[] ports = ourPlayerData.getPortFlags();
+      final int[] etasBefore = getEstimator(ourPlayerData.getNumbers()).getEstimatesFromNothingFast(ports),
+        etasAfter = getEstimator(newNumbers).getEstimatesFromNothingFast(ports);
+      rollsSaved = vpRolls;
+      for (int i = 0; i < etasBefore.length; ++i)
+        rollsSaved += etasBefore[i] - etasAfter[i];
+    }
+    else if (pp instanceof SOCPossibleCity)
+    {
+      rollsSaved = vpRolls + ((SOCPossibleCity) pp).getSpeedupTotal();
+    }
+    else if (pp instanceof SOCPossibleRoad)
+    {
+      for (final SOCPossiblePiece newPos : ((SOCPossibleRoad) pp).getNewPossibilities())
+      {
+        if (newPos instanceof SOCPossibleSettlement)
+        {
+          rollsSaved = vpRolls / 2;
+          break;
+        }
+      }
+    }
+
+    return (100.0f / game.maxPlayers) * Math.max(0, Math.min(1.0f, rollsSaved / ourWGETA));
+  }
+
+  /**
+   * When the {@link #PLANNING_BUDGET_MS} has run out before a trial placement,
+   * get the piece's estimated WGETA bonus instead and count the cut-off trial
+   * for {@link #getPlanningBudgetCounts()}.
+   * @param pp  Possible settlement, city, road, or ship, or {@code null} for a knight card
+   * @return  Estimated WGETA bonus from {@link #estimateWGETABonus(SOCPossiblePiece)}
+   * @since 2.7.00
+   */
+  private float estimateSkippedTrialBonus(final SOCPossiblePiece pp)
+  {
+    final int idx = (pp == null) ? 3
+      : (pp instanceof SOCPossibleSettlement) ? 0
+      : (pp instanceof SOCPossibleCity) ? 2
+      : 1;
+    budgetEstimatedTrialCounts.incrementAndGet(idx);
+
+    return estimateWGETABonus(pp);
+  }
+
   /**
    * Calc the weighted ETA bonus for a move, adjusting {@code bonus} for {@code eta} and our {@code etaBonusFactor}.
    *
@@ -1,7 +1,7 @@
 /**
  * Java Settlers - An online multiplayer version of the game Settlers of Catan
  * Copyright (C) 2003  Robert S. Thomas <thomas@infolab.northwestern.edu>
- * Portions of this file Copyright (C) 2009,2011-2013,2015,2017-2018,2020-2025 Jeremy D Monin <jeremy@nand.net>
+ * Portions of this file Copyright (C) 2009,2011-2013,2015,2017-2018,2020-2026 Jeremy D Monin <jeremy@nand.net>
  * Portions of this file Copyright (C) 2012 Paul Bilnoski <paul@bilnoski.net>
  * Portions of this file Copyright (C) 2017-2018 Strategic Conversation (STAC Project) https://www.irit.fr/STAC/
  *
@@ -116,6 +116,13 @@ public class SOCRobotNegotiator
     protected Vector<SOCTradeOffer> offersMade;
     protected SOCPossiblePiece[] targetPieces;
 
+    /**
+     * Estimates and ETAs memoized during the current turn, and the limit on offers considered per decision.
+     * Cleared by {@link #resetTargetPieces()}.
+     * @since 2.7.00
+     */
+    protected final SOCTradeSearchMemo searchMemo;
+
     /**
      * constructor
      *
@@ -139,6 +146,8 @@ public class SOCRobotNegotiator
         wantsAnotherOffer = new boolean[game.maxPlayers][SOCResourceConstants.MAXPLUSONE];
         resetWantsAnotherOffer();
 
+        searchMemo = new SOCTradeSearchMemo(br, game.maxPlayers, SOCTradeSearchMemo.DEFAULT_MAX_CONSIDERATIONS);
+
         offersMade = new Vector<SOCTradeOffer>();
 
         targetPieces = new SOCPossiblePiece[game.maxPlayers];
@@ -146,7 +155,8 @@ public class SOCRobotNegotiator
     }
 
     /**
-     * reset target pieces for all players
+     * reset target pieces for all players.
+     * Since v2.7.00 also clears {@link #searchMemo}.
      */
     public void resetTargetPieces()
     {
@@ -156,6 +166,8 @@ public class SOCRobotNegotiator
         {
             targetPieces[pn] = null;
         }
+
+        searchMemo.clear();
     }
 
     /**
@@ -319,6 +331,8 @@ public class SOCRobotNegotiator
     {
         D.ebugPrintlnINFO("***** MAKE OFFER *****");
 
+        searchMemo.startDecision();
+
         if ((buildPlan == null) || buildPlan.isEmpty())
         {
             return null;
@@ -350,7 +364,7 @@ public class SOCRobotNegotiator
         SOCTradeOffer batna = getOfferToBank(targetResources);
         D.ebugPrintlnINFO("*** BATNA = " + batna);
 
-        SOCBuildingSpeedEstimate estimate = brain.getEstimator(ourPlayerData.getNumbers());
+        SOCBuildingSpeedEstimate estimate = searchMemo.getEstimator(ourPlayerData);
 
         SOCResourceSet giveResourceSet = new SOCResourceSet();
         SOCResourceSet getResourceSet = new SOCResourceSet();
@@ -797,7 +811,10 @@ public class SOCRobotNegotiator
     }
 
     /**
-     * aux function for make offer
+     * aux function for make offer.
+     *<P>
+     * Since v2.7.00, returns {@code null} without asking possible recipients
+     * if this decision has already considered {@link #searchMemo}'s maximum number of offers.
      */
     protected SOCTradeOffer makeOfferAux(SOCResourceSet giveResourceSet, SOCResourceSet getResourceSet, int neededResource)
     {
@@ -911,6 +928,12 @@ public class SOCRobotNegotiator
 
             D.ebugPrintlnINFO("** numOfferedTo = " + numOfferedTo);
 
+            if ((numOfferedTo > 0) && ! searchMemo.tryConsider())
+            {
+                D.ebugPrintlnINFO("** reached limit of offers to consider for this decision");
+                numOfferedTo = 0;
+            }
+
             if (numOfferedTo > 0)
             {
                 ///
@@ -958,23 +981,20 @@ public class SOCRobotNegotiator
      * @param targetResources    the resources we want
      * @param giveSet            the set of resources we're giving
      * @param getSet             the set of resources we're receiving
-     * @param estimate           a SOCBuildingSpeedEstimate for our player
+     * @param estimate           a SOCBuildingSpeedEstimate for our player;
+     *     results are memoized during this turn if it's from {@link SOCTradeSearchMemo#getEstimator(SOCPlayer)}
      */
     protected int getETAToTargetResources
         (SOCPlayer player, SOCResourceSet targetResources, SOCResourceSet giveSet, SOCResourceSet getSet,
          SOCBuildingSpeedEstimate estimate)
     {
-        SOCResourceSet ourResourcesCopy = player.getResources().copy();
         D.ebugPrintlnINFO("*** giveSet = " + giveSet);
         D.ebugPrintlnINFO("*** getSet = " + getSet);
-        ourResourcesCopy.subtract(giveSet);
-        ourResourcesCopy.add(getSet);
 
         final int offerBuildingTime =
-            estimate.calculateRollsFast(ourResourcesCopy, targetResources, 1000, player.getPortFlags());
+            searchMemo.getETAToTargetResources(player, targetResources, giveSet, getSet, estimate);
 
         D.ebugPrintlnINFO("*** offerBuildingTime = " + offerBuildingTime);
-        D.ebugPrintlnINFO("*** ourResourcesCopy = " + ourResourcesCopy);
 
         return (offerBuildingTime);
     }
@@ -1152,7 +1172,7 @@ public class SOCRobotNegotiator
                 if (targetResources == null)
                     return REJECT_OFFER;
 
-                SOCBuildingSpeedEstimate estimate = brain.getEstimator(receiverPlayerData.getNumbers());
+                SOCBuildingSpeedEstimate estimate = searchMemo.getEstimator(receiverPlayerData);
 
                 if (D.ebugIsEnabled())
                 {
@@ -1586,6 +1606,8 @@ public class SOCRobotNegotiator
     {
         D.ebugPrintlnINFO("***** MAKE COUNTER OFFER *****");
 
+        searchMemo.startDecision();
+
         SOCTradeOffer counterOffer = null;
 
         SOCPossiblePiece targetPiece = targetPieces[ourPlayerNumber];
@@ -1637,7 +1659,7 @@ public class SOCRobotNegotiator
         SOCTradeOffer batna = getOfferToBank(targetResources);
         D.ebugPrintlnINFO("*** BATNA = " + batna);
 
-        SOCBuildingSpeedEstimate estimate = brain.getEstimator(ourPlayerData.getNumbers());
+        SOCBuildingSpeedEstimate estimate = searchMemo.getEstimator(ourPlayerData);
 
         SOCResourceSet giveResourceSet = new SOCResourceSet();
         SOCResourceSet getResourceSet = new SOCResourceSet();
@@ -2286,7 +2308,7 @@ public class SOCRobotNegotiator
             return bankTrade;
         }
 
-        SOCBuildingSpeedEstimate estimate = brain.getEstimator(ourPlayerData.getNumbers());
+        SOCBuildingSpeedEstimate estimate = searchMemo.getEstimator(ourPlayerData);
         int[] rollsPerResource = estimate.getRollsPerResource();
         boolean[] ports = ourPlayerData.getPortFlags();
 
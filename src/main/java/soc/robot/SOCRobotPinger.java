@@ -1,7 +1,7 @@
 /**
  * Java Settlers - An online multiplayer version of the game Settlers of Catan
  * Copyright (C) 2003  Robert S. Thomas <thomas@infolab.northwestern.edu>
- * Portions of this file Copyright (C) 2011,2017,2020 Jeremy D Monin <jeremy@nand.net>
+ * Portions of this file Copyright (C) 2011,2017,2020,2026 Jeremy D Monin <jeremy@nand.net>
  * Portions of this file Copyright (C) 2012 Paul Bilnoski <paul@bilnoski.net>
  *
  * This program is free software; you can redistribute it and/or
@@ -21,6 +21,10 @@
  **/
 package soc.robot;
 
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
 import soc.message.SOCMessage;
 import soc.message.SOCTimingPing;
 
@@ -31,31 +35,44 @@ import soc.util.CutoffExceededException;
 /**
  * Pings a {@link SOCRobotBrain} to give a sense of time while its game is in progress.
  * Once per second, adds a {@link SOCTimingPing} into the brain's {@link CappedQueue}.
+ *<P>
+ * Before v2.7.00 each pinger was its own thread. Now all pingers in the JVM are tasks
+ * run by one shared scheduler thread, which halves the number of threads per robot brain.
  *
  * @author Robert S Thomas
  */
-/*package*/ class SOCRobotPinger extends Thread
+/*package*/ class SOCRobotPinger
 {
-    private CappedQueue<SOCMessage> messageQueue;
+    /**
+     * Shared scheduler for all pingers, with 1 daemon thread. Created when first needed.
+     * @since 2.7.00
+     */
+    private static ScheduledThreadPoolExecutor scheduler;
+
+    private volatile CappedQueue<SOCMessage> messageQueue;
     private final SOCTimingPing ping;
     private volatile boolean alive;
 
     /**
-     * Name of the bot being pinged, for thread naming.
+     * Name of the bot being pinged, for debugging.
      * @since 1.1.00
      */
     private final String robotNickname;
 
+    /**
+     * This pinger's scheduled task, or null if not {@link #start()}ed.
+     * @since 2.7.00
+     */
+    private ScheduledFuture<?> task;
+
     /**
      * Create a robot pinger
      *
      * @param q  the robot brain's message queue
-     * @param nickname the robot's nickname, for debug thread naming
+     * @param nickname the robot's nickname, for debugging
      */
     public SOCRobotPinger(CappedQueue<SOCMessage> q, String gameName, String nickname)
     {
-        setDaemon(true);
-
         messageQueue = q;
         ping = new SOCTimingPing(gameName);
         alive = true;
@@ -63,47 +80,75 @@ import soc.util.CutoffExceededException;
     }
 
     /**
-     * Once per second queue a {@link SOCTimingPing}, until {@link #stopPinger()} is called.
+     * Get the shared pinger scheduler, creating it if needed.
+     * @return the scheduler
+     * @since 2.7.00
      */
-    @Override
-    public void run()
+    private static synchronized ScheduledThreadPoolExecutor getScheduler()
     {
-        // Thread name for debug
-        try
+        if (scheduler == null)
         {
-            Thread.currentThread().setName("robotPinger-" + robotNickname);
+            scheduler = new ScheduledThreadPoolExecutor(1, (Runnable r) ->
+            {
+                final Thread th = new Thread(r, "robotPinger");
+                th.setDaemon(true);
+                return th;
+            });
+            scheduler.setRemoveOnCancelPolicy(true);
         }
-        catch (Throwable th) {}
 
-        while (alive)
-        {
-            try
-            {
-                messageQueue.put(ping);
-            }
-            catch (CutoffExceededException exc)
-            {
-                alive = false;
-            }
+        return scheduler;
+    }
 
-            Thread.yield();
+    /**
+     * Start queueing a {@link SOCTimingPing} now and once per second, until {@link #stopPinger()} is called.
+     * Before v2.7.00 this started the pinger's thread.
+     */
+    public synchronized void start()
+    {
+        if (alive && (task == null))
+            task = getScheduler().scheduleWithFixedDelay(this::ping, 0, 1000, TimeUnit.MILLISECONDS);
+    }
 
-            try
-            {
-                sleep(1000);
-            }
-            catch (InterruptedException exc) {}
-        }
+    /**
+     * Queue a {@link SOCTimingPing}, unless stopped.
+     * If the brain's queue is full, stop pinging.
+     * @since 2.7.00
+     */
+    private void ping()
+    {
+        final CappedQueue<SOCMessage> q = messageQueue;
+        if ((! alive) || (q == null))
+            return;
 
-        messageQueue = null;
+        try
+        {
+            q.put(ping);
+        }
+        catch (CutoffExceededException exc)
+        {
+            stopPinger();
+        }
     }
 
     /**
-     * Stop the pinger thread's {@link #run()} loop by clearing its "alive" flag.
+     * Stop pinging by clearing this pinger's "alive" flag and cancelling its scheduled task.
      */
-    public void stopPinger()
+    public synchronized void stopPinger()
     {
         alive = false;
+        messageQueue = null;
+        if (task != null)
+        {
+            task.cancel(false);
+            task = null;
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return "SOCRobotPinger[" + robotNickname + ", alive=" + alive + "]";
     }
 
 }
@@ -0,0 +1,382 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * This file Copyright (C) 2026 Jeremy D Monin <jeremy@nand.net>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The maintainer of this program can be reached at jsettlers@nand.net
+ **/
+package soc.robot;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import soc.game.ResourceSet;
+import soc.game.SOCPlayer;
+import soc.game.SOCPlayerNumbers;
+import soc.game.SOCResourceConstants;
+import soc.game.SOCResourceSet;
+
+/**
+ * Per-turn memo and work limit for {@link SOCRobotNegotiator}'s trade offer searches.
+ * {@link SOCRobotNegotiator#makeOffer(SOCBuildPlan)} and {@link SOCRobotNegotiator#makeCounterOffer(soc.game.SOCTradeOffer)}
+ * try many give/get combinations, and for each one {@link SOCRobotNegotiator#considerOffer2(soc.game.SOCTradeOffer, int)}
+ * asks whether each possible recipient would accept, which needs that player's {@link SOCBuildingSpeedEstimate}
+ * and ETAs with and without the trade. Those are the same for many candidates and incoming offers during a turn.
+ *<P>
+ * This memo keeps:
+ *<UL>
+ * <LI> Each player's estimate, from {@link #getEstimator(SOCPlayer)}, until their dice numbers change
+ * <LI> ETAs to target resources from {@link #getETAToTargetResources(SOCPlayer, SOCResourceSet, SOCResourceSet, SOCResourceSet, SOCBuildingSpeedEstimate)},
+ *      keyed by the player's resources after the trade and the target resources, until their dice numbers or ports change
+ * <LI> Limits on the number of offers considered and the time spent for each decision:
+ *      See {@link #startDecision()}, {@link #tryConsider()}, and {@link #DECISION_BUDGET_MS}
+ *</UL>
+ * To cheaply check whether a player's dice numbers have changed, each lookup compares their
+ * {@link SOCPlayerNumbers#getChangeCount()} with the one seen when their memo was made.
+ * The negotiator calls {@link #clear()} at the start and end of each turn.
+ *<P>
+ * Not thread-safe; used only by its brain's thread.
+ *
+ * @author Jeremy D Monin &lt;jeremy@nand.net&gt;
+ * @since 2.7.00
+ */
+public final class SOCTradeSearchMemo
+{
+    /**
+     * Default maximum number of offers to consider with possible recipients
+     * for each trade decision: 64. Typical decisions consider far fewer.
+     * @see #tryConsider()
+     */
+    public static final int DEFAULT_MAX_CONSIDERATIONS = 64;
+
+    /**
+     * Maximum number of ETAs to keep for each player; their memo is cleared when it reaches this size.
+     */
+    private static final int MAX_ETAS_PER_PLAYER = 512;
+
+    /**
+     * Wall-clock time budget in milliseconds for each trade decision, or 0 for no limit (the default).
+     * When the budget runs out, {@link #tryConsider()} returns false and the decision uses the offers
+     * considered so far. The first offer of each decision is always considered.
+     * Used along with the maximum number of considerations given to the constructor.
+     *<P>
+     * Set from server property or bot client system property {@link SOCRobotClient#PROP_JSETTLERS_BOTS_TRADE__BUDGET__MS}.
+     * See {@link #getDecisionLimitCounts()} for how often decisions reached their limits.
+     */
+    public static int DECISION_BUDGET_MS = 0;
+
+    /**
+     * Number of decisions started, and how many of those reached their consideration limit
+     * or {@link #DECISION_BUDGET_MS}, by all robots in this JVM.
+     * @see #getDecisionLimitCounts()
+     */
+    private static final AtomicLong decisionCount = new AtomicLong(),
+        decisionCountLimitReached = new AtomicLong(), decisionCountBudgetReached = new AtomicLong();
+
+    private final SOCRobotBrain brain;
+
+    private final int maxConsiderations;
+
+    /** Memo for each player number; null until used */
+    private final PlayerMemo[] players;
+
+    /** Number of offers considered so far in the current decision; see {@link #tryConsider()} */
+    private int considerations;
+
+    /**
+     * {@link System#nanoTime()} when the current decision's {@link #DECISION_BUDGET_MS} runs out,
+     * or 0 if no budget.
+     */
+    private long decisionDeadline;
+
+    /** True if the current decision has reached a limit; see {@link #tryConsider()} */
+    private boolean decisionLimitReached;
+
+    private long hits, misses;
+
+    /**
+     * Create a new empty memo.
+     * @param brain  Brain whose {@link SOCRobotBrain#getEstimator(SOCPlayerNumbers)} will create estimates
+     * @param maxPlayers  Number of player seats in the game
+     * @param maxConsiderations  Maximum number of offers to consider per decision, at least 1;
+     *     usually {@link #DEFAULT_MAX_CONSIDERATIONS}
+     * @throws IllegalArgumentException if {@code maxConsiderations} &lt; 1
+     */
+    public SOCTradeSearchMemo(final SOCRobotBrain brain, final int maxPlayers, final int maxConsiderations)
+        throws IllegalArgumentException
+    {
+        if (maxConsiderations < 1)
+            throw new IllegalArgumentException("maxConsiderations");
+
+        this.brain = brain;
+        this.maxConsiderations = maxConsiderations;
+        players = new PlayerMemo[maxPlayers];
+    }
+
+    /**
+     * Clear all memoized estimates and ETAs, and reset the decision's consideration count.
+     * Called at the start and end of each turn.
+     */
+    public void clear()
+    {
+        Arrays.fill(players, null);
+        considerations = 0;
+        decisionDeadline = 0;
+        decisionLimitReached = false;
+    }
+
+    /**
+     * Start a new trade decision, such as making an offer or counteroffer,
+     * by resetting the count of offers considered and starting its {@link #DECISION_BUDGET_MS} if any.
+     * @see #tryConsider()
+     */
+    public void startDecision()
+    {
+        considerations = 0;
+        decisionLimitReached = false;
+        final int budgetMS = DECISION_BUDGET_MS;
+        if (budgetMS > 0)
+        {
+            decisionDeadline = System.nanoTime() + budgetMS * 1000000L;
+            if (decisionDeadline == 0)
+                decisionDeadline = 1;  // 0 means no budget
+        } else {
+            decisionDeadline = 0;
+        }
+        decisionCount.incrementAndGet();
+    }
+
+    /**
+     * Count an offer about to be considered with its possible recipients,
+     * if the current decision hasn't reached its limits.
+     * @return  True if the offer can be considered, false if this decision
+     *     has already considered its maximum number of offers or used up its {@link #DECISION_BUDGET_MS}
+     * @see #startDecision()
+     */
+    public boolean tryConsider()
+    {
+        if (decisionLimitReached)
+            return false;
+
+        if (considerations >= maxConsiderations)
+        {
+            decisionLimitReached = true;
+            decisionCountLimitReached.incrementAndGet();
+            return false;
+        }
+        if ((considerations > 0) && (decisionDeadline != 0) && (System.nanoTime() - decisionDeadline >= 0))
+        {
+            decisionLimitReached = true;
+            decisionCountBudgetReached.incrementAndGet();
+            return false;
+        }
+
+        ++considerations;
+        return true;
+    }
+
+    /**
+     * Get the number of trade decisions started by all robots in this JVM,
+     * and how many of those reached their limits before considering all their offers.
+     * @return  Array with number of decisions, number which reached their maximum number of considerations,
+     *     number which reached their {@link #DECISION_BUDGET_MS}
+     * @see #startDecision()
+     */
+    public static long[] getDecisionLimitCounts()
+    {
+        return new long[]{ decisionCount.get(), decisionCountLimitReached.get(), decisionCountBudgetReached.get() };
+    }
+
+    /**
+     * Get a player's building speed estimate, reusing the one from earlier in this turn
+     * if the player's dice numbers haven't changed since then.
+     * @param pl  Player to get estimate for
+     * @return  Estimate for {@code pl}'s current {@link SOCPlayer#getNumbers()}; caller must not change it
+     */
+    public SOCBuildingSpeedEstimate getEstimator(final SOCPlayer pl)
+    {
+        return memoFor(pl).estimate;
+    }
+
+    /**
+     * Get the number of rolls until a player reaches their target resources after a trade,
+     * from {@link SOCBuildingSpeedEstimate#calculateRollsFast(soc.game.ResourceSet, SOCResourceSet, int, boolean[])}
+     * with a cutoff of 1000 rolls. Memoized if {@code estimate} is the one from {@link #getEstimator(SOCPlayer)}
+     * and the player's resources are all known.
+     *
+     * @param pl  Player who would trade
+     * @param targetResources  Resources that {@code pl} wants
+     * @param giveSet  Resources {@code pl} would give
+     * @param getSet  Resources {@code pl} would receive
+     * @param estimate  Estimate for {@code pl}
+     * @return  Number of rolls, or 1000 if cutoff was reached
+     */
+    public int getETAToTargetResources
+        (final SOCPlayer pl, final SOCResourceSet targetResources, final SOCResourceSet giveSet,
+         final SOCResourceSet getSet, final SOCBuildingSpeedEstimate estimate)
+    {
+        final PlayerMemo pm = memoFor(pl);
+        final long key = (pm.estimate == estimate)
+            ? packKey(pl.getResources(), giveSet, getSet, targetResources)
+            : -1L;
+        if (key != -1L)
+        {
+            final Integer eta = pm.etas.get(key);
+            if (eta != null)
+            {
+                ++hits;
+                return eta;
+            }
+        }
+
+        final SOCResourceSet resources = pl.getResources().copy();
+        resources.subtract(giveSet);
+        resources.add(getSet);
+        final int rolls = estimate.calculateRollsFast(resources, targetResources, 1000, pl.getPortFlags());
+        if (key == -1L)
+            return rolls;
+
+        ++misses;
+        if (pm.etas.size() >= MAX_ETAS_PER_PLAYER)
+            pm.etas.clear();
+        pm.etas.put(key, rolls);
+
+        return rolls;
+    }
+
+    /**
+     * Get the number of ETA lookups which found a memoized result.
+     * @return  Number of hits since this memo was created
+     * @see #getMisses()
+     */
+    public long getHits()
+    {
+        return hits;
+    }
+
+    /**
+     * Get the number of ETA lookups which calculated and memoized a new result.
+     * Doesn't include those which couldn't be memoized.
+     * @return  Number of misses since this memo was created
+     * @see #getHits()
+     */
+    public long getMisses()
+    {
+        return misses;
+    }
+
+    /**
+     * Get a player's memo, replacing it if their dice numbers or ports have changed.
+     * @param pl  Player to get memo for
+     * @return  {@code pl}'s current memo, not null
+     */
+    private PlayerMemo memoFor(final SOCPlayer pl)
+    {
+        final int pn = pl.getPlayerNumber();
+        final SOCPlayerNumbers numbers = pl.getNumbers();
+        final boolean[] ports = pl.getPortFlags();
+
+        PlayerMemo pm = players[pn];
+        if ((pm == null) || (pm.numbers != numbers) || (pm.numbersChangeCount != numbers.getChangeCount())
+            || ! Arrays.equals(pm.ports, ports))
+        {
+            pm = new PlayerMemo(numbers, ports.clone(), brain.getEstimator(numbers));
+            players[pn] = pm;
+        }
+
+        return pm;
+    }
+
+    /**
+     * Pack a player's resources after a trade and target resources into a memo key:
+     * 8 bits for each known resource amount, then 4 bits for each target amount.
+     * Calculates the amounts after the trade the same way as {@link SOCResourceSet#subtract(ResourceSet)}
+     * and {@link SOCResourceSet#add(ResourceSet)}, without making a copy of {@code resources}.
+     * @param resources  Player's resources before the trade
+     * @param giveSet  Resources the player would give
+     * @param getSet  Resources the player would receive
+     * @param target  Target resources
+     * @return  Packed key, or -1 if there would be unknown resources or any amount is out of range
+     */
+    private static long packKey
+        (final ResourceSet resources, final ResourceSet giveSet, final ResourceSet getSet, final SOCResourceSet target)
+    {
+        if (amountAfterTrade(resources, giveSet, getSet, SOCResourceConstants.UNKNOWN) != 0)
+            return -1L;
+
+        long key = 0;
+        for (int rtype = SOCResourceConstants.CLAY; rtype <= SOCResourceConstants.WOOD; ++rtype)
+        {
+            final int amt = amountAfterTrade(resources, giveSet, getSet, rtype);
+            if ((amt < 0) || (amt > 0xFF))
+                return -1L;
+            key = (key << 8) | amt;
+        }
+        for (int rtype = SOCResourceConstants.CLAY; rtype <= SOCResourceConstants.WOOD; ++rtype)
+        {
+            final int amt = target.getAmount(rtype);
+            if ((amt < 0) || (amt > 0xF))
+                return -1L;
+            key = (key << 4) | amt;
+        }
+
+        return key;
+    }
+
+    /**
+     * Get the amount of one resource type a player would have after a trade,
+     * clipped like {@link SOCResourceSet#subtract(ResourceSet)}.
+     * @param resources  Player's resources before the trade
+     * @param giveSet  Resources the player would give
+     * @param getSet  Resources the player would receive
+     * @param rtype  Resource type, {@link SOCResourceConstants#CLAY} to {@link SOCResourceConstants#UNKNOWN}
+     * @return  Amount of {@code rtype} after the trade
+     */
+    private static int amountAfterTrade
+        (final ResourceSet resources, final ResourceSet giveSet, final ResourceSet getSet, final int rtype)
+    {
+        return Math.max(0, resources.getAmount(rtype) - giveSet.getAmount(rtype)) + getSet.getAmount(rtype);
+    }
+
+    /**
+     * One player's estimate and ETAs, valid while their dice numbers and ports are unchanged.
+     */
+    private static final class PlayerMemo
+    {
+        /** Player's dice numbers when this memo was made */
+        final SOCPlayerNumbers numbers;
+
+        /** {@link SOCPlayerNumbers#getChangeCount()} of {@link #numbers} when this memo was made */
+        final int numbersChangeCount;
+
+        /** Copy of player's port flags */
+        final boolean[] ports;
+
+        final SOCBuildingSpeedEstimate estimate;
+
+        /** Rolls to target, keyed by {@link SOCTradeSearchMemo#packKey(ResourceSet, ResourceSet, ResourceSet, SOCResourceSet)} */
+        final HashMap<Long, Integer> etas = new HashMap<>();
+
+        PlayerMemo(final SOCPlayerNumbers numbers, final boolean[] ports, final SOCBuildingSpeedEstimate estimate)
+        {
+            this.numbers = numbers;
+            numbersChangeCount = numbers.getChangeCount();
+            this.ports = ports;
+            this.estimate = estimate;
+        }
+    }
+
+}
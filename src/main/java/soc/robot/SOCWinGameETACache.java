@@ -0,0 +1,204 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * This file Copyright (C) 2026 Jeremy D Monin <jeremy@nand.net>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The maintainer of this program can be reached at jsettlers@nand.net
+ **/
+package soc.robot;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A robot brain's bounded cache of {@link SOCPlayerTracker#recalcWinGameETA()} results,
+ * discarding the least recently used when full. While planning, the brain's trackers and their
+ * trial copies recalculate win game ETAs for the same hypothetical states many times.
+ *<P>
+ * Each {@link Key} holds all the tracker state which the calculation reads, in a compact int array:
+ * Player's VP, pieces left, dice numbers, port flags, knights, Largest Army and Longest Road holders and ETAs,
+ * and the possible settlements and cities with their adjacent hexes' dice numbers and ports.
+ * So results never go stale when the game changes; they just aren't looked up anymore.
+ * See {@link SOCPlayerTracker#recalcWinGameETA()} for how keys are built.
+ *<P>
+ * Thread-safe, for trackers being used by parallel planning threads.
+ *
+ * @author Jeremy D Monin &lt;jeremy@nand.net&gt;
+ * @since 2.7.00
+ */
+public final class SOCWinGameETACache
+{
+    /**
+     * Default maximum number of cached results for each brain: 1024.
+     */
+    public static final int DEFAULT_SIZE = 1024;
+
+    private final LinkedHashMap<Key, int[]> results;
+
+    private long hits, misses;
+
+    /**
+     * Create a new empty cache.
+     * @param maxSize  Maximum number of results to keep; at least 1
+     * @throws IllegalArgumentException if {@code maxSize} &lt; 1
+     */
+    public SOCWinGameETACache(final int maxSize)
+        throws IllegalArgumentException
+    {
+        if (maxSize < 1)
+            throw new IllegalArgumentException("maxSize");
+
+        results = new LinkedHashMap<Key, int[]>(Math.min(maxSize, 256), 0.75f, true)
+        {
+            private static final long serialVersionUID = 2700L;
+
+            protected boolean removeEldestEntry(final Map.Entry<Key, int[]> eldest)
+            {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Look up a cached result.
+     * @param key  Key for the tracker's current state
+     * @return  The cached {@code winGameETA, needLR, needLA, knightsToBuy} fields
+     *     (booleans as 1 or 0), or {@code null} if not cached. Caller must not change the array.
+     */
+    int[] get(final Key key)
+    {
+        synchronized (this)
+        {
+            final int[] val = results.get(key);
+            if (val == null)
+                ++misses;
+            else
+                ++hits;
+
+            return val;
+        }
+    }
+
+    /**
+     * Add a calculation's result to the cache.
+     * @param key  Key for the tracker's state before calculating
+     * @param result  Calculated {@code winGameETA, needLR, needLA, knightsToBuy} fields;
+     *     kept by the cache, caller must not change it afterwards
+     */
+    void put(final Key key, final int[] result)
+    {
+        synchronized (this)
+        {
+            results.put(key, result);
+        }
+    }
+
+    /**
+     * Get the number of lookups which found a cached result.
+     * @return  Number of cache hits so far
+     * @see #getMisses()
+     */
+    public synchronized long getHits()
+    {
+        return hits;
+    }
+
+    /**
+     * Get the number of lookups which didn't find a cached result, so were calculated.
+     * @return  Number of cache misses so far
+     * @see #getHits()
+     */
+    public synchronized long getMisses()
+    {
+        return misses;
+    }
+
+    /**
+     * Get the number of results currently in this cache.
+     * @return  Number of cached results, at most the maximum size given to the constructor
+     */
+    public synchronized int size()
+    {
+        return results.size();
+    }
+
+    /**
+     * Builder to make a {@link Key} by appending ints.
+     * Not thread-safe; each calculation uses its own.
+     */
+    static final class KeyBuilder
+    {
+        private int[] arr = new int[128];
+
+        private int len;
+
+        /**
+         * Append an int to the key.
+         * @param i  Int to append
+         * @return  this builder
+         */
+        KeyBuilder add(final int i)
+        {
+            if (len == arr.length)
+                arr = Arrays.copyOf(arr, 2 * len);
+            arr[len++] = i;
+
+            return this;
+        }
+
+        /**
+         * Make the key from the ints appended so far.
+         * @return  a new key
+         */
+        Key build()
+        {
+            return new Key(Arrays.copyOf(arr, len));
+        }
+    }
+
+    /**
+     * Immutable key holding all inputs of a tracker's win game ETA calculation.
+     */
+    static final class Key
+    {
+        private final int[] state;
+
+        private final int hash;
+
+        private Key(final int[] state)
+        {
+            this.state = state;
+            hash = Arrays.hashCode(state);
+        }
+
+        public int hashCode()
+        {
+            return hash;
+        }
+
+        public boolean equals(final Object o)
+        {
+            if (o == this)
+                return true;
+            if (! (o instanceof Key))
+                return false;
+
+            final Key k = (Key) o;
+            return (hash == k.hash) && Arrays.equals(state, k.state);
+        }
+    }
+
+}
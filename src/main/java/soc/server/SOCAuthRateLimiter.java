@@ -0,0 +1,213 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * This file Copyright (C) 2026 Jeremy D Monin <jeremy@nand.net>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The maintainer of this program can be reached at jsettlers@nand.net
+ **/
+package soc.server;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Limits how often each client host, and each username from each host, can try to log in with a password,
+ * so that a burst of attempts can't tie up the server's password-checking threads
+ * (see {@link soc.server.database.SOCDBHelper#PROP_JSETTLERS_DB_AUTH_THREADS}).
+ * Used by {@code SOCServer.authOrRejectClientUser(..)}; limits are set by
+ * {@link SOCServer#PROP_JSETTLERS_ACCOUNTS_AUTH__RATE_HOST} and {@link SOCServer#PROP_JSETTLERS_ACCOUNTS_AUTH__RATE_USER}.
+ *<P>
+ * Each host, and each username tried from each host, has a "token bucket" which holds up to its
+ * per-minute limit of attempts, and refills steadily at that rate. An attempt uses one token from both
+ * its host's and its host and username's buckets; if either is empty, the attempt is rejected.
+ * Buckets which have refilled completely are removed about once a minute.
+ *<P>
+ * Username buckets are per host so that attempts from one host can't lock out a user's logins
+ * from their own host.
+ *<P>
+ * Thread-safe.
+ *
+ * @author Jeremy D Monin &lt;jeremy@nand.net&gt;
+ * @since 2.7.00
+ */
+public final class SOCAuthRateLimiter
+{
+    /** How often to remove full buckets, in milliseconds: 60 seconds */
+    private static final long PRUNE_INTERVAL_MILLIS = 60 * 1000;
+
+    /** Max attempts per minute per host, or 0 for no limit */
+    private final int perHostPerMinute;
+
+    /** Max attempts per minute per username from each host, or 0 for no limit */
+    private final int perUserPerMinute;
+
+    /**
+     * Buckets for client hosts, and for lowercase usernames from each host.
+     * Keys are {@code "h:"} + host, or {@code "u:"} + host + space + username
+     * (or {@code "u:"} + username if host is {@code null}) so a username can't share a host's bucket.
+     *<P>
+     * <B>Locks:</B> Synchronize on this limiter to use.
+     */
+    private final HashMap<String, Bucket> buckets = new HashMap<>();
+
+    /** When {@link #buckets} was last pruned. Locks: Synchronize on this limiter to use. */
+    private long lastPruneMillis;
+
+    /** Number of attempts rejected. Locks: Synchronize on this limiter to use. */
+    private long rejectedCount;
+
+    /**
+     * Create a limiter.
+     * @param perHostPerMinute  Max attempts per minute from each client host, or 0 for no limit
+     * @param perUserPerMinute  Max attempts per minute for each username from each host, or 0 for no limit
+     * @throws IllegalArgumentException if either limit &lt; 0
+     */
+    public SOCAuthRateLimiter(final int perHostPerMinute, final int perUserPerMinute)
+        throws IllegalArgumentException
+    {
+        if ((perHostPerMinute < 0) || (perUserPerMinute < 0))
+            throw new IllegalArgumentException("limit < 0");
+
+        this.perHostPerMinute = perHostPerMinute;
+        this.perUserPerMinute = perUserPerMinute;
+    }
+
+    /**
+     * Is this login attempt allowed by the rate limits? If so, counts it against the limits.
+     * @param host  Client's hostname or IP, or {@code null} to check only {@code userName}
+     * @param userName  Username being tried, or {@code null} to check only {@code host};
+     *     case-insensitive. If {@code host} is {@code null}, checks this username from all hosts together.
+     * @param now  Current time, from {@link System#currentTimeMillis()}
+     * @return  True if allowed, false if rejected because host, or username from that host,
+     *     has too many recent attempts
+     */
+    public synchronized boolean tryAcquire(final String host, final String userName, final long now)
+    {
+        if (now - lastPruneMillis >= PRUNE_INTERVAL_MILLIS)
+        {
+            prune(now);
+            lastPruneMillis = now;
+        }
+
+        final Bucket hb = ((host != null) && (perHostPerMinute > 0))
+            ? bucket("h:" + host, perHostPerMinute, now) : null;
+        final Bucket ub = ((userName != null) && (perUserPerMinute > 0))
+            ? bucket("u:" + ((host != null) ? host + ' ' : "") + userName.toLowerCase(Locale.US),
+                     perUserPerMinute, now)
+            : null;
+
+        if (((hb != null) && (hb.tokens < 1.0)) || ((ub != null) && (ub.tokens < 1.0)))
+        {
+            ++rejectedCount;
+            return false;
+        }
+
+        if (hb != null)
+            hb.tokens -= 1.0;
+        if (ub != null)
+            ub.tokens -= 1.0;
+
+        return true;
+    }
+
+    /**
+     * Get or create the bucket for this key, and refill it for the time since last use.
+     * Call only while synchronized.
+     * @param key  Bucket key, with its {@code "h:"} or {@code "u:"} prefix
+     * @param perMinute  Bucket's capacity and refill rate
+     * @param now  Current time, from {@link System#currentTimeMillis()}
+     * @return  The bucket, refilled as of {@code now}
+     */
+    private Bucket bucket(final String key, final int perMinute, final long now)
+    {
+        Bucket b = buckets.get(key);
+        if (b == null)
+        {
+            b = new Bucket(perMinute, now);
+            buckets.put(key, b);
+        } else {
+            b.refill(perMinute, now);
+        }
+
+        return b;
+    }
+
+    /**
+     * Remove buckets which would be full by now; their keys have no recent attempts.
+     * Call only while synchronized.
+     * @param now  Current time, from {@link System#currentTimeMillis()}
+     */
+    private void prune(final long now)
+    {
+        for (Iterator<Map.Entry<String, Bucket>> it = buckets.entrySet().iterator(); it.hasNext(); )
+        {
+            final Map.Entry<String, Bucket> e = it.next();
+            final int perMinute = (e.getKey().startsWith("h:")) ? perHostPerMinute : perUserPerMinute;
+            final Bucket b = e.getValue();
+            b.refill(perMinute, now);
+            if (b.tokens >= perMinute)
+                it.remove();
+        }
+    }
+
+    /**
+     * Get the number of login attempts rejected so far.
+     * @return  Number of rejected attempts
+     */
+    public synchronized long getRejectedCount()
+    {
+        return rejectedCount;
+    }
+
+    /**
+     * Get the number of hosts and host-username pairs currently tracked.
+     * @return  Number of buckets
+     */
+    public synchronized int getTrackedCount()
+    {
+        return buckets.size();
+    }
+
+    /**
+     * A host's, or host and username's, remaining attempts.
+     */
+    private static final class Bucket
+    {
+        /** Attempts remaining; refills up to the per-minute limit */
+        double tokens;
+
+        /** When {@link #tokens} was last refilled, from {@link System#currentTimeMillis()} */
+        long lastRefill;
+
+        Bucket(final int perMinute, final long now)
+        {
+            tokens = perMinute;
+            lastRefill = now;
+        }
+
+        void refill(final int perMinute, final long now)
+        {
+            final long elapsed = now - lastRefill;
+            if (elapsed <= 0)
+                return;
+
+            tokens = Math.min(perMinute, tokens + (elapsed * perMinute) / 60000.0);
+            lastRefill = now;
+        }
+    }
+
+}
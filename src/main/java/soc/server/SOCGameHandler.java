@@ -1,6 +1,6 @@
 /**
  * Java Settlers - An online multiplayer version of the game Settlers of Catan
- * This file Copyright (C) 2013-2025 Jeremy D Monin <jeremy@nand.net>.
+ * This file Copyright (C) 2013-2026 Jeremy D Monin <jeremy@nand.net>.
  * Contents were formerly part of SOCServer.java;
  * portions of this file Copyright (C) 2003  Robert S. Thomas <thomas@infolab.northwestern.edu>
  * Portions of this file Copyright (C) 2012 Paul Bilnoski <paul@bilnoski.net>
@@ -1791,13 +1791,9 @@ public class SOCGameHandler extends GameHandler
         try
         {
             final List<Connection> gameMembers = srv.gameList.getMembers(gameName);
-            synchronized(gameMembers)
-            {
-                final int n = gameMembers.size();
-                memberNames = new ArrayList<String>(n);
-                for (int i = 0; i < n; ++i)
-                    memberNames.add(gameMembers.get(i).getData());
-            }
+            memberNames = new ArrayList<String>(gameMembers.size());
+            for (final Connection mc : gameMembers)  // copy-on-write list: no lock needed to iterate
+                memberNames.add(mc.getData());
         }
         catch (Exception e)
         {
@@ -1871,7 +1867,7 @@ public class SOCGameHandler extends GameHandler
         {
             // Some boards may have multiple land areas.
             // See also below, and startGame which has very similar code.
-            final HashSet<Integer> psSet;
+            final Set<Integer> psSet;
             final HashSet<Integer>[] lan;
             final int pan;
             if (gameData.hasSeaBoard)
@@ -2321,11 +2317,8 @@ public class SOCGameHandler extends GameHandler
          */
         if ( (! gameHasHumanPlayer) && ! srv.gameList.isGameEmpty(gm))
         {
-            Enumeration<Connection> membersEnum = srv.gameList.getMembers(gm).elements();
-
-            while (membersEnum.hasMoreElements())
+            for (final Connection member : srv.gameList.getMembers(gm))
             {
-                Connection member = membersEnum.nextElement();
 
                 //D.ebugPrintln("*** "+member.data+" is a member of "+gm);
                 boolean nameMatch = false;
@@ -2524,11 +2517,11 @@ public class SOCGameHandler extends GameHandler
                 }
             }
 
-            final int[] robotIndexes = srv.robotShuffleForJoin();  // Shuffle to distribute load
+            final Connection[] robotsShuffled = srv.robotShuffleForJoin();  // Shuffle to distribute load
 
-            for (int idx = 0; idx < srv.robots.size(); idx++)
+            for (int idx = 0; idx < robotsShuffled.length; idx++)
             {
-                robotConn = srv.robots.get(robotIndexes[idx]);
+                robotConn = robotsShuffled[idx];
 
                 nameMatch = gameBots.contains(robotConn.getData());
 
@@ -3980,7 +3973,7 @@ public class SOCGameHandler extends GameHandler
 
         final String gaName = ga.getName();
 
-        srv.numberOfGamesStarted++;  // TODO once multiple handler threads, encapsulate this
+        srv.gameStartedIncrCount();
 
         /**
          * start the game, place any initial pieces.
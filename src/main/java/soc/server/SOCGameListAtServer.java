@@ -1,6 +1,6 @@
 /**
  * Java Settlers - An online multiplayer version of the game Settlers of Catan
- * This file Copyright (C) 2009-2014,2016-2025 Jeremy D Monin <jeremy@nand.net>
+ * This file Copyright (C) 2009-2014,2016-2026 Jeremy D Monin <jeremy@nand.net>
  * Portions of this file Copyright (C) 2003 Robert S. Thomas <thomas@infolab.northwestern.edu>
  * Portions of this file Copyright (C) 2012 Paul Bilnoski <paul@bilnoski.net>
  *
@@ -23,11 +23,12 @@ package soc.server;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Hashtable;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Random;
-import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -56,6 +57,13 @@ import soc.util.Version;
  * Parent class SOCGameList was refactored in v1.1.07, with
  * some methods moved to this new subclass, such as
  * {@link #createGame(String, String, String, SOCGameOptionSet, GameHandler) createGame}.
+ *<P>
+ * <B>Locking:</B> Since v2.7.00, per-game methods don't lock the entire list:
+ * Game lookups use concurrent maps, and each game's member list is copy-on-write,
+ * so it can be iterated to send a message without any lock.
+ * {@link #addMember(Connection, String)} and {@link #removeMember(Connection, String)}
+ * synchronize only on that game's member list. Creating and deleting games are still synchronized on
+ * this list; callers should also hold {@link #takeMonitor()} for those, as before.
  *
  * @see SOCBoardAtServer
  * @see SOCChannelList
@@ -79,23 +87,29 @@ public class SOCGameListAtServer extends SOCGameList
     public static int GAME_TIME_EXPIRE_MINUTES = 120;
 
     /**
-     * Synchronized map of game names to {@link SOCGame} objects.
+     * Concurrent map of game names to {@link SOCGame} objects.
      *<P>
      * A unique game name can be generated by {@link #makeUnusedName(String)}.
      *<P>
      * Before v2.0.00 this field was in parent class {@link SOCGameList} but only the Server used it.
+     * Before v2.7.00 this was a synchronized {@code Hashtable}.
      * @see SOCGameList#gameInfo
      */
-    private final Hashtable<String, SOCGame> gameData;
+    private final Map<String, SOCGame> gameData;
 
-    /** synchronized map of game names to Vector of game members ({@link Connection}s) */
-    protected final Hashtable<String, Vector<Connection>> gameMembers;
+    /**
+     * Concurrent map of game names to list of game members ({@link Connection}s).
+     * Each list is a {@link CopyOnWriteArrayList}, so iterating it needs no lock;
+     * changes to a list are synchronized on that list.
+     * Before v2.7.00 this was a {@code Hashtable} of {@code Vector}s.
+     */
+    protected final Map<String, List<Connection>> gameMembers;
 
     /**
      * Each game's buffer of recent chat text.
      * @since 2.0.00
      */
-    protected final Hashtable<String, SOCChatRecentBuffer> gameChatBuffer;
+    protected final Map<String, SOCChatRecentBuffer> gameChatBuffer;
 
     /**
      * Server's random number generator, for occasional use by
@@ -124,9 +138,9 @@ public class SOCGameListAtServer extends SOCGameList
         if (! (SOCGame.boardFactory instanceof SOCBoardAtServer.BoardFactoryAtServer))
             SOCGame.boardFactory = new SOCBoardAtServer.BoardFactoryAtServer();
 
-        gameData = new Hashtable<String, SOCGame>();
-        gameMembers = new Hashtable<String, Vector<Connection>>();
-        gameChatBuffer = new Hashtable<String, SOCChatRecentBuffer>();
+        gameData = new ConcurrentHashMap<String, SOCGame>();
+        gameMembers = new ConcurrentHashMap<String, List<Connection>>();
+        gameChatBuffer = new ConcurrentHashMap<String, SOCChatRecentBuffer>();
     }
 
     /**
@@ -134,10 +148,10 @@ public class SOCGameListAtServer extends SOCGameList
      * @param   gaName  the name of the game
      * @return true if the game exists and has an empty member list
      */
-    public synchronized boolean isGameEmpty(String gaName)
+    public boolean isGameEmpty(String gaName)
     {
         boolean result;
-        Vector<Connection> members;
+        List<Connection> members;
 
         members = gameMembers.get(gaName);
 
@@ -226,11 +240,18 @@ public class SOCGameListAtServer extends SOCGameList
     }
 
     /**
-     * get a game's members (client connections)
+     * get a game's members (client connections).
+     *<P>
+     * Since v2.7.00 the list is copy-on-write: Iterating it (to send a message to each member, etc)
+     * needs no lock, and sees the members as of when iteration started.
+     * To add or remove members, call {@link #addMember(Connection, String)}
+     * or {@link #removeMember(Connection, String)} instead of changing the list directly.
+     * Before v2.7.00 this method returned a {@code Vector}.
+     *
      * @param   gaName  game name; not null
-     * @return  list of members: a Vector of {@link Connection}s
+     * @return  list of members, or {@code null} if game not found
      */
-    public synchronized Vector<Connection> getMembers(String gaName)
+    public List<Connection> getMembers(String gaName)
     {
         return gameMembers.get(gaName);
     }
@@ -247,7 +268,7 @@ public class SOCGameListAtServer extends SOCGameList
      */
     public boolean isMember(Connection conn, String gaName)
     {
-        final Vector<Connection> members = getMembers(gaName);
+        final List<Connection> members = getMembers(gaName);
 
         if ((members != null) && (members.contains(conn)))
             return true;
@@ -268,7 +289,7 @@ public class SOCGameListAtServer extends SOCGameList
      */
     public boolean isMember(String memberName, String gaName)
     {
-        final Vector<Connection> members = getMembers(gaName);
+        final List<Connection> members = getMembers(gaName);
         if (members == null)
             return false;
 
@@ -288,13 +309,15 @@ public class SOCGameListAtServer extends SOCGameList
      * Please call {@link #takeMonitorForGame(String)} before calling this.
      * Does not call {@link SOCGame#setMemberChatAllowed(String, boolean)}
      * because they aren't a seated player yet, just an observer.
+     *<P>
+     * Synchronizes on the game's member list, not on this entire game list.
      *
      * @param  gaName   the name of the game
      * @param  conn     the member's connection; version should already be set
      */
-    public synchronized void addMember(Connection conn, String gaName)
+    public void addMember(Connection conn, String gaName)
     {
-        Vector<Connection> members = getMembers(gaName);
+        List<Connection> members = getMembers(gaName);
 
         if (members == null)
         {
@@ -303,14 +326,28 @@ public class SOCGameListAtServer extends SOCGameList
 
             // won't be null, except during some unit tests
             // which use client-side SOCGameList.addGame for simplicity
-            members = new Vector<>();
-            gameMembers.put(gaName, members);
+            members = gameMembers.computeIfAbsent(gaName, (k) -> new CopyOnWriteArrayList<Connection>());
         }
 
+        synchronized (members)
+        {
+            addMember_members(conn, gaName, members);
+        }
+    }
+
+    /**
+     * Body of {@link #addMember(Connection, String)}; caller must synchronize on {@code members}.
+     * @param conn  the member's connection
+     * @param gaName  the name of the game
+     * @param members  the game's member list from {@link #getMembers(String)}; not null
+     * @since 2.7.00
+     */
+    private void addMember_members(final Connection conn, final String gaName, final List<Connection> members)
+    {
         if (! members.contains(conn))
         {
             final boolean firstMember = members.isEmpty();
-            members.addElement(conn);
+            members.add(conn);
 
             // Check version range
             SOCGame ga = getGameData(gaName);
@@ -359,44 +396,59 @@ public class SOCGameListAtServer extends SOCGameList
      * Also updates game's client version range, with remaining connected members.
      * Please call {@link #takeMonitorForGame(String)} before calling this.
      * Calls {@link SOCGame#setMemberChatAllowed(String, boolean) game.setMemberChatAllowed(nickname, false)}.
+     *<P>
+     * Synchronizes on the game's member list, not on this entire game list.
      *
      * @param  gaName   the name of the game
      * @param  conn     the member's connection
      */
-    public synchronized void removeMember(Connection conn, String gaName)
+    public void removeMember(Connection conn, String gaName)
     {
-        Vector<Connection> members = getMembers(gaName);
+        final List<Connection> members = getMembers(gaName);
 
         if ((members != null))
         {
-            members.removeElement(conn);
-
-            // Check version of remaining members
-            if (! members.isEmpty())
+            synchronized (members)
             {
-                Connection c = members.firstElement();
-                int lowVers = c.getVersion();
-                int highVers = lowVers;
-
-                for (int i = members.size() - 1; i >= 1; --i)
-                {
-                    c = members.elementAt(i);
-                    int v = c.getVersion();
-                    if (v < lowVers)
-                        lowVers = v;
-                    if (v > highVers)
-                        highVers = v;
-                }
+                removeMember_members(conn, gaName, members);
+            }
+        }
+    }
 
-                SOCGame ga = getGameData(gaName);
-                ga.clientVersionLowest  = lowVers;
-                ga.clientVersionHighest = highVers;
-                ga.hasOldClients = (lowVers < Version.versionNumber());
+    /**
+     * Body of {@link #removeMember(Connection, String)}; caller must synchronize on {@code members}.
+     * @param conn  the member's connection
+     * @param gaName  the name of the game
+     * @param members  the game's member list from {@link #getMembers(String)}; not null
+     * @since 2.7.00
+     */
+    private void removeMember_members(final Connection conn, final String gaName, final List<Connection> members)
+    {
+        members.remove(conn);
 
-                final String memberName = conn.getData();
-                if (memberName != null)
-                    ga.setMemberChatAllowed(memberName, false);
+        // Check version of remaining members
+        if (! members.isEmpty())
+        {
+            int lowVers = Integer.MAX_VALUE, highVers = 0;
+            for (final Connection c : members)
+            {
+                int v = c.getVersion();
+                if (v < lowVers)
+                    lowVers = v;
+                if (v > highVers)
+                    highVers = v;
             }
+
+            SOCGame ga = getGameData(gaName);
+            if (ga == null)
+                return;  // happens only in some unit tests
+            ga.clientVersionLowest  = lowVers;
+            ga.clientVersionHighest = highVers;
+            ga.hasOldClients = (lowVers < Version.versionNumber());
+
+            final String memberName = conn.getData();
+            if ((memberName != null) && ga.isAtServer)  // chat allow list is created when game starts
+                ga.setMemberChatAllowed(memberName, false);
         }
     }
 
@@ -424,7 +476,7 @@ public class SOCGameListAtServer extends SOCGameList
      * @see #memberGames(Connection, String)
      * @since 1.1.08
      */
-    public synchronized List<SOCGame> replaceMemberAllGames
+    public List<SOCGame> replaceMemberAllGames
         (final Connection oldConn, final Connection newConn, final boolean alwaysCheckFeats)
         throws IllegalArgumentException
     {
@@ -439,7 +491,7 @@ public class SOCGameListAtServer extends SOCGameList
 
         for (String gaName : getGameNames())
         {
-            Vector<Connection> members = gameMembers.get(gaName);
+            final List<Connection> members = gameMembers.get(gaName);
             if ((members != null) && members.contains(oldConn))
             {
                 if (cliHasLimitedFeats)
@@ -453,13 +505,16 @@ public class SOCGameListAtServer extends SOCGameList
                     }
                 }
 
-                if (sameVersion)
+                synchronized (members)
                 {
-                    members.remove(oldConn);
-                    members.addElement(newConn);
-                } else {
-                    removeMember(oldConn, gaName);
-                    addMember(newConn, gaName);
+                    if (sameVersion)
+                    {
+                        if (members.remove(oldConn))
+                            members.add(newConn);
+                    } else {
+                        removeMember_members(oldConn, gaName, members);
+                        addMember_members(newConn, gaName, members);
+                    }
                 }
             }
         }
@@ -532,8 +587,7 @@ public class SOCGameListAtServer extends SOCGameList
         if (gaOwner != null)
             game.setOwner(gaOwner, gaLocaleStr);
 
-        Vector<Connection> members = new Vector<Connection>();
-        gameMembers.put(gaName, members);
+        gameMembers.put(gaName, new CopyOnWriteArrayList<Connection>());
         gameChatBuffer.put(gaName, new SOCChatRecentBuffer());
 
         game.setExpiration(game.getStartTime().getTime() + (60 * 1000 * GAME_TIME_EXPIRE_MINUTES));
@@ -695,6 +749,12 @@ public class SOCGameListAtServer extends SOCGameList
             gameData.remove(gaName);
             gameData.put(gaName, rgame);
 
+            // Remove robots from list of game members;
+            // like any other member removal, also updates rgame's client version range
+            for (int pn = 0; pn < rgame.maxPlayers; ++pn)
+                if (reset.wasRobot[pn] && (reset.robotConns[pn] != null))
+                    removeMember(reset.robotConns[pn], gaName);
+
             // Done.
             oldGame.destroyGame();
         }
@@ -718,7 +778,7 @@ public class SOCGameListAtServer extends SOCGameList
 
         if (gl instanceof SOCGameListAtServer)
         {
-            Hashtable<String, SOCGame> gdata = ((SOCGameListAtServer) gl).gameData;
+            Map<String, SOCGame> gdata = ((SOCGameListAtServer) gl).gameData;
             if (gdata != null)
                 addGames(gdata.values(), ourVersion);
         }
@@ -742,9 +802,9 @@ public class SOCGameListAtServer extends SOCGameList
         // (Removes game from list before dealing with members, in case of locks)
         super.deleteGame(gaName);
 
-        Vector<Connection> members = gameMembers.remove(gaName);
+        List<Connection> members = gameMembers.remove(gaName);
         if (members != null)
-            members.removeAllElements();
+            members.clear();
 
         SOCChatRecentBuffer buf = gameChatBuffer.remove(gaName);
         if (buf != null)
@@ -757,7 +817,8 @@ public class SOCGameListAtServer extends SOCGameList
      * Checks {@link SOCGame#getClientVersionMinRequired()}.
      *<P>
      * This method helps determine if a client's connection can be
-     * "taken over" after a network problem.  It synchronizes on <tt>gameData</tt>.
+     * "taken over" after a network problem.
+     * Before v2.7.00 it synchronized on <tt>gameData</tt>; now takes no locks.
      *
      * @param  plConn   the previous connection of the player, which might be taken over
      * @return Minimum version, in same format as {@link SOCGame#getClientVersionMinRequired()},
@@ -769,19 +830,16 @@ public class SOCGameListAtServer extends SOCGameList
     {
         int minVers = 0;
 
-        synchronized(gameData)
+        for (SOCGame ga : getGamesData())
         {
-            for (SOCGame ga : getGamesData())
-            {
-                Vector<Connection> members = getMembers(ga.getName());
-                if ((members == null) || ! members.contains(plConn))
-                    continue;
-
-                // plConn is a member of this game.
-                int vers = ga.getClientVersionMinRequired();
-                if (vers > minVers)
-                    minVers = vers;
-            }
+            List<Connection> members = getMembers(ga.getName());
+            if ((members == null) || ! members.contains(plConn))
+                continue;
+
+            // plConn is a member of this game.
+            int vers = ga.getClientVersionMinRequired();
+            if (vers > minVers)
+                minVers = vers;
         }
 
         return minVers;
@@ -794,7 +852,7 @@ public class SOCGameListAtServer extends SOCGameList
      * @param firstGameName  Game name that should be first element of list
      *           (if <tt>newConn</tt> is a member of it), or null.
      * @return The games, in no particular order (past firstGameName),
-     *           or a 0-length Vector, if member isn't in any game.
+     *           or an empty list, if member isn't in any game.
      *
      * @see #replaceMemberAllGames(Connection, Connection, boolean)
      * @since 1.1.08
@@ -803,30 +861,27 @@ public class SOCGameListAtServer extends SOCGameList
     {
         List<SOCGame> cGames = new ArrayList<SOCGame>();
 
-        synchronized(gameData)
+        SOCGame firstGame = null;
+        if (firstGameName != null)
         {
-            SOCGame firstGame = null;
-            if (firstGameName != null)
+            firstGame = getGameData(firstGameName);
+            if (firstGame != null)
             {
-                firstGame = getGameData(firstGameName);
-                if (firstGame != null)
-                {
-                    Vector<?> members = getMembers(firstGameName);
-                    if ((members != null) && members.contains(c))
-                        cGames.add(firstGame);
-                }
+                List<Connection> members = getMembers(firstGameName);
+                if ((members != null) && members.contains(c))
+                    cGames.add(firstGame);
             }
+        }
 
-            for (SOCGame ga : getGamesData())
-            {
-                if (ga == firstGame)
-                    continue;
-                Vector<?> members = getMembers(ga.getName());
-                if ((members == null) || ! members.contains(c))
-                    continue;
+        for (SOCGame ga : getGamesData())
+        {
+            if (ga == firstGame)
+                continue;
+            List<Connection> members = getMembers(ga.getName());
+            if ((members == null) || ! members.contains(c))
+                continue;
 
-                cGames.add(ga);
-            }
+            cGames.add(ga);
         }
 
         return cGames;
@@ -1,6 +1,6 @@
 /**
  * Java Settlers - An online multiplayer version of the game Settlers of Catan
- * This file Copyright (C) 2016-2025 Jeremy D Monin <jeremy@nand.net>
+ * This file Copyright (C) 2016-2026 Jeremy D Monin <jeremy@nand.net>
  *
  * This program is free software; you can redistribute it and/or
  * modify it under the terms of the GNU General Public License
@@ -28,6 +28,7 @@ import soc.message.SOCMessageFromUnauthClient;
 import soc.message.SOCSitDown;
 import soc.message.SOCStatusMessage;
 import soc.server.genericServer.Connection;
+import soc.server.genericServer.OutboundMessageBatch;
 import soc.server.genericServer.Server;
 
 /**
@@ -116,6 +117,9 @@ import soc.server.genericServer.Server;
      * {@link SOCServerMessageHandler#dispatch(SOCMessage, Connection)}.
      *<P>
      * Does nothing if game unknown, gives no reply.
+     *<P>
+     * Since v2.7.00, messages sent while the game's handler treats a message are held in an
+     * {@link OutboundMessageBatch}, to send to each client which accepts batches as one frame.
      *
      *<H3>General notes:</H3>
      * {@inheritDoc}
@@ -177,7 +181,17 @@ import soc.server.genericServer.Server;
                                      (SOCMessageForGame) mes);
                             }
 
-                            if (hand.dispatch(ga, (SOCMessageForGame) mes, con))
+                            // Send this action's messages to each batch-accepting client as one frame
+                            final boolean handled;
+                            OutboundMessageBatch.begin(gaName);
+                            try
+                            {
+                                handled = hand.dispatch(ga, (SOCMessageForGame) mes, con);
+                            } finally {
+                                OutboundMessageBatch.end();
+                            }
+
+                            if (handled)
                                 return;  // <--- Was handled by GameMessageHandler ---
 
                             // else: Message type unknown or ignored by handler. Server handles it below.
@@ -2,7 +2,7 @@
  * Java Settlers - An online multiplayer version of the game Settlers of Catan
  * Copyright (C) 2003  Robert S. Thomas <thomas@infolab.northwestern.edu>
  * Portions of this file Copyright (C) 2005 Chadwick A McHenry <mchenryc@acm.org>
- * Portions of this file Copyright (C) 2007-2025 Jeremy D Monin <jeremy@nand.net>
+ * Portions of this file Copyright (C) 2007-2026 Jeremy D Monin <jeremy@nand.net>
  * Portions of this file Copyright (C) 2012 Paul Bilnoski <paul@bilnoski.net>
  *
  * This program is free software; you can redistribute it and/or
@@ -33,11 +33,14 @@ import soc.message.*;
 import soc.robot.SOCRobotBrain;
 import soc.robot.SOCRobotClient;
 import soc.robot.SOCRobotDM;
+import soc.robot.SOCTradeSearchMemo;
 import soc.server.database.DBSettingMismatchException;
 import soc.server.database.SOCDBHelper;
+import soc.server.database.SOCDBWriteQueue;
 
 import soc.server.genericServer.Connection;
 import soc.server.genericServer.InboundMessageQueue;
+import soc.server.genericServer.MessageFrames;
 import soc.server.genericServer.Server;
 import soc.server.genericServer.StringConnection;
 import soc.server.savegame.SavedGameModel;
@@ -49,6 +52,7 @@ import soc.util.SOCRobotParameters;
 import soc.util.SOCStringManager;
 import soc.util.Triple;
 import soc.util.Version;
+import soc.util.VirtualThreads;
 
 import net.nand.util.i18n.mgr.StringManager;
 
@@ -73,7 +77,6 @@ import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Hashtable;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -317,6 +320,48 @@ public class SOCServer extends Server
      */
     public static final String PROP_JSETTLERS_BOTS_FAST__PAUSE__PERCENT = "jsettlers.bots.fast_pause_percent";
 
+    /**
+     * Boolean property {@code jsettlers.bots.virtual_threads} to run the server's built-in robots' brains
+     * on virtual threads, if the JRE supports them (JDK 21 or newer), instead of 1 platform thread per brain.
+     * Sets {@link soc.robot.SOCRobotBrain#USE_VIRTUAL_THREADS}. Default is false.
+     * Standalone bot clients can set the same system property:
+     * {@link soc.robot.SOCRobotClient#PROP_JSETTLERS_BOTS_VIRTUAL__THREADS}.
+     * @since 2.7.00
+     */
+    public static final String PROP_JSETTLERS_BOTS_VIRTUAL__THREADS = SOCRobotClient.PROP_JSETTLERS_BOTS_VIRTUAL__THREADS;
+
+    /**
+     * Integer property {@code jsettlers.bots.planning_threads} for the number of threads the server's built-in
+     * robots share to score possible pieces in parallel when planning what to build. Default is 0, to score
+     * them sequentially on each robot brain's thread. Sets {@link soc.robot.SOCRobotDM#PARALLEL_SCORING_THREADS}.
+     * Standalone bot clients can set the same system property:
+     * {@link soc.robot.SOCRobotClient#PROP_JSETTLERS_BOTS_PLANNING__THREADS}.
+     * @since 2.7.00
+     */
+    public static final String PROP_JSETTLERS_BOTS_PLANNING__THREADS = SOCRobotClient.PROP_JSETTLERS_BOTS_PLANNING__THREADS;
+
+    /**
+     * Integer property {@code jsettlers.bots.planning_budget_ms} for the wall-clock time budget, in milliseconds,
+     * of each planning decision by the server's built-in robots. A robot tries its most promising
+     * possible pieces first; when the budget runs out, it scores the rest from quick estimates.
+     * Default is 0, for no limit. Sets {@link soc.robot.SOCRobotDM#PLANNING_BUDGET_MS}.
+     * Standalone bot clients can set the same system property:
+     * {@link soc.robot.SOCRobotClient#PROP_JSETTLERS_BOTS_PLANNING__BUDGET__MS}.
+     * @since 2.7.00
+     */
+    public static final String PROP_JSETTLERS_BOTS_PLANNING__BUDGET__MS = SOCRobotClient.PROP_JSETTLERS_BOTS_PLANNING__BUDGET__MS;
+
+    /**
+     * Integer property {@code jsettlers.bots.trade_budget_ms} for the wall-clock time budget, in milliseconds,
+     * of each trade offer or counteroffer decision by the server's built-in robots. When it runs out, a robot
+     * chooses from the offers it's considered so far. Default is 0, for no limit.
+     * Sets {@link soc.robot.SOCTradeSearchMemo#DECISION_BUDGET_MS}.
+     * Standalone bot clients can set the same system property:
+     * {@link soc.robot.SOCRobotClient#PROP_JSETTLERS_BOTS_TRADE__BUDGET__MS}.
+     * @since 2.7.00
+     */
+    public static final String PROP_JSETTLERS_BOTS_TRADE__BUDGET__MS = SOCRobotClient.PROP_JSETTLERS_BOTS_TRADE__BUDGET__MS;
+
     /**
      * Integer property <tt>jsettlers.bots.botgames.total</tt> will start robot-only games,
      * a few at a time, until this many have been played. (The default is 0.)
@@ -472,6 +517,42 @@ public class SOCServer extends Server
      */
     public static final String PROP_JSETTLERS_ACCOUNTS_ADMINS = "jsettlers.accounts.admins";
 
+    /**
+     * Integer property {@code jsettlers.accounts.auth_rate.host} to limit how many times per minute
+     * each client host can try to log in with a password, when using the optional user DB.
+     * Further attempts are rejected until enough time has passed. 0 for no limit.
+     * The default is {@link #AUTH_RATE_HOST_DEFAULT}.
+     * @see #PROP_JSETTLERS_ACCOUNTS_AUTH__RATE_USER
+     * @see SOCAuthRateLimiter
+     * @since 2.7.00
+     */
+    public static final String PROP_JSETTLERS_ACCOUNTS_AUTH__RATE_HOST = "jsettlers.accounts.auth_rate.host";
+
+    /**
+     * Integer property {@code jsettlers.accounts.auth_rate.user} to limit how many times per minute
+     * each username can be tried with a password from each client host, when using the optional user DB.
+     * Counted per host so that a burst of attempts from another host can't lock out the user.
+     * Further attempts are rejected until enough time has passed. 0 for no limit.
+     * The default is {@link #AUTH_RATE_USER_DEFAULT}.
+     * @see #PROP_JSETTLERS_ACCOUNTS_AUTH__RATE_HOST
+     * @see SOCAuthRateLimiter
+     * @since 2.7.00
+     */
+    public static final String PROP_JSETTLERS_ACCOUNTS_AUTH__RATE_USER = "jsettlers.accounts.auth_rate.user";
+
+    /**
+     * Default for {@link #PROP_JSETTLERS_ACCOUNTS_AUTH__RATE_HOST}: 60 password logins per minute per client host.
+     * @since 2.7.00
+     */
+    public static final int AUTH_RATE_HOST_DEFAULT = 60;
+
+    /**
+     * Default for {@link #PROP_JSETTLERS_ACCOUNTS_AUTH__RATE_USER}: 10 password logins per minute
+     * per username from each client host.
+     * @since 2.7.00
+     */
+    public static final int AUTH_RATE_USER_DEFAULT = 10;
+
     /**
      * Optional property {@code jsettlers.admin.welcome} to customize
      * the welcome message text sent to clients when they connect
@@ -630,9 +711,21 @@ public class SOCServer extends Server
         PROP_JSETTLERS_PORT,     "TCP port number for server to listen for client connections",
         PROP_JSETTLERS_CONNECTIONS,   "Maximum connection count, including robots (default " + SOC_MAXCONN_DEFAULT + ")",
         PROP_JSETTLERS_STARTROBOTS,   "Number of robots to create at startup (default " + SOC_STARTROBOTS_DEFAULT + ")",
+        PROP_JSETTLERS_NET_NIO,       "Use a few non-blocking network I/O threads instead of 2 per client? (if Y)",
+        PROP_JSETTLERS_NET_NIO_THREADS, "If using non-blocking network I/O, number of threads (default: # CPUs, max 4)",
+        PROP_JSETTLERS_NET_BINARY,    "Send compact binary messages to clients which accept them? (default Y)",
+        PROP_JSETTLERS_NET_BATCH,     "Send each game action's messages as one batch to clients which accept it? (default Y; needs "
+            + PROP_JSETTLERS_NET_BINARY + ")",
+        PROP_JSETTLERS_DISPATCH_THREADS, "Number of threads to treat inbound messages, each game on one thread (default 1)",
+        PROP_JSETTLERS_NET_OUTQUEUE_MAX, "Disconnect slow clients with this many messages waiting to be sent (default "
+            + OUTQUEUE_LIMIT_DEFAULT + "; 0 for no limit)",
         PROP_JSETTLERS_ACCOUNTS_OPEN, "Permit open self-registration of new user accounts? (if Y and using a DB)",
         PROP_JSETTLERS_ACCOUNTS_REQUIRED, "Require all players to have a user account? (if Y; requires a DB)",
         PROP_JSETTLERS_ACCOUNTS_ADMINS, "Permit only these usernames to create accounts (comma-separated)",
+        PROP_JSETTLERS_ACCOUNTS_AUTH__RATE_HOST, "Max password logins per minute from each client host (default "
+            + AUTH_RATE_HOST_DEFAULT + ", 0 for no limit)",
+        PROP_JSETTLERS_ACCOUNTS_AUTH__RATE_USER, "Max password logins per minute for each username from each host (default "
+            + AUTH_RATE_USER_DEFAULT + ", 0 for no limit)",
         PROP_JSETTLERS_ADMIN_WELCOME, "If set, welcome message text to send when clients connect",
         PROP_JSETTLERS_ALLOW_DEBUG,   "Allow remote debug commands? (if Y)",
         PROP_JSETTLERS_CLI_MAXCREATECHANNELS,   "Maximum simultaneous channels that a client can create",
@@ -651,6 +744,10 @@ public class SOCServer extends Server
         PROP_JSETTLERS_BOTS_COOKIE,             "Robot cookie value (default is random generated each startup)",
         PROP_JSETTLERS_BOTS_SHOWCOOKIE,         "Flag to show the robot cookie value at startup",
         PROP_JSETTLERS_BOTS_FAST__PAUSE__PERCENT, "Pause at percent of normal pause time (0 to 100) for robot-only games (default 25)",
+        PROP_JSETTLERS_BOTS_VIRTUAL__THREADS,   "Flag to run robot brains on virtual threads if JRE supports them (JDK 21+)",
+        PROP_JSETTLERS_BOTS_PLANNING__THREADS,  "Number of threads robots share to score their build plans (default 0: no extra threads)",
+        PROP_JSETTLERS_BOTS_PLANNING__BUDGET__MS, "Robot time budget (milliseconds) for each build plan decision (default 0: no limit)",
+        PROP_JSETTLERS_BOTS_TRADE__BUDGET__MS,  "Robot time budget (milliseconds) for each trade offer decision (default 0: no limit)",
         PROP_JSETTLERS_BOTS_PAUSE_FOR_HUMAN_TRADE, "In games with humans, robots wait this many seconds before answering a trade offer (default 8)",
         PROP_JSETTLERS_BOTS_PERCENT3P,          "Percent of bots which should be third-party (0 to 100) if available",
         PROP_JSETTLERS_BOTS_START3P,            "Third-party bot client classes to start up with server",
@@ -663,6 +760,13 @@ public class SOCServer extends Server
         SOCDBHelper.PROP_JSETTLERS_DB_BCRYPT_WORK__FACTOR, "For user accounts in DB, password encryption Work Factor (see README) (9 to "
             + soc.server.database.BCrypt.GENSALT_MAX_LOG2_ROUNDS + ')',
         SOCDBHelper.PROP_JSETTLERS_DB_SAVE_GAMES,  "Flag to save all games in DB (if 1 or Y)",
+        SOCDBHelper.PROP_JSETTLERS_DB_POOL_SIZE, "Number of pooled DB connections for logins and game results (default 4, or 1 for SQLite)",
+        SOCDBHelper.PROP_JSETTLERS_DB_POOL_WAIT__MS, "Max wait (milliseconds) for a pooled DB connection (default 10000)",
+        SOCDBHelper.PROP_JSETTLERS_DB_QUEUE_SIZE, "Capacity of background queue for saving game results in DB (default 1000, 0 to disable)",
+        SOCDBHelper.PROP_JSETTLERS_DB_AUTH_THREADS, "Number of threads to check login passwords (default: number of CPU cores)",
+        SOCDBHelper.PROP_JSETTLERS_DB_AUTH_CACHE__SEC, "Seconds to remember successful password logins (default 0: off)",
+        SOCDBHelper.PROP_JSETTLERS_DB_UPGRADE_BG__THREADS, "Number of threads for schema upgrade background tasks (default: half the CPU cores)",
+        SOCDBHelper.PROP_JSETTLERS_DB_UPGRADE_BG__PAUSE__MS, "Pause (milliseconds) after each batch of schema upgrade background tasks (default 0)",
         SOCDBHelper.PROP_JSETTLERS_DB_USER,     "DB username",
         SOCDBHelper.PROP_JSETTLERS_DB_PASS,     "DB password",
         SOCDBHelper.PROP_JSETTLERS_DB_URL,      "DB connection URL",
@@ -1068,6 +1172,10 @@ public class SOCServer extends Server
     /**
      * A list of all robot client {@link Connection}s connected to this server.
      * Includes built-in bots and any third-party bots (which are also in {@link #robots3p}).
+     *<P>
+     * <B>Locks:</B> Game handlers may run on several dispatch threads at once (see {@link #PROP_JSETTLERS_DISPATCH_THREADS}),
+     * and bots can disconnect at any time: Iterate only while synchronized on {@code robots},
+     * or over a copy like the one from {@link #robotShuffleForJoin()}.
      * @see SOCLocalRobotClient#robotClients
      */
     protected Vector<Connection> robots = new Vector<Connection>();
@@ -1298,7 +1406,7 @@ public class SOCServer extends Server
      * The total number of games that have been started:
      * {@link GameHandler#startGame(SOCGame)} has been called
      * and game play has begun. Game state became {@link SOCGame#READY}
-     * or higher from an earlier/lower state.
+     * or higher from an earlier/lower state. Incremented in {@link #gameStartedIncrCount()}.
      */
     protected int numberOfGamesStarted;
 
@@ -1329,14 +1437,15 @@ public class SOCServer extends Server
     protected int numberOfBotsInFinishedGames;
 
     /**
-     * Synchronization for {@link #numberOfGamesFinished} writes,
-     * along with related fields like {@link #numberOfBotsInFinishedGames}.
+     * Synchronization for {@link #numberOfGamesStarted} and {@link #numberOfGamesFinished} writes,
+     * along with related fields like {@link #numberOfBotsInFinishedGames} and {@link #numberOfUsers}.
      * @since 2.0.00
      */
     private Object countFieldSync = new Object();
 
     /**
-     * total number of users
+     * total number of users. Incremented in {@link #nameConnection(Connection, boolean)},
+     * which can be called from auth threads; synchronize on {@link #countFieldSync} when writing.
      */
     protected int numberOfUsers;
 
@@ -1409,6 +1518,14 @@ public class SOCServer extends Server
      */
     private Timer replyAuthTimer = new Timer(true);  // use daemon thread
 
+    /**
+     * Rate limiter for password logins, from {@link #PROP_JSETTLERS_ACCOUNTS_AUTH__RATE_HOST}
+     * and {@link #PROP_JSETTLERS_ACCOUNTS_AUTH__RATE_USER}, or {@code null} if no DB or both limits are 0.
+     * Set in {@link #initSocServer_dbParamFields(boolean)}.
+     * @since 2.7.00
+     */
+    SOCAuthRateLimiter authRateLimiter;
+
     /**
      * Timer to queue and soon run miscellaneous short-duration {@link Runnable} tasks
      * without tying up any single-threaded part of the server.
@@ -1806,6 +1923,29 @@ public class SOCServer extends Server
                     ("Error: Property out of range (0 to 100): " + PROP_JSETTLERS_BOTS_FAST__PAUSE__PERCENT);
         }
         SOCRobotBrain.BOTS_PAUSE_FOR_HUMAN_TRADE = getConfigIntProperty( PROP_JSETTLERS_BOTS_PAUSE_FOR_HUMAN_TRADE, 8 );
+        if (getConfigBoolProperty(PROP_JSETTLERS_BOTS_VIRTUAL__THREADS, false))
+        {
+            SOCRobotBrain.USE_VIRTUAL_THREADS = true;
+            if (! VirtualThreads.isAvailable())
+                System.err.println
+                    ("Warning: " + PROP_JSETTLERS_BOTS_VIRTUAL__THREADS
+                     + ": This JRE doesn't have virtual threads; robots will use platform threads");
+        }
+        v = getConfigIntProperty(PROP_JSETTLERS_BOTS_PLANNING__THREADS, 0);
+        if (v < 0)
+            throw new IllegalArgumentException
+                ("Error: Property can't be negative: " + PROP_JSETTLERS_BOTS_PLANNING__THREADS);
+        SOCRobotDM.PARALLEL_SCORING_THREADS = v;
+        v = getConfigIntProperty(PROP_JSETTLERS_BOTS_PLANNING__BUDGET__MS, 0);
+        if (v < 0)
+            throw new IllegalArgumentException
+                ("Error: Property can't be negative: " + PROP_JSETTLERS_BOTS_PLANNING__BUDGET__MS);
+        SOCRobotDM.PLANNING_BUDGET_MS = v;
+        v = getConfigIntProperty(PROP_JSETTLERS_BOTS_TRADE__BUDGET__MS, 0);
+        if (v < 0)
+            throw new IllegalArgumentException
+                ("Error: Property can't be negative: " + PROP_JSETTLERS_BOTS_TRADE__BUDGET__MS);
+        SOCTradeSearchMemo.DECISION_BUDGET_MS = v;
 
         if (validate_config_mode)
         {
@@ -2332,7 +2472,8 @@ public class SOCServer extends Server
      * as part of {@link #initSocServer_DB(String, String, boolean, boolean, boolean) initSocServer_DB(..)}:
      * {@link #databaseUserAdmins} from {@link #PROP_JSETTLERS_ACCOUNTS_ADMINS},
      * {@link #features}({@link SOCFeatureSet#SERVER_OPEN_REG}) and {@link #acctsNotOpenRegButNoUsers}
-     * from {@link #PROP_JSETTLERS_ACCOUNTS_OPEN}.
+     * from {@link #PROP_JSETTLERS_ACCOUNTS_OPEN}, {@link #authRateLimiter} from
+     * {@link #PROP_JSETTLERS_ACCOUNTS_AUTH__RATE_HOST} and {@link #PROP_JSETTLERS_ACCOUNTS_AUTH__RATE_USER}.
      *<P>
      * Prints some status messages and any problems to {@link System#err}.
      *<P>
@@ -2405,6 +2546,10 @@ public class SOCServer extends Server
             System.err.println
                 ("** To create users, you must list admin names in property " + PROP_JSETTLERS_ACCOUNTS_ADMINS + ".");
         }
+
+        final int rateHost = Math.max(0, getConfigIntProperty(PROP_JSETTLERS_ACCOUNTS_AUTH__RATE_HOST, AUTH_RATE_HOST_DEFAULT)),
+            rateUser = Math.max(0, getConfigIntProperty(PROP_JSETTLERS_ACCOUNTS_AUTH__RATE_USER, AUTH_RATE_USER_DEFAULT));
+        authRateLimiter = ((rateHost > 0) || (rateUser > 0)) ? new SOCAuthRateLimiter(rateHost, rateUser) : null;
     }
 
     /**
@@ -2929,15 +3074,7 @@ public class SOCServer extends Server
         boolean gameExists = false;
 
         if (loadedGame == null)
-            try
-            {
-                gameList.takeMonitor();
-                gameExists = gameList.isGame(gaName);
-            } catch (Exception e) {
-                D.ebugPrintStackTrace(e, "Exception in connectToGame");
-            } finally {
-                gameList.releaseMonitor();
-            }
+            gameExists = gameList.isGame(gaName);  // concurrent lookup: no gameList monitor needed
 
         if (gameExists)
         {
@@ -3644,31 +3781,33 @@ public class SOCServer extends Server
     }
 
     /**
-     * shuffle the indexes to distribute load among {@link #robots}
-     * @return a shuffled array of robot indexes, from 0 to ({@link #robots}.size() - 1)
+     * Copy and shuffle {@link #robots} to distribute load among them.
+     *<P>
+     * Before v2.7.00 this returned a shuffled array of indexes into {@link #robots},
+     * which could be out of range if a bot disconnected while a caller was using them.
+     * @return a shuffled copy of {@link #robots}; may be empty, never null
      * @since 1.1.06
      */
-    int[] robotShuffleForJoin()
+    Connection[] robotShuffleForJoin()
     {
-        int[] robotIndexes = new int[robots.size()];
-
-        for (int i = 0; i < robots.size(); i++)
+        final Connection[] robotConns;
+        synchronized (robots)
         {
-            robotIndexes[i] = i;
+            robotConns = robots.toArray(new Connection[robots.size()]);
         }
 
         for (int j = 0; j < 3; j++)
         {
-            for (int i = 0; i < robotIndexes.length; i++)
+            for (int i = 0; i < robotConns.length; i++)
             {
                 // Swap a random robot, below the ith robot, with the ith robot
-                int idx = Math.abs(rand.nextInt() % (robotIndexes.length - i));
-                int tmp = robotIndexes[idx];
-                robotIndexes[idx] = robotIndexes[i];
-                robotIndexes[i] = tmp;
+                int idx = Math.abs(rand.nextInt() % (robotConns.length - i));
+                Connection tmp = robotConns[idx];
+                robotConns[idx] = robotConns[i];
+                robotConns[i] = tmp;
             }
         }
-        return robotIndexes;
+        return robotConns;
     }
 
     /**
@@ -3811,7 +3950,7 @@ public class SOCServer extends Server
         /// delete the game from gamelist,
         /// tell all robots to leave
         ///
-        Vector<Connection> members = null;
+        List<Connection> members = null;
         members = gameList.getMembers(gm);
 
         endLog(cg);
@@ -3820,13 +3959,8 @@ public class SOCServer extends Server
 
         if (members != null)
         {
-            Enumeration<Connection> conEnum = members.elements();
-
-            while (conEnum.hasMoreElements())
-            {
-                Connection con = conEnum.nextElement();
+            for (Connection con : members)
                 messageToPlayer(con, null, PN_NON_EVENT, new SOCRobotDismiss(gm));
-            }
         }
 
         // Reduce the owner's games-active count
@@ -4211,9 +4345,9 @@ public class SOCServer extends Server
         {
             for (String ga : gameList.getGameNames())
             {
-                Vector<Connection> v = gameList.getMembers(ga);
+                List<Connection> v = gameList.getMembers(ga);
 
-                if (v.contains(c))
+                if ((v != null) && v.contains(c))
                 {
                     boolean thisGameDestroyed = false;
                     gameList.takeMonitorForGame(ga);
@@ -4647,6 +4781,9 @@ public class SOCServer extends Server
      * Optionally calls {@link #recordGameEvent(String, SOCMessage)}.
      *<P>
      * <b>Locks:</b> Takes, releases {@link SOCGameList#takeMonitorForGame(String)}.
+     * Since v2.7.00 the game's member list doesn't need that lock to be iterated;
+     * the monitor is held so that this message isn't sent in the middle of
+     * another thread's sequence of messages to the game.
      *
      * @param gameName  the name of the game
      * @param isEvent  if true, calls {@link #recordGameEvent(String, SOCMessage) recordGameEvent(gameName, mes)};
@@ -4665,27 +4802,23 @@ public class SOCServer extends Server
         if (isEvent)
             recordGameEvent(gameName, mes);
 
-        final String mesCmd = mes.toCmd();
+        final MessageFrames mesFrames = new MessageFrames(mes);
 
         gameList.takeMonitorForGame(gameName);
 
         try
         {
-            Vector<Connection> v = gameList.getMembers(gameName);
+            List<Connection> v = gameList.getMembers(gameName);
 
             if (v != null)
             {
                 //D.ebugPrintln("M2G - "+mes);
-                Enumeration<Connection> menum = v.elements();
-
-                while (menum.hasMoreElements())
+                for (Connection c : v)
                 {
-                    Connection c = menum.nextElement();
-
                     if (c != null)
                     {
                         //currentGameEventRecord.addMessageOut(new SOCMessageRecord(mes, "SERVER", c.getData()));
-                        c.put(mesCmd);
+                        mesFrames.putTo(c);
                     }
                 }
             }
@@ -4763,26 +4896,26 @@ public class SOCServer extends Server
         if (isEvent)
             recordGameEvent(ga, msg);
 
-        gameList.takeMonitorForGame(ga);
+        final Connection[] members = getGameMembersSnapshot(ga, null, true);
+        if (members == null)
+            return;
 
         try
         {
-            Vector<Connection> v = gameList.getMembers(ga);
+            String oldCliTxtMsg = null;  // for uncommon older clients; built at most once
 
-            if (v != null)
+            for (final Connection c : members)
             {
-                Enumeration<Connection> menum = v.elements();
+                if (c == null)
+                    continue;
 
-                while (menum.hasMoreElements())
+                if (c.getVersion() >= SOCGameServerText.VERSION_FOR_GAMESERVERTEXT)
                 {
-                    Connection c = menum.nextElement();
-                    if (c != null)
-                    {
-                        if (c.getVersion() >= SOCGameServerText.VERSION_FOR_GAMESERVERTEXT)
-                            c.put(gameServTxtMsg);
-                        else
-                            c.put(new SOCGameTextMsg(ga, SERVERNAME, txt));
-                    }
+                    c.put(gameServTxtMsg);
+                } else {
+                    if (oldCliTxtMsg == null)
+                        oldCliTxtMsg = new SOCGameTextMsg(ga, SERVERNAME, txt).toCmd();
+                    c.put(oldCliTxtMsg);
                 }
             }
         }
@@ -4790,10 +4923,6 @@ public class SOCServer extends Server
         {
             D.ebugPrintStackTrace(e, "Exception in messageToGame");
         }
-        finally
-        {
-            gameList.releaseMonitorForGame(ga);
-        }
     }
 
     /**
@@ -4803,9 +4932,12 @@ public class SOCServer extends Server
      * Optionally calls {@link #recordGameEvent(String, SOCMessage)}.
      *<P>
      * <B>Locks:</B> If {@code takeMon} is true, takes and releases
-     * {@link SOCGameList#takeMonitorForGame(String) gameList.takeMonitorForGame(gameName)}.
+     * {@link SOCGameList#takeMonitorForGame(String) gameList.takeMonitorForGame(gameName)}
+     * while copying the game's member list; the message is localized and sent after releasing it.
      * Otherwise call {@link SOCGameList#takeMonitorForGame(String) gameList.takeMonitorForGame(gameName)}
      * before calling this method.
+     *<P>
+     * Each distinct locale's message is localized and formatted only once.
      *
      * @param ga  The game
      * @param isEvent  if true, calls {@link #recordGameEvent(String, SOCMessage)};
@@ -4821,7 +4953,7 @@ public class SOCServer extends Server
      */
     public void messageToGameKeyedType(SOCGame ga, final boolean isEvent, SOCKeyedMessage msg, final boolean takeMon)
     {
-        // Very similar code to impl_messageToGameKeyedSpecial, messageToGameForVersionsKeyedExcept:
+        // Very similar code to impl_messageToGameLocalizedText:
         // if you change code here, consider changing it there too
         // Indentation within try/catch matches impl_messageToGameKeyedSpecial's.
 
@@ -4830,36 +4962,29 @@ public class SOCServer extends Server
         boolean rsrcMissing = false;
         SOCMessage msgForRecord = null;  // needed only if isEvent && isRecordGameEventsActive()
 
-        if (takeMon)
-            gameList.takeMonitorForGame(gaName);
+        final Connection[] members = getGameMembersSnapshot(gaName, null, takeMon);
+        if (members == null)
+            return;
 
         try
         {
-                Vector<Connection> v = gameList.getMembers(gaName);
-                if (v == null)
-                    return;
-
-                Enumeration<Connection> menum = v.elements();
-
                 final String msgKey = msg.getKey();
 
-                // for reuse as rendered for previous client during loop:
-                String localText = null, gameTxtLocale = null;
-                SOCMessage gameLocalMsg = null;
+                // Each locale's message is localized and formatted once, then reused for its other clients.
+                // If game doesn't have multiple locales, all clients get the first one's.
+                final HashMap<String, MessageFrames> localMsgs = new HashMap<>();
 
-                while (menum.hasMoreElements())
+                for (final Connection c : members)
                 {
-                    Connection c = menum.nextElement();
                     if (c == null)
                         continue;
 
                     final String cliLocale = c.getI18NLocale();
-                    if ((gameLocalMsg == null)
-                        || (hasMultiLocales
-                             && (  (cliLocale == null)
-                                   ? (gameTxtLocale != null)
-                                   : ! cliLocale.equals(gameTxtLocale)  )))
+                    final String bucket = (hasMultiLocales) ? cliLocale : "";  // cliLocale null for bots
+                    MessageFrames gameLocalMsg = localMsgs.get(bucket);
+                    if (gameLocalMsg == null)
                     {
+                        String localText = null;
                         if (msgKey != null)
                             try
                             {
@@ -4869,16 +4994,18 @@ public class SOCServer extends Server
                                 rsrcMissing = true;
                             }
 
-                        gameLocalMsg = msg.localize(localText);
-                        gameTxtLocale = cliLocale;
+                        final SOCMessage localMsg = msg.localize(localText);
+                        if (localMsg == null)
+                            continue;
+                        gameLocalMsg = new MessageFrames(localMsg);
+                        localMsgs.put(bucket, gameLocalMsg);
 
                         if (isEvent && (msgForRecord == null) && isRecordGameEventsActive()
                             && ("en_US".equals(cliLocale)))
-                            msgForRecord = gameLocalMsg;
+                            msgForRecord = localMsg;
                     }
 
-                    if (gameLocalMsg != null)
-                        c.put(gameLocalMsg);
+                    gameLocalMsg.putTo(c);
                 }
 
                 if (rsrcMissing)
@@ -4888,6 +5015,7 @@ public class SOCServer extends Server
                 {
                     if (msgForRecord == null)
                     {
+                        String localText = null;
                         if (msgKey != null)
                             try
                             {
@@ -4906,11 +5034,6 @@ public class SOCServer extends Server
         {
             D.ebugPrintStackTrace(e, "Exception in messageToGameKeyedType");
         }
-        finally
-        {
-            if (takeMon)
-                gameList.releaseMonitorForGame(gaName);
-        }
     }
 
     /**
@@ -5215,6 +5338,11 @@ public class SOCServer extends Server
      * Implement {@link #messageToGameKeyed(SOCGame, boolean, boolean, String, Object...)},
      * {@code messageToGameKeyedSpecial}, and {@code messageToGameKeyedSpecialExcept}.
      * Optionally calls {@link #recordGameEvent(String, SOCMessage)}.
+     *<P>
+     * If {@code takeMon}, holds the game's monitor only while copying {@code members};
+     * text is localized once per locale and sent by
+     * {@link #impl_messageToGameLocalizedText(SOCGame, Connection[], Connection, List, int, int, boolean, String, Object[])}
+     * after releasing it.
      *
      * @param ga  the game object
      * @param isEvent  if true, calls {@link #recordGameEvent(String, SOCMessage)};
@@ -5259,59 +5387,25 @@ public class SOCServer extends Server
             throw new NullPointerException("key");  // check now, instead of a misleading throw from a method called from here
         // null ga will throw soon at getName, no need to check here too
 
-        // Very similar code to messageToGameKeyedType, messageToGameForVersionsKeyedExcept:
+        // Similar code to messageToGameKeyedType, messageToGameForVersionsKeyedExcept:
         // If you change code here, change it there too.
         // Indentation within try/catch matches messageToGameKeyedType's.
 
-        final boolean hasMultiLocales = ga.hasMultiLocales;
         final String gaName = ga.getName();
         SOCMessage msgForRecord = null;  // needed only if isEvent && isRecordGameEventsActive()
 
-        if (takeMon)
-            gameList.takeMonitorForGame(gaName);
+        final Connection[] memberConns = getGameMembersSnapshot(gaName, members, takeMon);
 
         try
         {
-                Iterator<Connection> miter = members.iterator();
-
-                // for reuse as rendered for previous client during loop:
-                String gameText = null, gameTxtLocale = null;
-                SOCMessage gameTextMsg = null;
-
-                while (miter.hasNext())
-                {
-                    Connection c = miter.next();
-                    if ((c == null) || (c == ex))
-                        continue;
-
-                    final String cliLocale = c.getI18NLocale();
-                    if (cliLocale == null)
-                        continue;  // skip bots
-
-                    if ((gameTextMsg == null)
-                        || (hasMultiLocales && ! cliLocale.equals(gameTxtLocale)))
-                    {
-                        gameText = (fmtSpecial)
-                            ? c.getLocalizedSpecial(ga, key, params)
-                            : ((params != null) ? c.getLocalized(key, params) : c.getLocalized(key));
-                        gameTextMsg = new SOCGameServerText(gaName, gameText);
-                        gameTxtLocale = cliLocale;
-
-                        if (isEvent && (msgForRecord == null) && isRecordGameEventsActive()
-                            && ("en_US".equals(cliLocale)))
-                            msgForRecord = gameTextMsg;
-                    }
-
-                    if ((c.getVersion() >= SOCGameServerText.VERSION_FOR_GAMESERVERTEXT) && (gameTextMsg != null))
-                        c.put(gameTextMsg);
-                    else
-                        // old client (this is uncommon) needs a different message type
-                        c.put(new SOCGameTextMsg
-                            (gaName, SERVERNAME, gameText));
-                }
+                final String enText = impl_messageToGameLocalizedText
+                    (ga, memberConns, ex, null, -1, Integer.MAX_VALUE, fmtSpecial, key, params);
 
                 if (isEvent && isRecordGameEventsActive())
                 {
+                    if (enText != null)
+                        msgForRecord = new SOCGameServerText(gaName, enText);
+
                     if (msgForRecord == null)
                     {
                         String txt = key;
@@ -5340,6 +5434,38 @@ public class SOCServer extends Server
             D.ebugPrintStackTrace
                 (e, (fmtSpecial) ? "Exception in messageToGameKeyedSpecial" : "Exception in messageToGameKeyed");
         }
+    }
+
+    /**
+     * Copy a game's member list, to send to those members without holding the game's monitor
+     * while messages are formatted and queued.
+     *<P>
+     * The copy is a snapshot: A member who joins or leaves the game after this call returns
+     * won't be added or removed. Each connection's outbound queue is still in the order messages were
+     * put to it, so messages sent to a client by one thread arrive in the order that thread sent them.
+     *<P>
+     * <B>Locks:</B> If {@code takeMon} is true, takes and releases
+     * {@link SOCGameList#takeMonitorForGame(String) gameList.takeMonitorForGame(gaName)}
+     * while copying; otherwise caller should already hold that monitor.
+     *
+     * @param gaName  Game name
+     * @param members  Members to copy, or {@code null} to copy {@link SOCGameListAtServer#getMembers(String)}
+     * @param takeMon  Should this method take and release the game's monitor?
+     * @return  A copy of the game's members, or {@code null} if game not found
+     * @since 2.7.00
+     */
+    private Connection[] getGameMembersSnapshot
+        (final String gaName, final List<Connection> members, final boolean takeMon)
+    {
+        if (takeMon)
+            gameList.takeMonitorForGame(gaName);
+
+        try
+        {
+            final List<Connection> mlist = (members != null) ? members : gameList.getMembers(gaName);
+
+            return (mlist != null) ? mlist.toArray(new Connection[mlist.size()]) : null;
+        }
         finally
         {
             if (takeMon)
@@ -5347,6 +5473,100 @@ public class SOCServer extends Server
         }
     }
 
+    /**
+     * Send a localized {@link SOCGameServerText} game text message to some members of a game,
+     * localizing and formatting it only once for each distinct locale and client version group.
+     * Used by {@link #impl_messageToGameKeyedSpecial(SOCGame, boolean, int[], boolean, List, Connection, boolean, String, Object...)}
+     * and {@link #messageToGameForVersionsKeyedExcept(SOCGame, int, int, boolean, List, boolean, String, Object...)}.
+     *<P>
+     * Members with null locale (such as robots) are skipped.
+     * Client versions older than v2.0.00 will be sent {@link SOCGameTextMsg}(ga, {@link #SERVERNAME}, txt).
+     * If game doesn't have multiple locales ({@link SOCGame#hasMultiLocales}),
+     * all members are sent the text as localized for the first member.
+     *<P>
+     * <B>Locks:</B> None taken; {@code members} is a snapshot from
+     * {@link #getGameMembersSnapshot(String, List, boolean)}.
+     *
+     * @param ga  The game
+     * @param members  Members to send to, or {@code null} to do nothing
+     * @param ex  Excluded connection, or {@code null}
+     * @param exs  Excluded connections, or {@code null}
+     * @param vmin  Minimum version to send to, or -1
+     * @param vmax  Maximum version to send to, or {@link Integer#MAX_VALUE}
+     * @param fmtSpecial  Should this method call {@link SOCStringManager#getSpecial(SOCGame, String, Object...)}
+     *            instead of the usual {@link SOCStringManager#get(String, Object...)} ?
+     * @param key  Message localization key, from {@link SOCStringManager#get(String)}
+     * @param params  Objects to use with <tt>{0}</tt>, <tt>{1}</tt>, etc in the localized string, or {@code null}
+     * @return  The text as localized for an {@code en_US} member, if any member has that locale, otherwise {@code null}
+     * @throws MissingResourceException if no string can be found for {@code key}; this is a RuntimeException
+     * @throws IllegalArgumentException if the localized pattern string has a parse error
+     * @since 2.7.00
+     */
+    private String impl_messageToGameLocalizedText
+        (final SOCGame ga, final Connection[] members, final Connection ex, final List<Connection> exs,
+         final int vmin, final int vmax, final boolean fmtSpecial, final String key, final Object[] params)
+        throws MissingResourceException, IllegalArgumentException
+    {
+        if (members == null)
+            return null;
+
+        final boolean hasMultiLocales = ga.hasMultiLocales;
+        final String gaName = ga.getName();
+        String enText = null;
+
+        // Per-locale caches: Each distinct text and message is localized and formatted once,
+        // then reused for that locale's other clients
+        final HashMap<String, String> localTexts = new HashMap<>();
+        final HashMap<String, MessageFrames> localMsgs = new HashMap<>();
+        HashMap<String, MessageFrames> oldCliLocalMsgs = null;  // for uncommon older clients
+
+        for (final Connection c : members)
+        {
+            if ((c == null) || (c == ex) || ((exs != null) && exs.contains(c)))
+                continue;
+
+            final int cv = c.getVersion();
+            if ((cv < vmin) || (cv > vmax))
+                continue;
+
+            final String cliLocale = c.getI18NLocale();
+            if (cliLocale == null)
+                continue;  // skip bots
+
+            final String bucket = (hasMultiLocales) ? cliLocale : "";
+            final boolean isOldCli = (cv < SOCGameServerText.VERSION_FOR_GAMESERVERTEXT);
+            if (isOldCli && (oldCliLocalMsgs == null))
+                oldCliLocalMsgs = new HashMap<>();
+            final HashMap<String, MessageFrames> bucketMsgs = (isOldCli) ? oldCliLocalMsgs : localMsgs;
+
+            MessageFrames gameTextMsg = bucketMsgs.get(bucket);
+            if (gameTextMsg == null)
+            {
+                String gameText = localTexts.get(bucket);
+                if (gameText == null)
+                {
+                    gameText = (fmtSpecial)
+                        ? c.getLocalizedSpecial(ga, key, params)
+                        : ((params != null) ? c.getLocalized(key, params) : c.getLocalized(key));
+                    localTexts.put(bucket, gameText);
+
+                    if ((enText == null) && "en_US".equals(cliLocale))
+                        enText = gameText;
+                }
+
+                gameTextMsg = new MessageFrames
+                    ((isOldCli)
+                     ? new SOCGameTextMsg(gaName, SERVERNAME, gameText)  // old client needs a different message type
+                     : new SOCGameServerText(gaName, gameText));
+                bucketMsgs.put(bucket, gameTextMsg);
+            }
+
+            gameTextMsg.putTo(c);
+        }
+
+        return enText;
+    }
+
     /**
      * Send a message to the given game.
      *<P>
@@ -5388,22 +5608,18 @@ public class SOCServer extends Server
         if (isEvent)
             recordGameEvent(gameName, mes);
 
-        Vector<Connection> v = gameList.getMembers(gameName);
+        List<Connection> v = gameList.getMembers(gameName);
         if (v == null)
             return;
 
         //D.ebugPrintln("M2G - "+mes);
-        final String mesCmd = mes.toCmd();
-        Enumeration<Connection> menum = v.elements();
-
-        while (menum.hasMoreElements())
+        final MessageFrames mesFrames = new MessageFrames(mes);
+        for (Connection c : v)
         {
-            Connection c = menum.nextElement();
-
             if (c != null)
             {
                 //currentGameEventRecord.addMessageOut(new SOCMessageRecord(mes, "SERVER", c.getData()));
-                c.put(mesCmd);
+                mesFrames.putTo(c);
             }
         }
     }
@@ -5466,22 +5682,18 @@ public class SOCServer extends Server
 
         try
         {
-            Vector<Connection> v = gameList.getMembers(gn);
+            List<Connection> v = gameList.getMembers(gn);
 
             if (v != null)
             {
                 //D.ebugPrintln("M2GE - "+mes);
-                final String mesCmd = mes.toCmd();
-                Enumeration<Connection> menum = v.elements();
-
-                while (menum.hasMoreElements())
+                final MessageFrames mesFrames = new MessageFrames(mes);
+                for (Connection con : v)
                 {
-                    Connection con = menum.nextElement();
-
                     if ((con != null) && ! ex.contains(con))
                     {
                         //currentGameEventRecord.addMessageOut(new SOCMessageRecord(mes, "SERVER", con.getData()));
-                        con.put(mesCmd);
+                        mesFrames.putTo(con);
                     }
                 }
             }
@@ -5523,22 +5735,19 @@ public class SOCServer extends Server
 
         try
         {
-            Vector<Connection> v = gameList.getMembers(gn);
+            List<Connection> v = gameList.getMembers(gn);
 
             if (v != null)
             {
                 //D.ebugPrintln("M2GE - "+mes);
-                final String mesCmd = mes.toCmd();
-                Enumeration<Connection> menum = v.elements();
-
-                while (menum.hasMoreElements())
+                final MessageFrames mesFrames = new MessageFrames(mes);
+                for (Connection con : v)
                 {
-                    Connection con = menum.nextElement();
                     if ((con == null) || (con == ex))
                         continue;
 
                     //currentGameEventRecord.addMessageOut(new SOCMessageRecord(mes, "SERVER", con.getData()));
-                    con.put(mesCmd);
+                    mesFrames.putTo(con);
                 }
             }
         }
@@ -5658,15 +5867,13 @@ public class SOCServer extends Server
 
         try
         {
-            Vector<Connection> v = gameList.getMembers(gaName);
+            List<Connection> v = gameList.getMembers(gaName);
             if (v == null)
                 return;
 
-            String mesCmd = null;  // lazy init, will be mes.toCmd()
-            final Enumeration<Connection> menum = v.elements();
-            while (menum.hasMoreElements())
+            final MessageFrames mesFrames = new MessageFrames(mes);  // formats are lazy init
+            for (final Connection c : v)
             {
-                final Connection c = menum.nextElement();
                 if ((c == null) || ((ex != null) && ex.contains(c)))
                     continue;
 
@@ -5675,9 +5882,7 @@ public class SOCServer extends Server
                     continue;
 
                 //currentGameEventRecord.addMessageOut(new SOCMessageRecord(mes, "SERVER", con.getData()));
-                if (mesCmd == null)
-                    mesCmd = mes.toCmd();
-                c.put(mesCmd);
+                mesFrames.putTo(c);
             }
         }
         catch (Exception e)
@@ -5755,7 +5960,8 @@ public class SOCServer extends Server
      * {@link #isRecordGameEventsActive()}, caller should also call
      * {@link #recordGameEvent(String, SOCMessage)} with a message appropriate for the current version.
      *<P>
-     * <b>Locks:</b> If {@code takeMon} is true, takes and releases {@link SOCGameList#takeMonitorForGame(String)}.
+     * <b>Locks:</b> If {@code takeMon} is true, takes and releases {@link SOCGameList#takeMonitorForGame(String)}
+     * while copying the game's member list; text is localized once per locale and sent after releasing it.
      * Otherwise call {@link SOCGameList#takeMonitorForGame(String) gameList.takeMonitorForGame(gaName)}
      * before calling this method.
      *
@@ -5795,67 +6001,16 @@ public class SOCServer extends Server
         if ((ga.clientVersionLowest > vmax) || (ga.clientVersionHighest < vmin))
             return;  // <--- All clients too old or too new ---
 
-        // Some code here is similar to messageToGameKeyedType, impl_messageToGameKeyedSpecial,
-        // or messageToGameForVersionsExcept: If you change code here, consider changing it there too
-
-        final boolean hasMultiLocales = ga.hasMultiLocales;
-        final String gaName = ga.getName();
-
-        if (takeMon)
-            gameList.takeMonitorForGame(gaName);
+        final Connection[] members = getGameMembersSnapshot(ga.getName(), null, takeMon);
 
         try
         {
-            Vector<Connection> v = gameList.getMembers(gaName);
-            if (v == null)
-                return;
-
-            // for reuse as rendered for previous client during loop:
-            String gameText = null, gameTxtLocale = null;
-            SOCMessage gameTextMsg = null;
-
-            final Enumeration<Connection> menum = v.elements();
-            while (menum.hasMoreElements())
-            {
-                final Connection c = menum.nextElement();
-                if ((c == null) || ((ex != null) && ex.contains(c)))
-                    continue;
-
-                final int cv = c.getVersion();
-                if ((cv < vmin) || (cv > vmax))
-                    continue;
-
-                final String cliLocale = c.getI18NLocale();
-                if (cliLocale == null)
-                    continue;  // skip bots
-
-                if ((gameTextMsg == null)
-                    || (hasMultiLocales && ! cliLocale.equals(gameTxtLocale)))
-                {
-                    gameText = (formatSpecial)
-                        ? c.getLocalizedSpecial(ga, key, params)
-                        : ((params != null) ? c.getLocalized(key, params) : c.getLocalized(key));
-                    gameTextMsg = new SOCGameServerText(gaName, gameText);
-                    gameTxtLocale = cliLocale;
-                }
-
-                if ((cv >= SOCGameServerText.VERSION_FOR_GAMESERVERTEXT) && (gameTextMsg != null))
-                    c.put(gameTextMsg);
-                else
-                    // old client (this is uncommon) needs a different message type
-                    c.put(new SOCGameTextMsg
-                        (gaName, SERVERNAME, gameText));
-            }
+            impl_messageToGameLocalizedText(ga, members, null, ex, vmin, vmax, formatSpecial, key, params);
         }
         catch (Exception e)
         {
             D.ebugPrintStackTrace(e, "Exception in messageToGameForVersionsKeyedExcept");
         }
-        finally
-        {
-            if (takeMon)
-                gameList.releaseMonitorForGame(gaName);
-        }
     }
 
     /**
@@ -6176,7 +6331,10 @@ public class SOCServer extends Server
                     leaveGameMemberAndCleanup(oldConn, ga, null);
         }
 
-        numberOfUsers++;
+        synchronized (countFieldSync)
+        {
+            ++numberOfUsers;
+        }
     }
 
     /**
@@ -6255,8 +6413,11 @@ public class SOCServer extends Server
     {
         ArrayList<String> names = new ArrayList<>();
 
-        for (Connection rc : robots)
-            names.add(rc.getData());
+        synchronized (robots)
+        {
+            for (Connection rc : robots)
+                names.add(rc.getData());
+        }
 
         boolean hadAny = false;
         for (String botName : names)
@@ -6753,7 +6914,8 @@ public class SOCServer extends Server
             Thread.yield();
         }
 
-        /// now continue with shutdown
+        /// now continue with shutdown;
+        /// db.cleanup also writes out anything in its SOCDBWriteQueue
         db.cleanup(true);
 
         super.stopServer();
@@ -6931,6 +7093,20 @@ public class SOCServer extends Server
             return;
         }
 
+        /**
+         * limit rate of password checks, which are slow by design
+         */
+        final SOCAuthRateLimiter limiter = authRateLimiter;
+        if ((limiter != null) && (msgPass.length() > 0) && db.isInitialized()
+            && ! limiter.tryAcquire(c.host(), msgUser, System.currentTimeMillis()))
+        {
+            c.put(SOCStatusMessage.buildForVersion
+                     (SOCStatusMessage.SV_NOT_OK_GENERIC, cliVers,
+                      c.getLocalized("netmsg.status.auth_rate_limited")));
+                          // "Too many login attempts; please wait a minute and try again."
+            return;
+        }
+
         /**
          * password check new connection from optional database, if not done already and if possible
          */
@@ -7227,6 +7403,13 @@ public class SOCServer extends Server
         scd.feats = cfeatSet;
         scd.hasLimitedFeats = hasLimitedFeats;
         scd.scenVersion = scenVers;
+        c.setBinaryMessagesAccepted
+            (cfeatSet.isActive(SOCFeatureSet.CLIENT_BINARY_MESSAGES)
+             && getConfigBoolProperty(PROP_JSETTLERS_NET_BINARY, true));
+        c.setBatchMessagesAccepted
+            (c.isBinaryMessagesAccepted()  // batches are binary frames
+             && cfeatSet.isActive(SOCFeatureSet.CLIENT_MESSAGE_BATCH)
+             && getConfigBoolProperty(PROP_JSETTLERS_NET_BATCH, true));
 
         if (hasLimitedFeats)
         {
@@ -8457,11 +8640,11 @@ public class SOCServer extends Server
         // Key = bot Connection, value = seat number as {@link Integer} like in SOCServer.robotJoinRequests
         Hashtable<Connection, Object> robotsRequested = null;
 
-        int[] robotIndexes = null;
+        Connection[] robotsShuffled = null;
         if (robotSeats == null)
         {
-            // shuffle the indexes to distribute load
-            robotIndexes = robotShuffleForJoin();
+            // shuffle to distribute load
+            robotsShuffled = robotShuffleForJoin();
         }
         else
         {
@@ -8470,7 +8653,7 @@ public class SOCServer extends Server
                 throw new IllegalArgumentException("robotSeats Length must be MAXPLAYERS");
         }
 
-        final int nRobotsAvailable = robots.size();
+        final int nRobotsAvailable = (robotsShuffled != null) ? robotsShuffled.length : robots.size();
         final String gaName = ga.getName();
         final SOCGameOptionSet gaOpts = ga.getGameOptions();
         final boolean gameHasLimitedFeats = (ga.getClientFeaturesRequired() != null);
@@ -8521,7 +8704,7 @@ public class SOCServer extends Server
                 {
                     do
                     {
-                        robotConn = robots.get(robotIndexes[idx]);
+                        robotConn = robotsShuffled[idx];
                         if (((forSeats != null) && gameList.isMember(robotConn, gaName))
                             || (gameHasLimitedFeats &&
                                 ! ga.canClientJoin(((SOCClientData) (robotConn.getAppData())).feats)))
@@ -9726,6 +9909,23 @@ public class SOCServer extends Server
         }
     }
 
+    /**
+     * Increment {@link #numberOfGamesStarted}.
+     * Call when a game's state becomes {@link SOCGame#READY} (or higher)
+     * from a lower/earlier state.
+     *<P>
+     * Thread-safe; synchronizes on an internal object.
+     * Package-level access for calls from {@link GameHandler}s.
+     * @since 2.7.00
+     */
+    void gameStartedIncrCount()
+    {
+        synchronized (countFieldSync)
+        {
+            ++numberOfGamesStarted;
+        }
+    }
+
     /**
      * Increment {@link #numberOfGamesFinished} and related server-statistics fields.
      * Call when a game's state becomes {@link SOCGame#OVER} (or higher)
@@ -9818,6 +10018,9 @@ public class SOCServer extends Server
      * Win-loss records require schema version &gt;= {@link SOCDBHelper#SCHEMA_VERSION_2000}.
      * If property {@code jsettlers.db.save.games} is false ({@link SOCDBHelper#PROP_JSETTLERS_DB_SAVE_GAMES}),
      * will only update users' win-loss counts, not store game details.
+     *<P>
+     * Unless {@link SOCDBHelper#PROP_JSETTLERS_DB_QUEUE_SIZE} is 0, queues the results to be saved
+     * in the background by {@link SOCDBWriteQueue}; {@link #stopServer()} writes out any queued results.
      *
      * @param ga  the game; state should be {@link SOCGame#OVER}
      */
@@ -9833,9 +10036,12 @@ public class SOCServer extends Server
 
         try
         {
-            db.saveGameScores
-                (ga, ga.getDurationSeconds(),
-                 ! getConfigBoolProperty(SOCDBHelper.PROP_JSETTLERS_DB_SAVE_GAMES, false));
+            final boolean winLossOnly = ! getConfigBoolProperty(SOCDBHelper.PROP_JSETTLERS_DB_SAVE_GAMES, false);
+            final SOCDBWriteQueue wq = db.getWriteQueue();
+            if (wq != null)
+                wq.queueGameScores(ga, ga.getDurationSeconds(), winLossOnly);
+            else
+                db.saveGameScores(ga, ga.getDurationSeconds(), winLossOnly);
         }
         catch (Exception e)
         {
@@ -1,6 +1,6 @@
 /**
  * Java Settlers - An online multiplayer version of the game Settlers of Catan
- * This file Copyright (C) 2016-2021,2023-2025 Jeremy D Monin <jeremy@nand.net>
+ * This file Copyright (C) 2016-2021,2023-2026 Jeremy D Monin <jeremy@nand.net>
  * Some contents were formerly part of SOCServer.java;
  * Portions of this file Copyright (C) 2003 Robert S. Thomas <thomas@infolab.northwestern.edu>
  * Portions of this file Copyright (C) 2007-2016 Jeremy D Monin <jeremy@nand.net>
@@ -30,7 +30,6 @@ import java.sql.SQLException;
 import java.text.DateFormat;
 import java.util.ArrayList;
 import java.util.Date;
-import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.Hashtable;
 import java.util.Iterator;
@@ -1754,6 +1753,17 @@ public class SOCServerMessageHandler
         listAddStat(li, "Games finished", srv.numberOfGamesFinished);
         listAddStat(li, "Games finished which had bots", srv.numberOfGamesFinishedWithBots);
         listAddStat(li, "Number of bots in finished games", srv.numberOfBotsInFinishedGames);
+        if (srv.db.isInitialized())
+        {
+            final long[] as = srv.db.getAuthStats();
+            listAddStat
+                (li, "Password checks", as[3] + " (" + as[0] + " threads: " + as[1] + " queued, " + as[2]
+                 + " running; queue wait avg " + as[4] + " ms, max " + as[5] + " ms; check avg " + as[6]
+                 + " ms; " + as[7] + " from cache)");
+            final SOCAuthRateLimiter limiter = srv.authRateLimiter;
+            if (limiter != null)
+                listAddStat(li, "Password logins rate-limited", Long.toString(limiter.getRejectedCount()));
+        }
         final long totalMem = rt.totalMemory(), freeMem = rt.freeMemory();
         listAddStat
             (li, "Total Memory", totalMem + " (" + I18n.bytesToHumanUnits(totalMem) + ')');
@@ -2181,7 +2191,7 @@ public class SOCServerMessageHandler
             }
         }
 
-        Vector<Connection> gameMembers = null;
+        List<Connection> gameMembers = null;
 
         gameList.takeMonitorForGame(gaNameWho);
         try
@@ -2205,10 +2215,8 @@ public class SOCServerMessageHandler
         if (sendToCli)
             srv.messageToPlayerKeyed(c, gaName, SOCServer.PN_NON_EVENT, "reply.game_members.of", gaNameWho);  // "Members of game {0}:"
 
-        Enumeration<Connection> membersEnum = gameMembers.elements();
-        while (membersEnum.hasMoreElements())
+        for (final Connection conn : gameMembers)
         {
-            Connection conn = membersEnum.nextElement();
             String mNameStr = "> " + conn.getData();
 
             if (sendToCli)
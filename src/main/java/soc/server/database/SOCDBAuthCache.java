@@ -0,0 +1,168 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * This file Copyright (C) 2026 Jeremy D Monin <jeremy@nand.net>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The maintainer of this program can be reached at jsettlers@nand.net
+ **/
+package soc.server.database;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Short-lived cache of recently verified passwords for {@link SOCDBHelper#authenticateUserPassword(String, String,
+ * SOCDBHelper.AuthPasswordRunnable)}, so that a user who reconnects several times in a row
+ * (after a server restart, for example) doesn't need a slow {@link BCrypt} check each time.
+ * Enabled by {@link SOCDBHelper#PROP_JSETTLERS_DB_AUTH_CACHE__SEC}.
+ *<P>
+ * Passwords aren't stored: Each entry's key is a salted SHA-256 digest of the username, the user's
+ * {@link BCrypt} hash from the database, and the password which was verified against that hash.
+ * The salt is random for each cache instance, so keys can't be reused elsewhere. Since the key includes
+ * the DB's hash, changing a user's password makes their old entries unusable.
+ * Only successful verifications are cached.
+ *<P>
+ * Thread-safe.
+ *
+ * @author Jeremy D Monin &lt;jeremy@nand.net&gt;
+ * @since 2.7.00
+ */
+final class SOCDBAuthCache
+{
+    /** Maximum number of entries; the oldest are removed when full. */
+    static final int MAX_ENTRIES = 10000;
+
+    /** How long entries are kept, in milliseconds */
+    private final long ttlMillis;
+
+    /** Random salt for {@link #key(String, String, String)} */
+    private final byte[] salt = new byte[16];
+
+    /**
+     * Each key's expiration time, from {@link System#currentTimeMillis()}, oldest first.
+     *<P>
+     * <B>Locks:</B> Synchronize on this cache to use.
+     */
+    private final LinkedHashMap<String, Long> verified = new LinkedHashMap<String, Long>()
+    {
+        private static final long serialVersionUID = 2700L;
+
+        protected boolean removeEldestEntry(Map.Entry<String, Long> eldest)
+        {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    /**
+     * Create an empty cache.
+     * @param ttlSeconds  How long to keep each verified password, in seconds; at least 1
+     * @throws IllegalArgumentException if {@code ttlSeconds} &lt; 1
+     */
+    SOCDBAuthCache(final int ttlSeconds)
+        throws IllegalArgumentException
+    {
+        if (ttlSeconds < 1)
+            throw new IllegalArgumentException("ttlSeconds");
+
+        ttlMillis = ttlSeconds * 1000L;
+        new SecureRandom().nextBytes(salt);
+    }
+
+    /**
+     * Calculate the cache key for a user, their password hash from the DB, and a password to check against it.
+     * @param dbUserName  Username as found in the DB
+     * @param dbPassHash  User's {@link BCrypt} password hash from the DB
+     * @param password  Password being tried
+     * @return  Key to use with {@link #isVerified(String, long)} and {@link #putVerified(String, long)}
+     */
+    String key(final String dbUserName, final String dbPassHash, final String password)
+    {
+        final MessageDigest md;
+        try
+        {
+            md = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);  // all JREs must have SHA-256
+        }
+
+        md.update(salt);
+        md.update(dbUserName.getBytes(StandardCharsets.UTF_8));
+        md.update((byte) 0);
+        md.update(dbPassHash.getBytes(StandardCharsets.UTF_8));
+        md.update((byte) 0);
+        final byte[] digest = md.digest(password.getBytes(StandardCharsets.UTF_8));
+
+        final StringBuilder sb = new StringBuilder(2 * digest.length);
+        for (final byte b : digest)
+            sb.append(Character.forDigit((b >> 4) & 0x0F, 16)).append(Character.forDigit(b & 0x0F, 16));
+
+        return sb.toString();
+    }
+
+    /**
+     * Was this key's password verified recently, and not yet expired?
+     * @param key  Key from {@link #key(String, String, String)}
+     * @param now  Current time, from {@link System#currentTimeMillis()}
+     * @return  True if found and not expired
+     */
+    synchronized boolean isVerified(final String key, final long now)
+    {
+        final Long expires = verified.get(key);
+        if (expires == null)
+            return false;
+
+        if (expires <= now)
+        {
+            verified.remove(key);
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Add or renew a successfully verified password's key.
+     * Also removes any expired entries at the start of the map.
+     * @param key  Key from {@link #key(String, String, String)}
+     * @param now  Current time, from {@link System#currentTimeMillis()}
+     */
+    synchronized void putVerified(final String key, final long now)
+    {
+        for (Iterator<Long> it = verified.values().iterator(); it.hasNext(); )
+        {
+            if (it.next() > now)
+                break;  // entries are in expiration order, except renewed keys which are later anyway
+            it.remove();
+        }
+
+        verified.remove(key);  // so re-insert moves it to the end
+        verified.put(key, now + ttlMillis);
+    }
+
+    /**
+     * Get the current number of entries, including any expired ones not yet removed.
+     * @return  Number of entries
+     */
+    synchronized int size()
+    {
+        return verified.size();
+    }
+
+}
@@ -0,0 +1,493 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * This file Copyright (C) 2026 Jeremy D Monin <jeremy@nand.net>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The maintainer of this program can be reached at jsettlers@nand.net
+ **/
+package soc.server.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+
+/**
+ * Small fixed-size JDBC connection pool used by {@link SOCDBHelper} for its frequent
+ * per-user and per-game queries, so that logins and game-score saves on different threads
+ * don't share one connection's prepared statements or wait behind each other.
+ *<P>
+ * Each {@link PooledConnection} caches the statements it has prepared, keyed by SQL text;
+ * see {@link PooledConnection#prepare(String)}. A caller borrows a connection, uses it,
+ * then must return it with {@link PooledConnection#release(boolean)} in a {@code finally} block:
+ *<pre>
+ *   final SOCDBConnectionPool.PooledConnection pc = pool.borrow();
+ *   boolean hadError = true;
+ *   try
+ *   {
+ *       PreparedStatement ps = pc.prepare(SOME_QUERY);
+ *       ...
+ *       hadError = false;
+ *   } finally {
+ *       pc.release(hadError);
+ *   }
+ *</pre>
+ *
+ *<H3>Health checks:</H3>
+ * Connections are opened as needed, up to the pool size. When a borrowed connection
+ * is returned after an error, or has been idle longer than {@link #IDLE_CHECK_MILLIS},
+ * the next {@link #borrow()} checks it with {@link Connection#isValid(int)}.
+ * If it's no longer valid, it's closed and replaced with a newly opened connection.
+ *<P>
+ * A pool can instead wrap a single connection owned by the caller, for DBs like SQLite
+ * which allow only one writer: See {@link #SOCDBConnectionPool(Connection, int)}.
+ *<P>
+ * Thread-safe.
+ *
+ * @author Jeremy D Monin &lt;jeremy@nand.net&gt;
+ * @since 2.7.00
+ */
+public final class SOCDBConnectionPool
+{
+    /**
+     * A connection that's been idle at least this long (30 seconds) is checked
+     * with {@link Connection#isValid(int)} when next borrowed.
+     */
+    public static final int IDLE_CHECK_MILLIS = 30 * 1000;
+
+    /** Timeout in seconds for {@link Connection#isValid(int)} health checks: 5 */
+    private static final int VALID_CHECK_TIMEOUT_SEC = 5;
+
+    /**
+     * Opens new connections for the pool.
+     */
+    public interface ConnectionFactory
+    {
+        /**
+         * Open a new DB connection.
+         * @return  A new open connection, not {@code null}
+         * @throws SQLException  if connection fails
+         */
+        Connection openConnection() throws SQLException;
+    }
+
+    private final ConnectionFactory factory;
+
+    /**
+     * Caller's connection wrapped by this pool if created with {@link #SOCDBConnectionPool(Connection, int)},
+     * otherwise {@code null}. This connection isn't health-checked, replaced, or closed by the pool.
+     */
+    private final Connection shared;
+
+    /** Maximum number of connections, from constructor */
+    private final int size;
+
+    /** Maximum time to wait in {@link #borrow()}, from constructor */
+    private final int waitMillis;
+
+    /**
+     * Idle connections, most recently used first.
+     *<P>
+     * <B>Locks:</B> Synchronize on this pool to use.
+     */
+    private final ArrayDeque<PooledConnection> idle = new ArrayDeque<>();
+
+    /**
+     * Number of open connections, idle or borrowed.
+     *<P>
+     * <B>Locks:</B> Synchronize on this pool to use.
+     */
+    private int openCount;
+
+    /**
+     * Incremented by {@link #clearStatementCaches()}; each connection clears
+     * its statement cache when borrowed if its own value is older.
+     *<P>
+     * <B>Locks:</B> Synchronize on this pool to use.
+     */
+    private int cacheGeneration;
+
+    /** True once {@link #close()} has been called. Locks: Synchronize on this pool to use. */
+    private boolean closed;
+
+    /** Statistics; see {@link #getStats()}. Locks: Synchronize on this pool to use. */
+    private long borrowCount, waitCount, replacedCount;
+
+    /**
+     * Create a new pool. No connections are opened until needed by {@link #borrow()}.
+     * @param factory  Factory to open new connections
+     * @param size  Maximum number of connections, at least 1
+     * @param waitMillis  Maximum time in milliseconds for {@link #borrow()} to wait for a connection
+     *     when all are in use, at least 1
+     * @throws IllegalArgumentException if {@code factory} is null, or {@code size} or {@code waitMillis} &lt; 1
+     */
+    public SOCDBConnectionPool(final ConnectionFactory factory, final int size, final int waitMillis)
+        throws IllegalArgumentException
+    {
+        if (factory == null)
+            throw new IllegalArgumentException("factory");
+        if (size < 1)
+            throw new IllegalArgumentException("size");
+        if (waitMillis < 1)
+            throw new IllegalArgumentException("waitMillis");
+
+        this.factory = factory;
+        this.size = size;
+        this.waitMillis = waitMillis;
+        shared = null;
+    }
+
+    /**
+     * Create a pool of size 1 which wraps a connection owned by the caller, so that its users
+     * can borrow it one at a time and use its statement caches like any other pooled connection.
+     * The pool doesn't check the connection's health, replace it, or close it;
+     * that's up to the caller. {@link #close()} closes only its cached statements.
+     * @param shared  Connection to wrap
+     * @param waitMillis  Maximum time in milliseconds for {@link #borrow()} to wait while it's in use, at least 1
+     * @throws IllegalArgumentException if {@code shared} is null or {@code waitMillis} &lt; 1
+     */
+    public SOCDBConnectionPool(final Connection shared, final int waitMillis)
+        throws IllegalArgumentException
+    {
+        if (shared == null)
+            throw new IllegalArgumentException("shared");
+        if (waitMillis < 1)
+            throw new IllegalArgumentException("waitMillis");
+
+        factory = () -> shared;
+        size = 1;
+        this.waitMillis = waitMillis;
+        this.shared = shared;
+    }
+
+    /**
+     * Get this pool's maximum number of connections.
+     * @return  Pool size from constructor
+     */
+    public int getSize()
+    {
+        return size;
+    }
+
+    /**
+     * Borrow a connection from the pool: An idle one if available, otherwise a newly opened one
+     * if pool isn't full, otherwise wait up to the pool's wait time for one to be released.
+     * Checks the connection's health first if needed; see class javadoc.
+     * Caller must return it with {@link PooledConnection#release(boolean)}.
+     *
+     * @return  A connection for the caller's exclusive use until released
+     * @throws SQLException  if a new connection can't be opened, if the wait times out,
+     *     if the pool has been closed, or if the thread is interrupted while waiting
+     */
+    public PooledConnection borrow()
+        throws SQLException
+    {
+        PooledConnection pc = null;
+        final int generation;
+
+        synchronized(this)
+        {
+            final long waitUntil = System.currentTimeMillis() + waitMillis;
+            boolean waited = false;
+
+            while (pc == null)
+            {
+                if (closed)
+                    throw new SQLException("Connection pool is closed");
+
+                pc = idle.pollFirst();
+                if ((pc == null) && (openCount < size))
+                {
+                    ++openCount;  // will open a new one, outside of lock
+                    break;
+                }
+
+                if (pc == null)
+                {
+                    final long timeLeft = waitUntil - System.currentTimeMillis();
+                    if (timeLeft <= 0)
+                        throw new SQLException("Timed out waiting for a pooled DB connection");
+
+                    if (! waited)
+                    {
+                        ++waitCount;
+                        waited = true;
+                    }
+                    try
+                    {
+                        wait(timeLeft);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new SQLException("Interrupted waiting for a pooled DB connection");
+                    }
+                }
+            }
+
+            ++borrowCount;
+            generation = cacheGeneration;
+        }
+
+        try
+        {
+            if (pc == null)
+            {
+                pc = new PooledConnection(this, factory.openConnection());
+            }
+            else if ((shared == null)
+                     && (pc.needsCheck || ((System.currentTimeMillis() - pc.lastUsed) >= IDLE_CHECK_MILLIS)))
+            {
+                boolean valid;
+                try
+                {
+                    valid = pc.conn.isValid(VALID_CHECK_TIMEOUT_SEC);
+                } catch (SQLException e) {
+                    valid = false;
+                }
+
+                if (! valid)
+                {
+                    pc.closeQuietly();
+                    pc = new PooledConnection(this, factory.openConnection());
+                    synchronized(this)
+                    {
+                        ++replacedCount;
+                    }
+                }
+            }
+        } catch (SQLException | RuntimeException e) {
+            synchronized(this)
+            {
+                --openCount;
+                notify();
+            }
+
+            throw e;
+        }
+
+        if (pc.cacheGeneration != generation)
+        {
+            pc.closeStatements();
+            pc.cacheGeneration = generation;
+        }
+        pc.needsCheck = false;
+
+        return pc;
+    }
+
+    /**
+     * Return a borrowed connection to the pool. If the pool has been closed, closes the connection.
+     * Called from {@link PooledConnection#release(boolean)}.
+     * @param pc  Connection from {@link #borrow()}
+     * @param hadError  True if an exception occurred while using {@code pc}
+     */
+    private void release(final PooledConnection pc, final boolean hadError)
+    {
+        pc.lastUsed = System.currentTimeMillis();
+        if (hadError)
+            pc.needsCheck = true;
+
+        synchronized(this)
+        {
+            if (! closed)
+            {
+                idle.addFirst(pc);
+                notify();
+
+                return;
+            }
+
+            --openCount;
+        }
+
+        pc.closeQuietly();
+    }
+
+    /**
+     * Clear every connection's cache of prepared statements,
+     * for example after the DB schema has been upgraded.
+     * Idle connections' caches are cleared now, borrowed ones' when next borrowed.
+     */
+    public void clearStatementCaches()
+    {
+        synchronized(this)
+        {
+            ++cacheGeneration;
+            for (PooledConnection pc : idle)
+            {
+                pc.closeStatements();
+                pc.cacheGeneration = cacheGeneration;
+            }
+        }
+    }
+
+    /**
+     * Close the pool and its idle connections. Borrowed connections will be closed when released.
+     * Any {@link SQLException}s while closing are ignored. Afterwards, {@link #borrow()} will throw an exception.
+     */
+    public void close()
+    {
+        final PooledConnection[] toClose;
+        synchronized(this)
+        {
+            closed = true;
+            toClose = idle.toArray(new PooledConnection[idle.size()]);
+            idle.clear();
+            openCount -= toClose.length;
+            notifyAll();
+        }
+
+        for (PooledConnection pc : toClose)
+            pc.closeQuietly();
+    }
+
+    /**
+     * Get pool statistics, for admin info or testing.
+     * @return  Array of: Number of open connections, number of idle connections, total borrows,
+     *     borrows which had to wait for a connection, connections replaced after failing a health check
+     */
+    public synchronized long[] getStats()
+    {
+        return new long[]{ openCount, idle.size(), borrowCount, waitCount, replacedCount };
+    }
+
+    /**
+     * A pooled connection and its cache of prepared statements.
+     * Used by one thread at a time, between {@link SOCDBConnectionPool#borrow()}
+     * and {@link #release(boolean)}.
+     */
+    public static final class PooledConnection
+    {
+        /** Pool which opened this connection */
+        private final SOCDBConnectionPool pool;
+
+        /** This pooled connection's JDBC connection */
+        public final Connection conn;
+
+        /** Prepared statements, keyed by SQL text */
+        private final HashMap<String, PreparedStatement> statements = new HashMap<>();
+
+        /** When this connection was last released, from {@link System#currentTimeMillis()} */
+        private long lastUsed;
+
+        /** If true, check health with {@link Connection#isValid(int)} when next borrowed */
+        private boolean needsCheck;
+
+        /** Pool's cache generation when statements were last cleared */
+        private int cacheGeneration;
+
+        /** Number of statements found in cache or prepared; see {@link #getCacheCounts()} */
+        private long cacheHits, cacheMisses;
+
+        private PooledConnection(final SOCDBConnectionPool pool, final Connection conn)
+        {
+            this.pool = pool;
+            this.conn = conn;
+            lastUsed = System.currentTimeMillis();
+        }
+
+        /**
+         * Return this borrowed connection to its pool. If the pool has been closed, closes the connection.
+         * Don't use this connection or its statements afterwards.
+         * @param hadError  True if an exception occurred while using this connection:
+         *     Its health will be checked when next borrowed. If the connection was left in transaction mode
+         *     ({@link Connection#getAutoCommit()} false), caller should call {@link Connection#rollback()}
+         *     and {@link Connection#setAutoCommit(boolean) setAutoCommit(true)} before releasing it.
+         */
+        public void release(final boolean hadError)
+        {
+            pool.release(this, hadError);
+        }
+
+        /**
+         * Get a prepared statement for this SQL, preparing and caching it if not already cached.
+         * Caller shouldn't close the statement, but should close any {@link java.sql.ResultSet}s from it.
+         * @param sql  SQL text
+         * @return  Cached or newly prepared statement on this connection
+         * @throws SQLException  if {@link Connection#prepareStatement(String)} fails
+         */
+        public PreparedStatement prepare(final String sql)
+            throws SQLException
+        {
+            return prepare(sql, null);
+        }
+
+        /**
+         * Get a prepared statement for this SQL which returns generated keys from these columns,
+         * preparing and caching it if not already cached.
+         * @param sql  SQL text
+         * @param keyColumns  Generated key column names for {@link Connection#prepareStatement(String, String[])},
+         *     or {@code null} to call {@link Connection#prepareStatement(String)} instead.
+         *     The same {@code sql} should always be used with the same {@code keyColumns}.
+         * @return  Cached or newly prepared statement on this connection
+         * @throws SQLException  if prepareStatement fails
+         */
+        public PreparedStatement prepare(final String sql, final String[] keyColumns)
+            throws SQLException
+        {
+            PreparedStatement ps = statements.get(sql);
+            if (ps != null)
+            {
+                ++cacheHits;
+                return ps;
+            }
+
+            ++cacheMisses;
+            ps = (keyColumns != null) ? conn.prepareStatement(sql, keyColumns) : conn.prepareStatement(sql);
+            statements.put(sql, ps);
+
+            return ps;
+        }
+
+        /**
+         * Get this connection's statement cache hit and miss counts.
+         * @return  Array of: Number of {@link #prepare(String)} calls which found a cached statement,
+         *     number of calls which prepared a new one
+         */
+        public long[] getCacheCounts()
+        {
+            return new long[]{ cacheHits, cacheMisses };
+        }
+
+        /** Close and forget all cached statements, ignoring any exceptions. */
+        private void closeStatements()
+        {
+            for (PreparedStatement ps : statements.values())
+                try
+                {
+                    ps.close();
+                } catch (SQLException e) {}
+
+            statements.clear();
+        }
+
+        /**
+         * Close cached statements and the connection, ignoring any exceptions.
+         * Doesn't close the connection if it's the pool's shared connection.
+         */
+        private void closeQuietly()
+        {
+            closeStatements();
+            if (pool.shared != null)
+                return;
+
+            try
+            {
+                conn.close();
+            } catch (SQLException e) {}
+        }
+    }
+
+}
@@ -1,7 +1,7 @@
 /**
  * Java Settlers - An online multiplayer version of the game Settlers of Catan
  * Copyright (C) 2003  Robert S. Thomas <thomas@infolab.northwestern.edu>
- * Portions of this file Copyright (C) 2009-2010,2012,2014-2017,2019-2022 Jeremy D Monin <jeremy@nand.net>
+ * Portions of this file Copyright (C) 2009-2010,2012,2014-2017,2019-2022,2026 Jeremy D Monin <jeremy@nand.net>
  *
  * This program is free software; you can redistribute it and/or
  * modify it under the terms of the GNU General Public License
@@ -53,6 +53,7 @@ import java.sql.Types;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -61,8 +62,17 @@ import java.util.Map;
 import java.util.MissingResourceException;
 import java.util.Properties;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 
 /**
@@ -86,6 +96,11 @@ import java.util.concurrent.Executors;
  * Call {@link #initialize(String, String, Properties)} to initially connect.
  * Use {@link #isInitialized()} to see if still connected.
  * (Private method {@code checkConnection()} will try to reconnect if not connected.)
+ *<P>
+ * Frequent per-user and per-game queries and updates, like {@link #authenticateUserPassword(String, String, AuthPasswordRunnable)}
+ * and {@link #saveGameScores(SOCGame, int, boolean)}, use a {@link SOCDBConnectionPool} whose connections
+ * each cache their prepared statements and check their own health. Schema upgrades, settings, and other
+ * admin tasks use the main connection. See {@link #PROP_JSETTLERS_DB_POOL_SIZE}.
  *
  *<H3>Schema Upgrades:</H3>
  * Sometimes a new JSettlers version adds to the DB schema. When starting the JSettlers server, call
@@ -232,6 +247,149 @@ public class SOCDBHelper
      */
     public static final String PROP_JSETTLERS_DB_SAVE_GAMES = "jsettlers.db.save.games";
 
+    /**
+     * Integer property <tt>jsettlers.db.pool.size</tt> to set the number of pooled DB connections
+     * used for frequent queries and updates like {@link #authenticateUserPassword(String, String, AuthPasswordRunnable)},
+     * {@link #recordLogin(String, String, long)}, and {@link #saveGameScores(SOCGame, int, boolean)},
+     * in addition to the main connection used for schema upgrades and admin tasks.
+     * Range is 1 to {@link #POOL_SIZE_MAX}.
+     * Default is {@link #POOL_SIZE_DEFAULT}.
+     * Ignored for SQLite, which allows only one writer at a time: Its pool wraps the main connection.
+     * @see #PROP_JSETTLERS_DB_POOL_WAIT__MS
+     * @since 2.7.00
+     */
+    public static final String PROP_JSETTLERS_DB_POOL_SIZE = "jsettlers.db.pool.size";
+
+    /**
+     * Integer property <tt>jsettlers.db.pool.wait_ms</tt> to set the maximum time in milliseconds
+     * to wait for a pooled DB connection when all are in use, before failing with an {@link SQLException}.
+     * Default is {@link #POOL_WAIT_MS_DEFAULT}. Must be at least 1.
+     * @see #PROP_JSETTLERS_DB_POOL_SIZE
+     * @since 2.7.00
+     */
+    public static final String PROP_JSETTLERS_DB_POOL_WAIT__MS = "jsettlers.db.pool.wait_ms";
+
+    /**
+     * Default number of pooled DB connections: 4.
+     * @see #PROP_JSETTLERS_DB_POOL_SIZE
+     * @since 2.7.00
+     */
+    public static final int POOL_SIZE_DEFAULT = 4;
+
+    /**
+     * Maximum number of pooled DB connections: 64.
+     * @see #PROP_JSETTLERS_DB_POOL_SIZE
+     * @since 2.7.00
+     */
+    public static final int POOL_SIZE_MAX = 64;
+
+    /**
+     * Default maximum wait for a pooled DB connection: 10000 milliseconds.
+     * @see #PROP_JSETTLERS_DB_POOL_WAIT__MS
+     * @since 2.7.00
+     */
+    public static final int POOL_WAIT_MS_DEFAULT = 10000;
+
+    /**
+     * Integer property <tt>jsettlers.db.queue.size</tt> to set the capacity of the {@link SOCDBWriteQueue}
+     * which saves game results in the background, in batches, instead of on the game's thread.
+     * Range is 0 to {@link #QUEUE_SIZE_MAX}; 0 disables the queue, to save each game's results when it ends.
+     * Default is {@link #QUEUE_SIZE_DEFAULT}.
+     * @see #getWriteQueue()
+     * @since 2.7.00
+     */
+    public static final String PROP_JSETTLERS_DB_QUEUE_SIZE = "jsettlers.db.queue.size";
+
+    /**
+     * Default capacity of the {@link SOCDBWriteQueue}: 1000.
+     * @see #PROP_JSETTLERS_DB_QUEUE_SIZE
+     * @since 2.7.00
+     */
+    public static final int QUEUE_SIZE_DEFAULT = 1000;
+
+    /**
+     * Maximum capacity of the {@link SOCDBWriteQueue}: 100000.
+     * @see #PROP_JSETTLERS_DB_QUEUE_SIZE
+     * @since 2.7.00
+     */
+    public static final int QUEUE_SIZE_MAX = 100000;
+
+    /**
+     * Maximum time {@link #cleanup(boolean) cleanup(true)} waits for the {@link SOCDBWriteQueue}
+     * to write its queued records: 15000 milliseconds.
+     * @since 2.7.00
+     */
+    private static final int QUEUE_SHUTDOWN_WAIT_MS = 15000;
+
+    /**
+     * Integer property <tt>jsettlers.db.auth.threads</tt> to set the number of threads which check
+     * user passwords with {@link BCrypt} in {@link #authenticateUserPassword(String, String, AuthPasswordRunnable)},
+     * so a burst of logins doesn't wait in one long queue.
+     * Range is 1 to {@link #AUTH_THREADS_MAX}. Default is the number of CPU cores
+     * ({@link Runtime#availableProcessors()}), up to that maximum.
+     * @see #getAuthStats()
+     * @since 2.7.00
+     */
+    public static final String PROP_JSETTLERS_DB_AUTH_THREADS = "jsettlers.db.auth.threads";
+
+    /**
+     * Maximum number of password-checking threads: 64.
+     * @see #PROP_JSETTLERS_DB_AUTH_THREADS
+     * @since 2.7.00
+     */
+    public static final int AUTH_THREADS_MAX = 64;
+
+    /**
+     * Integer property <tt>jsettlers.db.auth.cache_sec</tt> to remember each successfully verified
+     * user and password for this many seconds, so a user who reconnects in that time
+     * doesn't need another slow {@link BCrypt} check. Passwords themselves aren't stored.
+     * Range is 0 to {@link #AUTH_CACHE_SEC_MAX}; default is 0, which disables the cache.
+     * @since 2.7.00
+     */
+    public static final String PROP_JSETTLERS_DB_AUTH_CACHE__SEC = "jsettlers.db.auth.cache_sec";
+
+    /**
+     * Maximum time to remember verified passwords: 3600 seconds.
+     * @see #PROP_JSETTLERS_DB_AUTH_CACHE__SEC
+     * @since 2.7.00
+     */
+    public static final int AUTH_CACHE_SEC_MAX = 3600;
+
+    /**
+     * Integer property <tt>jsettlers.db.upgrade.bg_threads</tt> to set the number of threads which encode
+     * users' passwords with {@link BCrypt} during a schema upgrade's background tasks;
+     * see {@link #doesSchemaUpgradeNeedBGTasks()}.
+     * Range is 1 to {@link #UPGRADE_BG_THREADS_MAX}. Default is half the number of CPU cores
+     * ({@link Runtime#availableProcessors()}), at least 1, to leave the rest for server play and logins.
+     * @see #PROP_JSETTLERS_DB_UPGRADE_BG__PAUSE__MS
+     * @see #getSchemaUpgradeBGTasksProgress()
+     * @since 2.7.00
+     */
+    public static final String PROP_JSETTLERS_DB_UPGRADE_BG__THREADS = "jsettlers.db.upgrade.bg_threads";
+
+    /**
+     * Maximum number of schema upgrade background task threads: 64.
+     * @see #PROP_JSETTLERS_DB_UPGRADE_BG__THREADS
+     * @since 2.7.00
+     */
+    public static final int UPGRADE_BG_THREADS_MAX = 64;
+
+    /**
+     * Integer property <tt>jsettlers.db.upgrade.bg_pause_ms</tt> to throttle a schema upgrade's background tasks
+     * by pausing this many milliseconds after each batch of rows, so they use less of the DB's capacity.
+     * Range is 0 to {@link #UPGRADE_BG_PAUSE_MS_MAX}; default is 0, no pause.
+     * @see #PROP_JSETTLERS_DB_UPGRADE_BG__THREADS
+     * @since 2.7.00
+     */
+    public static final String PROP_JSETTLERS_DB_UPGRADE_BG__PAUSE__MS = "jsettlers.db.upgrade.bg_pause_ms";
+
+    /**
+     * Maximum pause after each batch of schema upgrade background tasks: 60000 milliseconds.
+     * @see #PROP_JSETTLERS_DB_UPGRADE_BG__PAUSE__MS
+     * @since 2.7.00
+     */
+    public static final int UPGRADE_BG_PAUSE_MS_MAX = 60000;
+
     /**
      * Internal property name used to hold the <tt>--pw-reset</tt> command line argument's username.
      * When present at server startup, the server will prompt and reset the password if the user exists,
@@ -300,11 +458,26 @@ public class SOCDBHelper
     public static final int SCHEMA_VERSION_2000 = 2000;
 
     /**
-     * Latest version of the JSettlers schema, currently 2.0.00 ({@link #SCHEMA_VERSION_2000}).
+     * JSettlers schema version 2.7.00, with extra tables/fields added since {@link #SCHEMA_VERSION_2000}.
+     *<UL>
+     * <LI> {@code user_stats}: Summary table of each user's games played, won, lost, and total VP,
+     *      per game type and for all games; see {@link #getUserStats(String)}
+     *      and {@link #getLeaderboard(String, int, int, UserStats, int)}
+     *</UL>
+     * When upgrading, background tasks fill {@code user_stats} from existing {@code games2} rows.
+     *
+     * @see #SCHEMA_VERSION_ORIGINAL
+     * @see #SCHEMA_VERSION_LATEST
+     * @since 2.7.00
+     */
+    public static final int SCHEMA_VERSION_2700 = 2700;
+
+    /**
+     * Latest version of the JSettlers schema, currently 2.7.00 ({@link #SCHEMA_VERSION_2700}).
      * @see #isSchemaLatestVersion()
      * @since 1.2.00
      */
-    public static final int SCHEMA_VERSION_LATEST = SCHEMA_VERSION_2000;
+    public static final int SCHEMA_VERSION_LATEST = SCHEMA_VERSION_2700;
         // Value should match the version hardcoded into
         // jsettlers-tables-tmpl.sql "INSERT INTO db_version" command
 
@@ -391,6 +564,53 @@ public class SOCDBHelper
      */
     public static final String SETTING_BCRYPT_WORK__FACTOR = "BCRYPT.WORK_FACTOR";
 
+    /**
+     * {@code Settings} table key for the progress of filling {@code user_stats} from {@code games2}
+     * during background tasks of a schema upgrade to {@link #SCHEMA_VERSION_2700}:
+     * The highest {@code gameid} not yet counted. Games are counted from highest to lowest ID,
+     * so that games saved after the upgrade (which are counted by {@link #saveGameScores(List)}) are skipped.
+     * Added during {@link #upgradeSchema(Set)}, removed when the background tasks are done.
+     * @since 2.7.00
+     */
+    private static final String SETTING_UPG_2700_STATS__GAMEID = "UPG_2700.STATS_GAMEID";
+
+    // User stats and leaderboards (schema v2700+)
+
+    /**
+     * {@code user_stats.gametype} of a user's totals for all games they've played:
+     * {@code "*"}. Other gametypes are a scenario name key, or {@link #STATS_GAMETYPE_NO_SCENARIO}.
+     * @see #getLeaderboard(String, int, int, UserStats, int)
+     * @since 2.7.00
+     */
+    public static final String STATS_GAMETYPE_ALL = "*";
+
+    /**
+     * {@code user_stats.gametype} of a user's totals for games without a scenario: {@code "-"}.
+     * @see #STATS_GAMETYPE_ALL
+     * @since 2.7.00
+     */
+    public static final String STATS_GAMETYPE_NO_SCENARIO = "-";
+
+    /**
+     * {@link #getLeaderboard(String, int, int, UserStats, int)} sort order: Most games won,
+     * then by nickname.
+     * @since 2.7.00
+     */
+    public static final int LEADERBOARD_BY_WINS = 1;
+
+    /**
+     * {@link #getLeaderboard(String, int, int, UserStats, int)} sort order: Most games played,
+     * then by nickname.
+     * @since 2.7.00
+     */
+    public static final int LEADERBOARD_BY_GAMES = 2;
+
+    /**
+     * Maximum number of users returned per page by {@link #getLeaderboard(String, int, int, UserStats, int)}: 100.
+     * @since 2.7.00
+     */
+    public static final int LEADERBOARD_PAGE_MAX = 100;
+
     // Known DB types: These constants aren't used outside the class or stored anywhere,
     // so they can change between versions if needed. All @since 1.2.00 unless noted.
 
@@ -475,8 +695,75 @@ public class SOCDBHelper
      * Set in {@link #connect(String, String, String)}, based on the {@link #dbURL}
      * from {@link #initialize(String, String, Properties)}.
      * Cleared in {@link #cleanup(boolean) cleanup(true)}.
+     *<P>
+     * <B>Locks:</B> Writes to this field are synchronized on {@link #connectLock}.
+     */
+    private volatile Connection connection = null;
+
+    /**
+     * Pooled connections for frequent queries and updates, or {@code null} if never initialized
+     * or if cleaned up. Created in {@link #connect(String, String, String)},
+     * closed and cleared in {@link #cleanup(boolean)}.
+     * For SQLite, which allows only one writer, wraps the main {@link #connection} instead of opening others.
+     *<P>
+     * <B>Locks:</B> Writes to this field are synchronized on {@link #connectLock}.
+     * Readers should copy it to a local variable first.
+     * @see #borrowPooled()
+     * @since 2.7.00
+     */
+    private volatile SOCDBConnectionPool pool;
+
+    /**
+     * Lock for reconnecting in {@link #checkConnection()} and {@link #connect(String, String, String)},
+     * and for writes to {@link #connection} and {@link #pool}.
+     * @since 2.7.00
+     */
+    private final Object connectLock = new Object();
+
+    /**
+     * Size for {@link #pool}, from {@link #PROP_JSETTLERS_DB_POOL_SIZE} or default;
+     * set in {@link #initialize(String, String, Properties)}.
+     * @since 2.7.00
+     */
+    private int poolSize = POOL_SIZE_DEFAULT;
+
+    /**
+     * Max wait for {@link #pool}, from {@link #PROP_JSETTLERS_DB_POOL_WAIT__MS} or default;
+     * set in {@link #initialize(String, String, Properties)}.
+     * @since 2.7.00
+     */
+    private int poolWaitMillis = POOL_WAIT_MS_DEFAULT;
+
+    /**
+     * Capacity for {@link #writeQueue}, from {@link #PROP_JSETTLERS_DB_QUEUE_SIZE} or default;
+     * set in {@link #initialize(String, String, Properties)}. 0 if queue is disabled.
+     * @since 2.7.00
      */
-    private Connection connection = null;
+    private int writeQueueSize = QUEUE_SIZE_DEFAULT;
+
+    /**
+     * Write-behind queue for game results and logins, or {@code null} if disabled or not initialized.
+     * Created in {@link #initialize(String, String, Properties)},
+     * shut down and cleared in {@link #cleanup(boolean) cleanup(true)}.
+     * @see #getWriteQueue()
+     * @since 2.7.00
+     */
+    private volatile SOCDBWriteQueue writeQueue;
+
+    /**
+     * Number of password-encoding threads for {@link UpgradeBGTasksThread},
+     * from {@link #PROP_JSETTLERS_DB_UPGRADE_BG__THREADS} or default;
+     * set in {@link #initialize(String, String, Properties)}.
+     * @since 2.7.00
+     */
+    private int upgradeBGThreads = 1;
+
+    /**
+     * Pause after each batch of {@link UpgradeBGTasksThread}, from {@link #PROP_JSETTLERS_DB_UPGRADE_BG__PAUSE__MS}
+     * or 0; set in {@link #initialize(String, String, Properties)}.
+     * @since 2.7.00
+     */
+    private int upgradeBGPauseMillis;
 
     /**
      * Retain the URL (default, or passed via props to {@link #initialize(String, String, Properties)}).
@@ -491,8 +778,9 @@ public class SOCDBHelper
      * This flag indicates that the connection should be valid, yet the last
      * operation failed. Methods will attempt to reconnect prior to their
      * operation if this is set.
+     * Since v2.7.00 this field is volatile.
      */
-    private boolean errorCondition = false;
+    private volatile boolean errorCondition = false;
 
     /**
      * True if we successfully completed {@link #initialize(String, String, Properties)}
@@ -547,12 +835,36 @@ public class SOCDBHelper
     private volatile UpgradeBGTasksThread schemaUpgBGTasksThread;
 
     /**
-     * Thread executor to queue and call {@link BCrypt} without tying up the main thread
+     * Thread pool executor to queue and call {@link BCrypt} without tying up the main thread
      * in {@link #authenticateUserPassword(String, String, AuthPasswordRunnable)}.
+     * Has {@link #PROP_JSETTLERS_DB_AUTH_THREADS} threads, which exit when idle.
+     * Created in {@link #initialize(String, String, Properties)}, shut down in {@link #cleanup(boolean) cleanup(true)}.
+     *<P>
+     * Before v2.7.00 this was a static single-thread executor.
      * @see AuthPasswordRunnable
+     * @see #getAuthStats()
      * @since 1.2.00
      */
-    private final static ExecutorService bcryptQueueThreader = Executors.newSingleThreadExecutor();
+    private ThreadPoolExecutor bcryptQueueThreader;
+
+    /**
+     * Cache of recently verified passwords, or {@code null} if {@link #PROP_JSETTLERS_DB_AUTH_CACHE__SEC} is 0.
+     * Set in {@link #initialize(String, String, Properties)}.
+     * @since 2.7.00
+     */
+    private SOCDBAuthCache authCache;
+
+    /**
+     * Auth statistics for {@link #getAuthStats()}: Number of {@link BCrypt} checks run by {@link #bcryptQueueThreader},
+     * their total and maximum time waiting in its queue, their total hashing time, and number of {@link #authCache} hits.
+     *<P>
+     * <B>Locks:</B> Synchronize on {@link #authStatsLock} to use.
+     * @since 2.7.00
+     */
+    private long authTaskCount, authWaitTotalNanos, authWaitMaxNanos, authHashTotalNanos, authCacheHits;
+
+    /** Lock for auth statistics fields like {@link #authTaskCount}. @since 2.7.00 */
+    private final Object authStatsLock = new Object();
 
     /**
      * Cached DB connection username, used when reconnecting on error.
@@ -575,21 +887,21 @@ public class SOCDBHelper
     private Properties props;
 
     /**
-     * {@link #createAccountCommand} for schema older than {@link #SCHEMA_VERSION_1200}.
+     * {@link #createAccountSQL} for schema older than {@link #SCHEMA_VERSION_1200}.
      * Before v1.2.00 this field was {@code CREATE_ACCOUNT_COMMAND}.
      */
     private static final String CREATE_ACCOUNT_COMMAND_1000 =
         "INSERT INTO users(nickname,host,password,email,lastlogin) VALUES (?,?,?,?,?);";
 
     /**
-     * {@link #createAccountCommand} for schema {@link #SCHEMA_VERSION_1200}.
+     * {@link #createAccountSQL} for schema {@link #SCHEMA_VERSION_1200}.
      * @since 1.2.00
      */
     private static final String CREATE_ACCOUNT_COMMAND_1200 =
         "INSERT INTO users(nickname,host,password,email,lastlogin,nickname_lc,pw_scheme,pw_store) VALUES (?,?,'!',?,?,?,?,?);";
 
     /**
-     * {@link #createAccountCommand} for schema &gt;= {@link #SCHEMA_VERSION_2000}.
+     * {@link #createAccountSQL} for schema &gt;= {@link #SCHEMA_VERSION_2000}.
      * @since 2.0.00
      */
     private static final String CREATE_ACCOUNT_COMMAND_2000 =
@@ -615,7 +927,7 @@ public class SOCDBHelper
     private static final String LASTLOGIN_UPDATE = "UPDATE users SET lastlogin = ?  WHERE nickname = ? ;";
 
     /**
-     * {@link #passwordUpdateCommand} for schema older than {@link #SCHEMA_VERSION_1200}.
+     * {@link #passwordUpdateSQL} for schema older than {@link #SCHEMA_VERSION_1200}.
      * Before v1.2.00 this field was {@code PASSWORD_UPDATE}.
      * @since 1.1.20
      */
@@ -623,14 +935,14 @@ public class SOCDBHelper
         "UPDATE users SET password = ? WHERE nickname = ? ;";
 
     /**
-     * {@link #passwordUpdateCommand} for schema &gt;= {@link #SCHEMA_VERSION_1200}.
+     * {@link #passwordUpdateSQL} for schema &gt;= {@link #SCHEMA_VERSION_1200}.
      * @since 1.2.00
      */
     private static final String PASSWORD_UPDATE_COMMAND_1200 =
         "UPDATE users SET password = '!', pw_scheme = ?, pw_store = ? WHERE nickname_lc = ? ;";
 
     /**
-     * {@link #saveGameCommand} for schema older than {@link #SCHEMA_VERSION_1200}.
+     * {@link #saveGameSQL} for schema older than {@link #SCHEMA_VERSION_1200}.
      * Before v1.2.00 this field was {@code SAVE_GAME_COMMAND}.
      */
     private static final String SAVE_GAME_COMMAND_1000 =
@@ -638,7 +950,7 @@ public class SOCDBHelper
         + " VALUES (?,?,?,?,?,?,?,?,?,?);";
 
     /**
-     * {@link #saveGameCommand} for schema {@link #SCHEMA_VERSION_1200}.
+     * {@link #saveGameSQL} for schema {@link #SCHEMA_VERSION_1200}.
      * @since 1.2.00
      */
     private static final String SAVE_GAME_COMMAND_1200 =
@@ -646,7 +958,7 @@ public class SOCDBHelper
         + "starttime,duration_sec,winner,gameopts) VALUES (?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?);";
 
     /**
-     * {@link #saveGameCommand} for schema &gt;= {@link #SCHEMA_VERSION_2000}.
+     * {@link #saveGameSQL} for schema &gt;= {@link #SCHEMA_VERSION_2000}.
      * Primary key is in {@link #SAVE_GAME_COMMAND_2000_GEN_KEY}.
      * @see #SAVE_GAME_PLAYER_COMMAND
      * @since 2.0.00
@@ -655,14 +967,14 @@ public class SOCDBHelper
         "INSERT INTO games2(gamename,starttime,duration_sec,winner,gameopts,scenario) VALUES (?,?,?,?,?,?);";
 
     /**
-     * Primary-key name array ({@code ["gameid"]}) for {@link #saveGameCommand}'s
+     * Primary-key name array ({@code ["gameid"]}) for {@link #saveGameSQL}'s
      * {@link Connection#prepareStatement(String, String[])} call.
      * @since 2.0.00
      */
     private static final String[] SAVE_GAME_COMMAND_2000_GEN_KEY = {"gameid"};
 
     /**
-     * Per-player {@link #saveGamePlayerCommand}, for use with {@link #SAVE_GAME_COMMAND_2000}.
+     * Per-player insert for {@link #saveGameScores(SOCGame, int, boolean)}, for use with {@link #SAVE_GAME_COMMAND_2000}.
      * @since 2.0.00
      */
     private static final String SAVE_GAME_PLAYER_COMMAND =
@@ -672,20 +984,20 @@ public class SOCDBHelper
     private static final String USER_COUNT_QUERY = "SELECT count(*) FROM users;";
 
     /**
-     * {@link #userExistsQuery} for schema older than {@link #SCHEMA_VERSION_1200}.
+     * {@link #userExistsSQL} for schema older than {@link #SCHEMA_VERSION_1200}.
      * Before v1.2.00 this field was {@code USER_EXISTS_QUERY}.
      * @since 1.1.20
      */
     private static final String USER_EXISTS_QUERY_1000 = "SELECT nickname FROM users WHERE nickname = ?;";
 
     /**
-     * {@link #userExistsQuery} for schema &gt;= {@link #SCHEMA_VERSION_1200}.
+     * {@link #userExistsSQL} for schema &gt;= {@link #SCHEMA_VERSION_1200}.
      * @since 1.2.00
      */
     private static final String USER_EXISTS_QUERY_1200 = "SELECT nickname FROM users WHERE nickname_lc = ?;";
 
     /**
-     * {@link #userIncrWonCommand} for schema &gt;= {@link #SCHEMA_VERSION_2000}.
+     * Add 1 to user's {@code games_won}, for schema &gt;= {@link #SCHEMA_VERSION_2000}.
      * @see #USER_INCREMENT_LOST_COMMAND
      * @since 2.0.00
      */
@@ -693,72 +1005,73 @@ public class SOCDBHelper
         "UPDATE users SET games_won = 1 + coalesce(games_won, 0) WHERE nickname = ?;";
 
     /**
-     * {@link #userIncrLostCommand} for schema &gt;= {@link #SCHEMA_VERSION_2000}.
+     * Add 1 to user's {@code games_lost}, for schema &gt;= {@link #SCHEMA_VERSION_2000}.
      * @see #USER_INCREMENT_WON_COMMAND
      * @since 2.0.00
      */
     private static final String USER_INCREMENT_LOST_COMMAND =
         "UPDATE users SET games_lost = 1 + coalesce(games_lost, 0) WHERE nickname = ?;";
 
-    /** Create a new account in {@code users}: {@link #CREATE_ACCOUNT_COMMAND_2000} */
-    private PreparedStatement createAccountCommand = null;
-
-    private PreparedStatement recordLoginCommand = null;
-
-    /** Query whether a user nickname exists in {@code users}: {@link #USER_EXISTS_QUERY_1200} */
-    private PreparedStatement userExistsQuery = null;
+    /**
+     * Add a zeroed {@code user_stats} row for this nickname and gametype, if the user exists in {@code users}
+     * and doesn't already have that row; for schema &gt;= {@link #SCHEMA_VERSION_2700}.
+     * Parameters: gametype, nickname, nickname, gametype.
+     * Always followed by {@link #USER_STATS_ADD_COMMAND}.
+     * @since 2.7.00
+     */
+    private static final String USER_STATS_INSERT_IF_MISSING_COMMAND =
+        "INSERT INTO user_stats(nickname,gametype,games_played,games_won,games_lost,vp_total)"
+        + " SELECT nickname,?,0,0,0,0 FROM users WHERE nickname = ?"
+        + " AND NOT EXISTS (SELECT 1 FROM user_stats WHERE nickname = ? AND gametype = ?);";
 
     /**
-     * If statement not {@code null}, add 1 to user's {@code games_won}: {@link #USER_INCREMENT_WON_COMMAND}.
-     * Is {@code null} if schema &lt; {@link #SCHEMA_VERSION_2000}.
-     * @see #userIncrLostCommand
+     * Add to a user's {@code user_stats} counts for a gametype, for schema &gt;= {@link #SCHEMA_VERSION_2700}.
+     * Parameters: games played, won, lost, total VP; nickname, gametype.
+     * @see #USER_STATS_INSERT_IF_MISSING_COMMAND
+     * @since 2.7.00
      */
-    private PreparedStatement userIncrWonCommand = null;
+    private static final String USER_STATS_ADD_COMMAND =
+        "UPDATE user_stats SET games_played = games_played + ?, games_won = games_won + ?,"
+        + " games_lost = games_lost + ?, vp_total = vp_total + ? WHERE nickname = ? AND gametype = ?;";
 
     /**
-     * If statement not {@code null}, add 1 to user's {@code games_lost}: {@link #USER_INCREMENT_LOST_COMMAND}.
-     * Is {@code null} if schema &lt; {@link #SCHEMA_VERSION_2000}.
-     * @see #userIncrWonCommand
+     * Query all of a user's {@code user_stats} rows by lowercase nickname,
+     * for schema &gt;= {@link #SCHEMA_VERSION_2700}.
+     * @see #getUserStats(String)
+     * @since 2.7.00
      */
-    private PreparedStatement userIncrLostCommand = null;
+    private static final String USER_STATS_QUERY =
+        "SELECT s.nickname, s.gametype, s.games_played, s.games_won, s.games_lost, s.vp_total"
+        + " FROM user_stats s JOIN users u ON s.nickname = u.nickname WHERE u.nickname_lc = ?"
+        + " ORDER BY s.gametype;";
 
-    /** Query for a user's password and original-cased nickname in {@code users}: {@link #USER_PASSWORD_QUERY_1200} */
-    private PreparedStatement userPasswordQuery = null;
+    // SQL for the frequent per-user and per-game statements, chosen by prepareStatements() for schemaVersion.
+    // Those statements are prepared and cached on pooled connections, not on the main connection.
 
-    private PreparedStatement hostQuery = null;
-    private PreparedStatement lastloginUpdate = null;
+    /** Create a new account in {@code users}: {@link #CREATE_ACCOUNT_COMMAND_2000}, etc. */
+    private String createAccountSQL;
 
-    /**
-     * User password update in {@code users}: {@link #PASSWORD_UPDATE_COMMAND_1200}.
-     * Before v1.2.00 this field was {@code passwordUpdate}.
-     * @since 1.1.20
-     */
-    private PreparedStatement passwordUpdateCommand = null;
+    /** Query whether a user nickname exists in {@code users}: {@link #USER_EXISTS_QUERY_1200}, etc. */
+    private String userExistsSQL;
+
+    /** Query for a user's password and original-cased nickname in {@code users}: {@link #USER_PASSWORD_QUERY_1200}, etc. */
+    private String userPasswordSQL;
+
+    /** User password update in {@code users}: {@link #PASSWORD_UPDATE_COMMAND_1200}, etc. */
+    private String passwordUpdateSQL;
 
     /**
      * Completed-game info insert into {@code games2} or old-schema {@code games}: {@link #SAVE_GAME_COMMAND_2000}
-     * or {@link #SAVE_GAME_COMMAND_1200}.
-     * @see #saveGamePlayerCommand
+     * or {@link #SAVE_GAME_COMMAND_1200}, etc.
+     * @see #SAVE_GAME_PLAYER_COMMAND
      */
-    private PreparedStatement saveGameCommand = null;
+    private String saveGameSQL;
 
     /**
-     * Completed-game per-player info insert into {@code games2_players}: {@link #SAVE_GAME_PLAYER_COMMAND}.
-     * {@code null} if schema is older than {@link #SCHEMA_VERSION_2000}.
-     * @see #saveGameCommand
-     * @since 2.0.00
-     */
-    private PreparedStatement saveGamePlayerCommand = null;
-
-    /** Query all robot parameters for a bot name; {@link #ROBOT_PARAMS_QUERY}.
-     *  Used in {@link #retrieveRobotParams(String)}.
-     */
-    private PreparedStatement robotParamsQuery = null;
-
-    /** Query how many users, if any, exist in the {@code users} table: {@link #USER_COUNT_QUERY}.
-     *  @since 1.1.19
+     * Query for a user's password on the main {@link #connection}: {@link #userPasswordSQL}.
+     * Used during {@link #upgradeSchema(Set)}'s password encoding, not by {@link #authenticateUserPassword(String, String, AuthPasswordRunnable)}.
      */
-    private PreparedStatement userCountQuery = null;
+    private PreparedStatement userPasswordQuery = null;
 
     /****************************************
      * Connect and initialize, related methods and getters
@@ -797,6 +1110,17 @@ public class SOCDBHelper
      *           <LI> {@link #PROP_JSETTLERS_DB_BCRYPT_WORK__FACTOR} is out of range
      *               (9 to {@link BCrypt#GENSALT_MAX_LOG2_ROUNDS}) or can't be parsed as an integer
      *           <LI> {@link #PROP_JSETTLERS_DB_SETTINGS} is provided but isn't {@code "write"}
+     *           <LI> {@link #PROP_JSETTLERS_DB_POOL_SIZE} is out of range (1 to {@link #POOL_SIZE_MAX}),
+     *               or {@link #PROP_JSETTLERS_DB_POOL_WAIT__MS} is less than 1,
+     *               or either can't be parsed as an integer
+     *           <LI> {@link #PROP_JSETTLERS_DB_QUEUE_SIZE} is out of range (0 to {@link #QUEUE_SIZE_MAX})
+     *               or can't be parsed as an integer
+     *           <LI> {@link #PROP_JSETTLERS_DB_AUTH_THREADS} is out of range (1 to {@link #AUTH_THREADS_MAX}),
+     *               or {@link #PROP_JSETTLERS_DB_AUTH_CACHE__SEC} is out of range (0 to {@link #AUTH_CACHE_SEC_MAX}),
+     *               or either can't be parsed as an integer
+     *           <LI> {@link #PROP_JSETTLERS_DB_UPGRADE_BG__THREADS} is out of range (1 to {@link #UPGRADE_BG_THREADS_MAX}),
+     *               or {@link #PROP_JSETTLERS_DB_UPGRADE_BG__PAUSE__MS} is out of range
+     *               (0 to {@link #UPGRADE_BG_PAUSE_MS_MAX}), or either can't be parsed as an integer
      *         </UL>
      * @throws DBSettingMismatchException if {@code props} contains one or more properties which are
      *         also in the {@code settings} table but with different values; this method's call to
@@ -928,6 +1252,47 @@ public class SOCDBHelper
                     ("DB: Utility property " + PROP_JSETTLERS_DB_SETTINGS + "'s value must be \"write\"");
         }
 
+        poolSize = POOL_SIZE_DEFAULT;  // not used for SQLite; see connect(..)
+        poolWaitMillis = POOL_WAIT_MS_DEFAULT;
+        writeQueueSize = QUEUE_SIZE_DEFAULT;
+        int authThreads = Math.min(Runtime.getRuntime().availableProcessors(), AUTH_THREADS_MAX),
+            authCacheSec = 0;
+        upgradeBGThreads = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors() / 2, UPGRADE_BG_THREADS_MAX));
+        upgradeBGPauseMillis = 0;
+        if (dbProps != null)
+        {
+            poolSize = parseIntProperty(dbProps, PROP_JSETTLERS_DB_POOL_SIZE, poolSize, 1, POOL_SIZE_MAX);
+            poolWaitMillis = parseIntProperty
+                (dbProps, PROP_JSETTLERS_DB_POOL_WAIT__MS, poolWaitMillis, 1, Integer.MAX_VALUE);
+            writeQueueSize = parseIntProperty
+                (dbProps, PROP_JSETTLERS_DB_QUEUE_SIZE, writeQueueSize, 0, QUEUE_SIZE_MAX);
+            authThreads = parseIntProperty
+                (dbProps, PROP_JSETTLERS_DB_AUTH_THREADS, authThreads, 1, AUTH_THREADS_MAX);
+            authCacheSec = parseIntProperty
+                (dbProps, PROP_JSETTLERS_DB_AUTH_CACHE__SEC, authCacheSec, 0, AUTH_CACHE_SEC_MAX);
+            upgradeBGThreads = parseIntProperty
+                (dbProps, PROP_JSETTLERS_DB_UPGRADE_BG__THREADS, upgradeBGThreads, 1, UPGRADE_BG_THREADS_MAX);
+            upgradeBGPauseMillis = parseIntProperty
+                (dbProps, PROP_JSETTLERS_DB_UPGRADE_BG__PAUSE__MS, upgradeBGPauseMillis, 0, UPGRADE_BG_PAUSE_MS_MAX);
+        }
+
+        if (bcryptQueueThreader != null)
+            bcryptQueueThreader.shutdown();
+        bcryptQueueThreader = new ThreadPoolExecutor
+            (authThreads, authThreads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory()
+            {
+                private final AtomicInteger threadNum = new AtomicInteger();
+
+                public Thread newThread(final Runnable r)
+                {
+                    final Thread th = new Thread(r, "SOCDBHelper-bcrypt-" + threadNum.incrementAndGet());
+                    th.setDaemon(true);
+                    return th;
+                }
+            });
+        bcryptQueueThreader.allowCoreThreadTimeOut(true);
+        authCache = (authCacheSec > 0) ? new SOCDBAuthCache(authCacheSec) : null;
+
         if (dbType == DBTYPE_UNKNOWN)
         {
             // try to detect unsupported/semi-known types from driver
@@ -978,6 +1343,15 @@ public class SOCDBHelper
 
         // END COMPARISON AREA -- test_token_consistency.py
 
+        synchronized(connectLock)
+        {
+            if (pool != null)
+            {
+                pool.close();  // from a previous initialize
+                pool = null;
+            }
+        }
+
         driverinstance = null;
         boolean driverNewInstanceFailed = false;
         try
@@ -1054,6 +1428,45 @@ public class SOCDBHelper
         }
 
         initialized = true;
+
+        if (writeQueue != null)
+            writeQueue.shutdown(QUEUE_SHUTDOWN_WAIT_MS);
+        writeQueue = (writeQueueSize > 0) ? new SOCDBWriteQueue(this, writeQueueSize) : null;
+    }
+
+    /**
+     * Parse an optional connection pool or write queue integer property
+     * during {@link #initialize(String, String, Properties)}.
+     * @param dbProps  Properties to check; not null
+     * @param propName  Property name, such as {@link #PROP_JSETTLERS_DB_POOL_SIZE}
+     * @param defaultVal  Value to return if property isn't present or is blank
+     * @param minVal  Minimum allowed value
+     * @param maxVal  Maximum allowed value
+     * @return  Property's value, or {@code defaultVal}
+     * @throws IllegalArgumentException if value can't be parsed as an integer or is out of range
+     * @since 2.7.00
+     */
+    private static int parseIntProperty
+        (final Properties dbProps, final String propName, final int defaultVal, final int minVal, final int maxVal)
+        throws IllegalArgumentException
+    {
+        final String pval = dbProps.getProperty(propName);
+        if ((pval == null) || (pval.trim().length() == 0))
+            return defaultVal;
+
+        String errMsg;
+        try
+        {
+            final int val = Integer.parseInt(pval.trim());
+            if ((val >= minVal) && (val <= maxVal))
+                return val;
+
+            errMsg = "Out of range (" + minVal + '-' + maxVal + ')';
+        } catch (NumberFormatException e) {
+            errMsg = "Bad format, integer is required";
+        }
+
+        throw new IllegalArgumentException("DB: Integer param: " + errMsg + " (" + propName + ")");
     }
 
     /**
@@ -1070,6 +1483,18 @@ public class SOCDBHelper
         return initialized && (connection != null);
     }
 
+    /**
+     * Get the write-behind queue for saving game results and logins in the background, if enabled.
+     * If {@code null}, call methods like {@link #saveGameScores(SOCGame, int, boolean)} directly instead.
+     * @return  This DB's write queue, or {@code null} if {@link #PROP_JSETTLERS_DB_QUEUE_SIZE} is 0
+     *     or DB isn't initialized or has been cleaned up for shutdown
+     * @since 2.7.00
+     */
+    public SOCDBWriteQueue getWriteQueue()
+    {
+        return writeQueue;
+    }
+
     /**
      * Get the detected schema version of the currently connected database.
      * To upgrade an older schema to the latest available, see {@link #upgradeSchema(Set)}.
@@ -1156,33 +1581,103 @@ public class SOCDBHelper
     }
 
     /**
-     * Checks if connection is supposed to be up and available, and attempts to reconnect
-     * if there was previously an error.  Reconnecting closes the current
-     * {@link #connection}, opens a new one, and re-initializes the prepared statements.
+     * Get progress of the currently running schema upgrade background task, if any.
+     * Each task (upgrade step) counts its rows to process when it starts; when a task completes,
+     * the next one (if any) starts counting from 0 again.
+     * The thread's speed and load can be tuned with {@link #PROP_JSETTLERS_DB_UPGRADE_BG__THREADS}
+     * and {@link #PROP_JSETTLERS_DB_UPGRADE_BG__PAUSE__MS}.
+     *
+     * @return {@code null} if background tasks aren't running or haven't started a task yet, otherwise a 4-element array:
+     *     <UL>
+     *     <LI> Schema version being upgraded from by the current task, like {@link #SCHEMA_VERSION_1200}
+     *     <LI> Number of rows done so far
+     *     <LI> Number of rows remaining (approximate; is 0 if more rows were processed than originally counted)
+     *     <LI> Estimated seconds remaining, or -1 if no rows are done yet
+     *     </UL>
+     * @see #doesSchemaUpgradeNeedBGTasks()
+     * @see #startSchemaUpgradeBGTasks()
+     * @since 2.7.00
+     */
+    public long[] getSchemaUpgradeBGTasksProgress()
+    {
+        final UpgradeBGTasksThread t = schemaUpgBGTasksThread;
+        if ((t == null) || ! t.isAlive())
+            return null;
+
+        final int fromVers = t.progressFromVersion;
+        if (fromVers == 0)
+            return null;
+
+        final long done = t.progressDone, remain = Math.max(0, t.progressTotal - done);
+        long etaSec = -1;
+        if (done > 0)
+            etaSec = ((System.currentTimeMillis() - t.progressStartMillis) * remain / done) / 1000;
+
+        return new long[]{ fromVers, done, remain, etaSec };
+    }
+
+    /**
+     * Checks if connection is supposed to be up and available. If there was previously an error
+     * using the main {@link #connection}, checks its health with {@link Connection#isValid(int)}
+     * and if not valid, attempts to reconnect: Reconnecting opens a new main connection
+     * and re-initializes the prepared statements.
+     * Threads which find an error at the same time will wait for one of them to reconnect.
+     *<P>
+     * Connections in the {@link #pool} check their own health when borrowed; see {@link SOCDBConnectionPool}.
      *
      * @return true if the connection is established, false if DB connection was never initialized
      * @see #isInitialized()
      */
     private boolean checkConnection() throws SQLException
     {
-        if (connection != null)
+        if (connection == null)
+            return false;
+
+        if (! errorCondition)
+            return true;
+
+        synchronized(connectLock)
         {
+            if (connection == null)
+                return false;  // cleaned up for shutdown while waiting
+            if (! errorCondition)
+                return true;  // another thread reconnected while we waited
+
+            boolean valid;
+            try
+            {
+                valid = connection.isValid(5);
+            } catch (SQLException e) {
+                valid = false;
+            }
+            if (valid)
+            {
+                errorCondition = false;
+                return true;
+            }
+
+            try
+            {
+                connection.close();
+            } catch (SQLException e) {}
+
             try
             {
-                return (! errorCondition) || connect(dbcUserName, dbcPassword, null);
+                return connect(dbcUserName, dbcPassword, null);
             } catch (IOException ioe) {
                 // will not occur, connect script is null
                 return false;
             }
         }
-
-        return false;
     }
 
     /**
      * Opens a new connection, detects its {@link #schemaVersion}, and initializes the prepared statements.
      * {@link #initialize(String, String, Properties)} and {@link #checkConnection()} use this to get ready.
      * Uses {@link #dbURL} and {@link #driverinstance}.
+     * Creates the connection {@link #pool} if not already created,
+     * or for SQLite re-creates it to wrap the new main connection.
+     * Synchronized on {@link #connectLock}.
      *<P>
      * If <tt>setupScriptPath</tt> != null, it will be ran before preparing statements.
      * That way, it can create tables used by the statements.
@@ -1200,26 +1695,98 @@ public class SOCDBHelper
     private boolean connect(final String user, final String pswd, final String setupScriptPath)
         throws SQLException, IllegalStateException, IOException
     {
-        if (driverinstance == null) {
-            connection = DriverManager.getConnection(dbURL, user, pswd);
-        } else {
-            Properties dbProps = new Properties();
-            dbProps.put("user", user);
-            dbProps.put("password", pswd);
-            connection = driverinstance.connect(dbURL, dbProps);
+        synchronized(connectLock)
+        {
+            dbcUserName = user;
+            dbcPassword = pswd;
+            final Connection conn = openConnection();
+            connection = conn;
+            errorCondition = false;
+
+            if (dbType == DBTYPE_SQLITE)
+            {
+                // only 1 writer allowed: borrowers share the main connection
+                final SOCDBConnectionPool oldPool = pool;
+                pool = new SOCDBConnectionPool(conn, poolWaitMillis);
+                if (oldPool != null)
+                    oldPool.close();
+            }
+            else if (pool == null)
+                pool = new SOCDBConnectionPool(this::openConnection, poolSize, poolWaitMillis);
+
+            if (setupScriptPath != null)
+                runSetupScript(setupScriptPath);  // may throw IOException, SQLException
+
+            detectSchemaVersion();
+            prepareStatements();
+
+            return true;
         }
+    }
+
+    /**
+     * Open a new DB connection using {@link #dbURL}, {@link #driverinstance} if set,
+     * and the cached {@link #dbcUserName} and {@link #dbcPassword}.
+     * Used for the main {@link #connection} and by the {@link #pool}.
+     * @return  A new connection
+     * @throws SQLException if any connect error occurs
+     * @since 2.7.00
+     */
+    private Connection openConnection()
+        throws SQLException
+    {
+        if (driverinstance == null)
+            return DriverManager.getConnection(dbURL, dbcUserName, dbcPassword);
 
-        errorCondition = false;
-        dbcUserName = user;
-        dbcPassword = pswd;
+        Properties dbProps = new Properties();
+        dbProps.put("user", dbcUserName);
+        dbProps.put("password", dbcPassword);
+        return driverinstance.connect(dbURL, dbProps);
+    }
 
-        if (setupScriptPath != null)
-            runSetupScript(setupScriptPath);  // may throw IOException, SQLException
+    /**
+     * Borrow a connection from the {@link #pool}; caller must release it
+     * with {@link SOCDBConnectionPool.PooledConnection#release(boolean)}.
+     * @return  A pooled connection
+     * @throws SQLException if pool is closed or {@link SOCDBConnectionPool#borrow()} fails
+     * @since 2.7.00
+     */
+    private SOCDBConnectionPool.PooledConnection borrowPooled()
+        throws SQLException
+    {
+        final SOCDBConnectionPool p = pool;
+        if (p == null)
+            throw new SQLException("DB connection pool is closed");
 
-        detectSchemaVersion();
-        prepareStatements();
+        return p.borrow();
+    }
 
-        return true;
+    /**
+     * Release a connection borrowed with {@link #borrowPooled()}.
+     * If there was an error and {@code pc}'s connection is no longer valid, also sets {@link #errorCondition}
+     * so the next {@link #checkConnection()} will check the main {@link #connection}'s health too,
+     * in case the DB server was restarted. Errors like constraint violations or bad SQL, which leave the
+     * connection valid, don't set that flag.
+     * @param pc  Pooled connection to release
+     * @param hadError  True if an exception occurred while using {@code pc}
+     * @since 2.7.00
+     */
+    private void releasePooled(final SOCDBConnectionPool.PooledConnection pc, final boolean hadError)
+    {
+        if (hadError)
+        {
+            boolean valid;
+            try
+            {
+                valid = pc.conn.isValid(5);
+            } catch (SQLException e) {
+                valid = false;
+            }
+            if (! valid)
+                errorCondition = true;
+        }
+
+        pc.release(hadError);
     }
 
     /**
@@ -1296,7 +1863,10 @@ public class SOCDBHelper
     }
 
     /**
-     * Prepare statements like {@link #createAccountCommand} based on {@link #schemaVersion}.
+     * Choose SQL for statements like {@link #createAccountSQL} based on {@link #schemaVersion},
+     * prepare {@link #userPasswordQuery} on the main {@link #connection}, and clear the {@link #pool}'s
+     * statement caches. Then prepare all the frequent statements on a pooled connection,
+     * to check that their tables exist and warm that connection's cache.
      * @throws SQLFeatureNotSupportedException  if JDBC driver doesn't support {@link Statement#RETURN_GENERATED_KEYS}
      *     needed for schema v2.0.00. This is a subclass of {@link SQLException}.
      * @throws SQLException if any unexpected problem occurs during {@link Connection#prepareStatement(String)} calls
@@ -1305,38 +1875,62 @@ public class SOCDBHelper
     private void prepareStatements()
         throws SQLFeatureNotSupportedException, SQLException
     {
-        createAccountCommand = connection.prepareStatement
-            ((schemaVersion >= SCHEMA_VERSION_2000)
+        createAccountSQL =
+            (schemaVersion >= SCHEMA_VERSION_2000)
              ? CREATE_ACCOUNT_COMMAND_2000
-             : ((schemaVersion == SCHEMA_VERSION_1200) ? CREATE_ACCOUNT_COMMAND_1200 : CREATE_ACCOUNT_COMMAND_1000));
-        recordLoginCommand = connection.prepareStatement(RECORD_LOGIN_COMMAND);
-        userExistsQuery = connection.prepareStatement
-            ((schemaVersion >= SCHEMA_VERSION_1200) ? USER_EXISTS_QUERY_1200 : USER_EXISTS_QUERY_1000);
-        if (schemaVersion >= SCHEMA_VERSION_2000)
-        {
-            userIncrWonCommand = connection.prepareStatement(USER_INCREMENT_WON_COMMAND);
-            userIncrLostCommand = connection.prepareStatement(USER_INCREMENT_LOST_COMMAND);
-        }
-        userPasswordQuery = connection.prepareStatement
-            ((schemaVersion >= SCHEMA_VERSION_1200) ? USER_PASSWORD_QUERY_1200 : USER_PASSWORD_QUERY_1000);
-        hostQuery = connection.prepareStatement(HOST_QUERY);
-        lastloginUpdate = connection.prepareStatement(LASTLOGIN_UPDATE);
-        passwordUpdateCommand = connection.prepareStatement
-            ((schemaVersion >= SCHEMA_VERSION_1200) ? PASSWORD_UPDATE_COMMAND_1200 : PASSWORD_UPDATE_COMMAND_1000);
-        if (schemaVersion < SCHEMA_VERSION_2000)
+             : ((schemaVersion == SCHEMA_VERSION_1200) ? CREATE_ACCOUNT_COMMAND_1200 : CREATE_ACCOUNT_COMMAND_1000);
+        userExistsSQL = (schemaVersion >= SCHEMA_VERSION_1200) ? USER_EXISTS_QUERY_1200 : USER_EXISTS_QUERY_1000;
+        userPasswordSQL = (schemaVersion >= SCHEMA_VERSION_1200) ? USER_PASSWORD_QUERY_1200 : USER_PASSWORD_QUERY_1000;
+        passwordUpdateSQL =
+            (schemaVersion >= SCHEMA_VERSION_1200) ? PASSWORD_UPDATE_COMMAND_1200 : PASSWORD_UPDATE_COMMAND_1000;
+        saveGameSQL =
+            (schemaVersion >= SCHEMA_VERSION_2000)
+            ? SAVE_GAME_COMMAND_2000
+            : ((schemaVersion == SCHEMA_VERSION_1200) ? SAVE_GAME_COMMAND_1200 : SAVE_GAME_COMMAND_1000);
+
+        if (userPasswordQuery != null)
+            try
+            {
+                userPasswordQuery.close();
+            } catch (SQLException e) {}
+        userPasswordQuery = connection.prepareStatement(userPasswordSQL);
+
+        final SOCDBConnectionPool p = pool;
+        p.clearStatementCaches();
+        final SOCDBConnectionPool.PooledConnection pc = p.borrow();
+        boolean hadError = true;
+        try
         {
-            saveGameCommand = connection.prepareStatement
-                ((schemaVersion == SCHEMA_VERSION_1200) ? SAVE_GAME_COMMAND_1200 : SAVE_GAME_COMMAND_1000);
-        } else {
-            // use prepareStatement variant with primary-key field name array,
-            // not Statement.RETURN_GENERATED_KEYS, because postgres prefers it
-            // (per their developer comments) and other DBs are OK with it.
-            saveGameCommand = connection.prepareStatement
-                (SAVE_GAME_COMMAND_2000, SAVE_GAME_COMMAND_2000_GEN_KEY);
-            saveGamePlayerCommand = connection.prepareStatement(SAVE_GAME_PLAYER_COMMAND);
-        }
-        robotParamsQuery = connection.prepareStatement(ROBOT_PARAMS_QUERY);
-        userCountQuery = connection.prepareStatement(USER_COUNT_QUERY);
+            pc.prepare(createAccountSQL);
+            pc.prepare(RECORD_LOGIN_COMMAND);
+            pc.prepare(userExistsSQL);
+            if (schemaVersion >= SCHEMA_VERSION_2000)
+            {
+                pc.prepare(USER_INCREMENT_WON_COMMAND);
+                pc.prepare(USER_INCREMENT_LOST_COMMAND);
+                if (schemaVersion >= SCHEMA_VERSION_2700)
+                {
+                    pc.prepare(USER_STATS_INSERT_IF_MISSING_COMMAND);
+                    pc.prepare(USER_STATS_ADD_COMMAND);
+                }
+                // use prepareStatement variant with primary-key field name array,
+                // not Statement.RETURN_GENERATED_KEYS, because postgres prefers it
+                // (per their developer comments) and other DBs are OK with it.
+                pc.prepare(SAVE_GAME_COMMAND_2000, SAVE_GAME_COMMAND_2000_GEN_KEY);
+                pc.prepare(SAVE_GAME_PLAYER_COMMAND);
+            } else {
+                pc.prepare(saveGameSQL);
+            }
+            pc.prepare(userPasswordSQL);
+            pc.prepare(HOST_QUERY);
+            pc.prepare(LASTLOGIN_UPDATE);
+            pc.prepare(passwordUpdateSQL);
+            pc.prepare(ROBOT_PARAMS_QUERY);
+            pc.prepare(USER_COUNT_QUERY);
+            hadError = false;
+        } finally {
+            releasePooled(pc, hadError);
+        }
     }
 
     /**
@@ -1490,15 +2084,26 @@ public class SOCDBHelper
 
         if (schemaVersion >= SCHEMA_VERSION_1200)
             userName = userName.toLowerCase(Locale.US);
-        userExistsQuery.setString(1, userName);
 
-        ResultSet rs = userExistsQuery.executeQuery();
-        if (rs.next())
-            userName = rs.getString(1);
-        else
-            userName = null;
+        final SOCDBConnectionPool.PooledConnection pc = borrowPooled();
+        boolean hadError = true;
+        try
+        {
+            final PreparedStatement userExistsQuery = pc.prepare(userExistsSQL);
+            userExistsQuery.setString(1, userName);
+
+            ResultSet rs = userExistsQuery.executeQuery();
+            if (rs.next())
+                userName = rs.getString(1);
+            else
+                userName = null;
+
+            rs.close();
+            hadError = false;
+        } finally {
+            releasePooled(pc, hadError);
+        }
 
-        rs.close();
         return userName;
     }
 
@@ -1513,6 +2118,10 @@ public class SOCDBHelper
      * and {@code sPassword} is "", returns {@code sUserName}.
      *<P>
      * This method replaces {@code getUserPassword(..)} used before v1.2.00.
+     *<P>
+     * {@link BCrypt} checks are run on a pool of {@link #PROP_JSETTLERS_DB_AUTH_THREADS} threads.
+     * If {@link #PROP_JSETTLERS_DB_AUTH_CACHE__SEC} is set, a password which was successfully checked
+     * that recently against the same DB password hash is accepted without another BCrypt check.
      *
      * @param sUserName Username needing password authentication
      * @param sPassword  Password being tried, or "" if none.
@@ -1554,9 +2163,12 @@ public class SOCDBHelper
 
         if (checkConnection())
         {
+            final SOCDBConnectionPool.PooledConnection pc = borrowPooled();
+            boolean hadError = true;
             try
             {
                 dbUserName = (schemaVersion < SCHEMA_VERSION_1200) ? sUserName : sUserName.toLowerCase(Locale.US);
+                final PreparedStatement userPasswordQuery = pc.prepare(userPasswordSQL);
                 userPasswordQuery.setString(1, dbUserName);
 
                 ResultSet resultSet = userPasswordQuery.executeQuery();
@@ -1578,13 +2190,17 @@ public class SOCDBHelper
                 }
 
                 resultSet.close();
+                hadError = false;
             }
             catch (SQLException sqlE)
             {
-                errorCondition = true;
                 sqlE.printStackTrace();
                 throw sqlE;
             }
+            finally
+            {
+                releasePooled(pc, hadError);
+            }
         }
 
         boolean ok;
@@ -1609,25 +2225,38 @@ public class SOCDBHelper
                         if ((L <= PW_MAX_LEN_SCHEME_BCRYPT)
                             && (sPassword.getBytes("utf-8").length <= PW_MAX_LEN_SCHEME_BCRYPT))
                         {
-                            if (authCallback == null)
+                            final SOCDBAuthCache cache = authCache;
+                            final String cacheKey =
+                                (cache != null) ? cache.key(dbUserName, dbPassword, sPassword) : null;
+
+                            if ((cacheKey != null) && cache.isVerified(cacheKey, System.currentTimeMillis()))
+                            {
+                                ok = true;
+                                synchronized (authStatsLock)
+                                {
+                                    ++authCacheHits;
+                                }
+                            }
+                            else if (authCallback == null)
                             {
-                                ok = BCrypt.checkpw(sPassword, dbPassword);  // may throw IllegalArgumentException
+                                ok = checkpwCountStats(sPassword, dbPassword, 0, cacheKey);
+                                    // may throw IllegalArgumentException
                             } else {
-                                ranBCryptTask = true;
-
                                 final String sPass = sPassword, dbUser = dbUserName, dbPass = dbPassword;
+                                final long queuedAt = System.nanoTime();
                                 bcryptQueueThreader.execute(new Runnable()
                                 {
                                     public void run()
                                     {
                                         try
                                         {
-                                            boolean pwOK = BCrypt.checkpw(sPass, dbPass);
+                                            boolean pwOK = checkpwCountStats(sPass, dbPass, queuedAt, cacheKey);
                                                 // may throw IllegalArgumentException
                                             authCallback.authResult((pwOK) ? dbUser: null, true);  // <--- Callback ---
                                         } catch (RuntimeException e) {}
                                     }
                                 });
+                                ranBCryptTask = true;  // set after execute, which throws exception if shut down
                             }
                         }
                     }
@@ -1649,6 +2278,90 @@ public class SOCDBHelper
         return ret;
     }
 
+    /**
+     * Check a password with {@link BCrypt#checkpw(String, String)} for
+     * {@link #authenticateUserPassword(String, String, AuthPasswordRunnable)}, and update {@link #getAuthStats()}.
+     * If successful and {@code cacheKey != null}, adds it to {@link #authCache}.
+     * @param password  Password being tried
+     * @param dbPassHash  User's BCrypt hash from the DB
+     * @param queuedAt  When this check was queued to {@link #bcryptQueueThreader}, from {@link System#nanoTime()},
+     *     or 0 if not queued
+     * @param cacheKey  Key for {@link #authCache}, or {@code null}
+     * @return  True if password matches
+     * @throws IllegalArgumentException if {@code dbPassHash} isn't a valid BCrypt hash
+     * @since 2.7.00
+     */
+    private boolean checkpwCountStats
+        (final String password, final String dbPassHash, final long queuedAt, final String cacheKey)
+        throws IllegalArgumentException
+    {
+        final long started = System.nanoTime();
+        final boolean pwOK;
+        try
+        {
+            pwOK = BCrypt.checkpw(password, dbPassHash);
+        } finally {
+            final long hashNanos = System.nanoTime() - started;
+            synchronized (authStatsLock)
+            {
+                ++authTaskCount;
+                authHashTotalNanos += hashNanos;
+                if (queuedAt != 0)
+                {
+                    final long waitNanos = started - queuedAt;
+                    authWaitTotalNanos += waitNanos;
+                    if (waitNanos > authWaitMaxNanos)
+                        authWaitMaxNanos = waitNanos;
+                }
+            }
+        }
+
+        if (pwOK && (cacheKey != null))
+        {
+            final SOCDBAuthCache cache = authCache;
+            if (cache != null)
+                cache.putVerified(cacheKey, System.currentTimeMillis());
+        }
+
+        return pwOK;
+    }
+
+    /**
+     * Get statistics about checking user passwords in
+     * {@link #authenticateUserPassword(String, String, AuthPasswordRunnable)}, for the {@code *STATS*} admin command.
+     * Times are in milliseconds.
+     * @return  Array with number of password-checking threads ({@link #PROP_JSETTLERS_DB_AUTH_THREADS}),
+     *     number of checks currently queued, number currently running, number of {@link BCrypt} checks done,
+     *     average and maximum time queued checks waited to start, average BCrypt check time,
+     *     and number of checks skipped because a recent successful check was cached
+     *     ({@link #PROP_JSETTLERS_DB_AUTH_CACHE__SEC})
+     * @since 2.7.00
+     */
+    public long[] getAuthStats()
+    {
+        final ThreadPoolExecutor ex = bcryptQueueThreader;
+        final long threads, queued, active;
+        if (ex != null)
+        {
+            threads = ex.getMaximumPoolSize();
+            queued = ex.getQueue().size();
+            active = ex.getActiveCount();
+        } else {
+            threads = 0;
+            queued = 0;
+            active = 0;
+        }
+
+        synchronized (authStatsLock)
+        {
+            final long avgWait = (authTaskCount > 0) ? (authWaitTotalNanos / authTaskCount) / 1000000L : 0,
+                avgHash = (authTaskCount > 0) ? (authHashTotalNanos / authTaskCount) / 1000000L : 0;
+
+            return new long[]
+                { threads, queued, active, authTaskCount, avgWait, authWaitMaxNanos / 1000000L, avgHash, authCacheHits };
+        }
+    }
+
     /**
      * DOCUMENT ME!
      *
@@ -1665,8 +2378,11 @@ public class SOCDBHelper
 
         if (checkConnection())
         {
+            final SOCDBConnectionPool.PooledConnection pc = borrowPooled();
+            boolean hadError = true;
             try
             {
+                final PreparedStatement hostQuery = pc.prepare(HOST_QUERY);
                 hostQuery.setString(1, host);
 
                 ResultSet resultSet = hostQuery.executeQuery();
@@ -1678,13 +2394,17 @@ public class SOCDBHelper
                 }
 
                 resultSet.close();
+                hadError = false;
             }
             catch (SQLException sqlE)
             {
-                errorCondition = true;
                 sqlE.printStackTrace();
                 throw sqlE;
             }
+            finally
+            {
+                releasePooled(pc, hadError);
+            }
         }
 
         return nickname;
@@ -1726,11 +2446,14 @@ public class SOCDBHelper
 
         if (checkConnection())
         {
+            final SOCDBConnectionPool.PooledConnection pc = borrowPooled();
+            boolean hadError = true;
             try
             {
                 java.sql.Date sqlDate = new java.sql.Date(time);
                 Calendar cal = Calendar.getInstance();
 
+                final PreparedStatement createAccountCommand = pc.prepare(createAccountSQL);
                 createAccountCommand.setString(1, userName);
                 createAccountCommand.setString(2, host);
                 if (schemaVersion < SCHEMA_VERSION_1200)
@@ -1758,15 +2481,19 @@ public class SOCDBHelper
                 }
 
                 createAccountCommand.executeUpdate();
+                hadError = false;
 
                 return true;
             }
             catch (SQLException sqlE)
             {
-                errorCondition = true;
                 sqlE.printStackTrace();
                 throw sqlE;
             }
+            finally
+            {
+                releasePooled(pc, hadError);
+            }
         }
 
         return false;
@@ -1787,25 +2514,32 @@ public class SOCDBHelper
     {
         if (checkConnection())
         {
+            final SOCDBConnectionPool.PooledConnection pc = borrowPooled();
+            boolean hadError = true;
             try
             {
                 java.sql.Date sqlDate = new java.sql.Date(time);
                 Calendar cal = Calendar.getInstance();
 
+                final PreparedStatement recordLoginCommand = pc.prepare(RECORD_LOGIN_COMMAND);
                 recordLoginCommand.setString(1, userName);
                 recordLoginCommand.setString(2, host);
                 recordLoginCommand.setDate(3, sqlDate, cal);
 
                 recordLoginCommand.executeUpdate();
+                hadError = false;
 
                 return true;
             }
             catch (SQLException sqlE)
             {
-                errorCondition = true;
                 sqlE.printStackTrace();
                 throw sqlE;
             }
+            finally
+            {
+                releasePooled(pc, hadError);
+            }
         }
 
         return false;
@@ -1825,29 +2559,108 @@ public class SOCDBHelper
     {
         if (checkConnection())
         {
+            final SOCDBConnectionPool.PooledConnection pc = borrowPooled();
+            boolean hadError = true;
             try
             {
                 java.sql.Date sqlDate = new java.sql.Date(time);
                 Calendar cal = Calendar.getInstance();
 
+                final PreparedStatement lastloginUpdate = pc.prepare(LASTLOGIN_UPDATE);
                 lastloginUpdate.setDate(1, sqlDate, cal);
                 lastloginUpdate.setString(2, userName);
 
                 lastloginUpdate.executeUpdate();
+                hadError = false;
 
                 return true;
             }
             catch (SQLException sqlE)
             {
-                errorCondition = true;
                 sqlE.printStackTrace();
                 throw sqlE;
             }
+            finally
+            {
+                releasePooled(pc, hadError);
+            }
         }
 
         return false;
     }
 
+    /**
+     * Record these users' login hosts and times, and update their last-login times,
+     * in one transaction using JDBC batch updates. Used by {@link SOCDBWriteQueue};
+     * same as calling {@link #recordLogin(String, String, long)} and {@link #updateLastlogin(String, long)}
+     * for each login.
+     *
+     * @param logins  Logins to record; not null, can be empty
+     * @return  Number of logins recorded, or 0 if connection is closed
+     * @throws SQLException if any unexpected database problem; none of the logins will have been recorded
+     * @since 2.7.00
+     */
+    public int recordLogins(final List<LoginRecord> logins)
+        throws SQLException
+    {
+        if (logins.isEmpty() || ! checkConnection())
+            return 0;
+
+        final SOCDBConnectionPool.PooledConnection pc = borrowPooled();
+        boolean hadError = true;
+        try
+        {
+            final Connection conn = pc.conn;
+            final boolean wasConnAutocommit = enterTransactionMode(conn);
+
+            try
+            {
+                final Calendar cal = Calendar.getInstance();
+                final PreparedStatement recordLoginCommand = pc.prepare(RECORD_LOGIN_COMMAND),
+                    lastloginUpdate = pc.prepare(LASTLOGIN_UPDATE);
+                recordLoginCommand.clearBatch();
+                lastloginUpdate.clearBatch();
+
+                for (final LoginRecord rec : logins)
+                {
+                    final java.sql.Date sqlDate = new java.sql.Date(rec.time);
+
+                    recordLoginCommand.setString(1, rec.userName);
+                    recordLoginCommand.setString(2, rec.host);
+                    recordLoginCommand.setDate(3, sqlDate, cal);
+                    recordLoginCommand.addBatch();
+
+                    lastloginUpdate.setDate(1, sqlDate, cal);
+                    lastloginUpdate.setString(2, rec.userName);
+                    lastloginUpdate.addBatch();
+                }
+
+                recordLoginCommand.executeBatch();
+                lastloginUpdate.executeBatch();
+
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                exitTransactionMode(conn, wasConnAutocommit);
+            }
+
+            hadError = false;
+        }
+        catch (SQLException sqlE)
+        {
+            sqlE.printStackTrace();
+            throw sqlE;
+        }
+        finally
+        {
+            releasePooled(pc, hadError);
+        }
+
+        return logins.size();
+    }
+
     /**
      * Update a user's password if the user is in the database.
      * If schema &gt;= {@link #SCHEMA_VERSION_1200}, the password will be encoded with {@link #PW_SCHEME_BCRYPT}.
@@ -1878,8 +2691,12 @@ public class SOCDBHelper
 
         if (schemaVersion >= SCHEMA_VERSION_1200)
             userName = userName.toLowerCase(Locale.US);
+
+        final SOCDBConnectionPool.PooledConnection pc = borrowPooled();
+        boolean hadError = true;
         try
         {
+            final PreparedStatement passwordUpdateCommand = pc.prepare(passwordUpdateSQL);
             if (schemaVersion < SCHEMA_VERSION_1200)
             {
                 passwordUpdateCommand.setString(1, newPassword);
@@ -1899,16 +2716,20 @@ public class SOCDBHelper
                 passwordUpdateCommand.setString(3, userName);
             }
             passwordUpdateCommand.executeUpdate();
+            hadError = false;
 
             return true;
         }
         catch (SQLException sqlE)
         {
-            errorCondition = true;
             sqlE.printStackTrace();
 
             throw sqlE;
         }
+        finally
+        {
+            releasePooled(pc, hadError);
+        }
     }
 
     /**
@@ -1981,170 +2802,196 @@ public class SOCDBHelper
         (final SOCGame ga, final int gameLengthSeconds, final boolean winLossOnly)
         throws IllegalArgumentException, SQLException
     {
-        final SOCPlayer winner = ga.getPlayerWithWin();
-        if (winner == null)
-            throw new IllegalArgumentException("no winner");
+        final GameResult res = new GameResult(ga, gameLengthSeconds, winLossOnly);  // checks winner != null
 
-        if ((winLossOnly && (userIncrWonCommand == null))
+        if ((winLossOnly && (schemaVersion < SCHEMA_VERSION_2000))
             || ! checkConnection())
         {
             return false;  // <--- Early return: nothing to save, or conn was never initialized ---
         }
 
-        String[] names = new String[SOCGame.MAXPLAYERS];  // DB max 6; ga.maxPlayers max 4 or 6
-        short[] scores = new short[SOCGame.MAXPLAYERS];
-        for (int pn = 0; pn < ga.maxPlayers; ++pn)
-        {
-            SOCPlayer pl = ga.getPlayer(pn);
-            names[pn] = pl.getName();
-            scores[pn] = (short) pl.getTotalVP();
-        }
+        saveGameScores(Collections.singletonList(res));
+
+        return true;
+    }
+
+    /**
+     * Record these completed games' results in the database in one transaction,
+     * using JDBC batch updates where possible.
+     * For players whose users exist in the database, update their win-loss counts.
+     * Used by {@link SOCDBWriteQueue} and {@link #saveGameScores(SOCGame, int, boolean)}.
+     *<P>
+     * User win-loss records require schema version &gt;= {@link SOCDBHelper#SCHEMA_VERSION_2000}.
+     * Results which are {@link GameResult#winLossOnly} are skipped if schema is older than that.
+     * If schema &gt;= {@link #SCHEMA_VERSION_2700}, also adds each game to its users' {@code user_stats}
+     * summary rows for the game's type and for all games.
+     *
+     * @param results  Game results to save; not null, can be empty
+     * @return  Number of game results saved, or 0 if connection is closed
+     * @throws SQLException if an error occurs; none of the results will have been saved
+     * @since 2.7.00
+     */
+    public int saveGameScores(final List<GameResult> results)
+        throws SQLException
+    {
+        if (results.isEmpty() || ! checkConnection())
+            return 0;
+
+        int nSaved = 0;
 
+        final SOCDBConnectionPool.PooledConnection pc = borrowPooled();
+        boolean hadError = true;
         try
         {
-            int newGameID = -1;  // PK from insertGames2Row, unless winLossOnly
+            final Connection conn = pc.conn;
+            final boolean wasConnAutocommit = enterTransactionMode(conn);
 
-            if (! winLossOnly)
+            try
             {
-
-                final int db_max_players = (schemaVersion < SCHEMA_VERSION_1200) ? 4 : 6;
-                if ((ga.maxPlayers > db_max_players)
-                    && ! (ga.isSeatVacant(4) && ga.isSeatVacant(5)))
+                if (schemaVersion >= SCHEMA_VERSION_2000)
                 {
-                    // Need to try and fit player 5 and/or player 6
-                    // into the 4 db slots (backwards-compatibility)
-                    saveGameScores_fit6pInto4(ga, names, scores);
-                }
+                    // For each game:
+                    // - Insert games2 row, unless winLossOnly; need its generated key, so not batched
+                    // - Save per-player scores
+                    // - Update per-user win/loss records for any players who exist in DB
+
+                    final PreparedStatement saveGamePlayerCommand = pc.prepare(SAVE_GAME_PLAYER_COMMAND),
+                        userIncrWonCommand = pc.prepare(USER_INCREMENT_WON_COMMAND),
+                        userIncrLostCommand = pc.prepare(USER_INCREMENT_LOST_COMMAND);
+                    saveGamePlayerCommand.clearBatch();
+                    userIncrWonCommand.clearBatch();
+                    userIncrLostCommand.clearBatch();
+                    int nPlayers = 0, nLost = 0;
+                    final UserStatsDeltas statsDeltas =
+                        (schemaVersion >= SCHEMA_VERSION_2700) ? new UserStatsDeltas() : null;
+
+                    for (final GameResult res : results)
+                    {
+                        if (! res.winLossOnly)
+                        {
+                            final int newGameID = insertGames2Row
+                                (pc.prepare(SAVE_GAME_COMMAND_2000, SAVE_GAME_COMMAND_2000_GEN_KEY),
+                                 res.gaName, res.winnerName, res.startTimeMillis, res.gameLengthSeconds,
+                                 res.optsStr, res.scen);
 
-                final String gaName = ga.getName();
-                final long startTimeMillis = ga.getStartTime().getTime();
-                final SOCGameOptionSet opts = ga.getGameOptions();
-                final String optsStr = (opts == null)
-                    ? null
-                    : SOCGameOption.packOptionsToString(opts.getAll(), false, true);
+                            // Per-player scores:
+                            for (int pn = 0; pn < res.maxPlayers; ++pn)
+                            {
+                                if (res.isVacant[pn])
+                                    continue;
+                                final String plName = res.names[pn];
+                                final int plScore = res.scores[pn];
+                                if ((plScore == 0) || (plName == null) || plName.isEmpty())
+                                    continue;  // initial settlements give starting score of 2: no one would have 0 at game end
+
+                                saveGamePlayerCommand.setInt(1, newGameID);
+                                saveGamePlayerCommand.setString(2, plName);
+                                saveGamePlayerCommand.setInt(3, plScore);
+                                saveGamePlayerCommand.addBatch();
+                                ++nPlayers;
+                            }
+                        }
 
-                if (schemaVersion >= SCHEMA_VERSION_2000)
-                {
-                    SOCGameOption scOpt = opts.get("SC");
-                    final String scen = (scOpt != null) ? scOpt.getStringValue() : null;
+                        // Per-user win/loss records:
 
-                    newGameID = insertGames2Row
-                        (gaName, winner.getName(), startTimeMillis, gameLengthSeconds, optsStr, scen);
+                        String winnerName = res.winnerName;
+                        if ((winnerName == null) || winnerName.isEmpty())
+                            winnerName = "?";  // could happen if disconnected before save
+                        userIncrWonCommand.setString(1, winnerName);
+                        userIncrWonCommand.addBatch();
 
-                    // Per-player scores will be stored below, in a transaction
+                        for (int pn = 0; pn < res.maxPlayers; ++pn)
+                        {
+                            if ((pn == res.winnerPN) || res.isVacant[pn])
+                                continue;
+                            String pname = res.names[pn];
+                            if ((pname == null) || pname.isEmpty())
+                                continue;
 
-                } else {
-                    // schemaVersion < SCHEMA_VERSION_2000: no games2 table
-                    saveGameCommand.setString(1, gaName);
-                    int i = 2;
-
-                    for (int pn = 0; pn < db_max_players; ++i, ++pn)
-                        saveGameCommand.setString(i, names[pn]);
-                    for (int pn = 0; pn < db_max_players; ++i, ++pn)
-                        if ((scores[pn] != 0) || (names[pn] != null))
-                            saveGameCommand.setShort(i, scores[pn]);
-                        else
-                            saveGameCommand.setNull(i, Types.SMALLINT);
+                            userIncrLostCommand.setString(1, pname);
+                            userIncrLostCommand.addBatch();
+                            ++nLost;
+                        }
 
-                    saveGameCommand.setTimestamp(i, new Timestamp(startTimeMillis));  ++i;
+                        if (statsDeltas != null)
+                            statsDeltas.addGame(res);
 
-                    if (schemaVersion >= SCHEMA_VERSION_1200)
-                    {
-                        saveGameCommand.setInt(i, gameLengthSeconds);  ++i;
-                        saveGameCommand.setString(i, winner.getName());  ++i;
-                        saveGameCommand.setString(i, optsStr);  ++i;
+                        ++nSaved;
                     }
 
-                    newGameID = 0;
+                    if (nPlayers > 0)
+                        saveGamePlayerCommand.executeBatch();
+                    userIncrWonCommand.executeBatch();
+                    if (nLost > 0)
+                        userIncrLostCommand.executeBatch();
+                    if (statsDeltas != null)
+                        statsDeltas.write
+                            (pc.prepare(USER_STATS_INSERT_IF_MISSING_COMMAND), pc.prepare(USER_STATS_ADD_COMMAND));
+                } else {
+                    // schemaVersion < SCHEMA_VERSION_2000: no games2 table or win-loss counts
+                    final int db_max_players = (schemaVersion < SCHEMA_VERSION_1200) ? 4 : 6;
+                    final PreparedStatement saveGameCommand = pc.prepare(saveGameSQL);
+                    saveGameCommand.clearBatch();
 
-                    saveGameCommand.executeUpdate();
-                }
-            }
+                    for (final GameResult res : results)
+                    {
+                        if (res.winLossOnly)
+                            continue;
 
-            if (userIncrWonCommand != null)
-            {
-                // In a transaction:
-                // - Save per-player scores.
-                // - Update per-user win/loss records for any players who exist in DB
-                // Applies to schemaVersion >= SCHEMA_VERSION_2000
+                        // if needed, use player 5 and/or 6 fitted into the 4 db slots (backwards-compatibility)
+                        final boolean useFitted = (res.maxPlayers > db_max_players) && (res.names4 != null);
+                        final String[] names = (useFitted) ? res.names4 : res.names;
+                        final short[] scores = (useFitted) ? res.scores4 : res.scores;
 
-                String winnerName = winner.getName();
-                if ((winnerName == null) || winnerName.isEmpty())
-                    winnerName = "?";  // could happen if disconnected before save
+                        saveGameCommand.setString(1, res.gaName);
+                        int i = 2;
 
-                // begin transaction
-                final boolean wasConnAutocommit = enterTransactionMode();
+                        for (int pn = 0; pn < db_max_players; ++i, ++pn)
+                            saveGameCommand.setString(i, names[pn]);
+                        for (int pn = 0; pn < db_max_players; ++i, ++pn)
+                            if ((scores[pn] != 0) || (names[pn] != null))
+                                saveGameCommand.setShort(i, scores[pn]);
+                            else
+                                saveGameCommand.setNull(i, Types.SMALLINT);
 
-                try
-                {
-                    if (! winLossOnly)
-                    {
-                        // Per-player scores:
+                        saveGameCommand.setTimestamp(i, new Timestamp(res.startTimeMillis));  ++i;
 
-                        boolean hadAnyPlayers = false;
-                        saveGamePlayerCommand.clearBatch();
-                        for (int pn = 0; pn < ga.maxPlayers; ++pn)
+                        if (schemaVersion >= SCHEMA_VERSION_1200)
                         {
-                            if (ga.isSeatVacant(pn))
-                                continue;
-                            final String plName = names[pn];
-                            final int plScore = scores[pn];
-                            if ((plScore == 0) || (plName == null) || plName.isEmpty())
-                                continue;  // initial settlements give starting score of 2: no one would have 0 at game end
-
-                            hadAnyPlayers = true;
-                            saveGamePlayerCommand.setInt(1, newGameID);
-                            saveGamePlayerCommand.setString(2, plName);
-                            saveGamePlayerCommand.setInt(3, plScore);
-                            saveGamePlayerCommand.addBatch();
+                            saveGameCommand.setInt(i, res.gameLengthSeconds);  ++i;
+                            saveGameCommand.setString(i, res.winnerName);  ++i;
+                            saveGameCommand.setString(i, res.optsStr);  ++i;
                         }
-                        if (hadAnyPlayers)
-                            saveGamePlayerCommand.executeBatch();
-                    }
-
-                    // Per-user win/loss records:
-
-                    if ((winnerName != null) && (winnerName.length() > 0))
-                    {
-                        userIncrWonCommand.setString(1, winnerName);
-                        userIncrWonCommand.executeUpdate();
-                    }
-
-                    int nLost = 0;
-                    final int winnerPN = winner.getPlayerNumber();
-                    for (int pn = 0; pn < ga.maxPlayers; ++pn)
-                    {
-                        if ((pn == winnerPN) || ga.isSeatVacant(pn))
-                            continue;
-                        String pname = names[pn];
-                        if ((pname == null) || pname.isEmpty())
-                            continue;
 
-                        userIncrLostCommand.setString(1, pname);
-                        userIncrLostCommand.addBatch();
-                        ++nLost;
+                        saveGameCommand.addBatch();
+                        ++nSaved;
                     }
-                    if (nLost > 0)
-                        userIncrLostCommand.executeBatch();
 
-                    connection.commit();
-                } catch (SQLException e) {
-                    connection.rollback();
-                    throw e;
-                } finally {
-                    exitTransactionMode(wasConnAutocommit);
+                    if (nSaved > 0)
+                        saveGameCommand.executeBatch();
                 }
+
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                exitTransactionMode(conn, wasConnAutocommit);
             }
 
+            hadError = false;
         }
         catch (SQLException sqlE)
         {
-            errorCondition = true;
             sqlE.printStackTrace();
             throw sqlE;
         }
+        finally
+        {
+            releasePooled(pc, hadError);
+        }
 
-        return true;
+        return nSaved;
     }
 
     /**
@@ -2326,11 +3173,11 @@ public class SOCDBHelper
 
         if (checkConnection())
         {
-            if (robotParamsQuery == null)
-                return null;  // <--- Early return: Table not found in db, is probably empty ---
-
+            final SOCDBConnectionPool.PooledConnection pc = borrowPooled();
+            boolean hadError = true;
             try
             {
+                final PreparedStatement robotParamsQuery = pc.prepare(ROBOT_PARAMS_QUERY);
                 robotParamsQuery.setString(1, robotName);
 
                 ResultSet resultSet = robotParamsQuery.executeQuery();
@@ -2350,14 +3197,18 @@ public class SOCDBHelper
                 }
 
                 resultSet.close();
+                hadError = false;
             }
             catch (SQLException sqlE)
             {
-                errorCondition = true;
                 sqlE.printStackTrace();
 
                 throw sqlE;
             }
+            finally
+            {
+                releasePooled(pc, hadError);
+            }
         }
 
         return robotParams;
@@ -2375,28 +3226,180 @@ public class SOCDBHelper
         if (! checkConnection())
             return -1;
 
-        if (userCountQuery == null)
-            return -1;  // <--- Early return: Table not found in db, is probably empty ---
-
+        final SOCDBConnectionPool.PooledConnection pc = borrowPooled();
+        boolean hadError = true;
         try
         {
-            ResultSet resultSet = userCountQuery.executeQuery();
+            ResultSet resultSet = pc.prepare(USER_COUNT_QUERY).executeQuery();
 
             int count = -1;
             if (resultSet.next())
                 count = resultSet.getInt(1);
 
             resultSet.close();
+            hadError = false;
 
             return count;
         }
         catch (SQLException sqlE)
         {
-            errorCondition = true;
             sqlE.printStackTrace();
 
             throw sqlE;
         }
+        finally
+        {
+            releasePooled(pc, hadError);
+        }
+    }
+
+    /**
+     * Get a user's game stats from the {@code user_stats} summary table: Games played, won, lost,
+     * and total VP, for all games ({@link #STATS_GAMETYPE_ALL}) and for each game type they've played.
+     * Requires schema version &gt;= {@link #SCHEMA_VERSION_2700}.
+     *<P>
+     * Stats are kept only for users who exist in the database.
+     * If a schema upgrade's background tasks are still running, stats from games saved
+     * before the upgrade might not be included yet; see {@link #doesSchemaUpgradeNeedBGTasks()}.
+     *
+     * @param userName  User nickname to look up; case-insensitive
+     * @return  The user's stats, sorted by gametype; empty if none or user not found.
+     *     {@code null} if not connected or if schema is older than {@link #SCHEMA_VERSION_2700}.
+     * @throws SQLException if an error occurs
+     * @see #getLeaderboard(String, int, int, UserStats, int)
+     * @since 2.7.00
+     */
+    public List<UserStats> getUserStats(final String userName)
+        throws SQLException
+    {
+        if ((schemaVersion < SCHEMA_VERSION_2700) || ! checkConnection())
+            return null;
+
+        final List<UserStats> ret = new ArrayList<>();
+
+        final SOCDBConnectionPool.PooledConnection pc = borrowPooled();
+        boolean hadError = true;
+        try
+        {
+            final PreparedStatement ps = pc.prepare(USER_STATS_QUERY);
+            ps.setString(1, userName.toLowerCase(Locale.US));
+            final ResultSet rs = ps.executeQuery();
+            while (rs.next())
+                ret.add(new UserStats(rs));
+            rs.close();
+
+            hadError = false;
+        }
+        catch (SQLException sqlE)
+        {
+            sqlE.printStackTrace();
+
+            throw sqlE;
+        }
+        finally
+        {
+            releasePooled(pc, hadError);
+        }
+
+        return ret;
+    }
+
+    /**
+     * Get a page of users' rankings for a game type from the {@code user_stats} summary table.
+     * Uses the table's indexes, without scanning {@code games2}.
+     * Requires schema version &gt;= {@link #SCHEMA_VERSION_2700}.
+     *<P>
+     * To page through the rankings, call first with {@code after} = {@code null},
+     * then with {@code after} = the last item of the previous page, until fewer than {@code limit} items
+     * are returned. Users with the same win count (or games count) are sorted by nickname.
+     *<P>
+     * Stats are kept only for users who exist in the database.
+     * If a schema upgrade's background tasks are still running, stats from games saved
+     * before the upgrade might not be included yet; see {@link #doesSchemaUpgradeNeedBGTasks()}.
+     *
+     * @param gameType  {@link #STATS_GAMETYPE_ALL} for all games, {@link #STATS_GAMETYPE_NO_SCENARIO},
+     *     or a scenario name key like {@code "SC_FOG"}
+     * @param sortBy  {@link #LEADERBOARD_BY_WINS} or {@link #LEADERBOARD_BY_GAMES}
+     * @param minGames  Include only users who've played at least this many games of {@code gameType}, or 0
+     * @param after  Previous page's last item, or {@code null} for the first page.
+     *     Should be from a call with the same {@code gameType} and {@code sortBy}.
+     * @param limit  Maximum number of users to return, 1 to {@link #LEADERBOARD_PAGE_MAX}
+     * @return  This page of users' stats, in ranked order; empty if none.
+     *     {@code null} if not connected or if schema is older than {@link #SCHEMA_VERSION_2700}.
+     * @throws IllegalArgumentException if {@code gameType} is null, {@code sortBy} is unknown,
+     *     or {@code limit} is out of range
+     * @throws SQLException if an error occurs
+     * @see #getUserStats(String)
+     * @since 2.7.00
+     */
+    public List<UserStats> getLeaderboard
+        (final String gameType, final int sortBy, final int minGames, final UserStats after, final int limit)
+        throws IllegalArgumentException, SQLException
+    {
+        if (gameType == null)
+            throw new IllegalArgumentException("gameType");
+        final String sortField;
+        switch (sortBy)
+        {
+        case LEADERBOARD_BY_WINS:
+            sortField = "games_won";  break;
+        case LEADERBOARD_BY_GAMES:
+            sortField = "games_played";  break;
+        default:
+            throw new IllegalArgumentException("sortBy: " + sortBy);
+        }
+        if ((limit < 1) || (limit > LEADERBOARD_PAGE_MAX))
+            throw new IllegalArgumentException("limit: " + limit);
+
+        if ((schemaVersion < SCHEMA_VERSION_2700) || ! checkConnection())
+            return null;
+
+        // Keyset paging: Continue after the previous page's last (sort field, nickname), using the same
+        // index as the first page. Same SQL for every limit, so each pooled connection caches just 2 per sortBy.
+        final StringBuilder sql = new StringBuilder
+            ("SELECT nickname, gametype, games_played, games_won, games_lost, vp_total"
+             + " FROM user_stats WHERE gametype = ? AND games_played >= ?");
+        if (after != null)
+            sql.append(" AND (" + sortField + " < ? OR (" + sortField + " = ? AND nickname > ?))");
+        sql.append(" ORDER BY " + sortField + " DESC, nickname");
+
+        final List<UserStats> ret = new ArrayList<>();
+
+        final SOCDBConnectionPool.PooledConnection pc = borrowPooled();
+        boolean hadError = true;
+        try
+        {
+            final PreparedStatement ps = pc.prepare(sqlWithLimit(sql.toString(), LEADERBOARD_PAGE_MAX));
+            ps.setString(1, gameType);
+            ps.setInt(2, minGames);
+            if (after != null)
+            {
+                final int afterVal = (sortBy == LEADERBOARD_BY_WINS) ? after.gamesWon : after.gamesPlayed;
+                ps.setInt(3, afterVal);
+                ps.setInt(4, afterVal);
+                ps.setString(5, after.nickname);
+            }
+            ps.setMaxRows(limit);
+
+            final ResultSet rs = ps.executeQuery();
+            while (rs.next() && (ret.size() < limit))
+                ret.add(new UserStats(rs));
+            rs.close();
+
+            hadError = false;
+        }
+        catch (SQLException sqlE)
+        {
+            sqlE.printStackTrace();
+
+            throw sqlE;
+        }
+        finally
+        {
+            releasePooled(pc, hadError);
+        }
+
+        return ret;
     }
 
     /**
@@ -2462,6 +3465,47 @@ public class SOCDBHelper
             li.add(e.getMessage());  // might be null
         }
 
+        final SOCDBConnectionPool p = pool;
+        if (p != null)
+        {
+            final long[] stats = p.getStats();
+            li.add("Connection pool");
+            li.add("size " + p.getSize() + ", " + stats[0] + " open, " + stats[1] + " idle; "
+                + stats[2] + " borrows, " + stats[3] + " waited, " + stats[4] + " replaced");
+        }
+
+        final SOCDBWriteQueue wq = writeQueue;
+        li.add("Write queue");
+        if (wq != null)
+        {
+            final long[] stats = wq.getStats();
+            li.add("size " + writeQueueSize + ", depth " + stats[0] + " (max " + stats[1] + "); "
+                + stats[2] + " queued, " + stats[3] + " written, " + stats[4] + " not queued, "
+                + stats[5] + " retries, " + stats[6] + " failed; latency avg " + stats[7]
+                + " ms, max " + stats[8] + " ms");
+        } else {
+            li.add("disabled");
+        }
+
+        li.add("Schema upgrade background tasks");
+        if (schemaUpgBGTasks_fromVersion == 0)
+        {
+            li.add("none");
+        } else {
+            final long[] prog = getSchemaUpgradeBGTasksProgress();
+            if (prog == null)
+            {
+                li.add("needed, not running");
+            } else {
+                final long eta = prog[3];
+                li.add("from v" + prog[0] + ": " + prog[1] + " rows done, " + prog[2] + " remaining, ETA "
+                    + ((eta >= 0)
+                       ? String.format("%d:%02d:%02d", eta / 3600, (eta / 60) % 60, eta % 60)
+                       : "?")
+                    + "; " + upgradeBGThreads + " thread(s), pause " + upgradeBGPauseMillis + " ms");
+            }
+        }
+
         li.add("Game results saved in DB?");
         li.add(Boolean.toString
             (srv.getConfigBoolProperty(SOCDBHelper.PROP_JSETTLERS_DB_SAVE_GAMES, false)));
@@ -2713,6 +3757,19 @@ public class SOCDBHelper
      */
     public ResultSet selectWithLimit(final String selectStmt, final int limit)
         throws SQLException
+    {
+        return connection.createStatement().executeQuery(sqlWithLimit(selectStmt, limit));
+    }
+
+    /**
+     * Build a SELECT query with a LIMIT clause appropriate to the DB type if possible.
+     * See {@link #selectWithLimit(String, int)} for details.
+     * @param selectStmt  SQL statement, beginning with SELECT, omitting trailing {@code ';'}
+     * @param limit  Number of rows for LIMIT clause
+     * @return  SQL for this limited SELECT statement, ending with {@code ';'}
+     * @since 2.7.00
+     */
+    private String sqlWithLimit(final String selectStmt, final int limit)
     {
         StringBuilder sql = new StringBuilder(selectStmt);
         int L = sql.length();
@@ -2741,13 +3798,14 @@ public class SOCDBHelper
 
         sql.append(';');
 
-        return connection.createStatement().executeQuery(sql.toString());
+        return sql.toString();
     }
 
     /**
      * Insert a new game-info row into the {@code games2} table and return its generated ID.
      * Used by {@link #saveGameScores(SOCGame, int, boolean)}.
      *
+     * @param saveGameCommand  Statement prepared from {@link #SAVE_GAME_COMMAND_2000} to return generated keys
      * @param startTimeMillis  Game start time, from {@link SOCGame#getStartTime()}{@link java.util.Date#getTime() .getTime()}
      * @param gameLengthSeconds  Game length, from {@link SOCGame#getDurationSeconds()}
      * @param optsStr  Null or game options, from {@link SOCGame#getGameOptions()}
@@ -2760,7 +3818,7 @@ public class SOCDBHelper
      * @since 2.0.00
      */
     private int insertGames2Row
-        (final String gaName, final String winnerName, final long startTimeMillis, final int gameLengthSeconds,
+        (final PreparedStatement saveGameCommand, final String gaName, final String winnerName, final long startTimeMillis, final int gameLengthSeconds,
          final String optsStr, final String scen)
         throws IllegalStateException, UnsupportedOperationException, SQLException
     {
@@ -2958,21 +4016,37 @@ public class SOCDBHelper
      *     This value must be saved (use a {@code final} local) and, after your
      *     transactions, passed to {@link #exitTransactionMode(boolean)}.
      * @throws SQLException  if an unexpected DB error occurs or the connection is closed
+     * @see #enterTransactionMode(Connection)
      * @since 2.0.00
      */
     private boolean enterTransactionMode()
         throws SQLException
     {
-        // Note: if this method's code changes, also update testDBHelper() to match.
-
-        final boolean wasConnAutocommit = connection.getAutoCommit();
+        return enterTransactionMode(connection);
+    }
+
+    /**
+     * Puts a connection into transaction mode, like {@link #enterTransactionMode()} does for {@link #connection}.
+     * Used with pooled connections from {@link #borrowPooled()}.
+     * @param conn  Connection to use; not null
+     * @return  Status value from {@link Connection#getAutoCommit()} about {@code conn}'s behavior
+     *     before entering transaction mode, to pass to {@link #exitTransactionMode(Connection, boolean)}
+     * @throws SQLException  if an unexpected DB error occurs or the connection is closed
+     * @since 2.7.00
+     */
+    private static boolean enterTransactionMode(final Connection conn)
+        throws SQLException
+    {
+        // Note: if this method's code changes, also update testDBHelper() to match.
+
+        final boolean wasConnAutocommit = conn.getAutoCommit();
 
         // begin transaction
         if (wasConnAutocommit)
-            connection.setAutoCommit(false);
+            conn.setAutoCommit(false);
         else
             try {
-                connection.commit();  // end previous transaction, if any
+                conn.commit();  // end previous transaction, if any
             } catch (SQLException e) {}
 
         return wasConnAutocommit;
@@ -2991,15 +4065,30 @@ public class SOCDBHelper
      * @throws SQLException  if an unexpected DB error occurs or the connection is closed,
      *     or (unlikely) a distributed transaction was in progress when
      *     {@link Connection#setAutoCommit(boolean)} was called
+     * @see #exitTransactionMode(Connection, boolean)
      * @since 2.0.00
      */
     private void exitTransactionMode(final boolean wasConnAutocommit)
         throws SQLException
+    {
+        exitTransactionMode(connection, wasConnAutocommit);
+    }
+
+    /**
+     * Takes a connection out of transaction mode, like {@link #exitTransactionMode(boolean)}
+     * does for {@link #connection}.
+     * @param conn  Connection to use; not null
+     * @param wasConnAutocommit  The value returned from {@link #enterTransactionMode(Connection)}
+     * @throws SQLException  if an unexpected DB error occurs or the connection is closed
+     * @since 2.7.00
+     */
+    private static void exitTransactionMode(final Connection conn, final boolean wasConnAutocommit)
+        throws SQLException
     {
         // Note: if this method's code changes, also update testDBHelper() to match.
 
         if (wasConnAutocommit)
-            connection.setAutoCommit(true);
+            conn.setAutoCommit(true);
         // else,
         //   nothing to do since caller has called commit() or rollback()
     }
@@ -3527,7 +4616,59 @@ public class SOCDBHelper
             }
         }
 
-        final boolean has_bg_tasks = (schemaVersion < SCHEMA_VERSION_2000);
+        /**
+         * 2.7.00:
+         * - add new table user_stats
+         * - remember games2's highest gameid, to count games up to there into user_stats during BG tasks
+         */
+        int upg_2700_maxGameID = 0;
+        if (schemaVersion < SCHEMA_VERSION_2700)
+        {
+            boolean added_tab_user_stats = false;
+
+            try
+            {
+                runDDL("CREATE TABLE user_stats ("
+                    + "nickname VARCHAR(20) not null, gametype VARCHAR(16) not null,"
+                    + "games_played INT not null, games_won INT not null, games_lost INT not null, vp_total INT not null,"
+                    + "PRIMARY KEY (nickname, gametype) );");
+                added_tab_user_stats = true;
+
+                runDDL("CREATE INDEX user_stats__w ON user_stats(gametype, games_won);");
+                runDDL("CREATE INDEX user_stats__g ON user_stats(gametype, games_played);");
+
+                Statement st = connection.createStatement();
+                ResultSet rs = st.executeQuery("SELECT max(gameid) FROM games2;");
+                if (rs.next())
+                    upg_2700_maxGameID = rs.getInt(1);  // 0 if null: no games
+                st.close();  // also closes rs
+
+                if (upg_2700_maxGameID > 0)
+                    updateSetting(SETTING_UPG_2700_STATS__GAMEID, upg_2700_maxGameID, true);
+            } catch (SQLException e) {
+                System.err.println
+                    ("*** Problem occurred during schema upgrade to v2700:\n"
+                     + e + "\n\n* Will attempt to roll back to schema v2000.\n");
+
+                if (added_tab_user_stats && ! runDDL_rollback("DROP TABLE user_stats;"))
+                    System.err.println
+                        ("*** Could not completely roll back failed upgrade: Must restore DB from backup!");
+                else
+                    System.err.println("\n* All rollbacks were successful.\n");
+
+                // clean up in-progress db_version table entry
+                if (from_vers < SCHEMA_VERSION_2000)
+                    // orig schemaVersion was older: update to 2000, whose BG tasks are still needed
+                    upgradeSchema_setDBVersionTable(false, from_vers, SCHEMA_VERSION_2000, true);
+                else
+                    // orig was 2000 -> nothing successfully done, so delete entry
+                    upgradeSchema_setDBVersionTable(false, from_vers, 0, false);
+
+                throw e;
+            }
+        }
+
+        final boolean has_bg_tasks = (schemaVersion < SCHEMA_VERSION_2000) || (upg_2700_maxGameID > 0);
 
         /* mark upgrade as completed in db_version table */
         try
@@ -3623,9 +4764,18 @@ public class SOCDBHelper
      * Any {@link SQLException}s while doing so are caught here.
      * @param isForShutdown  If true, set <tt>connection = null</tt>
      *          so we won't try to reconnect later.
+     *          Before closing, writes any records queued in {@link #getWriteQueue()} and shuts it down.
      */
     public void cleanup(final boolean isForShutdown)
     {
+        final SOCDBWriteQueue wq = writeQueue;
+        if (isForShutdown && (wq != null))
+        {
+            // write out any queued records while connection is still open
+            wq.shutdown(QUEUE_SHUTDOWN_WAIT_MS);
+            writeQueue = null;
+        }
+
         try
         {
             if (! checkConnection())
@@ -3635,20 +4785,7 @@ public class SOCDBHelper
 
         try
         {
-            createAccountCommand.close();
             userPasswordQuery.close();
-            hostQuery.close();
-            lastloginUpdate.close();
-            saveGameCommand.close();
-            if (saveGamePlayerCommand != null)
-                saveGamePlayerCommand.close();
-            robotParamsQuery.close();
-            userCountQuery.close();
-            userExistsQuery.close();
-            if (userIncrWonCommand != null)
-                userIncrWonCommand.close();
-            if (userIncrLostCommand != null)
-                userIncrLostCommand.close();
         }
         catch (Throwable thr)
         {
@@ -3657,21 +4794,34 @@ public class SOCDBHelper
 
         if (isForShutdown && (schemaUpgBGTasksThread != null) && schemaUpgBGTasksThread.isAlive())
             schemaUpgBGTasksThread.doShutdown = true;
+        if (isForShutdown && (bcryptQueueThreader != null))
+            bcryptQueueThreader.shutdown();
 
-        initialized = false;
-        try
-        {
-            connection.close();
-            if (isForShutdown)
-                connection = null;
-        }
-        catch (SQLException sqlE)
+        synchronized(connectLock)
         {
-            errorCondition = true;
-            if (isForShutdown)
-                connection = null;
+            if (pool != null)
+            {
+                pool.close();  // will be recreated if checkConnection() reconnects
+                pool = null;
+            }
+            if (! isForShutdown)
+                errorCondition = true;  // so checkConnection() will reconnect
 
-            sqlE.printStackTrace();
+            initialized = false;
+            try
+            {
+                connection.close();
+                if (isForShutdown)
+                    connection = null;
+            }
+            catch (SQLException sqlE)
+            {
+                errorCondition = true;
+                if (isForShutdown)
+                    connection = null;
+
+                sqlE.printStackTrace();
+            }
         }
     }
 
@@ -3738,6 +4888,23 @@ public class SOCDBHelper
             return false;  // <--- Early return: Nothing to do ---
         }
 
+        upgradeSchema_1200_saveEncodedPasswords(userConvPW);
+
+        if (doneText != null)
+            System.err.println(doneText);
+
+        return true;
+    }
+
+    /**
+     * As part of schema upgrade to 1200, save users' encoded passwords in one transaction.
+     * @param userConvPW  Map of each user's nickname to their password encoded with {@link BCrypt}; not empty
+     * @throws SQLException  if any unexpected database problem; transaction is rolled back
+     * @since 2.7.00
+     */
+    private void upgradeSchema_1200_saveEncodedPasswords(final Map<String, String> userConvPW)
+        throws SQLException
+    {
         PreparedStatement ps = connection.prepareStatement
             ("UPDATE users SET password='!', pw_scheme=" + PW_SCHEME_BCRYPT + ", pw_store=? WHERE nickname=?");
 
@@ -3766,13 +4933,9 @@ public class SOCDBHelper
             connection.rollback();
             throw e;
         } finally {
+            ps.close();
             exitTransactionMode(wasConnAutocommit);
         }
-
-        if (doneText != null)
-            System.err.println(doneText);
-
-        return true;
     }
 
     /**
@@ -4136,16 +5299,14 @@ public class SOCDBHelper
             return true;
         }
 
-        final PreparedStatement prevPS = saveGameCommand;
-
+        final PreparedStatement ps;
         try
         {
-            final PreparedStatement ps = (prepareWithArrayParam)
+            ps = (prepareWithArrayParam)
                 ? connection.prepareStatement
                     (SAVE_GAME_COMMAND_2000, new String[]{ "gameid" })
                 : connection.prepareStatement
                     (SAVE_GAME_COMMAND_2000, Statement.RETURN_GENERATED_KEYS);
-            saveGameCommand = ps;
         } catch(SQLFeatureNotSupportedException sfe) {
             System.err.println(testFailed + " (SQLFeatureNotSupportedException): " + testDesc + ": " + sfe);
             return false;
@@ -4165,7 +5326,7 @@ public class SOCDBHelper
             // test insertGameRow a few times
             for (int i = 0; i < newIDs.length; ++i)
                 newIDs[i] = insertGames2Row
-                    ("db_testOne_ins" + i, "winner", startTimeMillis, i+1, null, null);
+                    (ps, "db_testOne_ins" + i, "winner", startTimeMillis, i+1, null, null);
 
             // check their IDs (reasonable gameid, can SELECT expected contents)
             for (int i = 0; i < newIDs.length; ++i)
@@ -4213,7 +5374,10 @@ public class SOCDBHelper
                             ("* Cleanup failed: couldn't delete temporary games2 where gameid=" + id + ": " + e);
                     }
 
-            saveGameCommand = prevPS;
+            try
+            {
+                ps.close();
+            } catch (SQLException e) {}
         }
 
         System.err.println
@@ -4639,6 +5803,343 @@ public class SOCDBHelper
         public void authResult(final String dbUserName, final boolean hadDelay);
     }
 
+    /**
+     * Snapshot of a completed game's results, taken when the game is over,
+     * to be saved by {@link SOCDBHelper#saveGameScores(List)}.
+     * Holds everything needed from the game, so it can be saved later by {@link SOCDBWriteQueue}
+     * even if the game object has changed or been destroyed by then.
+     *
+     * @author Jeremy D Monin &lt;jeremy@nand.net&gt;
+     * @since 2.7.00
+     */
+    public static final class GameResult
+    {
+        public final String gaName;
+
+        /** Game start time, from {@link SOCGame#getStartTime()}{@link java.util.Date#getTime() .getTime()} */
+        public final long startTimeMillis;
+
+        /** Duration of game, from {@link SOCGame#getDurationSeconds()} */
+        public final int gameLengthSeconds;
+
+        /** If true don't store game details, only update users' win-loss counts */
+        public final boolean winLossOnly;
+
+        /** Game's {@link SOCGame#maxPlayers} */
+        final int maxPlayers;
+
+        /**
+         * Each player number's name and total VP; length is {@link SOCGame#MAXPLAYERS}.
+         * Elements past {@link #maxPlayers} are {@code null} or 0.
+         */
+        final String[] names;
+        final short[] scores;
+
+        /**
+         * If {@link #maxPlayers} &gt; 4 and player 5 or 6 is in the game, names and scores with those
+         * players fitted into the first 4 slots for older schemas by {@link SOCDBHelper#saveGameScores_fit6pInto4};
+         * otherwise {@code null}.
+         */
+        final String[] names4;
+        final short[] scores4;
+
+        /** Each player number's {@link SOCGame#isSeatVacant(int)} */
+        final boolean[] isVacant;
+
+        /** Winner's player number and name */
+        final int winnerPN;
+        final String winnerName;
+
+        /** Null or game options, from {@link SOCGameOption#packOptionsToString(Map, boolean, boolean)} */
+        final String optsStr;
+
+        /** Scenario name key from game option {@code "SC"}, or {@code null} if none */
+        final String scen;
+
+        /**
+         * Take a snapshot of this completed game's results.
+         * @param ga  Game that's just completed
+         * @param gameLengthSeconds  Duration of game, from {@link SOCGame#getDurationSeconds()}
+         * @param winLossOnly  If true don't store game details, only update users' win-loss counts.
+         *     Caller should negate value of {@link SOCDBHelper#PROP_JSETTLERS_DB_SAVE_GAMES} to set this parameter.
+         * @throws IllegalArgumentException if {@link SOCGame#getPlayerWithWin() ga.getPlayerWithWin()} is null
+         */
+        public GameResult(final SOCGame ga, final int gameLengthSeconds, final boolean winLossOnly)
+            throws IllegalArgumentException
+        {
+            final SOCPlayer winner = ga.getPlayerWithWin();
+            if (winner == null)
+                throw new IllegalArgumentException("no winner");
+
+            gaName = ga.getName();
+            startTimeMillis = ga.getStartTime().getTime();
+            this.gameLengthSeconds = gameLengthSeconds;
+            this.winLossOnly = winLossOnly;
+            maxPlayers = ga.maxPlayers;
+            winnerPN = winner.getPlayerNumber();
+            winnerName = winner.getName();
+
+            names = new String[SOCGame.MAXPLAYERS];  // DB max 6; ga.maxPlayers max 4 or 6
+            scores = new short[SOCGame.MAXPLAYERS];
+            isVacant = new boolean[SOCGame.MAXPLAYERS];
+            for (int pn = 0; pn < maxPlayers; ++pn)
+            {
+                SOCPlayer pl = ga.getPlayer(pn);
+                names[pn] = pl.getName();
+                scores[pn] = (short) pl.getTotalVP();
+                isVacant[pn] = ga.isSeatVacant(pn);
+            }
+
+            if ((maxPlayers > 4) && ! (isVacant[4] && isVacant[5]))
+            {
+                names4 = names.clone();
+                scores4 = scores.clone();
+                saveGameScores_fit6pInto4(ga, names4, scores4);
+            } else {
+                names4 = null;
+                scores4 = null;
+            }
+
+            final SOCGameOptionSet opts = ga.getGameOptions();
+            if (opts != null)
+            {
+                optsStr = SOCGameOption.packOptionsToString(opts.getAll(), false, true);
+                final SOCGameOption scOpt = opts.get("SC");
+                scen = (scOpt != null) ? scOpt.getStringValue() : null;
+            } else {
+                optsStr = null;
+                scen = null;
+            }
+        }
+
+        /** For debugging and error messages, a string with the game name and winner. */
+        @Override
+        public String toString()
+        {
+            return "GameResult[" + gaName + ", winner=" + winnerName + ']';
+        }
+    }
+
+    /**
+     * A user's login to be recorded by {@link SOCDBHelper#recordLogins(List)}.
+     *
+     * @author Jeremy D Monin &lt;jeremy@nand.net&gt;
+     * @since 2.7.00
+     */
+    public static final class LoginRecord
+    {
+        /** User name (nickname) */
+        public final String userName;
+
+        /** Login is from this client hostname or IP */
+        public final String host;
+
+        /** Login time, same format as {@link System#currentTimeMillis()} */
+        public final long time;
+
+        public LoginRecord(final String userName, final String host, final long time)
+        {
+            this.userName = userName;
+            this.host = host;
+            this.time = time;
+        }
+
+        /** For debugging and error messages, a string with the user name and host. */
+        @Override
+        public String toString()
+        {
+            return "LoginRecord[" + userName + ", " + host + ']';
+        }
+    }
+
+    /**
+     * One user's game stats for a game type, from the {@code user_stats} summary table.
+     * Returned by {@link SOCDBHelper#getUserStats(String)}
+     * and {@link SOCDBHelper#getLeaderboard(String, int, int, UserStats, int)}.
+     *
+     * @author Jeremy D Monin &lt;jeremy@nand.net&gt;
+     * @since 2.7.00
+     */
+    public static final class UserStats
+    {
+        /** User nickname, as stored in {@code users} */
+        public final String nickname;
+
+        /**
+         * {@link SOCDBHelper#STATS_GAMETYPE_ALL}, {@link SOCDBHelper#STATS_GAMETYPE_NO_SCENARIO},
+         * or a scenario name key
+         */
+        public final String gameType;
+
+        public final int gamesPlayed, gamesWon, gamesLost;
+
+        /** Total VP at end of all games played */
+        public final int vpTotal;
+
+        public UserStats
+            (final String nickname, final String gameType,
+             final int gamesPlayed, final int gamesWon, final int gamesLost, final int vpTotal)
+        {
+            this.nickname = nickname;
+            this.gameType = gameType;
+            this.gamesPlayed = gamesPlayed;
+            this.gamesWon = gamesWon;
+            this.gamesLost = gamesLost;
+            this.vpTotal = vpTotal;
+        }
+
+        /**
+         * Read a row's fields: nickname, gametype, games_played, games_won, games_lost, vp_total.
+         * @param rs  Result set, positioned at a row
+         * @throws SQLException if an error occurs
+         */
+        UserStats(final ResultSet rs)
+            throws SQLException
+        {
+            this(rs.getString(1), rs.getString(2), rs.getInt(3), rs.getInt(4), rs.getInt(5), rs.getInt(6));
+        }
+
+        /**
+         * Get the average VP at end of the user's games.
+         * @return  {@link #vpTotal} / {@link #gamesPlayed}, or 0 if no games played
+         */
+        public float getAverageVP()
+        {
+            return (gamesPlayed > 0) ? (vpTotal / (float) gamesPlayed) : 0f;
+        }
+
+        /** For debugging, a string with all fields. */
+        @Override
+        public String toString()
+        {
+            return "UserStats[" + nickname + ", " + gameType + ", played=" + gamesPlayed
+                + ", won=" + gamesWon + ", lost=" + gamesLost + ", vp=" + vpTotal + ']';
+        }
+    }
+
+    /**
+     * Changes to add to {@code user_stats} rows, totaled from several games so each row is updated only once.
+     * Used by {@link SOCDBHelper#saveGameScores(List)} and the schema upgrade background tasks.
+     * Rows are kept sorted by nickname and gametype, so concurrent transactions update them in the same order.
+     * @since 2.7.00
+     */
+    private static final class UserStatsDeltas
+    {
+        /**
+         * Key = nickname + {@code '\n'} + gametype;
+         * value = games played, won, lost, total VP.
+         */
+        private final TreeMap<String, int[]> deltas = new TreeMap<>();
+
+        /**
+         * Add a completed game's players to the totals,
+         * for the game's type and for {@link SOCDBHelper#STATS_GAMETYPE_ALL}.
+         * Players other than the winner are counted as having lost, like {@code users.games_lost}.
+         * @param res  Game results
+         */
+        void addGame(final GameResult res)
+        {
+            final String gameType = gameType(res.scen);
+            for (int pn = 0; pn < res.maxPlayers; ++pn)
+            {
+                if (res.isVacant[pn])
+                    continue;
+                final String pname = res.names[pn];
+                if ((pname == null) || pname.isEmpty())
+                    continue;
+
+                addPlayer(pname, gameType, (pn == res.winnerPN), res.scores[pn]);
+            }
+        }
+
+        /**
+         * Add one player's game to the totals, for this game type and for {@link SOCDBHelper#STATS_GAMETYPE_ALL}.
+         * @param nickname  Player's name; rows are updated only if a user has this nickname
+         * @param gameType  Game type, from {@link #gameType(String)}
+         * @param won  True if player won the game
+         * @param vp  Player's total VP at end of game
+         */
+        void addPlayer(final String nickname, final String gameType, final boolean won, final int vp)
+        {
+            add(nickname + '\n' + gameType, won, vp);
+            add(nickname + '\n' + STATS_GAMETYPE_ALL, won, vp);
+        }
+
+        private void add(final String key, final boolean won, final int vp)
+        {
+            int[] d = deltas.get(key);
+            if (d == null)
+            {
+                d = new int[4];
+                deltas.put(key, d);
+            }
+
+            ++d[0];
+            if (won)
+                ++d[1];
+            else
+                ++d[2];
+            d[3] += vp;
+        }
+
+        /**
+         * Add any missing rows, then add the totals to all rows, as 2 JDBC batches.
+         * Call within a transaction.
+         * @param psInsMissing  Statement prepared from {@link SOCDBHelper#USER_STATS_INSERT_IF_MISSING_COMMAND}
+         * @param psAdd  Statement prepared from {@link SOCDBHelper#USER_STATS_ADD_COMMAND}
+         * @throws SQLException if an error occurs
+         */
+        void write(final PreparedStatement psInsMissing, final PreparedStatement psAdd)
+            throws SQLException
+        {
+            if (deltas.isEmpty())
+                return;
+
+            psInsMissing.clearBatch();
+            psAdd.clearBatch();
+            for (final Map.Entry<String, int[]> e : deltas.entrySet())
+            {
+                final String key = e.getKey();
+                final int i = key.indexOf('\n');
+                final String nickname = key.substring(0, i), gameType = key.substring(i + 1);
+                final int[] d = e.getValue();
+
+                psInsMissing.setString(1, gameType);
+                psInsMissing.setString(2, nickname);
+                psInsMissing.setString(3, nickname);
+                psInsMissing.setString(4, gameType);
+                psInsMissing.addBatch();
+
+                psAdd.setInt(1, d[0]);
+                psAdd.setInt(2, d[1]);
+                psAdd.setInt(3, d[2]);
+                psAdd.setInt(4, d[3]);
+                psAdd.setString(5, nickname);
+                psAdd.setString(6, gameType);
+                psAdd.addBatch();
+            }
+
+            psInsMissing.executeBatch();
+            psAdd.executeBatch();
+        }
+
+        /** Clear the totals, to use for another batch of games. */
+        void clear()
+        {
+            deltas.clear();
+        }
+
+        /**
+         * Get the {@code user_stats.gametype} for a game's scenario.
+         * @param scen  Game's scenario name key, or {@code null} or "" if none
+         * @return  {@code scen}, or {@link SOCDBHelper#STATS_GAMETYPE_NO_SCENARIO} if none
+         */
+        static String gameType(final String scen)
+        {
+            return ((scen != null) && ! scen.isEmpty()) ? scen : STATS_GAMETYPE_NO_SCENARIO;
+        }
+    }
+
     /**
      * Thread to run any background tasks needed to complete a schema upgrade,
      * such as data conversions. See {@link SOCDBHelper#doesSchemaUpgradeNeedBGTasks()}
@@ -4658,6 +6159,25 @@ public class SOCDBHelper
         /** Flag to shut down the thread if set true */
         public volatile boolean doShutdown = false;
 
+        /**
+         * Schema version being upgraded from by the current task, or 0 if no task has started yet.
+         * Progress fields are written only by this thread, and read by {@link SOCDBHelper#getSchemaUpgradeBGTasksProgress()}.
+         * @since 2.7.00
+         */
+        volatile int progressFromVersion;
+
+        /**
+         * Current task's number of rows done so far, and total number of rows to do when the task started.
+         * @since 2.7.00
+         */
+        volatile long progressDone, progressTotal;
+
+        /**
+         * When the current task started, from {@link System#currentTimeMillis()}.
+         * @since 2.7.00
+         */
+        volatile long progressStartMillis;
+
         public void run()
         {
             try
@@ -4692,6 +6212,10 @@ public class SOCDBHelper
                         upgradeBGTasks_1200_2000();
                         break;
 
+                    case SCHEMA_VERSION_2000:
+                        upgradeBGTasks_2000_2700();
+                        break;
+
                     default:
                         System.err.println("*** UpgradeBGTasksThread: Unknown fromVersion: " + fromVers);
 
@@ -4712,6 +6236,14 @@ public class SOCDBHelper
                 return;  // <--- Early return: Unexpected problem ---
             }
 
+            if (doShutdown && (schemaUpgBGTasks_fromVersion < schemaVersion))
+            {
+                // Leave db_version.bg_tasks_done null, so tasks will resume at next startup
+                System.err.println("\n* Schema upgrade: Shutting down background tasks, will complete later\n");
+
+                return;  // <--- Early return: Not done yet ---
+            }
+
             schemaUpgBGTasks_fromVersion = 0;
 
             try
@@ -4735,35 +6267,136 @@ public class SOCDBHelper
                 System.err.println("\n* Schema upgrade: Shutting shutdown background tasks, will complete later\n");
         }
 
+        /**
+         * Start tracking a task's progress for {@link SOCDBHelper#getSchemaUpgradeBGTasksProgress()}.
+         * @param fromVers  Schema version the task upgrades from
+         * @param countSQL  Query to count the task's rows still to do
+         * @throws SQLException if an error occurs
+         * @since 2.7.00
+         */
+        private void progressBegin(final int fromVers, final String countSQL)
+            throws SQLException
+        {
+            long total = 0;
+            Statement st = connection.createStatement();
+            ResultSet rs = st.executeQuery(countSQL);
+            if (rs.next())
+                total = rs.getLong(1);
+            st.close();  // also closes rs
+
+            progressDone = 0;
+            progressTotal = total;
+            progressStartMillis = System.currentTimeMillis();
+            progressFromVersion = fromVers;
+        }
+
+        /**
+         * Throttle: After a batch, pause for {@link SOCDBHelper#PROP_JSETTLERS_DB_UPGRADE_BG__PAUSE__MS}
+         * unless that's 0 or shutting down.
+         * @since 2.7.00
+         */
+        private void pauseAfterBatch()
+        {
+            if ((upgradeBGPauseMillis > 0) && ! doShutdown)
+                try
+                {
+                    Thread.sleep(upgradeBGPauseMillis);
+                }
+                catch (InterruptedException e) {}
+        }
+
         /**
          * Upgrade from {@link SOCDBHelper#SCHEMA_VERSION_ORIGINAL SCHEMA_VERSION_ORIGINAL}
          * to {@link SOCDBHelper#SCHEMA_VERSION_1200 SCHEMA_VERSION_1200}:
          * Encode all {@code users.password} fields into {@code users.pw_store} using {@link BCrypt}.
+         *<P>
+         * Reads users in batches, in {@code nickname_lc} order using that field's unique index.
+         * Each batch's passwords are encoded in parallel by {@link SOCDBHelper#PROP_JSETTLERS_DB_UPGRADE_BG__THREADS}
+         * threads, then saved in one transaction.
          */
         private void upgradeBGTasks_1000_1200()
             throws SQLException
         {
-            int UPG_BATCH = 10;  // smaller batch, because BCrypt takes a while to run each record
-            if (UPG_BATCH > UPG_BATCH_MAX)
-                UPG_BATCH = UPG_BATCH_MAX;
+            final int UPG_BATCH = Math.min(10 * upgradeBGThreads, UPG_BATCH_MAX);
+                // about 10 users per thread, because BCrypt takes a while to run each record
 
-            System.err.println("Schema upgrade: Encoding passwords for users");
+            System.err.println
+                ("Schema upgrade: Encoding passwords for users, with " + upgradeBGThreads + " thread(s)");
+            progressBegin(SCHEMA_VERSION_ORIGINAL, "SELECT count(*) FROM users WHERE pw_store IS NULL;");
 
-            SecureRandom sr = new SecureRandom();
-            HashSet<String> users = new HashSet<String>();
-            do
+            final ExecutorService encoders = Executors.newFixedThreadPool(upgradeBGThreads, new ThreadFactory()
             {
-                users.clear();
+                private final AtomicInteger threadNum = new AtomicInteger();
 
-                ResultSet rs = selectWithLimit("SELECT nickname_lc FROM users WHERE pw_store IS NULL", UPG_BATCH);
-                for (int i = 0; (i < UPG_BATCH) && rs.next(); ++i)
-                    users.add(rs.getString(1));
-                rs.close();
+                public Thread newThread(final Runnable r)
+                {
+                    final Thread th = new Thread(r, "SOCDBHelper-upgrade-" + threadNum.incrementAndGet());
+                    th.setDaemon(true);
+                    return th;
+                }
+            });
+            final PreparedStatement ps = connection.prepareStatement(sqlWithLimit
+                ("SELECT nickname, nickname_lc, password FROM users WHERE nickname_lc > ? AND pw_store IS NULL"
+                 + " ORDER BY nickname_lc", UPG_BATCH));
 
-                if (! users.isEmpty())
-                    if (! upgradeSchema_1200_encodeUserPasswords(users, sr, null, null, null))
-                        throw new SQLException("L3087 Internal error: Could not select any users.nickname to encode");
-            } while (! (doShutdown || users.isEmpty()));
+            try
+            {
+                final Map<String, Future<String>> encoding = new HashMap<>();  // nickname -> encoded password
+                final Map<String, String> userConvPW = new HashMap<>();
+                String afterNameLC = "";
+                boolean hadUsers;
+                do
+                {
+                    encoding.clear();
+                    userConvPW.clear();
+                    hadUsers = false;
+
+                    ps.setString(1, afterNameLC);
+                    ResultSet rs = ps.executeQuery();
+                    for (int i = 0; (i < UPG_BATCH) && rs.next(); ++i)
+                    {
+                        hadUsers = true;
+                        afterNameLC = rs.getString(2);
+                        final String dbPassword = rs.getString(3);
+                        if (dbPassword == null)
+                            continue;
+
+                        encoding.put(rs.getString(1), encoders.submit(new Callable<String>()
+                        {
+                            public String call()
+                            {
+                                return BCrypt.hashpw(dbPassword, BCrypt.gensalt(bcryptWorkFactor));
+                                    // hashpw may throw IllegalArgumentException
+                            }
+                        }));
+                    }
+                    rs.close();
+
+                    for (final Map.Entry<String, Future<String>> e : encoding.entrySet())
+                    {
+                        try
+                        {
+                            userConvPW.put(e.getKey(), e.getValue().get());
+                        } catch (ExecutionException ex) {
+                            SQLException sqlE = new SQLException("BCrypt exception");
+                            sqlE.initCause(ex.getCause());
+                            throw sqlE;
+                        } catch (InterruptedException ex) {
+                            throw new SQLException("Interrupted while encoding passwords");
+                        }
+                    }
+
+                    if (! userConvPW.isEmpty())
+                    {
+                        upgradeSchema_1200_saveEncodedPasswords(userConvPW);
+                        progressDone += userConvPW.size();
+                        pauseAfterBatch();
+                    }
+                } while (hadUsers && ! doShutdown);
+            } finally {
+                encoders.shutdownNow();
+                ps.close();
+            }
 
             if (! doShutdown)
                 System.err.println("Schema upgrade: User password encoding: Completed");
@@ -4786,16 +6419,33 @@ public class SOCDBHelper
             final int UPG_BATCH = UPG_BATCH_MAX / 3 + 1;
                 // less than max, because loop body includes per-game updates for several tables
 
+            if (! doesTableExist("upg_tmp_games"))
+            {
+                // Already done: Server was stopped during a later version's tasks
+                schemaUpgBGTasks_fromVersion = SCHEMA_VERSION_2000;
+                return;
+            }
+
             System.err.println("Schema upgrade: Normalizing games into games2");
+            progressBegin(SCHEMA_VERSION_1200, "SELECT count(*) FROM upg_tmp_games WHERE mig_done IS NULL;");
 
+            // To bound memory use with many users, looks up only each batch's player names:
             // key = nickname_lc, value = nickname
-            final HashMap<String, String> allDBUsers = new HashMap<String, String>();
-            Statement st = connection.createStatement();
-            ResultSet rs = st.executeQuery("SELECT nickname_lc, nickname FROM users");
-            while (rs.next())
-                allDBUsers.put(rs.getString(1), rs.getString(2));
-            st.close();  // also closes rs
-
+            final HashMap<String, String> batchDBUsers = new HashMap<String, String>();
+            final StringBuilder sbUserQuery = new StringBuilder("SELECT nickname_lc, nickname FROM users WHERE nickname_lc IN (?");
+            for (int i = 1; i < UPG_BATCH * 6; ++i)
+                sbUserQuery.append(",?");
+            sbUserQuery.append(");");
+            final PreparedStatement psBatchUsers = connection.prepareStatement(sbUserQuery.toString());
+
+            // batch's game rows from upg_tmp_games
+            final int[] bGameIDs = new int[UPG_BATCH];
+            final String[] bWinners = new String[UPG_BATCH];
+            final String[][] bPlNames = new String[UPG_BATCH][6];
+            final int[][] bPlScores = new int[UPG_BATCH][6];
+
+            Statement st;
+            ResultSet rs;
             PreparedStatement psInsPlayer = connection.prepareStatement
                 ("INSERT INTO games2_players(gameid,player,score) VALUES(?,?,?);");
             PreparedStatement psSetWinner = connection.prepareStatement
@@ -4829,21 +6479,50 @@ public class SOCDBHelper
                     StringBuilder sbMarkUpg = new StringBuilder
                         ("UPDATE upg_tmp_games SET mig_done=1 WHERE gameid IN (");
 
+                    int nGames = 0;
                     rs = selectWithLimit
                         ("SELECT gameid,winner,player1,player2,player3,player4,player5,player6,score1,score2,score3,score4,score5,score6"
                          + " FROM upg_tmp_games WHERE mig_done IS NULL", UPG_BATCH);
-                    for (int i = 0; (i < UPG_BATCH) && rs.next(); ++i)
+                    for (; (nGames < UPG_BATCH) && rs.next(); ++nGames)
                     {
-                        final int gameid = rs.getInt(1);
-                        String winner = rs.getString(2);
-                        if ((winner != null) && winner.equals("?"))
-                            winner = null;
-                        final String[] plNames = new String[6];
-                        final int[] plScores = new int[6];
+                        bGameIDs[nGames] = rs.getInt(1);
+                        bWinners[nGames] = rs.getString(2);
                         for (int pn = 0; pn < 6; ++pn)
-                            plNames[pn] = rs.getString(pn + 3);
+                            bPlNames[nGames][pn] = rs.getString(pn + 3);
                         for (int pn = 0; pn < 6; ++pn)
-                            plScores[pn] = rs.getInt(pn + 3 + 6);
+                            bPlScores[nGames][pn] = rs.getInt(pn + 3 + 6);
+                    }
+                    rs.getStatement().close();  // also closes rs
+
+                    // Look up which of this batch's players are users in DB
+                    batchDBUsers.clear();
+                    if (nGames > 0)
+                    {
+                        int paramIdx = 0;
+                        for (int i = 0; i < nGames; ++i)
+                            for (int pn = 0; pn < 6; ++pn)
+                            {
+                                final String name = bPlNames[i][pn];
+                                if (name != null)
+                                    psBatchUsers.setString(++paramIdx, name.toLowerCase(Locale.US));
+                            }
+                        while (paramIdx < UPG_BATCH * 6)
+                            psBatchUsers.setNull(++paramIdx, Types.VARCHAR);
+
+                        rs = psBatchUsers.executeQuery();
+                        while (rs.next())
+                            batchDBUsers.put(rs.getString(1), rs.getString(2));
+                        rs.close();
+                    }
+
+                    for (int i = 0; i < nGames; ++i)
+                    {
+                        final int gameid = bGameIDs[i];
+                        String winner = bWinners[i];
+                        if ((winner != null) && winner.equals("?"))
+                            winner = null;
+                        final String[] plNames = bPlNames[i];
+                        final int[] plScores = bPlScores[i];
 
                         /** if true, update this field: currently either '?' or non-normalized name of a DB user */
                         boolean setWinnerInGames2 = false;
@@ -4878,7 +6557,7 @@ public class SOCDBHelper
                                 setWinnerInGames2 = true;
 
                                 // normalize nickname if in DB
-                                final String dbName = allDBUsers.get(winner_LC);
+                                final String dbName = batchDBUsers.get(winner_LC);
                                 if (dbName != null)
                                     winner = dbName;
                             }
@@ -4903,7 +6582,7 @@ public class SOCDBHelper
                             //     If ! winnerWasNull, see if need to normalize winner name
                             //       If so, normalize winner var & set setWinnerInGames2 flag
 
-                            final String dbName = allDBUsers.get(name_LC);
+                            final String dbName = batchDBUsers.get(name_LC);
                             if (dbName != null)
                             {
                                 name = dbName;
@@ -4948,7 +6627,6 @@ public class SOCDBHelper
                             hasSetWinners = true;
                         }
                     }
-                    rs.close();
 
                     if (hasGames)
                     {
@@ -4995,6 +6673,9 @@ public class SOCDBHelper
                         st.close();
 
                         connection.commit();  // also begins transaction for next iteration
+
+                        progressDone += nGames;
+                        pauseAfterBatch();
                     }
 
                 } while (hasGames && ! doShutdown);
@@ -5012,6 +6693,111 @@ public class SOCDBHelper
                 connection.rollback();
                 throw e;
             } finally {
+                psBatchUsers.close();
+                exitTransactionMode(wasConnAutocommit);
+            }
+        }
+
+        /**
+         * Upgrade from {@link SOCDBHelper#SCHEMA_VERSION_2000 SCHEMA_VERSION_2000}
+         * to {@link SOCDBHelper#SCHEMA_VERSION_2700 SCHEMA_VERSION_2700}:
+         * Count games from {@code games2} and {@code games2_players} into {@code user_stats}.
+         *<P>
+         * Counts games from the highest {@code gameid} down, starting at the one saved in setting
+         * {@link SOCDBHelper#SETTING_UPG_2700_STATS__GAMEID} during {@link SOCDBHelper#upgradeSchema(Set)}.
+         * Games saved since then are already counted by {@link SOCDBHelper#saveGameScores(List)}.
+         * Each batch of games is counted in a transaction which also updates that setting,
+         * so the tasks can resume after server shutdown without counting any game twice.
+         * @since 2.7.00
+         */
+        private void upgradeBGTasks_2000_2700()
+            throws SQLException
+        {
+            final int UPG_BATCH = UPG_BATCH_MAX / 3 + 1;
+                // less than max, because each game has several players
+
+            int upToGameID = getIntSetting(SETTING_UPG_2700_STATS__GAMEID, 0);
+            if (upToGameID > 0)
+                System.err.println("Schema upgrade: Counting games into user_stats");
+            progressBegin(SCHEMA_VERSION_2000, "SELECT count(*) FROM games2 WHERE gameid <= " + upToGameID + ";");
+
+            final PreparedStatement psInsMissing = connection.prepareStatement(USER_STATS_INSERT_IF_MISSING_COMMAND),
+                psAdd = connection.prepareStatement(USER_STATS_ADD_COMMAND),
+                psPlayers = connection.prepareStatement
+                    ("SELECT gameid, player, score FROM games2_players WHERE gameid >= ? AND gameid <= ?;");
+            final UserStatsDeltas deltas = new UserStatsDeltas();
+            final HashMap<Integer, String[]> games = new HashMap<>();  // gameid -> {winner, gametype}
+
+            // begin transaction of first loop iteration
+            final boolean wasConnAutocommit = enterTransactionMode();
+
+            try
+            {
+                while ((upToGameID > 0) && ! doShutdown)
+                {
+                    games.clear();
+                    deltas.clear();
+
+                    // Batch of games, highest first: gameids are contiguous except any rows deleted by admin
+                    int loGameID = 0;
+                    ResultSet rs = selectWithLimit
+                        ("SELECT gameid, winner, scenario FROM games2 WHERE gameid <= " + upToGameID
+                         + " ORDER BY gameid DESC", UPG_BATCH);
+                    for (int i = 0; (i < UPG_BATCH) && rs.next(); ++i)
+                    {
+                        loGameID = rs.getInt(1);
+                        games.put(loGameID, new String[]{ rs.getString(2), UserStatsDeltas.gameType(rs.getString(3)) });
+                    }
+                    rs.getStatement().close();  // also closes rs
+
+                    if (games.isEmpty())
+                    {
+                        upToGameID = 0;
+                        break;
+                    }
+
+                    psPlayers.setInt(1, loGameID);
+                    psPlayers.setInt(2, upToGameID);
+                    rs = psPlayers.executeQuery();
+                    while (rs.next())
+                    {
+                        final String[] game = games.get(rs.getInt(1));
+                        if (game == null)
+                            continue;  // is within range but wasn't in batch; shouldn't happen
+
+                        final String player = rs.getString(2);
+                        deltas.addPlayer(player, game[1], player.equalsIgnoreCase(game[0]), rs.getInt(3));
+                    }
+                    rs.close();
+
+                    deltas.write(psInsMissing, psAdd);
+
+                    upToGameID = loGameID - 1;
+                    updateSetting(SETTING_UPG_2700_STATS__GAMEID, upToGameID, false);
+
+                    connection.commit();  // also begins transaction for next iteration
+
+                    progressDone += games.size();
+                    pauseAfterBatch();
+                }
+
+                if (upToGameID <= 0)
+                {
+                    Statement st = connection.createStatement();
+                    st.executeUpdate("DELETE FROM settings WHERE s_name='" + SETTING_UPG_2700_STATS__GAMEID + "';");
+                    st.close();
+                    connection.commit();
+
+                    System.err.println("Schema upgrade: Counting games into user_stats: Completed");
+                    schemaUpgBGTasks_fromVersion = SCHEMA_VERSION_2700;
+                }
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                psInsMissing.close();
+                psAdd.close();
+                psPlayers.close();
                 exitTransactionMode(wasConnAutocommit);
             }
         }
@@ -0,0 +1,471 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * This file Copyright (C) 2026 Jeremy D Monin <jeremy@nand.net>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The maintainer of this program can be reached at jsettlers@nand.net
+ **/
+package soc.server.database;
+
+import java.sql.BatchUpdateException;
+import java.sql.SQLException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import soc.game.SOCGame;
+
+/**
+ * Bounded write-behind queue for {@link SOCDBHelper}'s game results and login records,
+ * so that the game and login threads which produce them don't wait for the database.
+ * One worker thread takes queued records in batches of up to {@link #BATCH_MAX},
+ * and writes each batch with one JDBC batch update and transaction by calling
+ * {@link SOCDBHelper#saveGameScores(List)} or {@link SOCDBHelper#recordLogins(List)}.
+ *<P>
+ * Queued game results are snapshots ({@link SOCDBHelper.GameResult}) taken when queued,
+ * so the game object can be changed or destroyed afterwards.
+ *<P>
+ * If the queue is full or has been shut down, records are written immediately
+ * on the caller's thread instead, as if there was no queue.
+ *
+ *<H3>Retries:</H3>
+ * If a batch fails with an error which {@link #isTransientError(SQLException)}, such as a deadlock
+ * or lost connection, it's retried up to {@link #RETRY_MAX} times with increasing delays.
+ * If it fails with any other error, each of its records is retried on its own,
+ * so that one bad record doesn't lose the whole batch. Records which still fail
+ * are counted in {@link #getStats()} and printed to {@link System#err}.
+ *
+ *<H3>Shutdown:</H3>
+ * {@link SOCDBHelper#cleanup(boolean) SOCDBHelper.cleanup(true)}, called from {@code SOCServer.stopServer()},
+ * calls {@link #shutdown(int)} to write out all queued records before closing the DB connections.
+ *<P>
+ * Thread-safe.
+ *
+ * @author Jeremy D Monin &lt;jeremy@nand.net&gt;
+ * @since 2.7.00
+ */
+public final class SOCDBWriteQueue
+    implements Runnable
+{
+    /** Maximum number of records written together in one batch: 50 */
+    public static final int BATCH_MAX = 50;
+
+    /** Maximum number of retries after a transient error: 4 */
+    public static final int RETRY_MAX = 4;
+
+    /** Delay before the first retry, in milliseconds: 250. Doubled for each further retry. */
+    private static final int RETRY_DELAY_MS = 250;
+
+    /** How often the worker thread checks for {@link #stopping}, in milliseconds */
+    private static final int POLL_MS = 250;
+
+    private final SOCDBHelper db;
+
+    private final ArrayBlockingQueue<Entry> queue;
+
+    private final Thread worker;
+
+    /**
+     * Set by {@link #shutdown(int)}: Write all queued records, then end the worker thread.
+     *<P>
+     * <B>Locks:</B> Writes to this field, and {@link #offer(Object)}'s check of it and add to the queue,
+     * are synchronized on {@link #stopLock} so that nothing is added to the queue after it's set.
+     */
+    private volatile boolean stopping;
+
+    /** Lock for {@link #stopping} and adding to the queue. */
+    private final Object stopLock = new Object();
+
+    /** Set by {@link #shutdown(int)} if its timeout is reached: Don't retry any further failed batches. */
+    private volatile boolean abandon;
+
+    /** Statistics; see {@link #getStats()}. Locks: Synchronize on {@link #statsLock} to use. */
+    private long maxDepth, queuedCount, writtenCount, inlineCount, retryCount, failedCount,
+        latencyTotalNanos, latencyMaxNanos;
+
+    private final Object statsLock = new Object();
+
+    /**
+     * Create and start a write queue.
+     * @param db  DB helper which will write the queued records
+     * @param capacity  Maximum number of records in the queue, at least 1
+     * @throws IllegalArgumentException if {@code db} is null or {@code capacity} &lt; 1
+     */
+    public SOCDBWriteQueue(final SOCDBHelper db, final int capacity)
+        throws IllegalArgumentException
+    {
+        if (db == null)
+            throw new IllegalArgumentException("db");
+        if (capacity < 1)
+            throw new IllegalArgumentException("capacity");
+
+        this.db = db;
+        queue = new ArrayBlockingQueue<>(capacity);
+        worker = new Thread(this, "SOCDBWriteQueue");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Queue a completed game's results to be saved by {@link SOCDBHelper#saveGameScores(List)}.
+     * Takes a snapshot of the game's scores and players now.
+     * If the queue is full or shut down, saves the results before returning.
+     *
+     * @param ga  Game that's just completed
+     * @param gameLengthSeconds  Duration of game, from {@link SOCGame#getDurationSeconds()}
+     * @param winLossOnly  If true don't store game details, only update users' win-loss counts;
+     *     see {@link SOCDBHelper#saveGameScores(SOCGame, int, boolean)}
+     * @throws IllegalArgumentException if {@link SOCGame#getPlayerWithWin() ga.getPlayerWithWin()} is null
+     * @throws SQLException if queue was full and an error occurred while saving immediately
+     */
+    public void queueGameScores(final SOCGame ga, final int gameLengthSeconds, final boolean winLossOnly)
+        throws IllegalArgumentException, SQLException
+    {
+        final SOCDBHelper.GameResult res = new SOCDBHelper.GameResult(ga, gameLengthSeconds, winLossOnly);
+        if (! offer(res))
+            db.saveGameScores(Collections.singletonList(res));
+    }
+
+    /**
+     * Queue a user's login to be recorded by {@link SOCDBHelper#recordLogins(List)},
+     * which records the login host and time and updates the user's last-login time.
+     * If the queue is full or shut down, records it before returning.
+     *
+     * @param userName  User name (nickname)
+     * @param host  Login is from this client hostname or IP
+     * @param time  Login time, same format as {@link System#currentTimeMillis()}
+     * @throws SQLException if queue was full and an error occurred while recording immediately
+     */
+    public void queueLogin(final String userName, final String host, final long time)
+        throws SQLException
+    {
+        final SOCDBHelper.LoginRecord rec = new SOCDBHelper.LoginRecord(userName, host, time);
+        if (! offer(rec))
+            db.recordLogins(Collections.singletonList(rec));
+    }
+
+    /**
+     * Add a record to the queue if there's room and it isn't shut down.
+     * @param rec  Record to add: a {@link SOCDBHelper.GameResult} or {@link SOCDBHelper.LoginRecord}
+     * @return  True if added, false if caller should write it immediately instead
+     */
+    private boolean offer(final Object rec)
+    {
+        final boolean added;
+        synchronized (stopLock)
+        {
+            added = (! stopping) && queue.offer(new Entry(rec));
+        }
+
+        synchronized (statsLock)
+        {
+            if (added)
+            {
+                ++queuedCount;
+                final int depth = queue.size();
+                if (depth > maxDepth)
+                    maxDepth = depth;
+            } else {
+                ++inlineCount;
+            }
+        }
+
+        return added;
+    }
+
+    /**
+     * Worker thread's loop: Take batches of queued records and write them
+     * until {@link #shutdown(int)} is called and the queue is empty.
+     */
+    public void run()
+    {
+        final List<Entry> batch = new ArrayList<>(BATCH_MAX);
+
+        for (;;)
+        {
+            final Entry first;
+            try
+            {
+                first = queue.poll(POLL_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                if (abandon)
+                    break;
+                continue;
+            }
+
+            if (first == null)
+            {
+                if (stopping && queue.isEmpty())
+                    break;  // nothing more can be queued once stopping is set
+                continue;
+            }
+
+            batch.add(first);
+            queue.drainTo(batch, BATCH_MAX - 1);
+            try
+            {
+                writeBatch(batch);
+            } catch (Throwable th) {
+                // shouldn't happen; don't let it end the thread
+                System.err.println("SOCDBWriteQueue: Unexpected error: " + th);
+                th.printStackTrace();
+            }
+            batch.clear();
+        }
+    }
+
+    /**
+     * Write a batch taken from the queue: Separate it by record type, then call
+     * {@link #writeWithRetry(List, boolean)} for each type.
+     * @param batch  Records to write; not empty
+     */
+    private void writeBatch(final List<Entry> batch)
+    {
+        final List<Entry> games = new ArrayList<>(), logins = new ArrayList<>();
+        for (final Entry e : batch)
+            ((e.rec instanceof SOCDBHelper.GameResult) ? games : logins).add(e);
+
+        if (! games.isEmpty())
+            writeWithRetry(games, true);
+        if (! logins.isEmpty())
+            writeWithRetry(logins, false);
+    }
+
+    /**
+     * Write some records of one type, retrying if needed as described in the class javadoc.
+     * Updates {@link #getStats()} counters.
+     * @param entries  Records to write, all of the same type; not empty
+     * @param isGames  True if {@link SOCDBHelper.GameResult}s, false if {@link SOCDBHelper.LoginRecord}s
+     */
+    private void writeWithRetry(final List<Entry> entries, final boolean isGames)
+    {
+        for (int attempt = 0; ; ++attempt)
+        {
+            try
+            {
+                final int n = write(entries, isGames);
+                if ((n == 0) && ! db.isInitialized())
+                {
+                    // DB connection was closed: records can't be written
+                    recordFailed(entries, null);
+                    return;
+                }
+
+                final long now = System.nanoTime();
+                synchronized (statsLock)
+                {
+                    writtenCount += entries.size();
+                    for (final Entry e : entries)
+                    {
+                        final long lat = now - e.queuedNanos;
+                        latencyTotalNanos += lat;
+                        if (lat > latencyMaxNanos)
+                            latencyMaxNanos = lat;
+                    }
+                }
+
+                return;
+            } catch (SQLException e) {
+                if (isTransientError(e))
+                {
+                    if ((attempt < RETRY_MAX) && ! abandon)
+                    {
+                        synchronized (statsLock)
+                        {
+                            ++retryCount;
+                        }
+                        try
+                        {
+                            Thread.sleep(RETRY_DELAY_MS << attempt);
+                        } catch (InterruptedException ie) {}
+
+                        continue;
+                    }
+                }
+                else if (entries.size() > 1)
+                {
+                    // Not transient: Probably a problem with one record, so try them one at a time
+                    for (final Entry ent : entries)
+                        writeWithRetry(Collections.singletonList(ent), isGames);
+
+                    return;
+                }
+
+                recordFailed(entries, e);
+                return;
+            } catch (RuntimeException e) {
+                recordFailed(entries, e);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Call {@link SOCDBHelper} to write some records of one type in a batch.
+     * @param entries  Records to write, all of the same type; not empty
+     * @param isGames  True if {@link SOCDBHelper.GameResult}s, false if {@link SOCDBHelper.LoginRecord}s
+     * @return  Number of records written, from {@link SOCDBHelper#saveGameScores(List)}
+     *     or {@link SOCDBHelper#recordLogins(List)}
+     * @throws SQLException if an error occurs
+     */
+    private int write(final List<Entry> entries, final boolean isGames)
+        throws SQLException
+    {
+        if (isGames)
+        {
+            final List<SOCDBHelper.GameResult> li = new ArrayList<>(entries.size());
+            for (final Entry e : entries)
+                li.add((SOCDBHelper.GameResult) e.rec);
+
+            return db.saveGameScores(li);
+        } else {
+            final List<SOCDBHelper.LoginRecord> li = new ArrayList<>(entries.size());
+            for (final Entry e : entries)
+                li.add((SOCDBHelper.LoginRecord) e.rec);
+
+            return db.recordLogins(li);
+        }
+    }
+
+    /**
+     * Count and print records which couldn't be written.
+     * @param entries  Records which failed
+     * @param cause  Error which caused the failure, or {@code null} if DB connection is closed
+     */
+    private void recordFailed(final List<Entry> entries, final Exception cause)
+    {
+        synchronized (statsLock)
+        {
+            failedCount += entries.size();
+        }
+
+        System.err.println
+            ("SOCDBWriteQueue: Could not write " + entries.size() + " record(s): "
+             + ((cause != null) ? cause.toString() : "DB connection closed"));
+        for (final Entry e : entries)
+            System.err.println("  " + e.rec);
+    }
+
+    /**
+     * Is this an error which might not happen if the same statements were tried again,
+     * such as a deadlock, lock timeout, or lost connection?
+     *<UL>
+     * <LI> {@link SQLTransientException} or {@link SQLRecoverableException}
+     * <LI> SQLState class {@code 08} (connection exception) or {@code 40} (transaction rollback)
+     * <LI> SQLite's {@code SQLITE_BUSY} or {@code SQLITE_LOCKED}, which its driver reports only in the message
+     *</UL>
+     * For a {@link BatchUpdateException}, also checks its {@link SQLException#getNextException()}.
+     * @param e  Exception to check; not null
+     * @return  True if transient
+     */
+    public static boolean isTransientError(final SQLException e)
+    {
+        if ((e instanceof SQLTransientException) || (e instanceof SQLRecoverableException))
+            return true;
+
+        final String state = e.getSQLState();
+        if ((state != null) && (state.startsWith("08") || state.startsWith("40")))
+            return true;
+
+        final String msg = e.getMessage();
+        if ((msg != null) && (msg.contains("SQLITE_BUSY") || msg.contains("SQLITE_LOCKED")))
+            return true;
+
+        if (e instanceof BatchUpdateException)
+        {
+            final SQLException next = e.getNextException();
+            if ((next != null) && (next != e))
+                return isTransientError(next);
+        }
+
+        return false;
+    }
+
+    /**
+     * Stop queueing, and wait for the worker thread to write all queued records.
+     * Any records queued afterwards are written immediately on the caller's thread.
+     * Safe to call more than once.
+     * @param timeoutMillis  Maximum time to wait for the queue to drain, in milliseconds;
+     *     if reached, any further failed batches aren't retried
+     * @return  True if all queued records were written or given up on, false if timeout was reached
+     *     and some may not have been
+     */
+    public boolean shutdown(final int timeoutMillis)
+    {
+        synchronized (stopLock)
+        {
+            stopping = true;
+        }
+        try
+        {
+            worker.join(timeoutMillis);
+            if (worker.isAlive())
+            {
+                abandon = true;
+                worker.interrupt();
+                worker.join(RETRY_DELAY_MS << RETRY_MAX);
+            }
+        } catch (InterruptedException e) {}
+
+        final int remaining = queue.size();
+        if (remaining > 0)
+            System.err.println("SOCDBWriteQueue: Shutdown: " + remaining + " queued record(s) not written");
+
+        return ! (abandon || (remaining > 0));
+    }
+
+    /**
+     * Get the queue's current depth and statistics.
+     * @return  Array with current queue depth, maximum depth seen, number of records queued,
+     *     number written by the worker thread, number written immediately because queue was full or shut down,
+     *     number of batch retries, number of records which failed and were dropped,
+     *     average and maximum latency from queueing to writing in milliseconds
+     */
+    public long[] getStats()
+    {
+        synchronized (statsLock)
+        {
+            return new long[]
+                {
+                    queue.size(), maxDepth, queuedCount, writtenCount, inlineCount, retryCount, failedCount,
+                    (writtenCount > 0) ? (latencyTotalNanos / writtenCount) / 1000000L : 0,
+                    latencyMaxNanos / 1000000L
+                };
+        }
+    }
+
+    /**
+     * A record in the queue, and when it was queued.
+     */
+    private static final class Entry
+    {
+        /** {@link SOCDBHelper.GameResult} or {@link SOCDBHelper.LoginRecord} */
+        final Object rec;
+
+        /** When queued, from {@link System#nanoTime()} */
+        final long queuedNanos;
+
+        Entry(final Object rec)
+        {
+            this.rec = rec;
+            queuedNanos = System.nanoTime();
+        }
+    }
+
+}
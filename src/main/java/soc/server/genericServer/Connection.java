@@ -1,6 +1,6 @@
 /**
  * JSettlers network message system.
- * This file Copyright (C) 2007-2009,2013,2015-2018,2020,2022 Jeremy D Monin <jeremy@nand.net>
+ * This file Copyright (C) 2007-2009,2013,2015-2018,2020,2022,2026 Jeremy D Monin <jeremy@nand.net>
  * Portions of this file Copyright (C) 2016 Alessandro D'Ottavio
  *
  * This program is free software; you can redistribute it and/or
@@ -26,6 +26,7 @@ import java.util.Date;
 import java.util.MissingResourceException;
 
 import soc.game.SOCGame;  // strictly for passthrough in getLocalizedSpecial, and javadocs; not used otherwise
+import soc.message.SOCBinaryMessage;
 import soc.message.SOCMessage;
 import soc.util.SOCStringManager;
 
@@ -137,6 +138,20 @@ public abstract class Connection
      */
     protected boolean hideTimeoutMessage;
 
+    /**
+     * True if {@link #isBinaryMessagesAccepted()};
+     * see that method for details.
+     * @since 2.7.00
+     */
+    protected volatile boolean binaryMessagesAccepted;
+
+    /**
+     * True if {@link #isBatchMessagesAccepted()};
+     * see that method for details.
+     * @since 2.7.00
+     */
+    protected volatile boolean batchMessagesAccepted;
+
     /**
      * Is set if server-side. Notifies at EOF (calls removeConnection).
      * Messages from client will go into ourServer's {@link InboundMessageQueue}.
@@ -152,6 +167,14 @@ public abstract class Connection
      */
     protected Date connectTime = new Date();
 
+    /**
+     * Server-side state for keeping this client's inbound messages in order
+     * when {@link InboundMessageQueue} dispatches in parallel, or {@code null}.
+     * Created by {@link InboundMessageQueue#push(SOCMessage, Connection)}.
+     * @since 2.7.00
+     */
+    InboundMessageQueue.ConnOrderState inboundOrder;
+
     /**
      * @return Hostname of the remote end of the connection
      */
@@ -162,6 +185,10 @@ public abstract class Connection
      *<P>
      * <B>Threads:</B> Each implementation must be safe to call from any thread,
      * and synchronize itself on an appropriate object or field.
+     *<P>
+     * If {@link #isBatchMessagesAccepted()}, each implementation should first call
+     * {@link OutboundMessageBatch#capture(Connection, String)} and return if that captured {@code str}
+     * to send later as part of a batch.
      *
      * @param str Data to send, from {@link SOCMessage#toCmd()}
      *
@@ -175,7 +202,9 @@ public abstract class Connection
      *<P>
      * <B>Threads:</B> Safe to call from any thread.
      *
-     * @param msg  Message to send. Calls <tt>{@link #put(String) put}(msg.{@link SOCMessage#toCmd() toCmd()})</tt>.
+     * @param msg  Message to send. Calls <tt>{@link #put(String) put}(msg.{@link SOCMessage#toCmd() toCmd()})</tt>,
+     *     or {@link SOCMessage#toBinaryCmd() msg.toBinaryCmd()} if {@link #isBinaryMessagesAccepted()}
+     *     and message type has a binary format ({@link SOCBinaryMessage}).
      * @throws IllegalArgumentException if {@code msg} is {@code null}
      * @throws IllegalStateException if not yet accepted by server
      * @since 2.1.00
@@ -186,7 +215,10 @@ public abstract class Connection
         if (msg == null)
             throw new IllegalArgumentException("null");
 
-        put(msg.toCmd());
+        if (binaryMessagesAccepted && (msg instanceof SOCBinaryMessage))
+            put(msg.toBinaryCmd());
+        else
+            put(msg.toCmd());
     }
 
     /** For server-side thread which reads and treats incoming messages */
@@ -514,4 +546,57 @@ public abstract class Connection
         hideTimeoutMessage = wantsHide;
     }
 
+    /**
+     * Does the remote end accept messages in compact binary format from {@link SOCMessage#toBinaryCmd()}?
+     * If so, {@link #put(SOCMessage)} will send that format when the message type has one.
+     * Set at server after client reports that feature.
+     * @return true if binary format is accepted; default false
+     * @see #setBinaryMessagesAccepted(boolean)
+     * @see MessageFrames
+     * @since 2.7.00
+     */
+    public boolean isBinaryMessagesAccepted()
+    {
+        return binaryMessagesAccepted;
+    }
+
+    /**
+     * Set or clear the flag for whether the remote end accepts messages in compact binary format.
+     * See {@link #isBinaryMessagesAccepted()} for details.
+     * @param accepted  True if binary format can be sent on this connection
+     * @since 2.7.00
+     */
+    public void setBinaryMessagesAccepted(final boolean accepted)
+    {
+        binaryMessagesAccepted = accepted;
+    }
+
+    /**
+     * Does the remote end accept {@link soc.message.SOCMessageBatch}es?
+     * If so, while the sending thread has an {@link OutboundMessageBatch} open,
+     * {@link #put(String)} will hold messages to send together when that batch ends.
+     * Set at server after client reports that feature.
+     *<P>
+     * A batch is sent as a binary frame, so this is false unless {@link #isBinaryMessagesAccepted()}
+     * is also true, even if {@link #setBatchMessagesAccepted(boolean) setBatchMessagesAccepted(true)} was called.
+     * @return true if batches are accepted; default false
+     * @see #setBatchMessagesAccepted(boolean)
+     * @since 2.7.00
+     */
+    public boolean isBatchMessagesAccepted()
+    {
+        return batchMessagesAccepted && binaryMessagesAccepted;
+    }
+
+    /**
+     * Set or clear the flag for whether the remote end accepts {@link soc.message.SOCMessageBatch}es.
+     * See {@link #isBatchMessagesAccepted()} for details.
+     * @param accepted  True if batches can be sent on this connection
+     * @since 2.7.00
+     */
+    public void setBatchMessagesAccepted(final boolean accepted)
+    {
+        batchMessagesAccepted = accepted;
+    }
+
 }
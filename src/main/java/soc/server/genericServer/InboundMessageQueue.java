@@ -1,7 +1,7 @@
 /**
  * Java Settlers - An online multiplayer version of the game Settlers of Catan
  * Copyright (C) 2003  Robert S. Thomas <thomas@infolab.northwestern.edu>
- * Portions of this file Copyright (C) 2010,2015-2017,2020-2021 Jeremy D Monin <jeremy@nand.net>
+ * Portions of this file Copyright (C) 2010,2015-2017,2020-2021,2026 Jeremy D Monin <jeremy@nand.net>
  * Portions of this file Copyright (C) 2016 Alessandro D'Ottavio
  *
  * This program is free software; you can redistribute it and/or
@@ -21,17 +21,18 @@
  **/
 package soc.server.genericServer;
 
-import java.util.Vector;
+import java.util.ArrayDeque;
 
 import soc.message.SOCMessage;
+import soc.message.SOCMessageForGame;
 
 /**
- * The single Inbound Message Queue for all messages coming from clients.
+ * The Inbound Message Queue for all messages coming from clients.
  * Stores all unparsed inbound {@link SOCMessage}s received from the server from all
  * connected clients' {@link Connection} threads through {@link #push(SOCMessage, Connection)},
  * then dispatched to the {@link Server} for parsing and processing.
  *<P>
- * That dispatch is done through this class's single internal {@link Treater} thread, which de-queues
+ * By default that dispatch is done through this class's single internal {@link Treater} thread, which de-queues
  * the received messages from the queue and forwards them to the {@link Server} by calling
  * {@link Server.InboundMessageDispatcher#dispatch(SOCMessage, Connection)}
  * for each inbound message.
@@ -40,14 +41,31 @@ import soc.message.SOCMessage;
  * but then finish handling that message in the Treater to simplify locking of other objects.
  * For this, call {@link #post(Runnable)}: Same concept as {@link java.awt.EventQueue#invokeLater(Runnable)}.
  *
+ *<H3>Parallel dispatch:</H3>
+ * If constructed with more than 1 thread (server property {@link Server#PROP_JSETTLERS_DISPATCH_THREADS}),
+ * there's one {@link Treater} per "lane", each with its own queue, so a slow handler in one game
+ * doesn't stall every other game:
+ *<UL>
+ * <LI> Lane 0, the {@code "treater"} thread, gets all messages which aren't a {@link SOCMessageForGame}
+ *      or are for {@link SOCMessage#GAME_NONE}, and all {@link #post(Runnable)} tasks.
+ * <LI> Each other lane gets the game messages for the games whose names hash to it,
+ *      so each game's messages are always treated in order, on the same thread.
+ * <LI> Messages from any one client are still treated in the order received, never concurrently:
+ *      If a client's next message is for a different lane while its earlier ones are still
+ *      queued or being treated, it's added to its lane's queue but marked as held.
+ *      That lane won't treat it or anything queued after it until the earlier ones are done.
+ *      So each game's messages are still treated in the order received from all clients.
+ *</UL>
+ * Message handlers must then be safe to call concurrently for different games.
+ *
  *<H3>Startup:</H3>
  * This queue's constructor only sets up the InboundMessageQueue to receive messages. Afterwards when the
  * {@link Server} is ready to process inbound messages, you must call {@link #startMessageProcessing()}
- * to start this queue's thread to forward messages into the dispatcher.
+ * to start this queue's thread(s) to forward messages into the dispatcher.
  *
  *<H3>Shutdown:</H3>
  * At server shutdown time, {@code InboundMessageQueue} can be stopped by calling {@link #stopMessageProcessing()}
- * which will stop its {@link Treater} thread.
+ * which will stop its {@link Treater} thread(s).
  *
  *<H3>More Information:</H3>
  *<UL>
@@ -65,15 +83,11 @@ public class InboundMessageQueue
 {
 
     /**
-     * Internal queue to used to store all clients' {@link MessageData}
-     * and/or code to be ran in the {@link Treater} thread.
-     */
-    private Vector<MessageData> inQueue;
-
-    /**
-     * Internal thread to process data out of the {@link #inQueue}.
+     * Internal threads, each with its own queue of {@link MessageData}
+     * and/or code to be ran. Element 0 is the main {@code "treater"} lane.
+     * Before v2.7.00 there was a single thread and queue.
      */
-    private Treater treater;
+    private final Treater[] treaters;
 
     /**
      * Message dispatcher at the server which will receive all messages from this queue.
@@ -81,33 +95,79 @@ public class InboundMessageQueue
     private final Server.InboundMessageDispatcher dispatcher;
 
     /**
-     * Create a new InboundMessageQueue. Afterwards when the server is ready
+     * Create a new InboundMessageQueue with a single {@link Treater} thread. Afterwards when the server is ready
      * to receive messages, you must call {@link #startMessageProcessing()}.
      *
      * @param imd Message dispatcher at the server which will receive messages from this queue
      */
     public InboundMessageQueue(Server.InboundMessageDispatcher imd)
     {
-        inQueue = new Vector<MessageData>();
+        this(imd, 1);
+    }
+
+    /**
+     * Create a new InboundMessageQueue, optionally with parallel dispatch. Afterwards when the server is ready
+     * to receive messages, you must call {@link #startMessageProcessing()}.
+     *
+     * @param imd Message dispatcher at the server which will receive messages from this queue
+     * @param nThreads  Number of {@link Treater} threads (lanes) to dispatch with; see class javadoc.
+     *     If 1 or less, the single Treater thread will dispatch all messages.
+     * @since 2.7.00
+     */
+    public InboundMessageQueue(Server.InboundMessageDispatcher imd, final int nThreads)
+    {
         dispatcher = imd;
+        treaters = new Treater[Math.max(1, nThreads)];
     }
 
     /**
-     * Start the {@link Treater} internal thread that calls the server when new messages arrive.
+     * Start the {@link Treater} internal thread(s) that call the server when new messages arrive.
      */
     public void startMessageProcessing()
     {
-        treater = new Treater();
-        treater.start();
+        for (int i = 0; i < treaters.length; ++i)
+        {
+            treaters[i] = new Treater((i == 0) ? "treater" : ("treater-" + i));
+            treaters[i].start();
+        }
     }
 
     /**
-     * Stop the {@link Treater} internal thread
+     * Stop the {@link Treater} internal thread(s)
      */
     public void stopMessageProcessing()
     {
-        if (treater != null)
-            treater.stopTreater();
+        for (Treater tr : treaters)
+            if (tr != null)
+                tr.stopTreater();
+    }
+
+    /**
+     * Get the number of {@link Treater} threads (lanes) used for dispatch.
+     * @return 1 for the standard single thread, or more if using parallel dispatch
+     * @since 2.7.00
+     */
+    public int getThreadCount()
+    {
+        return treaters.length;
+    }
+
+    /**
+     * Which lane (index into {@link #treaters}) should treat this message?
+     * @param msg  Message from a client; not null
+     * @return  0 for the main treater, or the lane for {@code msg}'s game
+     * @since 2.7.00
+     */
+    private int laneFor(final SOCMessage msg)
+    {
+        if (! (msg instanceof SOCMessageForGame))
+            return 0;
+
+        final String gaName = ((SOCMessageForGame) msg).getGame();
+        if ((gaName == null) || gaName.equals(SOCMessage.GAME_NONE))
+            return 0;
+
+        return 1 + ((gaName.hashCode() & 0x7FFFFFFF) % (treaters.length - 1));
     }
 
     /**
@@ -118,6 +178,8 @@ public class InboundMessageQueue
      * was {@link Object#wait()}ing because the queue was empty.
      * Although {@code push(..)} isn't declared {@code synchronized},
      * it's thread-safe because it synchronizes on the internal queue object.
+     * Should be called only from {@code clientConnection}'s reading thread,
+     * so that client's messages are queued in the order received.
      *
      * @param receivedMessage from the connection; will never be {@code null}
      * @param clientConnection that send the message; will never be {@code null}
@@ -126,15 +188,64 @@ public class InboundMessageQueue
     public void push(SOCMessage receivedMessage, Connection clientConnection)
     {
         final MessageData md = new MessageData(receivedMessage, clientConnection);
-        synchronized (inQueue)
+        if (treaters.length == 1)
+        {
+            treaters[0].add(md);
+            return;
+        }
+
+        md.lane = laneFor(receivedMessage);
+        ConnOrderState st = clientConnection.inboundOrder;
+        if (st == null)
+            st = clientConnection.inboundOrder = new ConnOrderState();
+
+        synchronized (st)
+        {
+            if ((! st.held.isEmpty()) || ((st.inProgress > 0) && (st.lane != md.lane)))
+            {
+                // wait for client's earlier messages in other lane to finish;
+                // queue now to keep its place in its game's order
+                md.isHeld = true;
+                st.held.add(md);
+            } else {
+                st.lane = md.lane;
+                ++st.inProgress;
+            }
+            treaters[md.lane].add(md);
+        }
+    }
+
+    /**
+     * After a message has been dispatched in parallel mode, update its client's {@link ConnOrderState}
+     * and release any messages which were waiting for it.
+     * @param md  Message just dispatched; {@link MessageData#clientSender} not null
+     * @since 2.7.00
+     */
+    private void finished(final MessageData md)
+    {
+        final ConnOrderState st = md.clientSender.inboundOrder;
+        synchronized (st)
         {
-            inQueue.addElement(md);
-            inQueue.notify();
+            --st.inProgress;
+            if ((st.inProgress > 0) || st.held.isEmpty())
+                return;
+
+            // Release all held messages at the head for the same lane
+            final int lane = st.held.peekFirst().lane;
+            st.lane = lane;
+            while ((! st.held.isEmpty()) && (st.held.peekFirst().lane == lane))
+            {
+                ++st.inProgress;
+                st.held.removeFirst().isHeld = false;
+            }
         }
+
+        treaters[st.lane].wake();
     }
 
     /**
      * Post some Runnable code to be queued and then run on the Treater thread.
+     * If using parallel dispatch, will run on the main treater lane (thread named {@code "treater"}).
      *<P>
      *<B>Threads:</B>
      * This method notifies the {@link Treater}, waking that thread if it
@@ -148,50 +259,33 @@ public class InboundMessageQueue
      */
     public void post(Runnable run)
     {
-        final MessageData md = new MessageData(run);
-        synchronized (inQueue)
-        {
-            inQueue.addElement(md);
-            inQueue.notify();
-        }
+        treaters[0].add(new MessageData(run));
     }
 
     /**
-     * Retrieves and removes the head of this queue, or returns null if this queue is empty.
-     * Returns as soon as possible; if queue empty, this method doesn't wait until another thread
-     * notifies a message has been added.
-     *
-     * @return the head of this queue, or null if this queue is empty.
-     */
-    protected final MessageData poll()
-    {
-        synchronized (inQueue)
-        {
-            if (inQueue.size() > 0)
-                return inQueue.remove(0);
-        }
-
-        return null;
-    }
-
-    /**
-     * Is our Treater the currently executing thread?
-     * If not, you can use {@link #post(Runnable)} to do work on that thread.
-     * @return true if {@link Thread#currentThread()} is this queue's Treater
+     * Is one of our Treaters the currently executing thread?
+     * If not, you can use {@link #post(Runnable)} to do work on the main Treater thread.
+     * @return true if {@link Thread#currentThread()} is one of this queue's Treaters
      * @since 1.2.00
      */
     public final boolean isCurrentThreadTreater()
     {
-        return (Thread.currentThread() == treater);
+        final Thread curr = Thread.currentThread();
+        for (Treater tr : treaters)
+            if (curr == tr)
+                return true;
+
+        return false;
     }
 
     /**
      * {@link InboundMessageQueue}'s internal single-threaded reader to de-queue each message
-     * stored in the {@link #inQueue} and send it to the server dispatcher.
+     * stored in its queue and send it to the server dispatcher.
      *<P>
      * This thread can be stopped by calling {@link #stopTreater()}.
      *<P>
      * Before v2.0.00 this class was {@code Server.Treater}.
+     * Before v2.7.00 there was only one Treater, and the queue was a field of {@link InboundMessageQueue}.
      *
      * @author Alessandro
      */
@@ -205,9 +299,17 @@ public class InboundMessageQueue
          */
         private volatile boolean processMessage;
 
-        public Treater()  // Server parameter is also passed in, since this is an inner class
+        /**
+         * This treater's queue of client {@link MessageData} and/or code to be ran.
+         * Synchronize on this object when accessing it.
+         * Before v2.7.00 this was a {@code Vector} shared by the whole {@link InboundMessageQueue}.
+         * @since 2.7.00
+         */
+        private final ArrayDeque<MessageData> queue = new ArrayDeque<MessageData>();
+
+        public Treater(final String threadName)
         {
-            setName("treater");  // Thread name for debug
+            setName(threadName);  // Thread name for debug
             processMessage = true;
         }
 
@@ -216,6 +318,54 @@ public class InboundMessageQueue
             processMessage = false;
         }
 
+        /**
+         * Add to this treater's queue and wake it if waiting.
+         * @param md  Message or code to add; not null
+         * @since 2.7.00
+         */
+        void add(final MessageData md)
+        {
+            synchronized (queue)
+            {
+                queue.addLast(md);
+                queue.notify();
+            }
+        }
+
+        /**
+         * Wake this treater if waiting, because a {@link MessageData#isHeld} message may have been released.
+         * @since 2.7.00
+         */
+        void wake()
+        {
+            synchronized (queue)
+            {
+                queue.notify();
+            }
+        }
+
+        /**
+         * Retrieves and removes the head of this queue, or returns null if this queue is empty
+         * or its head is a {@link MessageData#isHeld} message.
+         * Returns as soon as possible; if queue empty, this method doesn't wait until another thread
+         * notifies a message has been added.
+         *<P>
+         * Before v2.7.00 this method was {@code InboundMessageQueue.poll()}.
+         *
+         * @return the head of this queue, or null if this queue is empty or its head is held.
+         */
+        private MessageData poll()
+        {
+            synchronized (queue)
+            {
+                final MessageData md = queue.peekFirst();
+                if ((md == null) || md.isHeld)
+                    return null;
+
+                return queue.pollFirst();
+            }
+        }
+
         public void run()
         {
             while (processMessage)
@@ -234,24 +384,27 @@ public class InboundMessageQueue
                 }
                 catch (Exception e)  // for anything thrown by bugs in server or game code called from dispatch
                 {
-                    System.out.println("Exception in treater (dispatch) - " + e.getMessage());
+                    System.out.println("Exception in " + getName() + " (dispatch) - " + e.getMessage());
                     e.printStackTrace();
                 }
 
+                if ((messageData != null) && (messageData.lane != -1))
+                    finished(messageData);
+
                 Thread.yield();
 
-                synchronized (inQueue)
+                synchronized (queue)
                 {
-                    if (inQueue.size() == 0)
+                    if (queue.isEmpty() || queue.peekFirst().isHeld)
                     {
                         try
                         {
                             //D.ebugPrintln("treater waiting");
-                            inQueue.wait(1000);  // timeout to help avoid deadlock
+                            queue.wait(1000);  // timeout to help avoid deadlock
                         }
                         catch (Exception ex)
                         {
-                            ;   // catch InterruptedException from inQueue.notify() in treat(...)
+                            ;   // catch InterruptedException from queue.notify() in add(..)
                         }
                     }
                 }
@@ -259,6 +412,23 @@ public class InboundMessageQueue
         }
     }
 
+    /**
+     * Per-client state for parallel dispatch, to treat its messages in order;
+     * see {@link InboundMessageQueue} class javadoc.
+     * Stored in {@link Connection#inboundOrder}; synchronize on this object when accessing its fields.
+     * @since 2.7.00
+     */
+    static final class ConnOrderState
+    {
+        /** Lane of the client's messages currently queued or being treated, if {@link #inProgress} != 0 */
+        int lane;
+
+        /** Number of the client's messages now queued in or being treated by the Treater for {@link #lane} */
+        int inProgress;
+
+        /** Client's {@link MessageData#isHeld} messages, already queued, waiting for those in {@link #lane} to finish */
+        final ArrayDeque<MessageData> held = new ArrayDeque<MessageData>();
+    }
 
     /**
      * Nested class to store a message's contents and sender, and
@@ -286,6 +456,21 @@ public class InboundMessageQueue
          */
         public final Runnable run;
 
+        /**
+         * If using parallel dispatch, this message's lane (index into {@link InboundMessageQueue#treaters}),
+         * otherwise -1.
+         * @since 2.7.00
+         */
+        public int lane = -1;
+
+        /**
+         * If true, this parallel-dispatch message is queued in its {@link #lane} but must wait
+         * for its client's earlier messages in another lane; see {@link InboundMessageQueue.ConnOrderState}.
+         * Synchronize on its client's {@code ConnOrderState} to clear this flag.
+         * @since 2.7.00
+         */
+        public volatile boolean isHeld;
+
         public MessageData(final SOCMessage message, final Connection clientSender)
         {
             this.message = message;
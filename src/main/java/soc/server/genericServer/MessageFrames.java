@@ -0,0 +1,101 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * This file Copyright (C) 2026 Jeremy D Monin <jeremy@nand.net>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The maintainer of this program can be reached at jsettlers@nand.net
+ **/
+package soc.server.genericServer;
+
+import soc.message.SOCBinaryMessage;
+import soc.message.SOCMessage;
+
+/**
+ * A message to send to several connections, each formatted at most once:
+ * {@link SOCMessage#toCmd()} for most connections, {@link SOCMessage#toBinaryCmd()} for those which
+ * {@link Connection#isBinaryMessagesAccepted()}. Each format is built the first time it's needed.
+ *<P>
+ * Not thread-safe; meant to be used by one thread while it sends a message to a game's or channel's members.
+ *
+ * @author Jeremy D Monin &lt;jeremy@nand.net&gt;
+ * @since 2.7.00
+ */
+public final class MessageFrames
+{
+    private final SOCMessage msg;
+
+    /** {@link SOCMessage#toCmd()}, or {@code null} if not built yet */
+    private String textCmd;
+
+    /** {@link SOCMessage#toBinaryCmd()}, or {@code null} if not built yet or if {@link #noBinary} */
+    private String binaryCmd;
+
+    /** True if message type doesn't have a binary format: isn't a {@link SOCBinaryMessage} */
+    private final boolean noBinary;
+
+    /**
+     * @param msg  Message to send; not {@code null}
+     * @throws IllegalArgumentException if {@code msg} is {@code null}
+     */
+    public MessageFrames(final SOCMessage msg)
+        throws IllegalArgumentException
+    {
+        if (msg == null)
+            throw new IllegalArgumentException("null");
+
+        this.msg = msg;
+        noBinary = ! (msg instanceof SOCBinaryMessage);
+    }
+
+    /**
+     * Get the message formatted for a connection.
+     * @param c  Connection to send to
+     * @return  Message in binary format if {@code c} accepts it and the message type has one,
+     *     otherwise {@link SOCMessage#toCmd()}
+     */
+    public String getFor(final Connection c)
+    {
+        if (c.isBinaryMessagesAccepted() && ! noBinary)
+        {
+            if (binaryCmd == null)
+                binaryCmd = msg.toBinaryCmd();
+            return binaryCmd;
+        }
+
+        return getText();
+    }
+
+    /**
+     * Get the message in the standard text format.
+     * @return {@link SOCMessage#toCmd()}
+     */
+    public String getText()
+    {
+        if (textCmd == null)
+            textCmd = msg.toCmd();
+
+        return textCmd;
+    }
+
+    /**
+     * Send the message to a connection, in the format it accepts.
+     * @param c  Connection to send to
+     */
+    public void putTo(final Connection c)
+    {
+        c.put(getFor(c));
+    }
+
+}
@@ -1,7 +1,7 @@
 /**
  * Java Settlers - An online multiplayer version of the game Settlers of Catan
  * Copyright (C) 2003  Robert S. Thomas <thomas@infolab.northwestern.edu>
- * Portions of this file Copyright (C) 2007-2010,2013,2016-2017,2020-2021 Jeremy D Monin <jeremy@nand.net>
+ * Portions of this file Copyright (C) 2007-2010,2013,2016-2017,2020-2021,2026 Jeremy D Monin <jeremy@nand.net>
  * Portions of this file Copyright (C) 2012 Paul Bilnoski <paul@bilnoski.net>
  * Portions of this file Copyright (C) 2016 Alessandro D'Ottavio
  *
@@ -25,13 +25,17 @@ package soc.server.genericServer;
 import soc.disableDebug.D;
 import soc.message.SOCMessage;
 
+import java.io.BufferedOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.Serializable;
 import java.net.Socket;
 import java.util.Date;
-import java.util.Vector;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
 
 
 /** A TCP client's connection at a server.
@@ -63,6 +67,13 @@ import java.util.Vector;
      */
     protected final static int TIMEOUT_VALUE = 60 * 60 * 1000;
 
+    /**
+     * Size of the {@link BufferedOutputStream} used by {@link Putter} to send
+     * all currently queued messages with one flush.
+     * @since 2.7.00
+     */
+    private final static int OUT_BUFFER_SIZE = 16 * 1024;
+
     DataInputStream in = null;
     DataOutputStream out = null;
     Socket s = null;
@@ -78,8 +89,37 @@ import java.util.Vector;
      */
     protected boolean inputConnected = false;
 
-    /** Messages from server to client, sent in {@link Putter} thread */
-    private Vector<String> outQueue = new Vector<String>();
+    /**
+     * Messages from server to client, sent in {@link Putter} thread.
+     * Lock-free: Any thread may add, only the Putter removes.
+     * Before v2.7.00 this was a {@code Vector} on which all threads synchronized.
+     * @see #outQueueSize
+     */
+    private final ConcurrentLinkedQueue<String> outQueue = new ConcurrentLinkedQueue<String>();
+
+    /**
+     * Number of messages in {@link #outQueue}, to check against
+     * {@link Server#outQueueLimit} without {@code outQueue}'s O(n) {@code size()}.
+     * @since 2.7.00
+     */
+    private final AtomicInteger outQueueSize = new AtomicInteger();
+
+    /**
+     * Set true by {@link #put(String)} if {@link #outQueueSize} goes over the server's limit.
+     * The {@link Putter} will then remove this slow client's connection.
+     * @since 2.7.00
+     */
+    private volatile boolean outQueueOverLimit;
+
+    /** Our thread which sends {@link #outQueue}; set in {@link #connect()} */
+    private Putter putter;
+
+    /**
+     * True while {@link #putter} is parked because {@link #outQueue} is empty,
+     * so {@link #put(String)} knows to wake it.
+     * @since 2.7.00
+     */
+    private volatile boolean putterWaiting;
 
     /** initialize the connection data */
     NetConnection(Socket so, Server sve)
@@ -131,12 +171,12 @@ import java.util.Vector;
         {
             s.setSoTimeout(TIMEOUT_VALUE);
             in = new DataInputStream(s.getInputStream());
-            out = new DataOutputStream(s.getOutputStream());
+            out = new DataOutputStream(new BufferedOutputStream(s.getOutputStream(), OUT_BUFFER_SIZE));
             connected = true;
             inputConnected = true;
             connectTime = new Date();
 
-            Putter putter = new Putter();
+            putter = new Putter();
             putter.start();
 
             //(reader=new Thread(this)).start();
@@ -237,26 +277,45 @@ import java.util.Vector;
      * {@code str} must be no longer than 65535 bytes when encoded into {@code UTF-8}
      * (which is not Java's internal string encoding): See {@link Connection#MAX_MESSAGE_SIZE_UTF8}.
      *<P>
-     * <B>Threads:</B> Safe to call from any thread; synchronizes on internal {@code outQueue}.
+     * If this client is too slow to receive messages, and its queue has more than
+     * the server's limit ({@link Server#PROP_JSETTLERS_NET_OUTQUEUE_MAX}), {@code str} isn't queued
+     * and the connection will be removed by the Putter thread.
+     *<P>
+     * <B>Threads:</B> Safe to call from any thread; doesn't lock or block.
+     * Before v2.7.00, synchronized on internal {@code outQueue}.
      *
      * @param str Data to send
      */
     public final void put(String str)
     {
-        synchronized (outQueue)
+        if (isBatchMessagesAccepted() && OutboundMessageBatch.capture(this, str))
+            return;  // will send when batch ends
+
+        final int limit = ourServer.outQueueLimit;
+        if ((limit > 0) && (outQueueSize.get() >= limit))
         {
-            // D.ebugPrintln("Adding " + str + " to outQueue for " + data);
-            outQueue.addElement(str);
-            outQueue.notify();
+            if (! outQueueOverLimit)
+            {
+                outQueueOverLimit = true;
+                LockSupport.unpark(putter);
+            }
+            return;
         }
+
+        // D.ebugPrintln("Adding " + str + " to outQueue for " + data);
+        outQueue.add(str);
+        outQueueSize.incrementAndGet();
+        if (putterWaiting)
+            LockSupport.unpark(putter);
     }
 
     /**
      * Data is added asynchronously (sitting in {@link #outQueue}).
-     * This method is called when it's dequeued and sent over
-     * the connection to the remote end.
+     * This method is called when it's dequeued and written to the
+     * connection's output buffer, to be sent to the remote end
+     * when the {@link Putter} flushes the buffer.
      *
-     * @param str Data to send
+     * @param str Data to send, or {@code null} to flush the output buffer
      *
      * @return True if sent, false if error
      *         (and sets {@link #error})
@@ -284,7 +343,8 @@ import java.util.Vector;
         }
     }
 
-    /** put a message on the net
+    /** put a message into the net's output buffer, or flush that buffer
+     * @param str Data to send, or {@code null} to flush
      * @return true for success, false and disconnects on failure
      *         (and sets {@link #error})
      */
@@ -298,8 +358,11 @@ import java.util.Vector;
         try
         {
             //D.ebugPrintln("trying to put "+str+" to "+data);
-            out.writeUTF(str);
-                // throws UTFDataFormatException (an IOException) if string length > 65535 in UTF-8
+            if (str != null)
+                out.writeUTF(str);
+                    // throws UTFDataFormatException (an IOException) if string length > 65535 in UTF-8
+            else
+                out.flush();
         }
         catch (IOException e)
         {
@@ -416,7 +479,11 @@ import java.util.Vector;
         return sb.toString();
     }
 
-    /** Connection inner class thread to send {@link NetConnection#outQueue} messages to the net. */
+    /**
+     * Connection inner class thread to send {@link NetConnection#outQueue} messages to the net.
+     * Each time it wakes, writes all queued messages to the buffered output stream and then flushes once,
+     * so a burst of messages to this client is sent with few system calls.
+     */
     class Putter extends Thread
     {
         //public boolean putting = true;
@@ -436,41 +503,37 @@ import java.util.Vector;
         {
             while (connected)
             {
-                String c = null;
-
                 if (D.ebugIsEnabled())
                     D.ebugPrintlnINFO("** " + data + " is at the top of the putter loop");
 
-                synchronized (outQueue)
+                if (outQueueOverLimit)
                 {
-                    if (outQueue.size() > 0)
-                    {
-                        c = outQueue.elementAt(0);
-                        outQueue.removeElementAt(0);
-                    }
+                    final String msg = "outbound queue over limit (" + ourServer.outQueueLimit + "), slow client";
+                    D.ebugPrintlnINFO("NetConnection: " + msg + ": " + data);
+                    error = new IOException(msg);
+                    if (connected)
+                        ourServer.removeConnection(NetConnection.this, false);
+                    break;
                 }
 
-                if (c != null)
+                boolean sentAny = false;
+                for (String c = outQueue.poll(); c != null; c = outQueue.poll())
                 {
-                    /* boolean rv = */ putForReal(c);
-
-                    // rv ignored because handled by putForReal
+                    outQueueSize.decrementAndGet();
+                    if (! putForReal(c))
+                        break;  // error was handled by putForReal
+                    sentAny = true;
                 }
+                if (sentAny)
+                    putForReal(null);  // flush
 
-                synchronized (outQueue)
+                if (outQueue.isEmpty())
                 {
-                    if (outQueue.size() == 0)
-                    {
-                        try
-                        {
-                            //D.ebugPrintln("** "+data+" is WAITING for outQueue");
-                            outQueue.wait(1000);  // timeout to help avoid deadlock
-                        }
-                        catch (Exception ex)
-                        {
-                            D.ebugPrintlnINFO("Exception while waiting for outQueue in " + data + ". - " + ex);
-                        }
-                    }
+                    //D.ebugPrintln("** "+data+" is WAITING for outQueue");
+                    putterWaiting = true;
+                    if (outQueue.isEmpty() && connected && ! outQueueOverLimit)
+                        LockSupport.parkNanos(TimeUnit.SECONDS.toNanos(1));  // timeout to help avoid deadlock
+                    putterWaiting = false;
                 }
             }
 
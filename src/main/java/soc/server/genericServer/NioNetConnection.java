@@ -0,0 +1,626 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * This file Copyright (C) 2026 Jeremy D Monin <jeremy@nand.net>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The maintainer of this program can be reached at jsettlers@nand.net
+ **/
+package soc.server.genericServer;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UTFDataFormatException;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Date;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import soc.disableDebug.D;
+import soc.message.SOCMessage;
+
+/**
+ * A TCP client's non-blocking connection at a server, serviced by one of the
+ * {@link NioNetServerSocket}'s small fixed pool of selector threads instead of
+ * a reader thread and a putter thread per client like {@link NetConnection}.
+ *<P>
+ * The wire format is the same as {@code NetConnection}'s, so clients can't tell the difference:
+ * Each message is framed as if by {@link java.io.DataOutputStream#writeUTF(String)},
+ * a 2-byte unsigned big-endian length followed by that many bytes of "modified UTF-8".
+ * Frames are encoded and decoded here without any per-connection streams.
+ *<P>
+ * Threads:
+ *<UL>
+ * <LI> {@link #put(String)} is called from any server thread: It encodes the frame,
+ *      adds it to a lock-free outbound queue, and asks the selector thread to write it.
+ * <LI> Reading, parsing with {@link SOCMessage#toMsg(String)}, and pushing to the server's
+ *      {@link InboundMessageQueue} happen on the selector thread, as do all outbound writes.
+ * <LI> {@link #run()} is called once by {@link Server#run()} on its accept thread.
+ *      It adds this connection to the server and then registers it with the selector thread.
+ *</UL>
+ * Used instead of {@code NetConnection} when server property {@link Server#PROP_JSETTLERS_NET_NIO} is set.
+ *
+ * @see NetConnection
+ * @since 2.7.00
+ */
+/*package*/ final class NioNetConnection
+    extends Connection
+{
+    /**
+     * Idle timeout for reading from client, in milliseconds; same as {@link NetConnection#TIMEOUT_VALUE}.
+     * Checked by the selector thread every {@link NioNetServerSocket#IDLE_CHECK_INTERVAL_MS}.
+     */
+    static final int TIMEOUT_VALUE = NetConnection.TIMEOUT_VALUE;
+
+    /** Initial size of {@link #readBuf}; grows if a longer frame arrives, up to 2 + {@link #MAX_MESSAGE_SIZE_UTF8} */
+    private static final int READ_BUF_INITIAL_SIZE = 4096;
+
+    /** Our socket's channel; non-blocking once {@link #run()} has been called. */
+    final SocketChannel chan;
+
+    /** The selector thread servicing this connection; set in constructor, never changes */
+    private final NioNetServerSocket.SelectorThread ioThread;
+
+    /** Our selection key once registered with {@link #ioThread}'s selector, or {@code null} before then */
+    SelectionKey key;
+
+    /** Hostname of the remote end of the connection, for {@link #host()} */
+    private final String hst;
+
+    /** Remote port number, for {@link #getName()} */
+    private final int remotePort;
+
+    private volatile boolean connected = false;
+
+    /**
+     * @see #disconnectSoft()
+     */
+    private volatile boolean inputConnected = false;
+
+    /** Has the first message been received and given to {@link Server#processFirstCommand(SOCMessage, Connection)}? */
+    private boolean firstMsgReceived;
+
+    /**
+     * Partially received inbound frames. Accessed only from the selector thread.
+     * Is in "write mode" (ready for {@link SocketChannel#read(ByteBuffer)}) between calls.
+     */
+    private ByteBuffer readBuf = ByteBuffer.allocate(READ_BUF_INITIAL_SIZE);
+
+    /** Decoding buffer for {@link #decodeModifiedUTF8(byte[], int, int)}. Accessed only from the selector thread. */
+    private char[] decodeChars = new char[256];
+
+    /**
+     * Time of last inbound data, from {@link System#currentTimeMillis()}, to check for idle timeout.
+     * Accessed only from the selector thread.
+     */
+    long lastReadTime;
+
+    /**
+     * Encoded frames from {@link #put(String)}, not yet taken by the selector thread.
+     * Any thread may add; only the selector thread removes.
+     */
+    private final ConcurrentLinkedQueue<ByteBuffer> outQueue = new ConcurrentLinkedQueue<ByteBuffer>();
+
+    /**
+     * Number of frames in {@link #outQueue} and {@link #pendingWrites},
+     * to check against {@link Server#outQueueLimit}.
+     */
+    private final AtomicInteger outQueueSize = new AtomicInteger();
+
+    /**
+     * Error from {@link #put(String)} for the selector thread to handle, or {@code null}:
+     * Message too long to encode, or {@link #outQueueSize} over the server's limit.
+     * The connection will be removed from the selector thread, not the thread calling {@code put},
+     * which might be holding game locks.
+     */
+    private volatile IOException putError;
+
+    /**
+     * Frames taken from {@link #outQueue} which the socket hasn't yet fully accepted.
+     * Accessed only from the selector thread.
+     */
+    final ArrayDeque<ByteBuffer> pendingWrites = new ArrayDeque<ByteBuffer>();
+
+    /**
+     * True if this connection is already in {@link #ioThread}'s list of connections to write,
+     * so {@link #put(String)} can skip the {@link java.nio.channels.Selector#wakeup()} when the
+     * selector thread will see our newly queued data anyway.
+     */
+    final AtomicBoolean writeRequested = new AtomicBoolean(false);
+
+    /** initialize the connection data */
+    NioNetConnection(SocketChannel ch, NioNetServerSocket.SelectorThread ioThread, Server sve)
+    {
+        final Socket so = ch.socket();
+        hst = so.getInetAddress().getHostName();
+        remotePort = so.getPort();
+        ourServer = sve;
+        chan = ch;
+        this.ioThread = ioThread;
+    }
+
+    /**
+     * Get our connection name for debugging.  Also used by {@link #toString()}.
+     * @return "nioconnection-" + <em>remotehostname-portnumber</em>
+     */
+    public String getName()
+    {
+        return "nioconnection-" + hst + "-" + Integer.toString(remotePort);
+    }
+
+    /**
+     * @return Hostname of the remote end of the connection
+     */
+    public String host()
+    {
+        return hst;
+    }
+
+    /**
+     * Set up to read from the net; called only by the server.
+     * If successful, also sets connectTime to now.
+     * Reading won't begin until {@link #run()} registers us with the selector thread.
+     *<P>
+     * Connection must be unnamed (<tt>{@link #getData()} == null</tt>) at this point.
+     *
+     * @return true if successful, false if an error occurred.
+     */
+    public boolean connect()
+    {
+        if (getData() != null)
+        {
+            D.ebugPrintlnINFO("conn.connect() requires null getData()");
+            return false;
+        }
+
+        try
+        {
+            chan.configureBlocking(false);
+            chan.socket().setTcpNoDelay(true);
+            connected = true;
+            inputConnected = true;
+            connectTime = new Date();
+            lastReadTime = System.currentTimeMillis();
+        }
+        catch (IOException e)
+        {
+            D.ebugPrintlnINFO("IOException in NioNetConnection.connect (" + hst + ") - " + e);
+
+            if (D.ebugOn)
+            {
+                e.printStackTrace(System.out);
+            }
+
+            error = e;
+            disconnect();
+
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Is input available now, without blocking?
+     * True if part of an unprocessed message has already been read from the network.
+     */
+    public boolean isInputAvailable()
+    {
+        final ByteBuffer rb = readBuf;
+        return inputConnected && (rb != null) && (rb.position() > 0);
+    }
+
+    /**
+     * Add this new connection to the server, then hand it to our selector thread to begin reading.
+     * Unlike {@link NetConnection#run()}, returns right away instead of looping to read messages.
+     * Called on the server's accept thread.
+     *<P>
+     * When called, {@link #getData()} must be null.
+     */
+    public void run()
+    {
+        try
+        {
+            ourServer.addConnection(this);
+                // won't throw IllegalArgumentException, because conn is unnamed at this point; getData() is null
+        }
+        catch (Exception e)
+        {
+            D.ebugPrintlnINFO("Exception in NioNetConnection.run (" + hst + ") - " + e);
+            error = e;
+            ourServer.removeConnection(this, false);
+            return;
+        }
+
+        if (connected)
+            ioThread.register(this);
+    }
+
+    /**
+     * Read whatever's available from the network, and push each complete message to the server's inbound queue.
+     * Called only from the selector thread when our key is readable.
+     * @throws IOException if the channel has an error or reaches EOF, or a frame isn't valid modified UTF-8
+     */
+    void readAvailable()
+        throws IOException
+    {
+        if (! inputConnected)
+        {
+            // disconnectSoft: accept no further input
+            if (key.isValid())
+                key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+            return;
+        }
+
+        final int n = chan.read(readBuf);
+        if (n < 0)
+            throw new EOFException();
+        if (n == 0)
+            return;
+        lastReadTime = System.currentTimeMillis();
+
+        readBuf.flip();
+        while (inputConnected && (readBuf.remaining() >= 2))
+        {
+            final int pos = readBuf.position();
+            final int frameLen = readBuf.getShort(pos) & 0xFFFF;
+            if (readBuf.remaining() < 2 + frameLen)
+            {
+                if (readBuf.capacity() < 2 + frameLen)
+                {
+                    // grow to hold this frame
+                    ByteBuffer bigger = ByteBuffer.allocate(Math.min
+                        (Math.max(2 * readBuf.capacity(), 2 + frameLen), 2 + MAX_MESSAGE_SIZE_UTF8));
+                    bigger.put(readBuf);
+                    bigger.flip();
+                    readBuf = bigger;
+                }
+                break;
+            }
+
+            final String msgStr = decodeModifiedUTF8(readBuf.array(), pos + 2, frameLen);
+            readBuf.position(pos + 2 + frameLen);
+            treat(msgStr);
+        }
+        readBuf.compact();
+    }
+
+    /**
+     * Parse and queue one inbound message, or give the first one to {@link Server#processFirstCommand(SOCMessage, Connection)}.
+     * Same processing as {@link NetConnection#run()}'s loop.
+     * @param msgStr  Message data from the client
+     */
+    private void treat(final String msgStr)
+    {
+        final SOCMessage msgObj = SOCMessage.toMsg(msgStr);  // parse
+        if (! firstMsgReceived)
+        {
+            firstMsgReceived = true;
+            if (ourServer.processFirstCommand(msgObj, this))
+                return;
+        }
+
+        if (msgObj != null)
+            ourServer.inQueue.push(msgObj, this);
+    }
+
+    /**
+     * Decode a frame's modified UTF-8 bytes, as done by {@link java.io.DataInputStream#readUTF()}.
+     * @param b  Byte array containing the frame
+     * @param off  Offset of first data byte within {@code b}, after the 2-byte length
+     * @param len  Number of data bytes in frame
+     * @return  the decoded string
+     * @throws UTFDataFormatException if the bytes aren't valid modified UTF-8
+     */
+    private String decodeModifiedUTF8(final byte[] b, int off, final int len)
+        throws UTFDataFormatException
+    {
+        if (decodeChars.length < len)
+            decodeChars = new char[Math.max(len, 2 * decodeChars.length)];
+        final char[] ca = decodeChars;
+        final int end = off + len;
+        int nc = 0;
+
+        while (off < end)
+        {
+            final int c = b[off] & 0xFF;
+            switch (c >> 4)
+            {
+            case 0: case 1: case 2: case 3: case 4: case 5: case 6: case 7:
+                // 0xxxxxxx
+                ++off;
+                ca[nc++] = (char) c;
+                break;
+
+            case 12: case 13:
+                {
+                    // 110x xxxx   10xx xxxx
+                    if (off + 2 > end)
+                        throw new UTFDataFormatException("partial character at end");
+                    final int c2 = b[off + 1];
+                    if ((c2 & 0xC0) != 0x80)
+                        throw new UTFDataFormatException("malformed input around byte " + off);
+                    ca[nc++] = (char) (((c & 0x1F) << 6) | (c2 & 0x3F));
+                    off += 2;
+                }
+                break;
+
+            case 14:
+                {
+                    // 1110 xxxx  10xx xxxx  10xx xxxx
+                    if (off + 3 > end)
+                        throw new UTFDataFormatException("partial character at end");
+                    final int c2 = b[off + 1], c3 = b[off + 2];
+                    if (((c2 & 0xC0) != 0x80) || ((c3 & 0xC0) != 0x80))
+                        throw new UTFDataFormatException("malformed input around byte " + off);
+                    ca[nc++] = (char) (((c & 0x0F) << 12) | ((c2 & 0x3F) << 6) | (c3 & 0x3F));
+                    off += 3;
+                }
+                break;
+
+            default:
+                // 10xx xxxx, 1111 xxxx
+                throw new UTFDataFormatException("malformed input around byte " + off);
+            }
+        }
+
+        return new String(ca, 0, nc);
+    }
+
+    /**
+     * Encode a message into a frame in the same format as {@link java.io.DataOutputStream#writeUTF(String)}.
+     * @param str  Message to encode
+     * @return  a buffer ready to write, containing the 2-byte length and then the modified UTF-8 bytes
+     * @throws UTFDataFormatException if the encoded length is longer than {@link Connection#MAX_MESSAGE_SIZE_UTF8}
+     */
+    static ByteBuffer encodeFrame(final String str)
+        throws UTFDataFormatException
+    {
+        final int strlen = str.length();
+        int utflen = strlen;
+        for (int i = 0; i < strlen; ++i)
+        {
+            final char c = str.charAt(i);
+            if (c >= 0x80 || c == 0)
+                utflen += (c >= 0x800) ? 2 : 1;
+        }
+        if (utflen > MAX_MESSAGE_SIZE_UTF8)
+            throw new UTFDataFormatException("encoded string too long: " + utflen + " bytes");
+
+        final byte[] ba = new byte[utflen + 2];
+        ba[0] = (byte) (utflen >>> 8);
+        ba[1] = (byte) utflen;
+        int i = 2;
+        for (int j = 0; j < strlen; ++j)
+        {
+            final char c = str.charAt(j);
+            if ((c != 0) && (c < 0x80))
+            {
+                ba[i++] = (byte) c;
+            }
+            else if (c >= 0x800)
+            {
+                ba[i++] = (byte) (0xE0 | ((c >> 12) & 0x0F));
+                ba[i++] = (byte) (0x80 | ((c >>  6) & 0x3F));
+                ba[i++] = (byte) (0x80 | (c & 0x3F));
+            }
+            else
+            {
+                ba[i++] = (byte) (0xC0 | ((c >>  6) & 0x1F));
+                ba[i++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+
+        return ByteBuffer.wrap(ba);
+    }
+
+    /**
+     * Send this data over the connection: Encodes its frame and adds it to the outbound queue,
+     * to be written by the selector thread.
+     *<P>
+     * Because the connection protocol is the same as {@link java.io.DataOutputStream#writeUTF(String)}'s,
+     * {@code str} must be no longer than 65535 bytes when encoded into {@code UTF-8}
+     * (which is not Java's internal string encoding): See {@link Connection#MAX_MESSAGE_SIZE_UTF8}.
+     * If it's too long, like {@link NetConnection} the connection is removed from the server.
+     * Also removed if this client is too slow to receive messages and its queue reaches the server's
+     * limit ({@link Server#PROP_JSETTLERS_NET_OUTQUEUE_MAX}).
+     *<P>
+     * <B>Threads:</B> Safe to call from any thread; doesn't synchronize or block.
+     *
+     * @param str Data to send
+     */
+    public final void put(final String str)
+    {
+        if (isBatchMessagesAccepted() && OutboundMessageBatch.capture(this, str))
+            return;  // will send when batch ends
+
+        if ((error != null) || (putError != null) || ! connected)
+            return;
+
+        final int limit = ourServer.outQueueLimit;
+        if ((limit > 0) && (outQueueSize.get() >= limit))
+        {
+            putError = new IOException("outbound queue over limit (" + limit + "), slow client");
+        } else {
+            try
+            {
+                outQueue.add(encodeFrame(str));
+                outQueueSize.incrementAndGet();
+            }
+            catch (UTFDataFormatException e)
+            {
+                putError = e;
+            }
+        }
+
+        if (writeRequested.compareAndSet(false, true))
+            ioThread.requestWrite(this);
+    }
+
+    /**
+     * Write as much queued output as the socket will currently accept.
+     * Called only from the selector thread. Uses gathering writes, so that a burst of
+     * messages to this client is sent with as few system calls as possible.
+     *
+     * @param scratch  Array for the selector thread's gathering writes; contents are overwritten
+     * @return true if all queued output was written, false if some remains for when the socket is writable
+     * @throws IOException if the channel has an error
+     */
+    boolean writeAvailable(final ByteBuffer[] scratch)
+        throws IOException
+    {
+        if (putError != null)
+        {
+            D.ebugPrintlnINFO("IOException in NioNetConnection.put (" + hst + ") - " + putError);
+            throw putError;
+        }
+
+        for (ByteBuffer bb = outQueue.poll(); bb != null; bb = outQueue.poll())
+            pendingWrites.add(bb);
+
+        while (! pendingWrites.isEmpty())
+        {
+            int n = 0;
+            for (ByteBuffer bb : pendingWrites)
+            {
+                scratch[n++] = bb;
+                if (n == scratch.length)
+                    break;
+            }
+
+            chan.write(scratch, 0, n);
+            final boolean allWritten = ! scratch[n - 1].hasRemaining();
+            for (int i = 0; i < n; ++i)
+                scratch[i] = null;
+
+            while ((! pendingWrites.isEmpty()) && ! pendingWrites.peekFirst().hasRemaining())
+            {
+                pendingWrites.removeFirst();
+                outQueueSize.decrementAndGet();
+            }
+            if (! allWritten)
+                return false;  // socket's send buffer is full
+
+            if (pendingWrites.isEmpty())
+                for (ByteBuffer bb = outQueue.poll(); bb != null; bb = outQueue.poll())
+                    pendingWrites.add(bb);
+        }
+
+        return true;
+    }
+
+    /**
+     * Called from the selector thread when a read or write fails, or the client has been idle too long.
+     * Same error handling as {@link NetConnection#run()}.
+     * @param e  Exception encountered; see {@link #getError()}
+     */
+    void handleIOError(final Exception e)
+    {
+        if (! (e instanceof EOFException))
+            D.ebugPrintlnINFO("Exception in NioNetConnection (" + hst + ") - " + e);
+
+        if (! connected)
+            return;  // Don't set error twice
+
+        error = e;
+        ourServer.removeConnection(this, false);
+    }
+
+    /**
+     * Idle timeout check, called from the selector thread.
+     * @param now  Current time from {@link System#currentTimeMillis()}
+     */
+    void checkIdle(final long now)
+    {
+        if (connected && (now - lastReadTime > TIMEOUT_VALUE))
+            handleIOError(new SocketTimeoutException("Read timed out"));
+    }
+
+    /** close the socket, stop reading; called after conn is removed from server structures */
+    public void disconnect()
+    {
+        if (! connected)
+            return;  // <--- Early return: Already disconnected ---
+
+        D.ebugPrintlnINFO("DISCONNECTING " + data);
+        connected = false;
+        inputConnected = false;
+
+        try
+        {
+            chan.close();  // also cancels key
+        }
+        catch (IOException e)
+        {
+            D.ebugPrintlnINFO("IOException in NioNetConnection.disconnect (" + hst + ") - " + e);
+            error = e;
+        }
+
+        outQueue.clear();
+    }
+
+    /**
+     * Accept no further input, allow output to drain, don't immediately close the socket.
+     * Once called, {@link #isConnected()} will return false, even if output is still being
+     * sent to the other side.
+     */
+    public void disconnectSoft()
+    {
+        if (! inputConnected)
+            return;
+
+        D.ebugPrintlnINFO("DISCONNECTING(SOFT) " + data);
+        inputConnected = false;
+    }
+
+    /**
+     * Are we currently connected and active?
+     */
+    public boolean isConnected()
+    {
+        return connected && inputConnected;
+    }
+
+    /**
+     * Is the socket still open, even if {@link #disconnectSoft()} has been called?
+     * Used by the selector thread.
+     */
+    boolean isOpen()
+    {
+        return connected;
+    }
+
+    /**
+     * For debugging, toString includes data.toString and {@link #getName()}.
+     */
+    public String toString()
+    {
+        StringBuilder sb = new StringBuilder("Connection[");
+        if (data != null)
+            sb.append(data);
+        else
+            sb.append(super.hashCode());
+        sb.append('-');
+        sb.append(getName());  // nioconnection-hostname-portnumber
+        sb.append(']');
+        return sb.toString();
+    }
+
+}
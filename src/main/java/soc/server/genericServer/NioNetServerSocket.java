@@ -0,0 +1,287 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * This file Copyright (C) 2026 Jeremy D Monin <jeremy@nand.net>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The maintainer of this program can be reached at jsettlers@nand.net
+ **/
+package soc.server.genericServer;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketException;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import soc.disableDebug.D;
+
+/**
+ * Server socket for non-blocking {@link NioNetConnection}s, used instead of
+ * {@link NetServerSocket} when server property {@link Server#PROP_JSETTLERS_NET_NIO} is set.
+ *<P>
+ * {@link #accept()} still blocks, so {@link Server#run()}'s accept loop is unchanged.
+ * Each accepted connection is assigned round-robin to one of a small fixed pool of
+ * {@link SelectorThread}s, which do all reading and writing for their connections.
+ * So, the number of server I/O threads doesn't grow with the number of connected clients.
+ *
+ * @since 2.7.00
+ */
+/*package*/ class NioNetServerSocket implements SOCServerSocket
+{
+    /**
+     * How often each {@link SelectorThread} checks its connections for
+     * the {@link NioNetConnection#TIMEOUT_VALUE idle read timeout}: 1 minute.
+     */
+    static final int IDLE_CHECK_INTERVAL_MS = 60 * 1000;
+
+    /**
+     * Maximum number of frames to send to a client in one gathering write.
+     */
+    private static final int MAX_GATHER_WRITE = 64;
+
+    private final ServerSocketChannel implServChannel;
+    private final Server server;
+
+    /** Fixed pool of selector threads; see {@link #nextThread} */
+    private final SelectorThread[] ioThreads;
+
+    /** Index of the {@link #ioThreads} element to give the next accepted connection */
+    private int nextThread;
+
+    /**
+     * Bind to this TCP port and start the selector threads.
+     * @param port  TCP port to bind to
+     * @param server  Our server
+     * @param nThreads  Number of selector threads to start; if &lt; 1, will use 1
+     * @throws IOException if can't bind, or can't open the selectors
+     */
+    public NioNetServerSocket(final int port, final Server server, int nThreads)
+        throws IOException
+    {
+        if (nThreads < 1)
+            nThreads = 1;
+
+        this.server = server;
+        implServChannel = ServerSocketChannel.open();
+        implServChannel.socket().setReuseAddress(true);
+        implServChannel.socket().bind(new InetSocketAddress(port));
+
+        ioThreads = new SelectorThread[nThreads];
+        try
+        {
+            for (int i = 0; i < nThreads; ++i)
+            {
+                ioThreads[i] = new SelectorThread("nio-selector-" + port + "-" + i);
+                ioThreads[i].start();
+            }
+        }
+        catch (IOException e)
+        {
+            close();
+            throw e;
+        }
+    }
+
+    public Connection accept()
+        throws SocketException, IOException
+    {
+        SocketChannel ch = implServChannel.accept();  // blocks
+        SelectorThread st = ioThreads[nextThread];
+        nextThread = (nextThread + 1) % ioThreads.length;
+
+        return new NioNetConnection(ch, st, server);
+    }
+
+    /**
+     * Close the server socket and stop the selector threads.
+     * Any connections still open will be closed.
+     */
+    public void close()
+        throws IOException
+    {
+        for (SelectorThread st : ioThreads)
+            if (st != null)
+                st.stopSelecting();
+
+        implServChannel.close();
+    }
+
+    /**
+     * One of the fixed pool of threads which read from and write to their {@link NioNetConnection}s
+     * whenever the network is ready.
+     *<P>
+     * Other threads can't safely register channels or change their interest while this thread
+     * is blocked in {@link Selector#select(long)}, so they instead add requests to
+     * {@link #newConns} or {@link #writeConns} and call {@link Selector#wakeup()}.
+     */
+    static final class SelectorThread extends Thread
+    {
+        private final Selector selector;
+
+        /** Newly accepted connections to register for reading */
+        private final ConcurrentLinkedQueue<NioNetConnection> newConns
+            = new ConcurrentLinkedQueue<NioNetConnection>();
+
+        /** Connections which have new output queued; see {@link NioNetConnection#writeRequested} */
+        private final ConcurrentLinkedQueue<NioNetConnection> writeConns
+            = new ConcurrentLinkedQueue<NioNetConnection>();
+
+        /** Scratch array for {@link NioNetConnection#writeAvailable(ByteBuffer[])} */
+        private final ByteBuffer[] gatherScratch = new ByteBuffer[MAX_GATHER_WRITE];
+
+        private volatile boolean selecting = true;
+
+        SelectorThread(final String name)
+            throws IOException
+        {
+            super(name);
+            selector = Selector.open();
+        }
+
+        /** Add a new connection to this thread's selector. Safe to call from any thread. */
+        void register(final NioNetConnection c)
+        {
+            newConns.add(c);
+            selector.wakeup();
+        }
+
+        /** Ask this thread to write a connection's newly queued output. Safe to call from any thread. */
+        void requestWrite(final NioNetConnection c)
+        {
+            writeConns.add(c);
+            selector.wakeup();
+        }
+
+        /** Stop this thread and close all its connections' sockets. */
+        void stopSelecting()
+        {
+            selecting = false;
+            selector.wakeup();
+        }
+
+        public void run()
+        {
+            long nextIdleCheck = System.currentTimeMillis() + IDLE_CHECK_INTERVAL_MS;
+
+            while (selecting)
+            {
+                try
+                {
+                    selector.select(IDLE_CHECK_INTERVAL_MS);
+
+                    for (NioNetConnection c = newConns.poll(); c != null; c = newConns.poll())
+                    {
+                        if (! c.isOpen())
+                            continue;
+                        try
+                        {
+                            c.key = c.chan.register(selector, SelectionKey.OP_READ, c);
+                            write(c);  // anything sent while being added to server, such as version or welcome
+                        } catch (ClosedChannelException e) {
+                            c.handleIOError(e);
+                        }
+                    }
+
+                    for (NioNetConnection c = writeConns.poll(); c != null; c = writeConns.poll())
+                    {
+                        c.writeRequested.set(false);
+                        if (c.key != null)
+                            write(c);
+                        // else, not registered yet: is in newConns or was rejected, write after registering
+                    }
+
+                    Iterator<SelectionKey> iter = selector.selectedKeys().iterator();
+                    while (iter.hasNext())
+                    {
+                        final SelectionKey k = iter.next();
+                        iter.remove();
+                        final NioNetConnection c = (NioNetConnection) k.attachment();
+                        try
+                        {
+                            if (k.isValid() && k.isWritable())
+                                write(c);
+                            if (k.isValid() && k.isReadable())
+                                c.readAvailable();
+                        }
+                        catch (CancelledKeyException e) {}
+                        catch (IOException e)
+                        {
+                            c.handleIOError(e);
+                        }
+                    }
+
+                    final long now = System.currentTimeMillis();
+                    if (now >= nextIdleCheck)
+                    {
+                        nextIdleCheck = now + IDLE_CHECK_INTERVAL_MS;
+                        for (SelectionKey k : selector.keys())
+                            ((NioNetConnection) k.attachment()).checkIdle(now);
+                    }
+                }
+                catch (Exception e)  // for anything thrown by bugs in server code called from readAvailable
+                {
+                    System.out.println("Exception in " + getName() + " - " + e);
+                    e.printStackTrace();
+                }
+            }
+
+            for (SelectionKey k : selector.keys())
+                ((NioNetConnection) k.attachment()).disconnect();
+            try
+            {
+                selector.close();
+            } catch (IOException e) {}
+
+            D.ebugPrintlnINFO(getName() + " stopped");
+        }
+
+        /**
+         * Write all of this connection's queued output that the socket will accept,
+         * and update its interest in {@link SelectionKey#OP_WRITE}.
+         */
+        private void write(final NioNetConnection c)
+        {
+            final SelectionKey k = c.key;
+            if (! k.isValid())
+                return;
+
+            try
+            {
+                final int ops = k.interestOps();
+                if (c.writeAvailable(gatherScratch))
+                {
+                    if (0 != (ops & SelectionKey.OP_WRITE))
+                        k.interestOps(ops & ~SelectionKey.OP_WRITE);
+                } else {
+                    if (0 == (ops & SelectionKey.OP_WRITE))
+                        k.interestOps(ops | SelectionKey.OP_WRITE);
+                }
+            }
+            catch (CancelledKeyException e) {}
+            catch (IOException e)
+            {
+                c.handleIOError(e);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,221 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * This file Copyright (C) 2026 Jeremy D Monin <jeremy@nand.net>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The maintainer of this program can be reached at jsettlers@nand.net
+ **/
+package soc.server.genericServer;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import soc.message.SOCMessageBatch;
+
+/**
+ * Collects the messages a thread sends while treating one game action, such as a dice roll,
+ * to send them to each client as one {@link SOCMessageBatch} frame instead of separately.
+ * That's fewer frames and network packets, and the client can treat the action's messages together.
+ *<P>
+ * Only connections which {@link Connection#isBatchMessagesAccepted()} are batched;
+ * messages to others are sent immediately as usual. Each connection's messages stay in the order they
+ * were sent: A connection's batch is sent when the batch ends, or sooner if it's grown large.
+ * If only one message was sent to a connection during the batch, it's sent by itself, not in a batch.
+ *<P>
+ * Batches are per thread: Messages sent from other threads aren't held, even if they're to the same game.
+ *<P>
+ * Usage:
+ *<pre>
+ *   OutboundMessageBatch.begin(gaName);
+ *   try
+ *   {
+ *       // treat the action, send its messages ...
+ *   } finally {
+ *       OutboundMessageBatch.end();
+ *   }
+ *</pre>
+ * Batches can be nested; messages are held until the outermost one ends.
+ *
+ * @author Jeremy D Monin &lt;jeremy@nand.net&gt;
+ * @since 2.7.00
+ */
+public final class OutboundMessageBatch
+{
+    /**
+     * Maximum total length of a connection's held message frames, in characters.
+     * When exceeded, those messages are sent in a batch right away.
+     * Keeps the batch's frame well under the 65535-byte limit of
+     * {@link java.io.DataOutputStream#writeUTF(String)} even if some characters take 3 bytes.
+     */
+    static final int MAX_BATCH_CHARS = 16000;
+
+    /** This thread's open batch, if any */
+    private static final ThreadLocal<OutboundMessageBatch> current = new ThreadLocal<>();
+
+    /** Name of the game whose action is being batched */
+    private final String gaName;
+
+    /** Each batched connection's held message frames, in the order first sent to */
+    private final Map<Connection, Held> held = new LinkedHashMap<>();
+
+    /** Nesting depth of {@link #begin(String)} calls */
+    private int depth;
+
+    /** If true, this batch is sending held messages and shouldn't capture any more */
+    private boolean isSending;
+
+    private OutboundMessageBatch(final String gaName)
+    {
+        this.gaName = gaName;
+    }
+
+    /**
+     * Start holding this thread's messages to batch-accepting connections, until {@link #end()}.
+     * If this thread already has an open batch, that batch continues until the outermost {@code end()}.
+     * @param gaName  Name of game whose action's messages are being sent
+     */
+    public static void begin(final String gaName)
+    {
+        OutboundMessageBatch b = current.get();
+        if (b == null)
+        {
+            b = new OutboundMessageBatch(gaName);
+            current.set(b);
+        }
+        ++b.depth;
+    }
+
+    /**
+     * End this thread's batch started by {@link #begin(String)}.
+     * If this is the outermost batch, sends all held messages.
+     * Does nothing if no batch is open.
+     */
+    public static void end()
+    {
+        final OutboundMessageBatch b = current.get();
+        if (b == null)
+            return;
+
+        --b.depth;
+        if (b.depth > 0)
+            return;
+
+        current.remove();
+        b.isSending = true;
+        for (final Map.Entry<Connection, Held> e : b.held.entrySet())
+            b.send(e.getKey(), e.getValue());
+        b.held.clear();
+    }
+
+    /**
+     * Does this thread have an open batch?
+     * @return true if {@link #begin(String)} has been called without its {@link #end()}
+     */
+    public static boolean isOpen()
+    {
+        return (current.get() != null);
+    }
+
+    /**
+     * If this thread has an open batch, hold a message frame to send when the batch ends.
+     * Called from each {@link Connection#put(String)} implementation if {@link Connection#isBatchMessagesAccepted()}.
+     * @param c  Connection the frame is being sent to
+     * @param frame  Frame being sent
+     * @return  true if frame was held and caller shouldn't send it now,
+     *     false if caller should send it now as usual
+     */
+    static boolean capture(final Connection c, final String frame)
+    {
+        final OutboundMessageBatch b = current.get();
+        if ((b == null) || b.isSending)
+            return false;
+
+        Held h = b.held.get(c);
+        if (h == null)
+        {
+            h = new Held();
+            b.held.put(c, h);
+        }
+
+        final int len = frame.length();
+        if ((h.chars > 0) && (h.chars + len > MAX_BATCH_CHARS))
+            b.sendNow(c, h);  // keep frame under size limit
+        if (len > MAX_BATCH_CHARS)
+        {
+            // too large to batch; send after any held messages, to keep their order
+            b.isSending = true;
+            try
+            {
+                c.put(frame);
+            } finally {
+                b.isSending = false;
+            }
+
+            return true;
+        }
+
+        h.frames.add(frame);
+        h.chars += len;
+
+        return true;
+    }
+
+    /**
+     * While batch is still open, send a connection's held messages right away and empty its list.
+     * @param c  Connection to send to
+     * @param h  Its held messages; not empty
+     */
+    private void sendNow(final Connection c, final Held h)
+    {
+        isSending = true;
+        try
+        {
+            send(c, h);
+        } finally {
+            isSending = false;
+        }
+
+        h.frames = new ArrayList<>();
+        h.chars = 0;
+    }
+
+    /**
+     * Send a connection's held messages: As a {@link SOCMessageBatch} if more than one, otherwise by itself.
+     * Caller must set {@link #isSending} first.
+     * @param c  Connection to send to
+     * @param h  Its held messages; may be empty
+     */
+    private void send(final Connection c, final Held h)
+    {
+        final int n = h.frames.size();
+        if (n == 1)
+            c.put(h.frames.get(0));
+        else if (n > 1)
+            c.put(new SOCMessageBatch(gaName, h.frames));
+    }
+
+    /** A connection's held message frames. */
+    private static final class Held
+    {
+        /** Message frames, in order sent */
+        List<String> frames = new ArrayList<>();
+
+        /** Total length of {@link #frames} */
+        int chars;
+    }
+
+}
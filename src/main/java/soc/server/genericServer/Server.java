@@ -1,7 +1,7 @@
 /**
  * Java Settlers - An online multiplayer version of the game Settlers of Catan
  * Copyright (C) 2003  Robert S. Thomas <thomas@infolab.northwestern.edu>
- * Portions of this file Copyright (C) 2007-2018,2020-2025 Jeremy D Monin <jeremy@nand.net>
+ * Portions of this file Copyright (C) 2007-2018,2020-2026 Jeremy D Monin <jeremy@nand.net>
  * Portions of this file Copyright (C) 2012 Paul Bilnoski <paul@bilnoski.net> - parameterize types, removeConnection bugfix
  * Portions of this file Copyright (C) 2016 Alessandro D'Ottavio
  *
@@ -53,7 +53,8 @@ import soc.server.SOCServer;
  *  Newly connecting clients arrive in {@link #run()},
  *  start a thread for the server side of their {@link NetConnection} or {@link StringConnection},
  *  and are integrated into server data via {@link #addConnection(Connection)}
- *  called from that thread.  If the client's connection is accepted in
+ *  called from that thread. If {@link #PROP_JSETTLERS_NET_NIO} is set, TCP clients instead get a
+ *  {@link NioNetConnection} serviced by a small fixed pool of selector threads.  If the client's connection is accepted in
  *  {@link #newConnection1(Connection)}, the per-client thread enters a while-loop and
  *  will place each inbound message into a server-wide {@link #inQueue},
  *  which is processed in a server-wide single thread called the "treater".
@@ -191,6 +192,7 @@ public abstract class Server extends Thread implements Serializable, Cloneable
     /**
      * The queue of messages received from all clients to dispatch, and/or Runnable tasks to run, in the
      * {@code Treater} thread which calls {@link Server.InboundMessageDispatcher#dispatch(SOCMessage, Connection)}.
+     * Can dispatch in parallel: See {@link #PROP_JSETTLERS_DISPATCH_THREADS}.
      *<P>
      * Before v2.0.00, this was a {@link Vector}.
      */
@@ -271,6 +273,81 @@ public abstract class Server extends Thread implements Serializable, Cloneable
      */
     public static int CLI_CONN_PRINT_TIMER_FIRE_MS = 1000;
 
+    /**
+     * Boolean property {@code jsettlers.net.nio} to use non-blocking {@link NioNetConnection}s
+     * serviced by a small fixed pool of selector threads, instead of {@link NetConnection}'s
+     * 2 threads per connected client. The network protocol is the same either way.
+     * Default is false (N). Ignored in Practice mode (local {@link StringConnection}s).
+     * @see #PROP_JSETTLERS_NET_NIO_THREADS
+     * @since 2.7.00
+     */
+    public static final String PROP_JSETTLERS_NET_NIO = "jsettlers.net.nio";
+
+    /**
+     * Integer property {@code jsettlers.net.nio.threads}: If {@link #PROP_JSETTLERS_NET_NIO} is set,
+     * the number of selector threads which read and write all clients' network traffic.
+     * Default is the number of available processors, but no more than 4.
+     * @since 2.7.00
+     */
+    public static final String PROP_JSETTLERS_NET_NIO_THREADS = "jsettlers.net.nio.threads";
+
+    /**
+     * Boolean property {@code jsettlers.net.binary}: If a client's features include
+     * {@link soc.util.SOCFeatureSet#CLIENT_BINARY_MESSAGES}, send it the compact binary encoding
+     * ({@link soc.message.SOCMessage#toBinaryCmd()}) of message types which have one,
+     * instead of their text from {@link soc.message.SOCMessage#toCmd()}.
+     * Other clients always get text. Default is true (Y).
+     * @see Connection#setBinaryMessagesAccepted(boolean)
+     * @since 2.7.00
+     */
+    public static final String PROP_JSETTLERS_NET_BINARY = "jsettlers.net.binary";
+
+    /**
+     * Boolean property {@code jsettlers.net.batch}: If a client's features include
+     * {@link soc.util.SOCFeatureSet#CLIENT_MESSAGE_BATCH}, send it each game action's messages together
+     * in one {@link soc.message.SOCMessageBatch}; see {@link OutboundMessageBatch}.
+     * Other clients always get separate messages. Default is true (Y).
+     * Batches are binary frames, so they're sent only to clients which are also sent binary messages:
+     * See {@link #PROP_JSETTLERS_NET_BINARY}.
+     * @see Connection#setBatchMessagesAccepted(boolean)
+     * @since 2.7.00
+     */
+    public static final String PROP_JSETTLERS_NET_BATCH = "jsettlers.net.batch";
+
+    /**
+     * Integer property {@code jsettlers.dispatch.threads}: Number of threads for {@link #inQueue}
+     * to dispatch inbound client messages in parallel. Each game's messages are always treated in order
+     * on one thread, and each client's messages are treated in the order received;
+     * see {@link InboundMessageQueue} class javadoc for details.
+     * Default is 1, a single thread to treat all messages.
+     * @since 2.7.00
+     */
+    public static final String PROP_JSETTLERS_DISPATCH_THREADS = "jsettlers.dispatch.threads";
+
+    /**
+     * Integer property {@code jsettlers.net.outqueue.max}: High-water mark for the number of messages
+     * waiting to be sent to a TCP client. If a slow client's outbound queue reaches this size,
+     * the server disconnects it instead of letting the queue grow without limit.
+     * Default is {@link #OUTQUEUE_LIMIT_DEFAULT}; 0 or less means no limit.
+     * @see #outQueueLimit
+     * @since 2.7.00
+     */
+    public static final String PROP_JSETTLERS_NET_OUTQUEUE_MAX = "jsettlers.net.outqueue.max";
+
+    /**
+     * Default for {@link #PROP_JSETTLERS_NET_OUTQUEUE_MAX}: 20000 messages, far more than
+     * any game action or joining a game's board and game state data would send to one client.
+     * @since 2.7.00
+     */
+    public static final int OUTQUEUE_LIMIT_DEFAULT = 20000;
+
+    /**
+     * Each TCP client's outbound queue limit from {@link #PROP_JSETTLERS_NET_OUTQUEUE_MAX},
+     * or 0 for no limit. Read from properties by the constructor.
+     * @since 2.7.00
+     */
+    final int outQueueLimit;
+
     /**
      * a Server which will start listening to the given TCP port.
      * @param port  TCP port to bind to
@@ -289,11 +366,12 @@ public abstract class Server extends Thread implements Serializable, Cloneable
         this.port = port;
         this.strSocketName = null;
         this.inboundMsgDispatcher = imd;
-        this.inQueue = new InboundMessageQueue(imd);
+        this.inQueue = new InboundMessageQueue(imd, getConfigIntProperty(PROP_JSETTLERS_DISPATCH_THREADS, 1));
+        this.outQueueLimit = Math.max(0, getConfigIntProperty(PROP_JSETTLERS_NET_OUTQUEUE_MAX, OUTQUEUE_LIMIT_DEFAULT));
 
         try
         {
-            ss = new NetServerSocket(port, this);
+            ss = openNetServerSocket();
         }
         catch (IOException e)
         {
@@ -329,7 +407,8 @@ public abstract class Server extends Thread implements Serializable, Cloneable
         this.port = -1;
         this.strSocketName = stringSocketName;
         this.inboundMsgDispatcher = imd;
-        this.inQueue = new InboundMessageQueue(imd);
+        this.inQueue = new InboundMessageQueue(imd, getConfigIntProperty(PROP_JSETTLERS_DISPATCH_THREADS, 1));
+        this.outQueueLimit = 0;  // not used by StringConnections
 
         ss = new StringServerSocket(stringSocketName);
         setName("server-localstring-" + stringSocketName);  // Thread name for debugging
@@ -339,6 +418,24 @@ public abstract class Server extends Thread implements Serializable, Cloneable
         // Most other fields are set by initializers in their declaration.
     }
 
+    /**
+     * Open our TCP server socket on {@link #port}: A {@link NioNetServerSocket}
+     * if {@link #PROP_JSETTLERS_NET_NIO} is set, otherwise a {@link NetServerSocket}.
+     * @return the new server socket
+     * @throws IOException if can't bind to the port
+     * @since 2.7.00
+     */
+    private SOCServerSocket openNetServerSocket()
+        throws IOException
+    {
+        if (getConfigBoolProperty(PROP_JSETTLERS_NET_NIO, false))
+            return new NioNetServerSocket
+                (port, this, getConfigIntProperty
+                    (PROP_JSETTLERS_NET_NIO_THREADS, Math.min(4, Runtime.getRuntime().availableProcessors())));
+        else
+            return new NetServerSocket(port, this);
+    }
+
     /**
      * Minor init tasks from both constructors.
      * Set up the recurring schedule of {@link #cliVersionsConnected} here.
@@ -564,7 +661,11 @@ public abstract class Server extends Thread implements Serializable, Cloneable
                     // Currently it's limited in SOCServer.newConnection1 by checking connectionCount()
                     // which is more modular.
                     Connection connection = ss.accept();
-                    if (port != -1)
+                    if (connection instanceof NioNetConnection)
+                    {
+                        connection.run();  // adds to server, hands off to its selector thread, returns
+                    }
+                    else if (port != -1)
                     {
                         new Thread((NetConnection) connection).start();
                     }
@@ -596,7 +697,7 @@ public abstract class Server extends Thread implements Serializable, Cloneable
                 {
                     // retry
                     if (strSocketName == null)
-                        ss = new NetServerSocket(port, this);
+                        ss = openNetServerSocket();
                     else
                         ss = new StringServerSocket(strSocketName);
                 }
@@ -1371,7 +1472,9 @@ public abstract class Server extends Thread implements Serializable, Cloneable
         /**
          * Remove a queued incoming message from a client, and treat it.
          * Messages of unknown type are ignored.
-         * Called from the single 'treater' thread of {@link InboundMessageQueue}.
+         * Called from the single 'treater' thread of {@link InboundMessageQueue},
+         * or if {@link Server#PROP_JSETTLERS_DISPATCH_THREADS} &gt; 1, from one of its treater threads:
+         * Then messages for different games may be dispatched at the same time.
          *<P>
          * <em>Do not block or sleep</em> because this is single-threaded.
          * Any slow or lengthy work for a message should be done on other threads.
@@ -1,6 +1,6 @@
 /**
  * Local (StringConnection) network system.
- * This file Copyright (C) 2007-2010,2012-2013,2016-2017,2020,2022 Jeremy D Monin <jeremy@nand.net>
+ * This file Copyright (C) 2007-2010,2012-2013,2016-2017,2020,2022,2026 Jeremy D Monin <jeremy@nand.net>
  * Portions of this file Copyright (C) 2012 Paul Bilnoski <paul@bilnoski.net>
  * Portions of this file Copyright (C) 2016 Alessandro D'Ottavio
  *
@@ -218,6 +218,9 @@ public class StringConnection
         if (dat == null)
             throw new IllegalArgumentException("null");
 
+        if (isBatchMessagesAccepted() && OutboundMessageBatch.capture(this, dat))
+            return;  // will send when batch ends
+
         if (! (accepted || (data != null)))
         {
             // accepted is false before server accepts connection,
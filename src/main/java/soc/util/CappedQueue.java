@@ -2,7 +2,7 @@
  * Java Settlers - An online multiplayer version of the game Settlers of Catan
  * Copyright (C) 2003  Robert S. Thomas <thomas@infolab.northwestern.edu>
  * Portions of this file Copyright (C) 2012 Paul Bilnoski <paul@bilnoski.net>
- * Portions of this file Copyright (C) 2016 Jeremy D Monin <jeremy@nand.net>
+ * Portions of this file Copyright (C) 2016,2026 Jeremy D Monin <jeremy@nand.net>
  *
  * This program is free software; you can redistribute it and/or
  * modify it under the terms of the GNU General Public License
@@ -21,17 +21,40 @@
  **/
 package soc.util;
 
-import java.util.Vector;
+import java.util.ArrayDeque;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
 
 /**
  * Synchronized queue with a size limit, set in the constructor.
  * Once the limit is reached, further {@link #put(Object)} calls throw {@link CutoffExceededException}.
+ *<P>
+ * Since v2.7.00 the queue uses a {@link ReentrantLock} instead of {@code synchronized} and {@code wait()},
+ * so a {@link VirtualThreads virtual thread} waiting in {@link #get()} doesn't pin its carrier thread.
  */
 public class CappedQueue<T>
 {
-    /** Internal storage for the queue'd objects */
-    private Vector<T> vec = new Vector<T>();
+    /** Internal storage for the queue'd objects; may contain nulls. Access only while holding {@link #lock}. */
+    private final ArrayDeque<Object> q = new ArrayDeque<>();
+
+    /**
+     * Placeholder for null items in {@link #q}, since {@link ArrayDeque} doesn't allow null.
+     * @since 2.7.00
+     */
+    private static final Object NULL_ITEM = new Object();
+
+    /**
+     * Lock for {@link #q}.
+     * @since 2.7.00
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * Signaled by {@link #put(Object)} when an item is added.
+     * @since 2.7.00
+     */
+    private final Condition notEmpty = lock.newCondition();
 
     /** The max size for this queue */
     private final int sizeLimit;
@@ -57,70 +80,73 @@ public class CappedQueue<T>
     /**
      * Add an item to the end of the queue.
      *
-     * @param o Object to add
+     * @param o Object to add; may be null
      *
      * @throws CutoffExceededException if queue's new size (including the put object)
      *     exceeds the limit given to its constructor
      */
-    synchronized public void put(T o) throws CutoffExceededException
+    public void put(T o) throws CutoffExceededException
     {
-        //D.ebugPrintln(">put-> "+o);
-        // Add the element
-        vec.addElement(o);
+        final int size;
 
-        // There might be threads waiting for the new object --
-        // give them a chance to get it
-        notifyAll();
+        lock.lock();
+        try
+        {
+            q.addLast((o != null) ? o : NULL_ITEM);
+            size = q.size();
 
-        if (vec.size() == sizeLimit)
+            // There might be threads waiting for the new object --
+            // give them a chance to get it
+            notEmpty.signalAll();
+        } finally {
+            lock.unlock();
+        }
+
+        if (size == sizeLimit)
         {
             throw new CutoffExceededException("CappedQueue sizeLimit exceeded");
         }
     }
 
     /**
-     * DOCUMENT ME!
+     * Remove and return the item at the front of the queue.
+     * If the queue is empty, waits until an item is {@link #put(Object)}.
      *
-     * @return DOCUMENT ME!
+     * @return the item, which may be null if null was put
      */
-    synchronized public T get()
+    @SuppressWarnings("unchecked")
+    public T get()
     {
-        while (true)
+        lock.lock();
+        try
         {
-            if (vec.size() > 0)
+            while (q.isEmpty())
             {
-                // There's an available object!
-                T o = vec.elementAt(0);
-
-                //D.ebugPrintln("<-get< "+o);
-                // Remove it from our internal list, so someone else
-                // doesn't get it.
-                vec.removeElementAt(0);
-
-                // Return the object
-                return o;
-            }
-            else
-            {
-                // There aren't any objects available.  Do a wait(),
-                // and when we wake up, check again to see if there
-                // are any.
-                try
-                {
-                    wait();
-                }
-                catch (InterruptedException ie) {}
+                // There aren't any objects available. Wait,
+                // and when we wake up, check again to see if there are any.
+                notEmpty.awaitUninterruptibly();
             }
+
+            final Object o = q.removeFirst();
+            return (o != NULL_ITEM) ? (T) o : null;
+        } finally {
+            lock.unlock();
         }
     }
 
     /**
-     * DOCUMENT ME!
+     * Is the queue empty?
      *
-     * @return DOCUMENT ME!
+     * @return true if queue has no items
      */
-    synchronized public boolean empty()
+    public boolean empty()
     {
-        return vec.isEmpty();
+        lock.lock();
+        try
+        {
+            return q.isEmpty();
+        } finally {
+            lock.unlock();
+        }
     }
 }
@@ -0,0 +1,388 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * This file Copyright (C) 2026 Jeremy D Monin <jeremy@nand.net>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The maintainer of this program can be reached at jsettlers@nand.net
+ **/
+package soc.util;
+
+import java.io.Serializable;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.IntConsumer;
+
+/**
+ * A set of small non-negative ints such as board coordinates, stored as a bitset.
+ * Used by {@link soc.game.SOCPlayer} for its legal and potential piece locations.
+ *<P>
+ * Besides the usual {@link java.util.Set} methods, which box their elements to {@link Integer},
+ * has int methods {@link #contains(int)}, {@link #add(int)}, and {@link #remove(int)}, and can be iterated
+ * without allocating objects with {@link #nextSetBit(int)} or {@link #forEachInt(IntConsumer)}.
+ * Iteration is in ascending order.
+ *<P>
+ * {@link #copy()} is O(1): The copy shares this set's bits until either set is changed,
+ * which then copies them (copy-on-write).
+ *<P>
+ * Not thread-safe, like {@link java.util.HashSet}.
+ * Memory used is proportional to the largest element ever added, not to the number of elements.
+ *
+ * @author Jeremy D Monin &lt;jeremy@nand.net&gt;
+ * @since 2.7.00
+ */
+public class IntBitSet extends AbstractSet<Integer>
+    implements Serializable
+{
+    private static final long serialVersionUID = 2700L;
+
+    private static final long[] NO_WORDS = new long[0];
+
+    /**
+     * The bits; bit {@code i % 64} of {@code words[i / 64]} is set if {@code i} is in the set.
+     * May be shared with other sets if {@link #shared}.
+     */
+    private long[] words;
+
+    /**
+     * If true, {@link #words} may be shared with another set by {@link #copy()},
+     * and must be copied before changing any bit.
+     * Not transient: Serialization keeps sharing the same array, so this must be kept too.
+     */
+    private boolean shared;
+
+    /** Number of elements (set bits). */
+    private int size;
+
+    /** Number of changes made, for iterators to detect concurrent modification. */
+    private transient int modCount;
+
+    /**
+     * Create a new empty set.
+     */
+    public IntBitSet()
+    {
+        words = NO_WORDS;
+    }
+
+    /**
+     * Create a new set containing the elements of a collection.
+     * If {@code c} is an {@code IntBitSet}, prefer {@link #copy()}.
+     * @param c  Collection to copy; not null, elements must not be null or negative
+     * @throws IllegalArgumentException if any element of {@code c} is negative
+     * @throws NullPointerException if {@code c} or any element is null
+     */
+    public IntBitSet(final Collection<Integer> c)
+        throws IllegalArgumentException, NullPointerException
+    {
+        words = NO_WORDS;
+        addAll(c);
+    }
+
+    /**
+     * Make a copy of this set in O(1) time. The copy initially shares this set's bits;
+     * the first change to either set will copy them.
+     * @return a new set with the same elements as this one
+     */
+    public IntBitSet copy()
+    {
+        final IntBitSet c = new IntBitSet();
+        if (size > 0)
+        {
+            shared = true;
+            c.words = words;
+            c.shared = true;
+            c.size = size;
+        }
+
+        return c;
+    }
+
+    /**
+     * Prepare to change bits in {@link #words}: Copy it if {@link #shared}, and grow it if needed.
+     * @param minWords  Minimum length needed
+     */
+    private void beforeWrite(final int minWords)
+    {
+        if (shared || (words.length < minWords))
+        {
+            int len = words.length;
+            if (len < minWords)
+                len = Math.max(minWords, 2 * len);
+            words = Arrays.copyOf(words, len);
+            shared = false;
+        }
+    }
+
+    /**
+     * Is this int in the set?
+     * @param i  Int to check; may be negative, which is never in the set
+     * @return true if {@code i} is in the set
+     */
+    public boolean contains(final int i)
+    {
+        if (i < 0)
+            return false;
+
+        final int w = i >>> 6;
+        return (w < words.length) && ((words[w] & (1L << i)) != 0);
+    }
+
+    /**
+     * Add an int to the set.
+     * @param i  Int to add; not negative
+     * @return true if the set didn't already contain {@code i}
+     * @throws IllegalArgumentException if {@code i} &lt; 0
+     */
+    public boolean add(final int i)
+        throws IllegalArgumentException
+    {
+        if (i < 0)
+            throw new IllegalArgumentException("negative: " + i);
+        if (contains(i))
+            return false;
+
+        beforeWrite((i >>> 6) + 1);
+        words[i >>> 6] |= (1L << i);
+        ++size;
+        ++modCount;
+
+        return true;
+    }
+
+    /**
+     * Remove an int from the set, if present.
+     * @param i  Int to remove; may be negative, which is never in the set
+     * @return true if the set contained {@code i}
+     */
+    public boolean remove(final int i)
+    {
+        if (! contains(i))
+            return false;
+
+        beforeWrite(0);
+        words[i >>> 6] &= ~(1L << i);
+        --size;
+        ++modCount;
+
+        return true;
+    }
+
+    /**
+     * Get the smallest element in the set which is &gt;= {@code from}.
+     * To iterate without allocating:
+     * {@code for (int i = s.nextSetBit(0); i >= 0; i = s.nextSetBit(i + 1))}
+     * @param from  Int to start searching from; not negative
+     * @return the next element, or -1 if none
+     */
+    public int nextSetBit(final int from)
+    {
+        int w = from >>> 6;
+        if (w >= words.length)
+            return -1;
+
+        long bits = words[w] & (-1L << from);
+        while (bits == 0)
+        {
+            ++w;
+            if (w >= words.length)
+                return -1;
+            bits = words[w];
+        }
+
+        return (w << 6) + Long.numberOfTrailingZeros(bits);
+    }
+
+    /**
+     * Call an action for each element of the set, in ascending order, without boxing.
+     * The action must not change this set.
+     * @param action  Action to call
+     */
+    public void forEachInt(final IntConsumer action)
+    {
+        for (int w = 0; w < words.length; ++w)
+        {
+            long bits = words[w];
+            while (bits != 0)
+            {
+                action.accept((w << 6) + Long.numberOfTrailingZeros(bits));
+                bits &= (bits - 1);
+            }
+        }
+    }
+
+    /**
+     * Get the set's elements as an array.
+     * @return the elements in ascending order; may be empty but not null
+     */
+    public int[] toIntArray()
+    {
+        final int[] arr = new int[size];
+        int n = 0;
+        for (int i = nextSetBit(0); i >= 0; i = nextSetBit(i + 1))
+            arr[n++] = i;
+
+        return arr;
+    }
+
+    @Override
+    public int size()
+    {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty()
+    {
+        return (size == 0);
+    }
+
+    @Override
+    public boolean contains(final Object o)
+    {
+        return (o instanceof Integer) && contains(((Integer) o).intValue());
+    }
+
+    /**
+     * {@inheritDoc}
+     * @throws IllegalArgumentException if {@code i} &lt; 0
+     * @throws NullPointerException if {@code i} is null
+     */
+    @Override
+    public boolean add(final Integer i)
+        throws IllegalArgumentException, NullPointerException
+    {
+        return add(i.intValue());
+    }
+
+    @Override
+    public boolean remove(final Object o)
+    {
+        return (o instanceof Integer) && remove(((Integer) o).intValue());
+    }
+
+    /**
+     * {@inheritDoc}
+     *<P>
+     * If {@code c} is an {@code IntBitSet}, adds its bits without boxing.
+     * @throws IllegalArgumentException if any element of {@code c} is negative
+     */
+    @Override
+    public boolean addAll(final Collection<? extends Integer> c)
+        throws IllegalArgumentException
+    {
+        if (! (c instanceof IntBitSet))
+            return super.addAll(c);
+
+        final IntBitSet other = (IntBitSet) c;
+        if (other.size == 0)
+            return false;
+        if (size == 0)
+        {
+            final IntBitSet cp = other.copy();
+            words = cp.words;
+            shared = true;
+            size = cp.size;
+            ++modCount;
+            return true;
+        }
+
+        int last = other.words.length - 1;
+        while (other.words[last] == 0)
+            --last;
+        beforeWrite(last + 1);
+        int n = 0;
+        for (int w = 0; w <= last; ++w)
+        {
+            words[w] |= other.words[w];
+            n += Long.bitCount(words[w]);
+        }
+        for (int w = last + 1; w < words.length; ++w)
+            n += Long.bitCount(words[w]);
+
+        final boolean changed = (n != size);
+        size = n;
+        if (changed)
+            ++modCount;
+
+        return changed;
+    }
+
+    @Override
+    public void clear()
+    {
+        if (size == 0)
+            return;
+
+        if (shared)
+        {
+            words = NO_WORDS;
+            shared = false;
+        } else {
+            Arrays.fill(words, 0L);
+        }
+        size = 0;
+        ++modCount;
+    }
+
+    /**
+     * {@inheritDoc}
+     *<P>
+     * Iterates in ascending order; boxes each element. To avoid that, use {@link #nextSetBit(int)}
+     * or {@link #forEachInt(IntConsumer)} instead. The iterator supports {@link Iterator#remove()}.
+     */
+    @Override
+    public Iterator<Integer> iterator()
+    {
+        return new Iterator<Integer>()
+        {
+            private int next = nextSetBit(0), prev = -1, expectedModCount = modCount;
+
+            public boolean hasNext()
+            {
+                return (next >= 0);
+            }
+
+            public Integer next()
+            {
+                if (modCount != expectedModCount)
+                    throw new ConcurrentModificationException();
+                if (next < 0)
+                    throw new NoSuchElementException();
+
+                prev = next;
+                next = nextSetBit(next + 1);
+
+                return Integer.valueOf(prev);
+            }
+
+            public void remove()
+            {
+                if (prev < 0)
+                    throw new IllegalStateException();
+                if (modCount != expectedModCount)
+                    throw new ConcurrentModificationException();
+
+                IntBitSet.this.remove(prev);
+                prev = -1;
+                expectedModCount = modCount;
+            }
+        };
+    }
+
+}
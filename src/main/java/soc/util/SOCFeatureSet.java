@@ -1,6 +1,6 @@
 /**
  * Java Settlers - An online multiplayer version of the game Settlers of Catan
- * This file Copyright (C) 2014-2021 Jeremy D Monin <jeremy@nand.net>
+ * This file Copyright (C) 2014-2021,2026 Jeremy D Monin <jeremy@nand.net>
  *
  * This program is free software; you can redistribute it and/or
  * modify it under the terms of the GNU General Public License
@@ -148,6 +148,32 @@ public class SOCFeatureSet
      */
     public static final String CLIENT_SCENARIO_VERSION = "sc";
 
+    /**
+     * Client feature flag for compact binary message format.
+     * If set, server can send this client frequent or large message types
+     * in the format from {@link soc.message.SOCMessage#toBinaryCmd()} instead of {@code toCmd()}.
+     * Messages from the client to server are still sent in {@code toCmd()} format.
+     *<P>
+     * Server may be configured not to use binary format;
+     * see {@link soc.server.genericServer.Server#PROP_JSETTLERS_NET_BINARY}.
+     * @since 2.7.00
+     */
+    public static final String CLIENT_BINARY_MESSAGES = "bin";
+
+    /**
+     * Client feature flag for message batches.
+     * If set, server can send this client a {@link soc.message.SOCMessageBatch} holding
+     * several messages about one game action, instead of sending them separately.
+     * Client must treat the batch's contained messages in order.
+     *<P>
+     * Batches are binary frames: Server sends them only if it's also sending binary messages
+     * to this client ({@link #CLIENT_BINARY_MESSAGES}).
+     * Server may be configured not to use batches;
+     * see {@link soc.server.genericServer.Server#PROP_JSETTLERS_NET_BATCH}.
+     * @since 2.7.00
+     */
+    public static final String CLIENT_MESSAGE_BATCH = "batch";
+
     /**
      * Separator character ';' between features in {@link #featureList}.
      * Chosen to avoid the {@code sep_char} and {@code sep2_char} separators defined in {@code SOCMessage}.
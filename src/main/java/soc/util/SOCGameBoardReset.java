@@ -1,6 +1,6 @@
 /**
  * Java Settlers - An online multiplayer version of the game Settlers of Catan
- * This file Copyright (C) 2008-2010,2016-2021 Jeremy D Monin <jeremy@nand.net>
+ * This file Copyright (C) 2008-2010,2016-2021,2026 Jeremy D Monin <jeremy@nand.net>
  * Portions of this file Copyright (C) 2012 Paul Bilnoski <paul@bilnoski.net>
  *
  * This program is free software; you can redistribute it and/or
@@ -20,8 +20,7 @@
  **/
 package soc.util;
 
-import java.util.Enumeration;
-import java.util.Vector;
+import java.util.List;
 
 import soc.debug.D;
 import soc.game.SOCGame;
@@ -90,7 +89,6 @@ public class SOCGameBoardReset
     public boolean[] wasRobot;
 
     /** Create a SOCGameReset: Extract data, reset the old game, and gather new data.
-     *  Adjust game member list to remove robots.
      *  If there were robots, the <b>new</b> game's state is set to
      *  {@link SOCGame#READY_RESET_WAIT_ROBOT_DISMISS}.
      *
@@ -98,9 +96,11 @@ public class SOCGameBoardReset
      *   will be called.  The old game's state will be changed to RESET_OLD.
      * @param memberConns Game members (Connections),
      *   as retrieved by {@link soc.server.SOCGameListAtServer#getMembers(String)}.
-     *   Contents of this vector will be changed to remove any robot members.
+     *   Not changed here: Before v2.7.00 any robot members were removed from this list,
+     *   but that's now done by {@code SOCGameListAtServer.resetBoard}
+     *   to update the member list under its lock.
      */
-    public SOCGameBoardReset (SOCGame oldGame, Vector<Connection> memberConns)
+    public SOCGameBoardReset (SOCGame oldGame, List<Connection> memberConns)
     {
         oldGameState = oldGame.getGameState();
         oldRobotCount = 0;
@@ -129,7 +129,7 @@ public class SOCGameBoardReset
         newGame = oldGame.resetAsCopy();   // TODO assert: verify maxPlayers is same for old,new
 
         /**
-         * Gather connection information, cleanup member list
+         * Gather connection information
          */
         humanConns = new Connection[oldGame.maxPlayers];
         robotConns = new Connection[oldGame.maxPlayers];
@@ -139,13 +139,6 @@ public class SOCGameBoardReset
             // memberConns is from _old_ game, so robots are included.
             // Robots aren't copied to the new game, and must re-join.
             sortPlayerConnections(newGame, oldGame, memberConns, humanConns, robotConns);
-
-            // Remove robots from list of game members
-            for (int pn = 0; pn < oldGame.maxPlayers; ++pn)
-            {
-                if (wasRobot[pn])
-                    memberConns.remove(robotConns[pn]);
-            }
         }
 
         if (hadRobots)
@@ -229,7 +222,7 @@ public class SOCGameBoardReset
      * @param newGame New game (if resetting), or only game
      * @param oldGame Old game (if resetting), or null
      * @param memberConns Members of old game, from {@link soc.server.SOCGameListAtServer#getMembers(String)};
-     *                   a Vector of {@link Connection}s
+     *                   a List of {@link Connection}s
      * @param humanConns New array to fill with human players; indexed 0 to SOCGame.MAXPLAYERS-1.
      *                   humanConns[pn] will be the human player at position pn, or null.
      * @param robotConns New array to fill with robot players; indexed 0 to SOCGame.MAXPLAYERS-1.
@@ -238,16 +231,12 @@ public class SOCGameBoardReset
      * @return The number of human players in newGame
      */
     public static int sortPlayerConnections
-    (SOCGame newGame, SOCGame oldGame, Vector<Connection> memberConns,
+    (SOCGame newGame, SOCGame oldGame, List<Connection> memberConns,
      Connection[] humanConns, Connection[] robotConns)
     {
         int numHuman = 0;
-        Enumeration<Connection> playersEnum = memberConns.elements();
-        while (playersEnum.hasMoreElements())
-        {
-            final Connection pCon = playersEnum.nextElement();
+        for (final Connection pCon : memberConns)
             numHuman += sortPlayerConnection(newGame, oldGame, pCon, humanConns, robotConns);
-        }
     
         validatePlayerConnections(newGame, oldGame, humanConns, robotConns);
     
@@ -27,9 +27,9 @@ import soc.game.SOCGameOption;
 import soc.game.SOCGameOptionSet;
 import soc.message.SOCGames;
 
-import java.util.Hashtable;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 
 
@@ -50,6 +50,11 @@ import java.util.regex.Pattern;
  * and not stored as part of the game name in this list.
  * Except to {@code addGame}, never supply this prefix to a SOCGameList method taking a game name;
  * supply the game name without the prefix.
+ *<P>
+ * <B>Locking:</B> Lookups like {@link #isGame(String)} and {@link #getGameOptions(String)} don't lock;
+ * the list is a concurrent map. Adding and deleting games are synchronized on this list,
+ * which is also the lock used by {@link #takeMonitor()}. Each game's own monitor,
+ * {@link #takeMonitorForGame(String)}, is independent of the list monitor and of other games'.
  *
  * @author Robert S. Thomas
  */
@@ -85,10 +90,13 @@ public class SOCGameList
     /**
      * Info about every game in this {@code SOCGameList}.
      * key = String, value = {@link GameInfo}; includes mutexes to synchronize game state access,
-     * game options, and other per-game info
+     * game options, and other per-game info.
+     *<P>
+     * Before v2.7.00 this was a {@code Hashtable}, whose every lookup locked the entire map;
+     * now is a {@link ConcurrentHashMap}, so looking up one game doesn't wait for another.
      * @see soc.server.SOCGameListAtServer#gameData
      */
-    protected Hashtable<String, GameInfo> gameInfo;
+    protected final Map<String, GameInfo> gameInfo;
 
     /**
      * All Known Options for the server hosting these games.
@@ -106,13 +114,17 @@ public class SOCGameList
      */
     public SOCGameList(final SOCGameOptionSet knownOpts)
     {
-        gameInfo = new Hashtable<String, GameInfo>();
+        gameInfo = new ConcurrentHashMap<String, GameInfo>();
         this.knownOpts = knownOpts;
         inUse = false;
     }
 
     /**
      * take the monitor for this game list; if we must wait, sleep up to 1000 ms between attempts.
+     *<P>
+     * Only needed while creating or deleting games, or for actions which must see
+     * a consistent set of games. Not needed for per-game actions, which should use
+     * {@link #takeMonitorForGame(String)} instead.
      */
     public synchronized void takeMonitor()
     {
@@ -155,54 +167,46 @@ public class SOCGameList
     {
         // D.ebugPrintln("SOCGameList : TAKE MONITOR FOR " + game);
 
-        GameInfo info = gameInfo.get(game);
+        final GameInfo info = gameInfo.get(game);
         if ((info == null) || info.gameDestroyed)
         {
             return false;
         }
-        MutexFlag mutex = info.mutex;
+        final MutexFlag mutex = info.mutex;
 
         if (mutex == null)
         {
             return false;
         }
 
-        boolean done = false;
-
-        while (! done)
+        synchronized (mutex)
         {
-            if (mutex == null)
-            {
-                return false;
-            }
-            if (info.gameDestroyed)
+            // Since v2.7.00, state is checked and set while holding the mutex,
+            // so 2 threads can't both see it's free and both take it
+            while (mutex.getState())
             {
-                // Debug print is JM temp add: (TODO)
-                soc.debug.D.ebugPrintStackTrace(null, "Game " + game + " was destroyed while waiting");
-                return false;
-            }
+                if (info.gameDestroyed)
+                {
+                    // Debug print is JM temp add: (TODO)
+                    soc.debug.D.ebugPrintStackTrace(null, "Game " + game + " was destroyed while waiting");
+                    return false;
+                }
 
-            synchronized (mutex)
-            {
-                if (mutex.getState() == true)
+                try
                 {
-                    try
-                    {
-                        mutex.wait(1000);  // timeout to help avoid deadlock
-                    }
-                    catch (InterruptedException e)
-                    {
-                        System.out.println("EXCEPTION IN takeMonitor() -- " + e);
-                    }
+                    mutex.wait(1000);  // timeout to help avoid deadlock
                 }
-                else
+                catch (InterruptedException e)
                 {
-                    done = true;
+                    System.out.println("EXCEPTION IN takeMonitor() -- " + e);
                 }
             }
-        }
 
-        mutex.setState(true);
+            if (info.gameDestroyed)
+                return false;
+
+            mutex.setState(true);
+        }
 
         return true;
     }
@@ -574,8 +578,12 @@ public class SOCGameList
 
         public boolean canJoin;
 
-        /** Flag for when game has been destroyed, in case anything's waiting on its mutex. @since 1.1.15 */
-        public boolean gameDestroyed;
+        /**
+         * Flag for when game has been destroyed, in case anything's waiting on its mutex.
+         * Volatile since v2.7.00, because {@link SOCGameList#takeMonitorForGame(String)} checks it without a lock.
+         * @since 1.1.15
+         */
+        public volatile boolean gameDestroyed;
 
         /**
          * Constructor: gameOpts is null or contains game option objects
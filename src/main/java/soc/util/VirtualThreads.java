@@ -0,0 +1,99 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * This file Copyright (C) 2026 Jeremy D Monin <jeremy@nand.net>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The maintainer of this program can be reached at jsettlers@nand.net
+ **/
+package soc.util;
+
+import java.lang.reflect.Method;
+
+/**
+ * Creates virtual threads when running on JDK 21 or newer.
+ * JSettlers is built for Java 8, so this class finds {@code Thread.ofVirtual()} through reflection;
+ * on older JREs {@link #isAvailable()} is false and callers should use a platform thread instead.
+ *<P>
+ * A virtual thread which blocks in {@link Thread#sleep(long)} or a {@link java.util.concurrent.locks.Lock}
+ * releases its carrier thread until it's ready to run again, so thousands of mostly-idle
+ * virtual threads can share a few carrier threads. Blocking in {@link Object#wait()} or inside a
+ * {@code synchronized} block may pin the carrier thread instead (before JDK 24).
+ *
+ * @author Jeremy D Monin &lt;jeremy@nand.net&gt;
+ * @since 2.7.00
+ */
+public final class VirtualThreads
+{
+    /** {@code Thread.ofVirtual()}, or null if not available */
+    private static final Method ofVirtual;
+
+    /** {@code Thread.Builder.name(String)}, or null */
+    private static final Method builderName;
+
+    /** {@code Thread.Builder.unstarted(Runnable)}, or null */
+    private static final Method builderUnstarted;
+
+    static
+    {
+        Method ofv = null, nm = null, unst = null;
+        try
+        {
+            final Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            ofv = Thread.class.getMethod("ofVirtual");
+            nm = builderClass.getMethod("name", String.class);
+            unst = builderClass.getMethod("unstarted", Runnable.class);
+
+            // Check they work; on JDK 19 and 20 they throw UnsupportedOperationException unless preview is enabled
+            unst.invoke(nm.invoke(ofv.invoke(null), "vthread-check"), (Runnable) () -> {});
+        } catch (Throwable th) {
+            ofv = null;
+        }
+
+        ofVirtual = ofv;
+        builderName = (ofv != null) ? nm : null;
+        builderUnstarted = (ofv != null) ? unst : null;
+    }
+
+    private VirtualThreads() {}
+
+    /**
+     * Can this JRE create virtual threads?
+     * @return true if {@link #newThread(Runnable, String)} will return a virtual thread
+     */
+    public static boolean isAvailable()
+    {
+        return (ofVirtual != null);
+    }
+
+    /**
+     * Create an unstarted virtual thread, if this JRE supports them.
+     * @param task  Task for the thread to run
+     * @param name  Thread name, for debugging
+     * @return  A new unstarted virtual thread, or {@code null} if not {@link #isAvailable()}
+     */
+    public static Thread newThread(final Runnable task, final String name)
+    {
+        if (ofVirtual == null)
+            return null;
+
+        try
+        {
+            return (Thread) builderUnstarted.invoke(builderName.invoke(ofVirtual.invoke(null), name), task);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+}
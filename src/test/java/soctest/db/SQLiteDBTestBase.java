@@ -0,0 +1,218 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * This file Copyright (C) 2026 Jeremy D Monin <jeremy@nand.net>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The maintainer of this program can be reached at jsettlers@nand.net
+ **/
+
+package soctest.db;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Locale;
+import java.util.Properties;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import static org.junit.Assert.*;
+
+import soc.game.SOCGame;
+import soc.game.SOCGameOption;
+import soc.game.SOCGameOptionSet;
+import soc.server.database.SOCDBHelper;
+
+/**
+ * Non-testing base class for tests which use {@link SOCDBHelper} with a temporary SQLite database file.
+ * Before each test, creates a new empty {@link #dbFile}; afterwards, cleans up {@link #db} if set
+ * and deletes the file.
+ *<P>
+ * Tests are skipped if the SQLite JDBC driver isn't on the classpath,
+ * or if they need the SQLite setup script {@link #SETUP_SCRIPT} and it isn't found under the current directory.
+ *
+ * @since 2.7.00
+ */
+public abstract class SQLiteDBTestBase
+{
+    /** SQLite setup script to create tables, relative to the current directory */
+    public static final String SETUP_SCRIPT = "src/main/bin/sql/jsettlers-tables-sqlite.sql";
+
+    /** Temporary DB file, created before each test and deleted afterwards */
+    protected File dbFile;
+
+    /** JDBC URL for {@link #dbFile} */
+    protected String dbURL;
+
+    /** DB helper from {@link #initDB(Properties)}, or {@code null}; cleaned up after each test if not null */
+    protected SOCDBHelper db;
+
+    @Before
+    public void setUpDBFile()
+        throws Exception
+    {
+        try
+        {
+            Class.forName("org.sqlite.JDBC");
+        } catch (ClassNotFoundException e) {
+            Assume.assumeNoException("SQLite JDBC driver not found", e);
+        }
+
+        dbFile = File.createTempFile("jsettlers-" + getClass().getSimpleName(), ".sqlite");
+        dbURL = "jdbc:sqlite:" + dbFile.getAbsolutePath();
+    }
+
+    @After
+    public void tearDownDBFile()
+    {
+        if (db != null)
+        {
+            db.cleanup(true);
+            db = null;
+        }
+        if (dbFile != null)
+            dbFile.delete();
+    }
+
+    /**
+     * Get properties to initialize a {@link SOCDBHelper} in {@link #dbFile}
+     * with the minimum BCrypt work factor, so tests run quickly.
+     * @param runSetup  If true, also run {@link #SETUP_SCRIPT} to create the tables;
+     *     skips the test if script isn't found
+     * @return  New properties; caller can add more before calling {@link #initDB(Properties)}
+     */
+    protected Properties newDBProps(final boolean runSetup)
+    {
+        final Properties props = new Properties();
+        props.put(SOCDBHelper.PROP_JSETTLERS_DB_URL, dbURL);
+        if (runSetup)
+        {
+            final File script = new File(SETUP_SCRIPT);
+            Assume.assumeTrue("setup script not found: " + script.getAbsolutePath(), script.exists());
+            props.put(SOCDBHelper.PROP_JSETTLERS_DB_SCRIPT_SETUP, SETUP_SCRIPT);
+        }
+        props.put(SOCDBHelper.PROP_JSETTLERS_DB_BCRYPT_WORK__FACTOR, Integer.toString(SOCDBHelper.BCRYPT_MIN_WORK_FACTOR));
+
+        return props;
+    }
+
+    /**
+     * Set up {@link #db} in {@link #dbFile} and assert it's initialized.
+     * @param props  Properties, from {@link #newDBProps(boolean)}
+     */
+    protected void initDB(final Properties props)
+        throws Exception
+    {
+        db = new SOCDBHelper();
+        db.initialize("u", "", props);
+        assertTrue(db.isInitialized());
+    }
+
+    /**
+     * Create user accounts in {@link #db}. Each user's password is their lowercase name + "pw",
+     * for example {@code "alicepw"}.
+     * @param names  User names, such as {@code "Alice"}
+     */
+    protected void createUsers(final String... names)
+        throws SQLException
+    {
+        final long now = System.currentTimeMillis();
+        for (final String name : names)
+        {
+            final String lc = name.toLowerCase(Locale.US);
+            assertTrue(db.createAccount(name, "localhost", lc + "pw", lc.charAt(0) + "@example.com", now));
+        }
+    }
+
+    /**
+     * A completed game. The winner has 10 VP, each other player 3 + their player number.
+     * @param gaName  Game name
+     * @param scen  Scenario name key, or {@code null}
+     * @param names  Player names, with winner first
+     * @return  The game, with a winner
+     */
+    protected static SOCGame newGame(final String gaName, final String scen, final String... names)
+    {
+        final SOCGameOptionSet knownOpts = SOCGameOptionSet.getAllKnownOptions(), opts = new SOCGameOptionSet();
+        if (scen != null)
+        {
+            final SOCGameOption sc = knownOpts.getKnownOption("SC", true);
+            sc.setStringValue(scen);
+            opts.add(sc);
+        }
+
+        final SOCGame ga = new SOCGame(gaName, opts, knownOpts);
+        for (int pn = 0; pn < names.length; ++pn)
+        {
+            ga.addPlayer(names[pn], pn);
+            ga.getPlayer(pn).setSpecialVP((pn == 0) ? 10 : (3 + pn));
+        }
+        ga.setCurrentPlayerNumber(0);
+        ga.checkForWinner();
+        assertNotNull(ga.getPlayerWithWin());
+
+        return ga;
+    }
+
+    /** Run SQL statements using a separate connection. */
+    protected void runSQL(final String... sqls)
+        throws SQLException
+    {
+        try (Connection conn = DriverManager.getConnection(dbURL);
+             Statement st = conn.createStatement())
+        {
+            for (String sql : sqls)
+                st.executeUpdate(sql);
+        }
+    }
+
+    /** Run a query which returns one integer, using a separate connection. */
+    protected int queryInt(final String sql)
+        throws SQLException
+    {
+        try (Connection conn = DriverManager.getConnection(dbURL);
+             ResultSet rs = conn.createStatement().executeQuery(sql))
+        {
+            assertTrue(rs.next());
+            return rs.getInt(1);
+        }
+    }
+
+    /**
+     * Assert that {@link SOCDBHelper#initialize(String, String, Properties)} rejects each of these
+     * property values by throwing {@link IllegalArgumentException}.
+     * @param badProps  Property name and value pairs, each tried separately
+     */
+    protected void assertBadPropertiesRejected(final String[][] badProps)
+        throws Exception
+    {
+        for (final String[] prop : badProps)
+        {
+            final Properties props = new Properties();
+            props.put(SOCDBHelper.PROP_JSETTLERS_DB_URL, dbURL);
+            props.put(prop[0], prop[1]);
+            try
+            {
+                new SOCDBHelper().initialize("u", "p", props);
+                fail("should throw IllegalArgumentException: " + prop[0] + "=" + prop[1]);
+            } catch (IllegalArgumentException e) {}
+        }
+    }
+
+}
@@ -0,0 +1,159 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * This file Copyright (C) 2026 Jeremy D Monin <jeremy@nand.net>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The maintainer of this program can be reached at jsettlers@nand.net
+ **/
+package soctest.db;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import soc.server.database.SOCDBHelper;
+
+/**
+ * Tests for {@link SOCDBHelper#authenticateUserPassword(String, String, SOCDBHelper.AuthPasswordRunnable)}'s
+ * password-checking thread pool, verified-password cache, and {@link SOCDBHelper#getAuthStats()},
+ * with a temporary SQLite database file.
+ *<P>
+ * Skipped if the SQLite JDBC driver or setup script isn't available; see {@link SQLiteDBTestBase}.
+ *
+ * @since 2.7.00
+ */
+public class TestDBAuthenticate
+    extends SQLiteDBTestBase
+{
+    /**
+     * Set up {@link #db} in the new SQLite DB with users Alice and Bob.
+     * @param cacheSec  Value for {@link SOCDBHelper#PROP_JSETTLERS_DB_AUTH_CACHE__SEC}
+     */
+    private void initDB(final int cacheSec)
+        throws Exception
+    {
+        final Properties props = newDBProps(true);
+        props.put(SOCDBHelper.PROP_JSETTLERS_DB_AUTH_THREADS, "3");
+        props.put(SOCDBHelper.PROP_JSETTLERS_DB_AUTH_CACHE__SEC, Integer.toString(cacheSec));
+        initDB(props);
+        createUsers("Alice", "Bob");
+    }
+
+    /** Several password checks with callbacks at once, without cache. */
+    @Test
+    public void testThreadPoolCallbacks()
+        throws Exception
+    {
+        initDB(0);
+        assertEquals("threads", 3, db.getAuthStats()[0]);
+
+        final int N = 8;
+        final CountDownLatch done = new CountDownLatch(N);
+        final List<String> results = new ArrayList<>();
+        for (int i = 0; i < N; ++i)
+        {
+            final boolean isAlice = (0 == (i % 2)), isWrong = (i >= 6);
+            final String pw = isWrong ? "wrong" : (isAlice ? "alicepw" : "bobpw");
+            db.authenticateUserPassword
+                ((isAlice ? "alice" : "BOB"), pw, new SOCDBHelper.AuthPasswordRunnable()
+                {
+                    public void authResult(final String dbUserName, final boolean hadDelay)
+                    {
+                        synchronized(results)
+                        {
+                            results.add(dbUserName + (hadDelay ? "" : " (no delay)"));
+                        }
+                        done.countDown();
+                    }
+                });
+        }
+
+        assertTrue("callbacks done", done.await(30, TimeUnit.SECONDS));
+        int nAlice = 0, nBob = 0, nNull = 0;
+        for (String r : results)
+            if (r.equals("Alice"))
+                ++nAlice;
+            else if (r.equals("Bob"))
+                ++nBob;
+            else if (r.equals("null"))
+                ++nNull;
+        assertEquals(3, nAlice);
+        assertEquals(3, nBob);
+        assertEquals(2, nNull);
+
+        final long[] stats = db.getAuthStats();
+        assertEquals("checks done", N, stats[3]);
+        assertTrue("max wait >= avg", stats[5] >= stats[4]);
+        assertEquals("no cache", 0, stats[7]);
+
+        // user not in db: no BCrypt check, callback right away
+        final boolean[] called = new boolean[1];
+        assertEquals("carol", db.authenticateUserPassword("carol", "", new SOCDBHelper.AuthPasswordRunnable()
+        {
+            public void authResult(final String dbUserName, final boolean hadDelay)
+            {
+                assertEquals("carol", dbUserName);
+                assertFalse(hadDelay);
+                called[0] = true;
+            }
+        }));
+        assertTrue("called in this thread", called[0]);
+    }
+
+    /** With cache: Only successful checks are cached, and a password change invalidates them. */
+    @Test
+    public void testVerifiedCache()
+        throws Exception
+    {
+        initDB(60);
+
+        assertEquals("Alice", db.authenticateUserPassword("alice", "alicepw", null));
+        assertEquals(1, db.getAuthStats()[3]);
+        assertEquals("Alice", db.authenticateUserPassword("ALICE", "alicepw", null));
+        assertEquals("Alice", db.authenticateUserPassword("alice", "alicepw", null));
+        assertEquals("checks done", 1, db.getAuthStats()[3]);
+        assertEquals("cache hits", 2, db.getAuthStats()[7]);
+
+        assertNull(db.authenticateUserPassword("alice", "wrong", null));
+        assertNull(db.authenticateUserPassword("alice", "wrong", null));
+        assertEquals("failures aren't cached", 3, db.getAuthStats()[3]);
+
+        assertTrue(db.updateUserPassword("alice", "newpw"));
+        assertNull("old password after change", db.authenticateUserPassword("alice", "alicepw", null));
+        assertEquals("Alice", db.authenticateUserPassword("alice", "newpw", null));
+        assertEquals(5, db.getAuthStats()[3]);
+        assertEquals(2, db.getAuthStats()[7]);
+    }
+
+    /** Property range checks. */
+    @Test
+    public void testBadAuthProperties()
+        throws Exception
+    {
+        assertBadPropertiesRejected(new String[][]
+            {
+                {SOCDBHelper.PROP_JSETTLERS_DB_AUTH_THREADS, "0"},
+                {SOCDBHelper.PROP_JSETTLERS_DB_AUTH_THREADS, Integer.toString(SOCDBHelper.AUTH_THREADS_MAX + 1)},
+                {SOCDBHelper.PROP_JSETTLERS_DB_AUTH_CACHE__SEC, "-1"},
+                {SOCDBHelper.PROP_JSETTLERS_DB_AUTH_CACHE__SEC, Integer.toString(SOCDBHelper.AUTH_CACHE_SEC_MAX + 1)},
+            });
+    }
+
+}
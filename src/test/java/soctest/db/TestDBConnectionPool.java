@@ -0,0 +1,294 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * This file Copyright (C) 2026 Jeremy D Monin <jeremy@nand.net>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The maintainer of this program can be reached at jsettlers@nand.net
+ **/
+package soctest.db;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import soc.server.database.SOCDBConnectionPool;
+import soc.server.database.SOCDBHelper;
+
+/**
+ * Tests for {@link SOCDBConnectionPool} and {@link SOCDBHelper}'s use of it,
+ * with a temporary SQLite database file.
+ *<P>
+ * Skipped if the SQLite JDBC driver or setup script isn't available; see {@link SQLiteDBTestBase}.
+ *
+ * @since 2.7.00
+ */
+public class TestDBConnectionPool
+    extends SQLiteDBTestBase
+{
+    private SOCDBConnectionPool newPool(final int size, final int waitMillis)
+    {
+        return new SOCDBConnectionPool(() -> DriverManager.getConnection(dbURL), size, waitMillis);
+    }
+
+    /** Borrow up to the pool size, then time out; cache statements per connection until caches are cleared. */
+    @Test
+    public void testBorrowAndStatementCache()
+        throws SQLException
+    {
+        final SOCDBConnectionPool pool = newPool(2, 50);
+        try
+        {
+            final SOCDBConnectionPool.PooledConnection pc1 = pool.borrow(), pc2 = pool.borrow();
+            assertNotSame(pc1, pc2);
+            try
+            {
+                pool.borrow();
+                fail("should time out when all connections are borrowed");
+            } catch (SQLException e) {}
+
+            final PreparedStatement ps = pc1.prepare("SELECT 1;");
+            assertSame(ps, pc1.prepare("SELECT 1;"));
+            assertArrayEquals(new long[]{1, 1}, pc1.getCacheCounts());
+            pc2.release(false);
+            pc1.release(false);
+
+            final SOCDBConnectionPool.PooledConnection pc = pool.borrow();
+            assertSame("most recently released", pc1, pc);
+            assertSame(ps, pc.prepare("SELECT 1;"));
+            pc.release(false);
+
+            pool.clearStatementCaches();
+            final SOCDBConnectionPool.PooledConnection pcAfter = pool.borrow();
+            assertSame(pc1, pcAfter);
+            assertNotSame(ps, pcAfter.prepare("SELECT 1;"));
+            pcAfter.release(false);
+
+            final long[] stats = pool.getStats();
+            assertEquals("open", 2, stats[0]);
+            assertEquals("idle", 2, stats[1]);
+            assertEquals("borrows", 4, stats[2]);
+            assertEquals("waited", 1, stats[3]);
+            assertEquals("replaced", 0, stats[4]);
+        } finally {
+            pool.close();
+        }
+
+        try
+        {
+            pool.borrow();
+            fail("closed pool should throw");
+        } catch (SQLException e) {}
+        assertEquals(0, pool.getStats()[0]);
+    }
+
+    /** After an error, a connection which isn't valid should be replaced when next borrowed. */
+    @Test
+    public void testReplacesInvalidConnection()
+        throws SQLException
+    {
+        final SOCDBConnectionPool pool = newPool(1, 50);
+        try
+        {
+            SOCDBConnectionPool.PooledConnection pc = pool.borrow();
+            final Connection conn = pc.conn;
+            pc.release(true);
+            pc = pool.borrow();
+            assertSame("still valid: not replaced", conn, pc.conn);
+
+            conn.close();
+            pc.release(true);
+            pc = pool.borrow();
+            assertNotSame(conn, pc.conn);
+            assertTrue(pc.conn.isValid(1));
+            pc.release(false);
+
+            assertEquals("replaced", 1, pool.getStats()[4]);
+            assertEquals("open", 1, pool.getStats()[0]);
+        } finally {
+            pool.close();
+        }
+    }
+
+    /** A waiting borrower should get the connection when another thread releases it. */
+    @Test
+    public void testWaitForRelease()
+        throws Exception
+    {
+        final SOCDBConnectionPool pool = newPool(1, 5000);
+        try
+        {
+            final SOCDBConnectionPool.PooledConnection pc = pool.borrow();
+            final Thread releaser = new Thread(() ->
+            {
+                try
+                {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {}
+                pc.release(false);
+            });
+            releaser.start();
+
+            final SOCDBConnectionPool.PooledConnection pc2 = pool.borrow();
+            assertSame(pc, pc2);
+            pc2.release(false);
+            releaser.join();
+            assertEquals("waited", 1, pool.getStats()[3]);
+        } finally {
+            pool.close();
+        }
+    }
+
+    /**
+     * A pool wrapping a shared connection, as used for SQLite, lends that connection
+     * one borrower at a time, and doesn't replace or close it.
+     */
+    @Test
+    public void testSharedConnection()
+        throws SQLException
+    {
+        final Connection conn = DriverManager.getConnection(dbURL);
+        try
+        {
+            final SOCDBConnectionPool pool = new SOCDBConnectionPool(conn, 50);
+            assertEquals(1, pool.getSize());
+
+            final SOCDBConnectionPool.PooledConnection pc = pool.borrow();
+            assertSame(conn, pc.conn);
+            try
+            {
+                pool.borrow();
+                fail("should time out while shared connection is borrowed");
+            } catch (SQLException e) {}
+            final PreparedStatement ps = pc.prepare("SELECT 1;");
+            pc.release(true);
+
+            final SOCDBConnectionPool.PooledConnection pcAgain = pool.borrow();
+            assertSame("not replaced after error", pc, pcAgain);
+            assertSame(ps, pcAgain.prepare("SELECT 1;"));
+            pcAgain.release(false);
+
+            pool.close();
+            assertTrue(ps.isClosed());
+            assertFalse("pool shouldn't close shared connection", conn.isClosed());
+        } finally {
+            conn.close();
+        }
+    }
+
+    /** Constructor and pool property validation. */
+    @Test
+    public void testBadParams()
+        throws Exception
+    {
+        try
+        {
+            newPool(0, 50);
+            fail("size 0 should throw");
+        } catch (IllegalArgumentException e) {}
+        try
+        {
+            newPool(1, 0);
+            fail("waitMillis 0 should throw");
+        } catch (IllegalArgumentException e) {}
+        try
+        {
+            new SOCDBConnectionPool((Connection) null, 50);
+            fail("null shared connection should throw");
+        } catch (IllegalArgumentException e) {}
+
+        assertBadPropertiesRejected(new String[][]
+            {
+                {SOCDBHelper.PROP_JSETTLERS_DB_POOL_SIZE, "0"},
+                {SOCDBHelper.PROP_JSETTLERS_DB_POOL_SIZE, Integer.toString(SOCDBHelper.POOL_SIZE_MAX + 1)},
+                {SOCDBHelper.PROP_JSETTLERS_DB_POOL_SIZE, "x"},
+                {SOCDBHelper.PROP_JSETTLERS_DB_POOL_WAIT__MS, "-1"},
+            });
+    }
+
+    /**
+     * Set up a new SQLite DB with {@link SOCDBHelper}, then use its pooled methods,
+     * including from several threads at once.
+     */
+    @Test
+    public void testDBHelperPooledMethods()
+        throws Exception
+    {
+        final Properties props = newDBProps(true);
+        props.put(SOCDBHelper.PROP_JSETTLERS_DB_POOL_SIZE, "3");
+        initDB(props);
+        assertEquals(SOCDBHelper.SCHEMA_VERSION_LATEST, db.getSchemaVersion());
+
+        final long now = System.currentTimeMillis();
+        assertEquals(0, db.countUsers());
+        createUsers("Alice", "Bob");
+        assertEquals(2, db.countUsers());
+        assertEquals("Alice", db.getUser("alice"));
+        assertNull(db.getUser("carol"));
+        assertEquals("Alice", db.authenticateUserPassword("ALICE", "alicepw", null));
+        assertNull(db.authenticateUserPassword("alice", "wrong", null));
+        assertTrue(db.recordLogin("Alice", "localhost", now));
+        assertTrue(db.updateLastlogin("Alice", now));
+        assertTrue(db.updateUserPassword("alice", "newpw"));
+        assertEquals("Alice", db.authenticateUserPassword("alice", "newpw", null));
+        assertNull(db.retrieveRobotParams("nobot"));
+
+        // SQLException shouldn't leave the pool unusable
+        try
+        {
+            db.createAccount("Alice", "localhost", "alicepw2", "a@example.com", now);
+            fail("duplicate account should throw");
+        } catch (SQLException e) {}
+        assertEquals("Alice", db.getUser("Alice"));
+
+        // game results, in a transaction on a pooled connection
+        assertTrue(db.saveGameScores(newGame("testgame", null, "Alice", "Bob"), 600, false));
+
+        // lookups from several threads at once
+        final List<Thread> threads = new ArrayList<>();
+        final List<Throwable> failures = new ArrayList<>();
+        for (int t = 0; t < 6; ++t)
+        {
+            final Thread th = new Thread(() ->
+            {
+                try
+                {
+                    for (int i = 0; i < 20; ++i)
+                    {
+                        assertEquals("Bob", db.getUser("bob"));
+                        assertEquals(2, db.countUsers());
+                    }
+                } catch (Throwable e) {
+                    synchronized(failures)
+                    {
+                        failures.add(e);
+                    }
+                }
+            });
+            threads.add(th);
+            th.start();
+        }
+        for (Thread th : threads)
+            th.join();
+        assertEquals(failures.toString(), 0, failures.size());
+    }
+
+}
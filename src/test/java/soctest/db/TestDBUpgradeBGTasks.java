@@ -0,0 +1,192 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * This file Copyright (C) 2026 Jeremy D Monin <jeremy@nand.net>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The maintainer of this program can be reached at jsettlers@nand.net
+ **/
+package soctest.db;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.Properties;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import soc.server.database.SOCDBHelper;
+
+/**
+ * Tests for schema upgrade background tasks ({@link SOCDBHelper#startSchemaUpgradeBGTasks()}):
+ * Upgrading a temporary SQLite database from {@link SOCDBHelper#SCHEMA_VERSION_ORIGINAL} through all
+ * later versions in batches with several password-encoding threads,
+ * {@link SOCDBHelper#getSchemaUpgradeBGTasksProgress()}, and the tasks' property range checks.
+ *<P>
+ * Skipped if the SQLite JDBC driver isn't on the classpath; see {@link SQLiteDBTestBase}.
+ *
+ * @since 2.7.00
+ */
+public class TestDBUpgradeBGTasks
+    extends SQLiteDBTestBase
+{
+    /** Number of users to create: More than 1 batch of password encoding with 2 threads */
+    private static final int NUM_USERS = 25;
+
+    /** Number of games to create: More than 1 batch of games normalization */
+    private static final int NUM_GAMES = 40;
+
+    /** Set up {@link #db} in the DB file, without the write queue, with 2 upgrade threads and a short pause. */
+    private void initDB()
+        throws Exception
+    {
+        final Properties props = newDBProps(false);
+        props.put(SOCDBHelper.PROP_JSETTLERS_DB_QUEUE_SIZE, "0");
+        props.put(SOCDBHelper.PROP_JSETTLERS_DB_UPGRADE_BG__THREADS, "2");
+        props.put(SOCDBHelper.PROP_JSETTLERS_DB_UPGRADE_BG__PAUSE__MS, "200");
+        initDB(props);
+    }
+
+    /**
+     * Create tables and data of an original-schema DB, like {@code jsettlers-tables.sql} from v1.1.00:
+     * {@link #NUM_USERS} users named {@code User00} etc with passwords {@code pw00} etc,
+     * and {@link #NUM_GAMES} 2-player games where player 1 wins. Game players' names are lowercase,
+     * unlike their users, to check normalization.
+     */
+    private void createOriginalDB()
+        throws SQLException
+    {
+        try (Connection conn = DriverManager.getConnection(dbURL))
+        {
+            final Statement st = conn.createStatement();
+            st.executeUpdate
+                ("CREATE TABLE users (nickname VARCHAR(20), host VARCHAR(50), password VARCHAR(20),"
+                 + " email VARCHAR(50), lastlogin DATE, PRIMARY KEY (nickname));");
+            st.executeUpdate
+                ("CREATE TABLE logins (nickname VARCHAR(20), host VARCHAR(50), lastlogin DATE, PRIMARY KEY (nickname));");
+            st.executeUpdate
+                ("CREATE TABLE games (gamename VARCHAR(20), player1 VARCHAR(20), player2 VARCHAR(20),"
+                 + " player3 VARCHAR(20), player4 VARCHAR(20), score1 SMALLINT, score2 SMALLINT,"
+                 + " score3 SMALLINT, score4 SMALLINT, starttime TIMESTAMP);");
+            st.executeUpdate
+                ("CREATE TABLE robotparams (robotname VARCHAR(20) not null, maxgamelength INT, maxeta INT,"
+                 + " etabonusfactor FLOAT, adversarialfactor FLOAT, leaderadversarialfactor FLOAT,"
+                 + " devcardmultiplier FLOAT, threatmultiplier FLOAT, strategytype INT, starttime TIMESTAMP,"
+                 + " endtime TIMESTAMP, gameswon INT, gameslost INT, tradeFlag SMALLINT, PRIMARY KEY (robotname));");
+            st.close();
+
+            PreparedStatement ps = conn.prepareStatement
+                ("INSERT INTO users(nickname, host, password, email) VALUES(?, 'localhost', ?, 'x@example.com');");
+            for (int i = 0; i < NUM_USERS; ++i)
+            {
+                ps.setString(1, String.format("User%02d", i));
+                ps.setString(2, String.format("pw%02d", i));
+                ps.executeUpdate();
+            }
+            ps.close();
+
+            ps = conn.prepareStatement
+                ("INSERT INTO games(gamename, player1, player2, score1, score2, starttime) VALUES('g', ?, ?, 10, 4, ?);");
+            final long start = System.currentTimeMillis() - 3600000L;
+            for (int i = 0; i < NUM_GAMES; ++i)
+            {
+                ps.setString(1, String.format("user%02d", i % NUM_USERS));
+                ps.setString(2, String.format("user%02d", (i + 1) % NUM_USERS));
+                ps.setTimestamp(3, new Timestamp(start + i * 1000L));
+                ps.executeUpdate();
+            }
+            ps.close();
+        }
+    }
+
+    /**
+     * Upgrade from the original schema: Background tasks encode all passwords, normalize games,
+     * and count user stats, reporting progress while they run.
+     */
+    @Test(timeout=60000)
+    public void testUpgradeFromOriginal()
+        throws Exception
+    {
+        createOriginalDB();
+
+        initDB();
+        assertEquals(SOCDBHelper.SCHEMA_VERSION_ORIGINAL, db.getSchemaVersion());
+        db.upgradeSchema(null);
+        db.cleanup(true);
+        db = null;
+
+        initDB();
+        assertEquals(SOCDBHelper.SCHEMA_VERSION_LATEST, db.getSchemaVersion());
+        assertTrue(db.doesSchemaUpgradeNeedBGTasks());
+        assertNull(db.getSchemaUpgradeBGTasksProgress());
+
+        assertTrue(db.startSchemaUpgradeBGTasks());
+        boolean sawProgress = false;
+        while (db.doesSchemaUpgradeNeedBGTasks())
+        {
+            final long[] prog = db.getSchemaUpgradeBGTasksProgress();
+            if (prog != null)
+            {
+                sawProgress = true;
+                assertEquals(4, prog.length);
+                assertTrue("from version " + prog[0], (prog[0] == SOCDBHelper.SCHEMA_VERSION_ORIGINAL)
+                    || (prog[0] == SOCDBHelper.SCHEMA_VERSION_1200) || (prog[0] == SOCDBHelper.SCHEMA_VERSION_2000));
+                assertTrue(prog[1] >= 0);
+                assertTrue(prog[2] >= 0);
+                if (prog[1] == 0)
+                    assertEquals(-1, prog[3]);
+                else
+                    assertTrue(prog[3] >= 0);
+            }
+
+            Thread.sleep(50);
+        }
+        assertTrue("should see progress during tasks", sawProgress);
+
+        for (int i = 0; i < NUM_USERS; ++i)
+            assertEquals
+                (String.format("User%02d", i),
+                 db.authenticateUserPassword(String.format("user%02d", i), String.format("pw%02d", i), null));
+        assertEquals(0, queryInt("SELECT count(*) FROM users WHERE pw_store IS NULL;"));
+
+        assertEquals(2 * NUM_GAMES, queryInt("SELECT count(*) FROM games2_players;"));
+        assertEquals("players' names normalized to users'",
+            0, queryInt("SELECT count(*) FROM games2_players WHERE player NOT IN (SELECT nickname FROM users);"));
+        assertEquals(NUM_GAMES, queryInt("SELECT sum(games_won) FROM users;"));
+        assertEquals(NUM_GAMES, queryInt("SELECT sum(games_lost) FROM users;"));
+        assertEquals(2 * NUM_GAMES, queryInt("SELECT sum(games_played) FROM user_stats WHERE gametype='*';"));
+        assertEquals(NUM_GAMES, queryInt("SELECT sum(games_won) FROM user_stats WHERE gametype='*';"));
+
+        assertEquals(0, queryInt("SELECT count(*) FROM db_version WHERE bg_tasks_done IS NULL;"));
+    }
+
+    /** Property range checks. */
+    @Test
+    public void testBadUpgradeProperties()
+        throws Exception
+    {
+        assertBadPropertiesRejected(new String[][]
+            {
+                {SOCDBHelper.PROP_JSETTLERS_DB_UPGRADE_BG__THREADS, "0"},
+                {SOCDBHelper.PROP_JSETTLERS_DB_UPGRADE_BG__THREADS, Integer.toString(SOCDBHelper.UPGRADE_BG_THREADS_MAX + 1)},
+                {SOCDBHelper.PROP_JSETTLERS_DB_UPGRADE_BG__PAUSE__MS, "-1"},
+                {SOCDBHelper.PROP_JSETTLERS_DB_UPGRADE_BG__PAUSE__MS, Integer.toString(SOCDBHelper.UPGRADE_BG_PAUSE_MS_MAX + 1)},
+            });
+    }
+
+}
@@ -0,0 +1,207 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * This file Copyright (C) 2026 Jeremy D Monin <jeremy@nand.net>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The maintainer of this program can be reached at jsettlers@nand.net
+ **/
+package soctest.db;
+
+import java.util.List;
+import java.util.Properties;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import soc.game.SOCGame;
+import soc.server.database.SOCDBHelper;
+import soc.server.database.SOCDBHelper.UserStats;
+
+/**
+ * Tests for the {@code user_stats} summary table: {@link SOCDBHelper#saveGameScores(SOCGame, int, boolean)}'s
+ * updates, {@link SOCDBHelper#getUserStats(String)}, {@link SOCDBHelper#getLeaderboard(String, int, int, UserStats, int)},
+ * and filling the table from existing games during a schema upgrade from {@link SOCDBHelper#SCHEMA_VERSION_2000},
+ * with a temporary SQLite database file.
+ *<P>
+ * Skipped if the SQLite JDBC driver or setup script isn't available; see {@link SQLiteDBTestBase}.
+ *
+ * @since 2.7.00
+ */
+public class TestDBUserStats
+    extends SQLiteDBTestBase
+{
+    /**
+     * Set up {@link #db} in the DB file, without the write queue.
+     * @param runSetup  If true, run the setup script and create users Alice, Bob, and Carol
+     */
+    private void initDB(final boolean runSetup)
+        throws Exception
+    {
+        final Properties props = newDBProps(runSetup);
+        props.put(SOCDBHelper.PROP_JSETTLERS_DB_QUEUE_SIZE, "0");
+        initDB(props);
+        if (runSetup)
+            createUsers("Alice", "Bob", "Carol");
+    }
+
+    /** Find a user's stats for a gametype, or fail. */
+    private static UserStats find(final List<UserStats> li, final String gameType)
+    {
+        for (UserStats us : li)
+            if (us.gameType.equals(gameType))
+                return us;
+
+        fail("gametype not found: " + gameType + " in " + li);
+        return null;
+    }
+
+    /** Check one gametype's stats. */
+    private static void assertStats
+        (final UserStats us, final int played, final int won, final int lost, final int vp)
+    {
+        assertEquals(us.toString(), played, us.gamesPlayed);
+        assertEquals(us.toString(), won, us.gamesWon);
+        assertEquals(us.toString(), lost, us.gamesLost);
+        assertEquals(us.toString(), vp, us.vpTotal);
+    }
+
+    /** Stats are updated when saving games, including win-loss-only and non-user players. */
+    @Test
+    public void testSaveAndQuery()
+        throws Exception
+    {
+        initDB(true);
+        assertEquals(SOCDBHelper.SCHEMA_VERSION_2700, db.getSchemaVersion());
+        assertTrue(db.getUserStats("alice").isEmpty());
+
+        assertTrue(db.saveGameScores(newGame("g", null, "Alice", "Bob", "robot 1"), 600, false));
+        assertTrue(db.saveGameScores(newGame("g", null, "Bob", "Alice"), 600, true));  // win-loss only
+        assertTrue(db.saveGameScores(newGame("g", "SC_FOG", "Alice", "Carol"), 600, false));
+
+        final List<UserStats> alice = db.getUserStats("ALICE");
+        assertEquals(alice.toString(), 3, alice.size());
+        assertEquals("Alice", alice.get(0).nickname);
+        assertStats(find(alice, SOCDBHelper.STATS_GAMETYPE_ALL), 3, 2, 1, 24);
+        assertStats(find(alice, SOCDBHelper.STATS_GAMETYPE_NO_SCENARIO), 2, 1, 1, 14);
+        assertStats(find(alice, "SC_FOG"), 1, 1, 0, 10);
+        assertEquals(8.0f, find(alice, SOCDBHelper.STATS_GAMETYPE_ALL).getAverageVP(), 0.001f);
+
+        assertStats(find(db.getUserStats("bob"), SOCDBHelper.STATS_GAMETYPE_ALL), 2, 1, 1, 14);
+        assertEquals(2, db.getUserStats("carol").size());
+        assertTrue("non-user isn't counted", db.getUserStats("robot 1").isEmpty());
+    }
+
+    /** Leaderboard sort orders, filters, and keyset paging. */
+    @Test
+    public void testLeaderboardPaging()
+        throws Exception
+    {
+        initDB(true);
+
+        // Wins: Carol 3, Alice 1, Bob 1; games: Alice 5, Bob 5, Carol 4
+        db.saveGameScores(newGame("g", null, "Carol", "Alice", "Bob"), 600, false);
+        db.saveGameScores(newGame("g", null, "Carol", "Alice", "Bob"), 600, false);
+        db.saveGameScores(newGame("g", null, "Carol", "Alice", "Bob"), 600, false);
+        db.saveGameScores(newGame("g", null, "Bob", "Alice", "Carol"), 600, false);
+        db.saveGameScores(newGame("g", "SC_FOG", "Alice", "Bob"), 600, false);
+
+        List<UserStats> page = db.getLeaderboard
+            (SOCDBHelper.STATS_GAMETYPE_ALL, SOCDBHelper.LEADERBOARD_BY_WINS, 0, null, 2);
+        assertEquals(2, page.size());
+        assertEquals("Carol", page.get(0).nickname);
+        assertEquals("Alice", page.get(1).nickname);  // tied with Bob: sorted by name
+        page = db.getLeaderboard
+            (SOCDBHelper.STATS_GAMETYPE_ALL, SOCDBHelper.LEADERBOARD_BY_WINS, 0, page.get(1), 2);
+        assertEquals(1, page.size());
+        assertEquals("Bob", page.get(0).nickname);
+        page = db.getLeaderboard
+            (SOCDBHelper.STATS_GAMETYPE_ALL, SOCDBHelper.LEADERBOARD_BY_WINS, 0, page.get(0), 2);
+        assertTrue(page.isEmpty());
+
+        page = db.getLeaderboard
+            (SOCDBHelper.STATS_GAMETYPE_ALL, SOCDBHelper.LEADERBOARD_BY_GAMES, 0, null, SOCDBHelper.LEADERBOARD_PAGE_MAX);
+        assertEquals(3, page.size());
+        assertEquals("Alice", page.get(0).nickname);
+        assertEquals(5, page.get(0).gamesPlayed);
+        assertEquals("Carol", page.get(2).nickname);
+
+        page = db.getLeaderboard("SC_FOG", SOCDBHelper.LEADERBOARD_BY_WINS, 0, null, 10);
+        assertEquals(2, page.size());
+        assertEquals("Alice", page.get(0).nickname);
+        assertTrue(db.getLeaderboard("SC_FOG", SOCDBHelper.LEADERBOARD_BY_WINS, 2, null, 10).isEmpty());
+        assertTrue(db.getLeaderboard("SC_PIRI", SOCDBHelper.LEADERBOARD_BY_WINS, 0, null, 10).isEmpty());
+
+        for (final int[] bad : new int[][]{{0, 5}, {SOCDBHelper.LEADERBOARD_BY_WINS, 0},
+                {SOCDBHelper.LEADERBOARD_BY_WINS, SOCDBHelper.LEADERBOARD_PAGE_MAX + 1}})
+        {
+            try
+            {
+                db.getLeaderboard(SOCDBHelper.STATS_GAMETYPE_ALL, bad[0], 0, null, bad[1]);
+                fail("should throw IllegalArgumentException: sortBy " + bad[0] + ", limit " + bad[1]);
+            } catch (IllegalArgumentException e) {}
+        }
+    }
+
+    /**
+     * Upgrade from schema 2000: Background tasks count existing games into {@code user_stats},
+     * and games saved after the upgrade aren't counted twice.
+     */
+    @Test(timeout=60000)
+    public void testUpgradeFrom2000()
+        throws Exception
+    {
+        initDB(true);
+        db.cleanup(true);
+        db = null;
+
+        // Make it look like a schema 2000 DB
+        runSQL("DROP TABLE user_stats;", "DELETE FROM db_version;",
+            "INSERT INTO db_version(from_vers, to_vers, ddl_done, bg_tasks_done) VALUES(0, 2000, 1, 1);");
+
+        initDB(false);
+        assertEquals(SOCDBHelper.SCHEMA_VERSION_2000, db.getSchemaVersion());
+        assertNull(db.getUserStats("alice"));
+        for (int i = 0; i < 40; ++i)  // more than 1 batch
+            assertTrue(db.saveGameScores(newGame("g", null, "Alice", "Bob"), 600, false));
+        assertTrue(db.saveGameScores(newGame("g", "SC_FOG", "Bob", "Alice", "Carol"), 600, false));
+        db.upgradeSchema(null);
+        db.cleanup(true);
+        db = null;
+
+        assertEquals(41, queryInt("SELECT i_value FROM settings WHERE s_name='UPG_2700.STATS_GAMEID';"));
+
+        initDB(false);
+        assertEquals(SOCDBHelper.SCHEMA_VERSION_2700, db.getSchemaVersion());
+        assertTrue(db.doesSchemaUpgradeNeedBGTasks());
+        assertTrue(db.getUserStats("alice").isEmpty());
+
+        // saved during BG tasks; not in games2 until after the upgrade
+        assertTrue(db.saveGameScores(newGame("g", null, "Carol", "Alice"), 600, false));
+
+        assertTrue(db.startSchemaUpgradeBGTasks());
+        while (db.doesSchemaUpgradeNeedBGTasks())
+            Thread.sleep(200);
+
+        final List<UserStats> alice = db.getUserStats("alice");
+        assertStats(find(alice, SOCDBHelper.STATS_GAMETYPE_ALL), 42, 40, 2, 400 + 4 + 4);
+        assertStats(find(alice, "SC_FOG"), 1, 0, 1, 4);
+        assertStats(find(db.getUserStats("bob"), SOCDBHelper.STATS_GAMETYPE_NO_SCENARIO), 40, 0, 40, 160);
+        assertStats(find(db.getUserStats("carol"), SOCDBHelper.STATS_GAMETYPE_ALL), 2, 1, 1, 15);
+
+        assertEquals(0, queryInt("SELECT count(*) FROM settings WHERE s_name='UPG_2700.STATS_GAMEID';"));
+        assertEquals(0, queryInt("SELECT count(*) FROM db_version WHERE bg_tasks_done IS NULL;"));
+    }
+
+}
@@ -0,0 +1,196 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * This file Copyright (C) 2026 Jeremy D Monin <jeremy@nand.net>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The maintainer of this program can be reached at jsettlers@nand.net
+ **/
+package soctest.db;
+
+import java.sql.BatchUpdateException;
+import java.sql.SQLException;
+import java.sql.SQLTransactionRollbackException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import soc.game.SOCGame;
+import soc.server.database.SOCDBHelper;
+import soc.server.database.SOCDBWriteQueue;
+
+/**
+ * Tests for {@link SOCDBWriteQueue} with a temporary SQLite database file.
+ *<P>
+ * Skipped if the SQLite JDBC driver or setup script isn't available; see {@link SQLiteDBTestBase}.
+ *
+ * @since 2.7.00
+ */
+public class TestDBWriteQueue
+    extends SQLiteDBTestBase
+{
+    /**
+     * Set up {@link #db} in a new SQLite DB with users Alice and Bob, or skip the test if SQLite isn't available.
+     * @param queueSize  Value for {@link SOCDBHelper#PROP_JSETTLERS_DB_QUEUE_SIZE}
+     */
+    private void initDB(final int queueSize)
+        throws Exception
+    {
+        final Properties props = newDBProps(true);
+        props.put(SOCDBHelper.PROP_JSETTLERS_DB_QUEUE_SIZE, Integer.toString(queueSize));
+        initDB(props);
+        createUsers("Alice", "Bob");
+    }
+
+    /** A completed 2-player game between Alice and Bob. */
+    private static SOCGame newGame(final String gaName, final int winnerPN)
+    {
+        return (winnerPN == 0)
+            ? newGame(gaName, null, "Alice", "Bob")
+            : newGame(gaName, null, "Bob", "Alice");
+    }
+
+    /** Which SQLExceptions should be retried. */
+    @Test
+    public void testIsTransientError()
+    {
+        assertTrue(SOCDBWriteQueue.isTransientError(new SQLTransactionRollbackException("deadlock")));
+        assertTrue(SOCDBWriteQueue.isTransientError(new SQLException("lost", "08S01")));
+        assertTrue(SOCDBWriteQueue.isTransientError(new SQLException("deadlock", "40001")));
+        assertTrue(SOCDBWriteQueue.isTransientError(new SQLException("[SQLITE_BUSY] The database file is locked")));
+        assertFalse(SOCDBWriteQueue.isTransientError(new SQLException("duplicate key", "23505")));
+        assertFalse(SOCDBWriteQueue.isTransientError(new SQLException("syntax")));
+
+        final BatchUpdateException bx = new BatchUpdateException("batch failed", new int[0]);
+        assertFalse(SOCDBWriteQueue.isTransientError(bx));
+        bx.setNextException(new SQLException("deadlock", "40P01"));
+        assertTrue(SOCDBWriteQueue.isTransientError(bx));
+    }
+
+    /** Queue property parsing; 0 disables the queue. */
+    @Test
+    public void testQueueSizeProperty()
+        throws Exception
+    {
+        assertBadPropertiesRejected(new String[][]
+            {
+                {SOCDBHelper.PROP_JSETTLERS_DB_QUEUE_SIZE, "-1"},
+                {SOCDBHelper.PROP_JSETTLERS_DB_QUEUE_SIZE, Integer.toString(SOCDBHelper.QUEUE_SIZE_MAX + 1)},
+                {SOCDBHelper.PROP_JSETTLERS_DB_QUEUE_SIZE, "x"},
+            });
+
+        initDB(0);
+        assertNull(db.getWriteQueue());
+        assertTrue(db.saveGameScores(newGame("g", 0), 100, false));
+        assertEquals(1, queryInt("SELECT count(*) FROM games2;"));
+    }
+
+    /**
+     * Queue several games and logins, then shut down the queue:
+     * All should be written, except a login which violates the logins table's primary key.
+     */
+    @Test
+    public void testQueueAndDrain()
+        throws Exception
+    {
+        initDB(100);
+        final SOCDBWriteQueue wq = db.getWriteQueue();
+        assertNotNull(wq);
+
+        final long now = System.currentTimeMillis();
+        wq.queueLogin("Alice", "localhost", now);
+        wq.queueGameScores(newGame("g1", 0), 600, false);
+        wq.queueGameScores(newGame("g2", 1), 600, false);
+        wq.queueGameScores(newGame("g3", 0), 600, false);
+        wq.queueGameScores(newGame("g4", 1), 600, true);  // win-loss only
+        wq.queueLogin("Bob", "localhost", now);
+        wq.queueLogin("Alice", "otherhost", now);  // same PK as first Alice login: will fail
+
+        db.cleanup(true);  // should drain the queue first
+        assertNull(db.getWriteQueue());
+
+        final long[] stats = wq.getStats();
+        assertEquals("depth", 0, stats[0]);
+        assertEquals("queued", 7, stats[2]);
+        assertEquals("written", 6, stats[3]);
+        assertEquals("not queued", 0, stats[4]);
+        assertEquals("failed", 1, stats[6]);
+        assertTrue("max latency", stats[8] >= stats[7]);
+
+        assertEquals(3, queryInt("SELECT count(*) FROM games2;"));
+        assertEquals(6, queryInt("SELECT count(*) FROM games2_players;"));
+        assertEquals(2, queryInt("SELECT games_won FROM users WHERE nickname='Alice';"));
+        assertEquals(2, queryInt("SELECT games_lost FROM users WHERE nickname='Alice';"));
+        assertEquals(2, queryInt("SELECT games_won FROM users WHERE nickname='Bob';"));
+        assertEquals(2, queryInt("SELECT games_lost FROM users WHERE nickname='Bob';"));
+        assertEquals(2, queryInt("SELECT count(*) FROM logins;"));
+        assertEquals(0, queryInt("SELECT count(*) FROM users WHERE lastlogin IS NULL;"));
+
+        // after shutdown, queueing writes immediately; DB is closed, so nothing is written
+        wq.queueLogin("Bob", "localhost", now);
+        assertEquals("not queued", 1, wq.getStats()[4]);
+        assertEquals(2, queryInt("SELECT count(*) FROM logins;"));
+    }
+
+    /**
+     * Queue game results from several threads while the queue is shut down:
+     * Each should be either queued and written by the worker, or written immediately; none left in the queue.
+     */
+    @Test
+    public void testQueueDuringShutdown()
+        throws Exception
+    {
+        initDB(20);
+        final SOCDBWriteQueue wq = db.getWriteQueue();
+        final int nThreads = 4, nGames = 50;
+
+        final List<Thread> threads = new ArrayList<>();
+        final List<Throwable> failures = new ArrayList<>();
+        for (int t = 0; t < nThreads; ++t)
+        {
+            final int tnum = t;
+            final Thread th = new Thread(() ->
+            {
+                try
+                {
+                    for (int i = 0; i < nGames; ++i)
+                        wq.queueGameScores(newGame("g" + tnum + "." + i, i % 2), 600, false);
+                } catch (Throwable e) {
+                    synchronized(failures)
+                    {
+                        failures.add(e);
+                    }
+                }
+            });
+            threads.add(th);
+            th.start();
+        }
+        Thread.sleep(5);
+        assertTrue(wq.shutdown(20000));
+        for (Thread th : threads)
+            th.join();
+        assertEquals(failures.toString(), 0, failures.size());
+
+        final long[] stats = wq.getStats();
+        assertEquals("depth", 0, stats[0]);
+        assertEquals("queued + not queued", nThreads * nGames, stats[2] + stats[4]);
+        assertEquals("written", stats[2], stats[3]);
+        assertEquals("failed", 0, stats[6]);
+        assertEquals(nThreads * nGames, queryInt("SELECT count(*) FROM games2;"));
+    }
+
+}
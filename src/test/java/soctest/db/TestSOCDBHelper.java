@@ -56,8 +56,10 @@ public class TestSOCDBHelper
             SOCDBHelper.SCHEMA_VERSION_ORIGINAL < SOCDBHelper.SCHEMA_VERSION_1200);
         assertTrue("1200 < 2000",
             SOCDBHelper.SCHEMA_VERSION_1200 < SOCDBHelper.SCHEMA_VERSION_2000);
-        assertEquals("LATEST == 2000",
-            SOCDBHelper.SCHEMA_VERSION_2000, SOCDBHelper.SCHEMA_VERSION_LATEST);
+        assertTrue("2000 < 2700",
+            SOCDBHelper.SCHEMA_VERSION_2000 < SOCDBHelper.SCHEMA_VERSION_2700);
+        assertEquals("LATEST == 2700",
+            SOCDBHelper.SCHEMA_VERSION_2700, SOCDBHelper.SCHEMA_VERSION_LATEST);
     }
 
     @Test
@@ -249,8 +251,12 @@ public class TestSOCDBHelper
     public void testInitialize_sqliteUrl_autoDetectsDriver()
         throws Exception
     {
+        // if the sqlite driver is on the test classpath, it will create an empty db file
+        // without tables: use a temp file, not one in the current directory
+        final java.io.File dbFile = java.io.File.createTempFile("testdb", ".sqlite");
+        dbFile.deleteOnExit();
         Properties props = new Properties();
-        props.put(SOCDBHelper.PROP_JSETTLERS_DB_URL, "jdbc:sqlite:testdb.sqlite");
+        props.put(SOCDBHelper.PROP_JSETTLERS_DB_URL, "jdbc:sqlite:" + dbFile.getAbsolutePath());
         db.initialize("u", "p", props);
     }
 
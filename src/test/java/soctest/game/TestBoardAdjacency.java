@@ -0,0 +1,129 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * This file Copyright (C) 2026 Jeremy D Monin <jeremy@nand.net>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The maintainer of this program can be reached at jsettlers@nand.net
+ **/
+
+package soctest.game;
+
+import java.util.List;
+
+import soc.game.SOCBoard;
+import soc.game.SOCBoard4p;
+import soc.game.SOCBoard6p;
+import soc.game.SOCBoardAdjacency;
+import soc.game.SOCBoardLarge;
+import soc.util.IntPair;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link SOCBoardAdjacency} and the {@link SOCBoard} methods which use it:
+ * Should give the same results as calculating, for every coordinate on classic and large boards
+ * and some outside them, and be shared by boards with the same geometry.
+ * @since 2.7.00
+ */
+public class TestBoardAdjacency
+{
+    /**
+     * For each coordinate, check that the allocation-free methods give the same results
+     * as the per-direction calculating methods.
+     * @param b  Board to check
+     * @param rowShift  4 for v1 and v2 encodings, 8 for v3
+     * @param maxRow  Largest row to check, including some beyond the board's bounds
+     * @param maxCol  Largest column to check, including some beyond the board's bounds
+     */
+    private static void checkAllCoords(final SOCBoard b, final int rowShift, final int maxRow, final int maxCol)
+    {
+        final int[] nodes = new int[3], edges = new int[3], hexes = new int[3], hexNodes = new int[6];
+
+        for (int r = 0; r <= maxRow; ++r)
+        {
+            for (int c = 0; c <= maxCol; ++c)
+            {
+                final int coord = (r << rowShift) | c;
+                final String desc = "coord 0x" + Integer.toHexString(coord);
+
+                b.getAdjacentNodesToNode_arr(coord, nodes);
+                b.getAdjacentEdgesToNode_arr(coord, edges);
+                for (int dir = 0; dir < 3; ++dir)
+                {
+                    assertEquals(desc, b.getAdjacentNodeToNode(coord, dir), nodes[dir]);
+                    assertEquals(desc, b.getAdjacentEdgeToNode(coord, dir), edges[dir]);
+                }
+                assertArrayEquals(desc, nodes, b.getAdjacentNodesToNode_arr(coord));
+                assertArrayEquals(desc, edges, b.getAdjacentEdgesToNode_arr(coord));
+
+                final List<Integer> hexList = b.getAdjacentHexesToNode(coord);
+                final int n = b.getAdjacentHexesToNode(coord, hexes);
+                assertEquals(desc, hexList.size(), n);
+                for (int i = 0; i < n; ++i)
+                    assertEquals(desc, hexList.get(i).intValue(), hexes[i]);
+
+                assertArrayEquals(desc, b.getAdjacentNodesToHex_arr(coord), b.getAdjacentNodesToHex_arr(coord, hexNodes));
+            }
+        }
+    }
+
+    /** Classic 4-player and 6-player boards, including coordinates outside the v1/v2 encoding's range. */
+    @Test
+    public void testClassicSameAsCalculated()
+    {
+        final SOCBoard b4 = new SOCBoard4p(null), b6 = new SOCBoard6p(null);
+        checkAllCoords(b4, 4, 0x11, 0x11);
+        checkAllCoords(b6, 4, 0x11, 0x11);
+
+        final int[] nodes = new int[3];
+        b4.getAdjacentNodesToNode_arr(-0x11, nodes);
+        for (int dir = 0; dir < 3; ++dir)
+            assertEquals(b4.getAdjacentNodeToNode(-0x11, dir), nodes[dir]);
+        assertEquals(-1, b4.getAdjacency().indexOf(-1));
+        assertEquals(-1, b4.getAdjacency().indexOf(0x100));
+    }
+
+    /** Large boards of default and non-default sizes, including coordinates past their bounds. */
+    @Test
+    public void testLargeSameAsCalculated()
+    {
+        final IntPair defaultSize = SOCBoardLarge.getBoardSize(null);
+        final SOCBoardLarge b = new SOCBoardLarge(null, 4, defaultSize);
+        checkAllCoords(b, 8, defaultSize.a + 2, defaultSize.b + 2);
+
+        final SOCBoardLarge odd = new SOCBoardLarge(null, 6, new IntPair(0x0D, 0x13));
+        checkAllCoords(odd, 8, 0x0F, 0x15);
+        assertEquals(-1, odd.getAdjacency().indexOf(0x0E01));
+        assertEquals(-1, odd.getAdjacency().indexOf(0x0114));
+        assertTrue(odd.getAdjacency().indexOf(0x0D13) >= 0);
+    }
+
+    /** Boards with the same geometry should share tables; different geometries shouldn't. */
+    @Test
+    public void testSharedByGeometry()
+    {
+        final SOCBoardAdjacency a4 = new SOCBoard4p(null).getAdjacency();
+        assertSame(a4, new SOCBoard4p(null).getAdjacency());
+        assertNotSame(a4, new SOCBoard6p(null).getAdjacency());
+
+        final IntPair defaultSize = SOCBoardLarge.getBoardSize(null);
+        final SOCBoardAdjacency aL = new SOCBoardLarge(null, 4, defaultSize).getAdjacency();
+        assertSame(aL, new SOCBoardLarge(null, 6, defaultSize).getAdjacency());
+        assertNotSame(aL, new SOCBoardLarge(null, 4, new IntPair(defaultSize.a, defaultSize.b + 2)).getAdjacency());
+        assertNotSame(aL, a4);
+    }
+
+}
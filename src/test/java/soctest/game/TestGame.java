@@ -21,10 +21,14 @@
 package soctest.game;
 
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
 
+import soc.game.SOCBoard;
 import soc.game.SOCGame;
 import soc.game.SOCPlayer;
+import soc.game.SOCRoad;
+import soc.game.SOCSettlement;
 import soctest.server.savegame.TestLoadgame;  // for javadocs only
 
 import org.junit.Test;
@@ -341,4 +345,76 @@ public class TestGame
         assertTrue("isMemberChatAllowed still true for player 3 after removing p2", ga.isMemberChatAllowed("p3"));
     }
 
+    /**
+     * Test {@link SOCGame#copyForTrialPieces()}: Copies should have the game's pieces and players,
+     * and trial pieces placed in a copy shouldn't affect the original game or other copies.
+     * @since 2.7.00
+     */
+    @Test
+    public void testCopyForTrialPieces()
+    {
+        final SOCGame ga = new SOCGame("testCopyForTrialPieces");
+        for (int pn = 0; pn < 4; ++pn)
+            ga.addPlayer("p" + pn, pn);
+        ga.startGame();
+        ga.setGameState(SOCGame.PLAY1);
+
+        final SOCPlayer pl = ga.getPlayer(0);
+        final List<Integer> nodes = new ArrayList<>(pl.getLegalSettlements());
+        final int node0 = nodes.get(0);
+        ga.putPiece(new SOCSettlement(pl, node0, null));
+
+        final SOCGame c1 = ga.copyForTrialPieces(), c2 = ga.copyForTrialPieces();
+        assertNotSame(ga, c1);
+        assertNotSame(c1, c2);
+        assertNotSame(ga.getBoard(), c1.getBoard());
+        assertEquals(ga.getName(), c1.getName());
+        assertEquals(ga.getGameState(), c1.getGameState());
+        assertEquals(ga.getBoard().getRobberHex(), c1.getBoard().getRobberHex());
+
+        final SOCPlayer pl1 = c1.getPlayer(0);
+        assertNotSame(pl, pl1);
+        assertSame(c1, pl1.getGame());
+        assertEquals(1, pl1.getSettlements().size());
+        assertEquals(pl.getLegalSettlements(), pl1.getLegalSettlements());
+        assertNotNull(c1.getBoard().settlementAtNode(node0));
+
+        // trial pieces in a copy; original and other copy shouldn't change
+        final SOCBoard board1 = c1.getBoard();
+        int edge = -9;
+        for (final int e : board1.getAdjacentEdgesToNode_arr(node0))
+            if (e >= 0)
+            {
+                edge = e;
+                break;
+            }
+        final int node1 = nodes.get(nodes.size() - 1);
+        assertTrue(pl1.isLegalSettlement(node1));
+        final SOCSettlement trialSettle = new SOCSettlement(pl1, node1, board1);
+        final SOCRoad trialRoad = new SOCRoad(pl1, edge, board1);
+        c1.putTempPiece(trialSettle);
+        c1.putTempPiece(trialRoad);
+        assertEquals(2, pl1.getSettlements().size());
+        assertEquals(1, pl1.getRoadsAndShips().size());
+        assertFalse(c1.getPlayer(1).isLegalSettlement(node1));
+        assertEquals(1, pl.getSettlements().size());
+        assertEquals(0, pl.getRoadsAndShips().size());
+        assertTrue(ga.getPlayer(1).isLegalSettlement(node1));
+        assertEquals(1, c2.getPlayer(0).getSettlements().size());
+        assertNull(ga.getBoard().settlementAtNode(node1));
+        assertNull(ga.getBoard().roadOrShipAtEdge(edge));
+        assertNull(c2.getBoard().settlementAtNode(node1));
+
+        c1.undoPutTempPiece(trialRoad);
+        c1.undoPutTempPiece(trialSettle);
+        assertEquals(1, pl1.getSettlements().size());
+        assertEquals(0, pl1.getRoadsAndShips().size());
+        assertNull(board1.settlementAtNode(node1));
+        assertTrue(c1.getPlayer(1).isLegalSettlement(node1));
+
+        // change the original's players; copies made earlier shouldn't change
+        ga.getPlayer(1).getResources().add(3, 1);
+        assertEquals(0, c1.getPlayer(1).getResources().getTotal());
+    }
+
 }
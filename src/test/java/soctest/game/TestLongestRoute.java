@@ -0,0 +1,289 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * This file Copyright (C) 2026 Jeremy D Monin <jeremy@nand.net>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The maintainer of this program can be reached at jsettlers@nand.net
+ **/
+
+package soctest.game;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import soc.game.SOCBoard;
+import soc.game.SOCGame;
+import soc.game.SOCGameOptionSet;
+import soc.game.SOCLRPathData;
+import soc.game.SOCPlayer;
+import soc.game.SOCPlayingPiece;
+import soc.game.SOCRoad;
+import soc.game.SOCRoutePiece;
+import soc.game.SOCScenario;
+import soc.game.SOCSettlement;
+import soc.game.SOCShip;
+import soc.server.SOCBoardAtServer;
+import soc.server.SOCGameHandler;
+import soc.server.SOCGameListAtServer;
+import soc.util.IntPair;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link SOCPlayer#calcLongestRoad2()}'s incremental calculation:
+ * Should give the same longest route and {@link SOCPlayer#getLRPaths()} as
+ * {@link SOCPlayer#calcLongestRoad2_fullSearch()} on randomized classic and sea boards,
+ * including when an opponent's settlement breaks a route and when trial pieces are removed.
+ *<P>
+ * Their speed is compared by {@code soctest.game.BenchLongestRoute} in {@code src/jmh/java},
+ * run with gradle task {@code jmh} instead of unit tests.
+ * @since 2.7.00
+ */
+public class TestLongestRoute
+{
+    private static SOCGameListAtServer gl;
+    private static SOCGameHandler sgh;
+
+    @BeforeClass
+    public static void setup()
+    {
+        sgh = new SOCGameHandler(null);
+        gl = new SOCGameListAtServer(new Random(), SOCGameOptionSet.getAllKnownOptions());
+    }
+
+    /** Describe a player's LR paths in order, to compare them. */
+    private static String describePaths(final List<SOCLRPathData> paths)
+    {
+        final StringBuilder sb = new StringBuilder();
+        for (final SOCLRPathData pd : paths)
+        {
+            sb.append(Integer.toHexString(pd.getBeginning())).append('-').append(Integer.toHexString(pd.getEnd()))
+                .append(" len ").append(pd.getLength()).append(':');
+            for (final IntPair ip : pd.getNodePairs())
+                sb.append(' ').append(Integer.toHexString(ip.a)).append('>').append(Integer.toHexString(ip.b));
+            sb.append('\n');
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * For each player, incremental and full calculations should give the same results.
+     * @return  Sum of players' longest route lengths
+     */
+    private static int checkAll(final SOCGame ga, final String desc)
+    {
+        int sum = 0;
+        for (int pn = 0; pn < ga.maxPlayers; ++pn)
+        {
+            final SOCPlayer pl = ga.getPlayer(pn);
+            final int inc = pl.calcLongestRoad2();
+            final String incPaths = describePaths(pl.getLRPaths());
+            final int full = pl.calcLongestRoad2_fullSearch();
+            assertEquals(desc + " pn " + pn, full, inc);
+            assertEquals(desc + " pn " + pn, describePaths(pl.getLRPaths()), incPaths);
+            assertEquals(full, pl.getLongestRoadLength());
+            sum += full;
+        }
+
+        return sum;
+    }
+
+    /** Edges where this player could place a road or ship now, in ascending order. */
+    static List<Integer> potentialRoutes(final SOCPlayer pl, final boolean ships)
+    {
+        final SOCBoard board = pl.getGame().getBoard();
+        final TreeSet<Integer> nodes = new TreeSet<>(pl.getRoadNodes());
+        for (final SOCPlayingPiece pp : pl.getSettlements())
+            nodes.add(pp.getCoordinates());
+        final TreeSet<Integer> edges = new TreeSet<>();
+        for (final int node : nodes)
+            for (final int edge : board.getAdjacentEdgesToNode(node))
+                if (ships ? pl.isPotentialShip(edge) : pl.isPotentialRoad(edge))
+                    edges.add(edge);
+
+        return new ArrayList<>(edges);
+    }
+
+    /**
+     * Randomly place settlements, roads, and ships in a started game, checking all players' routes after each.
+     * Some settlements are placed on opponents' route nodes to break their routes.
+     * Some roads are trial pieces, removed after checking.
+     * @return number of times a placement changed some player's longest route
+     */
+    static int placeRandomly(final SOCGame ga, final Random rand, final int numSteps)
+    {
+        final SOCBoard board = ga.getBoard();
+        final int nPl = ga.maxPlayers;
+
+        // 2 settlements each, anywhere legal
+        for (int i = 0; i < 2 * nPl; ++i)
+        {
+            final SOCPlayer pl = ga.getPlayer(i % nPl);
+            final List<Integer> nodes = new ArrayList<>(pl.getPotentialSettlements());
+            if (! nodes.isEmpty())
+                ga.putPiece(new SOCSettlement(pl, nodes.get(rand.nextInt(nodes.size())), null));
+        }
+        for (int pn = 0; pn < nPl; ++pn)
+            ga.getPlayer(pn).clearPotentialSettlements();
+
+        int numChanged = 0, prevSum = checkAll(ga, "initial");
+        for (int step = 0; step < numSteps; ++step)
+        {
+            final SOCPlayer pl = ga.getPlayer(rand.nextInt(nPl));
+            final int action = rand.nextInt(10);
+            final String desc = "step " + step + " pn " + pl.getPlayerNumber() + " action " + action;
+
+            if (action == 0)
+            {
+                // settlement to break an opponent's route, if possible
+                final SOCPlayer opp = ga.getPlayer((pl.getPlayerNumber() + 1 + rand.nextInt(nPl - 1)) % nPl);
+                for (final int node : opp.getRoadNodes())
+                {
+                    if ((board.settlementAtNode(node) == null) && pl.isLegalSettlement(node)
+                        && (pl.getNumPieces(SOCPlayingPiece.SETTLEMENT) > 0))
+                    {
+                        ga.putPiece(new SOCSettlement(pl, node, null));
+                        break;
+                    }
+                }
+            }
+            else if (action == 1)
+            {
+                final List<Integer> nodes = new ArrayList<>(pl.getPotentialSettlements());
+                if ((! nodes.isEmpty()) && (pl.getNumPieces(SOCPlayingPiece.SETTLEMENT) > 0))
+                    ga.putPiece(new SOCSettlement(pl, nodes.get(rand.nextInt(nodes.size())), null));
+            } else {
+                final boolean ship = ga.hasSeaBoard && rand.nextBoolean();
+                final List<Integer> edges = potentialRoutes(pl, ship);
+                final int ptype = (ship) ? SOCPlayingPiece.SHIP : SOCPlayingPiece.ROAD;
+                if (edges.isEmpty() || (pl.getNumPieces(ptype) == 0))
+                    continue;
+
+                final int edge = edges.get(rand.nextInt(edges.size()));
+                final SOCRoutePiece rs = (ship) ? new SOCShip(pl, edge, null) : new SOCRoad(pl, edge, null);
+                if (action == 2)
+                {
+                    ga.putTempPiece(rs);
+                    checkAll(ga, desc + " trial");
+                    ga.undoPutTempPiece(rs);
+                } else {
+                    ga.putPiece(rs);
+                }
+            }
+
+            final int sum = checkAll(ga, desc);
+            if (sum != prevSum)
+                ++numChanged;
+            prevSum = sum;
+        }
+
+        return numChanged;
+    }
+
+    /**
+     * Create and start a game; {@code opts} are for a large sea board, or null for classic.
+     * Call {@link #setup()} once before calling this method.
+     */
+    static SOCGame startGame(final int nPl, final String scName, final String opts, final String gaName)
+    {
+        final SOCGame ga = (opts == null && scName == null)
+            ? new SOCGame(gaName)
+            : GameTestUtils.createGame(nPl, scName, opts, gaName, gl, sgh);
+        for (int pn = 0; pn < nPl; ++pn)
+            ga.addPlayer("p" + pn, pn);
+        ga.startGame();
+        if (ga.hasSeaBoard)
+            SOCBoardAtServer.startGame_scenarioSetup(ga);
+        ga.setGameState(SOCGame.PLAY1);
+
+        return ga;
+    }
+
+    /** Randomized classic 4-player games. */
+    @Test
+    public void testClassicSameAsFullSearch()
+    {
+        final Random rand = new Random(2716);
+        int numChanged = 0;
+        for (int g = 0; g < 30; ++g)
+            numChanged += placeRandomly(startGame(4, null, null, "classic" + g), rand, 80);
+
+        assertTrue("longest routes changed during test", numChanged > 100);
+    }
+
+    /** Randomized large sea board games, with ships and road-ship transitions. */
+    @Test
+    public void testSeaBoardSameAsFullSearch()
+    {
+        final Random rand = new Random(2717);
+        int numChanged = 0;
+        for (int g = 0; g < 12; ++g)
+        {
+            final String gaName = "sea" + g;
+            final SOCGame ga = (g % 2 == 0)
+                ? startGame(4, null, "SBL=t", gaName)
+                : startGame(6, SOCScenario.K_SC_4ISL, null, gaName);
+            numChanged += placeRandomly(ga, rand, 100);
+            gl.deleteGame(gaName);
+        }
+
+        assertTrue("longest routes changed during test", numChanged > 40);
+    }
+
+    /**
+     * On the large sea board, in the pattern robots use to evaluate possible roads and ships:
+     * For each one, place it on a copy of the player, calculate, then remove it.
+     * Incremental and full calculations should give the same length for each trial piece.
+     */
+    @Test
+    public void testTrialPiecesSameAsFullSearch()
+    {
+        final Random rand = new Random(2718);
+        final String gaName = "seaTrials";
+        final SOCGame ga = startGame(6, null, "SBL=t", gaName);
+        placeRandomly(ga, rand, 400);
+
+        int numTrials = 0;
+        for (int pn = 0; pn < ga.maxPlayers; ++pn)
+        {
+            final SOCPlayer pl = ga.getPlayer(pn);
+            pl.calcLongestRoad2();  // as if game just updated it
+            final SOCPlayer dummy = new SOCPlayer(pl, "dummy");
+            for (int type = 0; type <= 1; ++type)
+                for (final int edge : potentialRoutes(dummy, type == 1))
+                {
+                    final SOCRoutePiece rs = (type == 1)
+                        ? new SOCShip(dummy, edge, null) : new SOCRoad(dummy, edge, null);
+                    dummy.putPiece(rs, true);
+                    final int inc = dummy.calcLongestRoad2();
+                    assertEquals
+                        ("pn " + pn + " trial at 0x" + Integer.toHexString(edge),
+                         dummy.calcLongestRoad2_fullSearch(), inc);
+                    dummy.removePiece(rs, null);
+                    ++numTrials;
+                }
+            dummy.destroyPlayer();
+        }
+        gl.deleteGame(gaName);
+
+        assertTrue("enough trial pieces: " + numTrials, numTrials > 20);
+    }
+
+}
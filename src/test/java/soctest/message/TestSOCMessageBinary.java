@@ -0,0 +1,299 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * This file Copyright (C) 2026 Jeremy D Monin <jeremy@nand.net>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The maintainer of this program can be reached at jsettlers@nand.net
+ **/
+
+package soctest.message;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import soc.game.SOCBoard;
+import soc.game.SOCGame;
+import soc.game.SOCPlayingPiece;
+import soc.message.SOCBoardLayout2;
+import soc.message.SOCGameState;
+import soc.message.SOCMessage;
+import soc.message.SOCMessageBinaryReader;
+import soc.message.SOCMessageBinaryWriter;
+import soc.message.SOCPlayerElement;
+import soc.message.SOCPlayerElement.PEType;
+import soc.message.SOCPlayerElements;
+import soc.message.SOCPotentialSettlements;
+import soc.message.SOCPutPiece;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the compact binary message encoding: {@link SOCMessageBinaryWriter}, {@link SOCMessageBinaryReader},
+ * and {@link SOCMessage#toMsg(String)} with garbled binary frames. Round-trip encoding of each
+ * message type which has a binary format is tested in {@link TestToCmdToStringParse#testBinaryRoundTrip()}.
+ *<P>
+ * Also has a small benchmark comparing the two encodings' frame sizes and encode/decode times:
+ * {@link #testBenchmarkTextVsBinary()}.
+ * @since 2.7.00
+ */
+public class TestSOCMessageBinary
+{
+    /** Write and read back ints, including boundaries between encoded lengths and negative numbers. */
+    @Test
+    public void testIntsRoundTrip()
+    {
+        final int[] vals =
+            {
+                0, 1, 63, 64, 65, 0x0A0B, 4031, 4032, 4033, 63 * 63 * 64 - 1, 63 * 63 * 64, 0xFFFF,
+                Integer.MAX_VALUE, -1, -2, -100, Integer.MIN_VALUE
+            };
+        final SOCMessageBinaryWriter w = new SOCMessageBinaryWriter(SOCMessage.PUTPIECE);
+        for (final int v : vals)
+            w.writeInt(v);
+        final String frame = w.toString();
+        assertEquals(SOCMessage.BINARY_FRAME_MARKER, frame.charAt(0));
+        for (int i = 1; i < frame.length(); ++i)
+        {
+            final char c = frame.charAt(i);
+            assertTrue("char " + (int) c + " at " + i, (c >= 0x01) && (c <= 0x7F));
+        }
+
+        final SOCMessageBinaryReader r = new SOCMessageBinaryReader(frame);
+        assertEquals(SOCMessage.PUTPIECE, r.readInt());
+        for (final int v : vals)
+            assertEquals(v, r.readInt());
+        assertFalse(r.hasMore());
+
+        // encoded lengths
+        assertEquals(1 + 1, new SOCMessageBinaryWriter(0).writeInt(63).toString().length() - 1);
+        assertEquals(1 + 2, new SOCMessageBinaryWriter(0).writeInt(64).toString().length() - 1);
+        assertEquals(1 + 2, new SOCMessageBinaryWriter(0).writeInt(0x0A0B).toString().length() - 1);
+        assertEquals(1 + 6, new SOCMessageBinaryWriter(0).writeInt(-1).toString().length() - 1);
+    }
+
+    /** Write and read back strings, game names, booleans, and arrays, including nulls and empties. */
+    @Test
+    public void testFieldsRoundTrip()
+    {
+        final String frame = new SOCMessageBinaryWriter(SOCMessage.GAMESTATE)
+            .writeGameName("ga").writeString(null).writeString("").writeString("a|b,c\u0002\u00e9")
+            .writeBoolean(true).writeBoolean(false)
+            .writeIntArray(null).writeIntArray(new int[0]).writeIntArray(new int[]{ 3, -4, 5000 })
+            .writeGameName("ga").writeGameName(null).toString();
+
+        final SOCMessageBinaryReader r = new SOCMessageBinaryReader(frame);
+        assertEquals(SOCMessage.GAMESTATE, r.readInt());
+        final String ga = r.readGameName();
+        assertEquals("ga", ga);
+        assertNull(r.readString());
+        assertEquals("", r.readString());
+        assertEquals("a|b,c\u0002\u00e9", r.readString());
+        assertTrue(r.readBoolean());
+        assertFalse(r.readBoolean());
+        assertNull(r.readIntArray());
+        assertArrayEquals(new int[0], r.readIntArray());
+        assertArrayEquals(new int[]{ 3, -4, 5000 }, r.readIntArray());
+        assertSame("game name reused", ga, r.readGameName());
+        assertNull(r.readGameName());
+        assertFalse(r.hasMore());
+    }
+
+    /** Reader should throw {@link IllegalArgumentException} for garbled or truncated frames, not loop or allocate. */
+    @Test
+    public void testReaderGarbled()
+    {
+        try
+        {
+            new SOCMessageBinaryReader("");
+            fail("empty frame");
+        } catch (IllegalArgumentException e) {}
+        try
+        {
+            new SOCMessageBinaryReader("1026|ga,1");
+            fail("text frame");
+        } catch (IllegalArgumentException e) {}
+
+        final String M = String.valueOf(SOCMessage.BINARY_FRAME_MARKER);
+        final String[] badInts = { M, M + "A", M + "AAAAAAA\u0001", M + "\u0000", M + "\u0080", M + "~~~~~@" };
+        for (final String frame : badInts)
+        {
+            try
+            {
+                new SOCMessageBinaryReader(frame).readInt();
+                fail("should throw: " + debugString(frame));
+            } catch (IllegalArgumentException e) {}
+        }
+
+        // length longer than rest of frame, or less than -1
+        final String[] badLengths =
+            {
+                new SOCMessageBinaryWriter(0).writeInt(3).writeInt(1).toString(),
+                new SOCMessageBinaryWriter(0).writeInt(Integer.MAX_VALUE).toString(),
+                new SOCMessageBinaryWriter(0).writeInt(-2).toString()
+            };
+        for (final String frame : badLengths)
+        {
+            final SOCMessageBinaryReader r = new SOCMessageBinaryReader(frame);
+            r.readInt();
+            try
+            {
+                r.readIntArray();
+                fail("readIntArray should throw: " + debugString(frame));
+            } catch (IllegalArgumentException e) {}
+        }
+    }
+
+    /** For failure messages, show a binary frame's characters as hex. */
+    private static String debugString(final String frame)
+    {
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < frame.length(); ++i)
+        {
+            if (i > 0)
+                sb.append(' ');
+            sb.append(Integer.toHexString(frame.charAt(i)));
+        }
+
+        return sb.toString();
+    }
+
+    /** {@link SOCMessage#toMsg(String)} should return null for garbled or truncated binary frames. */
+    @Test
+    public void testToMsgGarbled()
+    {
+        final String full = new SOCPutPiece("ga", 2, SOCPlayingPiece.SETTLEMENT, 0x0A0B).toBinaryCmd();
+        assertNotNull(SOCMessage.toMsg(full));
+        for (int L = 1; L < full.length(); ++L)
+            assertNull("truncated to " + L, SOCMessage.toMsg(full.substring(0, L)));
+
+        final String[] frames =
+            {
+                new SOCMessageBinaryWriter(SOCMessage.CHANNELS).writeString("x").toString(),  // no binary format
+                new SOCMessageBinaryWriter(99999).toString(),  // unknown type
+                new SOCMessageBinaryWriter(SOCMessage.PLAYERELEMENTS).writeGameName("ga")
+                    .writeIntArray(new int[]{ 1, 100, 6 }).toString(),  // too short
+                new SOCMessageBinaryWriter(SOCMessage.PLAYERELEMENTS).writeGameName("ga")
+                    .writeIntArray(new int[]{ 1, 100, 6, 2, 7 }).toString(),  // odd length
+                new SOCMessageBinaryWriter(SOCMessage.GAMEELEMENTS).writeGameName("ga")
+                    .writeIntArray(null).toString(),
+                new SOCMessageBinaryWriter(SOCMessage.DICERESULTRESOURCES).writeGameName("ga")
+                    .writeIntArray(new int[0]).toString(),
+                new SOCMessageBinaryWriter(SOCMessage.BOARDLAYOUT2).writeGameName("ga").writeInt(1)
+                    .writeInt(1).writeString("HL").writeInt(9).writeInt(1).toString(),  // unknown part type
+            };
+        for (final String frame : frames)
+            assertNull(debugString(frame), SOCMessage.toMsg(frame));
+    }
+
+    /**
+     * Messages for {@link #testBinarySmallerThanText()}: Typical messages sent often during game play,
+     * and larger messages sent when a game starts. Also used by benchmark {@code BenchSOCMessageBinary}.
+     * @return  new array of messages, each type of which has a binary format
+     */
+    public static SOCMessage[] buildBenchmarkMessages()
+    {
+        final String ga = "benchmark game";
+
+        // classic board layout, as sent at start of a 4-player game
+        final int[] hl = new int[37], nl = new int[37];
+        for (int i = 0; i < hl.length; ++i)
+        {
+            hl[i] = (i * 7) % 6;
+            nl[i] = ((i * 5) % 11) + 2;
+        }
+        final int[] pl = { 0, 0x27, 1, 0x5A, 2, 0x9C, 3, 0xA5, 4, 0xC7, 5, 0x6A, 0, 0x24, 0, 0x53, 0, 0x2A };
+        final SOCBoardLayout2 layoutClassic = new SOCBoardLayout2(ga, SOCBoard.BOARD_ENCODING_6PLAYER, hl, nl, pl, 0x9B);
+
+        // large sea board layout parts
+        final Map<String, Object> parts = new HashMap<>();
+        final int[] lh = new int[120], lpl = new int[90];
+        for (int i = 0; i < lh.length; ++i)
+            lh[i] = (i % 2 == 0) ? ((i / 2) % 7) : (0x0103 + (i * 0x101) % 0x0F0F);
+        for (int i = 0; i < lpl.length; ++i)
+            lpl[i] = (i % 3 == 0) ? (i % 6) : (0x0204 + (i * 0x102) % 0x0E0E);
+        parts.put("LH", lh);
+        parts.put("PL", lpl);
+        parts.put("RH", 0x0B07);
+        parts.put("VS", new int[]{ 0, 0, 3, 0x0902, 0x0A05, 0x0C0A });
+        final SOCBoardLayout2 layoutLarge = new SOCBoardLayout2(ga, SOCBoard.BOARD_ENCODING_LARGE, parts);
+
+        final List<Integer> psList = new ArrayList<>();
+        for (int r = 0x03; r <= 0x0D; r += 2)
+            for (int c = 0x02; c <= 0x0C; ++c)
+                psList.add((r << 8) | c);
+        final SOCPotentialSettlements potentialSettles = new SOCPotentialSettlements(ga, 2, psList);
+
+        return new SOCMessage[]
+            {
+                layoutClassic, layoutLarge, potentialSettles,
+                new SOCPutPiece(ga, 2, SOCPlayingPiece.ROAD, 0x0A0B),
+                new SOCGameState(ga, SOCGame.PLAY1),
+                new SOCPlayerElement(ga, 1, SOCPlayerElement.GAIN, PEType.ORE, 2),
+                new SOCPlayerElements
+                    (ga, 3, SOCPlayerElement.SET,
+                     new PEType[]{ PEType.CLAY, PEType.ORE, PEType.SHEEP, PEType.WHEAT, PEType.WOOD },
+                     new int[]{ 1, 0, 3, 2, 4 })
+            };
+    }
+
+    /**
+     * Size of a message as sent over the network by
+     * {@link java.io.DataOutputStream#writeUTF(String)}, including its 2-byte length prefix.
+     */
+    private static int wireSize(final String frame)
+        throws IOException
+    {
+        final ByteArrayOutputStream bout = new ByteArrayOutputStream();
+        new DataOutputStream(bout).writeUTF(frame);
+        return bout.size();
+    }
+
+    /**
+     * Text ({@link SOCMessage#toCmd()}) vs binary ({@link SOCMessage#toBinaryCmd()}) encodings
+     * of typical messages: Checks that each binary frame is smaller on the wire than its text,
+     * and parses back to the same message.
+     *<P>
+     * Encode + decode times are compared by {@code soctest.message.BenchSOCMessageBinary}
+     * in {@code src/jmh/java}, run with gradle task {@code jmh} instead of unit tests.
+     */
+    @Test
+    public void testBinarySmallerThanText()
+        throws IOException
+    {
+        int textTotal = 0, binTotal = 0;
+        for (final SOCMessage msg : buildBenchmarkMessages())
+        {
+            final String text = msg.toCmd(), bin = msg.toBinaryCmd();
+            assertNotNull(msg.getClass().getSimpleName(), bin);
+            final int textSize = wireSize(text), binSize = wireSize(bin);
+            assertTrue
+                (msg.getClass().getSimpleName() + ": binary " + binSize + " should be smaller than text " + textSize,
+                 binSize < textSize);
+            assertEquals(text, SOCMessage.toMsg(bin).toCmd());
+            textTotal += textSize;
+            binTotal += binSize;
+        }
+
+        assertTrue("binary total " + binTotal + " should be under 3/4 of text total " + textTotal,
+            binTotal * 4 < textTotal * 3);
+    }
+
+}
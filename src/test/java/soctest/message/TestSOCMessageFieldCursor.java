@@ -0,0 +1,164 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * This file Copyright (C) 2026 Jeremy D Monin <jeremy@nand.net>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The maintainer of this program can be reached at jsettlers@nand.net
+ **/
+
+package soctest.message;
+
+import java.util.NoSuchElementException;
+import java.util.StringTokenizer;
+
+import soc.message.SOCDiceResult;
+import soc.message.SOCMessage;
+import soc.message.SOCMessageFieldCursor;
+import soc.message.SOCPlayerElements;
+import soc.message.SOCResetBoardVote;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link SOCMessageFieldCursor}, and for {@link SOCMessage#toMsg(String)}
+ * with garbled data for message types which parse with a cursor.
+ * Well-formed messages of those types are tested in {@link TestToCmdToStringParse}.
+ * @since 2.7.00
+ */
+public class TestSOCMessageFieldCursor
+{
+    /**
+     * Check field boundaries against {@link StringTokenizer},
+     * including empty fields and leading or trailing delimiters.
+     */
+    @Test
+    public void testFieldsLikeTokenizer()
+    {
+        final String[] strs =
+            { "", "|", "||", "a", "|a", "a|", "a||b", "||a|b||c|", "1000|ga,3", "ga,3,,4,", "x|,|y" };
+        for (final String str : strs)
+        {
+            final StringTokenizer st = new StringTokenizer(str, "|");
+            final SOCMessageFieldCursor c = new SOCMessageFieldCursor(str, '|');
+            assertEquals(str, st.countTokens(), c.countRemaining());
+            while (st.hasMoreTokens())
+            {
+                assertTrue(str, c.hasNext());
+                assertEquals(str, st.nextToken(), c.nextString());
+            }
+            assertFalse(str, c.hasNext());
+            assertEquals(0, c.countRemaining());
+            try
+            {
+                c.nextString();
+                fail("nextString past end should throw: " + str);
+            } catch (NoSuchElementException e) {}
+            try
+            {
+                c.nextInt();
+                fail("nextInt past end should throw: " + str);
+            } catch (NoSuchElementException e) {}
+        }
+    }
+
+    /** Check {@link SOCMessageFieldCursor#nextInt()} gives same results as {@link Integer#parseInt(String)}. */
+    @Test
+    public void testNextIntLikeParseInt()
+    {
+        final String[] strs =
+            {
+                "0", "7", "-7", "+7", "007", "-0", "2147483647", "-2147483648",
+                "2147483648", "-2147483649", "99999999999", "+", "-", "+-3", "3-", "1a", "a1", " 1",
+                "\u0663\u0664"  // Arabic-Indic digits, accepted by parseInt
+            };
+        for (final String str : strs)
+        {
+            Integer expected;
+            try
+            {
+                expected = Integer.parseInt(str);
+            } catch (NumberFormatException e) {
+                expected = null;
+            }
+
+            final SOCMessageFieldCursor c = new SOCMessageFieldCursor(str + ",5", ',');
+            Integer actual;
+            try
+            {
+                actual = c.nextInt();
+            } catch (NumberFormatException e) {
+                actual = null;
+            }
+            assertEquals(str, expected, actual);
+            assertEquals("moved past field " + str, 5, c.nextInt());
+        }
+    }
+
+    /** Test {@link SOCMessageFieldCursor#nextInts()} and {@link SOCMessageFieldCursor#enterField(char)}. */
+    @Test
+    public void testNextIntsAndEnterField()
+    {
+        SOCMessageFieldCursor c = new SOCMessageFieldCursor("ga|1|-2|3", '|');
+        assertEquals("ga", c.nextString());
+        assertArrayEquals(new int[]{1, -2, 3}, c.nextInts());
+        assertArrayEquals(new int[0], c.nextInts());
+
+        c = new SOCMessageFieldCursor("1028|ga,12,3|x,4", '|');
+        assertEquals(1028, c.nextInt());
+        c.enterField(',');
+        assertEquals(3, c.countRemaining());
+        assertEquals("ga", c.nextString());
+        assertArrayEquals(new int[]{12, 3}, c.nextInts());
+        assertFalse(c.hasNext());
+
+        c = new SOCMessageFieldCursor("1028", '|');
+        assertEquals(1028, c.nextInt());
+        c.enterField(',');
+        assertFalse(c.hasNext());
+    }
+
+    /** Garbled or truncated messages of cursor-parsed types should still parse to null, not throw. */
+    @Test
+    public void testToMsgGarbled()
+    {
+        final String[] cmds =
+            {
+                SOCMessage.DICERESULT + "", SOCMessage.DICERESULT + "|ga", SOCMessage.DICERESULT + "|ga,x",
+                SOCMessage.DICERESULT + "|ga,99999999999",
+                SOCMessage.RESETBOARDVOTE + "|ga,1", SOCMessage.RESETBOARDVOTE + "|ga,1|0",
+                SOCMessage.PLAYERELEMENTS + "|ga", SOCMessage.PLAYERELEMENTS + "|ga|1|100|6",
+                SOCMessage.PLAYERELEMENTS + "|ga|1|100|6|x", SOCMessage.PLAYERSTATS + "|ga",
+                SOCMessage.DICERESULTRESOURCES + "|ga|-",
+                SOCMessage.GAMEELEMENTS + "|ga|1", SOCMessage.BOTGAMEDATACHECK + "|ga|1",
+                SOCMessage.SETSHIPROUTECLOSED + "|ga|1"
+            };
+        for (final String cmd : cmds)
+            assertNull(cmd, SOCMessage.toMsg(cmd));
+
+        // sanity checks: well-formed, with extra delimiters
+        SOCMessage m = SOCMessage.toMsg(SOCMessage.DICERESULT + "||ga,,9,|");
+        assertTrue(m instanceof SOCDiceResult);
+        assertEquals(9, ((SOCDiceResult) m).getResult());
+        m = SOCMessage.toMsg(SOCMessage.RESETBOARDVOTE + "|ga,2,1|extra");
+        assertTrue(m instanceof SOCResetBoardVote);
+        assertEquals(2, ((SOCResetBoardVote) m).getPlayerNumber());
+        m = SOCMessage.toMsg(SOCMessage.PLAYERELEMENTS + "|ga|1|100|6|2||7|-1|");
+        assertTrue(m instanceof SOCPlayerElements);
+        assertArrayEquals(new int[]{6, 7}, ((SOCPlayerElements) m).getElementTypes());
+        assertArrayEquals(new int[]{2, -1}, ((SOCPlayerElements) m).getAmounts());
+    }
+
+}
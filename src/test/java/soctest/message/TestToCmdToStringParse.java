@@ -1,6 +1,6 @@
 /**
  * Java Settlers - An online multiplayer version of the game Settlers of Catan
- * This file Copyright (C) 2020-2025 Jeremy D Monin <jeremy@nand.net>
+ * This file Copyright (C) 2020-2026 Jeremy D Monin <jeremy@nand.net>
  *
  * This program is free software; you can redistribute it and/or
  * modify it under the terms of the GNU General Public License
@@ -32,6 +32,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.SortedMap;
+import java.util.StringTokenizer;
 import java.util.TreeMap;
 
 import soc.game.GameAction;
@@ -903,6 +904,13 @@ public class TestToCmdToStringParse
             "SOCMakeOffer:game=ga|offer=game=ga|from=3|to=false,false,true,false|give=clay=0|ore=1|sheep=0|wheat=1|wood=0|unknown=0|get=clay=0|ore=0|sheep=1|wheat=0|wood=0|unknown=0",
             OPT_PARSE_ONLY
         },
+        {
+            // has only binary format; testBinaryRoundTrip checks that
+            new SOCMessageBatch("ga", Arrays.asList("1025|ga,20", new SOCTurn("ga", 2, 0).toBinaryCmd())),
+            null,
+            "SOCMessageBatch:game=ga|count=2|msgs=[SOCGameState:game=ga|state=20, SOCTurn:game=ga|playerNumber=2]",
+            OPT_SKIP_PARSE
+        },
         {
             new SOCMovePiece("ga", 1, SOCPlayingPiece.SHIP, 0xc06, 0xf06),
             "1093|ga,1,3,3078,3846",
@@ -1296,6 +1304,129 @@ public class TestToCmdToStringParse
             fail("TOCMD_TOSTRING_COMPARES doesn't test these MESSAGE_RENAME_MAP new types: " + unseenNewNames);
     }
 
+    /**
+     * For every {@code toCmd} string in {@link #TOCMD_TOSTRING_COMPARES}, check that {@link SOCMessageFieldCursor}
+     * finds the same fields as the {@link StringTokenizer} formerly used by {@link SOCMessage#toMsg(String)}.
+     * For message types which {@code toMsg} now parses with a cursor ({@link SOCMessageTemplate1i},
+     * {@link SOCMessageTemplate2i}, {@link SOCMessageTemplateMi} subclasses), also check that result
+     * is identical to the message type's {@code String} or {@code List<String>} parseDataStr.
+     * @since 2.7.00
+     */
+    @Test
+    public void testFieldCursorMatchesTokenizer()
+        throws Exception
+    {
+        StringBuilder results = new StringBuilder();
+
+        for (Object[] compareCase : TOCMD_TOSTRING_COMPARES)
+        {
+            final String cmd = (String) compareCase[1];
+            if (cmd == null)
+                continue;
+
+            final List<String> fields = new ArrayList<>();
+            final StringTokenizer st = new StringTokenizer(cmd, SOCMessage.sep);
+            final SOCMessageFieldCursor c = new SOCMessageFieldCursor(cmd, SOCMessage.sep_char);
+            assertEquals(cmd, st.countTokens(), c.countRemaining());
+            while (st.hasMoreTokens())
+            {
+                final String tok = st.nextToken();
+                fields.add(tok);
+                assertEquals(cmd, tok, c.nextString());
+            }
+            assertFalse(cmd, c.hasNext());
+
+            final SOCMessage msg = (SOCMessage) compareCase[0];
+            final Class<? extends SOCMessage> msgClass = msg.getClass();
+            final SOCMessage legacy;
+            if (msg instanceof SOCMessageTemplateMi)
+                legacy = (SOCMessage) msgClass.getMethod("parseDataStr", List.class).invoke
+                    (null, (fields.size() > 2) ? fields.subList(1, fields.size()) : null);
+            else if ((msg instanceof SOCMessageTemplate1i) || (msg instanceof SOCMessageTemplate2i))
+                legacy = (SOCMessage) msgClass.getMethod("parseDataStr", String.class).invoke
+                    (null, (fields.size() > 1) ? fields.get(1) : "");
+            else
+                continue;
+
+            final SOCMessage parsed = SOCMessage.toMsg(cmd);
+            StringBuilder res = new StringBuilder();
+            if ((legacy == null) || (parsed == null))
+                res.append(" legacy parse " + legacy + ", cursor parse " + parsed);
+            else if (! legacy.toCmd().equals(parsed.toCmd()))
+                res.append(" legacy toCmd \"" + legacy.toCmd() + "\", cursor toCmd \"" + parsed.toCmd() + '"');
+            else
+                compareMsgObjFields(msgClass, legacy, parsed, res, null);
+
+            if (res.length() > 0)
+                results.append(msgClass.getSimpleName()).append(':').append(res).append("\n");
+        }
+
+        if (results.length() > 0)
+        {
+            System.err.println("testFieldCursorMatchesTokenizer: " + results);
+            fail(results.toString());
+        }
+    }
+
+    /**
+     * For every message in {@link #TOCMD_TOSTRING_COMPARES} whose type {@link SOCMessage#hasBinaryFormat(int)},
+     * check that its {@link SOCMessage#toBinaryCmd()} parses back with {@link SOCMessage#toMsg(String)}
+     * to a message with the same {@code toCmd()} and the same fields as parsing that {@code toCmd()}. Also checks that other types' {@code toBinaryCmd()} is null.
+     * @since 2.7.00
+     */
+    @Test
+    public void testBinaryRoundTrip()
+    {
+        StringBuilder results = new StringBuilder();
+        final Set<Integer> typesSeen = new HashSet<>();
+
+        for (Object[] compareCase : TOCMD_TOSTRING_COMPARES)
+        {
+            final SOCMessage msg = (SOCMessage) compareCase[0];
+            final Class<? extends SOCMessage> msgClass = msg.getClass();
+            final String bin = msg.toBinaryCmd();
+            if (! SOCMessage.hasBinaryFormat(msg.getType()))
+            {
+                if (bin != null)
+                    results.append(msgClass.getSimpleName()).append(": toBinaryCmd should be null\n");
+                continue;
+            }
+
+            typesSeen.add(msg.getType());
+            StringBuilder res = new StringBuilder();
+            if (bin == null)
+            {
+                res.append(" toBinaryCmd is null");
+            } else {
+                final SOCMessage parsed = SOCMessage.toMsg(bin), fromText = SOCMessage.toMsg(msg.toCmd());
+                if (parsed == null)
+                    res.append(" binary parse returned null");
+                else if (! msg.toCmd().equals(parsed.toCmd()))
+                    res.append(" toCmd \"" + msg.toCmd() + "\", from binary \"" + parsed.toCmd() + '"');
+                else
+                    compareMsgObjFields(msgClass, fromText, parsed, res, null);
+            }
+
+            if (res.length() > 0)
+                results.append(msgClass.getSimpleName()).append(':').append(res).append("\n");
+        }
+
+        for (int type : new int[]{ SOCMessage.BOARDLAYOUT2, SOCMessage.DICERESULT, SOCMessage.DICERESULTRESOURCES,
+                SOCMessage.GAMEELEMENTS, SOCMessage.GAMESTATE, SOCMessage.PLAYERELEMENT, SOCMessage.PLAYERELEMENTS,
+                SOCMessage.MESSAGEBATCH, SOCMessage.POTENTIALSETTLEMENTS, SOCMessage.PUTPIECE, SOCMessage.TURN })
+        {
+            assertTrue("hasBinaryFormat(" + type + ")", SOCMessage.hasBinaryFormat(type));
+            if (! typesSeen.contains(type))
+                results.append("TOCMD_TOSTRING_COMPARES has no case for binary type ").append(type).append("\n");
+        }
+
+        if (results.length() > 0)
+        {
+            System.err.println("testBinaryRoundTrip: " + results);
+            fail(results.toString());
+        }
+    }
+
     /**
      * Test various forms of messages which need more detailed checks than
      * {@link #testRoundTripParsing()} runs on {@link #SCENS_KEY_LIST}:
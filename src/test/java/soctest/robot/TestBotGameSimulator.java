@@ -0,0 +1,130 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * This file Copyright (C) 2026 Jeremy D Monin <jeremy@nand.net>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The maintainer of this program can be reached at jsettlers@nand.net
+ **/
+
+package soctest.robot;
+
+import soc.game.SOCDevCardConstants;
+import soc.game.SOCGame;
+import soc.game.SOCPlayer;
+import soc.game.SOCResourceConstants;
+import soc.game.SOCResourceSet;
+import soc.robot.BotGameSimulator;
+import soc.robot.SOCRobotDM;
+import soc.util.SOCRobotParameters;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link BotGameSimulator}.
+ * @since 2.7.00
+ */
+public class TestBotGameSimulator
+{
+    private static final SOCRobotParameters PARAMS_FAST
+        = new SOCRobotParameters(120, 35, 0.13f, 1.0f, 1.0f, 3.0f, 1.0f, SOCRobotDM.FAST_STRATEGY, 1);
+
+    /** Constructor should reject too few or too many seats. */
+    @Test(expected=IllegalArgumentException.class)
+    public void testConstructorTooFewSeats()
+    {
+        new BotGameSimulator(new SOCRobotParameters[]{ PARAMS_FAST });
+    }
+
+    /**
+     * Play a few games one at a time: Each should end with a winner who has enough VP,
+     * unless it reached the round limit. Each player's view of the game should agree with
+     * the authoritative game about its own resources and everyone's resource totals,
+     * but shouldn't always know other players' resource types or dev cards.
+     */
+    @Test(timeout = 60000)
+    public void testPlayGame()
+    {
+        final BotGameSimulator sim = new BotGameSimulator
+            (new SOCRobotParameters[]{ PARAMS_FAST, PARAMS_FAST, PARAMS_FAST, PARAMS_FAST });
+        boolean sawHiddenInfo = false;
+        for (int i = 0; i < 3; ++i)
+        {
+            final SOCGame[] views = new SOCGame[4];
+            final SOCGame ga = sim.playGame("test-" + i, views);
+            assertFalse(ga.isInitialPlacement());
+            if (ga.getGameState() == SOCGame.OVER)
+            {
+                final SOCPlayer winner = ga.getPlayerWithWin();
+                assertNotNull(winner);
+                assertTrue(winner.getTotalVP() >= ga.vp_winner);
+            } else {
+                assertTrue(ga.getRoundCount() > BotGameSimulator.MAX_ROUNDS_DEFAULT);
+            }
+
+            for (int viewPN = 0; viewPN < 4; ++viewPN)
+            {
+                final SOCGame view = views[viewPN];
+                assertNotNull(view);
+                assertNotSame(ga, view);
+                for (int pn = 0; pn < 4; ++pn)
+                {
+                    final SOCResourceSet rs = ga.getPlayer(pn).getResources(),
+                        viewRs = view.getPlayer(pn).getResources();
+                    assertEquals("view " + viewPN + " pn " + pn + " total", rs.getTotal(), viewRs.getTotal());
+                    if (pn == viewPN)
+                    {
+                        assertEquals("view " + viewPN + " own resources", rs, viewRs);
+                    }
+                    else if ((viewRs.getAmount(SOCResourceConstants.UNKNOWN) > 0)
+                        || (view.getPlayer(pn).getInventory().getAmount(SOCDevCardConstants.UNKNOWN) > 0))
+                    {
+                        sawHiddenInfo = true;
+                    }
+                }
+            }
+        }
+
+        assertTrue("players should see some opponents' resources or dev cards as unknown", sawHiddenInfo);
+    }
+
+    /** {@link BotGameSimulator#run(int, int)} should count every game and seat win. */
+    @Test(timeout = 60000)
+    public void testRunResults()
+        throws InterruptedException
+    {
+        final BotGameSimulator sim = new BotGameSimulator
+            (new SOCRobotParameters[]{ PARAMS_FAST, PARAMS_FAST, PARAMS_FAST });
+        final BotGameSimulator.Results res = sim.run(6, 2);
+
+        assertEquals(6, res.numGames);
+        assertEquals(0, res.numErrors);
+        assertEquals(3, res.winsBySeat.length);
+        int wins = 0;
+        double rates = 0;
+        for (int pn = 0; pn < 3; ++pn)
+        {
+            wins += res.winsBySeat[pn];
+            rates += res.winRate(pn);
+        }
+        assertEquals(6, wins + res.numUnfinished);
+        assertEquals(wins / 6.0, rates, 0.0001);
+        if (wins > 0)
+            assertTrue(res.averageRounds() > 0);
+        assertTrue("bots should trade with each other", res.numPlayerTrades > 0);
+    }
+
+}
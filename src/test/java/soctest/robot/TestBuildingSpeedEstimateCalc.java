@@ -0,0 +1,313 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * This file Copyright (C) 2026 Jeremy D Monin <jeremy@nand.net>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The maintainer of this program can be reached at jsettlers@nand.net
+ **/
+
+package soctest.robot;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import soc.game.SOCCity;
+import soc.game.SOCDevCard;
+import soc.game.SOCGame;
+import soc.game.SOCGameOption;
+import soc.game.SOCGameOptionSet;
+import soc.game.SOCPlayer;
+import soc.game.SOCPlayerNumbers;
+import soc.game.SOCResourceSet;
+import soc.game.SOCRoad;
+import soc.game.SOCSettlement;
+import soc.game.SOCShip;
+import soc.robot.SOCBuildingSpeedEstimate;
+import soc.robot.SOCResSetBuildTimePair;
+import soc.util.CutoffExceededException;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link SOCBuildingSpeedEstimate}'s array-based rolls calculations:
+ * Should give the same results as the original {@link SOCResourceSet}-based ones.
+ *<P>
+ * Their speed is compared by {@code soctest.robot.BenchBuildingSpeedEstimateCalc}
+ * in {@code src/jmh/java}, run with gradle task {@code jmh} instead of unit tests.
+ * @since 2.7.00
+ */
+public class TestBuildingSpeedEstimateCalc
+{
+    /** Subclass to call the protected calculation methods. Also used by benchmark. */
+    static final class CalcBSE extends SOCBuildingSpeedEstimate
+    {
+        public CalcBSE(final SOCPlayerNumbers numbers)
+        {
+            super(numbers);
+        }
+
+        /** Fast calc, or null if cutoff exceeded. */
+        public SOCResSetBuildTimePair fast
+            (final boolean bySets, final SOCResourceSet start, final SOCResourceSet target,
+             final int cutoff, final boolean[] ports)
+        {
+            try
+            {
+                return (bySets)
+                    ? calculateRollsAndRsrcFastBySets(start, target, cutoff, ports)
+                    : calculateRollsAndRsrcFast(start, target, cutoff, ports);
+            } catch (CutoffExceededException e) {
+                return null;
+            }
+        }
+
+        /** Accurate calc, or null if cutoff exceeded. */
+        public SOCResSetBuildTimePair accurate
+            (final boolean bySets, final SOCResourceSet start, final SOCResourceSet target,
+             final int cutoff, final boolean[] ports)
+        {
+            try
+            {
+                return (bySets)
+                    ? calculateRollsAccurateBySets(start, target, cutoff, ports)
+                    : calculateRollsAccurate(start, target, cutoff, ports);
+            } catch (CutoffExceededException e) {
+                return null;
+            }
+        }
+
+        /**
+         * Calculate rolls to build each piece type, using the original set-based methods,
+         * like {@link #getEstimatesFromNowFast(SOCResourceSet, boolean[])} and similar methods do
+         * with the array-based ones: If a piece's cutoff is exceeded, it and any later piece types
+         * are left at {@code limit}.
+         * @param accurate  If true use accurate calc, otherwise fast
+         * @return new array of rolls, indexed by piece type {@link #ROAD} to {@link #SHIP}
+         */
+        public int[] estimatesBySets
+            (final boolean accurate, final SOCResourceSet start, final int limit, final boolean[] ports)
+        {
+            final int[] est = new int[MAXPLUSONE];
+            Arrays.fill(est, limit);
+            for (int pt = MIN; pt < MAXPLUSONE; ++pt)
+            {
+                final SOCResSetBuildTimePair pair = (accurate)
+                    ? accurate(true, start, PIECE_COSTS[pt], limit, ports)
+                    : fast(true, start, PIECE_COSTS[pt], limit, ports);
+                if (pair == null)
+                    break;
+                est[pt] = pair.getRolls();
+            }
+
+            return est;
+        }
+    }
+
+    /** Cost of each piece type, indexed by {@link SOCBuildingSpeedEstimate#ROAD} to {@link SOCBuildingSpeedEstimate#SHIP} */
+    private static final SOCResourceSet[] PIECE_COSTS =
+        { SOCRoad.COST, SOCSettlement.COST, SOCCity.COST, SOCDevCard.COST, SOCShip.COST };
+
+    /** Game options for each board type to test: Classic 4-player, 6-player. */
+    private static final String[] BOARD_OPTS = { null, "PL=6,PLB=t" };
+
+    /** Targets to test: Road, settlement, city, dev card, and a larger one. */
+    static final SOCResourceSet[] TARGETS =
+        {
+            new SOCResourceSet(1, 0, 0, 0, 1, 0),
+            new SOCResourceSet(1, 0, 1, 1, 1, 0),
+            new SOCResourceSet(0, 3, 0, 2, 0, 0),
+            new SOCResourceSet(0, 1, 1, 1, 0, 0),
+            new SOCResourceSet(2, 3, 1, 2, 2, 0),
+        };
+
+    /**
+     * Make a classic 4-player game with a player having 1 to 3 settlements at nodes chosen by {@code rand},
+     * and return an estimator for that player's dice numbers.
+     */
+    static CalcBSE makeEstimator(final Random rand)
+    {
+        return makeEstimator(rand, null);
+    }
+
+    /**
+     * Make a game with a player having 1 to 3 settlements at nodes chosen by {@code rand},
+     * and return an estimator for that player's dice numbers.
+     * @param gameOpts  Game options for board type, like {@code "PL=6,PLB=t"}, or {@code null} for classic 4-player
+     */
+    static CalcBSE makeEstimator(final Random rand, final String gameOpts)
+    {
+        final SOCGameOptionSet knownOpts = SOCGameOptionSet.getAllKnownOptions();
+        final SOCGame ga = new SOCGame
+            ("test", (gameOpts != null) ? SOCGameOption.parseOptionsToSet(gameOpts, knownOpts) : null, knownOpts);
+        ga.addPlayer("p", 0);
+        ga.startGame();
+        ga.setGameState(SOCGame.PLAY1);
+
+        final SOCPlayer pl = ga.getPlayer(0);
+        for (int i = 1 + rand.nextInt(3); i > 0; --i)
+        {
+            final Integer[] nodes = pl.getLegalSettlements().toArray(new Integer[0]);
+            ga.putPiece(new SOCSettlement(pl, nodes[rand.nextInt(nodes.length)], null));
+        }
+
+        final CalcBSE bse = new CalcBSE(pl.getNumbers());
+        if (rand.nextInt(3) == 0)
+        {
+            final int[] hexes = ga.getBoard().getLandHexCoords();
+            bse.recalculateEstimates(pl.getNumbers(), hexes[rand.nextInt(hexes.length)]);  // robber
+        }
+
+        return bse;
+    }
+
+    static boolean[] makePorts(final Random rand)
+    {
+        final boolean[] ports = new boolean[6];
+        for (int p = 0; p < ports.length; ++p)
+            ports[p] = (rand.nextInt(4) == 0);
+
+        return ports;
+    }
+
+    static SOCResourceSet makeStart(final Random rand)
+    {
+        return new SOCResourceSet
+            (rand.nextInt(4), rand.nextInt(4), rand.nextInt(4), rand.nextInt(4), rand.nextInt(4),
+             (rand.nextInt(8) == 0) ? 1 : 0);
+    }
+
+    /**
+     * Array-based fast calculation should give exactly the same rolls and resources as the original,
+     * including when cutoff is exceeded.
+     */
+    @Test
+    public void testFastSameAsSets()
+    {
+        final Random rand = new Random(2713);
+        int numCutoff = 0;
+        for (int i = 0; i < 300; ++i)
+        {
+            final CalcBSE bse = makeEstimator(rand);
+            for (int j = 0; j < 20; ++j)
+            {
+                final SOCResourceSet start = makeStart(rand), target = TARGETS[rand.nextInt(TARGETS.length)];
+                final boolean[] ports = makePorts(rand);
+                final int cutoff = (rand.nextBoolean()) ? 5 + rand.nextInt(20) : 100;
+
+                final SOCResSetBuildTimePair bySets = bse.fast(true, start, target, cutoff, ports);
+                assertEquals
+                    ("start " + start + " target " + target, bySets, bse.fast(false, start, target, cutoff, ports));
+                if (bySets == null)
+                    ++numCutoff;
+            }
+        }
+
+        assertTrue("some cutoffs were exceeded", numCutoff > 0);
+
+        final SOCResourceSet unknownTarget = new SOCResourceSet(1, 0, 0, 0, 0, 1);
+        final CalcBSE bse = makeEstimator(rand);
+        assertNull(bse.fast(false, new SOCResourceSet(), unknownTarget, 50, new boolean[6]));
+        assertNull(bse.fast(true, new SOCResourceSet(), unknownTarget, 50, new boolean[6]));
+    }
+
+    /**
+     * Array-based accurate calculation should give the same rolls as the original,
+     * including when cutoff is exceeded. The returned resources should contain the target.
+     */
+    @Test
+    public void testAccurateSameAsSets()
+    {
+        final Random rand = new Random(2714);
+        for (int i = 0; i < 60; ++i)
+        {
+            final CalcBSE bse = makeEstimator(rand);
+            for (int j = 0; j < 5; ++j)
+            {
+                final SOCResourceSet start = makeStart(rand), target = TARGETS[rand.nextInt(TARGETS.length)];
+                final boolean[] ports = makePorts(rand);
+                final int cutoff = (rand.nextBoolean()) ? 3 + rand.nextInt(10) : 100;
+
+                final SOCResSetBuildTimePair bySets = bse.accurate(true, start, target, cutoff, ports),
+                    byArrays = bse.accurate(false, start, target, cutoff, ports);
+                final String desc = "start " + start + " target " + target + " cutoff " + cutoff;
+                if (bySets == null)
+                {
+                    assertNull(desc, byArrays);
+                    continue;
+                }
+
+                assertNotNull(desc, byArrays);
+                assertEquals(desc, bySets.getRolls(), byArrays.getRolls());
+                if (bySets.getResources() == null)
+                    assertNull(desc, byArrays.getResources());
+                else
+                    assertTrue(desc, byArrays.getResources().contains(target));
+            }
+        }
+    }
+
+    /**
+     * The per-piece roll arrays from {@link SOCBuildingSpeedEstimate#getEstimatesFromNowFast(SOCResourceSet, boolean[])},
+     * {@code getEstimatesFromNowAccurate}, {@code getEstimatesFromNothingFast} and {@code getEstimatesFromNothingAccurate},
+     * which use the array-based calculations, should exactly match those from the original set-based calculations
+     * ({@code calculateRollsAndRsrcFastBySets}, {@code calculateRollsAccurateBySets}) for every piece type,
+     * on several board types, layouts and random seeds.
+     */
+    @Test
+    public void testEstimateArraysSameAsSets()
+    {
+        int numCutoff = 0;
+        for (final String boardOpts : BOARD_OPTS)
+        {
+            for (int seed = 1; seed <= 5; ++seed)
+            {
+                final Random rand = new Random(2720 + seed);
+                for (int i = 0; i < 8; ++i)
+                {
+                    final CalcBSE bse = makeEstimator(rand, boardOpts);
+                    final boolean[] ports = makePorts(rand);
+                    final SOCResourceSet start = makeStart(rand);
+                    final int limit = 3 + rand.nextInt(20);
+                    final String desc = "board " + boardOpts + " seed " + seed + " #" + i + " start " + start
+                        + " ports " + Arrays.toString(ports);
+
+                    final int[] fromNowFast = bse.estimatesBySets(false, start, SOCBuildingSpeedEstimate.DEFAULT_ROLL_LIMIT, ports);
+                    assertArrayEquals(desc, fromNowFast, bse.getEstimatesFromNowFast(start, ports));
+                    assertArrayEquals
+                        (desc, bse.estimatesBySets(true, start, SOCBuildingSpeedEstimate.DEFAULT_ROLL_LIMIT, ports),
+                         bse.getEstimatesFromNowAccurate(start, ports));
+
+                    final int[] fromNothingLimit = bse.estimatesBySets(false, SOCResourceSet.EMPTY_SET, limit, ports);
+                    assertArrayEquals
+                        (desc + " limit " + limit, fromNothingLimit, bse.getEstimatesFromNothingFast(ports, limit));
+                    assertArrayEquals
+                        (desc, bse.estimatesBySets(false, SOCResourceSet.EMPTY_SET, SOCBuildingSpeedEstimate.DEFAULT_ROLL_LIMIT, ports),
+                         bse.getEstimatesFromNothingFast(ports));
+                    assertArrayEquals
+                        (desc, bse.estimatesBySets(true, SOCResourceSet.EMPTY_SET, SOCBuildingSpeedEstimate.DEFAULT_ROLL_LIMIT, ports),
+                         bse.getEstimatesFromNothingAccurate(ports));
+
+                    if (fromNothingLimit[SOCBuildingSpeedEstimate.SHIP] == limit)
+                        ++numCutoff;
+                }
+            }
+        }
+
+        assertTrue("some limits were reached", numCutoff > 0);
+    }
+
+}
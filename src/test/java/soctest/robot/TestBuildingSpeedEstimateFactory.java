@@ -0,0 +1,152 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * This file Copyright (C) 2026 Jeremy D Monin <jeremy@nand.net>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The maintainer of this program can be reached at jsettlers@nand.net
+ **/
+
+package soctest.robot;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import soc.game.SOCGame;
+import soc.game.SOCPlayer;
+import soc.game.SOCPlayerNumbers;
+import soc.game.SOCResourceConstants;
+import soc.game.SOCResourceSet;
+import soc.game.SOCSettlement;
+import soc.robot.SOCBuildingSpeedEstimate;
+import soc.robot.SOCBuildingSpeedEstimateFactory;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link SOCBuildingSpeedEstimateFactory} and its cache of estimate results.
+ * @since 2.7.00
+ */
+public class TestBuildingSpeedEstimateFactory
+{
+    /**
+     * Make a game and return each of its 4 players' dice numbers,
+     * from 0 to 3 settlements each at nodes chosen by {@code rand}.
+     */
+    private static SOCPlayerNumbers[] makeNumbers(final Random rand)
+    {
+        final SOCGame ga = new SOCGame("test");
+        for (int pn = 0; pn < 4; ++pn)
+            ga.addPlayer("p" + pn, pn);
+        ga.startGame();
+        ga.setGameState(SOCGame.PLAY1);
+
+        final SOCPlayerNumbers[] nums = new SOCPlayerNumbers[4];
+        for (int pn = 0; pn < 4; ++pn)
+        {
+            final SOCPlayer pl = ga.getPlayer(pn);
+            for (int i = 0; i < pn; ++i)
+            {
+                final List<Integer> nodes = new ArrayList<>(pl.getLegalSettlements());
+                ga.putPiece(new SOCSettlement(pl, nodes.get(rand.nextInt(nodes.size())), null));
+            }
+            nums[pn] = pl.getNumbers();
+        }
+
+        return nums;
+    }
+
+    /**
+     * Estimates from a caching factory should equal those from an uncached one,
+     * for various numbers, robber hexes, ports, and starting resources, including cutoffs exceeded.
+     */
+    @Test
+    public void testCachedSameAsUncached()
+    {
+        final Random rand = new Random(2700);
+        final SOCBuildingSpeedEstimateFactory cached = new SOCBuildingSpeedEstimateFactory(null, 64),
+            uncached = new SOCBuildingSpeedEstimateFactory(null, 0);
+        final SOCPlayerNumbers[] nums = makeNumbers(rand);
+
+        for (int i = 0; i < 2000; ++i)
+        {
+            final SOCPlayerNumbers pnum = nums[rand.nextInt(nums.length)];
+            final boolean[] ports = new boolean[6];
+            for (int p = 0; p < ports.length; ++p)
+                ports[p] = rand.nextInt(4) == 0;
+            final SOCResourceSet rs = new SOCResourceSet
+                (rand.nextInt(3), rand.nextInt(3), rand.nextInt(3), rand.nextInt(3), rand.nextInt(3), 0);
+
+            final SOCBuildingSpeedEstimate bc = cached.getEstimator(pnum), bu = uncached.getEstimator(pnum);
+            if (rand.nextBoolean())
+            {
+                final int robberHex = (rand.nextBoolean()) ? 0x55 : 0x77;
+                bc.recalculateEstimates(pnum, robberHex);
+                bu.recalculateEstimates(pnum, robberHex);
+            }
+            assertArrayEquals(bu.getEstimatesFromNowFast(rs, ports), bc.getEstimatesFromNowFast(rs, ports));
+            assertArrayEquals(bu.getEstimatesFromNothingFast(ports, 20), bc.getEstimatesFromNothingFast(ports, 20));
+            if (i % 50 == 0)
+                assertArrayEquals(bu.getEstimatesFromNowAccurate(rs, ports), bc.getEstimatesFromNowAccurate(rs, ports));
+        }
+
+        assertTrue(cached.getCacheHits() > 0);
+        assertTrue(cached.getCacheMisses() > 0);
+        assertTrue("cache is bounded", cached.getCacheSize() <= 64);
+        assertEquals(0, uncached.getCacheHits());
+        assertEquals(0, uncached.getCacheMisses());
+        assertEquals(0, uncached.getCacheSize());
+    }
+
+    /**
+     * Repeating the same estimate should be a cache hit, even from a different estimator of the same factory.
+     */
+    @Test
+    public void testHitsAndMisses()
+    {
+        final SOCBuildingSpeedEstimateFactory bsef = new SOCBuildingSpeedEstimateFactory(null);
+        final SOCPlayerNumbers pnum = makeNumbers(new Random(1))[3];
+        // produce every resource, so no estimate exceeds its cutoff and skips the rest
+        final int[] diceNums = {0, 5, 6, 8, 9, 10};
+        for (int rtype = SOCResourceConstants.CLAY; rtype <= SOCResourceConstants.WOOD; ++rtype)
+            pnum.addNumberForResource(diceNums[rtype], rtype, 0x55);
+        final boolean[] ports = new boolean[6];
+
+        final int[] first = bsef.getEstimator(pnum).getEstimatesFromNothingFast(ports).clone();
+        final long misses = bsef.getCacheMisses();
+        assertEquals(5, misses);  // road, settlement, city, card, ship
+        assertEquals(0, bsef.getCacheHits());
+
+        final SOCBuildingSpeedEstimate bse2 = bsef.getEstimator();
+        bse2.recalculateEstimates(pnum);
+        assertArrayEquals(first, bse2.getEstimatesFromNothingFast(ports));
+        assertEquals(5, bsef.getCacheHits());
+        assertEquals(misses, bsef.getCacheMisses());
+
+        ports[0] = true;
+        bse2.getEstimatesFromNothingFast(ports);
+        assertEquals(misses + 5, bsef.getCacheMisses());
+    }
+
+    /** Factory constructor should reject a negative cache size. */
+    @Test(expected=IllegalArgumentException.class)
+    public void testNegativeCacheSize()
+    {
+        new SOCBuildingSpeedEstimateFactory(null, -1);
+    }
+
+}
@@ -0,0 +1,167 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * This file Copyright (C) 2026 Jeremy D Monin <jeremy@nand.net>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The maintainer of this program can be reached at jsettlers@nand.net
+ **/
+
+package soctest.robot;
+
+import java.util.Random;
+
+import soc.game.SOCGame;
+import soc.game.SOCGameOptionSet;
+import soc.game.SOCPlayer;
+import soc.game.SOCResourceSet;
+import soc.robot.SOCBuildPlanStack;
+import soc.robot.SOCPlayerTracker;
+import soc.robot.SOCPossiblePiece;
+import soc.robot.SOCRobotDM;
+import soc.server.SOCBoardAtServer;
+import soc.server.SOCGameHandler;
+import soc.server.SOCGameListAtServer;
+import soc.util.SOCRobotParameters;
+import soctest.game.GameTestUtils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link SOCRobotDM#PARALLEL_SCORING_THREADS}: Scoring possible pieces in parallel
+ * on copies of the game should give the same building plan, scores, and player trackers as scoring
+ * them sequentially.
+ * @since 2.7.00
+ */
+public class TestParallelScoring
+{
+    private static final SOCRobotParameters PARAMS_SMART
+        = new SOCRobotParameters(120, 35, 0.13f, 1.0f, 1.0f, 3.0f, 1.0f, SOCRobotDM.SMART_STRATEGY, 1);
+
+    /** DM subclass which counts calls to {@link SOCRobotDM#scoreTrialsInParallel(boolean)}. */
+    private static final class CountingDM extends SOCRobotDM
+    {
+        int numParallelCalls;
+
+        CountingDM(final SOCPlayerTracker[] trackers, final SOCPlayer pl, final SOCBuildPlanStack plan)
+        {
+            super(PARAMS_SMART, null, null, trackers, trackers[pl.getPlayerNumber()], pl, plan);
+        }
+
+        @Override
+        protected void scoreTrialsInParallel(final boolean forSpecialBuildingPhase)
+        {
+            ++numParallelCalls;
+            super.scoreTrialsInParallel(forSpecialBuildingPhase);
+        }
+    }
+
+    /**
+     * Plan with the smart strategy and describe the resulting plan and favorite pieces' scores.
+     * @param numThreads  Value for {@link SOCRobotDM#PARALLEL_SCORING_THREADS} during planning
+     */
+    private static String planAndDescribe
+        (final SOCPlayerTracker[] trackers, final SOCPlayer pl, final int numThreads, final int expectParallelCalls)
+    {
+        final SOCBuildPlanStack plan = new SOCBuildPlanStack();
+        final CountingDM dm = new CountingDM(trackers, pl, plan);
+        final int prevThreads = SOCRobotDM.PARALLEL_SCORING_THREADS;
+        SOCRobotDM.PARALLEL_SCORING_THREADS = numThreads;
+        try
+        {
+            dm.planStuff(SOCRobotDM.SMART_STRATEGY);
+        } finally {
+            SOCRobotDM.PARALLEL_SCORING_THREADS = prevThreads;
+        }
+        assertEquals(expectParallelCalls, dm.numParallelCalls);
+
+        final StringBuilder sb = new StringBuilder("plan:");
+        for (final SOCPossiblePiece pp : plan)
+            sb.append(' ').append(pp.getType()).append(':').append(Integer.toHexString(pp.getCoordinates()));
+        for (final SOCPossiblePiece pp : new SOCPossiblePiece[]
+            { dm.getFavoriteSettlement(), dm.getFavoriteRoad(), dm.getFavoriteCity(), dm.getPossibleCard() })
+        {
+            sb.append("\nfavorite ");
+            if (pp == null)
+                sb.append("null");
+            else
+                sb.append(pp.getType()).append(':').append(Integer.toHexString(pp.getCoordinates()))
+                    .append(" score ").append(pp.getScore()).append(" eta ").append(pp.getETA());
+        }
+        sb.append('\n').append(TestPlayerTrackerUndo.describe(trackers, true));
+
+        return sb.toString();
+    }
+
+    /**
+     * For each of several players and resource amounts, planning with parallel scoring
+     * should give the same results as sequential planning.
+     */
+    @Test
+    public void testParallelSameAsSequential()
+    {
+        final SOCGame ga = new SOCGame("testParallelSameAsSequential");
+        checkParallelSameAsSequential(ga, TestPlayerTrackerUndo.setupGameTrackers(ga));
+    }
+
+    /**
+     * Like {@link #testParallelSameAsSequential()} on a 6-player large sea board,
+     * where each thread's copy of the game is a {@code SOCBoardLarge}.
+     */
+    @Test
+    public void testParallelSameAsSequential_seaBoard6p()
+    {
+        final SOCGameListAtServer gl = new SOCGameListAtServer(new Random(), SOCGameOptionSet.getAllKnownOptions());
+        final String gaName = "testParallelSameAsSequential_seaBoard6p";
+        final SOCGame ga = GameTestUtils.createGame(6, null, "SBL=t", gaName, gl, new SOCGameHandler(null));
+        for (int pn = 0; pn < 6; ++pn)
+            ga.addPlayer("robot " + pn, pn);
+        ga.startGame();
+        SOCBoardAtServer.startGame_scenarioSetup(ga);
+        ga.setGameState(SOCGame.PLAY1);
+
+        try
+        {
+            checkParallelSameAsSequential(ga, TestPlayerTrackerUndo.setupStartedGameTrackers(ga));
+        } finally {
+            gl.deleteGame(gaName);
+        }
+    }
+
+    private static void checkParallelSameAsSequential(final SOCGame ga, final SOCPlayerTracker[] trackers)
+    {
+        final SOCResourceSet[] resources =
+            {
+                new SOCResourceSet(),
+                new SOCResourceSet(1, 0, 1, 1, 1, 0),
+                new SOCResourceSet(2, 3, 2, 2, 2, 0),
+            };
+        for (int pn = 0; pn <= 1; ++pn)
+        {
+            final SOCPlayer pl = ga.getPlayer(pn);
+            for (final SOCResourceSet rs : resources)
+            {
+                pl.getResources().setAmounts(rs);
+                final String sequential = planAndDescribe(trackers, pl, 0, 0);
+                for (final int numThreads : new int[]{1, 3})
+                    assertEquals
+                        ("pn " + pn + " resources " + rs + " threads " + numThreads,
+                         sequential, planAndDescribe(trackers, pl, numThreads, 1));
+            }
+        }
+    }
+
+}
@@ -0,0 +1,187 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * This file Copyright (C) 2026 Jeremy D Monin <jeremy@nand.net>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The maintainer of this program can be reached at jsettlers@nand.net
+ **/
+
+package soctest.robot;
+
+import soc.game.SOCGame;
+import soc.game.SOCPlayer;
+import soc.game.SOCResourceSet;
+import soc.robot.SOCBuildPlanStack;
+import soc.robot.SOCPlayerTracker;
+import soc.robot.SOCPossiblePiece;
+import soc.robot.SOCRobotDM;
+import soc.util.SOCRobotParameters;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link SOCRobotDM#PLANNING_BUDGET_MS}: With enough time, the plan should be the same
+ * as without a budget. When the budget runs out, planning should still finish by scoring
+ * the untried pieces from estimates, without changing the player trackers, and count what it cut off.
+ * @since 2.7.00
+ */
+public class TestPlanningBudget
+{
+    private static final SOCRobotParameters PARAMS_SMART
+        = new SOCRobotParameters(120, 35, 0.13f, 1.0f, 1.0f, 3.0f, 1.0f, SOCRobotDM.SMART_STRATEGY, 1);
+
+    /** DM subclass which can use up its budget before trial scoring, or act as if the budget's always reached. */
+    private static final class BudgetDM extends SOCRobotDM
+    {
+        /** If true, {@link #isPlanningBudgetReached()} always returns true */
+        final boolean alwaysReached;
+
+        /** Milliseconds to sleep before trial scoring, to use up the budget */
+        final int sleepMillis;
+
+        BudgetDM(final SOCPlayerTracker[] trackers, final SOCPlayer pl, final SOCBuildPlanStack plan,
+            final boolean alwaysReached, final int sleepMillis)
+        {
+            super(PARAMS_SMART, null, null, trackers, trackers[pl.getPlayerNumber()], pl, plan);
+            this.alwaysReached = alwaysReached;
+            this.sleepMillis = sleepMillis;
+        }
+
+        @Override
+        protected boolean isPlanningBudgetReached()
+        {
+            return alwaysReached || super.isPlanningBudgetReached();
+        }
+
+        @Override
+        protected void scoreTrialsByPriority(final boolean forSpecialBuildingPhase)
+        {
+            if (sleepMillis > 0)
+                try
+                {
+                    Thread.sleep(sleepMillis);
+                } catch (InterruptedException e) {}
+
+            super.scoreTrialsByPriority(forSpecialBuildingPhase);
+        }
+    }
+
+    /**
+     * Plan with the smart strategy and describe the resulting plan and favorite pieces' scores.
+     * @param budgetMS  Value for {@link SOCRobotDM#PLANNING_BUDGET_MS} during planning
+     */
+    private static String planAndDescribe
+        (final SOCPlayerTracker[] trackers, final SOCPlayer pl, final int budgetMS,
+         final boolean alwaysReached, final int sleepMillis)
+    {
+        final SOCBuildPlanStack plan = new SOCBuildPlanStack();
+        final BudgetDM dm = new BudgetDM(trackers, pl, plan, alwaysReached, sleepMillis);
+        final int prevBudget = SOCRobotDM.PLANNING_BUDGET_MS;
+        SOCRobotDM.PLANNING_BUDGET_MS = budgetMS;
+        try
+        {
+            dm.planStuff(SOCRobotDM.SMART_STRATEGY);
+        } finally {
+            SOCRobotDM.PLANNING_BUDGET_MS = prevBudget;
+        }
+
+        final StringBuilder sb = new StringBuilder("plan:");
+        for (final SOCPossiblePiece pp : plan)
+            sb.append(' ').append(pp.getType()).append(':').append(Integer.toHexString(pp.getCoordinates()));
+        for (final SOCPossiblePiece pp : new SOCPossiblePiece[]
+            { dm.getFavoriteSettlement(), dm.getFavoriteRoad(), dm.getFavoriteCity() })
+        {
+            sb.append("\nfavorite ");
+            if (pp == null)
+                sb.append("null");
+            else
+                sb.append(pp.getType()).append(':').append(Integer.toHexString(pp.getCoordinates()))
+                    .append(" score ").append(pp.getScore());
+        }
+
+        return sb.toString();
+    }
+
+    /** With a generous budget, plans should be the same as without one, and the budget counted but not reached. */
+    @Test
+    public void testEnoughTimeSameAsUnlimited()
+    {
+        final SOCGame ga = new SOCGame("testEnoughTimeSameAsUnlimited");
+        final SOCPlayerTracker[] trackers = TestPlayerTrackerUndo.setupGameTrackers(ga);
+        final SOCResourceSet[] resources = { new SOCResourceSet(), new SOCResourceSet(2, 3, 2, 2, 2, 0) };
+
+        for (int pn = 0; pn <= 1; ++pn)
+        {
+            final SOCPlayer pl = ga.getPlayer(pn);
+            for (final SOCResourceSet rs : resources)
+            {
+                pl.getResources().setAmounts(rs);
+                final String unlimited = planAndDescribe(trackers, pl, 0, false, 0);
+                final long[] countsBefore = SOCRobotDM.getPlanningBudgetCounts();
+                assertEquals
+                    ("pn " + pn + " resources " + rs, unlimited, planAndDescribe(trackers, pl, 60000, false, 0));
+                final long[] countsAfter = SOCRobotDM.getPlanningBudgetCounts();
+                assertEquals(countsBefore[0] + 1, countsAfter[0]);
+                assertEquals(countsBefore[1], countsAfter[1]);
+            }
+        }
+    }
+
+    /**
+     * When the budget runs out, planning should score every piece type from estimates instead of trials,
+     * count the cut-off trials, and leave the trackers unchanged.
+     */
+    @Test
+    public void testBudgetReached()
+    {
+        final SOCGame ga = new SOCGame("testBudgetReached");
+        final SOCPlayerTracker[] trackers = TestPlayerTrackerUndo.setupGameTrackers(ga);
+        final SOCPlayer pl = ga.getPlayer(0);
+        pl.getResources().setAmounts(new SOCResourceSet(2, 3, 2, 2, 2, 0));
+        planAndDescribe(trackers, pl, 0, false, 0);  // update trackers' WGETAs before describing
+        final String trackersBefore = TestPlayerTrackerUndo.describe(trackers, true);
+
+        long[] countsBefore = SOCRobotDM.getPlanningBudgetCounts();
+        String desc = planAndDescribe(trackers, pl, 60000, true, 0);
+        long[] countsAfter = SOCRobotDM.getPlanningBudgetCounts();
+        assertCitiesEstimated(desc, countsBefore, countsAfter);
+        assertEquals(trackersBefore, TestPlayerTrackerUndo.describe(trackers, true));
+
+        countsBefore = SOCRobotDM.getPlanningBudgetCounts();
+        desc = planAndDescribe(trackers, pl, 1, false, 20);
+        countsAfter = SOCRobotDM.getPlanningBudgetCounts();
+        assertEquals(countsBefore[0] + 1, countsAfter[0]);
+        assertEquals("budget reached", countsBefore[1] + 1, countsAfter[1]);
+        assertCitiesEstimated(desc, countsBefore, countsAfter);
+        assertEquals(trackersBefore, TestPlayerTrackerUndo.describe(trackers, true));
+    }
+
+    /**
+     * Check that a plan which ran out of budget still scored a favorite city, from its estimate,
+     * and counted the cut-off city trials.
+     * @param desc  Plan description from {@link #planAndDescribe(SOCPlayerTracker[], SOCPlayer, int, boolean, int)}
+     * @param countsBefore  {@link SOCRobotDM#getPlanningBudgetCounts()} before planning
+     * @param countsAfter  {@link SOCRobotDM#getPlanningBudgetCounts()} after planning
+     */
+    private static void assertCitiesEstimated(final String desc, final long[] countsBefore, final long[] countsAfter)
+    {
+        final String cityDesc = desc.substring(desc.lastIndexOf("\nfavorite "));
+        assertFalse("city scored: " + desc, cityDesc.endsWith("null") || cityDesc.endsWith(" score 0.0"));
+        assertTrue("city trials cut off", countsAfter[4] > countsBefore[4]);
+    }
+
+}
@@ -0,0 +1,255 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * This file Copyright (C) 2026 Jeremy D Monin <jeremy@nand.net>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The maintainer of this program can be reached at jsettlers@nand.net
+ **/
+
+package soctest.robot;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+
+import soc.baseclient.ServerConnectInfo;
+import soc.game.SOCCity;
+import soc.game.SOCGame;
+import soc.game.SOCPlayer;
+import soc.game.SOCPlayingPiece;
+import soc.game.SOCRoad;
+import soc.game.SOCSettlement;
+import soc.robot.SOCPlayerTracker;
+import soc.robot.SOCPossibleCity;
+import soc.robot.SOCPossiblePiece;
+import soc.robot.SOCPossibleRoad;
+import soc.robot.SOCPossibleSettlement;
+import soc.robot.SOCRobotBrain;
+import soc.robot.SOCRobotClient;
+import soc.robot.SOCRobotDM;
+import soc.util.CappedQueue;
+import soc.util.SOCRobotParameters;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link SOCPlayerTracker#tryPutPieceInPlace(SOCPlayingPiece, SOCGame, SOCPlayerTracker[])}
+ * and its {@link SOCPlayerTracker.UndoLog}: Trial placements in place should give the same results
+ * as {@link SOCPlayerTracker#tryPutPiece(SOCPlayingPiece, SOCGame, SOCPlayerTracker[])} on copies,
+ * and undo should restore the trackers exactly.
+ * @since 2.7.00
+ */
+public class TestPlayerTrackerUndo
+{
+    private static final SOCRobotParameters PARAMS_SMART
+        = new SOCRobotParameters(120, 35, 0.13f, 1.0f, 1.0f, 3.0f, 1.0f, SOCRobotDM.SMART_STRATEGY, 1);
+
+    /**
+     * Set up a 4-player game where each player has 2 settlements with a road from each,
+     * and return player 0's brain's trackers for all players.
+     */
+    static SOCPlayerTracker[] setupGameTrackers(final SOCGame ga)
+    {
+        for (int pn = 0; pn < 4; ++pn)
+            ga.addPlayer("robot " + pn, pn);
+        ga.startGame();
+        ga.setGameState(SOCGame.PLAY1);
+
+        return setupStartedGameTrackers(ga);
+    }
+
+    /**
+     * Like {@link #setupGameTrackers(SOCGame)}, for a game which already has all its players
+     * and has been started; its state should be {@link SOCGame#PLAY1}.
+     * @since 2.7.00
+     */
+    static SOCPlayerTracker[] setupStartedGameTrackers(final SOCGame ga)
+    {
+        final int nPl = ga.maxPlayers;
+        final SOCRobotClient rc = new SOCRobotClient
+            (new ServerConnectInfo("localhost", 8880, null), "robot 0", "pw");
+        final SOCRobotBrain brain = new SOCRobotBrain(rc, PARAMS_SMART, ga, new CappedQueue<>());
+        brain.setOurPlayerData();
+        final SOCPlayerTracker[] trackers = brain.getPlayerTrackers();
+
+        final TreeSet<Integer> nodes = new TreeSet<>(ga.getPlayer(0).getLegalSettlements());
+        for (int i = 0; i < 2 * nPl; ++i)
+        {
+            final SOCPlayer pl = ga.getPlayer((i < nPl) ? i : (2 * nPl - 1 - i));
+            int node = 0;
+            for (final int n : nodes)
+            {
+                if (pl.isLegalSettlement(n))
+                {
+                    node = n;
+                    break;
+                }
+            }
+            assertNotEquals("found a legal node", 0, node);
+            nodes.remove(node);  // spread out settlements by skipping the rest of this area
+            nodes.remove(nodes.ceiling(node));
+
+            final SOCSettlement se = new SOCSettlement(pl, node, null);
+            ga.putPiece(se);
+            for (final SOCPlayerTracker tr : trackers)
+                tr.addNewSettlement(se, trackers);
+
+            for (final int edge : ga.getBoard().getAdjacentEdgesToNode(node))
+            {
+                if (pl.isPotentialRoad(edge))
+                {
+                    final SOCRoad rd = new SOCRoad(pl, edge, null);
+                    ga.putPiece(rd);
+                    for (final SOCPlayerTracker tr : trackers)
+                        tr.addNewRoadOrShip(rd, trackers);
+                    break;
+                }
+            }
+        }
+
+        for (final SOCPlayerTracker tr : trackers)
+            tr.updateThreats(trackers);
+        SOCPlayerTracker.updateWinGameETAs(trackers);
+
+        return trackers;
+    }
+
+    /**
+     * Describe the trackers' possible pieces and ETAs as a string, to compare their contents.
+     * @param trackers  Trackers to describe
+     * @param withExpanded  If true, include each possible piece's {@link SOCPossiblePiece#hasBeenExpanded()}
+     *     and number of threats, which aren't copied by {@link SOCPlayerTracker#tryPutPiece(SOCPlayingPiece, SOCGame, SOCPlayerTracker[])}
+     */
+    static String describe(final SOCPlayerTracker[] trackers, final boolean withExpanded)
+    {
+        final StringBuilder sb = new StringBuilder();
+        for (final SOCPlayerTracker tr : trackers)
+        {
+            sb.append("pn ").append(tr.getPlayer().getPlayerNumber())
+                .append(": wgeta ").append(tr.getWinGameETA())
+                .append(", lr ").append(tr.getLongestRoadETA()).append(' ').append(tr.getRoadsToGo())
+                .append(", la ").append(tr.getLargestArmyETA()).append(' ').append(tr.getKnightsToBuy()).append('\n');
+            for (final SOCPossibleRoad pr : tr.getPossibleRoads().values())
+            {
+                sb.append("  road ").append(Integer.toHexString(pr.getCoordinates()))
+                    .append(" nnr ").append(pr.getNumberOfNecessaryRoads());
+                if (withExpanded)
+                    sb.append(pr.hasBeenExpanded() ? " X" : " -").append(pr.getThreats().size());
+                sb.append(" nr");
+                for (final SOCPossibleRoad nr : pr.getNecessaryRoads())
+                    sb.append(' ').append(Integer.toHexString(nr.getCoordinates()));
+                sb.append(" np");
+                for (final SOCPossiblePiece np : pr.getNewPossibilities())
+                    sb.append(' ').append(np.getType()).append(':').append(Integer.toHexString(np.getCoordinates()));
+                sb.append('\n');
+            }
+            for (final SOCPossibleSettlement ps : tr.getPossibleSettlements().values())
+            {
+                sb.append("  settle ").append(Integer.toHexString(ps.getCoordinates()))
+                    .append(" nnr ").append(ps.getNumberOfNecessaryRoads());
+                if (withExpanded)
+                    sb.append(' ').append(ps.getThreats().size());
+                sb.append(" nr");
+                for (final SOCPossibleRoad nr : ps.getNecessaryRoads())
+                    sb.append(' ').append(Integer.toHexString(nr.getCoordinates()));
+                sb.append(" cf");
+                for (final SOCPossibleSettlement cf : ps.getConflicts())
+                    sb.append(' ').append(Integer.toHexString(cf.getCoordinates()));
+                sb.append('\n');
+            }
+            for (final SOCPossibleCity pc : tr.getPossibleCities().values())
+                sb.append("  city ").append(Integer.toHexString(pc.getCoordinates())).append('\n');
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * For each piece player 0 or 1 could build now, trial placement in place should give the same
+     * trackers and win game ETAs as a trial on copies, and undo should restore the original trackers.
+     */
+    @Test
+    public void testInPlaceMatchesCopy()
+    {
+        final SOCGame ga = new SOCGame("testInPlaceMatchesCopy");
+        final SOCPlayerTracker[] trackers = setupGameTrackers(ga);
+        final String orig = describe(trackers, true);
+
+        int numTried = 0;
+        for (int pn = 0; pn <= 1; ++pn)
+        {
+            final SOCPlayer pl = ga.getPlayer(pn);
+            final SOCPlayerTracker tr = trackers[pn];
+            final List<SOCPlayingPiece> pieces = new ArrayList<>();
+            for (final SOCPossibleRoad pr : tr.getPossibleRoads().values())
+                if (pr.getNecessaryRoads().isEmpty())
+                    pieces.add(new SOCRoad(pl, pr.getCoordinates(), null));
+            for (final SOCPossibleSettlement ps : tr.getPossibleSettlements().values())
+                if (ps.getNecessaryRoads().isEmpty())
+                    pieces.add(new SOCSettlement(pl, ps.getCoordinates(), null));
+            for (final SOCPossibleCity pc : tr.getPossibleCities().values())
+                pieces.add(new SOCCity(pl, pc.getCoordinates(), null));
+
+            for (final SOCPlayingPiece pp : pieces)
+            {
+                final SOCPlayerTracker[] copies = SOCPlayerTracker.tryPutPiece(pp, ga, trackers);
+                SOCPlayerTracker.updateWinGameETAs(copies);
+                final String afterCopy = describe(copies, false);
+                SOCPlayerTracker.undoTryPutPiece(pp, ga);
+                assertEquals("trial copy doesn't change original trackers", orig, describe(trackers, true));
+
+                final SOCPlayerTracker.UndoLog log = SOCPlayerTracker.tryPutPieceInPlace(pp, ga, trackers);
+                SOCPlayerTracker.updateWinGameETAs(trackers);
+                assertEquals("in-place trial of " + pp, afterCopy, describe(trackers, false));
+                SOCPlayerTracker.undoTryPutPiece(pp, ga, log);
+                assertEquals("undo of " + pp, orig, describe(trackers, true));
+
+                ++numTried;
+            }
+        }
+
+        assertTrue("tried some pieces", numTried >= 10);
+    }
+
+    /**
+     * Only one trial placement at a time; trackers can be tried again after undo.
+     */
+    @Test
+    public void testNestedTrialThrows()
+    {
+        final SOCGame ga = new SOCGame("testNestedTrialThrows");
+        final SOCPlayerTracker[] trackers = setupGameTrackers(ga);
+        final String orig = describe(trackers, true);
+
+        final SOCPossibleRoad pr = trackers[0].getPossibleRoads().firstEntry().getValue();
+        final SOCRoad rd = new SOCRoad(ga.getPlayer(0), pr.getCoordinates(), null);
+        SOCPlayerTracker.UndoLog log = SOCPlayerTracker.tryPutPieceInPlace(rd, ga, trackers);
+        try
+        {
+            SOCPlayerTracker.tryPutPieceInPlace(null, ga, trackers);
+            fail("should have thrown IllegalStateException");
+        } catch (IllegalStateException e) {}
+        SOCPlayerTracker.undoTryPutPiece(rd, ga, log);
+        assertEquals(orig, describe(trackers, true));
+
+        log = SOCPlayerTracker.tryPutPieceInPlace(null, ga, trackers);
+        assertEquals("win game ETAs are cleared during trial", 0, trackers[1].getWinGameETA());
+        SOCPlayerTracker.undoTryPutPiece(null, ga, log);
+        assertEquals(orig, describe(trackers, true));
+    }
+
+}
@@ -0,0 +1,208 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * This file Copyright (C) 2026 Jeremy D Monin <jeremy@nand.net>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The maintainer of this program can be reached at jsettlers@nand.net
+ **/
+
+package soctest.robot;
+
+import soc.game.SOCCity;
+import soc.game.SOCGame;
+import soc.game.SOCPlayer;
+import soc.game.SOCResourceConstants;
+import soc.game.SOCResourceSet;
+import soc.game.SOCRoad;
+import soc.game.SOCSettlement;
+import soc.robot.SOCBuildingSpeedEstimate;
+import soc.robot.SOCRobotBrain;
+import soc.robot.SOCTradeSearchMemo;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link SOCTradeSearchMemo}: Memoized ETAs should be the same as calculated ones,
+ * estimates should be replaced when a player's dice numbers change,
+ * and decisions should stop considering offers at their limits.
+ * @since 2.7.00
+ */
+public class TestTradeSearchMemo
+{
+
+    private static final SOCResourceSet[] TARGETS = { SOCRoad.COST, SOCSettlement.COST, SOCCity.COST };
+
+    /** Compare memoized ETAs for 1-for-1 trades against calculating them with a separate estimate. */
+    @Test
+    public void testETASameAsCalculated()
+    {
+        final SOCGame ga = new SOCGame("testETASameAsCalculated");
+        final SOCRobotBrain brain = TestPlayerTrackerUndo.setupGameTrackers(ga)[0].getBrain();
+        final SOCTradeSearchMemo memo
+            = new SOCTradeSearchMemo(brain, ga.maxPlayers, SOCTradeSearchMemo.DEFAULT_MAX_CONSIDERATIONS);
+
+        for (int pn = 0; pn <= 1; ++pn)
+        {
+            final SOCPlayer pl = ga.getPlayer(pn);
+            pl.getResources().add(new SOCResourceSet(2, 1, 0, 1, 2, 0));
+            final SOCBuildingSpeedEstimate est = memo.getEstimator(pl);
+            assertSame(est, memo.getEstimator(pl));
+            final SOCBuildingSpeedEstimate otherEst = brain.getEstimator(pl.getNumbers());
+
+            for (int rep = 0; rep < 2; ++rep)
+            {
+                final long missesBefore = memo.getMisses();
+                for (final SOCResourceSet target : TARGETS)
+                    for (int give = SOCResourceConstants.CLAY; give <= SOCResourceConstants.WOOD; ++give)
+                        for (int get = SOCResourceConstants.CLAY; get <= SOCResourceConstants.WOOD; ++get)
+                        {
+                            if ((give == get) || (pl.getResources().getAmount(give) == 0))
+                                continue;
+
+                            final SOCResourceSet giveSet = new SOCResourceSet(), getSet = new SOCResourceSet();
+                            giveSet.add(1, give);
+                            getSet.add(1, get);
+                            assertEquals
+                                ("pn " + pn + " target " + target + " give " + give + " get " + get,
+                                 memo.getETAToTargetResources(pl, target, giveSet, getSet, otherEst),
+                                 memo.getETAToTargetResources(pl, target, giveSet, getSet, est));
+                        }
+
+                if (rep == 0)
+                    assertTrue(memo.getMisses() > missesBefore);
+                else
+                    assertEquals("all memoized", missesBefore, memo.getMisses());
+            }
+        }
+        assertTrue(memo.getHits() > 0);
+
+        memo.clear();
+        final long missesBefore = memo.getMisses();
+        final SOCPlayer pl = ga.getPlayer(0);
+        memo.getETAToTargetResources
+            (pl, SOCCity.COST, SOCResourceSet.EMPTY_SET, SOCResourceSet.EMPTY_SET, memo.getEstimator(pl));
+        assertEquals("cleared", missesBefore + 1, memo.getMisses());
+    }
+
+    /**
+     * Memoized ETAs for trades giving more than the player has, which are clipped to 0 like
+     * {@link SOCResourceSet#subtract(soc.game.ResourceSet)}, should be the same as calculated ones.
+     */
+    @Test
+    public void testETAGiveMoreThanHeld()
+    {
+        final SOCGame ga = new SOCGame("testETAGiveMoreThanHeld");
+        final SOCRobotBrain brain = TestPlayerTrackerUndo.setupGameTrackers(ga)[0].getBrain();
+        final SOCTradeSearchMemo memo
+            = new SOCTradeSearchMemo(brain, ga.maxPlayers, SOCTradeSearchMemo.DEFAULT_MAX_CONSIDERATIONS);
+        final SOCPlayer pl = ga.getPlayer(0);
+        pl.getResources().add(new SOCResourceSet(1, 0, 3, 0, 0, 0));
+        final SOCBuildingSpeedEstimate est = memo.getEstimator(pl);
+        final SOCBuildingSpeedEstimate otherEst = brain.getEstimator(pl.getNumbers());
+
+        final SOCResourceSet giveSet = new SOCResourceSet(2, 0, 0, 0, 0, 0),
+            getSet = new SOCResourceSet(0, 0, 0, 1, 0, 0);
+        for (final SOCResourceSet target : TARGETS)
+        {
+            final int eta = memo.getETAToTargetResources(pl, target, giveSet, getSet, est);
+            assertEquals("target " + target, memo.getETAToTargetResources(pl, target, giveSet, getSet, otherEst), eta);
+            assertEquals("memoized, target " + target, eta, memo.getETAToTargetResources(pl, target, giveSet, getSet, est));
+        }
+    }
+
+    /** A player's estimate should be replaced when their dice numbers change. */
+    @Test
+    public void testNumbersChanged()
+    {
+        final SOCGame ga = new SOCGame("testNumbersChanged");
+        final SOCRobotBrain brain = TestPlayerTrackerUndo.setupGameTrackers(ga)[0].getBrain();
+        final SOCTradeSearchMemo memo
+            = new SOCTradeSearchMemo(brain, ga.maxPlayers, SOCTradeSearchMemo.DEFAULT_MAX_CONSIDERATIONS);
+        final SOCPlayer pl = ga.getPlayer(1);
+
+        final SOCBuildingSpeedEstimate est = memo.getEstimator(pl);
+        assertSame(est, memo.getEstimator(pl));
+        assertNotSame("other player", est, memo.getEstimator(ga.getPlayer(0)));
+
+        final int hex = ga.getBoard().getLandHexCoords()[0];
+        pl.getNumbers().addNumberForResource(12, SOCResourceConstants.WOOD, hex);
+        final SOCBuildingSpeedEstimate est2 = memo.getEstimator(pl);
+        assertNotSame(est, est2);
+        assertSame(est2, memo.getEstimator(pl));
+
+        pl.getNumbers().undoAddNumberForResource(12, SOCResourceConstants.WOOD, hex);
+        assertNotSame(est2, memo.getEstimator(pl));
+    }
+
+    /** Each decision can consider only a limited number of offers. */
+    @Test
+    public void testConsiderationLimit()
+    {
+        final SOCGame ga = new SOCGame("testConsiderationLimit");
+        final SOCRobotBrain brain = TestPlayerTrackerUndo.setupGameTrackers(ga)[0].getBrain();
+        final SOCTradeSearchMemo memo = new SOCTradeSearchMemo(brain, ga.maxPlayers, 2);
+
+        assertTrue(memo.tryConsider());
+        assertTrue(memo.tryConsider());
+        assertFalse(memo.tryConsider());
+        memo.startDecision();
+        assertTrue(memo.tryConsider());
+
+        try
+        {
+            new SOCTradeSearchMemo(brain, ga.maxPlayers, 0);
+            fail("should throw IllegalArgumentException");
+        } catch (IllegalArgumentException e) {}
+    }
+
+    /**
+     * When a decision's {@link SOCTradeSearchMemo#DECISION_BUDGET_MS} runs out, no more offers
+     * should be considered until the next decision; the first offer is always considered.
+     */
+    @Test
+    public void testDecisionBudget()
+        throws InterruptedException
+    {
+        final SOCGame ga = new SOCGame("testDecisionBudget");
+        final SOCRobotBrain brain = TestPlayerTrackerUndo.setupGameTrackers(ga)[0].getBrain();
+        final SOCTradeSearchMemo memo = new SOCTradeSearchMemo(brain, ga.maxPlayers, 1000);
+
+        final int prevBudget = SOCTradeSearchMemo.DECISION_BUDGET_MS;
+        SOCTradeSearchMemo.DECISION_BUDGET_MS = 1;
+        try
+        {
+            final long[] countsBefore = SOCTradeSearchMemo.getDecisionLimitCounts();
+            memo.startDecision();
+            Thread.sleep(5);
+            assertTrue("first offer", memo.tryConsider());
+            assertFalse("budget reached", memo.tryConsider());
+            assertFalse(memo.tryConsider());
+
+            final long[] countsAfter = SOCTradeSearchMemo.getDecisionLimitCounts();
+            assertTrue(countsAfter[0] > countsBefore[0]);
+            assertTrue(countsAfter[2] > countsBefore[2]);
+
+            SOCTradeSearchMemo.DECISION_BUDGET_MS = 0;
+            memo.startDecision();
+            Thread.sleep(5);
+            for (int i = 0; i < 10; ++i)
+                assertTrue("no budget", memo.tryConsider());
+        } finally {
+            SOCTradeSearchMemo.DECISION_BUDGET_MS = prevBudget;
+        }
+    }
+
+}
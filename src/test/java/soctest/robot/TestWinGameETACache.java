@@ -0,0 +1,115 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * This file Copyright (C) 2026 Jeremy D Monin <jeremy@nand.net>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The maintainer of this program can be reached at jsettlers@nand.net
+ **/
+
+package soctest.robot;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import soc.game.SOCCity;
+import soc.game.SOCGame;
+import soc.game.SOCPlayer;
+import soc.game.SOCPlayingPiece;
+import soc.game.SOCRoad;
+import soc.game.SOCSettlement;
+import soc.robot.SOCPlayerTracker;
+import soc.robot.SOCPossibleCity;
+import soc.robot.SOCPossibleRoad;
+import soc.robot.SOCPossibleSettlement;
+import soc.robot.SOCWinGameETACache;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link SOCWinGameETACache}: {@link SOCPlayerTracker#recalcWinGameETA()} using the cache
+ * should give the same results as {@link SOCPlayerTracker#recalcWinGameETA_noCache()}.
+ * @since 2.7.00
+ */
+public class TestWinGameETACache
+{
+
+    /** Describe each tracker's win game ETA fields as a string, to compare them. */
+    private static String describeETAs(final SOCPlayerTracker[] trackers)
+    {
+        final StringBuilder sb = new StringBuilder();
+        for (final SOCPlayerTracker tr : trackers)
+            sb.append("pn ").append(tr.getPlayer().getPlayerNumber())
+                .append(": wgeta ").append(tr.getWinGameETA())
+                .append(", needs LR ").append(tr.needsLR()).append(", LA ").append(tr.needsLA())
+                .append(", knights ").append(tr.getKnightsToBuy()).append('\n');
+
+        return sb.toString();
+    }
+
+    /**
+     * For each piece players 0 and 1 could build now, try it twice in place: Cached and uncached results
+     * should be the same, and the second trial should find its results in the cache.
+     */
+    @Test
+    public void testCachedSameAsCalculated()
+    {
+        final SOCGame ga = new SOCGame("testCachedSameAsCalculated");
+        final SOCPlayerTracker[] trackers = TestPlayerTrackerUndo.setupGameTrackers(ga);
+        final SOCWinGameETACache cache = trackers[0].getBrain().getWinGameETACache();
+        final String orig = describeETAs(trackers);
+
+        final List<SOCPlayingPiece> pieces = new ArrayList<>();
+        for (int pn = 0; pn <= 1; ++pn)
+        {
+            final SOCPlayer pl = ga.getPlayer(pn);
+            final SOCPlayerTracker tr = trackers[pn];
+            for (final SOCPossibleRoad pr : tr.getPossibleRoads().values())
+                if (pr.getNecessaryRoads().isEmpty())
+                    pieces.add(new SOCRoad(pl, pr.getCoordinates(), null));
+            for (final SOCPossibleSettlement ps : tr.getPossibleSettlements().values())
+                if (ps.getNecessaryRoads().isEmpty())
+                    pieces.add(new SOCSettlement(pl, ps.getCoordinates(), null));
+            for (final SOCPossibleCity pc : tr.getPossibleCities().values())
+                pieces.add(new SOCCity(pl, pc.getCoordinates(), null));
+        }
+        assertTrue("found some pieces", pieces.size() >= 10);
+
+        for (int rep = 0; rep < 2; ++rep)
+        {
+            final long hitsBefore = cache.getHits(), missesBefore = cache.getMisses();
+            for (final SOCPlayingPiece pp : pieces)
+            {
+                final SOCPlayerTracker.UndoLog log = SOCPlayerTracker.tryPutPieceInPlace(pp, ga, trackers);
+                SOCPlayerTracker.updateWinGameETAs(trackers);
+                final String cached = describeETAs(trackers);
+                for (final SOCPlayerTracker tr : trackers)
+                    assertTrue(tr.recalcWinGameETA_noCache());
+                assertEquals("trial of " + pp, describeETAs(trackers), cached);
+                SOCPlayerTracker.undoTryPutPiece(pp, ga, log);
+            }
+
+            if (rep == 0)
+                assertTrue("first trials calculated", cache.getMisses() > missesBefore);
+            else
+                assertEquals("second trials all cached", missesBefore, cache.getMisses());
+            assertTrue(cache.getHits() > hitsBefore);
+        }
+
+        assertEquals(orig, describeETAs(trackers));
+        assertTrue(cache.size() <= SOCWinGameETACache.DEFAULT_SIZE);
+    }
+
+}
@@ -0,0 +1,233 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * This file Copyright (C) 2026 Jeremy D Monin <jeremy@nand.net>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The maintainer of this program can be reached at jsettlers@nand.net
+ **/
+
+package soctest.server;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import soc.message.SOCGameTextMsg;
+import soc.message.SOCMessage;
+import soc.server.genericServer.Connection;
+import soc.server.genericServer.Server;
+
+/**
+ * Minimal {@link Server} listening on a TCP port, for testing its network transports
+ * through real loopback sockets. Records its clients' connections, disconnections,
+ * and the text of each {@link SOCGameTextMsg} they send, in arrival order.
+ * Clients are plain {@link Socket}s using the {@link DataOutputStream#writeUTF(String)} frame format.
+ *<P>
+ * Not a unit test itself; used by {@link TestNetConnection}, {@link TestNioNetConnection} and others.
+ * @since 2.7.00
+ */
+public class LoopbackTestServer extends Server
+{
+    /** Max time to wait for events in the {@code await*} methods: 20 seconds. */
+    public static final int AWAIT_TIMEOUT_MS = 20 * 1000;
+
+    /** Records what's received; shared with the dispatcher given to the {@link Server} constructor */
+    private final Recorder rec;
+
+    /**
+     * Start a server on a free TCP port, and wait for it to come up.
+     * @param props  Server properties, such as {@link Server#PROP_JSETTLERS_NET_NIO}; not null
+     * @return  the running server; call {@link #stopServer()} when done
+     * @throws IOException if can't find a free port, or the server can't listen on it
+     */
+    public static LoopbackTestServer startServer(final Properties props)
+        throws IOException
+    {
+        final int port;
+        try (ServerSocket probe = new ServerSocket(0))
+        {
+            port = probe.getLocalPort();
+        }
+
+        final LoopbackTestServer srv = new LoopbackTestServer(port, new Recorder(), props);
+        if (srv.error != null)
+            throw new IOException("server can't listen on port " + port, srv.error);
+
+        srv.setDaemon(true);
+        srv.start();
+        final long until = System.currentTimeMillis() + AWAIT_TIMEOUT_MS;
+        while (! srv.isUp())
+        {
+            if (System.currentTimeMillis() > until)
+                throw new IOException("server didn't come up");
+            try
+            {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {}
+        }
+
+        return srv;
+    }
+
+    private LoopbackTestServer(final int port, final Recorder rec, final Properties props)
+    {
+        super(port, rec, props);
+        this.rec = rec;
+    }
+
+    /** Connect a new client socket to this server. */
+    public Socket connectClient()
+        throws IOException
+    {
+        final Socket s = new Socket(InetAddress.getLoopbackAddress(), port);
+        s.setSoTimeout(AWAIT_TIMEOUT_MS);
+        return s;
+    }
+
+    /**
+     * Build a frame for a client to send: a {@link SOCGameTextMsg} with this text,
+     * encoded as if by {@link DataOutputStream#writeUTF(String)}.
+     * @param text  Message text, without {@link SOCMessage#sep} or {@link SOCMessage#sep2} characters
+     * @return the frame's bytes
+     */
+    public static byte[] textFrame(final String text)
+        throws IOException
+    {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(bytes));
+        out.writeUTF(new SOCGameTextMsg("ga", "-", text).toCmd());
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Read the next frame sent from the server to a client socket.
+     * @throws java.io.EOFException if the server closed the connection
+     */
+    public static String readFrame(final Socket s)
+        throws IOException
+    {
+        return new DataInputStream(s.getInputStream()).readUTF();
+    }
+
+    /**
+     * Wait until at least this many clients have connected, and return the server side of the latest one.
+     * @throws IllegalStateException if times out
+     */
+    public Connection awaitConnection(final int n)
+    {
+        synchronized (rec)
+        {
+            awaitCount(rec.added, n);
+            return rec.added.get(n - 1);
+        }
+    }
+
+    /**
+     * Wait until at least this many clients have disconnected or been removed.
+     * @throws IllegalStateException if times out
+     */
+    public void awaitLeft(final int n)
+    {
+        synchronized (rec)
+        {
+            awaitCount(rec.left, n);
+        }
+    }
+
+    /**
+     * Wait until at least this many {@link SOCGameTextMsg}s have been received, and return all texts received.
+     * @throws IllegalStateException if times out
+     */
+    public List<String> awaitReceived(final int n)
+    {
+        synchronized (rec)
+        {
+            awaitCount(rec.received, n);
+            return new ArrayList<>(rec.received);
+        }
+    }
+
+    /** Number of clients which have disconnected or been removed so far. */
+    public int getLeftCount()
+    {
+        synchronized (rec)
+        {
+            return rec.left.size();
+        }
+    }
+
+    /** Caller must synchronize on {@link #rec}. */
+    private void awaitCount(final List<?> li, final int n)
+        throws IllegalStateException
+    {
+        final long until = System.currentTimeMillis() + AWAIT_TIMEOUT_MS;
+        while (li.size() < n)
+        {
+            final long wait = until - System.currentTimeMillis();
+            if (wait <= 0)
+                throw new IllegalStateException("timed out: have " + li.size() + ", waiting for " + n);
+            try
+            {
+                rec.wait(wait);
+            } catch (InterruptedException e) {}
+        }
+    }
+
+    @Override
+    protected void newConnection2(final Connection c)
+    {
+        synchronized (rec)
+        {
+            rec.added.add(c);
+            rec.notifyAll();
+        }
+    }
+
+    @Override
+    protected void leaveConnection(final Connection c)
+    {
+        synchronized (rec)
+        {
+            rec.left.add(c);
+            rec.notifyAll();
+        }
+    }
+
+    /** Dispatcher which records received message texts; synchronize on it to read its lists. */
+    private static final class Recorder implements Server.InboundMessageDispatcher
+    {
+        final List<Connection> added = new ArrayList<>(), left = new ArrayList<>();
+        final List<String> received = new ArrayList<>();
+
+        public synchronized void dispatch(final SOCMessage mes, final Connection con)
+        {
+            if (mes instanceof SOCGameTextMsg)
+            {
+                received.add(((SOCGameTextMsg) mes).getText());
+                notifyAll();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,210 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * This file Copyright (C) 2026 Jeremy D Monin <jeremy@nand.net>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The maintainer of this program can be reached at jsettlers@nand.net
+ **/
+
+package soctest.server;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import soc.message.SOCDiceResult;
+import soc.message.SOCMessage;
+import soc.message.SOCMessageForGame;
+import soc.message.SOCServerPing;
+import soc.server.genericServer.Connection;
+import soc.server.genericServer.InboundMessageQueue;
+import soc.server.genericServer.Server;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link InboundMessageQueue}'s single-threaded and parallel dispatch ordering.
+ * @since 2.7.00
+ */
+public class TestInboundMessageQueue
+{
+    /** Minimal connection, only used as a message sender key */
+    private static final class TestConn extends Connection
+    {
+        public TestConn(final String name) { data = name; }
+        public String host() { return "test"; }
+        public void put(String str) {}
+        public void run() {}
+        public boolean isConnected() { return true; }
+        public boolean connect() { return true; }
+        public void disconnect() {}
+        public void disconnectSoft() {}
+        public boolean isInputAvailable() { return false; }
+    }
+
+    /**
+     * Records dispatched messages per game and per connection, and whether any
+     * connection's messages were ever dispatched concurrently.
+     */
+    private static final class RecordingDispatcher implements Server.InboundMessageDispatcher
+    {
+        final Map<String, List<Integer>> byGame = new HashMap<String, List<Integer>>();
+        final Map<Connection, List<Integer>> byConn = new HashMap<Connection, List<Integer>>();
+        final Map<Connection, Boolean> busy = new HashMap<Connection, Boolean>();
+        boolean sawConcurrentConn;
+        int total;
+
+        public void dispatch(SOCMessage mes, Connection con)
+        {
+            synchronized (this)
+            {
+                if (Boolean.TRUE.equals(busy.get(con)))
+                    sawConcurrentConn = true;
+                busy.put(con, Boolean.TRUE);
+            }
+
+            // seq number is in the ping's "sleep time" field or dice message's result field
+            final String gaName = (mes instanceof SOCMessageForGame) ? ((SOCMessageForGame) mes).getGame() : "-";
+            final int seq = (mes instanceof SOCServerPing)
+                ? ((SOCServerPing) mes).getSleepTime()
+                : ((SOCDiceResult) mes).getResult();
+            if (gaName.equals("slow"))
+                try { Thread.sleep(2); } catch (InterruptedException e) {}
+
+            synchronized (this)
+            {
+                List<Integer> li = byGame.get(gaName);
+                if (li == null)
+                    byGame.put(gaName, li = new ArrayList<Integer>());
+                li.add(seq);
+                li = byConn.get(con);
+                if (li == null)
+                    byConn.put(con, li = new ArrayList<Integer>());
+                li.add(seq);
+                busy.put(con, Boolean.FALSE);
+                ++total;
+                notifyAll();
+            }
+        }
+
+        synchronized void awaitTotal(final int n)
+            throws InterruptedException
+        {
+            final long until = System.currentTimeMillis() + 20000;
+            while ((total < n) && (System.currentTimeMillis() < until))
+                wait(200);
+            assertEquals(n, total);
+        }
+    }
+
+    /**
+     * Push a mix of game and non-game messages from several connections, check that each
+     * connection's messages are dispatched in order and never concurrently.
+     * @param nThreads  Number of dispatch threads
+     */
+    private void pushAndCheckOrder(final int nThreads)
+        throws InterruptedException
+    {
+        final RecordingDispatcher disp = new RecordingDispatcher();
+        final InboundMessageQueue q = new InboundMessageQueue(disp, nThreads);
+        assertEquals(Math.max(1, nThreads), q.getThreadCount());
+        q.startMessageProcessing();
+
+        final String[] gaNames = { "slow", "ga1", "ga2", "ga3" };
+        final TestConn[] conns = { new TestConn("p0"), new TestConn("p1"), new TestConn("p2") };
+        final int PER_CONN = 300;
+        int seq = 0;
+        for (int i = 0; i < PER_CONN; ++i)
+            for (int c = 0; c < conns.length; ++c)
+            {
+                ++seq;
+                final SOCMessage msg = ((i % 7) == 3)
+                    ? new SOCServerPing(seq)
+                    : new SOCDiceResult(gaNames[(i + c) % gaNames.length], seq);
+                q.push(msg, conns[c]);
+            }
+
+        disp.awaitTotal(seq);
+        q.stopMessageProcessing();
+
+        assertFalse("a connection's messages were dispatched concurrently", disp.sawConcurrentConn);
+        for (TestConn c : conns)
+        {
+            final List<Integer> li = disp.byConn.get(c);
+            assertEquals(PER_CONN, li.size());
+            for (int i = 1; i < li.size(); ++i)
+                assertTrue("conn " + c.getData() + " out of order", li.get(i - 1) < li.get(i));
+        }
+        for (String ga : gaNames)
+        {
+            final List<Integer> li = disp.byGame.get(ga);
+            for (int i = 1; i < li.size(); ++i)
+                assertTrue("game " + ga + " out of order", li.get(i - 1) < li.get(i));
+        }
+    }
+
+    /** Test the standard single-thread dispatch. */
+    @Test
+    public void testSingleThreadOrder()
+        throws InterruptedException
+    {
+        pushAndCheckOrder(1);
+    }
+
+    /** Test parallel dispatch keeps each game's and each client's messages in order. */
+    @Test
+    public void testParallelOrder()
+        throws InterruptedException
+    {
+        pushAndCheckOrder(2);
+        pushAndCheckOrder(4);
+    }
+
+    /** Test {@link InboundMessageQueue#post(Runnable)} runs on the main treater thread. */
+    @Test
+    public void testPostRunsOnTreater()
+        throws InterruptedException
+    {
+        final InboundMessageQueue q = new InboundMessageQueue(new RecordingDispatcher(), 3);
+        q.startMessageProcessing();
+        assertFalse(q.isCurrentThreadTreater());
+
+        final String[] threadName = new String[1];
+        final boolean[] wasTreater = new boolean[1];
+        synchronized (threadName)
+        {
+            q.post(new Runnable()
+            {
+                public void run()
+                {
+                    synchronized (threadName)
+                    {
+                        threadName[0] = Thread.currentThread().getName();
+                        wasTreater[0] = q.isCurrentThreadTreater();
+                        threadName.notifyAll();
+                    }
+                }
+            });
+            threadName.wait(10000);
+        }
+        q.stopMessageProcessing();
+
+        assertEquals("treater", threadName[0]);
+        assertTrue(wasTreater[0]);
+    }
+
+}
@@ -0,0 +1,180 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * This file Copyright (C) 2026 Jeremy D Monin <jeremy@nand.net>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The maintainer of this program can be reached at jsettlers@nand.net
+ **/
+
+package soctest.server;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+
+import soc.server.genericServer.Connection;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the default thread-per-connection TCP transport's outbound queue and write coalescing,
+ * through real loopback sockets to a {@link LoopbackTestServer}.
+ * @see TestNioNetConnection
+ * @since 2.7.00
+ */
+public class TestNetConnection
+{
+    private LoopbackTestServer srv;
+
+    private Socket cli;
+
+    @Before
+    public void startServer()
+        throws IOException
+    {
+        srv = LoopbackTestServer.startServer(new Properties());
+        cli = srv.connectClient();
+    }
+
+    @After
+    public void stopServer()
+    {
+        try
+        {
+            cli.close();
+        } catch (IOException e) {}
+
+        if (srv.isUp())
+            srv.stopServer();
+    }
+
+    /**
+     * Several threads calling {@link Connection#put(String)} at once:
+     * Client receives every message, and each thread's messages in the order it put them.
+     */
+    @Test(timeout=60000)
+    public void testConcurrentPutOrder()
+        throws Exception
+    {
+        final Connection sc = srv.awaitConnection(1);
+
+        final int N_THREADS = 6, N_EACH = 2000;
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        final List<Thread> putters = new ArrayList<>();
+        for (int t = 0; t < N_THREADS; ++t)
+        {
+            final int threadNum = t;
+            final Thread th = new Thread()
+            {
+                public void run()
+                {
+                    try
+                    {
+                        startLatch.await();
+                    } catch (InterruptedException e) {}
+
+                    for (int i = 0; i < N_EACH; ++i)
+                        sc.put(threadNum + ":" + i);
+                }
+            };
+            th.setDaemon(true);
+            th.start();
+            putters.add(th);
+        }
+        startLatch.countDown();
+
+        final int[] nextFromThread = new int[N_THREADS];
+        for (int n = 0; n < N_THREADS * N_EACH; ++n)
+        {
+            final String got = LoopbackTestServer.readFrame(cli);
+            final int colon = got.indexOf(':');
+            final int threadNum = Integer.parseInt(got.substring(0, colon));
+            assertEquals("order from thread " + threadNum,
+                nextFromThread[threadNum], Integer.parseInt(got.substring(colon + 1)));
+            ++nextFromThread[threadNum];
+        }
+        for (int t = 0; t < N_THREADS; ++t)
+            assertEquals(N_EACH, nextFromThread[t]);
+
+        for (Thread th : putters)
+            th.join();
+        assertTrue(sc.isConnected());
+    }
+
+    /**
+     * A burst of messages queued while the client isn't reading is written coalesced:
+     * The raw bytes received split back into exactly the original messages, in order,
+     * including empty, multi-byte, and larger-than-write-buffer messages.
+     */
+    @Test(timeout=60000)
+    public void testCoalescedWritesSplitToMessages()
+        throws Exception
+    {
+        final Connection sc = srv.awaitConnection(1);
+
+        final List<String> sent = new ArrayList<>();
+        sent.add("");
+        sent.add("é中文ü");
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 25000; ++i)
+            sb.append((char) ('a' + (i % 26)));
+        sent.add(sb.toString());  // larger than NetConnection's 16K out buffer
+        for (int i = 0; i < 500; ++i)
+            sent.add(i + ((i % 7 == 0) ? "中" : ""));
+        sent.add("last");
+
+        final ByteArrayOutputStream expectBytes = new ByteArrayOutputStream();
+        final DataOutputStream expectOut = new DataOutputStream(expectBytes);
+        for (String msg : sent)
+        {
+            expectOut.writeUTF(msg);
+            sc.put(msg);
+        }
+        expectOut.flush();
+        final int expectLen = expectBytes.size();
+
+        // read the whole byte stream as raw chunks, regardless of where writes were split or merged
+        final byte[] raw = new byte[expectLen];
+        final InputStream in = cli.getInputStream();
+        for (int off = 0; off < expectLen; )
+        {
+            final int n = in.read(raw, off, expectLen - off);
+            assertTrue("EOF after " + off + " of " + expectLen + " bytes", n > 0);
+            off += n;
+        }
+        assertArrayEquals(expectBytes.toByteArray(), raw);
+
+        final DataInputStream split = new DataInputStream(new ByteArrayInputStream(raw));
+        for (int i = 0; i < sent.size(); ++i)
+            assertEquals("message " + i, sent.get(i), split.readUTF());
+        assertEquals(0, split.available());
+
+        // nothing extra arrives afterwards
+        sc.put("after");
+        assertEquals("after", LoopbackTestServer.readFrame(cli));
+    }
+
+}
@@ -0,0 +1,263 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * This file Copyright (C) 2026 Jeremy D Monin <jeremy@nand.net>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The maintainer of this program can be reached at jsettlers@nand.net
+ **/
+
+package soctest.server;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import soc.server.genericServer.Connection;
+import soc.server.genericServer.Server;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the non-blocking NIO transport ({@link Server#PROP_JSETTLERS_NET_NIO}),
+ * through real loopback sockets to a {@link LoopbackTestServer}.
+ * @since 2.7.00
+ */
+public class TestNioNetConnection
+{
+    private LoopbackTestServer srv;
+
+    private final List<Socket> clients = new ArrayList<>();
+
+    @Before
+    public void startServer()
+        throws IOException
+    {
+        final Properties props = new Properties();
+        props.setProperty(Server.PROP_JSETTLERS_NET_NIO, "Y");
+        props.setProperty(Server.PROP_JSETTLERS_NET_NIO_THREADS, "2");
+        srv = LoopbackTestServer.startServer(props);
+    }
+
+    @After
+    public void stopServer()
+    {
+        for (Socket s : clients)
+            try
+            {
+                s.close();
+            } catch (IOException e) {}
+
+        if (srv.isUp())
+            srv.stopServer();
+    }
+
+    private Socket connect()
+        throws IOException
+    {
+        final Socket s = srv.connectClient();
+        clients.add(s);
+        return s;
+    }
+
+    /** Build a message text of this length, with 1-, 2- and 3-byte UTF-8 characters. */
+    private static String makeText(final int len, final int seed)
+    {
+        final String chars = "abcXYZ019 éü中文";
+        final StringBuilder sb = new StringBuilder(len);
+        for (int i = 0; i < len; ++i)
+            sb.append(chars.charAt((i * 7 + seed) % chars.length()));
+        return sb.toString();
+    }
+
+    /**
+     * Frames arriving a few bytes at a time, and several frames arriving in one read,
+     * are each decoded once and in order.
+     */
+    @Test(timeout=60000)
+    public void testPartialReads()
+        throws Exception
+    {
+        final Socket s = connect();
+        s.setTcpNoDelay(true);
+        final OutputStream out = s.getOutputStream();
+
+        final String[] texts = { "first", makeText(300, 1), "é中", "last" };
+        for (String tx : texts)
+        {
+            // dribble each frame, including splitting its length bytes and multi-byte characters
+            final byte[] fr = LoopbackTestServer.textFrame(tx);
+            for (int i = 0; i < fr.length; i += 3)
+            {
+                out.write(fr, i, Math.min(3, fr.length - i));
+                out.flush();
+                Thread.sleep(1);
+            }
+        }
+
+        // several frames in a single write
+        final byte[] f1 = LoopbackTestServer.textFrame("batch1"), f2 = LoopbackTestServer.textFrame("batch2");
+        final byte[] both = new byte[f1.length + f2.length];
+        System.arraycopy(f1, 0, both, 0, f1.length);
+        System.arraycopy(f2, 0, both, f1.length, f2.length);
+        out.write(both);
+        out.flush();
+
+        final List<String> got = srv.awaitReceived(texts.length + 2);
+        assertEquals(texts.length + 2, got.size());
+        for (int i = 0; i < texts.length; ++i)
+            assertEquals(texts[i], got.get(i));
+        assertEquals("batch1", got.get(texts.length));
+        assertEquals("batch2", got.get(texts.length + 1));
+    }
+
+    /**
+     * Inbound frames much larger than the connection's initial read buffer
+     * are received whole, including one at the maximum frame size.
+     */
+    @Test(timeout=60000)
+    public void testInboundLargerThanBuffer()
+        throws Exception
+    {
+        final Socket s = connect();
+        final OutputStream out = s.getOutputStream();
+
+        final String big = makeText(20000, 2);
+        final StringBuilder sbMax = new StringBuilder();
+        final int maxTextLen = Connection.MAX_MESSAGE_SIZE_UTF8 - LoopbackTestServer.textFrame("").length + 2;
+        for (int i = 0; i < maxTextLen; ++i)
+            sbMax.append((char) ('a' + (i % 26)));
+        final String max = sbMax.toString();
+        assertEquals(Connection.MAX_MESSAGE_SIZE_UTF8 + 2, LoopbackTestServer.textFrame(max).length);
+
+        out.write(LoopbackTestServer.textFrame(big));
+        out.write(LoopbackTestServer.textFrame("small"));
+        out.write(LoopbackTestServer.textFrame(max));
+        out.flush();
+
+        final List<String> got = srv.awaitReceived(3);
+        assertEquals(big, got.get(0));
+        assertEquals("small", got.get(1));
+        assertEquals(max, got.get(2));
+    }
+
+    /**
+     * Outbound messages, including large ones, are all delivered in order
+     * even when the client isn't reading at first: The server's socket send buffer fills,
+     * so the selector thread must handle partial writes and wait until writable.
+     */
+    @Test(timeout=60000)
+    public void testPartialWritesAndLargeOutbound()
+        throws Exception
+    {
+        final Socket s = connect();
+        final Connection sc = srv.awaitConnection(1);
+
+        final int N = 300;
+        final List<String> sent = new ArrayList<>();
+        for (int i = 0; i < N; ++i)
+        {
+            final String msg = i + ":" + makeText((i % 3 == 0) ? 30000 : 50, i);
+            sent.add(msg);
+            sc.put(msg);
+        }
+
+        Thread.sleep(200);  // let the server's send buffer fill before reading
+        for (int i = 0; i < N; ++i)
+            assertEquals("message " + i, sent.get(i), LoopbackTestServer.readFrame(s));
+        assertTrue(sc.isConnected());
+    }
+
+    /**
+     * Client disconnecting partway through sending a frame:
+     * Server removes the connection, and doesn't dispatch the partial message.
+     */
+    @Test(timeout=60000)
+    public void testClientDisconnectMidMessage()
+        throws Exception
+    {
+        final Socket s = connect();
+        final OutputStream out = s.getOutputStream();
+        out.write(LoopbackTestServer.textFrame("whole"));
+        final byte[] fr = LoopbackTestServer.textFrame(makeText(5000, 3));
+        out.write(fr, 0, fr.length / 2);
+        out.flush();
+
+        final Connection sc = srv.awaitConnection(1);
+        assertEquals("whole", srv.awaitReceived(1).get(0));
+        s.close();
+
+        srv.awaitLeft(1);
+        assertFalse(sc.isConnected());
+        assertEquals(1, srv.awaitReceived(1).size());
+        assertEquals(0, srv.getCurrentConnectionCount());
+
+        // other clients still work afterwards
+        final Socket s2 = connect();
+        s2.getOutputStream().write(LoopbackTestServer.textFrame("after"));
+        assertEquals("after", srv.awaitReceived(2).get(1));
+    }
+
+    /**
+     * Stopping the server while clients are connected closes their sockets,
+     * and stops the selector threads.
+     */
+    @Test(timeout=60000)
+    public void testServerShutdownWithOpenConnections()
+        throws Exception
+    {
+        final int N = 4;
+        for (int i = 0; i < N; ++i)
+            connect();
+        final Connection sc = srv.awaitConnection(N);
+        sc.put("before stop");
+        assertEquals("before stop", LoopbackTestServer.readFrame(clients.get(N - 1)));
+
+        srv.stopServer();
+
+        for (Socket s : clients)
+        {
+            try
+            {
+                LoopbackTestServer.readFrame(s);
+                fail("should be closed by server");
+            }
+            catch (EOFException e) {}
+            catch (SocketException e) {}  // connection reset
+        }
+
+        final String threadPrefix = "nio-selector-" + clients.get(0).getPort() + "-";
+        final long until = System.currentTimeMillis() + LoopbackTestServer.AWAIT_TIMEOUT_MS;
+        boolean anyRunning;
+        do
+        {
+            anyRunning = false;
+            for (Thread th : Thread.getAllStackTraces().keySet())
+                if (th.getName().startsWith(threadPrefix))
+                    anyRunning = true;
+            if (anyRunning)
+                Thread.sleep(20);
+        } while (anyRunning && (System.currentTimeMillis() < until));
+        assertFalse("selector threads should stop", anyRunning);
+    }
+
+}
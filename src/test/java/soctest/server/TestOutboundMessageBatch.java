@@ -0,0 +1,242 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * This file Copyright (C) 2026 Jeremy D Monin <jeremy@nand.net>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The maintainer of this program can be reached at jsettlers@nand.net
+ **/
+
+package soctest.server;
+
+import java.io.EOFException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import soc.message.SOCGameState;
+import soc.message.SOCMessage;
+import soc.message.SOCMessageBatch;
+import soc.message.SOCTurn;
+import soc.server.genericServer.OutboundMessageBatch;
+import soc.server.genericServer.StringConnection;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link OutboundMessageBatch} and its {@link SOCMessageBatch} frames.
+ * @since 2.7.00
+ */
+public class TestOutboundMessageBatch
+{
+    /**
+     * Make a connection pair, as if client had connected to server.
+     * @param acceptsBatch  Should the server side {@link StringConnection#setBatchMessagesAccepted(boolean)}
+     *     and {@link StringConnection#setBinaryMessagesAccepted(boolean)}?
+     * @return  Server side at index 0, client side at index 1
+     */
+    private static StringConnection[] makeConnPair(final boolean acceptsBatch)
+        throws EOFException
+    {
+        return makeConnPair(acceptsBatch, acceptsBatch);
+    }
+
+    /**
+     * Make a connection pair, as if client had connected to server.
+     * @param acceptsBatch  Should the server side {@link StringConnection#setBatchMessagesAccepted(boolean)}?
+     * @param acceptsBinary  Should the server side {@link StringConnection#setBinaryMessagesAccepted(boolean)}?
+     * @return  Server side at index 0, client side at index 1
+     */
+    private static StringConnection[] makeConnPair(final boolean acceptsBatch, final boolean acceptsBinary)
+        throws EOFException
+    {
+        final StringConnection srvSide = new StringConnection(), cliSide = new StringConnection(srvSide);
+        srvSide.setAccepted();
+        cliSide.setAccepted();
+        srvSide.setBinaryMessagesAccepted(acceptsBinary);
+        srvSide.setBatchMessagesAccepted(acceptsBatch);
+
+        return new StringConnection[]{ srvSide, cliSide };
+    }
+
+    /** Read all frames waiting at a client connection, without blocking. */
+    private static List<String> readAll(final StringConnection cli)
+        throws EOFException
+    {
+        final List<String> ret = new ArrayList<>();
+        while (cli.isInputAvailable())
+            ret.add(cli.readNext());
+
+        return ret;
+    }
+
+    /**
+     * Basic batching: Messages are held until end, multiple become one batch in order,
+     * a single message is sent by itself, and connections which don't accept batches aren't held.
+     */
+    @Test
+    public void testBatchAndOrder()
+        throws EOFException
+    {
+        final StringConnection[] connA = makeConnPair(true), connB = makeConnPair(true),
+            connOld = makeConnPair(false);
+        final String st = new SOCGameState("ga", 20).toCmd(), tu = new SOCTurn("ga", 2, 0).toBinaryCmd(),
+            st2 = new SOCGameState("ga", 15).toCmd();
+
+        // no batch open: sent immediately
+        assertFalse(OutboundMessageBatch.isOpen());
+        connA[0].put(st);
+        assertEquals(Arrays.asList(st), readAll(connA[1]));
+
+        OutboundMessageBatch.begin("ga");
+        try
+        {
+            assertTrue(OutboundMessageBatch.isOpen());
+            connA[0].put(st);
+            connB[0].put(st);
+            connOld[0].put(st);
+            connA[0].put(tu);
+            connA[0].put(st2);
+
+            assertTrue(readAll(connA[1]).isEmpty());
+            assertTrue(readAll(connB[1]).isEmpty());
+            assertEquals("not held if client doesn't accept batches", Arrays.asList(st), readAll(connOld[1]));
+        } finally {
+            OutboundMessageBatch.end();
+        }
+        assertFalse(OutboundMessageBatch.isOpen());
+
+        final List<String> gotA = readAll(connA[1]);
+        assertEquals(1, gotA.size());
+        final SOCMessage msg = SOCMessage.toMsg(gotA.get(0));
+        assertTrue(msg instanceof SOCMessageBatch);
+        final SOCMessageBatch batch = (SOCMessageBatch) msg;
+        assertEquals("ga", batch.getGame());
+        assertEquals(Arrays.asList(st, tu, st2), batch.getFrames());
+        final List<SOCMessage> inner = batch.getMessages();
+        assertEquals(3, inner.size());
+        assertTrue(inner.get(0) instanceof SOCGameState);
+        assertTrue(inner.get(1) instanceof SOCTurn);
+        assertEquals(2, ((SOCTurn) inner.get(1)).getPlayerNumber());
+        assertEquals(15, ((SOCGameState) inner.get(2)).getState());
+
+        assertEquals("single message isn't batched", Arrays.asList(st), readAll(connB[1]));
+
+        // after batch: sent immediately again
+        connA[0].put(st2);
+        assertEquals(Arrays.asList(st2), readAll(connA[1]));
+    }
+
+    /**
+     * With binary messages off and batches on, as if server has {@code jsettlers.net.binary=N}:
+     * Batches are binary frames, so messages are sent separately as text instead.
+     */
+    @Test
+    public void testBinaryOffBatchOn()
+        throws EOFException
+    {
+        final StringConnection[] conn = makeConnPair(true, false);
+        assertFalse(conn[0].isBatchMessagesAccepted());
+
+        final SOCGameState st = new SOCGameState("ga", 20);
+        final SOCTurn tu = new SOCTurn("ga", 2, 0);
+        OutboundMessageBatch.begin("ga");
+        try
+        {
+            conn[0].put(st);
+            conn[0].put(tu);
+            assertEquals("sent right away as text, not held",
+                Arrays.asList(st.toCmd(), tu.toCmd()), readAll(conn[1]));
+        } finally {
+            OutboundMessageBatch.end();
+        }
+        assertTrue(readAll(conn[1]).isEmpty());
+    }
+
+    /**
+     * Nested batches are held until the outermost one ends.
+     */
+    @Test
+    public void testNested()
+        throws EOFException
+    {
+        final StringConnection[] conn = makeConnPair(true);
+        final String st = new SOCGameState("ga", 20).toCmd();
+
+        OutboundMessageBatch.begin("ga");
+        conn[0].put(st);
+        OutboundMessageBatch.begin("ga");
+        conn[0].put(st);
+        OutboundMessageBatch.end();
+        assertTrue(OutboundMessageBatch.isOpen());
+        assertTrue(readAll(conn[1]).isEmpty());
+        OutboundMessageBatch.end();
+        assertFalse(OutboundMessageBatch.isOpen());
+
+        final List<String> got = readAll(conn[1]);
+        assertEquals(1, got.size());
+        assertEquals(2, ((SOCMessageBatch) SOCMessage.toMsg(got.get(0))).getFrames().size());
+
+        OutboundMessageBatch.end();  // extra end: ignored
+        assertFalse(OutboundMessageBatch.isOpen());
+    }
+
+    /**
+     * Large batches are sent in parts, and a message too large to batch is sent by itself,
+     * all in their original order.
+     */
+    @Test
+    public void testSizeLimit()
+        throws EOFException
+    {
+        final StringConnection[] conn = makeConnPair(true);
+        final char[] fill = new char[5000];
+        Arrays.fill(fill, 'x');
+        final String filler = new String(fill);
+
+        final List<String> sent = new ArrayList<>();
+        OutboundMessageBatch.begin("ga");
+        try
+        {
+            for (int i = 0; i < 10; ++i)
+            {
+                final String s = "1018|ga|" + i + filler;  // SOCGameTextMsg-like text frames
+                sent.add(s);
+                conn[0].put(s);
+            }
+            final String huge = "1018|ga|huge" + filler + filler + filler + filler;
+            sent.add(huge);
+            conn[0].put(huge);
+            sent.add("1025|ga,20");
+            conn[0].put("1025|ga,20");
+        } finally {
+            OutboundMessageBatch.end();
+        }
+
+        final List<String> got = readAll(conn[1]), unpacked = new ArrayList<>();
+        assertTrue("sent in several parts", got.size() > 2);
+        for (final String frame : got)
+        {
+            assertTrue("frame within limit", frame.length() < 4 * 5000 + 100);
+            final SOCMessage msg = SOCMessage.toMsg(frame);
+            if (msg instanceof SOCMessageBatch)
+                unpacked.addAll(((SOCMessageBatch) msg).getFrames());
+            else
+                unpacked.add(frame);
+        }
+        assertEquals(sent, unpacked);
+    }
+
+}
@@ -401,6 +401,24 @@ public class TestRecorder
                             (ga, "robber.common.you.stole.resource.from", -1, SOCResourceConstants.SHEEP, "xyz")}
                 }, false);
 
+        // messageToGameKeyed methods, which localize once per locale after copying game's member list:
+        // game's only member is "es", so recorded event should be fallback en_US text
+        if (compares == null)
+        {
+            log.clear();
+            srv.messageToGameKeyed(ga, true, true, "action.built.stlmt", "xyz");
+            srv.messageToGameKeyedSpecial
+                (ga, true, true, "robber.common.you.stole.resource.from", -1, SOCResourceConstants.SHEEP, "xyz");
+            compares = compareRecordsToExpected
+                (log.entries, new String[][]
+                    {
+                        {"all:SOCGameServerText:", "text=" + strings.get("action.built.stlmt", "xyz")},
+                        {"all:SOCGameServerText:", "text="
+                            + strings.getSpecial
+                                (ga, "robber.common.you.stole.resource.from", -1, SOCResourceConstants.SHEEP, "xyz")}
+                    }, false);
+        }
+
         // TODO test client: Add flag field to record messages,
         //      make sure that actual client receives text localized to es not en_US
         //      For now, can verify by searching test's System.out for SOCGameServerText
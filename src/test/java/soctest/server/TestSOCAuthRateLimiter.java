@@ -0,0 +1,101 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * This file Copyright (C) 2026 Jeremy D Monin <jeremy@nand.net>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The maintainer of this program can be reached at jsettlers@nand.net
+ **/
+package soctest.server;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import soc.server.SOCAuthRateLimiter;
+
+/**
+ * Tests for {@link SOCAuthRateLimiter}.
+ *
+ * @since 2.7.00
+ */
+public class TestSOCAuthRateLimiter
+{
+    /** Per-username limit from each host, case-insensitive, and refill over time. */
+    @Test
+    public void testPerUserLimit()
+    {
+        final SOCAuthRateLimiter lim = new SOCAuthRateLimiter(0, 3);
+        final long t0 = 1000000L;
+
+        assertTrue(lim.tryAcquire("h1", "alice", t0));
+        assertTrue(lim.tryAcquire("h1", "Alice", t0));
+        assertTrue(lim.tryAcquire("h1", "ALICE", t0));
+        assertFalse(lim.tryAcquire("h1", "alice", t0));
+        assertTrue("other user not limited", lim.tryAcquire("h1", "bob", t0));
+        assertTrue("same user from other host not limited", lim.tryAcquire("h2", "alice", t0));
+        assertEquals(1, lim.getRejectedCount());
+
+        // 3 per minute: 1 more attempt after 20 seconds
+        assertFalse(lim.tryAcquire("h1", "alice", t0 + 10000));
+        assertTrue(lim.tryAcquire("h1", "alice", t0 + 20000));
+        assertFalse(lim.tryAcquire("h1", "alice", t0 + 20000));
+        assertEquals(3, lim.getRejectedCount());
+
+        // null host: username from all hosts together
+        final SOCAuthRateLimiter limNoHost = new SOCAuthRateLimiter(0, 1);
+        assertTrue(limNoHost.tryAcquire(null, "alice", t0));
+        assertFalse(limNoHost.tryAcquire(null, "Alice", t0));
+    }
+
+    /** Per-host limit; rejected attempts don't use up the other key's attempts. */
+    @Test
+    public void testPerHostLimit()
+    {
+        final SOCAuthRateLimiter lim = new SOCAuthRateLimiter(3, 2);
+        final long t0 = 1000000L;
+
+        assertTrue(lim.tryAcquire("h1", "alice", t0));
+        assertTrue(lim.tryAcquire("h1", "bob", t0));
+        assertTrue(lim.tryAcquire("h1", "carol", t0));
+        assertFalse("host limit", lim.tryAcquire("h1", "dave", t0));
+        assertTrue("dave's attempt wasn't counted", lim.tryAcquire("h2", "dave", t0));
+        assertTrue(lim.tryAcquire("h2", "dave", t0));
+        assertFalse("user limit", lim.tryAcquire("h2", "dave", t0));
+        assertTrue("host h2 attempt wasn't counted", lim.tryAcquire("h2", "erin", t0));
+        assertFalse("host limit", lim.tryAcquire("h2", "frank", t0));
+    }
+
+    /** Buckets which have refilled are removed after a minute. */
+    @Test
+    public void testPrune()
+    {
+        final SOCAuthRateLimiter lim = new SOCAuthRateLimiter(5, 5);
+        final long t0 = 1000000L;
+
+        assertTrue(lim.tryAcquire("h1", "alice", t0));
+        assertTrue(lim.tryAcquire("h2", "bob", t0));
+        assertEquals(4, lim.getTrackedCount());
+
+        assertTrue(lim.tryAcquire("h3", "carol", t0 + 61000));
+        assertEquals("only carol's h3 and user buckets", 2, lim.getTrackedCount());
+    }
+
+    /** Limits can't be negative. */
+    @Test(expected=IllegalArgumentException.class)
+    public void testBadLimit()
+    {
+        new SOCAuthRateLimiter(-1, 5);
+    }
+
+}
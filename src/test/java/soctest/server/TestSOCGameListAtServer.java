@@ -0,0 +1,405 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * This file Copyright (C) 2026 Jeremy D Monin <jeremy@nand.net>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The maintainer of this program can be reached at jsettlers@nand.net
+ **/
+
+package soctest.server;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import soc.game.SOCGame;
+import soc.game.SOCGameOptionSet;
+import soc.server.SOCGameHandler;
+import soc.server.SOCGameListAtServer;
+import soc.server.genericServer.Connection;
+import soc.util.SOCGameBoardReset;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link SOCGameListAtServer} locking: Per-game monitors and member lists
+ * don't wait for other games or for the game list's monitor, and many games' members
+ * can be changed and iterated concurrently.
+ * @since 2.7.00
+ */
+public class TestSOCGameListAtServer
+{
+    private static SOCGameHandler sgh;
+    private static SOCGameOptionSet knownOpts;
+
+    /** Minimal connection, only used as a game member */
+    private static final class TestConn extends Connection
+    {
+        public TestConn(final String name) { data = name; setVersion(2700, true); }
+        public String host() { return "test"; }
+        public void put(String str) {}
+        public void run() {}
+        public boolean isConnected() { return true; }
+        public boolean connect() { return true; }
+        public void disconnect() {}
+        public void disconnectSoft() {}
+        public boolean isInputAvailable() { return false; }
+    }
+
+    @BeforeClass
+    public static void setUpOnce()
+    {
+        sgh = new SOCGameHandler(null);
+        knownOpts = SOCGameOptionSet.getAllKnownOptions();
+    }
+
+    /**
+     * Create a game while holding the game list's monitor, like the server does.
+     * @return the new game
+     */
+    private static SOCGame createGame(final SOCGameListAtServer gl, final String gaName)
+    {
+        gl.takeMonitor();
+        try
+        {
+            return gl.createGame(gaName, null, null, null, sgh);
+        } finally {
+            gl.releaseMonitor();
+        }
+    }
+
+    /**
+     * Basic member tracking: add, remove, client version range, and member list snapshot iteration.
+     */
+    @Test
+    public void testMembers()
+    {
+        final SOCGameListAtServer gl = new SOCGameListAtServer(new Random(), knownOpts);
+        final SOCGame ga = createGame(gl, "membersTest");
+        assertNotNull(ga);
+        assertTrue(gl.isGameEmpty("membersTest"));
+
+        final TestConn c1 = new TestConn("p1"), c2 = new TestConn("p2");
+        c2.setVersion(2500, true);
+        gl.addMember(c1, "membersTest");
+        gl.addMember(c2, "membersTest");
+        gl.addMember(c2, "membersTest");  // already member: ignored
+        assertFalse(gl.isGameEmpty("membersTest"));
+        assertEquals(2, gl.getMembers("membersTest").size());
+        assertTrue(gl.isMember(c1, "membersTest"));
+        assertTrue(gl.isMember("p2", "membersTest"));
+        assertEquals(2500, ga.clientVersionLowest);
+        assertEquals(2700, ga.clientVersionHighest);
+        assertTrue(ga.hasOldClients);
+
+        // iteration sees the members as of when it started, even if list changes during iteration
+        int n = 0;
+        for (Connection c : gl.getMembers("membersTest"))
+        {
+            ++n;
+            if (c == c1)
+                gl.removeMember(c2, "membersTest");
+            else
+                gl.removeMember(c1, "membersTest");
+        }
+        assertEquals(2, n);
+        assertEquals(0, gl.getMembers("membersTest").size());
+
+        gl.addMember(c1, "membersTest");
+        gl.addMember(c2, "membersTest");
+        gl.removeMember(c2, "membersTest");
+        assertEquals(2700, ga.clientVersionLowest);
+        assertFalse(ga.hasOldClients);
+
+        gl.takeMonitor();
+        try
+        {
+            gl.deleteGame("membersTest");
+        } finally {
+            gl.releaseMonitor();
+        }
+        assertNull(gl.getMembers("membersTest"));
+        assertFalse(gl.isGame("membersTest"));
+        assertFalse(gl.takeMonitorForGame("membersTest"));
+    }
+
+    /**
+     * Per-game actions shouldn't wait for another game's monitor or for the game list's monitor.
+     */
+    @Test(timeout = 20000)
+    public void testPerGameNotBlockedByOthers()
+        throws Exception
+    {
+        final SOCGameListAtServer gl = new SOCGameListAtServer(new Random(), knownOpts);
+        createGame(gl, "busy");
+        createGame(gl, "other");
+
+        // hold game "busy"'s monitor and the game list's monitor on another thread
+        final CountDownLatch held = new CountDownLatch(1), done = new CountDownLatch(1);
+        final Thread holder = new Thread(() ->
+        {
+            gl.takeMonitor();
+            gl.takeMonitorForGame("busy");
+            held.countDown();
+            try
+            {
+                done.await();
+            } catch (InterruptedException e) {}
+            gl.releaseMonitorForGame("busy");
+            gl.releaseMonitor();
+        });
+        holder.start();
+        assertTrue(held.await(5, TimeUnit.SECONDS));
+
+        final ExecutorService ex = Executors.newSingleThreadExecutor();
+        try
+        {
+            final Future<Integer> f = ex.submit(() ->
+            {
+                // none of these should wait for the holder thread
+                assertTrue(gl.takeMonitorForGame("other"));
+                try
+                {
+                    gl.addMember(new TestConn("p"), "other");
+                    gl.addMember(new TestConn("obs"), "busy");  // member list isn't locked by game monitor
+                    int n = 0;
+                    for (Connection c : gl.getMembers("other"))
+                        if (c != null)
+                            ++n;
+                    return n + gl.getMembers("busy").size() + (gl.isGame("busy") ? 1 : 0);
+                } finally {
+                    gl.releaseMonitorForGame("other");
+                }
+            });
+            assertEquals(Integer.valueOf(3), f.get(5, TimeUnit.SECONDS));
+        } finally {
+            done.countDown();
+            holder.join();
+            ex.shutdownNow();
+        }
+    }
+
+    /**
+     * {@link SOCGameListAtServer#takeMonitorForGame(String)} gives at most one thread the monitor at a time.
+     */
+    @Test(timeout = 30000)
+    public void testGameMonitorExclusive()
+        throws Exception
+    {
+        final SOCGameListAtServer gl = new SOCGameListAtServer(new Random(), knownOpts);
+        createGame(gl, "mon");
+
+        final int THREADS = 8, ITERS = 2000;
+        final AtomicInteger inside = new AtomicInteger();
+        final AtomicBoolean sawOverlap = new AtomicBoolean();
+        final int[] counter = new int[1];  // not atomic: protected only by game monitor
+        final ExecutorService ex = Executors.newFixedThreadPool(THREADS);
+        final List<Future<?>> fs = new ArrayList<>();
+        for (int t = 0; t < THREADS; ++t)
+            fs.add(ex.submit(() ->
+            {
+                for (int i = 0; i < ITERS; ++i)
+                {
+                    assertTrue(gl.takeMonitorForGame("mon"));
+                    try
+                    {
+                        if (inside.incrementAndGet() > 1)
+                            sawOverlap.set(true);
+                        ++counter[0];
+                        inside.decrementAndGet();
+                    } finally {
+                        gl.releaseMonitorForGame("mon");
+                    }
+                }
+            }));
+        for (Future<?> f : fs)
+            f.get();
+        ex.shutdown();
+
+        assertFalse("2 threads held game monitor at once", sawOverlap.get());
+        assertEquals(THREADS * ITERS, counter[0]);
+    }
+
+    /**
+     * Contention test: Hundreds of simulated bot games in parallel. Each game is created and
+     * deleted under the game list monitor; its 4 bots join, play turns under the game's monitor
+     * while broadcasting to members, and sometimes leave and rejoin. Meanwhile another thread
+     * keeps iterating every game's members without locks, like a server-wide broadcast.
+     * Checks for exceptions, game monitor overlap, and leftover games.
+     *<P>
+     * Throughput of similar work is measured by {@code soctest.server.BenchSOCGameListAtServer}
+     * in {@code src/jmh/java}, run with gradle task {@code jmh} instead of unit tests.
+     */
+    @Test(timeout = 120000)
+    public void testManyParallelBotGames()
+        throws Exception
+    {
+        final SOCGameListAtServer gl = new SOCGameListAtServer(new Random(), knownOpts);
+        final int GAMES = 300, BOTS = 4, TURNS = 200;
+        final int threads = Math.max(8, 2 * Runtime.getRuntime().availableProcessors());
+
+        final TestConn[] bots = new TestConn[20];
+        for (int i = 0; i < bots.length; ++i)
+            bots[i] = new TestConn("droid " + i);
+
+        final ConcurrentHashMap<String, AtomicInteger> insideGame = new ConcurrentHashMap<>();
+        final AtomicBoolean sawOverlap = new AtomicBoolean(), stopScanner = new AtomicBoolean();
+        final AtomicLong sends = new AtomicLong();
+
+        final Thread scanner = new Thread(() ->
+        {
+            while (! stopScanner.get())
+            {
+                for (String gaName : gl.getGameNames())
+                {
+                    final List<Connection> mem = gl.getMembers(gaName);
+                    if (mem != null)
+                        for (Connection c : mem)
+                            assertNotNull(c);
+                }
+                gl.playerGamesMinVersion(bots[0]);
+            }
+        });
+        scanner.start();
+
+        final ExecutorService ex = Executors.newFixedThreadPool(threads);
+        final List<Future<?>> fs = new ArrayList<>();
+        for (int g = 0; g < GAMES; ++g)
+        {
+            final int gnum = g;
+            fs.add(ex.submit(() ->
+            {
+                final SOCGame ga = createGame(gl, "~botsOnly~" + gnum);
+                assertNotNull(ga);
+                final String gaName = ga.getName();
+                final AtomicInteger inside = new AtomicInteger();
+                insideGame.put(gaName, inside);
+                final Random rand = new Random(gnum);
+
+                final TestConn[] seated = new TestConn[BOTS];
+                for (int b = 0; b < BOTS; ++b)
+                {
+                    seated[b] = bots[(gnum + b * 5) % bots.length];
+                    assertTrue(gl.takeMonitorForGame(gaName));
+                    try
+                    {
+                        gl.addMember(seated[b], gaName);
+                    } finally {
+                        gl.releaseMonitorForGame(gaName);
+                    }
+                }
+
+                for (int turn = 0; turn < TURNS; ++turn)
+                {
+                    assertTrue(gl.takeMonitorForGame(gaName));
+                    try
+                    {
+                        if (inside.incrementAndGet() > 1)
+                            sawOverlap.set(true);
+
+                        for (Connection c : gl.getMembers(gaName))
+                        {
+                            c.put("turn");
+                            sends.incrementAndGet();
+                        }
+
+                        if (rand.nextInt(20) == 0)
+                        {
+                            // a bot leaves and rejoins
+                            final TestConn c = seated[rand.nextInt(BOTS)];
+                            gl.removeMember(c, gaName);
+                            gl.addMember(c, gaName);
+                        }
+
+                        inside.decrementAndGet();
+                    } finally {
+                        gl.releaseMonitorForGame(gaName);
+                    }
+                }
+
+                assertEquals(BOTS, gl.getMembers(gaName).size());
+
+                gl.takeMonitor();
+                try
+                {
+                    gl.deleteGame(gaName);
+                } finally {
+                    gl.releaseMonitor();
+                }
+            }));
+        }
+
+        try
+        {
+            for (Future<?> f : fs)
+                f.get();  // rethrows any assertion failure or exception
+        } finally {
+            stopScanner.set(true);
+            scanner.join();
+            ex.shutdownNow();
+        }
+
+        assertFalse("2 threads held a game monitor at once", sawOverlap.get());
+        assertEquals(0, gl.size());
+        assertTrue(gl.getGamesData().isEmpty());
+        assertEquals((long) GAMES * TURNS * BOTS, sends.get());
+    }
+
+    /**
+     * {@link SOCGameListAtServer#resetBoard(String)} removes the old game's bots from the member list
+     * and updates the new game's client version range, but keeps its human members.
+     */
+    @Test
+    public void testResetBoardRemovesBots()
+    {
+        final SOCGameListAtServer gl = new SOCGameListAtServer(new Random(), knownOpts);
+        final SOCGame ga = createGame(gl, "resetTest");
+        final TestConn human = new TestConn("human"), bot = new TestConn("robot 1");
+        bot.setVersion(2500, true);
+        gl.addMember(human, "resetTest");
+        gl.addMember(bot, "resetTest");
+        ga.addPlayer("human", 0);
+        ga.addPlayer("robot 1", 2);
+        ga.getPlayer(2).setRobotFlag(true, false);
+        assertEquals(2500, ga.clientVersionLowest);
+
+        final SOCGameBoardReset reset = gl.resetBoard("resetTest");
+        assertNotNull(reset);
+        assertTrue(reset.hadRobots);
+        assertSame(bot, reset.robotConns[2]);
+        assertSame(human, reset.humanConns[0]);
+
+        final SOCGame newGame = gl.getGameData("resetTest");
+        assertSame(reset.newGame, newGame);
+        final List<Connection> members = gl.getMembers("resetTest");
+        assertEquals(1, members.size());
+        assertSame(human, members.get(0));
+        assertEquals(2700, newGame.clientVersionLowest);
+        assertEquals(2700, newGame.clientVersionHighest);
+        assertFalse(newGame.hasOldClients);
+    }
+
+}
@@ -0,0 +1,116 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * This file Copyright (C) 2026 Jeremy D Monin <jeremy@nand.net>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The maintainer of this program can be reached at jsettlers@nand.net
+ **/
+
+package soctest.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import soc.util.CappedQueue;
+import soc.util.CutoffExceededException;
+import soc.util.VirtualThreads;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link CappedQueue}, and running its consumers on {@link VirtualThreads} if available.
+ * @since 2.7.00
+ */
+public class TestCappedQueue
+{
+    /** Items come out in order put, including nulls; size limit is enforced. */
+    @Test
+    public void testOrderAndLimit()
+        throws CutoffExceededException
+    {
+        final CappedQueue<String> q = new CappedQueue<>(4);
+        assertTrue(q.empty());
+        q.put("a");
+        q.put(null);
+        q.put("c");
+        assertFalse(q.empty());
+        assertEquals("a", q.get());
+        assertNull(q.get());
+        assertEquals("c", q.get());
+        assertTrue(q.empty());
+
+        q.put("1");
+        q.put("2");
+        q.put("3");
+        try
+        {
+            q.put("4");
+            fail("should have thrown CutoffExceededException");
+        } catch (CutoffExceededException e) {}
+        assertEquals("item is still added when limit reached", "1", q.get());
+        assertEquals("2", q.get());
+        assertEquals("3", q.get());
+        assertEquals("4", q.get());
+    }
+
+    /**
+     * Many consumer threads, virtual if available, wait in {@link CappedQueue#get()} and are each woken by a put.
+     */
+    @Test(timeout = 30000)
+    public void testWaitingConsumers()
+        throws Exception
+    {
+        final int N = 500;
+        final List<CappedQueue<Integer>> queues = new ArrayList<>(N);
+        final AtomicInteger sum = new AtomicInteger();
+        final CountDownLatch done = new CountDownLatch(N);
+        for (int i = 0; i < N; ++i)
+        {
+            final CappedQueue<Integer> q = new CappedQueue<>();
+            queues.add(q);
+            final Runnable consumer = () ->
+            {
+                Integer v;
+                while ((v = q.get()) != null)
+                    sum.addAndGet(v);
+                done.countDown();
+            };
+
+            Thread th = VirtualThreads.newThread(consumer, "consumer-" + i);
+            assertEquals(VirtualThreads.isAvailable(), (th != null));
+            if (th == null)
+            {
+                th = new Thread(consumer);
+                th.setDaemon(true);
+            }
+            th.start();
+        }
+
+        for (int i = 0; i < N; ++i)
+        {
+            final CappedQueue<Integer> q = queues.get(i);
+            q.put(i);
+            q.put(1);
+            q.put(null);  // end of items
+        }
+
+        assertTrue(done.await(20, TimeUnit.SECONDS));
+        assertEquals((N * (N - 1)) / 2 + N, sum.get());
+    }
+
+}
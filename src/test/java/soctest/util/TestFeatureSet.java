@@ -1,6 +1,6 @@
 /**
  * Java Settlers - An online multiplayer version of the game Settlers of Catan
- * This file Copyright (C) 2018-2021 Jeremy D Monin <jeremy@nand.net>
+ * This file Copyright (C) 2018-2021,2026 Jeremy D Monin <jeremy@nand.net>
  *
  * This program is free software; you can redistribute it and/or
  * modify it under the terms of the GNU General Public License
@@ -303,6 +303,8 @@ public class TestFeatureSet
         assertTrue(SOCFeatureSet.CLIENT_6_PLAYERS.equals("6pl"));
         assertTrue(SOCFeatureSet.CLIENT_SEA_BOARD.equals("sb"));
         assertTrue(SOCFeatureSet.CLIENT_SCENARIO_VERSION.equals("sc"));
+        assertTrue(SOCFeatureSet.CLIENT_BINARY_MESSAGES.equals("bin"));
+        assertTrue(SOCFeatureSet.CLIENT_MESSAGE_BATCH.equals("batch"));
 
         assertTrue(SOCFeatureSet.SERVER_ACCOUNTS.equals("accts"));
         assertTrue(SOCFeatureSet.SERVER_CHANNELS.equals("ch"));
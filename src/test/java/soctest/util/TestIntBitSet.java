@@ -0,0 +1,173 @@
+/**
+ * Java Settlers - An online multiplayer version of the game Settlers of Catan
+ * This file Copyright (C) 2026 Jeremy D Monin <jeremy@nand.net>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The maintainer of this program can be reached at jsettlers@nand.net
+ **/
+
+package soctest.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import soc.util.IntBitSet;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link IntBitSet}.
+ * @since 2.7.00
+ */
+public class TestIntBitSet
+{
+    /** Assert that {@code bs} has the same contents as {@code ts}, in the same order. */
+    private static void assertSameContents(final TreeSet<Integer> ts, final IntBitSet bs)
+    {
+        assertEquals(ts.size(), bs.size());
+        assertEquals(ts.isEmpty(), bs.isEmpty());
+        assertEquals(ts, bs);
+        assertEquals(bs, ts);
+        assertEquals(ts.hashCode(), bs.hashCode());
+        assertEquals(new ArrayList<Integer>(ts), new ArrayList<Integer>(bs));
+
+        final int[] expected = new int[ts.size()];
+        int n = 0;
+        for (final int i : ts)
+            expected[n++] = i;
+        assertArrayEquals(expected, bs.toIntArray());
+
+        final List<Integer> viaNext = new ArrayList<>(), viaForEach = new ArrayList<>();
+        for (int i = bs.nextSetBit(0); i >= 0; i = bs.nextSetBit(i + 1))
+            viaNext.add(i);
+        bs.forEachInt(viaForEach::add);
+        assertEquals(new ArrayList<Integer>(ts), viaNext);
+        assertEquals(viaNext, viaForEach);
+    }
+
+    /** Random adds and removes should give the same results as a {@link TreeSet}. */
+    @Test
+    public void testSameAsTreeSet()
+    {
+        final Random rand = new Random(2700);
+        final TreeSet<Integer> ts = new TreeSet<>();
+        final IntBitSet bs = new IntBitSet();
+        assertSameContents(ts, bs);
+
+        for (int i = 0; i < 5000; ++i)
+        {
+            final int n = rand.nextInt((i < 2500) ? 300 : 0x1200);
+            switch (rand.nextInt(4))
+            {
+            case 0:
+                assertEquals(ts.remove(n), bs.remove(n));
+                break;
+            case 1:
+                assertEquals(ts.contains(n), bs.contains(Integer.valueOf(n)));
+                assertEquals(ts.remove(n), bs.remove(Integer.valueOf(n)));
+                break;
+            default:
+                assertEquals(ts.add(n), bs.add(n));
+            }
+            assertEquals(ts.contains(n), bs.contains(n));
+            if (i % 250 == 0)
+                assertSameContents(ts, bs);
+        }
+        assertSameContents(ts, bs);
+
+        assertFalse(bs.contains(-1));
+        assertFalse(bs.remove(-1));
+        assertFalse(bs.contains("x"));
+        assertFalse(bs.contains(Integer.MAX_VALUE));
+        assertEquals(-1, bs.nextSetBit(0x10000));
+
+        bs.clear();
+        ts.clear();
+        assertSameContents(ts, bs);
+        assertEquals(-1, bs.nextSetBit(0));
+    }
+
+    /** Adding a negative int should throw {@link IllegalArgumentException}. */
+    @Test(expected=IllegalArgumentException.class)
+    public void testAddNegative()
+    {
+        new IntBitSet().add(-2);
+    }
+
+    /** Copies should be independent of the original after changes to either. */
+    @Test
+    public void testCopyOnWrite()
+    {
+        final IntBitSet orig = new IntBitSet(Arrays.asList(0x23, 0x45, 0x67, 0x89, 0xAB));
+        final IntBitSet c1 = orig.copy(), c2 = orig.copy();
+        final TreeSet<Integer> expected = new TreeSet<>(orig);
+        assertSameContents(expected, c1);
+
+        c1.add(0x1234);
+        c1.remove(0x23);
+        assertSameContents(expected, orig);
+        assertSameContents(expected, c2);
+
+        orig.remove(0x45);
+        assertTrue(c2.contains(0x45));
+        c2.clear();
+        assertEquals(4, orig.size());
+        assertTrue(orig.contains(0x23));
+        assertFalse(c1.contains(0x23));
+        assertTrue(c1.contains(0x45));
+
+        final IntBitSet c3 = orig.copy();
+        c3.addAll(c1);
+        assertSameContents(new TreeSet<>(Arrays.asList(0x23, 0x67, 0x89, 0xAB)), orig);
+        final TreeSet<Integer> union = new TreeSet<>(orig);
+        union.addAll(c1);
+        assertSameContents(union, c3);
+
+        final IntBitSet empty = new IntBitSet();
+        assertTrue(empty.addAll(orig));
+        empty.add(3);
+        assertFalse(orig.contains(3));
+        assertFalse(empty.addAll(orig));
+    }
+
+    /** Iterator should support remove and detect other changes. */
+    @Test
+    public void testIterator()
+    {
+        final IntBitSet bs = new IntBitSet(Arrays.asList(1, 64, 65, 200));
+        final IntBitSet cp = bs.copy();
+        for (Iterator<Integer> it = bs.iterator(); it.hasNext(); )
+            if (it.next() % 2 == 1)
+                it.remove();
+        assertEquals(Arrays.asList(64, 200), new ArrayList<Integer>(bs));
+        assertEquals(4, cp.size());
+
+        final Iterator<Integer> it = bs.iterator();
+        it.next();
+        bs.add(7);
+        try
+        {
+            it.next();
+            fail("should have thrown ConcurrentModificationException");
+        } catch (ConcurrentModificationException e) {}
+    }
+
+}